@@ -0,0 +1,322 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.datastructure.LRUCache;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.configurator.submission.PackingDensity;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+
+/**
+ * Synthetic data set generator for the benchmarks.
+ * 
+ * All data sets are derived from a seeded random generator, so every 
+ * call with the same arguments produces exactly the same data set.
+ * 
+ * @author Eugen Feller
+ */
+public final class BenchmarkDataGenerator 
+{
+    /** The random seed. */
+    public static final long SEED = 42;
+    
+    /** Number of CPUs per local controller. */
+    private static final double NUMBER_OF_CPUS = 16;
+    
+    /** Memory per local controller (KB). */
+    private static final double MEMORY = 32 * 1024 * 1024;
+    
+    /** Network capacity per local controller (KB/s). */
+    private static final double NETWORK = 128 * 1024;
+    
+    /** Monitoring entry interval (ms). */
+    private static final long MONITORING_INTERVAL = 3000;
+    
+    /**
+     * Hide the consturctor.
+     */
+    private BenchmarkDataGenerator() 
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Creates a new resource demand estimator.
+     * 
+     * @param estimator                     The estimator used for all resources
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @return                              The resource demand estimator
+     */
+    public static ResourceDemandEstimator newEstimator(Estimator estimator, int numberOfMonitoringEntries)
+    {
+        EstimatorSettings estimatorSettings = new EstimatorSettings();
+        estimatorSettings.setSortNorm(SortNorm.L1);
+        estimatorSettings.setNumberOfMonitoringEntries(numberOfMonitoringEntries);
+        estimatorSettings.setStatic(false);
+        estimatorSettings.setEwmaWeight(0.3);
+        estimatorSettings.setPercentile(0.95);
+        estimatorSettings.getPolicy().setCPU(estimator);
+        estimatorSettings.getPolicy().setMemory(estimator);
+        estimatorSettings.getPolicy().setNetwork(estimator);
+        
+        List<Double> thresholds = Arrays.asList(0.0, 0.2, 0.9);
+        MonitoringThresholds monitoringThresholds = new MonitoringThresholds(thresholds, 
+                                                                             thresholds, 
+                                                                             thresholds, 
+                                                                             70.0);
+        PackingDensity packingDensity = new PackingDensity();
+        packingDensity.setCPU(1.0);
+        packingDensity.setMemory(1.0);
+        packingDensity.setNetwork(1.0);
+        return new ResourceDemandEstimator(estimatorSettings, monitoringThresholds, packingDensity);
+    }
+    
+    /**
+     * Creates a list of active local controllers hosting a random number of virtual machines.
+     * 
+     * @param numberOfLocalControllers      The number of local controllers
+     * @param maxVirtualMachines            The maximum number of virtual machines per local controller
+     * @param numberOfMonitoringEntries     The number of monitoring entries per virtual machine
+     * @return                              The local controllers
+     */
+    public static List<LocalControllerDescription> newLocalControllers(int numberOfLocalControllers,
+                                                                       int maxVirtualMachines,
+                                                                       int numberOfMonitoringEntries)
+    {
+        Random random = new Random(SEED);
+        List<LocalControllerDescription> localControllers = 
+                new ArrayList<LocalControllerDescription>(numberOfLocalControllers);
+        for (int i = 0; i < numberOfLocalControllers; i++)
+        {
+            int numberOfVirtualMachines = random.nextInt(maxVirtualMachines + 1);
+            localControllers.add(newLocalController(i, numberOfVirtualMachines, numberOfMonitoringEntries, random));
+        }
+        
+        return localControllers;
+    }
+    
+    /**
+     * Creates an active local controller.
+     * 
+     * @param index                         The local controller index
+     * @param numberOfVirtualMachines       The number of hosted virtual machines
+     * @param numberOfMonitoringEntries     The number of monitoring entries per virtual machine
+     * @param random                        The random generator
+     * @return                              The local controller description
+     */
+    public static LocalControllerDescription newLocalController(int index,
+                                                                int numberOfVirtualMachines,
+                                                                int numberOfMonitoringEntries,
+                                                                Random random)
+    {
+        String localControllerId = "lc" + index;
+        NetworkAddress address = new NetworkAddress();
+        address.setAddress(newIpAddress(10, index));
+        address.setPort(5000);
+        
+        LocalControllerDescription localController = new LocalControllerDescription();
+        localController.setId(localControllerId);
+        localController.setStatus(LocalControllerStatus.ACTIVE);
+        localController.setControlDataAddress(address);
+        localController.setTotalCapacity(MathUtils.createCustomVector(NUMBER_OF_CPUS, 
+                                                                      MEMORY, 
+                                                                      new NetworkDemand(NETWORK, NETWORK)));
+        for (int i = 0; i < numberOfVirtualMachines; i++)
+        {
+            String virtualMachineId = localControllerId + "-vm" + i;
+            VirtualMachineMetaData virtualMachine = newVirtualMachine(virtualMachineId, random);
+            virtualMachine.getVirtualMachineLocation().setLocalControllerId(localControllerId);
+            virtualMachine.setIpAddress(newIpAddress(11, (index << 8) + i));
+            virtualMachine.setStatus(VirtualMachineStatus.RUNNING);
+            virtualMachine.setUsedCapacity(newUsedCapacity(virtualMachine, numberOfMonitoringEntries, random));
+            localController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+        }
+        
+        return localController;
+    }
+    
+    /**
+     * Creates a list of virtual machines to be placed.
+     * 
+     * @param numberOfVirtualMachines   The number of virtual machines
+     * @return                          The virtual machines
+     */
+    public static List<VirtualMachineMetaData> newVirtualMachines(int numberOfVirtualMachines)
+    {
+        Random random = new Random(SEED + 1);
+        List<VirtualMachineMetaData> virtualMachines = 
+                new ArrayList<VirtualMachineMetaData>(numberOfVirtualMachines);
+        for (int i = 0; i < numberOfVirtualMachines; i++)
+        {
+            VirtualMachineMetaData virtualMachine = newVirtualMachine("vm" + i, random);
+            virtualMachine.setIpAddress(newIpAddress(12, i));
+            virtualMachines.add(virtualMachine);
+        }
+        
+        return virtualMachines;
+    }
+    
+    /**
+     * Creates aggregated monitoring data for all virtual machines of a local controller.
+     * 
+     * @param localController               The local controller description
+     * @param numberOfMonitoringEntries     The number of monitoring entries per virtual machine
+     * @return                              The aggregated monitoring data
+     */
+    public static List<AggregatedVirtualMachineData> newAggregatedData(LocalControllerDescription localController,
+                                                                       int numberOfMonitoringEntries)
+    {
+        Random random = new Random(SEED + 2);
+        List<AggregatedVirtualMachineData> aggregatedData = new ArrayList<AggregatedVirtualMachineData>();
+        for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
+        {
+            List<VirtualMachineMonitoringData> monitoringData = 
+                    new ArrayList<VirtualMachineMonitoringData>(numberOfMonitoringEntries);
+            for (int i = 0; i < numberOfMonitoringEntries; i++)
+            {
+                monitoringData.add(newMonitoringData(virtualMachine, i * MONITORING_INTERVAL, random));
+            }
+            
+            String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+            aggregatedData.add(new AggregatedVirtualMachineData(virtualMachineId, monitoringData));
+        }
+        
+        return aggregatedData;
+    }
+    
+    /**
+     * Creates the monitoring data transporter of a local controller.
+     * 
+     * @param numberOfVirtualMachines       The number of virtual machines
+     * @param numberOfMonitoringEntries     The number of monitoring entries per virtual machine
+     * @return                              The local controller data transporter
+     */
+    public static LocalControllerDataTransporter newLocalControllerData(int numberOfVirtualMachines,
+                                                                        int numberOfMonitoringEntries)
+    {
+        LocalControllerDescription localController = 
+                newLocalController(0, numberOfVirtualMachines, 0, new Random(SEED));
+        List<AggregatedVirtualMachineData> aggregatedData = newAggregatedData(localController, 
+                                                                              numberOfMonitoringEntries);
+        LocalControllerDataTransporter data = new LocalControllerDataTransporter(localController.getId(), 
+                                                                                 aggregatedData);
+        data.setState(LocalControllerState.STABLE);
+        return data;
+    }
+    
+    /**
+     * Creates a virtual machine with a random requested capacity.
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     * @param random            The random generator
+     * @return                  The virtual machine meta data
+     */
+    private static VirtualMachineMetaData newVirtualMachine(String virtualMachineId, Random random)
+    {
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.getVirtualMachineLocation().setVirtualMachineId(virtualMachineId);
+        double numberOfCpus = 1 + random.nextInt(4);
+        double memory = (1 + random.nextInt(4)) * 1024 * 1024;
+        double network = 1024 * (1 + random.nextInt(8));
+        virtualMachine.setRequestedCapacity(MathUtils.createCustomVector(numberOfCpus, 
+                                                                         memory, 
+                                                                         new NetworkDemand(network, network)));
+        return virtualMachine;
+    }
+    
+    /**
+     * Creates the used capacity history of a virtual machine.
+     * 
+     * @param virtualMachine                The virtual machine meta data
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @param random                        The random generator
+     * @return                              The used capacity
+     */
+    private static LRUCache<Long, VirtualMachineMonitoringData> newUsedCapacity(VirtualMachineMetaData virtualMachine,
+                                                                               int numberOfMonitoringEntries,
+                                                                               Random random)
+    {
+        LRUCache<Long, VirtualMachineMonitoringData> usedCapacity = 
+                new LRUCache<Long, VirtualMachineMonitoringData>(Math.max(numberOfMonitoringEntries, 1));
+        for (int i = 0; i < numberOfMonitoringEntries; i++)
+        {
+            VirtualMachineMonitoringData data = newMonitoringData(virtualMachine, i * MONITORING_INTERVAL, random);
+            usedCapacity.put(data.getTimeStamp(), data);
+        }
+        
+        return usedCapacity;
+    }
+    
+    /**
+     * Creates a monitoring entry using a random fraction of the requested capacity.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @param timeStamp         The time stamp
+     * @param random            The random generator
+     * @return                  The monitoring data
+     */
+    private static VirtualMachineMonitoringData newMonitoringData(VirtualMachineMetaData virtualMachine,
+                                                                  long timeStamp,
+                                                                  Random random)
+    {
+        List<Double> requestedCapacity = virtualMachine.getRequestedCapacity();
+        ArrayList<Double> usedCapacity = new ArrayList<Double>(requestedCapacity.size());
+        for (Double requested : requestedCapacity)
+        {
+            usedCapacity.add(requested * random.nextDouble());
+        }
+        
+        VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+        data.setTimeStamp(timeStamp);
+        data.setUsedCapacity(usedCapacity);
+        return data;
+    }
+    
+    /**
+     * Creates a unique IP address.
+     * 
+     * @param network   The first octet
+     * @param index     The host index
+     * @return          The IP address
+     */
+    private static String newIpAddress(int network, int index)
+    {
+        return String.format("%d.%d.%d.%d", network, (index >> 16) & 0xFF, (index >> 8) & 0xFF, index & 0xFF);
+    }
+}
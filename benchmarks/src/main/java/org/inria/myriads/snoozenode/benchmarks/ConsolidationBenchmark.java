@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPolicy;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.impl.SerconVirtualMachineConsolidation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sercon consolidation benchmark.
+ * 
+ * The consolidation consumes the local controller list, hence the data 
+ * set is rebuilt before every invocation.
+ * 
+ * @author Eugen Feller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConsolidationBenchmark 
+{
+    /** Maximum number of virtual machines per local controller. */
+    private static final int MAX_VIRTUAL_MACHINES = 4;
+    
+    /** Number of monitoring entries per virtual machine. */
+    private static final int NUMBER_OF_MONITORING_ENTRIES = 10;
+    
+    /** Number of local controllers. */
+    @Param({"100", "1000", "5000"})
+    private int numberOfLocalControllers_;
+    
+    /** Consolidation policy. */
+    private ReconfigurationPolicy policy_;
+    
+    /** Local controllers. */
+    private List<LocalControllerDescription> localControllers_;
+    
+    /**
+     * Creates the consolidation policy.
+     */
+    @Setup(Level.Trial)
+    public void setupPolicy()
+    {
+        policy_ = new SerconVirtualMachineConsolidation(
+            BenchmarkDataGenerator.newEstimator(Estimator.average, NUMBER_OF_MONITORING_ENTRIES));
+    }
+    
+    /**
+     * Rebuilds the data set.
+     */
+    @Setup(Level.Invocation)
+    public void setupData()
+    {
+        localControllers_ = BenchmarkDataGenerator.newLocalControllers(numberOfLocalControllers_, 
+                                                                       MAX_VIRTUAL_MACHINES,
+                                                                       NUMBER_OF_MONITORING_ENTRIES);
+    }
+    
+    /**
+     * Computes the consolidated placement.
+     * 
+     * @return  The reconfiguration plan
+     */
+    @Benchmark
+    public ReconfigurationPlan reconfigure()
+    {
+        return policy_.reconfigure(localControllers_);
+    }
+}
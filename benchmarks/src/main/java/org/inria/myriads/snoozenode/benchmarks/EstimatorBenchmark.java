@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Local controller capacity estimation benchmark.
+ * 
+ * @author Eugen Feller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EstimatorBenchmark 
+{
+    /** Number of virtual machines on the local controller. */
+    @Param({"4", "16", "64"})
+    private int numberOfVirtualMachines_;
+    
+    /** Number of monitoring entries per virtual machine. */
+    @Param({"10", "100"})
+    private int numberOfMonitoringEntries_;
+    
+    /** Estimator used for all resources. */
+    @Param({"average", "ewma", "max"})
+    private Estimator estimator_;
+    
+    /** Resource demand estimator. */
+    private ResourceDemandEstimator resourceDemandEstimator_;
+    
+    /** Local controller. */
+    private LocalControllerDescription localController_;
+    
+    /**
+     * Creates the estimator and the local controller.
+     */
+    @Setup
+    public void setup()
+    {
+        resourceDemandEstimator_ = BenchmarkDataGenerator.newEstimator(estimator_, numberOfMonitoringEntries_);
+        localController_ = BenchmarkDataGenerator.newLocalController(0, 
+                                                                     numberOfVirtualMachines_, 
+                                                                     numberOfMonitoringEntries_,
+                                                                     new Random(BenchmarkDataGenerator.SEED));
+    }
+    
+    /**
+     * Estimates the local controller capacity.
+     * 
+     * @return  The estimated capacity
+     */
+    @Benchmark
+    public ArrayList<Double> computeLocalControllerCapacity()
+    {
+        return resourceDemandEstimator_.computeLocalControllerCapacity(localController_);
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.GroupManagerPolicyFactory;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.enums.Placement;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPlan;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Virtual machine placement benchmark.
+ * 
+ * Places a batch of virtual machines on a partially loaded set of local
+ * controllers. The placement policies assign the virtual machines to the 
+ * local controller descriptions, hence the data set is rebuilt before 
+ * every invocation.
+ * 
+ * @author Eugen Feller
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PlacementBenchmark 
+{
+    /** Number of virtual machines placed per invocation. */
+    private static final int NUMBER_OF_VIRTUAL_MACHINES = 100;
+    
+    /** Maximum number of virtual machines per local controller. */
+    private static final int MAX_VIRTUAL_MACHINES = 4;
+    
+    /** Number of monitoring entries per virtual machine. */
+    private static final int NUMBER_OF_MONITORING_ENTRIES = 10;
+    
+    /** Number of local controllers. */
+    @Param({"100", "1000", "5000"})
+    private int numberOfLocalControllers_;
+    
+    /** Placement policy. */
+    @Param({"FirstFit", "RoundRobin"})
+    private Placement placement_;
+    
+    /** Placement policy implementation. */
+    private PlacementPolicy policy_;
+    
+    /** Local controllers. */
+    private List<LocalControllerDescription> localControllers_;
+    
+    /** Virtual machines to place. */
+    private List<VirtualMachineMetaData> virtualMachines_;
+    
+    /**
+     * Creates the placement policy.
+     */
+    @Setup(Level.Trial)
+    public void setupPolicy()
+    {
+        policy_ = GroupManagerPolicyFactory.newVirtualMachinePlacement(placement_, 
+            BenchmarkDataGenerator.newEstimator(Estimator.average, NUMBER_OF_MONITORING_ENTRIES));
+    }
+    
+    /**
+     * Rebuilds the data set.
+     */
+    @Setup(Level.Invocation)
+    public void setupData()
+    {
+        localControllers_ = BenchmarkDataGenerator.newLocalControllers(numberOfLocalControllers_, 
+                                                                       MAX_VIRTUAL_MACHINES,
+                                                                       NUMBER_OF_MONITORING_ENTRIES);
+        virtualMachines_ = BenchmarkDataGenerator.newVirtualMachines(NUMBER_OF_VIRTUAL_MACHINES);
+    }
+    
+    /**
+     * Places the virtual machines.
+     * 
+     * @return  The placement plan
+     */
+    @Benchmark
+    public PlacementPlan place()
+    {
+        return policy_.place(virtualMachines_, localControllers_);
+    }
+}
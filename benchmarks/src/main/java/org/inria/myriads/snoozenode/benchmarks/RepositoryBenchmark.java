@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.database.api.impl.GroupManagerConcurrentRepository;
+import org.inria.myriads.snoozenode.database.api.impl.GroupManagerMemoryRepository;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Group manager repository monitoring data benchmark.
+ * 
+ * Every benchmark thread plays one local controller and keeps adding 
+ * aggregated monitoring data for its virtual machines, as the monitoring 
+ * data consumer does. The single-threaded variant gives the uncontended 
+ * baseline for the contended one.
+ * 
+ * @author Eugen Feller
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RepositoryBenchmark 
+{
+    /** Maximum number of benchmark threads. */
+    private static final int MAX_THREADS = 64;
+    
+    /** Number of virtual machines per local controller. */
+    private static final int NUMBER_OF_VIRTUAL_MACHINES = 16;
+    
+    /** Number of monitoring entries per virtual machine and message. */
+    private static final int NUMBER_OF_MONITORING_ENTRIES = 1;
+    
+    /** Number of stored monitoring entries. */
+    private static final int MAX_CAPACITY = 20;
+    
+    /**
+     * Shared repository state.
+     */
+    @State(Scope.Benchmark)
+    public static class RepositoryState
+    {
+        /** Repository implementation. */
+        @Param({"memory", "concurrent"})
+        private String type_;
+        
+        /** The repository. */
+        private GroupManagerRepository repository_;
+        
+        /** Next local controller index. */
+        private AtomicInteger nextIndex_;
+        
+        /**
+         * Creates the repository with one local controller per benchmark thread.
+         */
+        @Setup
+        public void setup()
+        {
+            if (type_.equals("concurrent"))
+            {
+                repository_ = new GroupManagerConcurrentRepository("gm0", MAX_CAPACITY);
+            } else
+            {
+                repository_ = new GroupManagerMemoryRepository("gm0", MAX_CAPACITY);
+            }
+            
+            Random random = new Random(BenchmarkDataGenerator.SEED);
+            for (int i = 0; i < MAX_THREADS; i++)
+            {
+                repository_.addLocalControllerDescription(
+                    BenchmarkDataGenerator.newLocalController(i, NUMBER_OF_VIRTUAL_MACHINES, 0, random));
+            }
+            
+            nextIndex_ = new AtomicInteger();
+        }
+    }
+    
+    /**
+     * Per thread local controller state.
+     */
+    @State(Scope.Thread)
+    public static class LocalControllerState
+    {
+        /** Local controller identifier. */
+        private String localControllerId_;
+        
+        /** Aggregated monitoring data. */
+        private List<AggregatedVirtualMachineData> aggregatedData_;
+        
+        /** Monitoring time stamp. */
+        private long timeStamp_;
+        
+        /**
+         * Assigns a local controller to the benchmark thread.
+         * 
+         * @param repositoryState   The repository state
+         */
+        @Setup
+        public void setup(RepositoryState repositoryState)
+        {
+            int index = repositoryState.nextIndex_.getAndIncrement() % MAX_THREADS;
+            LocalControllerDescription localController = 
+                BenchmarkDataGenerator.newLocalController(index, NUMBER_OF_VIRTUAL_MACHINES, 0, 
+                                                          new Random(BenchmarkDataGenerator.SEED));
+            localControllerId_ = localController.getId();
+            aggregatedData_ = BenchmarkDataGenerator.newAggregatedData(localController, 
+                                                                       NUMBER_OF_MONITORING_ENTRIES);
+        }
+        
+        /**
+         * Advances the monitoring time stamp, so every message appends new entries.
+         * 
+         * @return  The aggregated monitoring data
+         */
+        private List<AggregatedVirtualMachineData> nextAggregatedData()
+        {
+            timeStamp_++;
+            for (AggregatedVirtualMachineData aggregatedData : aggregatedData_)
+            {
+                for (VirtualMachineMonitoringData data : aggregatedData.getMonitoringData())
+                {
+                    data.setTimeStamp(timeStamp_);
+                }
+            }
+            
+            return aggregatedData_;
+        }
+    }
+    
+    /**
+     * Adds monitoring data without contention.
+     * 
+     * @param repositoryState       The repository state
+     * @param localControllerState  The local controller state
+     */
+    @Benchmark
+    @Threads(1)
+    public void addAggregatedMonitoringData(RepositoryState repositoryState, 
+                                            LocalControllerState localControllerState)
+    {
+        repositoryState.repository_.addAggregatedMonitoringData(localControllerState.localControllerId_, 
+                                                                localControllerState.nextAggregatedData());
+    }
+    
+    /**
+     * Adds monitoring data from concurrent local controllers.
+     * 
+     * @param repositoryState       The repository state
+     * @param localControllerState  The local controller state
+     */
+    @Benchmark
+    @Threads(8)
+    public void addAggregatedMonitoringDataContended(RepositoryState repositoryState, 
+                                                     LocalControllerState localControllerState)
+    {
+        repositoryState.repository_.addAggregatedMonitoringData(localControllerState.localControllerId_, 
+                                                                localControllerState.nextAggregatedData());
+    }
+}
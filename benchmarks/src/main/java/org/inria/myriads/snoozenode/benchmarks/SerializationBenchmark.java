@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.inria.myriads.snoozenode.tcpip.codec.CodecFactory;
+import org.inria.myriads.snoozenode.tcpip.codec.DataDecoder;
+import org.inria.myriads.snoozenode.tcpip.codec.DataEncoder;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Local controller monitoring data codec benchmark.
+ * 
+ * Encodes and decodes the local controller data transporter the way the 
+ * monitoring TCP connections do: one long-lived encoder and decoder per 
+ * stream. The Java serialization codec is compared with the binary codec.
+ * 
+ * @author Eugen Feller
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SerializationBenchmark 
+{
+    /** Number of messages per pre-encoded stream. */
+    private static final int NUMBER_OF_MESSAGES = 1024;
+    
+    /** Codec type. */
+    @Param({"serialization", "binary"})
+    private CodecType codecType_;
+    
+    /** Number of virtual machines on the local controller. */
+    @Param({"4", "32"})
+    private int numberOfVirtualMachines_;
+    
+    /** Number of monitoring entries per virtual machine. */
+    @Param({"1", "10"})
+    private int numberOfMonitoringEntries_;
+    
+    /** Local controller data. */
+    private LocalControllerDataTransporter data_;
+    
+    /** Encoder. */
+    private DataEncoder encoder_;
+    
+    /** Pre-encoded stream. */
+    private byte[] encodedStream_;
+    
+    /** Decoder. */
+    private DataDecoder decoder_;
+    
+    /** Number of messages left in the decoder stream. */
+    private int remainingMessages_;
+    
+    /**
+     * Creates the data, the encoder and the pre-encoded stream.
+     * 
+     * @throws IOException  The I/O exception
+     */
+    @Setup
+    public void setup() 
+        throws IOException
+    {
+        data_ = BenchmarkDataGenerator.newLocalControllerData(numberOfVirtualMachines_, numberOfMonitoringEntries_);
+        encoder_ = CodecFactory.newEncoder(codecType_, new NullOutputStream());
+        
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DataEncoder encoder = CodecFactory.newEncoder(codecType_, outputStream);
+        for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+        {
+            encoder.encode(data_);
+        }
+        encoder.close();
+        encodedStream_ = outputStream.toByteArray();
+    }
+    
+    /**
+     * Closes the codecs.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        encoder_.close();
+        if (decoder_ != null)
+        {
+            decoder_.close();
+        }
+    }
+    
+    /**
+     * Encodes the local controller data.
+     * 
+     * @throws IOException  The I/O exception
+     */
+    @Benchmark
+    public void encode() 
+        throws IOException
+    {
+        encoder_.encode(data_);
+    }
+    
+    /**
+     * Decodes the local controller data.
+     * 
+     * The decoder is re-created once its stream is exhausted, which amortizes
+     * the stream header over all the messages of the stream.
+     * 
+     * @return                          The local controller data
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    @Benchmark
+    public Object decode() 
+        throws IOException, ClassNotFoundException
+    {
+        if (remainingMessages_ == 0)
+        {
+            if (decoder_ != null)
+            {
+                decoder_.close();
+            }
+            
+            decoder_ = CodecFactory.newDecoder(new ByteArrayInputStream(encodedStream_));
+            remainingMessages_ = NUMBER_OF_MESSAGES;
+        }
+        
+        remainingMessages_--;
+        return decoder_.decode();
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.inria.myriads.snoozenode.exception.VirtualMachineMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.connector.Connector;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl.LibVirtVirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.VirtualMachineInformation;
+import org.libvirt.Connect;
+import org.libvirt.LibvirtException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Libvirt virtual machine monitor sampling benchmark.
+ * 
+ * Samples a domain of the libvirt test driver with the cached domain handle
+ * and with a domain lookup on every sample. Requires the libvirt native library.
+ * 
+ * @author Eugen Feller
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VirtualMachineMonitorBenchmark 
+{
+    /** Test driver connection URI. */
+    private static final String CONNECTION_URI = "test:///default";
+    
+    /** Test driver domain. */
+    private static final String DOMAIN = "test";
+    
+    /** Indicates whether the domain handle is kept between samples. */
+    @Param({"true", "false"})
+    private boolean isCached_;
+    
+    /** Libvirt connection. */
+    private Connect connect_;
+    
+    /** Virtual machine monitor. */
+    private LibVirtVirtualMachineMonitor monitor_;
+    
+    /**
+     * Opens the connection and creates the monitor.
+     * 
+     * @throws Exception    The exception
+     */
+    @Setup
+    public void setup() 
+        throws Exception
+    {
+        connect_ = new Connect(CONNECTION_URI);
+        monitor_ = new LibVirtVirtualMachineMonitor(new Connector()
+        {
+            public Object getConnector()
+            {
+                return connect_;
+            }
+        });
+    }
+    
+    /**
+     * Closes the connection.
+     * 
+     * @throws LibvirtException     The libvirt exception
+     */
+    @TearDown
+    public void tearDown() 
+        throws LibvirtException
+    {
+        connect_.close();
+    }
+    
+    /**
+     * Samples the domain.
+     * 
+     * @return                                      The virtual machine information
+     * @throws VirtualMachineMonitoringException    The monitoring exception
+     */
+    @Benchmark
+    public VirtualMachineInformation sample() 
+        throws VirtualMachineMonitoringException
+    {
+        if (!isCached_)
+        {
+            monitor_.invalidate(DOMAIN);
+        }
+        
+        return monitor_.getVirtualMachineInformation(DOMAIN);
+    }
+}
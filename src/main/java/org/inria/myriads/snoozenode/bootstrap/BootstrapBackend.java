@@ -19,21 +19,21 @@
  */
 package org.inria.myriads.snoozenode.bootstrap;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
 import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupLeaderRepositoryInformation;
 import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupManagerRepositoryInformation;
-import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
-import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.bootstrap.hierarchy.HierarchyFetcher;
+import org.inria.myriads.snoozenode.bootstrap.hierarchy.HierarchyService;
+import org.inria.myriads.snoozenode.bootstrap.hierarchy.HierarchySnapshot;
+import org.inria.myriads.snoozenode.bootstrap.hierarchy.RestHierarchyFetcher;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.heartbeat.HeartbeatFactory;
 import org.inria.myriads.snoozenode.heartbeat.listener.HeartbeatListener;
 import org.inria.myriads.snoozenode.heartbeat.message.HeartbeatMessage;
+import org.inria.myriads.snoozenode.heartbeat.receiver.HeartbeatMulticastReceiver;
+import org.inria.myriads.snoozenode.main.NodeBackend;
 import org.inria.myriads.snoozenode.util.ManagementUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,7 +44,7 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class BootstrapBackend 
-    implements HeartbeatListener
+    implements HeartbeatListener, NodeBackend
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(BootstrapBackend.class);
@@ -52,6 +52,15 @@ public final class BootstrapBackend
     /** The group leader description. */
     private GroupManagerDescription groupLeaderDescription_;
     
+    /** The hierarchy fetcher. */
+    private HierarchyFetcher hierarchyFetcher_;
+    
+    /** The hierarchy service. */
+    private HierarchyService hierarchyService_;
+    
+    /** The heartbeat listener. */
+    private HeartbeatMulticastReceiver heartbeatListener_;
+    
     /**
      * Bootstrap backend constructor.
      * 
@@ -63,11 +72,23 @@ public final class BootstrapBackend
     {
         Guard.check(nodeParameters);
         log_.debug("Starting bootstrap backend");
+        hierarchyFetcher_ = new RestHierarchyFetcher();
+        hierarchyService_ = new HierarchyService(hierarchyFetcher_, nodeParameters.getBootstrap());
         NetworkAddress address = nodeParameters.getNetworking().getMulticast().getGroupLeaderHeartbeatAddress();
         int heartbeatTimeout = nodeParameters.getFaultTolerance().getHeartbeat().getTimeout();
-        new Thread(HeartbeatFactory.newHeartbeatMulticastListener(address, 
-                                                                  heartbeatTimeout,
-                                                                  this)).start();
+        heartbeatListener_ = HeartbeatFactory.newHeartbeatMulticastListener(address, heartbeatTimeout, this);
+        new Thread(heartbeatListener_).start();
+    }
+    
+    /**
+     * Stops the bootstrap services.
+     */
+    @Override
+    public void stopServices()
+    {
+        log_.debug("Stopping the bootstrap services");
+        heartbeatListener_.terminate();
+        hierarchyService_.shutdown();
     }
     
     /** 
@@ -100,6 +121,8 @@ public final class BootstrapBackend
         {
             log_.debug("Updating group leader information");        
             groupLeaderDescription_ = ManagementUtils.createGroupLeaderDescriptionFromHeartbeat(heartbeatMessage);
+            NetworkAddress groupLeaderAddress = groupLeaderDescription_.getListenSettings().getControlDataAddress();
+            hierarchyService_.setGroupLeaderAddress(groupLeaderAddress);
         }
     }
 
@@ -113,44 +136,34 @@ public final class BootstrapBackend
         if (groupLeaderDescription_ != null)
         {
             groupLeaderDescription_ = null;
+            hierarchyService_.setGroupLeaderAddress(null);
         }
     }
 
     
     /**
-     * 
      * Gets the complete hierarchy of the snooze system.
      * 
-     * @return      The group leader repository completed with localcontrollers informations.
+     * Group managers which did not answer in time are returned without local controllers.
+     * 
+     * @return      The group leader repository completed with localcontrollers informations
      */
     public GroupLeaderRepositoryInformation getCompleteHierarchy()
     {
-
-        log_.debug("Starting the hierarchy building");
-        
-        NetworkAddress groupLeaderAddress = groupLeaderDescription_.getListenSettings().getControlDataAddress();
+        HierarchySnapshot snapshot = hierarchyService_.getHierarchy();
+        if (snapshot == null)
+        {
+            return null;
+        }
         
-        GroupLeaderRepositoryInformation groupLeaderInformation = 
-                getGroupLeaderRepositoryInformation(groupLeaderAddress, 10);
-
-        GroupLeaderRepositoryInformation hierarchy = new GroupLeaderRepositoryInformation();
-        ArrayList<GroupManagerDescription> groupManagers = groupLeaderInformation.getGroupManagerDescriptions();
-        hierarchy.setGroupManagerDescriptions(groupManagers);
-        int i = 0;
-        for (GroupManagerDescription groupManager : groupManagers) 
+        if (!snapshot.isComplete())
         {
-            NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
-            GroupManagerRepositoryInformation information = getGroupManagerRepositoryInformations(address, 10);
-            HashMap<String, LocalControllerDescription> localControllers =
-                    new HashMap<String, LocalControllerDescription>();
-            for (LocalControllerDescription localController : information.getLocalControllerDescriptions())
-            {
-                localControllers.put(localController.getId(), localController);
-            }
-            hierarchy.getGroupManagerDescriptions().get(i).setLocalControllers(localControllers);  
-            i++;
-        }   
-        return hierarchy;
+            log_.debug(String.format("Returning partial hierarchy, timed out: %s, failed: %s",
+                                     snapshot.getTimedOutGroupManagers(),
+                                     snapshot.getFailedGroupManagers()));
+        }
+        
+        return snapshot.getHierarchy();
     }
     
     /**
@@ -165,13 +178,7 @@ public final class BootstrapBackend
             NetworkAddress groupLeaderAddress, 
             int numberOfBacklogEntries)
     {      
-        Guard.check(groupLeaderAddress);
-        log_.info(String.format("Getting group leader repository information"));
-        GroupManagerAPI groupLeaderCommunicator = 
-                CommunicatorFactory.newGroupManagerCommunicator(groupLeaderAddress); 
-        GroupLeaderRepositoryInformation information = 
-            groupLeaderCommunicator.getGroupLeaderRepositoryInformation(numberOfBacklogEntries);
-        return information;
+        return hierarchyFetcher_.getGroupLeaderRepositoryInformation(groupLeaderAddress, numberOfBacklogEntries);
     }
     
     /**
@@ -186,13 +193,6 @@ public final class BootstrapBackend
             NetworkAddress groupManagerAddress, 
             int numberOfBacklogEntries)
     {
-        Guard.check(groupManagerAddress);
-        log_.info(String.format("Getting group manager repository informations"));
-        
-        GroupManagerAPI groupManagerCommunicator = 
-                CommunicatorFactory.newGroupManagerCommunicator(groupManagerAddress); 
-        GroupManagerRepositoryInformation information = 
-                groupManagerCommunicator.getGroupManagerRepositoryInformation(numberOfBacklogEntries);
-        return information;        
+        return hierarchyFetcher_.getGroupManagerRepositoryInformation(groupManagerAddress, numberOfBacklogEntries);
     }
 }
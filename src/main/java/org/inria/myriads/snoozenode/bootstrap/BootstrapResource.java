@@ -84,7 +84,7 @@ public final class BootstrapResource extends ServerResource
      * @return                          The complete hierarchy of the system.
      * 
      */
-    public synchronized GroupLeaderRepositoryInformation getCompleteHierarchy()
+    public GroupLeaderRepositoryInformation getCompleteHierarchy()
     {
         log_.debug("Received complete hierarchy request");
         
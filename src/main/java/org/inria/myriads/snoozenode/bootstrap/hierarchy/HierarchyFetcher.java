@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.bootstrap.hierarchy;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupLeaderRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupManagerRepositoryInformation;
+
+/**
+ * Hierarchy fetcher interface.
+ * 
+ * @author Eugen Feller
+ */
+public interface HierarchyFetcher 
+{
+    /**
+     * Gets the group leader repository information.
+     * 
+     * @param groupLeaderAddress          The group leader address
+     * @param numberOfBacklogEntries      The number of backlog entries
+     * @return                            The group leader repository information
+     */
+    GroupLeaderRepositoryInformation getGroupLeaderRepositoryInformation(NetworkAddress groupLeaderAddress,
+                                                                         int numberOfBacklogEntries);
+    
+    /**
+     * Gets the group manager repository information.
+     * 
+     * @param groupManagerAddress         The group manager address
+     * @param numberOfBacklogEntries      The number of backlog entries
+     * @return                            The group manager repository information
+     */
+    GroupManagerRepositoryInformation getGroupManagerRepositoryInformation(NetworkAddress groupManagerAddress,
+                                                                           int numberOfBacklogEntries);
+}
@@ -0,0 +1,362 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.bootstrap.hierarchy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupLeaderRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupManagerRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.bootstrap.BootstrapSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hierarchy service.
+ * 
+ * Builds the hierarchy by querying the group managers in parallel, each within the configured 
+ * deadline, and caches the result. Callers share the cached snapshot; once it is older than the
+ * maximum age a single background refresh is started while the old snapshot keeps being served.
+ * A group leader change invalidates the snapshot.
+ * 
+ * @author Eugen Feller
+ */
+public final class HierarchyService 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(HierarchyService.class);
+    
+    /** Number of backlog entries to request. */
+    private static final int NUMBER_OF_BACKLOG_ENTRIES = 10;
+    
+    /** The hierarchy fetcher. */
+    private final HierarchyFetcher fetcher_;
+    
+    /** Query deadline (ms). */
+    private final long timeout_;
+    
+    /** Maximum snapshot age (ms). */
+    private final long maxAge_;
+    
+    /** Query thread pool. */
+    private final ExecutorService queryPool_;
+    
+    /** Refresh thread. */
+    private final ExecutorService refreshPool_;
+    
+    /** Guards the fields below. */
+    private final Object lock_;
+    
+    /** The group leader address. */
+    private NetworkAddress groupLeaderAddress_;
+    
+    /** Incremented on every invalidation. */
+    private long generation_;
+    
+    /** The cached snapshot. */
+    private HierarchySnapshot snapshot_;
+    
+    /** The refresh in progress. */
+    private Future<HierarchySnapshot> refresh_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param fetcher     The hierarchy fetcher
+     * @param settings    The bootstrap settings
+     */
+    public HierarchyService(HierarchyFetcher fetcher, BootstrapSettings settings)
+    {
+        Guard.check(fetcher, settings);
+        log_.debug("Initializing the hierarchy service");
+        fetcher_ = fetcher;
+        timeout_ = settings.getHierarchyTimeout();
+        maxAge_ = settings.getHierarchyMaxAge();
+        queryPool_ = Executors.newFixedThreadPool(settings.getNumberOfHierarchyThreads());
+        refreshPool_ = Executors.newSingleThreadExecutor();
+        lock_ = new Object();
+    }
+    
+    /**
+     * Sets the group leader address and invalidates the hierarchy.
+     * 
+     * @param groupLeaderAddress    The group leader address (null if none)
+     */
+    public void setGroupLeaderAddress(NetworkAddress groupLeaderAddress)
+    {
+        synchronized (lock_)
+        {
+            log_.debug("Group leader changed, invalidating the hierarchy");
+            groupLeaderAddress_ = groupLeaderAddress;
+            invalidateLocked();
+        }
+    }
+    
+    /**
+     * Drops the cached snapshot.
+     */
+    public void invalidate()
+    {
+        synchronized (lock_)
+        {
+            invalidateLocked();
+        }
+    }
+    
+    /**
+     * Returns the hierarchy.
+     * 
+     * Blocks only if no snapshot is available yet.
+     * 
+     * @return  The hierarchy snapshot, null if unavailable
+     */
+    public HierarchySnapshot getHierarchy()
+    {
+        Future<HierarchySnapshot> refresh;
+        synchronized (lock_)
+        {
+            if (groupLeaderAddress_ == null)
+            {
+                log_.debug("No group leader available");
+                return null;
+            }
+            
+            if (snapshot_ != null)
+            {
+                if (System.currentTimeMillis() - snapshot_.getTimeStamp() > maxAge_)
+                {
+                    startRefresh();
+                }
+                
+                return snapshot_;
+            }
+            
+            refresh = startRefresh();
+        }
+        
+        try
+        {
+            return refresh.get();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException exception)
+        {
+            log_.error("Unable to build the hierarchy", exception.getCause());
+            return null;
+        }
+    }
+    
+    /**
+     * Shuts down the service.
+     */
+    public void shutdown()
+    {
+        refreshPool_.shutdownNow();
+        queryPool_.shutdownNow();
+    }
+    
+    /**
+     * Drops the snapshot and detaches the refresh in progress (lock must be held).
+     */
+    private void invalidateLocked()
+    {
+        generation_++;
+        snapshot_ = null;
+        refresh_ = null;
+    }
+    
+    /**
+     * Starts a refresh unless one is already in progress (lock must be held).
+     * 
+     * @return  The refresh in progress
+     */
+    private Future<HierarchySnapshot> startRefresh()
+    {
+        if (refresh_ != null)
+        {
+            return refresh_;
+        }
+        
+        final NetworkAddress groupLeaderAddress = groupLeaderAddress_;
+        final long generation = generation_;
+        refresh_ = refreshPool_.submit(new Callable<HierarchySnapshot>()
+        {
+            public HierarchySnapshot call() 
+                throws Exception
+            {
+                HierarchySnapshot snapshot = null;
+                try
+                {
+                    snapshot = buildHierarchy(groupLeaderAddress);
+                    return snapshot;
+                }
+                finally
+                {
+                    publish(generation, snapshot);
+                }
+            }
+        });
+        
+        return refresh_;
+    }
+    
+    /**
+     * Publishes a snapshot unless the hierarchy was invalidated meanwhile.
+     * 
+     * @param generation    The generation the snapshot was built for
+     * @param snapshot      The snapshot (null if the refresh failed)
+     */
+    private void publish(long generation, HierarchySnapshot snapshot)
+    {
+        synchronized (lock_)
+        {
+            if (generation != generation_)
+            {
+                return;
+            }
+            
+            refresh_ = null;
+            if (snapshot != null)
+            {
+                snapshot_ = snapshot;
+            }
+        }
+    }
+    
+    /**
+     * Builds the hierarchy.
+     * 
+     * @param groupLeaderAddress    The group leader address
+     * @return                      The hierarchy snapshot
+     * @throws Exception            If the group leader can not be queried
+     */
+    private HierarchySnapshot buildHierarchy(final NetworkAddress groupLeaderAddress) 
+        throws Exception
+    {
+        log_.debug("Starting the hierarchy building");
+        long start = System.currentTimeMillis();
+        Future<GroupLeaderRepositoryInformation> groupLeaderQuery = 
+            queryPool_.submit(new Callable<GroupLeaderRepositoryInformation>()
+            {
+                public GroupLeaderRepositoryInformation call()
+                {
+                    return fetcher_.getGroupLeaderRepositoryInformation(groupLeaderAddress, 
+                                                                        NUMBER_OF_BACKLOG_ENTRIES);
+                }
+            });
+        
+        GroupLeaderRepositoryInformation hierarchy;
+        try
+        {
+            hierarchy = groupLeaderQuery.get(timeout_, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException exception)
+        {
+            groupLeaderQuery.cancel(true);
+            throw exception;
+        }
+        
+        if (hierarchy == null)
+        {
+            throw new IllegalStateException("Group leader returned no repository information");
+        }
+        
+        List<GroupManagerDescription> groupManagers = hierarchy.getGroupManagerDescriptions();
+        List<Future<GroupManagerRepositoryInformation>> queries = 
+            new ArrayList<Future<GroupManagerRepositoryInformation>>(groupManagers.size());
+        for (GroupManagerDescription groupManager : groupManagers)
+        {
+            final NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
+            queries.add(queryPool_.submit(new Callable<GroupManagerRepositoryInformation>()
+            {
+                public GroupManagerRepositoryInformation call()
+                {
+                    return fetcher_.getGroupManagerRepositoryInformation(address, NUMBER_OF_BACKLOG_ENTRIES);
+                }
+            }));
+        }
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout_);
+        List<String> timedOut = new ArrayList<String>();
+        List<String> failed = new ArrayList<String>();
+        for (int i = 0; i < groupManagers.size(); i++)
+        {
+            GroupManagerDescription groupManager = groupManagers.get(i);
+            Future<GroupManagerRepositoryInformation> query = queries.get(i);
+            HashMap<String, LocalControllerDescription> localControllers = 
+                new HashMap<String, LocalControllerDescription>();
+            try
+            {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                GroupManagerRepositoryInformation information = query.get(remaining, TimeUnit.NANOSECONDS);
+                if (information == null || information.getLocalControllerDescriptions() == null)
+                {
+                    log_.debug(String.format("Group manager %s returned no repository information", 
+                                             groupManager.getId()));
+                    failed.add(groupManager.getId());
+                }
+                else
+                {
+                    for (LocalControllerDescription localController : information.getLocalControllerDescriptions())
+                    {
+                        localControllers.put(localController.getId(), localController);
+                    }
+                }
+            }
+            catch (TimeoutException exception)
+            {
+                log_.debug(String.format("Group manager %s missed the deadline", groupManager.getId()));
+                query.cancel(true);
+                timedOut.add(groupManager.getId());
+            }
+            catch (ExecutionException exception)
+            {
+                log_.debug(String.format("Unable to query group manager %s", groupManager.getId()), 
+                           exception.getCause());
+                failed.add(groupManager.getId());
+            }
+            
+            groupManager.setLocalControllers(localControllers);
+        }
+        
+        log_.debug(String.format("Hierarchy of %d group managers built in %d ms (%d timed out, %d failed)",
+                                 groupManagers.size(), 
+                                 System.currentTimeMillis() - start,
+                                 timedOut.size(),
+                                 failed.size()));
+        return new HierarchySnapshot(hierarchy, System.currentTimeMillis(), timedOut, failed);
+    }
+}
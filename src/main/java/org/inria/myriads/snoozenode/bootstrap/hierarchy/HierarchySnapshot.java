@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.bootstrap.hierarchy;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupLeaderRepositoryInformation;
+
+/**
+ * Immutable view of the hierarchy as built at a given time.
+ * 
+ * Group managers which did not answer before the deadline (or failed) are part of the 
+ * hierarchy but carry no local controllers; their identifiers are listed separately.
+ * 
+ * @author Eugen Feller
+ */
+public final class HierarchySnapshot 
+{
+    /** The hierarchy. */
+    private final GroupLeaderRepositoryInformation hierarchy_;
+    
+    /** Time stamp (ms). */
+    private final long timeStamp_;
+    
+    /** Group managers which missed the deadline. */
+    private final List<String> timedOutGroupManagers_;
+    
+    /** Group managers whose query failed. */
+    private final List<String> failedGroupManagers_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param hierarchy                 The hierarchy
+     * @param timeStamp                 The time stamp
+     * @param timedOutGroupManagers     The timed out group managers
+     * @param failedGroupManagers       The failed group managers
+     */
+    public HierarchySnapshot(GroupLeaderRepositoryInformation hierarchy, 
+                             long timeStamp,
+                             List<String> timedOutGroupManagers,
+                             List<String> failedGroupManagers)
+    {
+        hierarchy_ = hierarchy;
+        timeStamp_ = timeStamp;
+        timedOutGroupManagers_ = Collections.unmodifiableList(timedOutGroupManagers);
+        failedGroupManagers_ = Collections.unmodifiableList(failedGroupManagers);
+    }
+    
+    /**
+     * Returns the hierarchy.
+     * 
+     * @return  The hierarchy
+     */
+    public GroupLeaderRepositoryInformation getHierarchy()
+    {
+        return hierarchy_;
+    }
+    
+    /**
+     * Returns the time stamp.
+     * 
+     * @return  The time stamp
+     */
+    public long getTimeStamp()
+    {
+        return timeStamp_;
+    }
+    
+    /**
+     * Returns the group managers which missed the deadline.
+     * 
+     * @return  The group manager identifiers
+     */
+    public List<String> getTimedOutGroupManagers()
+    {
+        return timedOutGroupManagers_;
+    }
+    
+    /**
+     * Returns the group managers whose query failed.
+     * 
+     * @return  The group manager identifiers
+     */
+    public List<String> getFailedGroupManagers()
+    {
+        return failedGroupManagers_;
+    }
+    
+    /**
+     * Checks if all group managers have answered.
+     * 
+     * @return  true if complete, false otherwise
+     */
+    public boolean isComplete()
+    {
+        return timedOutGroupManagers_.isEmpty() && failedGroupManagers_.isEmpty();
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.communication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Issues communicator calls asynchronously.
+ * 
+ * Fan-out calls to several nodes are issued concurrently, so their latency is
+ * bounded by the slowest node instead of the sum of all nodes. Results which are
+ * not available within the call timeout are cancelled and reported as failed.
+ * 
+ * @param <A>   The communicator type
+ * 
+ * @author Eugen Feller
+ */
+public final class AsyncCommunicator<A> 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(AsyncCommunicator.class);
+    
+    /** Communicator provider. */
+    private CommunicatorProvider<A> provider_;
+    
+    /** Executor issuing the calls. */
+    private ExecutorService executor_;
+    
+    /** Call timeout (ms, 0 = no timeout). */
+    private volatile long timeout_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param provider  The communicator provider
+     * @param executor  The executor issuing the calls
+     * @param timeout   The call timeout (ms, 0 = no timeout)
+     */
+    public AsyncCommunicator(CommunicatorProvider<A> provider, ExecutorService executor, long timeout)
+    {
+        Guard.check(provider, executor);
+        provider_ = provider;
+        executor_ = executor;
+        timeout_ = timeout;
+    }
+    
+    /**
+     * Sets the call timeout.
+     * 
+     * @param timeout   The call timeout (ms, 0 = no timeout)
+     */
+    public void setTimeout(long timeout)
+    {
+        timeout_ = timeout;
+    }
+    
+    /**
+     * Issues a call asynchronously.
+     * 
+     * @param <T>       The result type
+     * @param address   The remote node address
+     * @param call      The call
+     * @return          The result future
+     */
+    public <T> Future<T> submit(final NetworkAddress address, final CommunicatorCall<A, T> call)
+    {
+        Guard.check(address, call);
+        return executor_.submit(new Callable<T>()
+        {
+            public T call()
+            {
+                return call.call(provider_.getCommunicator(address));
+            }
+        });
+    }
+    
+    /**
+     * Issues a call on several nodes concurrently and waits for all results.
+     * 
+     * @param <T>           The result type
+     * @param addresses     The remote node addresses
+     * @param call          The call
+     * @return              The results in the order of the addresses (null for failed or timed out calls)
+     */
+    public <T> List<T> invokeAll(List<NetworkAddress> addresses, CommunicatorCall<A, T> call)
+    {
+        Guard.check(addresses, call);
+        log_.debug(String.format("Issuing call on %d nodes", addresses.size()));
+        
+        List<T> results = new ArrayList<T>(addresses.size());
+        if (addresses.size() == 1)
+        {
+            results.add(call.call(provider_.getCommunicator(addresses.get(0))));
+            return results;
+        }
+        
+        long timeout = timeout_;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        List<Future<T>> futures = new ArrayList<Future<T>>(addresses.size());
+        for (NetworkAddress address : addresses)
+        {
+            futures.add(submit(address, call));
+        }
+        
+        for (int i = 0; i < futures.size(); i++)
+        {
+            long remaining = timeout > 0 ? Math.max(0, deadline - System.nanoTime()) : -1;
+            results.add(getResult(futures.get(i), addresses.get(i), remaining));
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Waits for a call result.
+     * 
+     * @param <T>       The result type
+     * @param future    The result future
+     * @param address   The remote node address
+     * @param timeout   The time to wait (ns, negative = no timeout)
+     * @return          The result, null if the call failed or timed out
+     */
+    private <T> T getResult(Future<T> future, NetworkAddress address, long timeout)
+    {
+        try
+        {
+            if (timeout < 0)
+            {
+                return future.get();
+            }
+            
+            return future.get(timeout, TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException exception)
+        {
+            log_.error(String.format("Call on %s: %d timed out", address.getAddress(), address.getPort()));
+            future.cancel(true);
+        }
+        catch (InterruptedException exception)
+        {
+            log_.error("Interrupted while waiting for the call result", exception);
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException exception)
+        {
+            log_.error(String.format("Call on %s: %d failed", address.getAddress(), address.getPort()), 
+                       exception.getCause());
+        }
+        
+        return null;
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.communication;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
+import org.inria.myriads.snoozecommon.communication.rest.api.LocalControllerAPI;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.httpd.HTTPdSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Node communicator factory.
+ * 
+ * Drop-in replacement of the common communicator factory. The communicators share
+ * one pooled client and can be used synchronously or through the asynchronous 
+ * communicators. Synchronous calls are only bounded by the read timeout, which is disabled
+ * by default since migrations and virtual machine starts may take minutes. Asynchronous
+ * calls are abandoned after the call timeout.
+ * 
+ * @author Eugen Feller
+ */
+public final class NodeCommunicatorFactory 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(NodeCommunicatorFactory.class);
+    
+    /** Default connect timeout (ms). */
+    private static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    
+    /** Default read timeout (ms, 0 = no timeout). */
+    private static final int DEFAULT_READ_TIMEOUT = 0;
+    
+    /** Default asynchronous call timeout (ms). */
+    private static final int DEFAULT_CALL_TIMEOUT = 30000;
+    
+    /** Default maximum number of connections per remote node. */
+    private static final int DEFAULT_MAXIMUM_NUMBER_OF_CONNECTIONS_PER_HOST = 4;
+    
+    /** Default maximum number of connections. */
+    private static final int DEFAULT_MAXIMUM_NUMBER_OF_CONNECTIONS = 64;
+    
+    /** Default number of threads issuing the asynchronous calls. */
+    private static final int DEFAULT_NUMBER_OF_THREADS = 16;
+    
+    /** Idle time after which the asynchronous call threads terminate (s). */
+    private static final long THREAD_KEEP_ALIVE_TIME = 60;
+    
+    /** Local controller resource path. */
+    private static final String LOCAL_CONTROLLER_RESOURCE = "localcontroller";
+    
+    /** Group manager resource path. */
+    private static final String GROUP_MANAGER_RESOURCE = "groupmanager";
+    
+    /** Client pool. */
+    private static final RestClientPool clientPool_ = 
+        new RestClientPool(DEFAULT_CONNECT_TIMEOUT, 
+                           DEFAULT_READ_TIMEOUT, 
+                           DEFAULT_MAXIMUM_NUMBER_OF_CONNECTIONS_PER_HOST,
+                           DEFAULT_MAXIMUM_NUMBER_OF_CONNECTIONS);
+    
+    /** Executor issuing the asynchronous calls. */
+    private static final ThreadPoolExecutor executor_ = newExecutor();
+    
+    /** Asynchronous local controller communicator. */
+    private static final AsyncCommunicator<LocalControllerAPI> asyncLocalControllerCommunicator_ =
+        new AsyncCommunicator<LocalControllerAPI>(new CommunicatorProvider<LocalControllerAPI>()
+        {
+            public LocalControllerAPI getCommunicator(NetworkAddress address)
+            {
+                return newLocalControllerCommunicator(address);
+            }
+        }, executor_, DEFAULT_CALL_TIMEOUT);
+    
+    /** Asynchronous group manager communicator. */
+    private static final AsyncCommunicator<GroupManagerAPI> asyncGroupManagerCommunicator_ =
+        new AsyncCommunicator<GroupManagerAPI>(new CommunicatorProvider<GroupManagerAPI>()
+        {
+            public GroupManagerAPI getCommunicator(NetworkAddress address)
+            {
+                return newGroupManagerCommunicator(address);
+            }
+        }, executor_, DEFAULT_CALL_TIMEOUT);
+    
+    /**
+     * Hide the consturctor.
+     */
+    private NodeCommunicatorFactory() 
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Applies the client settings.
+     * 
+     * @param settings      The HTTPd settings
+     */
+    public static synchronized void configure(HTTPdSettings settings)
+    {
+        Guard.check(settings);
+        log_.debug("Configuring the node communicators");
+        
+        clientPool_.configure(settings.getClientConnectTimeout(), 
+                              settings.getClientReadTimeout(), 
+                              settings.getMaximumNumberOfClientConnectionsPerHost(),
+                              settings.getMaximumNumberOfClientConnections());
+        asyncLocalControllerCommunicator_.setTimeout(Math.max(0, settings.getClientCallTimeout()));
+        asyncGroupManagerCommunicator_.setTimeout(Math.max(0, settings.getClientCallTimeout()));
+        
+        int numberOfThreads = Math.max(1, settings.getNumberOfClientThreads());
+        if (numberOfThreads >= executor_.getMaximumPoolSize())
+        {
+            executor_.setMaximumPoolSize(numberOfThreads);
+            executor_.setCorePoolSize(numberOfThreads);
+        } 
+        else
+        {
+            executor_.setCorePoolSize(numberOfThreads);
+            executor_.setMaximumPoolSize(numberOfThreads);
+        }
+    }
+    
+    /**
+     * Creates a new local controller communicator.
+     * 
+     * @param address   The local controller address
+     * @return          The local controller communicator
+     */
+    public static LocalControllerAPI newLocalControllerCommunicator(NetworkAddress address)
+    {
+        return newCommunicator(LocalControllerAPI.class, LOCAL_CONTROLLER_RESOURCE, address);
+    }
+    
+    /**
+     * Creates a new group manager communicator.
+     * 
+     * @param address   The group manager address
+     * @return          The group manager communicator
+     */
+    public static GroupManagerAPI newGroupManagerCommunicator(NetworkAddress address)
+    {
+        return newCommunicator(GroupManagerAPI.class, GROUP_MANAGER_RESOURCE, address);
+    }
+    
+    /**
+     * Returns the asynchronous local controller communicator.
+     * 
+     * @return  The asynchronous local controller communicator
+     */
+    public static AsyncCommunicator<LocalControllerAPI> getAsyncLocalControllerCommunicator()
+    {
+        return asyncLocalControllerCommunicator_;
+    }
+    
+    /**
+     * Returns the asynchronous group manager communicator.
+     * 
+     * @return  The asynchronous group manager communicator
+     */
+    public static AsyncCommunicator<GroupManagerAPI> getAsyncGroupManagerCommunicator()
+    {
+        return asyncGroupManagerCommunicator_;
+    }
+    
+    /**
+     * Creates a new communicator.
+     * 
+     * @param <A>                   The communicator type
+     * @param resourceInterface     The resource interface
+     * @param resourcePath          The resource path
+     * @param address               The remote node address
+     * @return                      The communicator
+     */
+    private static <A> A newCommunicator(Class<A> resourceInterface, String resourcePath, NetworkAddress address)
+    {
+        Guard.check(address);
+        RestCommunicatorHandler handler = new RestCommunicatorHandler(clientPool_, 
+                                                                      address, 
+                                                                      resourcePath, 
+                                                                      resourceInterface);
+        Object communicator = Proxy.newProxyInstance(resourceInterface.getClassLoader(), 
+                                                     new Class<?>[] {resourceInterface}, 
+                                                     handler);
+        return resourceInterface.cast(communicator);
+    }
+    
+    /**
+     * Creates the executor issuing the asynchronous calls.
+     * 
+     * @return  The executor
+     */
+    private static ThreadPoolExecutor newExecutor()
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_NUMBER_OF_THREADS, 
+                                                             DEFAULT_NUMBER_OF_THREADS,
+                                                             THREAD_KEEP_ALIVE_TIME, 
+                                                             TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<Runnable>(),
+                                                             new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "NodeCommunicator");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
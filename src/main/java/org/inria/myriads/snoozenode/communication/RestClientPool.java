@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.communication;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.data.Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of REST client connections.
+ * 
+ * Keeps one started client shared by all remote nodes. Its connection pool keeps
+ * persistent connections per remote node, bounded per node and in total, so
+ * consecutive calls reuse connections and dropped nodes hold no client.
+ * 
+ * @author Eugen Feller
+ */
+public final class RestClientPool 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(RestClientPool.class);
+    
+    /** Connect timeout (ms). */
+    private int connectTimeout_;
+    
+    /** Read timeout (ms, 0 = no timeout). */
+    private int readTimeout_;
+    
+    /** Maximum number of connections per remote node. */
+    private int maximumNumberOfConnectionsPerHost_;
+    
+    /** Maximum number of connections. */
+    private int maximumNumberOfConnections_;
+    
+    /** Shared client (created on first use). */
+    private volatile Client client_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param connectTimeout                        The connect timeout (ms)
+     * @param readTimeout                           The read timeout (ms, 0 = no timeout)
+     * @param maximumNumberOfConnectionsPerHost     The maximum number of connections per remote node
+     * @param maximumNumberOfConnections            The maximum number of connections
+     */
+    public RestClientPool(int connectTimeout, 
+                          int readTimeout, 
+                          int maximumNumberOfConnectionsPerHost,
+                          int maximumNumberOfConnections)
+    {
+        connectTimeout_ = connectTimeout;
+        readTimeout_ = readTimeout;
+        maximumNumberOfConnectionsPerHost_ = maximumNumberOfConnectionsPerHost;
+        maximumNumberOfConnections_ = maximumNumberOfConnections;
+    }
+    
+    /**
+     * Changes the client settings and stops the current client.
+     * 
+     * @param connectTimeout                        The connect timeout (ms)
+     * @param readTimeout                           The read timeout (ms, 0 = no timeout)
+     * @param maximumNumberOfConnectionsPerHost     The maximum number of connections per remote node
+     * @param maximumNumberOfConnections            The maximum number of connections
+     */
+    public synchronized void configure(int connectTimeout, 
+                                       int readTimeout, 
+                                       int maximumNumberOfConnectionsPerHost,
+                                       int maximumNumberOfConnections)
+    {
+        log_.debug(String.format("Configuring the REST client with connect timeout: %d, read timeout: %d, " +
+                                 "connections per host: %d, connections: %d", 
+                                 connectTimeout, readTimeout, 
+                                 maximumNumberOfConnectionsPerHost, maximumNumberOfConnections));
+        connectTimeout_ = connectTimeout;
+        readTimeout_ = readTimeout;
+        maximumNumberOfConnectionsPerHost_ = maximumNumberOfConnectionsPerHost;
+        maximumNumberOfConnections_ = maximumNumberOfConnections;
+        stop();
+    }
+    
+    /**
+     * Returns the shared client.
+     * 
+     * @return  The client
+     */
+    public Client getClient()
+    {
+        Client client = client_;
+        if (client != null)
+        {
+            return client;
+        }
+        
+        synchronized (this)
+        {
+            if (client_ == null)
+            {
+                log_.debug("Creating the shared REST client");
+                client_ = createClient();
+            }
+            
+            return client_;
+        }
+    }
+    
+    /**
+     * Stops the client.
+     */
+    public synchronized void stop()
+    {
+        if (client_ == null)
+        {
+            return;
+        }
+        
+        try
+        {
+            client_.stop();
+        }
+        catch (Exception exception)
+        {
+            log_.error("Unable to stop the REST client", exception);
+        }
+        
+        client_ = null;
+    }
+    
+    /**
+     * Creates and starts a client (lock must be held).
+     * 
+     * @return  The client
+     */
+    private Client createClient()
+    {
+        Context context = new Context();
+        context.getParameters().add("socketConnectTimeoutMs", String.valueOf(connectTimeout_));
+        context.getParameters().add("socketTimeout", String.valueOf(readTimeout_));
+        context.getParameters().add("maxConnectionsPerHost", String.valueOf(maximumNumberOfConnectionsPerHost_));
+        context.getParameters().add("maxTotalConnections", String.valueOf(maximumNumberOfConnections_));
+        context.getParameters().add("tcpNoDelay", "true");
+        
+        Client client = new Client(context, Protocol.HTTP);
+        try
+        {
+            client.start();
+        }
+        catch (Exception exception)
+        {
+            log_.error("Unable to start the REST client", exception);
+        }
+        
+        return client;
+    }
+}
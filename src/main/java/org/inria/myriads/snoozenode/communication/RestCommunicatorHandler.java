@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.communication;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.restlet.resource.ClientResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Issues the communicator calls of a remote node over the pooled REST client.
+ * 
+ * Every call uses its own client resource, so one communicator can be shared
+ * between threads. Failed calls are logged and return false, zero or null.
+ * 
+ * @author Eugen Feller
+ */
+final class RestCommunicatorHandler 
+    implements InvocationHandler
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(RestCommunicatorHandler.class);
+    
+    /** Client pool. */
+    private RestClientPool clientPool_;
+    
+    /** Resource URI. */
+    private String uri_;
+    
+    /** Resource interface. */
+    private Class<?> resourceInterface_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param clientPool            The client pool
+     * @param address               The remote node address
+     * @param resourcePath          The resource path
+     * @param resourceInterface     The resource interface
+     */
+    RestCommunicatorHandler(RestClientPool clientPool, 
+                            NetworkAddress address, 
+                            String resourcePath,
+                            Class<?> resourceInterface)
+    {
+        clientPool_ = clientPool;
+        uri_ = String.format("http://%s:%d/%s", address.getAddress(), address.getPort(), resourcePath);
+        resourceInterface_ = resourceInterface;
+    }
+    
+    /**
+     * Issues a call.
+     * 
+     * @param proxy         The communicator
+     * @param method        The method
+     * @param arguments     The arguments
+     * @return              The result
+     */
+    public Object invoke(Object proxy, Method method, Object[] arguments)
+    {
+        if (method.getDeclaringClass().equals(Object.class))
+        {
+            return invokeObjectMethod(proxy, method, arguments);
+        }
+        
+        ClientResource clientResource = new ClientResource(uri_);
+        clientResource.setNext(clientPool_.getClient());
+        clientResource.setRetryOnError(false);
+        try
+        {
+            Object resource = clientResource.wrap(resourceInterface_);
+            return method.invoke(resource, arguments);
+        }
+        catch (InvocationTargetException exception)
+        {
+            log_.error(String.format("Call %s on %s failed", method.getName(), uri_), exception.getCause());
+        }
+        catch (IllegalAccessException exception)
+        {
+            log_.error(String.format("Call %s on %s failed", method.getName(), uri_), exception);
+        }
+        finally
+        {
+            clientResource.release();
+        }
+        
+        return getDefaultValue(method.getReturnType());
+    }
+    
+    /**
+     * Handles the object methods locally.
+     * 
+     * @param proxy         The communicator
+     * @param method        The method
+     * @param arguments     The arguments
+     * @return              The result
+     */
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] arguments)
+    {
+        if (method.getName().equals("equals"))
+        {
+            return proxy == arguments[0];
+        }
+        
+        if (method.getName().equals("hashCode"))
+        {
+            return System.identityHashCode(proxy);
+        }
+        
+        return uri_;
+    }
+    
+    /**
+     * Returns the result of a failed call.
+     * 
+     * @param type  The return type
+     * @return      The default value
+     */
+    private static Object getDefaultValue(Class<?> type)
+    {
+        if (!type.isPrimitive() || type.equals(void.class))
+        {
+            return null;
+        }
+        
+        if (type.equals(boolean.class))
+        {
+            return false;
+        }
+        
+        if (type.equals(char.class))
+        {
+            return '\0';
+        }
+        
+        if (type.equals(long.class))
+        {
+            return 0L;
+        }
+        
+        if (type.equals(float.class))
+        {
+            return 0.0f;
+        }
+        
+        if (type.equals(double.class))
+        {
+            return 0.0;
+        }
+        
+        if (type.equals(byte.class))
+        {
+            return (byte) 0;
+        }
+        
+        if (type.equals(short.class))
+        {
+            return (short) 0;
+        }
+        
+        return 0;
+    }
+}
@@ -22,6 +22,7 @@ package org.inria.myriads.snoozenode.configurator.api;
 import java.io.Serializable;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.hypervisor.HypervisorSettings;
+import org.inria.myriads.snoozenode.configurator.bootstrap.BootstrapSettings;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
 import org.inria.myriads.snoozenode.configurator.energymanagement.EnergyManagementSettings;
 import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
@@ -81,6 +82,9 @@ public final class NodeConfiguration
     /** Networking settings. */
     private NetworkingSettings networking_;
     
+    /** Bootstrap settings. */
+    private BootstrapSettings bootstrap_;
+    
     /** Empty constructor. */
     public NodeConfiguration()
     {
@@ -96,6 +100,7 @@ public final class NodeConfiguration
         monitoring_ = new MonitoringSettings();
         energyManagement_ = new EnergyManagementSettings();
         networking_ = new NetworkingSettings();
+        bootstrap_ = new BootstrapSettings();
     }
 
     /**
@@ -217,4 +222,14 @@ public final class NodeConfiguration
     {
         return submission_;
     }
+
+    /**
+     * Returns the bootstrap settings.
+     * 
+     * @return  The bootstrap settings
+     */
+    public BootstrapSettings getBootstrap() 
+    {
+        return bootstrap_;
+    }
 }
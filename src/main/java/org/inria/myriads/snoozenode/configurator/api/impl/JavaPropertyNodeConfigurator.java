@@ -38,6 +38,7 @@ import org.inria.myriads.snoozecommon.util.NetworkUtils;
 import org.inria.myriads.snoozecommon.util.StringUtils;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfigurator;
+import org.inria.myriads.snoozenode.configurator.bootstrap.BootstrapSettings;
 import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
 import org.inria.myriads.snoozenode.configurator.energymanagement.EnergyManagementSettings;
 import org.inria.myriads.snoozenode.configurator.energymanagement.enums.PowerSavingAction;
@@ -62,6 +63,10 @@ import org.inria.myriads.snoozenode.groupmanager.managerpolicies.enums.Placement
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.enums.Reconfiguration;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.enums.Relocation;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.enums.ConcurrencyMode;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.ProducerType;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
+import org.inria.myriads.snoozenode.tcpip.enums.ReceiverType;
 
 /**
  * Node configurator.
@@ -97,6 +102,7 @@ public final class JavaPropertyNodeConfigurator
         setNodeSettings();
         setNetworkingSettings();
         setHTTPdSettings();
+        setBootstrapSettings();
         setHypervisorSettings();
         setDatabaseSettings();
         setFaultToleranceSettings();
@@ -198,6 +204,15 @@ public final class JavaPropertyNodeConfigurator
         String collectionInterval = getProperty("submission.collection.retryInterval");
         submissionSettings.getCollection().setRetryInterval(Integer.valueOf(collectionInterval));
         
+        String responseTimeout = getProperty("submission.responseTimeout");
+        submissionSettings.setResponseTimeout(Integer.valueOf(responseTimeout));
+        
+        String maxConcurrentSubmissions = getProperty("submission.maxConcurrent");
+        submissionSettings.setMaxNumberOfConcurrentSubmissions(Integer.valueOf(maxConcurrentSubmissions));
+        
+        String maxConcurrentStarts = getProperty("submission.maxConcurrentStarts");
+        submissionSettings.setMaxNumberOfConcurrentStarts(Integer.valueOf(maxConcurrentStarts));
+        
         String cpuPackingDensity = getProperty("submission.packingDensity.cpu");
         double cpuDenity = Double.valueOf(cpuPackingDensity);
         submissionSettings.getPackingDensity().setCPU(cpuDenity);
@@ -225,6 +240,44 @@ public final class JavaPropertyNodeConfigurator
         
         String maximumNumberOfConnections = getProperty("httpd.maxNumberOfConnections");
         httpdSettings.setMaximumNumberOfConnections(maximumNumberOfConnections);
+        
+        String clientConnectTimeout = getProperty("httpd.client.connectTimeout");
+        httpdSettings.setClientConnectTimeout(Integer.valueOf(clientConnectTimeout));
+        
+        String clientReadTimeout = getProperty("httpd.client.readTimeout");
+        httpdSettings.setClientReadTimeout(Integer.valueOf(clientReadTimeout));
+        
+        String clientCallTimeout = getProperty("httpd.client.callTimeout");
+        httpdSettings.setClientCallTimeout(Integer.valueOf(clientCallTimeout));
+        
+        String maximumNumberOfClientConnectionsPerHost = getProperty("httpd.client.maxConnectionsPerHost");
+        httpdSettings.setMaximumNumberOfClientConnectionsPerHost(
+            Integer.valueOf(maximumNumberOfClientConnectionsPerHost));
+        
+        String maximumNumberOfClientConnections = getProperty("httpd.client.maxTotalConnections");
+        httpdSettings.setMaximumNumberOfClientConnections(Integer.valueOf(maximumNumberOfClientConnections));
+        
+        String numberOfClientThreads = getProperty("httpd.client.numberOfThreads");
+        httpdSettings.setNumberOfClientThreads(Integer.valueOf(numberOfClientThreads));
+    }
+    
+    /**
+     * Sets the bootstrap settings.
+     * 
+     * @throws NodeConfiguratorException    The configuration exception
+     */
+    private void setBootstrapSettings() 
+        throws NodeConfiguratorException
+    {
+        BootstrapSettings bootstrapSettings = nodeConfiguration_.getBootstrap();
+        String hierarchyTimeout = getProperty("bootstrap.hierarchy.timeout");
+        bootstrapSettings.setHierarchyTimeout(Integer.valueOf(hierarchyTimeout));
+        
+        String hierarchyMaxAge = getProperty("bootstrap.hierarchy.maxAge");
+        bootstrapSettings.setHierarchyMaxAge(Integer.valueOf(hierarchyMaxAge));
+        
+        String numberOfHierarchyThreads = getProperty("bootstrap.hierarchy.numberOfThreads");
+        bootstrapSettings.setNumberOfHierarchyThreads(Integer.valueOf(numberOfHierarchyThreads));
     }
     
     /**
@@ -270,6 +323,18 @@ public final class JavaPropertyNodeConfigurator
         
         String numberOfVirtualMachineEntries = getProperty("database.numberOfEntriesPerVirtualMachine");
         databaseSettings.setNumberOfEntriesPerVirtualMachine(Integer.valueOf(numberOfVirtualMachineEntries));        
+        
+        String directory = getProperty("database.persistent.directory");
+        databaseSettings.setDirectory(directory);
+        
+        String snapshotInterval = getProperty("database.persistent.snapshotInterval");
+        databaseSettings.setSnapshotInterval(Integer.valueOf(snapshotInterval));
+        
+        String recoveryTimeout = getProperty("database.persistent.recoveryTimeout");
+        databaseSettings.setRecoveryTimeout(Integer.valueOf(recoveryTimeout));
+        
+        String syncInterval = getProperty("database.persistent.syncInterval");
+        databaseSettings.setSyncInterval(Integer.valueOf(syncInterval));
     }
 
     /**
@@ -314,6 +379,23 @@ public final class JavaPropertyNodeConfigurator
         String numberOfMonitoringEntries = getProperty("monitoring.numberOfMonitoringEntries"); 
         monitoringSettings.setNumberOfMonitoringEntries(Integer.valueOf(numberOfMonitoringEntries));
         
+        String receiverType = getProperty("monitoring.receiver");
+        monitoringSettings.setReceiverType(ReceiverType.valueOf(receiverType));
+        
+        String numberOfReceiverThreads = getProperty("monitoring.receiver.numberOfThreads");
+        monitoringSettings.setNumberOfReceiverThreads(Integer.valueOf(numberOfReceiverThreads));
+        
+        String producerType = getProperty("monitoring.producer");
+        monitoringSettings.setProducerType(ProducerType.valueOf(producerType));
+        
+        String codecType = getProperty("monitoring.codec");
+        monitoringSettings.setCodecType(CodecType.valueOf(codecType));
+        if (monitoringSettings.getReceiverType() == ReceiverType.multiplexed && 
+            monitoringSettings.getCodecType() != CodecType.binary)
+        {
+            throw new NodeConfiguratorException("monitoring.receiver = multiplexed requires monitoring.codec = binary");
+        }
+        
         String tmpUtilizationThresholds = getProperty("monitoring.thresholds.cpu"); 
    
         List<Double> cpuThresholds = StringUtils.convertStringToDoubleArray(tmpUtilizationThresholds, separator);
@@ -327,6 +409,9 @@ public final class JavaPropertyNodeConfigurator
 
         double temperatureThreshold = Double.parseDouble(getProperty("monitoring.thresholds.temperature"));
         
+        String temperatureCacheTimeToLive = getProperty("monitoring.temperature.cacheTtl");
+        monitoringSettings.setTemperatureCacheTimeToLive(Integer.valueOf(temperatureCacheTimeToLive));
+        
         
         MonitoringThresholds monitoringThresholds = new MonitoringThresholds(cpuThresholds,
                 memoryUtilizationThresholds,
@@ -362,6 +447,12 @@ public final class JavaPropertyNodeConfigurator
         
         String networkDemandEstimator = getProperty("estimator.policy.network");
         estimatorSettings.getPolicy().setNetwork(Estimator.valueOf(networkDemandEstimator));
+        
+        String ewmaWeight = getProperty("estimator.ewma.weight");
+        estimatorSettings.setEwmaWeight(Double.valueOf(ewmaWeight));
+        
+        String percentile = getProperty("estimator.percentile");
+        estimatorSettings.setPercentile(Double.valueOf(percentile));
     }
     
     /**
@@ -409,6 +500,21 @@ public final class JavaPropertyNodeConfigurator
         
         String interval = getProperty("groupManagerScheduler.reconfiguration.interval");
         groupManager.getReconfigurationSettings().setInterval(interval);
+        
+        String drainTimeout = getProperty("groupManagerScheduler.reconfiguration.drainTimeout");
+        groupManager.getReconfigurationSettings().setDrainTimeout(Integer.valueOf(drainTimeout));
+        
+        String maxConcurrent = getProperty("groupManagerScheduler.migration.maxConcurrent");
+        groupManager.getMigrationSettings().setMaxNumberOfConcurrentMigrations(Integer.valueOf(maxConcurrent));
+        
+        String maxPerSource = getProperty("groupManagerScheduler.migration.maxPerSource");
+        groupManager.getMigrationSettings().setMaxNumberOfMigrationsPerSource(Integer.valueOf(maxPerSource));
+        
+        String maxPerDestination = getProperty("groupManagerScheduler.migration.maxPerDestination");
+        groupManager.getMigrationSettings().setMaxNumberOfMigrationsPerDestination(Integer.valueOf(maxPerDestination));
+        
+        String concurrencyMode = getProperty("groupManagerScheduler.concurrency");
+        groupManager.setConcurrencyMode(ConcurrencyMode.valueOf(concurrencyMode));
     }
     
     /**
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.configurator.bootstrap;
+
+/**
+ * Bootstrap settings.
+ * 
+ * @author Eugen Feller
+ */
+public final class BootstrapSettings 
+{
+    /** Hierarchy query timeout (ms). */
+    private int hierarchyTimeout_;
+    
+    /** Hierarchy maximum age (ms). */
+    private int hierarchyMaxAge_;
+    
+    /** Number of hierarchy query threads. */
+    private int numberOfHierarchyThreads_;
+
+    /**
+     * Sets the hierarchy query timeout.
+     * 
+     * @param hierarchyTimeout    The hierarchy query timeout
+     */
+    public void setHierarchyTimeout(int hierarchyTimeout) 
+    {
+        hierarchyTimeout_ = hierarchyTimeout;
+    }
+
+    /**
+     * Returns the hierarchy query timeout.
+     * 
+     * @return  The hierarchy query timeout
+     */
+    public int getHierarchyTimeout() 
+    {
+        return hierarchyTimeout_;
+    }
+
+    /**
+     * Sets the hierarchy maximum age.
+     * 
+     * @param hierarchyMaxAge    The hierarchy maximum age
+     */
+    public void setHierarchyMaxAge(int hierarchyMaxAge) 
+    {
+        hierarchyMaxAge_ = hierarchyMaxAge;
+    }
+
+    /**
+     * Returns the hierarchy maximum age.
+     * 
+     * @return  The hierarchy maximum age
+     */
+    public int getHierarchyMaxAge() 
+    {
+        return hierarchyMaxAge_;
+    }
+
+    /**
+     * Sets the number of hierarchy query threads.
+     * 
+     * @param numberOfHierarchyThreads    The number of hierarchy query threads
+     */
+    public void setNumberOfHierarchyThreads(int numberOfHierarchyThreads) 
+    {
+        numberOfHierarchyThreads_ = numberOfHierarchyThreads;
+    }
+
+    /**
+     * Returns the number of hierarchy query threads.
+     * 
+     * @return  The number of hierarchy query threads
+     */
+    public int getNumberOfHierarchyThreads() 
+    {
+        return numberOfHierarchyThreads_;
+    }
+}
@@ -36,6 +36,18 @@ public final class DatabaseSettings
     
     /** Maximum number of entries per virtual machine. */
     private int numberOfMonitoringEntriesPerVirtualMachine_;
+    
+    /** Persistent repository directory. */
+    private String directory_;
+    
+    /** Persistent repository snapshot interval (= s). */
+    private int snapshotInterval_;
+    
+    /** Time restored local controllers have to rejoin (= s). */
+    private int recoveryTimeout_;
+    
+    /** Journal group commit interval, 0 to sync every record (= ms). */
+    private int syncInterval_;
 
     /**
      * Sets the number of monitoring entries per group manager.
@@ -96,4 +108,84 @@ public final class DatabaseSettings
     {
         return type_;
     }
+
+    /**
+     * Sets the persistent repository directory.
+     * 
+     * @param directory     The directory
+     */
+    public void setDirectory(String directory) 
+    {
+        directory_ = directory;
+    }
+
+    /**
+     * Returns the persistent repository directory.
+     * 
+     * @return  The directory
+     */
+    public String getDirectory() 
+    {
+        return directory_;
+    }
+
+    /**
+     * Sets the persistent repository snapshot interval.
+     * 
+     * @param snapshotInterval  The snapshot interval (= s)
+     */
+    public void setSnapshotInterval(int snapshotInterval) 
+    {
+        snapshotInterval_ = snapshotInterval;
+    }
+
+    /**
+     * Returns the persistent repository snapshot interval.
+     * 
+     * @return  The snapshot interval (= s)
+     */
+    public int getSnapshotInterval() 
+    {
+        return snapshotInterval_;
+    }
+
+    /**
+     * Sets the recovery timeout.
+     * 
+     * @param recoveryTimeout   The time restored local controllers have to rejoin (= s)
+     */
+    public void setRecoveryTimeout(int recoveryTimeout) 
+    {
+        recoveryTimeout_ = recoveryTimeout;
+    }
+
+    /**
+     * Returns the recovery timeout.
+     * 
+     * @return  The time restored local controllers have to rejoin (= s)
+     */
+    public int getRecoveryTimeout() 
+    {
+        return recoveryTimeout_;
+    }
+
+    /**
+     * Sets the journal sync interval.
+     * 
+     * @param syncInterval      The group commit interval, 0 to sync every record (= ms)
+     */
+    public void setSyncInterval(int syncInterval) 
+    {
+        syncInterval_ = syncInterval;
+    }
+
+    /**
+     * Returns the journal sync interval.
+     * 
+     * @return  The group commit interval, 0 to sync every record (= ms)
+     */
+    public int getSyncInterval() 
+    {
+        return syncInterval_;
+    }
 }
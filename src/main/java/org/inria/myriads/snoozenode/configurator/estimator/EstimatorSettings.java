@@ -40,6 +40,12 @@ public final class EstimatorSettings
     /** Static estimations. */
     private boolean isStatic_;
     
+    /** Weight of the newest sample for the ewma estimator. */
+    private double ewmaWeight_;
+    
+    /** Percentile for the percentile estimator. */
+    private double percentile_;
+    
     /** Constructor. */
     public EstimatorSettings()
     {
@@ -115,4 +121,44 @@ public final class EstimatorSettings
     {
         return policy_;
     }
+
+    /**
+     * Sets the ewma weight.
+     * 
+     * @param ewmaWeight    The weight of the newest sample
+     */
+    public void setEwmaWeight(double ewmaWeight) 
+    {
+        ewmaWeight_ = ewmaWeight;
+    }
+
+    /**
+     * Returns the ewma weight.
+     * 
+     * @return  The weight of the newest sample
+     */
+    public double getEwmaWeight() 
+    {
+        return ewmaWeight_;
+    }
+
+    /**
+     * Sets the percentile.
+     * 
+     * @param percentile    The percentile
+     */
+    public void setPercentile(double percentile) 
+    {
+        percentile_ = percentile;
+    }
+
+    /**
+     * Returns the percentile.
+     * 
+     * @return  The percentile
+     */
+    public double getPercentile() 
+    {
+        return percentile_;
+    }
 }
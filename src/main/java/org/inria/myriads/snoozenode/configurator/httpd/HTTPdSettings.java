@@ -32,6 +32,24 @@ public final class HTTPdSettings
     /** Maximum number of connections. */
     private String maximumNumberOfConnections_;
     
+    /** Client connect timeout (ms). */
+    private int clientConnectTimeout_;
+    
+    /** Client read timeout (ms). */
+    private int clientReadTimeout_;
+    
+    /** Asynchronous client call timeout (ms). */
+    private int clientCallTimeout_;
+    
+    /** Maximum number of client connections per remote node. */
+    private int maximumNumberOfClientConnectionsPerHost_;
+    
+    /** Maximum number of client connections. */
+    private int maximumNumberOfClientConnections_;
+    
+    /** Number of threads for asynchronous client calls. */
+    private int numberOfClientThreads_;
+    
     /**
      * Sets the maximum number of threads.
      * 
@@ -71,4 +89,124 @@ public final class HTTPdSettings
     {
         return maximumNumberOfConnections_;
     }
+
+    /**
+     * Sets the client connect timeout.
+     * 
+     * @param clientConnectTimeout      The client connect timeout (ms)
+     */
+    public void setClientConnectTimeout(int clientConnectTimeout) 
+    {
+        clientConnectTimeout_ = clientConnectTimeout;
+    }
+
+    /**
+     * Returns the client connect timeout.
+     * 
+     * @return  The client connect timeout (ms)
+     */
+    public int getClientConnectTimeout() 
+    {
+        return clientConnectTimeout_;
+    }
+
+    /**
+     * Sets the client read timeout.
+     * 
+     * @param clientReadTimeout     The client read timeout (ms, 0 = no timeout)
+     */
+    public void setClientReadTimeout(int clientReadTimeout) 
+    {
+        clientReadTimeout_ = clientReadTimeout;
+    }
+
+    /**
+     * Returns the client read timeout.
+     * 
+     * @return  The client read timeout (ms, 0 = no timeout)
+     */
+    public int getClientReadTimeout() 
+    {
+        return clientReadTimeout_;
+    }
+
+    /**
+     * Sets the asynchronous client call timeout.
+     * 
+     * @param clientCallTimeout     The asynchronous client call timeout (ms, 0 = no timeout)
+     */
+    public void setClientCallTimeout(int clientCallTimeout) 
+    {
+        clientCallTimeout_ = clientCallTimeout;
+    }
+
+    /**
+     * Returns the asynchronous client call timeout.
+     * 
+     * @return  The asynchronous client call timeout (ms, 0 = no timeout)
+     */
+    public int getClientCallTimeout() 
+    {
+        return clientCallTimeout_;
+    }
+
+    /**
+     * Sets the maximum number of client connections per remote node.
+     * 
+     * @param maximumNumberOfClientConnectionsPerHost   The maximum number of client connections per node
+     */
+    public void setMaximumNumberOfClientConnectionsPerHost(int maximumNumberOfClientConnectionsPerHost) 
+    {
+        maximumNumberOfClientConnectionsPerHost_ = maximumNumberOfClientConnectionsPerHost;
+    }
+
+    /**
+     * Returns the maximum number of client connections per remote node.
+     * 
+     * @return  The maximum number of client connections per node
+     */
+    public int getMaximumNumberOfClientConnectionsPerHost() 
+    {
+        return maximumNumberOfClientConnectionsPerHost_;
+    }
+
+    /**
+     * Sets the maximum number of client connections.
+     * 
+     * @param maximumNumberOfClientConnections  The maximum number of client connections
+     */
+    public void setMaximumNumberOfClientConnections(int maximumNumberOfClientConnections) 
+    {
+        maximumNumberOfClientConnections_ = maximumNumberOfClientConnections;
+    }
+
+    /**
+     * Returns the maximum number of client connections.
+     * 
+     * @return  The maximum number of client connections
+     */
+    public int getMaximumNumberOfClientConnections() 
+    {
+        return maximumNumberOfClientConnections_;
+    }
+
+    /**
+     * Sets the number of threads for asynchronous client calls.
+     * 
+     * @param numberOfClientThreads     The number of client threads
+     */
+    public void setNumberOfClientThreads(int numberOfClientThreads) 
+    {
+        numberOfClientThreads_ = numberOfClientThreads;
+    }
+
+    /**
+     * Returns the number of threads for asynchronous client calls.
+     * 
+     * @return  The number of client threads
+     */
+    public int getNumberOfClientThreads() 
+    {
+        return numberOfClientThreads_;
+    }
 }
@@ -19,6 +19,10 @@
  */
 package org.inria.myriads.snoozenode.configurator.monitoring;
 
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.ProducerType;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
+import org.inria.myriads.snoozenode.tcpip.enums.ReceiverType;
+
 /**
  * Monitoring settings.
  * 
@@ -40,6 +44,21 @@ public final class MonitoringSettings
     
     /** Temperature threshold. */    
     private double temperatureThreshold_;
+    
+    /** Monitoring data receiver type. */
+    private ReceiverType receiverType_;
+    
+    /** Number of receiver I/O threads. */
+    private int numberOfReceiverThreads_;
+    
+    /** Monitoring data codec. */
+    private CodecType codecType_;
+    
+    /** Virtual machine monitoring data producer type. */
+    private ProducerType producerType_;
+    
+    /** Temperature cache time to live (= ms). */
+    private int temperatureCacheTimeToLive_;
      
     /**
      * Sets the number of monitoring entries.
@@ -140,4 +159,104 @@ public final class MonitoringSettings
     {
         return temperatureThreshold_;
     }
+    
+    /**
+     * Sets the monitoring data receiver type.
+     * 
+     * @param receiverType      The receiver type
+     */
+    public void setReceiverType(ReceiverType receiverType)
+    {
+        receiverType_ = receiverType;
+    }
+    
+    /**
+     * Returns the monitoring data receiver type.
+     * 
+     * @return      The receiver type
+     */
+    public ReceiverType getReceiverType()
+    {
+        return receiverType_;
+    }
+    
+    /**
+     * Sets the number of receiver I/O threads.
+     * 
+     * @param numberOfReceiverThreads      The number of threads
+     */
+    public void setNumberOfReceiverThreads(int numberOfReceiverThreads)
+    {
+        numberOfReceiverThreads_ = numberOfReceiverThreads;
+    }
+    
+    /**
+     * Returns the number of receiver I/O threads.
+     * 
+     * @return      The number of threads
+     */
+    public int getNumberOfReceiverThreads()
+    {
+        return numberOfReceiverThreads_;
+    }
+    
+    /**
+     * Sets the monitoring data codec.
+     * 
+     * @param codecType      The codec type
+     */
+    public void setCodecType(CodecType codecType)
+    {
+        codecType_ = codecType;
+    }
+    
+    /**
+     * Returns the monitoring data codec.
+     * 
+     * @return      The codec type
+     */
+    public CodecType getCodecType()
+    {
+        return codecType_;
+    }
+
+    /**
+     * Sets the virtual machine monitoring data producer type.
+     * 
+     * @param producerType      The producer type
+     */
+    public void setProducerType(ProducerType producerType)
+    {
+        producerType_ = producerType;
+    }
+    
+    /**
+     * Returns the virtual machine monitoring data producer type.
+     * 
+     * @return      The producer type
+     */
+    public ProducerType getProducerType()
+    {
+        return producerType_;
+    }
+
+    /**
+     * Sets the temperature cache time to live.
+     * 
+     * @param timeToLive        The time to live (= ms)
+     */
+    public void setTemperatureCacheTimeToLive(int timeToLive)
+    {
+        temperatureCacheTimeToLive_ = timeToLive;
+    }
+    
+    /**
+     * Returns the temperature cache time to live.
+     * 
+     * @return      The time to live (= ms)
+     */
+    public int getTemperatureCacheTimeToLive()
+    {
+        return temperatureCacheTimeToLive_;
+    }
 }
@@ -20,6 +20,7 @@
 package org.inria.myriads.snoozenode.configurator.scheduler;
 
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.enums.Placement;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.enums.ConcurrencyMode;
 
 /**
  * Group manager scheduler settings.
@@ -36,12 +37,19 @@ public final class GroupManagerSchedulerSettings
     
     /** Reconfiguration settings. */
     private ReconfigurationSettings reconfiguration_;
+    
+    /** Migration settings. */
+    private MigrationSettings migration_;
+    
+    /** Concurrency mode. */
+    private ConcurrencyMode concurrencyMode_;
 
     /** Empty constructor. */
     public GroupManagerSchedulerSettings()
     {
         relocation_ = new RelocationSettings();
         reconfiguration_ = new ReconfigurationSettings();
+        migration_ = new MigrationSettings();
     }
     
     /**
@@ -64,6 +72,16 @@ public final class GroupManagerSchedulerSettings
         return reconfiguration_;
     }
     
+    /**
+     * Returns the migration settings.
+     * 
+     * @return  The migration settings
+     */
+    public MigrationSettings getMigrationSettings()
+    {
+        return migration_;
+    }
+    
     /**
      * Sets the placement policy.
      * 
@@ -83,4 +101,24 @@ public final class GroupManagerSchedulerSettings
     {
         return placementPolicy_;
     }
+    
+    /**
+     * Sets the concurrency mode.
+     * 
+     * @param concurrencyMode    The concurrency mode
+     */
+    public void setConcurrencyMode(ConcurrencyMode concurrencyMode) 
+    {
+        concurrencyMode_ = concurrencyMode;
+    }
+
+    /**
+     * Returns the concurrency mode.
+     * 
+     * @return  The concurrency mode
+     */
+    public ConcurrencyMode getConcurrencyMode() 
+    {
+        return concurrencyMode_;
+    }
 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.configurator.scheduler;
+
+/**
+ * Migration settings.
+ * 
+ * @author Eugen Feller
+ */
+public class MigrationSettings 
+{
+    /** Maximum number of concurrent migrations. */
+    private int maxNumberOfConcurrentMigrations_;
+    
+    /** Maximum number of concurrent migrations per source local controller. */
+    private int maxNumberOfMigrationsPerSource_;
+    
+    /** Maximum number of concurrent migrations per destination local controller. */
+    private int maxNumberOfMigrationsPerDestination_;
+    
+    /**
+     * Sets the maximum number of concurrent migrations.
+     * 
+     * @param maxNumberOfConcurrentMigrations     The maximum number of concurrent migrations
+     */
+    public void setMaxNumberOfConcurrentMigrations(int maxNumberOfConcurrentMigrations) 
+    {
+        maxNumberOfConcurrentMigrations_ = maxNumberOfConcurrentMigrations;
+    }
+
+    /**
+     * Returns the maximum number of concurrent migrations.
+     * 
+     * @return  The maximum number of concurrent migrations
+     */
+    public int getMaxNumberOfConcurrentMigrations() 
+    {
+        return maxNumberOfConcurrentMigrations_;
+    }
+
+    /**
+     * Sets the maximum number of concurrent migrations per source.
+     * 
+     * @param maxNumberOfMigrationsPerSource      The maximum number of migrations per source
+     */
+    public void setMaxNumberOfMigrationsPerSource(int maxNumberOfMigrationsPerSource) 
+    {
+        maxNumberOfMigrationsPerSource_ = maxNumberOfMigrationsPerSource;
+    }
+
+    /**
+     * Returns the maximum number of concurrent migrations per source.
+     * 
+     * @return  The maximum number of migrations per source
+     */
+    public int getMaxNumberOfMigrationsPerSource() 
+    {
+        return maxNumberOfMigrationsPerSource_;
+    }
+
+    /**
+     * Sets the maximum number of concurrent migrations per destination.
+     * 
+     * @param maxNumberOfMigrationsPerDestination     The maximum number of migrations per destination
+     */
+    public void setMaxNumberOfMigrationsPerDestination(int maxNumberOfMigrationsPerDestination) 
+    {
+        maxNumberOfMigrationsPerDestination_ = maxNumberOfMigrationsPerDestination;
+    }
+
+    /**
+     * Returns the maximum number of concurrent migrations per destination.
+     * 
+     * @return  The maximum number of migrations per destination
+     */
+    public int getMaxNumberOfMigrationsPerDestination() 
+    {
+        return maxNumberOfMigrationsPerDestination_;
+    }
+}
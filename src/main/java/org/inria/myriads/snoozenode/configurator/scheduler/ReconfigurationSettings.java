@@ -37,6 +37,9 @@ public class ReconfigurationSettings
     /** Interval. */
     private String interval_;
     
+    /** Time to wait for running operations to finish (sec). */
+    private int drainTimeout_;
+    
     /**
      * Sets the interval.
      * 
@@ -57,6 +60,26 @@ public class ReconfigurationSettings
         return interval_;
     }
 
+    /**
+     * Sets the drain timeout.
+     * 
+     * @param drainTimeout    The time to wait for running operations to finish (sec)
+     */
+    public void setDrainTimeout(int drainTimeout) 
+    {
+        drainTimeout_ = drainTimeout;
+    }
+
+    /**
+     * Returns the drain timeout.
+     * 
+     * @return  The time to wait for running operations to finish (sec)
+     */
+    public int getDrainTimeout() 
+    {
+        return drainTimeout_;
+    }
+
     /**
      * Enables/disables reconfiguration.
      * 
@@ -35,6 +35,15 @@ public class SubmissionSettings
     /** Packing density. */
     private PackingDensity packingDensity_;
     
+    /** Time a response request waits for the submission to finish (= sec). */
+    private int responseTimeout_;
+    
+    /** Maximum number of concurrently dispatched virtual clusters. */
+    private int maxNumberOfConcurrentSubmissions_;
+    
+    /** Maximum number of virtual machines started concurrently on a local controller. */
+    private int maxNumberOfConcurrentStarts_;
+    
     /** Constructor. */
     public SubmissionSettings()
     {
@@ -82,4 +91,64 @@ public class SubmissionSettings
     {
         return collection_;
     }
+
+    /**
+     * Sets the response timeout.
+     * 
+     * @param responseTimeout   The response timeout
+     */
+    public void setResponseTimeout(int responseTimeout) 
+    {
+        responseTimeout_ = responseTimeout;
+    }
+
+    /**
+     * Returns the response timeout.
+     * 
+     * @return  The response timeout
+     */
+    public int getResponseTimeout() 
+    {
+        return responseTimeout_;
+    }
+
+    /**
+     * Sets the maximum number of concurrent submissions.
+     * 
+     * @param maxNumberOfConcurrentSubmissions   The maximum number of concurrent submissions
+     */
+    public void setMaxNumberOfConcurrentSubmissions(int maxNumberOfConcurrentSubmissions) 
+    {
+        maxNumberOfConcurrentSubmissions_ = maxNumberOfConcurrentSubmissions;
+    }
+
+    /**
+     * Returns the maximum number of concurrent submissions.
+     * 
+     * @return  The maximum number of concurrent submissions
+     */
+    public int getMaxNumberOfConcurrentSubmissions() 
+    {
+        return maxNumberOfConcurrentSubmissions_;
+    }
+
+    /**
+     * Sets the maximum number of concurrent starts.
+     * 
+     * @param maxNumberOfConcurrentStarts   The maximum number of concurrent starts
+     */
+    public void setMaxNumberOfConcurrentStarts(int maxNumberOfConcurrentStarts) 
+    {
+        maxNumberOfConcurrentStarts_ = maxNumberOfConcurrentStarts;
+    }
+
+    /**
+     * Returns the maximum number of concurrent starts.
+     * 
+     * @return  The maximum number of concurrent starts
+     */
+    public int getMaxNumberOfConcurrentStarts() 
+    {
+        return maxNumberOfConcurrentStarts_;
+    }
 }
@@ -19,11 +19,18 @@
  */
 package org.inria.myriads.snoozenode.database;
 
+import java.io.File;
+import java.io.IOException;
+
+import org.inria.myriads.snoozecommon.util.TimeUtils;
+import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.database.api.LocalControllerRepository;
 import org.inria.myriads.snoozenode.database.api.impl.GroupLeaderMemoryRepository;
+import org.inria.myriads.snoozenode.database.api.impl.GroupManagerConcurrentRepository;
 import org.inria.myriads.snoozenode.database.api.impl.GroupManagerMemoryRepository;
+import org.inria.myriads.snoozenode.database.api.impl.GroupManagerPersistentRepository;
 import org.inria.myriads.snoozenode.database.api.impl.LocalControllerMemoryRepository;
 import org.inria.myriads.snoozenode.database.enums.DatabaseType;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.GroupLeaderPolicyFactory;
@@ -61,7 +68,9 @@ public final class DatabaseFactory
         GroupLeaderRepository repository = null;
         switch (type) 
         {
-            case memory :       
+            case memory :
+            case concurrent :
+            case persistent :
                 repository = new GroupLeaderMemoryRepository(virtualMachineSubnets, maxCapacity);        
                 break;
                        
@@ -77,25 +86,64 @@ public final class DatabaseFactory
      * 
      * @param groupManagerId    The group manager identifier
      * @param maxCapacity       The maximum capacity
-     * @param type              The database type
+     * @param settings          The database settings
      * @return                  The group manager repository
      */
     public static GroupManagerRepository newGroupManagerRepository(String groupManagerId, 
                                                                    int maxCapacity,
-                                                                   DatabaseType type) 
+                                                                   DatabaseSettings settings) 
     {
         GroupManagerRepository repository = null;
-        switch (type) 
+        switch (settings.getType()) 
         {
             case memory :       
                 repository = new GroupManagerMemoryRepository(groupManagerId, maxCapacity);
                 break;
+                
+            case concurrent :
+                repository = new GroupManagerConcurrentRepository(groupManagerId, maxCapacity);
+                break;
+                
+            case persistent :
+                repository = newGroupManagerPersistentRepository(groupManagerId, maxCapacity, settings);
+                break;
                        
             default:
                 log_.error("Unknown group manager database type selected");
         }
         return repository;
     }
+    
+    /**
+     * Returns the persistent group manager repository.
+     * Falls back to the concurrent repository if the journal can not be opened.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @param maxCapacity       The maximum capacity
+     * @param settings          The database settings
+     * @return                  The group manager repository
+     */
+    private static GroupManagerRepository newGroupManagerPersistentRepository(String groupManagerId, 
+                                                                              int maxCapacity,
+                                                                              DatabaseSettings settings) 
+    {
+        try
+        {
+            return new GroupManagerPersistentRepository(groupManagerId, 
+                                                        maxCapacity, 
+                                                        new File(settings.getDirectory()),
+                                                        TimeUtils.convertSecondsToMilliseconds(
+                                                            settings.getSnapshotInterval()),
+                                                        TimeUtils.convertSecondsToMilliseconds(
+                                                            settings.getRecoveryTimeout()),
+                                                        settings.getSyncInterval());
+        }
+        catch (IOException exception)
+        {
+            log_.error("Unable to open the persistent repository, falling back to the concurrent one", exception);
+            return new GroupManagerConcurrentRepository(groupManagerId, maxCapacity);
+        }
+    }
 
     /**
      * Returns the local controller repository.
@@ -108,7 +156,9 @@ public final class DatabaseFactory
         LocalControllerRepository repository = null;
         switch (type) 
         {
-            case memory :       
+            case memory :
+            case concurrent :
+            case persistent :
                 repository = new LocalControllerMemoryRepository();
                 break;
                        
@@ -20,9 +20,13 @@
 package org.inria.myriads.snoozenode.database.api;
 
 import java.util.ArrayList;
+import java.util.List;
 
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
 import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.LocationUpdate;
 
 /**
  * Group leader repository interface.
@@ -85,6 +89,14 @@ public interface GroupLeaderRepository
      * @return     The next free ip address
      */
     String getFreeIpAddress();
+    
+    /**
+     * Allocates free IP addresses.
+     * 
+     * @param numberOfAddresses     The number of addresses
+     * @return                      The allocated ip addresses (may contain less entries)
+     */
+    List<String> allocateIpAddresses(int numberOfAddresses);
 
     /**
      * Returns the number of free IP addresses.
@@ -92,4 +104,38 @@ public interface GroupLeaderRepository
      * @return  The number of free IP addresses
      */
     int getNumberOfFreeIpAddresses();
+    
+    /**
+     * Returns a group manager description.
+     * 
+     * @param groupManagerId            The group manager identifier
+     * @param numberOfBacklogEntries    The number of backlog entries
+     * @return                          The group manager description, null if unknown
+     */
+    GroupManagerDescription getGroupManagerDescription(String groupManagerId, int numberOfBacklogEntries);
+    
+    /**
+     * Updates the location index of a group manager.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @param update            The location update
+     * @return                  true if applied, false otherwise
+     */
+    boolean updateLocations(String groupManagerId, LocationUpdate update);
+    
+    /**
+     * Looks up a virtual machine in the location index.
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     * @return                  The virtual machine location, null if unknown
+     */
+    VirtualMachineLocation lookupVirtualMachineLocation(String virtualMachineId);
+    
+    /**
+     * Looks up a local controller in the location index.
+     * 
+     * @param address           The local controller control data address
+     * @return                  The location (group manager and local controller identifiers), null if unknown
+     */
+    VirtualMachineLocation lookupLocalControllerLocation(NetworkAddress address);
 }
@@ -29,6 +29,8 @@ import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControl
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryProvider;
+import org.inria.myriads.snoozenode.database.listener.LocalControllerChangeListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
 
 /**
@@ -37,6 +39,7 @@ import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.Aggrega
  * @author Eugen Feller
  */
 public interface GroupManagerRepository 
+    extends VirtualMachineHistoryProvider
 {      
     /** 
      * Returns the group manager identifier. 
@@ -55,6 +58,14 @@ public interface GroupManagerRepository
     ArrayList<LocalControllerDescription> getLocalControllerDescriptions(int numberOfMonitoringEntries, 
                                                                          boolean isActiveOnly);
     
+    /**
+     * Returns read-only local controller snapshots (without monitoring data).
+     * 
+     * @param isActiveOnly                 true if active only controllers are needed
+     * @return                             The local controller snapshots
+     */
+    List<LocalControllerDescription> getLocalControllerSnapshots(boolean isActiveOnly);
+    
     /**
      * Returns the local controller control addressed associated with a virtual machine.
      * 
@@ -219,4 +230,15 @@ public interface GroupManagerRepository
      * @return                      true if everything ok
      */
     boolean updateVirtualMachineMetaData(VirtualMachineMetaData virtualMachine);
+    
+    /**
+     * Sets the local controller change listener.
+     * 
+     * Only one listener is kept, setting a new one replaces the previous one. The listener
+     * is called on the thread which modified the repository, with the repository locks held.
+     * 
+     * @param listener      The change listener to notify about local controller changes,
+     *                      or null to stop notifications
+     */
+    void setChangeListener(LocalControllerChangeListener listener);
 }
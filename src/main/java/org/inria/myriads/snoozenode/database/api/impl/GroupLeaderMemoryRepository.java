@@ -20,20 +20,21 @@
 package org.inria.myriads.snoozenode.database.api.impl;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.net.util.SubnetUtils;
-import org.apache.commons.net.util.SubnetUtils.SubnetInfo;
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
 import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.datastructure.LRUCache;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.LocationUpdate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,11 +60,14 @@ public final class GroupLeaderMemoryRepository
      */
     private Map<String, GroupManagerDescription> groupManagerDescriptions_;
     
-    /** List of available addresses. */
-    private List<String> ipAddressPool_;
+    /** Pool of available addresses. */
+    private IpAddressPool ipAddressPool_;
     
     /** Maximum number of group manager entries. */
     private int maxCapacity_;
+    
+    /** Local controller and virtual machine locations. */
+    private LocationIndex locationIndex_;
 
     /** 
      * Constructor.
@@ -78,26 +82,19 @@ public final class GroupLeaderMemoryRepository
         ipAddressPool_ = generateAddressPool(virtualMachineSubnets);
         maxCapacity_ = maxCapacity;
         groupManagerDescriptions_ = new HashMap<String, GroupManagerDescription>();
+        locationIndex_ = new LocationIndex();
     }
 
     /**
      * Generates the address pool.
      * 
      * @param virtualMachineSubnet     The virtual machine subnet
-     * @return                         The list of IP addresses
+     * @return                         The IP address pool
      */
-    protected List<String> generateAddressPool(String[] virtualMachineSubnets)
+    protected IpAddressPool generateAddressPool(String[] virtualMachineSubnets)
     {
         log_.debug("Generating address pool");
-        List<String> addressPool = new ArrayList<String>();
-        for (String virtualMachineSubnet : virtualMachineSubnets)
-        {
-            SubnetUtils subnetUtils = new SubnetUtils(virtualMachineSubnet);
-            SubnetInfo subnetInfo = subnetUtils.getInfo(); 
-            addressPool.addAll(Arrays.asList(subnetInfo.getAllAddresses()));
-        }
-        
-        return addressPool;
+        return new IpAddressPool(virtualMachineSubnets, IP_ADDRESS_START_IDEX);
     }
     
     /**
@@ -112,13 +109,18 @@ public final class GroupLeaderMemoryRepository
         Guard.check(ipAddress);
         log_.debug(String.format("Adding IP %s back to the address pool", ipAddress));
         
-        if (ipAddressPool_.contains(ipAddress))
+        if (!ipAddressPool_.contains(ipAddress))
+        {
+            log_.debug("This IP is not part of the virtual machine subnets!");
+            return false;
+        }
+        
+        if (!ipAddressPool_.release(ipAddress))
         {
             log_.debug("This IP is already in the address pool!");
             return false;
         }
         
-        ipAddressPool_.add(ipAddress);
         return true;
     }
     
@@ -134,13 +136,12 @@ public final class GroupLeaderMemoryRepository
         Guard.check(ipAddress);
         log_.debug(String.format("Removing IP address %s from the pool", ipAddress));
         
-        if (!ipAddressPool_.contains(ipAddress))
+        if (!ipAddressPool_.remove(ipAddress))
         {
             log_.debug("This IP is not in the address pool!");
             return false;
         }
         
-        ipAddressPool_.remove(ipAddress);
         return true;
     }
     
@@ -153,16 +154,28 @@ public final class GroupLeaderMemoryRepository
     public synchronized String getFreeIpAddress()
     {
         log_.debug("Returning free IP address from pool");
-        if (ipAddressPool_.size() <= 1)
+        String ipAddress = ipAddressPool_.peek();
+        if (ipAddress == null)
         {
             log_.debug("IP address pool is empty!");
-            return null;
         }
         
-        String ipAddress = ipAddressPool_.get(IP_ADDRESS_START_IDEX);
         return ipAddress;
     }
     
+    /**
+     * Allocates free IP addresses.
+     * 
+     * @param numberOfAddresses     The number of addresses
+     * @return                      The allocated ip addresses (may contain less entries)
+     */
+    @Override
+    public synchronized List<String> allocateIpAddresses(int numberOfAddresses)
+    {
+        log_.debug(String.format("Allocating %d IP addresses from pool", numberOfAddresses));
+        return ipAddressPool_.allocate(numberOfAddresses);
+    }
+    
     /**
      * Adds a group manager description.
      * 
@@ -187,6 +200,8 @@ public final class GroupLeaderMemoryRepository
             
         groupManager.setSummaryInformation(new LRUCache<Long, GroupManagerSummaryInformation>(maxCapacity_));    
         groupManagerDescriptions_.put(groupManagerId, groupManager);     
+        Collection<LocalControllerDescription> localControllers = groupManager.getLocalControllers().values();
+        locationIndex_.update(groupManagerId, LocationUpdate.fromLocalControllers(0, localControllers));
         removeIpAddresses(groupManager.getLocalControllers());
         return true;
     }
@@ -333,6 +348,7 @@ public final class GroupLeaderMemoryRepository
         {
             log_.debug("Group manager dropped!");
             groupManagerDescriptions_.remove(groupManagerId);
+            locationIndex_.removeGroupManager(groupManagerId);
             return true;
         }
         
@@ -346,13 +362,80 @@ public final class GroupLeaderMemoryRepository
      * @return  The number of IP addresses
      */
     @Override
-    public int getNumberOfFreeIpAddresses() 
+    public synchronized int getNumberOfFreeIpAddresses() 
     {
-        if (ipAddressPool_.size() > 1)
+        int numberOfFreeAddresses = ipAddressPool_.getNumberOfFreeAddresses();
+        if (numberOfFreeAddresses > 1)
         {
-            return ipAddressPool_.size();
+            return numberOfFreeAddresses;
         }
         
         return 0;
     }
+    
+    /**
+     * Returns a group manager description.
+     * 
+     * @param groupManagerId            The group manager identifier
+     * @param numberOfBacklogEntries    The number of backlog entries
+     * @return                          The group manager description, null if unknown
+     */
+    @Override
+    public synchronized GroupManagerDescription getGroupManagerDescription(String groupManagerId, 
+                                                                           int numberOfBacklogEntries)
+    {
+        Guard.check(groupManagerId);
+        GroupManagerDescription groupManager = groupManagerDescriptions_.get(groupManagerId);
+        if (groupManager == null)
+        {
+            log_.debug(String.format("No description for group manager %s available", groupManagerId));
+            return null;
+        }
+        
+        return new GroupManagerDescription(groupManager, numberOfBacklogEntries);
+    }
+    
+    /**
+     * Updates the location index of a group manager.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @param update            The location update
+     * @return                  true if applied, false otherwise
+     */
+    @Override
+    public synchronized boolean updateLocations(String groupManagerId, LocationUpdate update)
+    {
+        Guard.check(groupManagerId, update);
+        if (!groupManagerDescriptions_.containsKey(groupManagerId))
+        {
+            log_.debug(String.format("Ignoring locations of unknown group manager %s", groupManagerId));
+            return false;
+        }
+        
+        return locationIndex_.update(groupManagerId, update);
+    }
+    
+    /**
+     * Looks up a virtual machine in the location index.
+     * 
+     * @param virtualMachineId  The virtual machine identifier
+     * @return                  The virtual machine location, null if unknown
+     */
+    @Override
+    public synchronized VirtualMachineLocation lookupVirtualMachineLocation(String virtualMachineId)
+    {
+        return locationIndex_.lookupVirtualMachine(virtualMachineId);
+    }
+    
+    /**
+     * Looks up a local controller in the location index.
+     * 
+     * @param address           The local controller control data address
+     * @return                  The location (group manager and local controller identifiers), null if unknown
+     */
+    @Override
+    public synchronized VirtualMachineLocation lookupLocalControllerLocation(NetworkAddress address)
+    {
+        return locationIndex_.lookupLocalController(address);
+    }
 }
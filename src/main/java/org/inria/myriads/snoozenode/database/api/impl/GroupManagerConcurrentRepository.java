@@ -0,0 +1,1270 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.api.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozecommon.datastructure.LRUCache;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.database.history.StreamingStatisticsFactory;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistory;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryReader;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
+import org.inria.myriads.snoozenode.database.listener.LocalControllerChangeListener;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group manager concurrent in-memory repository.
+ * 
+ * Local controllers are kept in a concurrent map and every local controller has its
+ * own lock, so monitoring data of different local controllers is stored in parallel.
+ * Each local controller publishes an immutable snapshot of its description (without
+ * monitoring data) which is rebuilt on meta data changes only. Readers start from
+ * the snapshot and lock the local controller only to copy monitoring history.
+ * 
+ * @author Eugen Feller
+ */
+public final class GroupManagerConcurrentRepository 
+    implements GroupManagerRepository 
+{    
+    /** Logger.*/
+    private static final Logger log_ = LoggerFactory.getLogger(GroupManagerConcurrentRepository.class);
+    
+    /** Group manager id. */
+    private String groupManagerId_;
+    
+    /**
+     * Local controllers.
+     *  
+     * Key: Local controller identifier
+     * Value: Local controller entry
+     */
+    private ConcurrentMap<String, LocalControllerEntry> localControllers_;
+    
+    /**
+     * Virtual machine index.
+     * 
+     * Key: Virtual machine identifier
+     * Value: Local controller identifier
+     */
+    private ConcurrentMap<String, String> virtualMachines_;
+        
+    /** Legacy IP addresses. */
+    private Set<String> legacyIpAddresses_;
+
+    /** The maximum capacity. */
+    private int maxCapacity_;
+    
+    /** Streaming statistics factory (optional). */
+    private volatile StreamingStatisticsFactory statisticsFactory_;
+    
+    /** Local controller change listener (optional). */
+    private volatile LocalControllerChangeListener changeListener_;
+    
+    /**
+     * Local controller entry.
+     * 
+     * The description and histories are guarded by the lock, the snapshot is
+     * immutable once published.
+     */
+    private static final class LocalControllerEntry
+    {
+        /** Lock. */
+        private final ReentrantLock lock_ = new ReentrantLock();
+        
+        /** Local controller description. */
+        private final LocalControllerDescription description_;
+        
+        /** Virtual machine histories. */
+        private final Map<String, VirtualMachineHistory> histories_;
+        
+        /** Published snapshot (no monitoring data). */
+        private volatile LocalControllerDescription snapshot_;
+        
+        /** Removed flag. */
+        private boolean isRemoved_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param description   The local controller description
+         */
+        private LocalControllerEntry(LocalControllerDescription description)
+        {
+            description_ = description;
+            histories_ = new HashMap<String, VirtualMachineHistory>();
+        }
+        
+        /**
+         * Publishes a new snapshot (lock must be held).
+         */
+        private void publish()
+        {
+            snapshot_ = new LocalControllerDescription(description_, 0);
+        }
+    }
+    
+    /** 
+     * Constructor.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @param maxCapacity       The maximum capacity
+     */
+    public GroupManagerConcurrentRepository(String groupManagerId, int maxCapacity) 
+    {
+        Guard.check(groupManagerId);
+        log_.debug("Initializing the group manager concurrent repository");
+        
+        groupManagerId_ = groupManagerId;
+        maxCapacity_ = maxCapacity;
+        localControllers_ = new ConcurrentHashMap<String, LocalControllerEntry>();
+        virtualMachines_ = new ConcurrentHashMap<String, String>();
+        legacyIpAddresses_ = new LinkedHashSet<String>();
+    }
+    
+    /**
+     * Locks a local controller entry.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      The locked entry, null if not available
+     */
+    private LocalControllerEntry lock(String localControllerId)
+    {
+        if (localControllerId == null)
+        {
+            return null;
+        }
+        
+        LocalControllerEntry entry = localControllers_.get(localControllerId);
+        if (entry == null)
+        {
+            return null;
+        }
+        
+        entry.lock_.lock();
+        if (entry.isRemoved_)
+        {
+            entry.lock_.unlock();
+            return null;
+        }
+        
+        return entry;
+    }
+    
+    /**
+     * Returns true if the local controller snapshot matches the filter.
+     * 
+     * @param snapshot          The snapshot
+     * @param isActiveOnly      true if active only controllers are required
+     * @return                  true if selected, false otherwise
+     */
+    private static boolean isSelected(LocalControllerDescription snapshot, boolean isActiveOnly)
+    {
+        LocalControllerStatus status = snapshot.getStatus();
+        if (status.equals(LocalControllerStatus.WOKENUP))
+        {
+            return false;
+        }
+        
+        return !(isActiveOnly && status.equals(LocalControllerStatus.PASSIVE));
+    }
+    
+    /**
+     * Copies a local controller description including monitoring data.
+     * 
+     * @param entry                         The local controller entry
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @return                              The copy, null if the local controller was removed
+     */
+    private LocalControllerDescription copy(LocalControllerEntry entry, int numberOfMonitoringEntries)
+    {
+        if (numberOfMonitoringEntries <= 0)
+        {
+            return new LocalControllerDescription(entry.snapshot_, 0);
+        }
+        
+        entry.lock_.lock();
+        try
+        {
+            if (entry.isRemoved_)
+            {
+                return null;
+            }
+            
+            LocalControllerDescription copy = new LocalControllerDescription(entry.description_, 
+                                                                             numberOfMonitoringEntries);
+            for (VirtualMachineMetaData virtualMachine : copy.getVirtualMachineMetaData().values())
+            {
+                fillUsedCapacity(entry, virtualMachine, numberOfMonitoringEntries);
+            }
+            
+            return copy;
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+    
+    /**
+     * Fills the used capacity of a virtual machine copy (lock must be held).
+     * 
+     * @param entry                         The local controller entry
+     * @param virtualMachine                The virtual machine copy
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     */
+    private static void fillUsedCapacity(LocalControllerEntry entry, 
+                                         VirtualMachineMetaData virtualMachine, 
+                                         int numberOfMonitoringEntries)
+    {
+        if (numberOfMonitoringEntries <= 0)
+        {
+            return;
+        }
+        
+        String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+        VirtualMachineHistory history = entry.histories_.get(virtualMachineId);
+        if (history != null)
+        {
+            history.copyTo(virtualMachine.getUsedCapacity(), numberOfMonitoringEntries);
+        }
+    }
+    
+    /**
+     * Returns the algorithm input data.
+     * 
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @param isActiveOnly                  true if active only controllers are required
+     * @return                              The local controller descriptions
+     */
+    @Override
+    public ArrayList<LocalControllerDescription> getLocalControllerDescriptions(int numberOfMonitoringEntries, 
+                                                                                boolean isActiveOnly)
+    {
+        Guard.check(numberOfMonitoringEntries);
+        log_.debug(String.format("Getting all local controllers, number of monitoring entries: %d",     
+                                  numberOfMonitoringEntries));
+        
+        ArrayList<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        for (LocalControllerEntry entry : localControllers_.values())
+        {
+            if (!isSelected(entry.snapshot_, isActiveOnly))
+            {
+                continue;
+            }
+            
+            LocalControllerDescription copy = copy(entry, numberOfMonitoringEntries);
+            if (copy != null)
+            {
+                localControllers.add(copy);
+            }
+        }
+        
+        return localControllers;
+    }
+    
+    /**
+     * Returns the shared local controller snapshots.
+     * 
+     * @param isActiveOnly      true if active only controllers are required
+     * @return                  The local controller snapshots
+     */
+    @Override
+    public List<LocalControllerDescription> getLocalControllerSnapshots(boolean isActiveOnly)
+    {
+        List<LocalControllerDescription> snapshots = new ArrayList<LocalControllerDescription>();
+        for (LocalControllerEntry entry : localControllers_.values())
+        {
+            LocalControllerDescription snapshot = entry.snapshot_;
+            if (isSelected(snapshot, isActiveOnly))
+            {
+                snapshots.add(snapshot);
+            }
+        }
+        
+        return snapshots;
+    }
+    
+    /**
+     * Returns all local controllers regardless of their status.
+     * 
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @return                              The local controller descriptions
+     */
+    List<LocalControllerDescription> getAllLocalControllerDescriptions(int numberOfMonitoringEntries)
+    {
+        List<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        for (LocalControllerEntry entry : localControllers_.values())
+        {
+            LocalControllerDescription copy = copy(entry, numberOfMonitoringEntries);
+            if (copy != null)
+            {
+                localControllers.add(copy);
+            }
+        }
+        
+        return localControllers;
+    }
+    
+    /**
+     * Returns the legacy IP addresses without releasing them.
+     * 
+     * @return  The legacy IP addresses
+     */
+    List<String> peekLegacyIpAddresses()
+    {
+        synchronized (legacyIpAddresses_)
+        {
+            return new ArrayList<String>(legacyIpAddresses_);
+        }
+    }
+    
+    /**
+     * Restores previously released legacy IP addresses.
+     * 
+     * @param ipAddresses   The legacy IP addresses
+     */
+    void restoreLegacyIpAddresses(List<String> ipAddresses)
+    {
+        synchronized (legacyIpAddresses_)
+        {
+            legacyIpAddresses_.addAll(ipAddresses);
+        }
+    }
+    
+    /**
+     * Returns the maximum number of monitoring entries per virtual machine.
+     * 
+     * @return  The maximum capacity
+     */
+    int getMaxCapacity()
+    {
+        return maxCapacity_;
+    }
+    
+    /**
+     * Cleans the repository.
+     */
+    @Override
+    public void clean()
+    {
+        log_.debug("Cleaning repository");
+        for (String localControllerId : new ArrayList<String>(localControllers_.keySet()))
+        {
+            LocalControllerEntry entry = lock(localControllerId);
+            if (entry == null)
+            {
+                continue;
+            }
+            
+            try
+            {
+                entry.isRemoved_ = true;
+                localControllers_.remove(localControllerId, entry);
+            }
+            finally
+            {
+                entry.lock_.unlock();
+            }
+        }
+        
+        virtualMachines_.clear();
+        synchronized (legacyIpAddresses_)
+        {
+            legacyIpAddresses_.clear();
+        }
+        
+        LocalControllerChangeListener listener = changeListener_;
+        if (listener != null)
+        {
+            listener.onRepositoryCleaned();
+        }
+    }
+    
+    /**
+     * Returns a copy of the latest monitoring history entries of a virtual machine.
+     * 
+     * @param location          The virtual machine location
+     * @param numberOfEntries   The maximum number of entries
+     * @return                  The detached history view, null if the virtual machine is unknown
+     */
+    @Override
+    public VirtualMachineHistoryView getVirtualMachineHistory(VirtualMachineLocation location, int numberOfEntries)
+    {
+        return readVirtualMachineHistory(location, numberOfEntries, VirtualMachineHistoryView.COPY_READER);
+    }
+    
+    /**
+     * Reads the latest monitoring history entries of a virtual machine without copying them.
+     * 
+     * @param <T>               The result type
+     * @param location          The virtual machine location
+     * @param numberOfEntries   The maximum number of entries
+     * @param reader            The history reader (called with the local controller lock held)
+     * @return                  The reader result, null if the virtual machine is unknown
+     */
+    @Override
+    public <T> T readVirtualMachineHistory(VirtualMachineLocation location, 
+                                           int numberOfEntries, 
+                                           VirtualMachineHistoryReader<T> reader)
+    {
+        Guard.check(location, reader);
+        LocalControllerEntry entry = lock(location.getLocalControllerId());
+        if (entry == null)
+        {
+            return null;
+        }
+        
+        try
+        {
+            VirtualMachineHistory history = entry.histories_.get(location.getVirtualMachineId());
+            if (history == null)
+            {
+                return null;
+            }
+            
+            return reader.read(history.getView(numberOfEntries));
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+    
+    /**
+     * Sets the streaming statistics factory.
+     * 
+     * @param statisticsFactory     The statistics factory
+     */
+    @Override
+    public void setStatisticsFactory(StreamingStatisticsFactory statisticsFactory)
+    {
+        statisticsFactory_ = statisticsFactory;
+    }
+    
+    /**
+     * Sets the local controller change listener, replacing the previous one.
+     * 
+     * @param listener      The change listener to notify about local controller changes,
+     *                      or null to stop notifications
+     */
+    @Override
+    public void setChangeListener(LocalControllerChangeListener listener)
+    {
+        changeListener_ = listener;
+    }
+    
+    /**
+     * Publishes a new snapshot and notifies the change listener (lock must be held).
+     * 
+     * @param entry     The local controller entry
+     */
+    private void publish(LocalControllerEntry entry)
+    {
+        entry.publish();
+        notifyLocalControllerChanged(entry.description_.getId());
+    }
+    
+    /**
+     * Notifies the change listener about a local controller change.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    private void notifyLocalControllerChanged(String localControllerId)
+    {
+        LocalControllerChangeListener listener = changeListener_;
+        if (listener != null)
+        {
+            listener.onLocalControllerChanged(localControllerId);
+        }
+    }
+    
+    /**
+     * Fills the group manager description.
+     * 
+     * @param groupManager      The group manager description
+     */
+    @Override
+    public void fillGroupManagerDescription(GroupManagerDescription groupManager) 
+    {   
+        Guard.check(groupManager);
+        log_.debug("Adding possible virtual machine meta data to group manager description");
+        
+        HashMap<String, LocalControllerDescription> localControllers = 
+            new HashMap<String, LocalControllerDescription>();
+        for (LocalControllerEntry entry : localControllers_.values())
+        {
+            LocalControllerDescription copy = copy(entry, maxCapacity_);
+            if (copy != null)
+            {
+                localControllers.put(copy.getId(), copy);
+            }
+        }
+        
+        groupManager.setLocalControllers(localControllers);   
+    }
+    
+    /**
+     * Add local controller description.
+     * 
+     * @param localController    The local controller description
+     * @return                   true if everything ok, false otherwise
+     */
+    @Override
+    public boolean addLocalControllerDescription(LocalControllerDescription localController) 
+    {
+        Guard.check(localController);
+        String localControllerId = localController.getId();
+        log_.debug(String.format("Adding description for local controller: %s", localControllerId));
+        
+        Map<String, VirtualMachineMetaData> metaData = localController.getVirtualMachineMetaData();
+        if (metaData == null)
+        {
+            log_.debug("No meta data available on this local controller!");
+            return false;
+        }
+        
+        LocalControllerEntry entry = new LocalControllerEntry(localController);
+        entry.lock_.lock();
+        try
+        {
+            for (VirtualMachineMetaData virtualMachine : metaData.values())
+            {
+                VirtualMachineLocation location = virtualMachine.getVirtualMachineLocation();
+                location.setLocalControllerId(localControllerId);
+                addVirtualMachine(entry, virtualMachine);
+            }
+            
+            entry.publish();
+            LocalControllerEntry previous = localControllers_.put(localControllerId, entry);
+            if (previous != null)
+            {
+                markRemoved(previous);
+            }
+            
+            notifyLocalControllerChanged(localControllerId);
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+        
+        log_.debug("Local controller description added successfully!");
+        return true;
+    }
+    
+    /**
+     * Marks a replaced entry as removed.
+     * 
+     * @param entry     The entry
+     */
+    private static void markRemoved(LocalControllerEntry entry)
+    {
+        entry.lock_.lock();
+        try
+        {
+            entry.isRemoved_ = true;
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+    
+    /**
+     * Adds a virtual machine to a local controller entry (lock must be held).
+     * 
+     * @param entry             The local controller entry
+     * @param virtualMachine    The virtual machine
+     */
+    private void addVirtualMachine(LocalControllerEntry entry, VirtualMachineMetaData virtualMachine)
+    {
+        String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+        
+        // The history is kept in the ring buffer, copies get it materialized on demand
+        virtualMachine.setUsedCapacity(new LRUCache<Long, VirtualMachineMonitoringData>(maxCapacity_));
+        entry.histories_.put(virtualMachineId, new VirtualMachineHistory(maxCapacity_, statisticsFactory_));
+        entry.description_.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+        virtualMachines_.put(virtualMachineId, entry.description_.getId());
+    }
+    
+    /**
+     * Returns the local controller description associated with a virtual machine.
+     * 
+     * @param location      The virtual machine location
+     * @return              The local controller control data address
+     */
+    @Override
+    public NetworkAddress getLocalControllerControlDataAddress(VirtualMachineLocation location)
+    {
+        Guard.check(location);
+        log_.debug(String.format("Getting local controller description for virtual machine: %s", 
+                                 location.getVirtualMachineId()));
+        
+        LocalControllerEntry entry = localControllers_.get(location.getLocalControllerId());
+        if (entry == null)
+        {
+            log_.debug("The local controller description is NULL");
+            return null;
+        }
+        
+        LocalControllerDescription snapshot = entry.snapshot_;
+        if (!snapshot.getVirtualMachineMetaData().containsKey(location.getVirtualMachineId()))
+        {
+            log_.debug(String.format("No virtual machine %s meta data exists on this local controller!",
+                                     location.getVirtualMachineId()));
+            return null;
+        }
+        
+        return snapshot.getControlDataAddress();
+    }
+        
+    /**
+     * Returns the local controller description.
+     * 
+     * @param localControllerId         The local controller identifier
+     * @param numberOfMonitoringEntries The number of monitoring entries
+     * @return                          The local controller description
+     */
+    @Override
+    public LocalControllerDescription getLocalControllerDescription(String localControllerId,
+                                                                    int numberOfMonitoringEntries)
+    {
+        Guard.check(localControllerId, numberOfMonitoringEntries);       
+        log_.debug(String.format("Getting local controller description for %s", localControllerId));
+        
+        LocalControllerEntry entry = localControllers_.get(localControllerId);
+        if (entry == null)
+        {
+            log_.debug("No such local controller available!");
+            return null;
+        }
+        
+        return copy(entry, numberOfMonitoringEntries);
+    }
+    
+    /**
+     * Drops virtual machine data.
+     * 
+     * @param location      The virtual machine location
+     * @return              true if everything ok, false otherwise
+     */
+    @Override
+    public boolean dropVirtualMachineData(VirtualMachineLocation location)
+    {
+        Guard.check(location);
+        log_.debug(String.format("Removing virtual machine data for: %s", location.getVirtualMachineId()));
+        
+        LocalControllerEntry entry = lock(location.getLocalControllerId());
+        if (entry == null)
+        {
+            log_.error("No meta information exists for this virtual machine!");
+            return false;
+        }
+        
+        try
+        {
+            String virtualMachineId = location.getVirtualMachineId();
+            VirtualMachineMetaData virtualMachine = 
+                entry.description_.getVirtualMachineMetaData().get(virtualMachineId);
+            if (virtualMachine == null)
+            {
+                log_.error("No meta information exists for this virtual machine!");
+                return false;
+            }
+            
+            String ipAddress = virtualMachine.getIpAddress();
+            if (ipAddress == null)
+            {
+                log_.error("No IP address is assigned to this virtual machine!");
+                return false;
+            }
+            
+            if (!addLegacyIpAddress(ipAddress))
+            {
+                log_.debug("Failed to release virtual machine networking information!");
+                return false;
+            }
+            
+            removeVirtualMachine(entry, virtualMachineId);
+            publish(entry);
+            return true;
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+    
+    /**
+     * Removes a virtual machine from a local controller entry (lock must be held).
+     * 
+     * @param entry                 The local controller entry
+     * @param virtualMachineId      The virtual machine identifier
+     */
+    private void removeVirtualMachine(LocalControllerEntry entry, String virtualMachineId)
+    {
+        entry.description_.getVirtualMachineMetaData().remove(virtualMachineId);
+        entry.histories_.remove(virtualMachineId);
+        virtualMachines_.remove(virtualMachineId, entry.description_.getId());
+    }
+    
+    /**
+     * Adds virtual machine meta data.
+     * 
+     * @param virtualMachine      The virtual machine meta data
+     * @return                    true if everything ok, false otherwise
+     */
+    @Override
+    public boolean addVirtualMachine(VirtualMachineMetaData virtualMachine)
+    {
+        Guard.check(virtualMachine);
+        VirtualMachineLocation location = virtualMachine.getVirtualMachineLocation();
+        log_.debug(String.format("Adding virtual machine %s to local controller %s", 
+                                 location.getVirtualMachineId(), location.getLocalControllerId()));
+                       
+        LocalControllerEntry entry = lock(location.getLocalControllerId());  
+        if (entry == null)
+        {
+            log_.debug("Virtual machine meta data is NULL!");
+            return false;
+        }
+        
+        try
+        {
+            addVirtualMachine(entry, virtualMachine);
+            publish(entry);
+            return true;
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+    
+    /**
+     * Add monitoring data for a virtual machine.
+     * 
+     * @param localControllerId   The local controller identifier
+     * @param aggregatedData      The aggregated virtual machine data
+     */
+    @Override
+    public void addAggregatedMonitoringData(String localControllerId, 
+                                            List<AggregatedVirtualMachineData> aggregatedData)
+    {
+        Guard.check(aggregatedData);   
+        log_.debug(String.format("Adding aggregated virtual machine monitoring data to the database for %d VMs", 
+                                 aggregatedData.size()));
+        
+        LocalControllerEntry entry = lock(localControllerId);
+        if (entry == null)
+        {
+            log_.debug("No such local controller available!");
+            return;
+        }
+        
+        boolean isAdded = false;
+        try
+        {
+            for (AggregatedVirtualMachineData aggregatedVirtualMachineData : aggregatedData) 
+            {
+                List<VirtualMachineMonitoringData> dataList = aggregatedVirtualMachineData.getMonitoringData();
+                VirtualMachineHistory history = 
+                    entry.histories_.get(aggregatedVirtualMachineData.getVirtualMachineId());
+                if (history == null)
+                {
+                    log_.debug("No meta data exist for this virtual machine!");
+                    continue;
+                }
+                
+                for (VirtualMachineMonitoringData virtualMachineData : dataList) 
+                {
+                    history.add(virtualMachineData);
+                    isAdded = true;
+                }
+            }
+            
+            LocalControllerChangeListener listener = changeListener_;
+            if (isAdded && listener != null)
+            {
+                listener.onMonitoringDataAdded(localControllerId);
+            }
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+        
+    /**
+     * Returns a list of legacy IP addresses.
+     * 
+     * @return  The list of legacy IP addresses
+     */
+    @Override
+    public ArrayList<String> getLegacyIpAddresses()
+    {
+        synchronized (legacyIpAddresses_)
+        {
+            ArrayList<String> newList = new ArrayList<String>(legacyIpAddresses_);
+            legacyIpAddresses_.clear();
+            log_.debug(String.format("Returning the current list of legacy IP addresses: %s", newList));
+            return newList;
+        }
+    }
+ 
+    /**
+     * Adds a legacy ip address to the database.
+     * 
+     * @param ipAddress     The legacy address to add
+     * @return              true if everything ok, false otherwise
+     */
+    private boolean addLegacyIpAddress(String ipAddress)
+    {
+        synchronized (legacyIpAddresses_)
+        {
+            if (!legacyIpAddresses_.add(ipAddress))
+            {
+                log_.debug(String.format("IP address %s already exists!", ipAddress));
+                return false;
+            }
+        }
+        
+        log_.debug(String.format("Legacy IP address %s added", ipAddress));
+        return true;
+    }
+                  
+    /**
+     * Returns the virtual machine meta data.
+     * 
+     * @param location                      The virtual machine location
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @return                              The virtual machine meta data
+     */
+    @Override
+    public VirtualMachineMetaData getVirtualMachineMetaData(VirtualMachineLocation location,
+                                                            int numberOfMonitoringEntries) 
+    {
+        Guard.check(location); 
+        log_.debug(String.format("Generating virtual machine information for: %s", location.getVirtualMachineId()));
+        
+        LocalControllerEntry entry = lock(location.getLocalControllerId());
+        if (entry == null)
+        {
+            log_.debug("No virtual machine meta data available!");
+            return null;
+        }
+        
+        try
+        {
+            VirtualMachineMetaData virtualMachine = 
+                entry.description_.getVirtualMachineMetaData().get(location.getVirtualMachineId());
+            if (virtualMachine == null)
+            {
+                log_.debug("No virtual machine meta data available!");
+                return null;
+            }
+            
+            VirtualMachineMetaData copy = new VirtualMachineMetaData(virtualMachine, numberOfMonitoringEntries);
+            fillUsedCapacity(entry, copy, numberOfMonitoringEntries);
+            return copy;
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+    
+    /**
+     * Returns the snapshot meta data of a virtual machine.
+     * 
+     * @param location      The virtual machine location
+     * @return              The virtual machine meta data snapshot, null if none
+     */
+    private VirtualMachineMetaData getVirtualMachineSnapshot(VirtualMachineLocation location)
+    {
+        LocalControllerEntry entry = localControllers_.get(location.getLocalControllerId());
+        if (entry == null)
+        {
+            return null;
+        }
+        
+        return entry.snapshot_.getVirtualMachineMetaData().get(location.getVirtualMachineId());
+    }
+    
+    /**
+     * Checks if a particular virtual machine is active on a particular local controller.
+     * 
+     * @param location      The virtual machine location
+     * @return              true if exists, false otherwise
+     */
+    @Override
+    public boolean hasVirtualMachine(VirtualMachineLocation location)
+    {
+        Guard.check(location);
+        return getVirtualMachineSnapshot(location) != null;
+    }
+    
+    /**
+     * Checks virtual machine status.
+     * 
+     * @param location    The virtual machine location
+     * @param status      The virtual machine status
+     * @return            true if match, false otherwise
+     */
+    @Override
+    public boolean checkVirtualMachineStatus(VirtualMachineLocation location, VirtualMachineStatus status)
+    {
+        Guard.check(location, status);
+        VirtualMachineMetaData virtualMachine = getVirtualMachineSnapshot(location);
+        if (virtualMachine == null)
+        {
+            log_.debug("Unable to get virtual machine meta data!");
+            return false;
+        }
+
+        VirtualMachineStatus state = virtualMachine.getStatus();
+        if (!state.equals(status))
+        {
+            log_.debug(String.format("This virtual machine is not in the correct state! Current state: %s", state));
+            return false;
+        }
+        
+        return true;        
+    }
+    
+    /**
+     * Changes the virtual machine state.
+     * 
+     * @param location      The virtual machine location
+     * @param status        The virtual machine status
+     * @return              true if everything ok, false otherwise
+     */
+    @Override
+    public boolean changeVirtualMachineStatus(VirtualMachineLocation location, VirtualMachineStatus status)
+    {
+        Guard.check(location, status);        
+        log_.debug(String.format("Changing virtual machine %s status to %s", 
+                                 location.getVirtualMachineId(), status));
+        
+        LocalControllerEntry entry = lock(location.getLocalControllerId());
+        if (entry == null)
+        {
+            log_.debug("No meta data exists for this virtual machine!");
+            return false;
+        }
+        
+        try
+        {
+            VirtualMachineMetaData virtualMachine = 
+                entry.description_.getVirtualMachineMetaData().get(location.getVirtualMachineId());
+            if (virtualMachine == null)
+            {
+                log_.debug("No meta data exists for this virtual machine!");
+                return false;
+            }
+            
+            virtualMachine.setStatus(status);
+            publish(entry);
+            return true;
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+    
+    /**
+     * Returns the group manager id.
+     * 
+     * @return  The group manager identifier
+     */
+    @Override
+    public String getGroupManagerId() 
+    {
+        return groupManagerId_;
+    }
+
+    /**
+     * Changes the local controller status.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @param status                The local controller status
+     * @return                      true if everything ok, false otherwise
+     */
+    @Override
+    public boolean changeLocalControllerStatus(String localControllerId, LocalControllerStatus status) 
+    {
+        Guard.check(localControllerId, status);
+        log_.debug(String.format("Changing local controller %s status to %s", localControllerId, status));
+        
+        LocalControllerEntry entry = lock(localControllerId);
+        if (entry == null)
+        {
+            log_.debug("No local controller description exists");
+            return false;
+        }
+        
+        try
+        {
+            entry.description_.setStatus(status);
+            publish(entry);
+            return true;
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+    
+    /**
+     * Removes the local controller data.
+     * (description and history data)
+     * 
+     * @param localControllerId     The local controller identifier
+     * @param forceDelete           Forces status independent deletion
+     * @return                      true if everything ok, false otherwise
+     */
+    @Override
+    public boolean dropLocalController(String localControllerId, boolean forceDelete)
+    {
+        Guard.check(localControllerId);
+        log_.debug(String.format("Removing local controller: %s, force: %s", localControllerId, forceDelete));
+        
+        LocalControllerEntry entry = lock(localControllerId);
+        if (entry == null)
+        {
+            log_.debug("No such local controller available!");
+            return false;
+        }
+        
+        try
+        {
+            if (entry.description_.getStatus().equals(LocalControllerStatus.PASSIVE) && !forceDelete)
+            {
+                log_.debug("This local controller is in PASSIVE mode! Will not delete!");
+                return false;
+            }
+            
+            for (VirtualMachineMetaData virtualMachine : entry.description_.getVirtualMachineMetaData().values()) 
+            {            
+                String ipAddress = virtualMachine.getIpAddress();
+                if (ipAddress != null)
+                {
+                    addLegacyIpAddress(ipAddress);
+                }
+                
+                virtualMachines_.remove(virtualMachine.getVirtualMachineLocation().getVirtualMachineId(), 
+                                        localControllerId);
+            }
+            
+            entry.isRemoved_ = true;
+            localControllers_.remove(localControllerId, entry);
+            notifyLocalControllerChanged(localControllerId);
+            return true;
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+
+    /**
+     * Returns the local controller identifier for a virtual machine.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The local controller identifier
+     */
+    @Override
+    public String searchVirtualMachine(String virtualMachineId) 
+    {
+        Guard.check(virtualMachineId);
+        log_.debug(String.format("Searching the repository for virtual machine: %s", virtualMachineId));
+        return virtualMachines_.get(virtualMachineId);
+    }
+
+    /**
+     * Updates virtual machine location.
+     * 
+     * Both local controllers are locked in identifier order.
+     * 
+     * @param oldLocation     The old virtual machine location
+     * @param newLocation     The new virtual machine location
+     * @return                true if everything ok, false otherwise
+     */
+    @Override
+    public boolean updateVirtualMachineLocation(VirtualMachineLocation oldLocation, 
+                                                VirtualMachineLocation newLocation) 
+    {
+        Guard.check(oldLocation, newLocation);
+        log_.debug(String.format("Updating virtual machine location for: %s", oldLocation.getVirtualMachineId()));
+        
+        String sourceId = oldLocation.getLocalControllerId();
+        String destinationId = newLocation.getLocalControllerId();
+        if (sourceId == null || destinationId == null)
+        {
+            return false;
+        }
+        
+        boolean isSourceFirst = sourceId.compareTo(destinationId) <= 0;
+        LocalControllerEntry first = lock(isSourceFirst ? sourceId : destinationId);
+        if (first == null)
+        {
+            log_.error("No such local controller available!");
+            return false;
+        }
+        
+        LocalControllerEntry second = first;
+        if (!sourceId.equals(destinationId))
+        {
+            second = lock(isSourceFirst ? destinationId : sourceId);
+            if (second == null)
+            {
+                first.lock_.unlock();
+                log_.error("No such local controller available!");
+                return false;
+            }
+        }
+        
+        try
+        {
+            LocalControllerEntry source = isSourceFirst ? first : second;
+            LocalControllerEntry destination = isSourceFirst ? second : first;
+            String virtualMachineId = oldLocation.getVirtualMachineId();
+            VirtualMachineMetaData virtualMachine = 
+                source.description_.getVirtualMachineMetaData().get(virtualMachineId);
+            if (virtualMachine == null)
+            {
+                log_.error("No meta data exists for this virtual machine!");
+                return false;
+            }
+            
+            removeVirtualMachine(source, virtualMachineId);
+            virtualMachine.setVirtualMachineLocation(newLocation);
+            addVirtualMachine(destination, virtualMachine);
+            publish(source);
+            if (destination != source)
+            {
+                publish(destination);
+            }
+            
+            return true;
+        }
+        finally
+        {
+            if (second != first)
+            {
+                second.lock_.unlock();
+            }
+            
+            first.lock_.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of local controllers.
+     * 
+     * @return  The number of local controllers
+     */
+    @Override
+    public int getNumberOfLocalControllers() 
+    {
+        return localControllers_.size();
+    }
+    
+    /**
+     * Checks if local controller exists.
+     * 
+     * @param localControllerAddress     The lcoal controller address
+     * @return                           The previous identifier, null otherwise
+     */
+    @Override
+    public String hasLocalController(NetworkAddress localControllerAddress) 
+    {
+        log_.debug("Checking for local controller existance");
+
+        for (LocalControllerEntry entry : localControllers_.values())
+        {
+            NetworkAddress address = entry.snapshot_.getControlDataAddress();
+            boolean isEqualAddress = address.getAddress().equals(localControllerAddress.getAddress());
+            boolean isEqualPort = address.getPort() == localControllerAddress.getPort();
+            if (isEqualAddress && isEqualPort)
+            {
+                log_.debug("Local controller detected!");
+                return entry.snapshot_.getId();
+            }
+        } 
+        
+        log_.debug("No local controller detected!");
+        return null;
+    }
+
+    /**
+     * Updates the virtual machine meta data.
+     * 
+     * @param virtualMachine        The virtual machine meta data
+     * @return                      true if everything ok, false otherwise
+     */
+    @Override
+    public boolean updateVirtualMachineMetaData(VirtualMachineMetaData virtualMachine) 
+    {
+        Guard.check(virtualMachine);
+        VirtualMachineLocation location = virtualMachine.getVirtualMachineLocation();
+        log_.debug(String.format("Updating virtual machine meta data for: %s", location.getVirtualMachineId()));
+        
+        LocalControllerEntry entry = lock(location.getLocalControllerId());
+        if (entry == null)
+        {
+            log_.debug("Local controller description is NULL!");
+            return false;
+        }
+        
+        try
+        {
+            entry.description_.getVirtualMachineMetaData().put(location.getVirtualMachineId(), virtualMachine);
+            virtualMachines_.put(location.getVirtualMachineId(), location.getLocalControllerId());
+            publish(entry);
+            return true;
+        }
+        finally
+        {
+            entry.lock_.unlock();
+        }
+    }
+}
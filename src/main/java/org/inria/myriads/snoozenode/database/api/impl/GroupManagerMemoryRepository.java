@@ -35,6 +35,11 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.Vi
 import org.inria.myriads.snoozecommon.datastructure.LRUCache;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.database.history.StreamingStatisticsFactory;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistory;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryReader;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
+import org.inria.myriads.snoozenode.database.listener.LocalControllerChangeListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,6 +71,20 @@ public final class GroupManagerMemoryRepository
 
     /** The maximum capacity. */
     private int maxCapacity_;
+    
+    /**
+     * Virtual machine monitoring histories.
+     * 
+     * Key: Local controller identifier
+     * Value: Virtual machine identifier to history map
+     */
+    private Map<String, Map<String, VirtualMachineHistory>> histories_;
+    
+    /** Streaming statistics factory (optional). */
+    private StreamingStatisticsFactory statisticsFactory_;
+    
+    /** Local controller change listener (optional). */
+    private volatile LocalControllerChangeListener changeListener_;
         
     /** 
      * Constructor.
@@ -82,6 +101,7 @@ public final class GroupManagerMemoryRepository
         maxCapacity_ = maxCapacity;
         localControllerDescriptions_ = new HashMap<String, LocalControllerDescription>();
         legacyIpAddresses_ = new ArrayList<String>();
+        histories_ = new HashMap<String, Map<String, VirtualMachineHistory>>();
     }
     
     /**
@@ -118,12 +138,25 @@ public final class GroupManagerMemoryRepository
             log_.debug(String.format("Gettung local controller description for %s", localController.getId()));
             LocalControllerDescription copy = new LocalControllerDescription(localController, 
                                                                              numberOfMonitoringEntries);
+            fillUsedCapacity(copy, numberOfMonitoringEntries);
             localControllers.add(copy);
         }
         
         return localControllers;
     }
     
+    /**
+     * Returns the local controller snapshots.
+     * 
+     * @param isActiveOnly      true if active only controllers are required
+     * @return                  The local controller snapshots
+     */
+    @Override
+    public synchronized List<LocalControllerDescription> getLocalControllerSnapshots(boolean isActiveOnly)
+    {
+        return getLocalControllerDescriptions(0, isActiveOnly);
+    }
+    
     /**
      * Cleans the repository.
      */
@@ -133,6 +166,147 @@ public final class GroupManagerMemoryRepository
         log_.debug("Cleaning repository");
         localControllerDescriptions_.clear();
         legacyIpAddresses_.clear();
+        histories_.clear();
+        
+        LocalControllerChangeListener listener = changeListener_;
+        if (listener != null)
+        {
+            listener.onRepositoryCleaned();
+        }
+    }
+    
+    /**
+     * Returns the history of a virtual machine.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The history, null if none
+     */
+    private VirtualMachineHistory getHistory(String localControllerId, String virtualMachineId)
+    {
+        Map<String, VirtualMachineHistory> histories = histories_.get(localControllerId);
+        if (histories == null)
+        {
+            return null;
+        }
+        
+        return histories.get(virtualMachineId);
+    }
+    
+    /**
+     * Fills the used capacity of a virtual machine copy from its history.
+     * 
+     * @param virtualMachine            The virtual machine copy
+     * @param numberOfMonitoringEntries The number of monitoring entries
+     */
+    private void fillUsedCapacity(VirtualMachineMetaData virtualMachine, int numberOfMonitoringEntries)
+    {
+        if (numberOfMonitoringEntries <= 0)
+        {
+            return;
+        }
+        
+        VirtualMachineLocation location = virtualMachine.getVirtualMachineLocation();
+        VirtualMachineHistory history = getHistory(location.getLocalControllerId(), location.getVirtualMachineId());
+        if (history == null)
+        {
+            return;
+        }
+        
+        history.copyTo(virtualMachine.getUsedCapacity(), numberOfMonitoringEntries);
+    }
+    
+    /**
+     * Fills the used capacity of all virtual machines of a local controller copy.
+     * 
+     * @param localController           The local controller copy
+     * @param numberOfMonitoringEntries The number of monitoring entries
+     */
+    private void fillUsedCapacity(LocalControllerDescription localController, int numberOfMonitoringEntries)
+    {
+        if (numberOfMonitoringEntries <= 0)
+        {
+            return;
+        }
+        
+        for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
+        {
+            fillUsedCapacity(virtualMachine, numberOfMonitoringEntries);
+        }
+    }
+    
+    /**
+     * Returns a copy of the latest monitoring history entries of a virtual machine.
+     * 
+     * @param location          The virtual machine location
+     * @param numberOfEntries   The maximum number of entries
+     * @return                  The detached history view, null if the virtual machine is unknown
+     */
+    @Override
+    public VirtualMachineHistoryView getVirtualMachineHistory(VirtualMachineLocation location, int numberOfEntries)
+    {
+        return readVirtualMachineHistory(location, numberOfEntries, VirtualMachineHistoryView.COPY_READER);
+    }
+    
+    /**
+     * Reads the latest monitoring history entries of a virtual machine without copying them.
+     * 
+     * @param <T>               The result type
+     * @param location          The virtual machine location
+     * @param numberOfEntries   The maximum number of entries
+     * @param reader            The history reader (called with the repository monitor held)
+     * @return                  The reader result, null if the virtual machine is unknown
+     */
+    @Override
+    public synchronized <T> T readVirtualMachineHistory(VirtualMachineLocation location, 
+                                                        int numberOfEntries, 
+                                                        VirtualMachineHistoryReader<T> reader)
+    {
+        Guard.check(location, reader);
+        VirtualMachineHistory history = getHistory(location.getLocalControllerId(), location.getVirtualMachineId());
+        if (history == null)
+        {
+            return null;
+        }
+        
+        return reader.read(history.getView(numberOfEntries));
+    }
+    
+    /**
+     * Sets the streaming statistics factory.
+     * 
+     * @param statisticsFactory     The statistics factory
+     */
+    @Override
+    public synchronized void setStatisticsFactory(StreamingStatisticsFactory statisticsFactory)
+    {
+        statisticsFactory_ = statisticsFactory;
+    }
+    
+    /**
+     * Sets the local controller change listener, replacing the previous one.
+     * 
+     * @param listener      The change listener to notify about local controller changes,
+     *                      or null to stop notifications
+     */
+    @Override
+    public void setChangeListener(LocalControllerChangeListener listener)
+    {
+        changeListener_ = listener;
+    }
+    
+    /**
+     * Notifies the change listener about a local controller change.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    private void notifyLocalControllerChanged(String localControllerId)
+    {
+        LocalControllerChangeListener listener = changeListener_;
+        if (listener != null && localControllerId != null)
+        {
+            listener.onLocalControllerChanged(localControllerId);
+        }
     }
         
     /**
@@ -165,7 +339,17 @@ public final class GroupManagerMemoryRepository
     {   
         Guard.check(groupManager);
         log_.debug("Adding possible virtual machine meta data to group manager description");
-        groupManager.setLocalControllers(localControllerDescriptions_);   
+        
+        HashMap<String, LocalControllerDescription> localControllers = 
+            new HashMap<String, LocalControllerDescription>();
+        for (LocalControllerDescription localController : localControllerDescriptions_.values())
+        {
+            LocalControllerDescription copy = new LocalControllerDescription(localController, maxCapacity_);
+            fillUsedCapacity(copy, maxCapacity_);
+            localControllers.put(copy.getId(), copy);
+        }
+        
+        groupManager.setLocalControllers(localControllers);   
     }
     
     /**
@@ -182,6 +366,8 @@ public final class GroupManagerMemoryRepository
         log_.debug(String.format("Adding description for local controller: %s", localControllerId));
         
         localControllerDescriptions_.put(localControllerId, localController);
+        histories_.put(localControllerId, new HashMap<String, VirtualMachineHistory>());
+        notifyLocalControllerChanged(localControllerId);
         boolean isUpdated = updateVirtualMachineAssignmens(localController);
         if (!isUpdated)
         {
@@ -282,6 +468,7 @@ public final class GroupManagerMemoryRepository
         
         LocalControllerDescription localControllerCopy = new LocalControllerDescription(localController,
                                                                                         numberOfMonitoringEntries);
+        fillUsedCapacity(localControllerCopy, numberOfMonitoringEntries);
         return localControllerCopy;
     }
     
@@ -304,6 +491,13 @@ public final class GroupManagerMemoryRepository
         }
         
         metaData.remove(location.getVirtualMachineId());
+        Map<String, VirtualMachineHistory> histories = histories_.get(location.getLocalControllerId());
+        if (histories != null)
+        {
+            histories.remove(location.getVirtualMachineId());
+        }
+        
+        notifyLocalControllerChanged(location.getLocalControllerId());
         return true;
     }
     
@@ -357,8 +551,18 @@ public final class GroupManagerMemoryRepository
             return false;
         }
         
+        Map<String, VirtualMachineHistory> histories = histories_.get(localControllerId);
+        if (histories == null)
+        {
+            histories = new HashMap<String, VirtualMachineHistory>();
+            histories_.put(localControllerId, histories);
+        }
+        
+        // The history is kept in the ring buffer, copies get it materialized on demand
         virtualMachine.setUsedCapacity(new LRUCache<Long, VirtualMachineMonitoringData>(maxCapacity_));
+        histories.put(virtualMachineId, new VirtualMachineHistory(maxCapacity_, statisticsFactory_));
         metaData.put(virtualMachineId, virtualMachine);    
+        notifyLocalControllerChanged(localControllerId);
         return true;
     }
     
@@ -376,6 +580,7 @@ public final class GroupManagerMemoryRepository
         log_.debug(String.format("Adding aggregated virtual machine monitoring data to the database for %d VMs", 
                                  aggregatedData.size()));
         
+        boolean isAdded = false;
         for (AggregatedVirtualMachineData aggregatedVirtualMachineData : aggregatedData) 
         {
             String virtualMachineId = aggregatedVirtualMachineData.getVirtualMachineId();                        
@@ -386,25 +591,28 @@ public final class GroupManagerMemoryRepository
                 continue;
             }
            
-            VirtualMachineLocation location = new VirtualMachineLocation();
-            location.setLocalControllerId(localControllerId);
-            location.setVirtualMachineId(virtualMachineId);
-            VirtualMachineMetaData metaData = getVirtualMachineMetaData(location);
-            if (metaData == null)
+            VirtualMachineHistory history = getHistory(localControllerId, virtualMachineId);
+            if (history == null)
             {
                 log_.debug("No meta data exist for this virtual machine!");
                 continue;
             }
             
-            Map<Long, VirtualMachineMonitoringData> monitoringData = metaData.getUsedCapacity();             
             for (VirtualMachineMonitoringData virtualMachineData : dataList) 
             {
                 log_.debug(String.format("Adding history data %s for virtual machine: %s",
                                          virtualMachineData.getUsedCapacity(),   
                                          virtualMachineId));
-                monitoringData.put(virtualMachineData.getTimeStamp(), virtualMachineData);
+                history.add(virtualMachineData);
+                isAdded = true;
             }
         }
+        
+        LocalControllerChangeListener listener = changeListener_;
+        if (isAdded && listener != null)
+        {
+            listener.onMonitoringDataAdded(localControllerId);
+        }
     }
         
     /**
@@ -465,6 +673,7 @@ public final class GroupManagerMemoryRepository
         }
         
         VirtualMachineMetaData copy = new VirtualMachineMetaData(virtualMachine, numberOfMonitoringEntries);
+        fillUsedCapacity(copy, numberOfMonitoringEntries);
         log_.debug(String.format("Returning virtual machine %s meta data, monitoring data size: %d", 
                                  copy.getVirtualMachineLocation().getVirtualMachineId(),
                                  copy.getUsedCapacity().size()));
@@ -583,6 +792,7 @@ public final class GroupManagerMemoryRepository
         }
         
         virtualMachineMetaData.setStatus(status);
+        notifyLocalControllerChanged(location.getLocalControllerId());
         return true;
     }
     
@@ -619,6 +829,7 @@ public final class GroupManagerMemoryRepository
         
         log_.debug(String.format("Local controller %s status changed to %s", localControllerId, status));
         localControllerDescription.setStatus(status);
+        notifyLocalControllerChanged(localControllerId);
         return true;        
     }
         
@@ -679,6 +890,8 @@ public final class GroupManagerMemoryRepository
         {
             log_.debug("Networking information released successfully!");
             localControllerDescriptions_.remove(localControllerId);        
+            histories_.remove(localControllerId);
+            notifyLocalControllerChanged(localControllerId);
         }
         
         return true;
@@ -891,6 +1104,7 @@ public final class GroupManagerMemoryRepository
             return false;
         }
         metaData.put(virtualMachineId, virtualMachine);
+        notifyLocalControllerChanged(localControllerId);
 
         return true;   
       
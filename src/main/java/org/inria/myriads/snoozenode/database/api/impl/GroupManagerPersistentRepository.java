@@ -0,0 +1,899 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.api.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.database.history.StreamingStatisticsFactory;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryReader;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
+import org.inria.myriads.snoozenode.database.journal.JournalRecord;
+import org.inria.myriads.snoozenode.database.journal.RepositoryJournal;
+import org.inria.myriads.snoozenode.database.journal.RepositorySnapshot;
+import org.inria.myriads.snoozenode.database.listener.LocalControllerChangeListener;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group manager persistent repository.
+ * 
+ * Keeps the state in a concurrent repository and journals local controller and virtual
+ * machine changes to local files. Snapshots including the monitoring history are taken
+ * periodically and compact the journal. On startup the last snapshot is loaded and the
+ * journal replayed, so a restarted group manager starts with its previous state. Restored
+ * local controllers which do not rejoin within the recovery timeout are dropped, those which
+ * rejoin keep the restored monitoring history of their virtual machines.
+ * 
+ * Monitoring data is not journaled, it is only contained in the snapshots.
+ * 
+ * @author Eugen Feller
+ */
+public final class GroupManagerPersistentRepository 
+    implements GroupManagerRepository 
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(GroupManagerPersistentRepository.class);
+    
+    /** In-memory state. */
+    private GroupManagerConcurrentRepository repository_;
+    
+    /** Journal. */
+    private RepositoryJournal journal_;
+    
+    /** Serializes changes with their journal records. */
+    private final ReentrantLock lock_;
+    
+    /** Serializes snapshots. */
+    private final Object snapshotLock_;
+    
+    /** Snapshot and recovery scheduler. */
+    private ScheduledExecutorService scheduler_;
+    
+    /** Restored local controllers which did not rejoin yet. */
+    private Set<String> restoredLocalControllers_;
+    
+    /** Closed flag (guarded by the lock). */
+    private boolean isClosed_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param groupManagerId        The group manager identifier
+     * @param maxCapacity           The maximum capacity
+     * @param directory             The journal directory
+     * @param snapshotInterval      The snapshot interval (= ms)
+     * @param recoveryTimeout       The time restored local controllers have to rejoin (= ms)
+     * @param syncInterval          The journal group commit interval, 0 to sync every record (= ms)
+     * @throws IOException 
+     */
+    public GroupManagerPersistentRepository(String groupManagerId, 
+                                            int maxCapacity, 
+                                            File directory,
+                                            long snapshotInterval,
+                                            long recoveryTimeout,
+                                            long syncInterval) 
+        throws IOException
+    {
+        Guard.check(groupManagerId, directory);
+        log_.debug(String.format("Initializing the group manager persistent repository in %s", directory));
+        
+        repository_ = new GroupManagerConcurrentRepository(groupManagerId, maxCapacity);
+        journal_ = new RepositoryJournal(directory, syncInterval == 0);
+        lock_ = new ReentrantLock();
+        snapshotLock_ = new Object();
+        restoredLocalControllers_ = Collections.synchronizedSet(new HashSet<String>());
+        recover();
+        takeSnapshot();
+        
+        scheduler_ = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "GroupManagerPersistentRepository");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler_.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                takeSnapshot();
+            }
+        }, snapshotInterval, snapshotInterval, TimeUnit.MILLISECONDS);
+        scheduler_.schedule(new Runnable()
+        {
+            public void run()
+            {
+                dropRestoredLocalControllers();
+            }
+        }, recoveryTimeout, TimeUnit.MILLISECONDS);
+        if (syncInterval > 0)
+        {
+            scheduler_.scheduleWithFixedDelay(new Runnable()
+            {
+                public void run()
+                {
+                    syncJournal();
+                }
+            }, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Loads the snapshot and replays the journal.
+     * 
+     * @throws IOException 
+     */
+    private void recover()
+        throws IOException
+    {
+        long sequenceNumber = 0;
+        RepositorySnapshot snapshot = journal_.readSnapshot();
+        if (snapshot != null)
+        {
+            restore(snapshot);
+            sequenceNumber = snapshot.getSequenceNumber();
+        }
+        
+        List<JournalRecord> records = journal_.readRecords(sequenceNumber);
+        for (JournalRecord record : records)
+        {
+            if (!record.replay(repository_))
+            {
+                log_.debug(String.format("Journal record %d (%s) had no effect", 
+                                         record.getSequenceNumber(), record.getOperation()));
+            }
+            
+            sequenceNumber = record.getSequenceNumber();
+        }
+        
+        journal_.open(sequenceNumber);
+        for (LocalControllerDescription localController : repository_.getAllLocalControllerDescriptions(0))
+        {
+            if (!localController.getStatus().equals(LocalControllerStatus.PASSIVE))
+            {
+                restoredLocalControllers_.add(localController.getId());
+            }
+        }
+        
+        log_.info(String.format("Repository recovered up to record %d with %d local controllers", 
+                                sequenceNumber, repository_.getNumberOfLocalControllers()));
+    }
+    
+    /**
+     * Restores a snapshot including the monitoring history.
+     * 
+     * @param snapshot  The snapshot
+     */
+    private void restore(RepositorySnapshot snapshot)
+    {
+        for (LocalControllerDescription localController : snapshot.getLocalControllers())
+        {
+            List<AggregatedVirtualMachineData> histories = getHistories(localController, null);
+            repository_.addLocalControllerDescription(localController);
+            repository_.addAggregatedMonitoringData(localController.getId(), histories);
+        }
+        
+        repository_.restoreLegacyIpAddresses(snapshot.getLegacyIpAddresses());
+    }
+    
+    /**
+     * Extracts the monitoring history of the virtual machines of a local controller.
+     * 
+     * @param localController       The local controller description
+     * @param virtualMachineIds     The virtual machines to consider, null for all
+     * @return                      The histories in time stamp order
+     */
+    private static List<AggregatedVirtualMachineData> getHistories(LocalControllerDescription localController,
+                                                                   Set<String> virtualMachineIds)
+    {
+        List<AggregatedVirtualMachineData> histories = new ArrayList<AggregatedVirtualMachineData>();
+        for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
+        {
+            String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+            if (virtualMachine.getUsedCapacity() == null || 
+                (virtualMachineIds != null && !virtualMachineIds.contains(virtualMachineId)))
+            {
+                continue;
+            }
+            
+            List<VirtualMachineMonitoringData> history = 
+                new ArrayList<VirtualMachineMonitoringData>(virtualMachine.getUsedCapacity().values());
+            Collections.sort(history, new Comparator<VirtualMachineMonitoringData>()
+            {
+                public int compare(VirtualMachineMonitoringData first, VirtualMachineMonitoringData second)
+                {
+                    return Long.valueOf(first.getTimeStamp()).compareTo(second.getTimeStamp());
+                }
+            });
+            histories.add(new AggregatedVirtualMachineData(virtualMachineId, history));
+        }
+        
+        return histories;
+    }
+    
+    /**
+     * Takes a snapshot and compacts the journal.
+     */
+    public void takeSnapshot()
+    {
+        synchronized (snapshotLock_)
+        {
+            RepositorySnapshot snapshot;
+            lock_.lock();
+            try
+            {
+                if (isClosed_)
+                {
+                    return;
+                }
+                
+                snapshot = new RepositorySnapshot(journal_.getSequenceNumber(),
+                                                  repository_.getAllLocalControllerDescriptions(
+                                                      repository_.getMaxCapacity()),
+                                                  repository_.peekLegacyIpAddresses());
+                journal_.rotate();
+            }
+            catch (IOException exception)
+            {
+                log_.error("Unable to rotate the journal", exception);
+                return;
+            }
+            finally
+            {
+                lock_.unlock();
+            }
+            
+            try
+            {
+                journal_.writeSnapshot(snapshot);
+            }
+            catch (IOException exception)
+            {
+                log_.error("Unable to write the repository snapshot", exception);
+            }
+        }
+    }
+    
+    /**
+     * Takes a final snapshot and closes the journal.
+     */
+    public void close()
+    {
+        if (scheduler_ != null)
+        {
+            scheduler_.shutdownNow();
+        }
+        
+        synchronized (snapshotLock_)
+        {
+            takeSnapshot();
+            lock_.lock();
+            try
+            {
+                journal_.close();
+                isClosed_ = true;
+            }
+            finally
+            {
+                lock_.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Forces the journal records of the last group commit interval to disk.
+     */
+    private void syncJournal()
+    {
+        lock_.lock();
+        try
+        {
+            if (!isClosed_)
+            {
+                journal_.sync();
+            }
+        }
+        catch (IOException exception)
+        {
+            log_.error("Unable to sync the journal", exception);
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Drops restored local controllers which did not rejoin.
+     */
+    private void dropRestoredLocalControllers()
+    {
+        List<String> localControllerIds;
+        synchronized (restoredLocalControllers_)
+        {
+            localControllerIds = new ArrayList<String>(restoredLocalControllers_);
+            restoredLocalControllers_.clear();
+        }
+        
+        for (String localControllerId : localControllerIds)
+        {
+            log_.debug(String.format("Restored local controller %s did not rejoin", localControllerId));
+            dropLocalController(localControllerId, false);
+        }
+    }
+    
+    /**
+     * Appends a journal record (lock must be held).
+     * 
+     * @param record    The record
+     */
+    private void append(JournalRecord record)
+    {
+        if (isClosed_)
+        {
+            return;
+        }
+        
+        try
+        {
+            journal_.append(record);
+        }
+        catch (IOException exception)
+        {
+            log_.error(String.format("Unable to journal %s", record.getOperation()), exception);
+        }
+    }
+    
+    /**
+     * Returns the group manager identifier.
+     * 
+     * @return  The group manager identifier
+     */
+    @Override
+    public String getGroupManagerId() 
+    {
+        return repository_.getGroupManagerId();
+    }
+
+    /**
+     * Returns the local controller descriptions.
+     * 
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @param isActiveOnly                  true if active only controllers are required
+     * @return                              The local controller descriptions
+     */
+    @Override
+    public ArrayList<LocalControllerDescription> getLocalControllerDescriptions(int numberOfMonitoringEntries,
+                                                                                boolean isActiveOnly) 
+    {
+        return repository_.getLocalControllerDescriptions(numberOfMonitoringEntries, isActiveOnly);
+    }
+
+    /**
+     * Returns the shared local controller snapshots.
+     * 
+     * @param isActiveOnly      true if active only controllers are required
+     * @return                  The local controller snapshots
+     */
+    @Override
+    public List<LocalControllerDescription> getLocalControllerSnapshots(boolean isActiveOnly) 
+    {
+        return repository_.getLocalControllerSnapshots(isActiveOnly);
+    }
+
+    /**
+     * Returns the local controller control data address.
+     * 
+     * @param location      The virtual machine location
+     * @return              The local controller control data address
+     */
+    @Override
+    public NetworkAddress getLocalControllerControlDataAddress(VirtualMachineLocation location) 
+    {
+        return repository_.getLocalControllerControlDataAddress(location);
+    }
+
+    /**
+     * Returns the local controller description.
+     * 
+     * @param localControllerId             The local controller identifier
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @return                              The local controller description
+     */
+    @Override
+    public LocalControllerDescription getLocalControllerDescription(String localControllerId,
+                                                                    int numberOfMonitoringEntries) 
+    {
+        return repository_.getLocalControllerDescription(localControllerId, numberOfMonitoringEntries);
+    }
+
+    /**
+     * Adds a local controller description.
+     * A rejoining restored local controller keeps the restored history of its virtual machines.
+     * 
+     * @param description   The local controller description
+     * @return              true if everything ok, false otherwise
+     */
+    @Override
+    public boolean addLocalControllerDescription(LocalControllerDescription description) 
+    {
+        Guard.check(description);
+        String localControllerId = description.getId();
+        boolean isRestored = restoredLocalControllers_.remove(localControllerId);
+        lock_.lock();
+        try
+        {
+            LocalControllerDescription restored = null;
+            Set<String> virtualMachineIds = null;
+            if (isRestored && description.getVirtualMachineMetaData() != null)
+            {
+                restored = repository_.getLocalControllerDescription(localControllerId, 
+                                                                     repository_.getMaxCapacity());
+                virtualMachineIds = new HashSet<String>(description.getVirtualMachineMetaData().keySet());
+            }
+            
+            boolean isAdded = repository_.addLocalControllerDescription(description);
+            if (isAdded)
+            {
+                append(JournalRecord.addLocalController(description));
+            }
+            
+            if (isAdded && restored != null)
+            {
+                log_.debug(String.format("Merging the restored history of rejoined local controller %s", 
+                                         localControllerId));
+                repository_.addAggregatedMonitoringData(localControllerId, 
+                                                        getHistories(restored, virtualMachineIds));
+            }
+            
+            return isAdded;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Drops a local controller.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @param forceDelete           true if the delete is forced
+     * @return                      true if everything ok, false otherwise
+     */
+    @Override
+    public boolean dropLocalController(String localControllerId, boolean forceDelete) 
+    {
+        lock_.lock();
+        try
+        {
+            boolean isDropped = repository_.dropLocalController(localControllerId, forceDelete);
+            if (isDropped)
+            {
+                append(JournalRecord.dropLocalController(localControllerId, forceDelete));
+            }
+            
+            return isDropped;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Fills the group manager description.
+     * 
+     * @param groupManagerDescription   The group manager description
+     */
+    @Override
+    public void fillGroupManagerDescription(GroupManagerDescription groupManagerDescription) 
+    {
+        repository_.fillGroupManagerDescription(groupManagerDescription);
+    }
+
+    /**
+     * Adds aggregated monitoring data (not journaled).
+     * 
+     * @param localControllerId     The local controller identifier
+     * @param aggregatedData        The aggregated virtual machine data
+     */
+    @Override
+    public void addAggregatedMonitoringData(String localControllerId, 
+                                            List<AggregatedVirtualMachineData> aggregatedData) 
+    {
+        repository_.addAggregatedMonitoringData(localControllerId, aggregatedData);
+    }
+
+    /**
+     * Returns and releases the legacy IP addresses.
+     * 
+     * @return  The legacy IP addresses
+     */
+    @Override
+    public ArrayList<String> getLegacyIpAddresses() 
+    {
+        lock_.lock();
+        try
+        {
+            ArrayList<String> ipAddresses = repository_.getLegacyIpAddresses();
+            if (!ipAddresses.isEmpty())
+            {
+                append(JournalRecord.releaseLegacyIpAddresses());
+            }
+            
+            return ipAddresses;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Drops virtual machine data.
+     * 
+     * @param location      The virtual machine location
+     * @return              true if everything ok, false otherwise
+     */
+    @Override
+    public boolean dropVirtualMachineData(VirtualMachineLocation location) 
+    {
+        lock_.lock();
+        try
+        {
+            boolean isDropped = repository_.dropVirtualMachineData(location);
+            if (isDropped)
+            {
+                append(JournalRecord.dropVirtualMachine(location));
+            }
+            
+            return isDropped;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Returns the virtual machine meta data.
+     * 
+     * @param location                      The virtual machine location
+     * @param numberOfMonitoringEntries     The number of monitoring entries
+     * @return                              The virtual machine meta data
+     */
+    @Override
+    public VirtualMachineMetaData getVirtualMachineMetaData(VirtualMachineLocation location,
+                                                            int numberOfMonitoringEntries) 
+    {
+        return repository_.getVirtualMachineMetaData(location, numberOfMonitoringEntries);
+    }
+
+    /**
+     * Changes the virtual machine status.
+     * 
+     * @param location      The virtual machine location
+     * @param status        The virtual machine status
+     * @return              true if everything ok, false otherwise
+     */
+    @Override
+    public boolean changeVirtualMachineStatus(VirtualMachineLocation location, VirtualMachineStatus status) 
+    {
+        lock_.lock();
+        try
+        {
+            boolean isChanged = repository_.changeVirtualMachineStatus(location, status);
+            if (isChanged)
+            {
+                append(JournalRecord.changeVirtualMachineStatus(location, status));
+            }
+            
+            return isChanged;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Checks the virtual machine status.
+     * 
+     * @param location      The virtual machine location
+     * @param status        The virtual machine status
+     * @return              true if the status matches, false otherwise
+     */
+    @Override
+    public boolean checkVirtualMachineStatus(VirtualMachineLocation location, VirtualMachineStatus status) 
+    {
+        return repository_.checkVirtualMachineStatus(location, status);
+    }
+
+    /**
+     * Checks if a virtual machine exists.
+     * 
+     * @param location      The virtual machine location
+     * @return              true if the virtual machine exists, false otherwise
+     */
+    @Override
+    public boolean hasVirtualMachine(VirtualMachineLocation location) 
+    {
+        return repository_.hasVirtualMachine(location);
+    }
+
+    /**
+     * Adds virtual machine meta data.
+     * 
+     * @param virtualMachineMetaData    The virtual machine meta data
+     * @return                          true if everything ok, false otherwise
+     */
+    @Override
+    public boolean addVirtualMachine(VirtualMachineMetaData virtualMachineMetaData) 
+    {
+        lock_.lock();
+        try
+        {
+            boolean isAdded = repository_.addVirtualMachine(virtualMachineMetaData);
+            if (isAdded)
+            {
+                append(JournalRecord.addVirtualMachine(virtualMachineMetaData));
+            }
+            
+            return isAdded;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Cleans the state and resets the journal, which stays open.
+     */
+    @Override
+    public void clean() 
+    {
+        synchronized (snapshotLock_)
+        {
+            lock_.lock();
+            try
+            {
+                repository_.clean();
+                restoredLocalControllers_.clear();
+            }
+            finally
+            {
+                lock_.unlock();
+            }
+            
+            takeSnapshot();
+        }
+    }
+
+    /**
+     * Searches a virtual machine.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The local controller identifier
+     */
+    @Override
+    public String searchVirtualMachine(String virtualMachineId) 
+    {
+        return repository_.searchVirtualMachine(virtualMachineId);
+    }
+
+    /**
+     * Updates the virtual machine location.
+     * 
+     * @param oldVirtualMachineLocation     The old virtual machine location
+     * @param newVirtualMachineLocation     The new virtual machine location
+     * @return                              true if everything ok, false otherwise
+     */
+    @Override
+    public boolean updateVirtualMachineLocation(VirtualMachineLocation oldVirtualMachineLocation,
+                                                VirtualMachineLocation newVirtualMachineLocation) 
+    {
+        lock_.lock();
+        try
+        {
+            boolean isUpdated = repository_.updateVirtualMachineLocation(oldVirtualMachineLocation, 
+                                                                         newVirtualMachineLocation);
+            if (isUpdated)
+            {
+                append(JournalRecord.updateVirtualMachineLocation(oldVirtualMachineLocation, 
+                                                                  newVirtualMachineLocation));
+            }
+            
+            return isUpdated;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of local controllers.
+     * 
+     * @return  The number of local controllers
+     */
+    @Override
+    public int getNumberOfLocalControllers() 
+    {
+        return repository_.getNumberOfLocalControllers();
+    }
+
+    /**
+     * Changes the local controller status.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @param status                The local controller status
+     * @return                      true if everything ok, false otherwise
+     */
+    @Override
+    public boolean changeLocalControllerStatus(String localControllerId, LocalControllerStatus status) 
+    {
+        lock_.lock();
+        try
+        {
+            boolean isChanged = repository_.changeLocalControllerStatus(localControllerId, status);
+            if (isChanged)
+            {
+                append(JournalRecord.changeLocalControllerStatus(localControllerId, status));
+            }
+            
+            return isChanged;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Checks if a local controller with the given address exists.
+     * 
+     * @param localControllerAddress    The local controller address
+     * @return                          The local controller identifier, null otherwise
+     */
+    @Override
+    public String hasLocalController(NetworkAddress localControllerAddress) 
+    {
+        return repository_.hasLocalController(localControllerAddress);
+    }
+
+    /**
+     * Updates the virtual machine meta data.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  true if everything ok, false otherwise
+     */
+    @Override
+    public boolean updateVirtualMachineMetaData(VirtualMachineMetaData virtualMachine) 
+    {
+        lock_.lock();
+        try
+        {
+            boolean isUpdated = repository_.updateVirtualMachineMetaData(virtualMachine);
+            if (isUpdated)
+            {
+                append(JournalRecord.updateVirtualMachine(virtualMachine));
+            }
+            
+            return isUpdated;
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the latest monitoring history entries of a virtual machine.
+     * 
+     * @param location          The virtual machine location
+     * @param numberOfEntries   The maximum number of entries
+     * @return                  The detached history view, null if the virtual machine is unknown
+     */
+    @Override
+    public VirtualMachineHistoryView getVirtualMachineHistory(VirtualMachineLocation location, int numberOfEntries) 
+    {
+        return repository_.getVirtualMachineHistory(location, numberOfEntries);
+    }
+    
+    /**
+     * Reads the latest monitoring history entries of a virtual machine without copying them.
+     * 
+     * @param <T>               The result type
+     * @param location          The virtual machine location
+     * @param numberOfEntries   The maximum number of entries
+     * @param reader            The history reader
+     * @return                  The reader result, null if the virtual machine is unknown
+     */
+    @Override
+    public <T> T readVirtualMachineHistory(VirtualMachineLocation location, 
+                                           int numberOfEntries, 
+                                           VirtualMachineHistoryReader<T> reader) 
+    {
+        return repository_.readVirtualMachineHistory(location, numberOfEntries, reader);
+    }
+
+    /**
+     * Sets the streaming statistics factory.
+     * 
+     * Restored histories are rebuilt so that their statistics are maintained as well.
+     * 
+     * @param statisticsFactory     The statistics factory
+     */
+    @Override
+    public void setStatisticsFactory(StreamingStatisticsFactory statisticsFactory) 
+    {
+        lock_.lock();
+        try
+        {
+            repository_.setStatisticsFactory(statisticsFactory);
+            List<LocalControllerDescription> localControllers = 
+                repository_.getAllLocalControllerDescriptions(repository_.getMaxCapacity());
+            restore(new RepositorySnapshot(journal_.getSequenceNumber(), localControllers, new ArrayList<String>()));
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Sets the local controller change listener, replacing the previous one.
+     * 
+     * @param listener      The change listener to notify about local controller changes,
+     *                      or null to stop notifications
+     */
+    @Override
+    public void setChangeListener(LocalControllerChangeListener listener) 
+    {
+        repository_.setChangeListener(listener);
+    }
+}
@@ -0,0 +1,426 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.api.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.commons.net.util.SubnetUtils;
+import org.apache.commons.net.util.SubnetUtils.SubnetInfo;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bitmap based IP address pool.
+ * 
+ * Addresses of all subnets are mapped to consecutive indexes, a set bit marks a free address.
+ * Allocation continues from the last allocated index, so released addresses are only reused 
+ * once the rest of the pool has been handed out. Not thread-safe.
+ * 
+ * @author Eugen Feller
+ */
+public final class IpAddressPool 
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(IpAddressPool.class);
+    
+    /** Number of octets. */
+    private static final int NUMBER_OF_OCTETS = 4;
+    
+    /** Octet mask. */
+    private static final int OCTET_MASK = 0xFF;
+    
+    /** Bits per octet. */
+    private static final int OCTET_SIZE = 8;
+    
+    /** First address of every subnet (as integer). */
+    private long[] firstAddresses_;
+    
+    /** Index of the first address of every subnet. */
+    private int[] offsets_;
+    
+    /** Number of addresses of every subnet. */
+    private int[] sizes_;
+    
+    /** Free addresses. */
+    private BitSet freeAddresses_;
+    
+    /** Total number of addresses. */
+    private int size_;
+    
+    /** Number of free addresses. */
+    private int numberOfFreeAddresses_;
+    
+    /** Index allocations start from (lower indexes are never handed out). */
+    private int startIndex_;
+    
+    /** Index to continue searching from. */
+    private int cursor_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param subnets       The subnets (CIDR notation)
+     * @param startIndex    The first index to allocate from
+     */
+    public IpAddressPool(String[] subnets, int startIndex)
+    {
+        Guard.check((Object[]) subnets);
+        firstAddresses_ = new long[subnets.length];
+        offsets_ = new int[subnets.length];
+        sizes_ = new int[subnets.length];
+        
+        int numberOfSubnets = 0;
+        for (String subnet : subnets)
+        {
+            SubnetInfo subnetInfo = new SubnetUtils(subnet).getInfo();
+            long firstAddress = toInteger(subnetInfo.getLowAddress());
+            long lastAddress = toInteger(subnetInfo.getHighAddress());
+            if (firstAddress < 0 || lastAddress < firstAddress)
+            {
+                log_.debug(String.format("Subnet %s has no host addresses", subnet));
+                continue;
+            }
+            
+            if (overlaps(numberOfSubnets, firstAddress, lastAddress))
+            {
+                log_.warn(String.format("Subnet %s overlaps with a previous subnet! Skipping it", subnet));
+                continue;
+            }
+            
+            firstAddresses_[numberOfSubnets] = firstAddress;
+            offsets_[numberOfSubnets] = size_;
+            sizes_[numberOfSubnets] = (int) (lastAddress - firstAddress + 1);
+            size_ += sizes_[numberOfSubnets];
+            numberOfSubnets++;
+        }
+        
+        if (numberOfSubnets < subnets.length)
+        {
+            firstAddresses_ = copyOf(firstAddresses_, numberOfSubnets);
+            offsets_ = copyOf(offsets_, numberOfSubnets);
+            sizes_ = copyOf(sizes_, numberOfSubnets);
+        }
+        
+        freeAddresses_ = new BitSet(size_);
+        freeAddresses_.set(0, size_);
+        numberOfFreeAddresses_ = size_;
+        startIndex_ = Math.max(0, startIndex);
+        cursor_ = startIndex_;
+        log_.debug(String.format("IP address pool with %d addresses in %d subnets created", size_, numberOfSubnets));
+    }
+    
+    /**
+     * Checks if an address range overlaps with one of the known subnets.
+     * 
+     * @param numberOfSubnets   The number of known subnets
+     * @param firstAddress      The first address
+     * @param lastAddress       The last address
+     * @return                  true if overlapping, false otherwise
+     */
+    private boolean overlaps(int numberOfSubnets, long firstAddress, long lastAddress)
+    {
+        for (int i = 0; i < numberOfSubnets; i++)
+        {
+            long subnetLastAddress = firstAddresses_[i] + sizes_[i] - 1;
+            if (firstAddress <= subnetLastAddress && firstAddresses_[i] <= lastAddress)
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Returns a truncated copy of an array.
+     * 
+     * @param array     The array
+     * @param length    The new length
+     * @return          The copy
+     */
+    private static long[] copyOf(long[] array, int length)
+    {
+        long[] copy = new long[length];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+    
+    /**
+     * Returns a truncated copy of an array.
+     * 
+     * @param array     The array
+     * @param length    The new length
+     * @return          The copy
+     */
+    private static int[] copyOf(int[] array, int length)
+    {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+    
+    /**
+     * Converts a dotted IPv4 address to an integer.
+     * 
+     * @param ipAddress     The IP address
+     * @return              The integer value, -1 if invalid
+     */
+    static long toInteger(String ipAddress)
+    {
+        String[] octets = ipAddress.split("\\.");
+        if (octets.length != NUMBER_OF_OCTETS)
+        {
+            return -1;
+        }
+        
+        long value = 0;
+        try
+        {
+            for (String octet : octets)
+            {
+                int octetValue = Integer.parseInt(octet);
+                if (octetValue < 0 || octetValue > OCTET_MASK)
+                {
+                    return -1;
+                }
+                
+                value = (value << OCTET_SIZE) | octetValue;
+            }
+        }
+        catch (NumberFormatException exception)
+        {
+            return -1;
+        }
+        
+        return value;
+    }
+    
+    /**
+     * Converts an integer to a dotted IPv4 address.
+     * 
+     * @param value     The integer value
+     * @return          The IP address
+     */
+    static String toAddress(long value)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = NUMBER_OF_OCTETS - 1; i >= 0; i--)
+        {
+            builder.append((value >>> (i * OCTET_SIZE)) & OCTET_MASK);
+            if (i > 0)
+            {
+                builder.append('.');
+            }
+        }
+        
+        return builder.toString();
+    }
+    
+    /**
+     * Returns the pool index of an address.
+     * 
+     * @param ipAddress     The IP address
+     * @return              The index, -1 if not part of the pool
+     */
+    private int indexOf(String ipAddress)
+    {
+        long value = toInteger(ipAddress);
+        if (value < 0)
+        {
+            return -1;
+        }
+        
+        for (int i = 0; i < firstAddresses_.length; i++)
+        {
+            long offset = value - firstAddresses_[i];
+            if (offset >= 0 && offset < sizes_[i])
+            {
+                return offsets_[i] + (int) offset;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Returns the address of a pool index.
+     * 
+     * @param index     The index
+     * @return          The IP address
+     */
+    private String addressOf(int index)
+    {
+        int subnet = 0;
+        while (subnet < offsets_.length - 1 && offsets_[subnet + 1] <= index)
+        {
+            subnet++;
+        }
+        
+        return toAddress(firstAddresses_[subnet] + (index - offsets_[subnet]));
+    }
+    
+    /**
+     * Returns the next free index starting from the cursor (wrapping around).
+     * 
+     * @return  The free index, -1 if none
+     */
+    private int nextFreeIndex()
+    {
+        int index = freeAddresses_.nextSetBit(cursor_);
+        if (index < 0 && cursor_ > startIndex_)
+        {
+            index = freeAddresses_.nextSetBit(startIndex_);
+        }
+        
+        return index;
+    }
+    
+    /**
+     * Returns the next free address without allocating it.
+     * 
+     * @return  The IP address, null if none
+     */
+    public String peek()
+    {
+        int index = nextFreeIndex();
+        if (index < 0)
+        {
+            return null;
+        }
+        
+        cursor_ = index;
+        return addressOf(index);
+    }
+    
+    /**
+     * Allocates up to the given number of free addresses.
+     * 
+     * @param numberOfAddresses     The number of addresses
+     * @return                      The allocated addresses (may contain less entries)
+     */
+    public List<String> allocate(int numberOfAddresses)
+    {
+        List<String> addresses = new ArrayList<String>(Math.max(0, numberOfAddresses));
+        while (addresses.size() < numberOfAddresses)
+        {
+            int index = nextFreeIndex();
+            if (index < 0)
+            {
+                break;
+            }
+            
+            freeAddresses_.clear(index);
+            numberOfFreeAddresses_--;
+            cursor_ = index + 1;
+            addresses.add(addressOf(index));
+        }
+        
+        return addresses;
+    }
+    
+    /**
+     * Marks an address as allocated.
+     * 
+     * @param ipAddress     The IP address
+     * @return              true if it was free, false otherwise
+     */
+    public boolean remove(String ipAddress)
+    {
+        int index = indexOf(ipAddress);
+        if (index < 0 || !freeAddresses_.get(index))
+        {
+            return false;
+        }
+        
+        freeAddresses_.clear(index);
+        numberOfFreeAddresses_--;
+        if (index == cursor_)
+        {
+            cursor_ = index + 1;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Releases an address.
+     * 
+     * @param ipAddress     The IP address
+     * @return              true if it was allocated, false otherwise
+     */
+    public boolean release(String ipAddress)
+    {
+        int index = indexOf(ipAddress);
+        if (index < 0 || freeAddresses_.get(index))
+        {
+            return false;
+        }
+        
+        freeAddresses_.set(index);
+        numberOfFreeAddresses_++;
+        return true;
+    }
+    
+    /**
+     * Checks if an address is part of the pool.
+     * 
+     * @param ipAddress     The IP address
+     * @return              true if part of the pool, false otherwise
+     */
+    public boolean contains(String ipAddress)
+    {
+        return indexOf(ipAddress) >= 0;
+    }
+    
+    /**
+     * Checks if an address is free.
+     * 
+     * @param ipAddress     The IP address
+     * @return              true if free, false otherwise
+     */
+    public boolean isFree(String ipAddress)
+    {
+        int index = indexOf(ipAddress);
+        return index >= 0 && freeAddresses_.get(index);
+    }
+    
+    /**
+     * Returns the number of free addresses.
+     * 
+     * @return  The number of free addresses
+     */
+    public int getNumberOfFreeAddresses()
+    {
+        return numberOfFreeAddresses_;
+    }
+    
+    /**
+     * Returns the total number of addresses.
+     * 
+     * @return  The number of addresses
+     */
+    public int getSize()
+    {
+        return size_;
+    }
+}
@@ -0,0 +1,296 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.api.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.LocationUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the local controller and virtual machine locations reported by the group managers.
+ * 
+ * Delta updates are only applied on top of the previous update of the same group manager.
+ * On a sequence gap all locations of the group manager are dropped until its next full update,
+ * so the index may miss entries but does not keep removed ones. Not thread-safe.
+ * 
+ * @author Eugen Feller
+ */
+public final class LocationIndex 
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(LocationIndex.class);
+    
+    /**
+     * Locations of one group manager.
+     */
+    private static final class GroupManagerLocations
+    {
+        /** Sequence number of the last applied update. */
+        private long sequenceNumber_;
+        
+        /**
+         * Local controllers.
+         * 
+         * Key: Local controller identifier
+         * Value: Local controller address key
+         */
+        private Map<String, String> localControllers_ = new HashMap<String, String>();
+        
+        /**
+         * Virtual machines.
+         * 
+         * Key: Virtual machine identifier
+         * Value: Local controller identifier
+         */
+        private Map<String, String> virtualMachines_ = new HashMap<String, String>();
+    }
+    
+    /**
+     * Group manager locations.
+     * 
+     * Key: Group manager identifier
+     * Value: Group manager locations
+     */
+    private Map<String, GroupManagerLocations> groupManagers_;
+    
+    /**
+     * Local controllers.
+     * 
+     * Key: Local controller address key
+     * Value: Local controller location
+     */
+    private Map<String, VirtualMachineLocation> localControllers_;
+    
+    /**
+     * Virtual machines.
+     * 
+     * Key: Virtual machine identifier
+     * Value: Group manager identifier
+     */
+    private Map<String, String> virtualMachines_;
+    
+    /**
+     * Constructor.
+     */
+    public LocationIndex()
+    {
+        groupManagers_ = new HashMap<String, GroupManagerLocations>();
+        localControllers_ = new HashMap<String, VirtualMachineLocation>();
+        virtualMachines_ = new HashMap<String, String>();
+    }
+    
+    /**
+     * Returns the lookup key of an address.
+     * 
+     * @param address   The network address
+     * @return          The key, null if none
+     */
+    private static String toKey(NetworkAddress address)
+    {
+        if (address == null || address.getAddress() == null)
+        {
+            return null;
+        }
+        
+        return address.getAddress() + ":" + address.getPort();
+    }
+    
+    /**
+     * Applies a location update.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @param update            The location update
+     * @return                  true if applied, false otherwise
+     */
+    public boolean update(String groupManagerId, LocationUpdate update)
+    {
+        Guard.check(groupManagerId, update);
+        GroupManagerLocations locations = groupManagers_.get(groupManagerId);
+        if (update.isFull())
+        {
+            removeGroupManager(groupManagerId);
+            locations = new GroupManagerLocations();
+            groupManagers_.put(groupManagerId, locations);
+        } 
+        else if (locations == null || update.getSequenceNumber() != locations.sequenceNumber_ + 1)
+        {
+            log_.debug(String.format("Location update gap for group manager %s! Waiting for full update", 
+                                     groupManagerId));
+            removeGroupManager(groupManagerId);
+            return false;
+        }
+        
+        locations.sequenceNumber_ = update.getSequenceNumber();
+        for (String localControllerId : update.getRemovedLocalControllers())
+        {
+            removeLocalController(groupManagerId, locations.localControllers_.remove(localControllerId));
+        }
+        
+        for (String virtualMachineId : update.getRemovedVirtualMachines())
+        {
+            locations.virtualMachines_.remove(virtualMachineId);
+            removeVirtualMachine(groupManagerId, virtualMachineId);
+        }
+        
+        for (Map.Entry<String, NetworkAddress> entry : update.getLocalControllers().entrySet())
+        {
+            String key = toKey(entry.getValue());
+            String previousKey = locations.localControllers_.put(entry.getKey(), key);
+            if (previousKey != null && !previousKey.equals(key))
+            {
+                removeLocalController(groupManagerId, previousKey);
+            }
+            
+            if (key != null)
+            {
+                VirtualMachineLocation location = new VirtualMachineLocation();
+                location.setGroupManagerId(groupManagerId);
+                location.setLocalControllerId(entry.getKey());
+                localControllers_.put(key, location);
+            }
+        }
+        
+        for (Map.Entry<String, String> entry : update.getVirtualMachines().entrySet())
+        {
+            locations.virtualMachines_.put(entry.getKey(), entry.getValue());
+            virtualMachines_.put(entry.getKey(), groupManagerId);
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Removes a local controller entry owned by a group manager.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @param key               The local controller address key
+     */
+    private void removeLocalController(String groupManagerId, String key)
+    {
+        if (key == null)
+        {
+            return;
+        }
+        
+        VirtualMachineLocation location = localControllers_.get(key);
+        if (location != null && groupManagerId.equals(location.getGroupManagerId()))
+        {
+            localControllers_.remove(key);
+        }
+    }
+    
+    /**
+     * Removes a virtual machine entry owned by a group manager.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @param virtualMachineId  The virtual machine identifier
+     */
+    private void removeVirtualMachine(String groupManagerId, String virtualMachineId)
+    {
+        if (groupManagerId.equals(virtualMachines_.get(virtualMachineId)))
+        {
+            virtualMachines_.remove(virtualMachineId);
+        }
+    }
+    
+    /**
+     * Removes all locations of a group manager.
+     * 
+     * @param groupManagerId    The group manager identifier
+     */
+    public void removeGroupManager(String groupManagerId)
+    {
+        Guard.check(groupManagerId);
+        GroupManagerLocations locations = groupManagers_.remove(groupManagerId);
+        if (locations == null)
+        {
+            return;
+        }
+        
+        for (String key : locations.localControllers_.values())
+        {
+            removeLocalController(groupManagerId, key);
+        }
+        
+        for (String virtualMachineId : locations.virtualMachines_.keySet())
+        {
+            removeVirtualMachine(groupManagerId, virtualMachineId);
+        }
+    }
+    
+    /**
+     * Looks up a virtual machine.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The virtual machine location, null if unknown
+     */
+    public VirtualMachineLocation lookupVirtualMachine(String virtualMachineId)
+    {
+        Guard.check(virtualMachineId);
+        String groupManagerId = virtualMachines_.get(virtualMachineId);
+        if (groupManagerId == null)
+        {
+            return null;
+        }
+        
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setVirtualMachineId(virtualMachineId);
+        location.setLocalControllerId(groupManagers_.get(groupManagerId).virtualMachines_.get(virtualMachineId));
+        location.setGroupManagerId(groupManagerId);
+        return location;
+    }
+    
+    /**
+     * Looks up a local controller.
+     * 
+     * @param address       The local controller control data address
+     * @return              The location (group manager and local controller identifiers), null if unknown
+     */
+    public VirtualMachineLocation lookupLocalController(NetworkAddress address)
+    {
+        Guard.check(address);
+        VirtualMachineLocation location = localControllers_.get(toKey(address));
+        if (location == null)
+        {
+            return null;
+        }
+        
+        VirtualMachineLocation copy = new VirtualMachineLocation();
+        copy.setLocalControllerId(location.getLocalControllerId());
+        copy.setGroupManagerId(location.getGroupManagerId());
+        return copy;
+    }
+    
+    /**
+     * Returns the number of indexed virtual machines.
+     * 
+     * @return  The number of virtual machines
+     */
+    public int getNumberOfVirtualMachines()
+    {
+        return virtualMachines_.size();
+    }
+}
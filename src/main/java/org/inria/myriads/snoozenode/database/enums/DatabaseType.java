@@ -27,5 +27,9 @@ package org.inria.myriads.snoozenode.database.enums;
 public enum DatabaseType 
 {
     /** In-memory. */
-    memory
+    memory,
+    /** In-memory, lock-striped (group manager only). */
+    concurrent,
+    /** Concurrent, journaled to local files (group manager only). */
+    persistent
 }
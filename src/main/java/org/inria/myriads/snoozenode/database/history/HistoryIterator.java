@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.history;
+
+/**
+ * Read-only cursor over a virtual machine history view (oldest entry first).
+ * 
+ * Usage: while (iterator.next()) { iterator.getCpuUtilization(); ... }
+ * 
+ * @author Eugen Feller
+ */
+public final class HistoryIterator 
+{
+    /** The view. */
+    private VirtualMachineHistoryView view_;
+    
+    /** Current position. */
+    private int position_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param view      The history view
+     */
+    HistoryIterator(VirtualMachineHistoryView view)
+    {
+        view_ = view;
+        position_ = -1;
+    }
+    
+    /**
+     * Advances to the next entry.
+     * 
+     * @return  true if an entry is available, false otherwise
+     */
+    public boolean next()
+    {
+        if (position_ + 1 >= view_.getSize())
+        {
+            return false;
+        }
+        
+        position_++;
+        return true;
+    }
+    
+    /**
+     * Returns the time stamp of the current entry.
+     * 
+     * @return  The time stamp
+     */
+    public long getTimeStamp()
+    {
+        return view_.getTimeStamp(position_);
+    }
+    
+    /**
+     * Returns the CPU utilization of the current entry.
+     * 
+     * @return  The CPU utilization
+     */
+    public double getCpuUtilization()
+    {
+        return view_.getCpuUtilization(position_);
+    }
+    
+    /**
+     * Returns the memory utilization of the current entry.
+     * 
+     * @return  The memory utilization
+     */
+    public double getMemoryUtilization()
+    {
+        return view_.getMemoryUtilization(position_);
+    }
+    
+    /**
+     * Returns the network rx utilization of the current entry.
+     * 
+     * @return  The network rx utilization
+     */
+    public double getNetworkRxUtilization()
+    {
+        return view_.getNetworkRxUtilization(position_);
+    }
+    
+    /**
+     * Returns the network tx utilization of the current entry.
+     * 
+     * @return  The network tx utilization
+     */
+    public double getNetworkTxUtilization()
+    {
+        return view_.getNetworkTxUtilization(position_);
+    }
+}
@@ -0,0 +1,315 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.history;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozenode.util.UtilizationUtils;
+
+/**
+ * Fixed capacity ring buffer holding the monitoring history of a virtual machine.
+ * 
+ * Time stamps and utilizations are kept in primitive arrays, so adding an entry
+ * does not allocate. Once full, the oldest entry is overwritten.
+ * Optional streaming statistics are updated as entries arrive, so incremental
+ * estimators do not need to rescan the history. Replacing the latest entry can not be
+ * undone on a streaming statistic, the statistics are then rebuilt from the buffered
+ * entries when the next view is taken.
+ * Not thread-safe, access is guarded by the owning repository.
+ * 
+ * @author Eugen Feller
+ */
+public final class VirtualMachineHistory 
+{
+    /** Time stamps. */
+    private long[] timeStamps_;
+    
+    /** CPU utilization. */
+    private double[] cpu_;
+    
+    /** Memory utilization. */
+    private double[] memory_;
+    
+    /** Network rx utilization. */
+    private double[] networkRx_;
+    
+    /** Network tx utilization. */
+    private double[] networkTx_;
+    
+    /** Index of the next entry to write. */
+    private int head_;
+    
+    /** Number of entries. */
+    private int size_;
+    
+    /** CPU statistic (optional). */
+    private StreamingStatistic cpuStatistic_;
+    
+    /** Memory statistic (optional). */
+    private StreamingStatistic memoryStatistic_;
+    
+    /** Network rx statistic (optional). */
+    private StreamingStatistic networkRxStatistic_;
+    
+    /** Network tx statistic (optional). */
+    private StreamingStatistic networkTxStatistic_;
+    
+    /** Statistics factory (null if none). */
+    private StreamingStatisticsFactory statisticsFactory_;
+    
+    /** Signals statistics which include a replaced entry. */
+    private boolean isStatisticStale_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param capacity              The maximum number of entries
+     * @param statisticsFactory     The statistics factory (null if none)
+     */
+    public VirtualMachineHistory(int capacity, StreamingStatisticsFactory statisticsFactory)
+    {
+        this(capacity);
+        statisticsFactory_ = statisticsFactory;
+        createStatistics();
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param capacity      The maximum number of entries
+     */
+    public VirtualMachineHistory(int capacity)
+    {
+        Guard.check(capacity);
+        int length = Math.max(capacity, 0);
+        timeStamps_ = new long[length];
+        cpu_ = new double[length];
+        memory_ = new double[length];
+        networkRx_ = new double[length];
+        networkTx_ = new double[length];
+    }
+    
+    /**
+     * Adds a monitoring entry.
+     * 
+     * @param monitoringData    The monitoring data
+     */
+    public void add(VirtualMachineMonitoringData monitoringData)
+    {
+        Guard.check(monitoringData);
+        List<Double> usedCapacity = monitoringData.getUsedCapacity();
+        add(monitoringData.getTimeStamp(),
+            UtilizationUtils.getCpuUtilization(usedCapacity),
+            UtilizationUtils.getMemoryUtilization(usedCapacity),
+            UtilizationUtils.getNetworkRxUtilization(usedCapacity),
+            UtilizationUtils.getNetworkTxUtilization(usedCapacity));
+    }
+    
+    /**
+     * Adds a monitoring entry.
+     * An entry with the same time stamp as the latest one replaces it, 
+     * in which case the statistics are marked for a rebuild.
+     * 
+     * @param timeStamp     The time stamp
+     * @param cpu           The CPU utilization
+     * @param memory        The memory utilization
+     * @param networkRx     The network rx utilization
+     * @param networkTx     The network tx utilization
+     */
+    public void add(long timeStamp, double cpu, double memory, double networkRx, double networkTx)
+    {
+        int capacity = timeStamps_.length;
+        if (capacity == 0)
+        {
+            return;
+        }
+        
+        int index = head_;
+        int latest = (head_ - 1 + capacity) % capacity;
+        if (size_ > 0 && timeStamps_[latest] == timeStamp)
+        {
+            index = latest;
+            isStatisticStale_ = statisticsFactory_ != null;
+        } 
+        else
+        {
+            head_ = (head_ + 1) % capacity;
+            size_ = Math.min(size_ + 1, capacity);
+            updateStatistic(cpuStatistic_, cpu);
+            updateStatistic(memoryStatistic_, memory);
+            updateStatistic(networkRxStatistic_, networkRx);
+            updateStatistic(networkTxStatistic_, networkTx);
+        }
+        
+        timeStamps_[index] = timeStamp;
+        cpu_[index] = cpu;
+        memory_[index] = memory;
+        networkRx_[index] = networkRx;
+        networkTx_[index] = networkTx;
+    }
+    
+    /**
+     * Returns a read-only view of the latest entries.
+     * 
+     * The view is backed by the ring buffer of this history and is only valid until the 
+     * next modification, i.e. while the repository lock is held.
+     * 
+     * @param numberOfEntries   The maximum number of entries
+     * @return                  The history view (oldest entry first)
+     */
+    public VirtualMachineHistoryView getView(int numberOfEntries)
+    {
+        if (isStatisticStale_)
+        {
+            rebuildStatistics();
+        }
+        
+        int size = Math.min(Math.max(numberOfEntries, 0), size_);
+        if (size == 0)
+        {
+            return VirtualMachineHistoryView.empty();
+        }
+        
+        int capacity = timeStamps_.length;
+        int start = (head_ - size + capacity) % capacity;
+        return new VirtualMachineHistoryView(timeStamps_, cpu_, memory_, networkRx_, networkTx_, start, size,
+                                             getEstimate(cpuStatistic_),
+                                             getEstimate(memoryStatistic_),
+                                             getEstimate(networkRxStatistic_),
+                                             getEstimate(networkTxStatistic_));
+    }
+    
+    /**
+     * Creates empty statistics.
+     */
+    private void createStatistics()
+    {
+        if (statisticsFactory_ == null)
+        {
+            return;
+        }
+        
+        cpuStatistic_ = statisticsFactory_.newCpuStatistic();
+        memoryStatistic_ = statisticsFactory_.newMemoryStatistic();
+        networkRxStatistic_ = statisticsFactory_.newNetworkStatistic();
+        networkTxStatistic_ = statisticsFactory_.newNetworkStatistic();
+    }
+    
+    /**
+     * Rebuilds the statistics from the buffered entries (oldest first).
+     */
+    private void rebuildStatistics()
+    {
+        createStatistics();
+        int capacity = timeStamps_.length;
+        int start = (head_ - size_ + capacity) % capacity;
+        for (int i = 0; i < size_; i++)
+        {
+            int index = (start + i) % capacity;
+            updateStatistic(cpuStatistic_, cpu_[index]);
+            updateStatistic(memoryStatistic_, memory_[index]);
+            updateStatistic(networkRxStatistic_, networkRx_[index]);
+            updateStatistic(networkTxStatistic_, networkTx_[index]);
+        }
+        
+        isStatisticStale_ = false;
+    }
+    
+    /**
+     * Updates a statistic.
+     * 
+     * @param statistic     The statistic (may be null)
+     * @param value         The sample value
+     */
+    private static void updateStatistic(StreamingStatistic statistic, double value)
+    {
+        if (statistic != null)
+        {
+            statistic.update(value);
+        }
+    }
+    
+    /**
+     * Returns the estimate of a statistic.
+     * 
+     * @param statistic     The statistic (may be null)
+     * @return              The estimate, NaN if not available
+     */
+    private static double getEstimate(StreamingStatistic statistic)
+    {
+        if (statistic == null)
+        {
+            return Double.NaN;
+        }
+        
+        return statistic.getValue();
+    }
+    
+    /**
+     * Materializes the latest entries into monitoring data objects.
+     * 
+     * @param usedCapacity      The map to fill (keyed by time stamp)
+     * @param numberOfEntries   The maximum number of entries
+     */
+    public void copyTo(Map<Long, VirtualMachineMonitoringData> usedCapacity, int numberOfEntries)
+    {
+        Guard.check(usedCapacity);
+        VirtualMachineHistoryView view = getView(numberOfEntries);
+        HistoryIterator iterator = view.iterator();
+        while (iterator.next())
+        {
+            NetworkDemand networkDemand = new NetworkDemand(iterator.getNetworkRxUtilization(), 
+                                                            iterator.getNetworkTxUtilization());
+            ArrayList<Double> vector = MathUtils.createCustomVector(iterator.getCpuUtilization(), 
+                                                                    iterator.getMemoryUtilization(), 
+                                                                    networkDemand);
+            VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+            data.setTimeStamp(iterator.getTimeStamp());
+            data.setUsedCapacity(vector);
+            usedCapacity.put(data.getTimeStamp(), data);
+        }
+    }
+    
+    /**
+     * Returns the number of entries.
+     * 
+     * @return  The number of entries
+     */
+    public int getSize()
+    {
+        return size_;
+    }
+    
+    /**
+     * Returns the capacity.
+     * 
+     * @return  The maximum number of entries
+     */
+    public int getCapacity()
+    {
+        return timeStamps_.length;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.history;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+
+/**
+ * Virtual machine history provider interface.
+ * 
+ * @author Eugen Feller
+ */
+public interface VirtualMachineHistoryProvider 
+{
+    /**
+     * Returns a copy of the latest monitoring history entries of a virtual machine.
+     * 
+     * @param location          The virtual machine location
+     * @param numberOfEntries   The maximum number of entries
+     * @return                  The detached history view, null if the virtual machine is unknown
+     */
+    VirtualMachineHistoryView getVirtualMachineHistory(VirtualMachineLocation location, int numberOfEntries);
+    
+    /**
+     * Reads the latest monitoring history entries of a virtual machine without copying them.
+     * The reader is called with the lock held.
+     * 
+     * @param <T>               The result type
+     * @param location          The virtual machine location
+     * @param numberOfEntries   The maximum number of entries
+     * @param reader            The history reader
+     * @return                  The reader result, null if the virtual machine is unknown
+     */
+    <T> T readVirtualMachineHistory(VirtualMachineLocation location, 
+                                    int numberOfEntries, 
+                                    VirtualMachineHistoryReader<T> reader);
+    
+    /**
+     * Sets the factory used to create the streaming statistics of new histories.
+     * 
+     * @param statisticsFactory     The statistics factory
+     */
+    void setStatisticsFactory(StreamingStatisticsFactory statisticsFactory);
+}
@@ -0,0 +1,355 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.history;
+
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.util.UtilizationUtils;
+
+/**
+ * Read-only window of a virtual machine history.
+ * 
+ * Entries are stored column-wise in primitive arrays. A view taken from a history
+ * shares the ring buffer of the history (the window starts at an offset and wraps
+ * around), so it is only valid as long as the history is not modified, i.e. while
+ * the lock of the owning repository is held. Use {@link #copy()} to keep it longer.
+ * Incrementally maintained estimates are NaN if not available.
+ * 
+ * @author Eugen Feller
+ */
+public final class VirtualMachineHistoryView 
+{
+    /** Empty view. */
+    private static final VirtualMachineHistoryView EMPTY = 
+        new VirtualMachineHistoryView(new long[0], new double[0], new double[0], new double[0], new double[0]);
+    
+    /** Reader returning a detached copy of the view. */
+    public static final VirtualMachineHistoryReader<VirtualMachineHistoryView> COPY_READER = 
+        new VirtualMachineHistoryReader<VirtualMachineHistoryView>()
+        {
+            public VirtualMachineHistoryView read(VirtualMachineHistoryView history)
+            {
+                return history.copy();
+            }
+        };
+    
+    /** Time stamps. */
+    private long[] timeStamps_;
+    
+    /** CPU utilization. */
+    private double[] cpu_;
+    
+    /** Memory utilization. */
+    private double[] memory_;
+    
+    /** Network rx utilization. */
+    private double[] networkRx_;
+    
+    /** Network tx utilization. */
+    private double[] networkTx_;
+    
+    /** Array index of the oldest entry. */
+    private int start_;
+    
+    /** Number of entries. */
+    private int size_;
+    
+    /** CPU demand estimate. */
+    private double cpuEstimate_;
+    
+    /** Memory demand estimate. */
+    private double memoryEstimate_;
+    
+    /** Network rx demand estimate. */
+    private double networkRxEstimate_;
+    
+    /** Network tx demand estimate. */
+    private double networkTxEstimate_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param timeStamps    The time stamps
+     * @param cpu           The CPU utilization
+     * @param memory        The memory utilization
+     * @param networkRx     The network rx utilization
+     * @param networkTx     The network tx utilization
+     */
+    VirtualMachineHistoryView(long[] timeStamps, 
+                              double[] cpu, 
+                              double[] memory, 
+                              double[] networkRx, 
+                              double[] networkTx)
+    {
+        this(timeStamps, cpu, memory, networkRx, networkTx, 0, timeStamps.length, 
+             Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param timeStamps            The time stamps
+     * @param cpu                   The CPU utilization
+     * @param memory                The memory utilization
+     * @param networkRx             The network rx utilization
+     * @param networkTx             The network tx utilization
+     * @param start                 The array index of the oldest entry
+     * @param size                  The number of entries (wrapping around the arrays)
+     * @param cpuEstimate           The CPU demand estimate
+     * @param memoryEstimate        The memory demand estimate
+     * @param networkRxEstimate     The network rx demand estimate
+     * @param networkTxEstimate     The network tx demand estimate
+     */
+    VirtualMachineHistoryView(long[] timeStamps, 
+                              double[] cpu, 
+                              double[] memory, 
+                              double[] networkRx, 
+                              double[] networkTx,
+                              int start,
+                              int size,
+                              double cpuEstimate,
+                              double memoryEstimate,
+                              double networkRxEstimate,
+                              double networkTxEstimate)
+    {
+        timeStamps_ = timeStamps;
+        cpu_ = cpu;
+        memory_ = memory;
+        networkRx_ = networkRx;
+        networkTx_ = networkTx;
+        start_ = start;
+        size_ = size;
+        cpuEstimate_ = cpuEstimate;
+        memoryEstimate_ = memoryEstimate;
+        networkRxEstimate_ = networkRxEstimate;
+        networkTxEstimate_ = networkTxEstimate;
+    }
+    
+    /**
+     * Returns an empty view.
+     * 
+     * @return  The empty view
+     */
+    public static VirtualMachineHistoryView empty()
+    {
+        return EMPTY;
+    }
+    
+    /**
+     * Creates a view from monitoring data (e.g. received from a remote node).
+     * 
+     * @param monitoringData    The monitoring data (iteration order is kept)
+     * @return                  The history view
+     */
+    public static VirtualMachineHistoryView fromMonitoringData(Map<Long, VirtualMachineMonitoringData> monitoringData)
+    {
+        Guard.check(monitoringData);
+        
+        int size = monitoringData.size();
+        long[] timeStamps = new long[size];
+        double[] cpu = new double[size];
+        double[] memory = new double[size];
+        double[] networkRx = new double[size];
+        double[] networkTx = new double[size];
+        
+        int i = 0;
+        for (VirtualMachineMonitoringData data : monitoringData.values())
+        {
+            List<Double> usedCapacity = data.getUsedCapacity();
+            timeStamps[i] = data.getTimeStamp();
+            cpu[i] = UtilizationUtils.getCpuUtilization(usedCapacity);
+            memory[i] = UtilizationUtils.getMemoryUtilization(usedCapacity);
+            networkRx[i] = UtilizationUtils.getNetworkRxUtilization(usedCapacity);
+            networkTx[i] = UtilizationUtils.getNetworkTxUtilization(usedCapacity);
+            i++;
+        }
+        
+        return new VirtualMachineHistoryView(timeStamps, cpu, memory, networkRx, networkTx);
+    }
+    
+    /**
+     * Returns a detached copy of this view (oldest entry first).
+     * 
+     * @return  The copy
+     */
+    public VirtualMachineHistoryView copy()
+    {
+        long[] timeStamps = new long[size_];
+        double[] cpu = new double[size_];
+        double[] memory = new double[size_];
+        double[] networkRx = new double[size_];
+        double[] networkTx = new double[size_];
+        copyColumn(timeStamps_, timeStamps);
+        copyColumn(cpu_, cpu);
+        copyColumn(memory_, memory);
+        copyColumn(networkRx_, networkRx);
+        copyColumn(networkTx_, networkTx);
+        return new VirtualMachineHistoryView(timeStamps, cpu, memory, networkRx, networkTx, 0, size_, 
+                                             cpuEstimate_, memoryEstimate_, networkRxEstimate_, networkTxEstimate_);
+    }
+    
+    /**
+     * Copies the entries of a column (oldest first).
+     * 
+     * @param source        The source column
+     * @param destination   The destination column
+     */
+    private void copyColumn(Object source, Object destination)
+    {
+        int firstPart = Math.min(size_, timeStamps_.length - start_);
+        System.arraycopy(source, start_, destination, 0, firstPart);
+        System.arraycopy(source, 0, destination, firstPart, size_ - firstPart);
+    }
+    
+    /**
+     * Maps an entry index to the array index.
+     * 
+     * @param index     The entry index (0 is the oldest entry)
+     * @return          The array index
+     */
+    private int toArrayIndex(int index)
+    {
+        if (index < 0 || index >= size_)
+        {
+            throw new IndexOutOfBoundsException(String.format("Index: %d, size: %d", index, size_));
+        }
+        
+        int arrayIndex = start_ + index;
+        return arrayIndex < timeStamps_.length ? arrayIndex : arrayIndex - timeStamps_.length;
+    }
+    
+    /**
+     * Returns a new iterator.
+     * 
+     * @return  The history iterator
+     */
+    public HistoryIterator iterator()
+    {
+        return new HistoryIterator(this);
+    }
+    
+    /**
+     * Returns the number of entries.
+     * 
+     * @return  The number of entries
+     */
+    public int getSize()
+    {
+        return size_;
+    }
+    
+    /**
+     * Returns the time stamp.
+     * 
+     * @param index     The entry index
+     * @return          The time stamp
+     */
+    public long getTimeStamp(int index)
+    {
+        return timeStamps_[toArrayIndex(index)];
+    }
+    
+    /**
+     * Returns the CPU utilization.
+     * 
+     * @param index     The entry index
+     * @return          The CPU utilization
+     */
+    public double getCpuUtilization(int index)
+    {
+        return cpu_[toArrayIndex(index)];
+    }
+    
+    /**
+     * Returns the memory utilization.
+     * 
+     * @param index     The entry index
+     * @return          The memory utilization
+     */
+    public double getMemoryUtilization(int index)
+    {
+        return memory_[toArrayIndex(index)];
+    }
+    
+    /**
+     * Returns the network rx utilization.
+     * 
+     * @param index     The entry index
+     * @return          The network rx utilization
+     */
+    public double getNetworkRxUtilization(int index)
+    {
+        return networkRx_[toArrayIndex(index)];
+    }
+    
+    /**
+     * Returns the network tx utilization.
+     * 
+     * @param index     The entry index
+     * @return          The network tx utilization
+     */
+    public double getNetworkTxUtilization(int index)
+    {
+        return networkTx_[toArrayIndex(index)];
+    }
+    
+    /**
+     * Returns the incrementally maintained CPU demand estimate.
+     * 
+     * @return  The estimate, NaN if not available
+     */
+    public double getCpuEstimate()
+    {
+        return cpuEstimate_;
+    }
+    
+    /**
+     * Returns the incrementally maintained memory demand estimate.
+     * 
+     * @return  The estimate, NaN if not available
+     */
+    public double getMemoryEstimate()
+    {
+        return memoryEstimate_;
+    }
+    
+    /**
+     * Returns the incrementally maintained network rx demand estimate.
+     * 
+     * @return  The estimate, NaN if not available
+     */
+    public double getNetworkRxEstimate()
+    {
+        return networkRxEstimate_;
+    }
+    
+    /**
+     * Returns the incrementally maintained network tx demand estimate.
+     * 
+     * @return  The estimate, NaN if not available
+     */
+    public double getNetworkTxEstimate()
+    {
+        return networkTxEstimate_;
+    }
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.journal;
+
+import java.io.Serializable;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.database.enums.JournalOperation;
+
+/**
+ * Journal record of a single repository change.
+ * 
+ * @author Eugen Feller
+ */
+public final class JournalRecord 
+    implements Serializable
+{
+    /** Serial version. */
+    private static final long serialVersionUID = 1L;
+
+    /** Sequence number. */
+    private long sequenceNumber_;
+    
+    /** Operation. */
+    private JournalOperation operation_;
+    
+    /** Local controller identifier. */
+    private String localControllerId_;
+    
+    /** Local controller description. */
+    private LocalControllerDescription localController_;
+    
+    /** Local controller status. */
+    private LocalControllerStatus localControllerStatus_;
+    
+    /** Forced delete flag. */
+    private boolean isForced_;
+    
+    /** Virtual machine meta data. */
+    private VirtualMachineMetaData virtualMachine_;
+    
+    /** Virtual machine location. */
+    private VirtualMachineLocation location_;
+    
+    /** New virtual machine location. */
+    private VirtualMachineLocation newLocation_;
+    
+    /** Virtual machine status. */
+    private VirtualMachineStatus virtualMachineStatus_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param operation     The operation
+     */
+    private JournalRecord(JournalOperation operation)
+    {
+        operation_ = operation;
+    }
+    
+    /**
+     * Creates a record for a (re)joined local controller.
+     * 
+     * @param localController   The local controller description
+     * @return                  The record
+     */
+    public static JournalRecord addLocalController(LocalControllerDescription localController)
+    {
+        JournalRecord record = new JournalRecord(JournalOperation.addLocalController);
+        record.localController_ = localController;
+        return record;
+    }
+    
+    /**
+     * Creates a record for a dropped local controller.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @param isForced              true if the delete was forced
+     * @return                      The record
+     */
+    public static JournalRecord dropLocalController(String localControllerId, boolean isForced)
+    {
+        JournalRecord record = new JournalRecord(JournalOperation.dropLocalController);
+        record.localControllerId_ = localControllerId;
+        record.isForced_ = isForced;
+        return record;
+    }
+    
+    /**
+     * Creates a record for a local controller status change.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @param status                The new status
+     * @return                      The record
+     */
+    public static JournalRecord changeLocalControllerStatus(String localControllerId, LocalControllerStatus status)
+    {
+        JournalRecord record = new JournalRecord(JournalOperation.changeLocalControllerStatus);
+        record.localControllerId_ = localControllerId;
+        record.localControllerStatus_ = status;
+        return record;
+    }
+    
+    /**
+     * Creates a record for an added virtual machine.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  The record
+     */
+    public static JournalRecord addVirtualMachine(VirtualMachineMetaData virtualMachine)
+    {
+        JournalRecord record = new JournalRecord(JournalOperation.addVirtualMachine);
+        record.virtualMachine_ = virtualMachine;
+        return record;
+    }
+    
+    /**
+     * Creates a record for updated virtual machine meta data.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  The record
+     */
+    public static JournalRecord updateVirtualMachine(VirtualMachineMetaData virtualMachine)
+    {
+        JournalRecord record = new JournalRecord(JournalOperation.updateVirtualMachine);
+        record.virtualMachine_ = virtualMachine;
+        return record;
+    }
+    
+    /**
+     * Creates a record for dropped virtual machine data.
+     * 
+     * @param location      The virtual machine location
+     * @return              The record
+     */
+    public static JournalRecord dropVirtualMachine(VirtualMachineLocation location)
+    {
+        JournalRecord record = new JournalRecord(JournalOperation.dropVirtualMachine);
+        record.location_ = location;
+        return record;
+    }
+    
+    /**
+     * Creates a record for a virtual machine status change.
+     * 
+     * @param location      The virtual machine location
+     * @param status        The new status
+     * @return              The record
+     */
+    public static JournalRecord changeVirtualMachineStatus(VirtualMachineLocation location, 
+                                                           VirtualMachineStatus status)
+    {
+        JournalRecord record = new JournalRecord(JournalOperation.changeVirtualMachineStatus);
+        record.location_ = location;
+        record.virtualMachineStatus_ = status;
+        return record;
+    }
+    
+    /**
+     * Creates a record for a virtual machine location change.
+     * 
+     * @param oldLocation   The old virtual machine location
+     * @param newLocation   The new virtual machine location
+     * @return              The record
+     */
+    public static JournalRecord updateVirtualMachineLocation(VirtualMachineLocation oldLocation, 
+                                                             VirtualMachineLocation newLocation)
+    {
+        JournalRecord record = new JournalRecord(JournalOperation.updateVirtualMachineLocation);
+        record.location_ = oldLocation;
+        record.newLocation_ = newLocation;
+        return record;
+    }
+    
+    /**
+     * Creates a record for released legacy IP addresses.
+     * 
+     * @return  The record
+     */
+    public static JournalRecord releaseLegacyIpAddresses()
+    {
+        return new JournalRecord(JournalOperation.releaseLegacyIpAddresses);
+    }
+    
+    /**
+     * Applies the record to a repository.
+     * 
+     * @param repository    The repository
+     * @return              true if the change was applied, false otherwise
+     */
+    public boolean replay(GroupManagerRepository repository)
+    {
+        switch (operation_)
+        {
+            case addLocalController :
+                return repository.addLocalControllerDescription(localController_);
+                
+            case dropLocalController :
+                return repository.dropLocalController(localControllerId_, isForced_);
+                
+            case changeLocalControllerStatus :
+                return repository.changeLocalControllerStatus(localControllerId_, localControllerStatus_);
+                
+            case addVirtualMachine :
+                return repository.addVirtualMachine(virtualMachine_);
+                
+            case updateVirtualMachine :
+                return repository.updateVirtualMachineMetaData(virtualMachine_);
+                
+            case dropVirtualMachine :
+                return repository.dropVirtualMachineData(location_);
+                
+            case changeVirtualMachineStatus :
+                return repository.changeVirtualMachineStatus(location_, virtualMachineStatus_);
+                
+            case updateVirtualMachineLocation :
+                return repository.updateVirtualMachineLocation(location_, newLocation_);
+                
+            case releaseLegacyIpAddresses :
+                repository.getLegacyIpAddresses();
+                return true;
+                
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Returns the operation.
+     * 
+     * @return  The operation
+     */
+    public JournalOperation getOperation()
+    {
+        return operation_;
+    }
+    
+    /**
+     * Returns the sequence number.
+     * 
+     * @return  The sequence number
+     */
+    public long getSequenceNumber()
+    {
+        return sequenceNumber_;
+    }
+    
+    /**
+     * Sets the sequence number.
+     * 
+     * @param sequenceNumber    The sequence number
+     */
+    public void setSequenceNumber(long sequenceNumber)
+    {
+        sequenceNumber_ = sequenceNumber;
+    }
+}
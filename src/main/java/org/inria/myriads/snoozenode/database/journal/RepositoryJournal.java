@@ -0,0 +1,526 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.util.SerializationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File based repository journal.
+ * 
+ * Changes are appended to a journal file, every record is framed with its length and
+ * checksum. A snapshot compacts the state up to a sequence number: the journal is rotated
+ * first, and the rotated journal is deleted once the snapshot is written. Recovery loads
+ * the snapshot and replays the rotated and the current journal, skipping records already
+ * contained in the snapshot. A torn or corrupt tail is cut off, a valid record which can not
+ * be deserialized (e.g. written by another version) fails the recovery and leaves the files
+ * untouched.
+ * 
+ * Records are either forced to disk on every append or, with group commit, once per call
+ * to {@link #sync()}; records appended since the last sync may be lost on a crash.
+ * 
+ * Not thread-safe, callers have to serialize appends and snapshots.
+ * 
+ * @author Eugen Feller
+ */
+public final class RepositoryJournal 
+{
+    /** Logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(RepositoryJournal.class);
+    
+    /** Journal file name. */
+    public static final String JOURNAL_FILE = "journal";
+    
+    /** Rotated journal file name. */
+    public static final String ROTATED_JOURNAL_FILE = "journal.old";
+    
+    /** Snapshot file name. */
+    public static final String SNAPSHOT_FILE = "snapshot";
+    
+    /** Temporary snapshot file name. */
+    private static final String TEMPORARY_SNAPSHOT_FILE = "snapshot.tmp";
+    
+    /** Frame header size (length and checksum). */
+    private static final int FRAME_HEADER_SIZE = 8;
+    
+    /** Maximum frame size (= bytes). */
+    private static final int MAX_FRAME_SIZE = 256 * 1024 * 1024;
+    
+    /** Journal directory. */
+    private File directory_;
+    
+    /** Journal output. */
+    private DataOutputStream output_;
+    
+    /** Journal file output (used to force the records to disk). */
+    private FileOutputStream fileOutput_;
+    
+    /** true if every record is forced to disk, false for group commit. */
+    private boolean isSyncOnAppend_;
+    
+    /** Signals records which are not forced to disk yet. */
+    private boolean isDirty_;
+    
+    /** Sequence number of the last record. */
+    private long sequenceNumber_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param directory       The journal directory
+     * @param isSyncOnAppend  true to force every record to disk, false to force them on {@link #sync()}
+     * @throws IOException 
+     */
+    public RepositoryJournal(File directory, boolean isSyncOnAppend) 
+        throws IOException
+    {
+        Guard.check(directory);
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException(String.format("Unable to create journal directory %s", directory));
+        }
+        
+        directory_ = directory;
+        isSyncOnAppend_ = isSyncOnAppend;
+    }
+    
+    /**
+     * Reads the snapshot.
+     * 
+     * @return  The snapshot, null if none or unreadable
+     */
+    public RepositorySnapshot readSnapshot()
+    {
+        File file = new File(directory_, SNAPSHOT_FILE);
+        if (!file.exists())
+        {
+            log_.debug("No repository snapshot available");
+            return null;
+        }
+        
+        DataInputStream input = null;
+        try
+        {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            byte[] payload = readFrame(input);
+            if (payload == null)
+            {
+                log_.error("Repository snapshot is corrupt!");
+                return null;
+            }
+            
+            return (RepositorySnapshot) SerializationUtils.deserializeObject(payload);
+        }
+        catch (Exception exception)
+        {
+            log_.error("Unable to read the repository snapshot", exception);
+            return null;
+        }
+        finally
+        {
+            IOUtils.closeQuietly(input);
+        }
+    }
+    
+    /**
+     * Reads the journal records following a sequence number.
+     * 
+     * @param sequenceNumber    The sequence number of the last applied record
+     * @return                  The records in order
+     * @throws IOException 
+     */
+    public List<JournalRecord> readRecords(long sequenceNumber)
+        throws IOException
+    {
+        List<JournalRecord> records = new ArrayList<JournalRecord>();
+        readRecords(new File(directory_, ROTATED_JOURNAL_FILE), sequenceNumber, records);
+        readRecords(new File(directory_, JOURNAL_FILE), sequenceNumber, records);
+        return records;
+    }
+    
+    /**
+     * Opens the journal for appending.
+     * 
+     * @param sequenceNumber    The sequence number of the last record
+     * @throws IOException 
+     */
+    public void open(long sequenceNumber)
+        throws IOException
+    {
+        sequenceNumber_ = sequenceNumber;
+        openOutput(new File(directory_, JOURNAL_FILE));
+    }
+    
+    /**
+     * Appends a record.
+     * 
+     * @param record    The record
+     * @return          The assigned sequence number
+     * @throws IOException 
+     */
+    public long append(JournalRecord record)
+        throws IOException
+    {
+        Guard.check(record);
+        if (output_ == null)
+        {
+            throw new IOException("Journal is not open!");
+        }
+        
+        record.setSequenceNumber(sequenceNumber_ + 1);
+        writeFrame(output_, SerializationUtils.serializeObject(record));
+        output_.flush();
+        isDirty_ = true;
+        if (isSyncOnAppend_)
+        {
+            sync();
+        }
+        
+        sequenceNumber_++;
+        return sequenceNumber_;
+    }
+    
+    /**
+     * Forces the appended records to disk.
+     * 
+     * @throws IOException 
+     */
+    public void sync()
+        throws IOException
+    {
+        if (output_ == null || !isDirty_)
+        {
+            return;
+        }
+        
+        output_.flush();
+        fileOutput_.getFD().sync();
+        isDirty_ = false;
+    }
+    
+    /**
+     * Returns the sequence number of the last record.
+     * 
+     * @return  The sequence number
+     */
+    public long getSequenceNumber()
+    {
+        return sequenceNumber_;
+    }
+    
+    /**
+     * Rotates the journal, records appended so far move to the rotated journal.
+     * 
+     * @throws IOException 
+     */
+    public void rotate()
+        throws IOException
+    {
+        closeOutput();
+        
+        File journal = new File(directory_, JOURNAL_FILE);
+        File rotated = new File(directory_, ROTATED_JOURNAL_FILE);
+        if (rotated.exists())
+        {
+            // The last snapshot was not written, keep its records
+            appendFile(journal, rotated);
+            if (journal.exists() && !journal.delete())
+            {
+                throw new IOException("Unable to delete the journal!");
+            }
+        } 
+        else if (journal.exists() && !journal.renameTo(rotated))
+        {
+            throw new IOException("Unable to rotate the journal!");
+        }
+        
+        openOutput(journal);
+    }
+    
+    /**
+     * Writes a snapshot and drops the rotated journal.
+     * 
+     * @param snapshot      The snapshot
+     * @throws IOException 
+     */
+    public void writeSnapshot(RepositorySnapshot snapshot)
+        throws IOException
+    {
+        Guard.check(snapshot);
+        File temporary = new File(directory_, TEMPORARY_SNAPSHOT_FILE);
+        FileOutputStream fileOutput = new FileOutputStream(temporary);
+        try
+        {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput));
+            writeFrame(output, SerializationUtils.serializeObject(snapshot));
+            output.flush();
+            fileOutput.getFD().sync();
+        }
+        finally
+        {
+            IOUtils.closeQuietly(fileOutput);
+        }
+        
+        File file = new File(directory_, SNAPSHOT_FILE);
+        if (!temporary.renameTo(file))
+        {
+            if (!file.delete() || !temporary.renameTo(file))
+            {
+                throw new IOException("Unable to replace the repository snapshot!");
+            }
+        }
+        
+        File rotated = new File(directory_, ROTATED_JOURNAL_FILE);
+        if (rotated.exists() && !rotated.delete())
+        {
+            log_.error("Unable to delete the rotated journal!");
+        }
+        
+        log_.debug(String.format("Repository snapshot written up to record %d", snapshot.getSequenceNumber()));
+    }
+    
+    /**
+     * Closes the journal.
+     */
+    public void close()
+    {
+        closeOutput();
+    }
+    
+    /**
+     * Opens the journal file for appending.
+     * 
+     * @param file      The file
+     * @throws IOException 
+     */
+    private void openOutput(File file)
+        throws IOException
+    {
+        fileOutput_ = new FileOutputStream(file, true);
+        output_ = new DataOutputStream(new BufferedOutputStream(fileOutput_));
+        isDirty_ = false;
+    }
+    
+    /**
+     * Forces the pending records to disk and closes the journal file.
+     */
+    private void closeOutput()
+    {
+        try
+        {
+            sync();
+        }
+        catch (IOException exception)
+        {
+            log_.error("Unable to sync the journal", exception);
+        }
+        
+        IOUtils.closeQuietly(output_);
+        output_ = null;
+        fileOutput_ = null;
+    }
+    
+    /**
+     * Reads the valid records of a journal file and cuts off a torn or corrupt tail.
+     * 
+     * @param file              The journal file
+     * @param sequenceNumber    The sequence number of the last applied record
+     * @param records           The records
+     * @throws IOException      Also if a record with a valid checksum can not be deserialized
+     */
+    private static void readRecords(File file, long sequenceNumber, List<JournalRecord> records)
+        throws IOException
+    {
+        if (!file.exists())
+        {
+            return;
+        }
+        
+        long validLength = 0;
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try
+        {
+            byte[] payload;
+            while ((payload = readFrame(input)) != null)
+            {
+                JournalRecord record = (JournalRecord) SerializationUtils.deserializeObject(payload);
+                validLength += FRAME_HEADER_SIZE + payload.length;
+                if (record.getSequenceNumber() > sequenceNumber)
+                {
+                    records.add(record);
+                }
+            }
+        }
+        catch (ClassNotFoundException exception)
+        {
+            throw newUnknownRecordException(file, validLength, exception);
+        }
+        catch (ClassCastException exception)
+        {
+            throw newUnknownRecordException(file, validLength, exception);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(input);
+        }
+        
+        if (validLength < file.length())
+        {
+            log_.error(String.format("Cutting off %d corrupt bytes of journal %s", 
+                                     file.length() - validLength, file));
+            RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+            try
+            {
+                truncated.setLength(validLength);
+            }
+            finally
+            {
+                truncated.close();
+            }
+        }
+    }
+    
+    /**
+     * Creates the exception refusing the recovery of a journal with an unknown record.
+     * 
+     * @param file          The journal file
+     * @param position      The record position
+     * @param cause         The deserialization failure
+     * @return              The exception
+     */
+    private static IOException newUnknownRecordException(File file, long position, Exception cause)
+    {
+        IOException exception = 
+            new IOException(String.format("Unknown record at offset %d of journal %s, refusing recovery", 
+                                          position, file));
+        exception.initCause(cause);
+        return exception;
+    }
+    
+    /**
+     * Reads a frame.
+     * 
+     * @param input     The input
+     * @return          The payload, null at the end or on a torn or corrupt frame
+     * @throws IOException 
+     */
+    private static byte[] readFrame(DataInputStream input)
+        throws IOException
+    {
+        try
+        {
+            int length = input.readInt();
+            int checksum = input.readInt();
+            if (length <= 0 || length > MAX_FRAME_SIZE)
+            {
+                return null;
+            }
+            
+            byte[] payload = new byte[length];
+            input.readFully(payload);
+            if (computeChecksum(payload) != checksum)
+            {
+                return null;
+            }
+            
+            return payload;
+        }
+        catch (EOFException exception)
+        {
+            return null;
+        }
+    }
+    
+    /**
+     * Writes a frame.
+     * 
+     * @param output    The output
+     * @param payload   The payload
+     * @throws IOException 
+     */
+    private static void writeFrame(DataOutputStream output, byte[] payload)
+        throws IOException
+    {
+        output.writeInt(payload.length);
+        output.writeInt(computeChecksum(payload));
+        output.write(payload);
+    }
+    
+    /**
+     * Computes the payload checksum.
+     * 
+     * @param payload   The payload
+     * @return          The checksum
+     */
+    private static int computeChecksum(byte[] payload)
+    {
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        return (int) checksum.getValue();
+    }
+    
+    /**
+     * Appends the content of a file to another one.
+     * 
+     * @param source        The source file
+     * @param destination   The destination file
+     * @throws IOException 
+     */
+    private static void appendFile(File source, File destination)
+        throws IOException
+    {
+        if (!source.exists())
+        {
+            return;
+        }
+        
+        InputStream input = new FileInputStream(source);
+        OutputStream output = null;
+        try
+        {
+            output = new FileOutputStream(destination, true);
+            IOUtils.copy(input, output);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(input);
+            IOUtils.closeQuietly(output);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.journal;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+
+/**
+ * Compacted repository state.
+ * 
+ * @author Eugen Feller
+ */
+public final class RepositorySnapshot 
+    implements Serializable
+{
+    /** Serial version. */
+    private static final long serialVersionUID = 1L;
+    
+    /** Sequence number of the last record included. */
+    private long sequenceNumber_;
+    
+    /** Local controllers including monitoring history. */
+    private ArrayList<LocalControllerDescription> localControllers_;
+    
+    /** Legacy IP addresses. */
+    private ArrayList<String> legacyIpAddresses_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param sequenceNumber        The sequence number of the last record included
+     * @param localControllers      The local controllers
+     * @param legacyIpAddresses     The legacy IP addresses
+     */
+    public RepositorySnapshot(long sequenceNumber, 
+                              List<LocalControllerDescription> localControllers,
+                              List<String> legacyIpAddresses)
+    {
+        sequenceNumber_ = sequenceNumber;
+        localControllers_ = new ArrayList<LocalControllerDescription>(localControllers);
+        legacyIpAddresses_ = new ArrayList<String>(legacyIpAddresses);
+    }
+    
+    /**
+     * Returns the sequence number of the last record included.
+     * 
+     * @return  The sequence number
+     */
+    public long getSequenceNumber()
+    {
+        return sequenceNumber_;
+    }
+    
+    /**
+     * Returns the local controllers.
+     * 
+     * @return  The local controllers
+     */
+    public List<LocalControllerDescription> getLocalControllers()
+    {
+        return localControllers_;
+    }
+    
+    /**
+     * Returns the legacy IP addresses.
+     * 
+     * @return  The legacy IP addresses
+     */
+    public List<String> getLegacyIpAddresses()
+    {
+        return legacyIpAddresses_;
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.database.listener;
+
+/**
+ * Local controller change listener.
+ * 
+ * Notified by the group manager repository whenever the state of a local controller changes.
+ * Callbacks are invoked with repository locks held and must not call back into the repository.
+ * 
+ * @author Eugen Feller
+ */
+public interface LocalControllerChangeListener 
+{
+    /**
+     * Called when a local controller was added, removed or its description changed.
+     * 
+     * Virtual machine changes (added, removed, status or location updates) are reported
+     * as a change of the local controller hosting them.
+     * 
+     * @param localControllerId     The identifier of the changed local controller
+     */
+    void onLocalControllerChanged(String localControllerId);
+    
+    /**
+     * Called when monitoring data of the virtual machines hosted by a local controller was added.
+     * 
+     * @param localControllerId     The identifier of the local controller hosting the virtual machines
+     */
+    void onMonitoringDataAdded(String localControllerId);
+    
+    /**
+     * Called when the repository was cleaned.
+     * 
+     * All previously reported local controllers must be considered removed.
+     */
+    void onRepositoryCleaned();
+}
@@ -19,39 +19,71 @@
  */
 package org.inria.myriads.snoozenode.executor;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.TimeUtils;
-import org.inria.myriads.snoozenode.executor.listener.ExecutorListener;
-import org.inria.myriads.snoozenode.executor.thread.ExecutorThread;
+import org.inria.myriads.snoozenode.executor.thread.ProcessTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Shell command executer.
  * 
+ * Commands run concurrently and complete as soon as they exit. Commands 
+ * which are still running once the timeout expires are destroyed.
+ * 
  * @author Eugen Feller
  */
 public final class ShellCommandExecuter 
-    implements ExecutorListener
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(ShellCommandExecuter.class);
     
-    /** Timeout value. */
-    private int timeout_;
+    /** Timeout value (= ms). */
+    private long timeout_;
 
-    /** The result. */
-    private boolean result_;
+    /** Runs the commands and reads their output. */
+    private ExecutorService executor_;
+    
+    /** Destroys timed out commands. */
+    private ScheduledExecutorService watchdog_;
     
     /**
-     * Shell command executir.
+     * Shell command executor.
      * 
-     * @param timeout   The timeout
+     * @param timeout   The timeout (= s)
      */
     public ShellCommandExecuter(int timeout)
     {
         Guard.check(timeout);
-        timeout_ = timeout;
+        timeout_ = TimeUtils.convertSecondsToMilliseconds(timeout);
+        executor_ = Executors.newCachedThreadPool(newDaemonThreadFactory("ShellCommandExecuter"));
+        watchdog_ = Executors.newSingleThreadScheduledExecutor(newDaemonThreadFactory("ShellCommandWatchdog"));
+    }
+    
+    /**
+     * Creates a daemon thread factory.
+     * 
+     * @param name      The thread name
+     * @return          The thread factory
+     */
+    private static ThreadFactory newDaemonThreadFactory(final String name)
+    {
+        return new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
     }
     
     /**
@@ -60,34 +92,49 @@ public final class ShellCommandExecuter
      * @param command   The command to execute
      * @return          true if everything ok, false otherwise
      */
-    public synchronized boolean execute(String command)
+    public boolean execute(String command)
     {
-        ExecutorThread executor = new ExecutorThread(command, this);
-        Thread executorThread = new Thread(executor);
-        executorThread.start();
-        
+        ProcessResult result = run(command);
+        log_.debug(String.format("Command finished with response: %s!", result.isSuccessful()));
+        return result.isSuccessful();
+    }
+    
+    /**
+     * Executes a shell command and waits for it to exit or time out.
+     * 
+     * @param command   The command to execute
+     * @return          The process result
+     */
+    public ProcessResult run(String command)
+    {
+        Future<ProcessResult> result = submit(command);
         try 
         {
-            Thread.sleep(TimeUtils.convertSecondsToMilliseconds(timeout_));
-            executorThread.interrupt();
+            return result.get();
         }
         catch (InterruptedException exception) 
         {
             log_.debug(String.format("Shell command executor was interrupted: %s", exception.getMessage()));
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException exception)
+        {
+            log_.error(String.format("Shell command execution failed: %s", exception.getMessage()));
         }
         
-        log_.debug(String.format("Command finished with response: %s!", result_));
-        return result_;
+        return new ProcessResult(ProcessResult.NO_EXIT_CODE, "", "", false);
     }
-
+    
     /**
-     * Called upon command execution.
+     * Starts a shell command asynchronously.
      * 
-     * @param result    The result
+     * @param command   The command to execute
+     * @return          The future process result
      */
-    @Override
-    public void onCommandExecuted(boolean result) 
+    public Future<ProcessResult> submit(String command)
     {
-        result_ = result;
+        Guard.check(command);
+        return executor_.submit(new ProcessTask(command, timeout_, executor_, watchdog_));
     }
 }
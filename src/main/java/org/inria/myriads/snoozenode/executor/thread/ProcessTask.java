@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.executor.thread;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.executor.ProcessResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a shell command until it exits or its timeout expires.
+ * 
+ * @author Eugen Feller
+ */
+public final class ProcessTask 
+    implements Callable<ProcessResult>
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(ProcessTask.class);
+    
+    /** Time to wait for the output once the process is gone (= ms). */
+    private static final long OUTPUT_GRACE_PERIOD = 1000;
+    
+    /** Command. */
+    private String command_;
+    
+    /** Timeout (= ms). */
+    private long timeout_;
+    
+    /** Stream reader pool. */
+    private ExecutorService readers_;
+    
+    /** Timeout watchdog. */
+    private ScheduledExecutorService watchdog_;
+    
+    /** Timeout flag. */
+    private volatile boolean isTimedOut_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param command   The command
+     * @param timeout   The timeout (= ms)
+     * @param readers   The stream reader pool
+     * @param watchdog  The timeout watchdog
+     */
+    public ProcessTask(String command, long timeout, ExecutorService readers, ScheduledExecutorService watchdog)
+    {
+        Guard.check(command, readers, watchdog);
+        command_ = command;
+        timeout_ = timeout;
+        readers_ = readers;
+        watchdog_ = watchdog;
+    }
+
+    /**
+     * Runs the command.
+     * 
+     * @return  The process result
+     */
+    @Override
+    public ProcessResult call() 
+    {
+        log_.debug(String.format("Executing command on shell: %s", command_));
+        
+        final Process process;
+        try 
+        {
+            process = Runtime.getRuntime().exec(command_);
+        }
+        catch (IOException exception) 
+        {
+            log_.error(String.format("Failed to execute the shell command: %s", exception.getMessage()));
+            return new ProcessResult(ProcessResult.NO_EXIT_CODE, "", exception.getMessage(), false);
+        }
+        
+        IOUtils.closeQuietly(process.getOutputStream());
+        Future<String> output = readers_.submit(new StreamReader(process.getInputStream()));
+        Future<String> error = readers_.submit(new StreamReader(process.getErrorStream()));
+        ScheduledFuture<?> timeout = watchdog_.schedule(new Runnable()
+        {
+            public void run()
+            {
+                log_.debug(String.format("Command %s timed out, destroying it", command_));
+                isTimedOut_ = true;
+                process.destroy();
+            }
+        }, timeout_, TimeUnit.MILLISECONDS);
+        
+        int exitCode = ProcessResult.NO_EXIT_CODE;
+        try
+        {
+            exitCode = process.waitFor();
+        }
+        catch (InterruptedException exception)
+        {
+            log_.debug("Interrupted while waiting for process to finish");
+            process.destroy();
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            timeout.cancel(false);
+        }
+        
+        ProcessResult result = new ProcessResult(exitCode, 
+                                                 getOutput(output, process.getInputStream()),
+                                                 getOutput(error, process.getErrorStream()),
+                                                 isTimedOut_);
+        log_.debug(String.format("Command %s finished with %s", command_, result));
+        return result;
+    }
+    
+    /**
+     * Returns the output read from a process stream.
+     * 
+     * Descendants of the process may keep the stream open, in which case
+     * the output is dropped after a grace period.
+     * 
+     * @param reader    The stream reader
+     * @param stream    The stream
+     * @return          The output
+     */
+    private String getOutput(Future<String> reader, InputStream stream)
+    {
+        try
+        {
+            return reader.get(OUTPUT_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException exception)
+        {
+            log_.debug(String.format("Failed to read the command output: %s", exception.getMessage()));
+        }
+        catch (TimeoutException exception)
+        {
+            log_.debug("Command output is still open, dropping it");
+        }
+        
+        IOUtils.closeQuietly(stream);
+        reader.cancel(true);
+        return "";
+    }
+    
+    /**
+     * Reads a stream until its end.
+     */
+    private static final class StreamReader 
+        implements Callable<String>
+    {
+        /** The stream. */
+        private InputStream stream_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param stream    The stream
+         */
+        private StreamReader(InputStream stream)
+        {
+            stream_ = stream;
+        }
+        
+        /**
+         * Reads the stream.
+         * 
+         * @return              The content
+         * @throws IOException  The I/O exception
+         */
+        @Override
+        public String call() 
+            throws IOException
+        {
+            try
+            {
+                return IOUtils.toString(stream_);
+            }
+            finally
+            {
+                IOUtils.closeQuietly(stream_);
+            }
+        }
+    }
+}
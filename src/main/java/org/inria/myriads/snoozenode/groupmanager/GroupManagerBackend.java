@@ -38,6 +38,7 @@ import org.inria.myriads.snoozenode.heartbeat.HeartbeatFactory;
 import org.inria.myriads.snoozenode.heartbeat.listener.HeartbeatListener;
 import org.inria.myriads.snoozenode.heartbeat.message.HeartbeatMessage;
 import org.inria.myriads.snoozenode.heartbeat.receiver.HeartbeatMulticastReceiver;
+import org.inria.myriads.snoozenode.main.NodeBackend;
 import org.inria.myriads.snoozenode.util.ManagementUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,7 +49,7 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class GroupManagerBackend 
-    implements LeaderElectionListener, HeartbeatListener
+    implements LeaderElectionListener, HeartbeatListener, NodeBackend
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(GroupManagerBackend.class);
@@ -74,6 +75,9 @@ public final class GroupManagerBackend
     /** Indicates successfull assignement. */
     private boolean isAssigned_;
     
+    /** The leader election. */
+    private LeaderElection leaderElection_;
+    
     /**
      * Constructor.
      * 
@@ -128,10 +132,40 @@ public final class GroupManagerBackend
         throws Exception 
     {
         ZooKeeperSettings settings = nodeConfiguration_.getFaultTolerance().getZooKeeper();
-        LeaderElection leaderElection = LeaderElectionFactory.newLeaderElection(settings, 
-                                                                                groupManagerDescription_,
-                                                                                this);
-        leaderElection.start();
+        leaderElection_ = LeaderElectionFactory.newLeaderElection(settings, groupManagerDescription_, this);
+        leaderElection_.start();
+    }
+    
+    /**
+     * Stops the leader election and the group manager or group leader services.
+     */
+    @Override
+    public void stopServices()
+    {
+        log_.debug("Stopping the group manager backend");
+        leaderElection_.stop();
+        
+        if (heartbeatListener_ != null)
+        {
+            heartbeatListener_.terminate();
+        }
+        
+        if (groupLeaderInit_ != null)
+        {
+            groupLeaderInit_.stopServices();
+        }
+        
+        if (groupManagerInit_ != null)
+        {
+            try
+            {
+                groupManagerInit_.stopServices();
+            }
+            catch (Exception exception)
+            {
+                log_.error("Exception while stopping the group manager services", exception);
+            }
+        }
     }
     
     /**
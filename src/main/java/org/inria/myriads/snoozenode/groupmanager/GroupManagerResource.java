@@ -40,6 +40,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.Vi
 import org.inria.myriads.snoozecommon.communication.virtualmachine.ClientMigrationRequest;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.groupmanager.init.GroupLeaderInit;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.VirtualMachineCommand;
 import org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery.VirtualMachineDiscovery;
 import org.restlet.resource.ServerResource;
@@ -252,6 +253,13 @@ public final class GroupManagerResource extends ServerResource
         boolean isAdded = backend_.getGroupManagerInit()
                                   .getRepository()
                                   .addLocalControllerDescription(localController);
+        if (isAdded)
+        {
+            backend_.getGroupManagerInit()
+                    .getStateMachine()
+                    .onLocalControllerJoined(localController.getId());
+        }
+        
         return isAdded;
     }
     
@@ -650,9 +658,11 @@ public final class GroupManagerResource extends ServerResource
             return null;
         }
  
-        VirtualClusterSubmissionResponse respomse = backend_.getGroupLeaderInit()
-                                                            .getVirtualClusterManager()
-                                                            .getVirtualClusterResponse(taskIdentifier);
+        GroupLeaderInit groupLeader = backend_.getGroupLeaderInit();
+        int responseTimeout = groupLeader.getNodeConfiguration().getSubmission().getResponseTimeout();
+        VirtualClusterSubmissionResponse respomse = groupLeader.getVirtualClusterManager()
+                                                               .getVirtualClusterResponse(taskIdentifier, 
+                                                                                          responseTimeout);
         log_.debug(String.format("Returning virtual cluster response: %s", respomse));
         return respomse;
     }
@@ -21,8 +21,10 @@ package org.inria.myriads.snoozenode.groupmanager.anomaly;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
@@ -37,7 +39,9 @@ import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.VirtualMachineRelocation;
 import org.inria.myriads.snoozenode.groupmanager.migration.MigrationPlanEnforcer;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationPlanListener;
+import org.inria.myriads.snoozenode.groupmanager.migration.scheduler.MigrationScheduler;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.reservation.Reservation;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,7 +52,6 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class AnomalyResolver 
-    implements MigrationPlanListener
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(AnomalyResolver.class);
@@ -65,15 +68,15 @@ public final class AnomalyResolver
     /** The group manager repository. */
     private GroupManagerRepository groupManagerRepository_;
 
-    /** Anomaly local controller. */
-    private LocalControllerDescription anomalyLocalController_;
-    
     /** State machine. */
     private StateMachine stateMachine_;
     
     /** Number of monitoring entries. */
     private int numberOfMonitoringEntries_;
     
+    /** Migration scheduler. */
+    private MigrationScheduler migrationScheduler_;
+    
     /**
      * Constructor.
      * 
@@ -81,13 +84,16 @@ public final class AnomalyResolver
      * @param resourceDemandEstimator    The resource demand estimator
      * @param groupManagerRepository     The group manager repository
      * @param stateMachine               The state machine
+     * @param migrationScheduler         The migration scheduler
      */
     public AnomalyResolver(RelocationSettings relocationPolicies,
                            ResourceDemandEstimator resourceDemandEstimator,
                            GroupManagerRepository groupManagerRepository,
-                           StateMachine stateMachine)
+                           StateMachine stateMachine,
+                           MigrationScheduler migrationScheduler)
     {
-        Guard.check(relocationPolicies, resourceDemandEstimator, groupManagerRepository, stateMachine);
+        Guard.check(relocationPolicies, resourceDemandEstimator, groupManagerRepository, stateMachine, 
+                    migrationScheduler);
         log_.debug("Initializing the anomaly resolver");
         
         overloadRelocationPolicy_ = 
@@ -103,6 +109,7 @@ public final class AnomalyResolver
         numberOfMonitoringEntries_ = resourceDemandEstimator.getNumberOfMonitoringEntries();
         groupManagerRepository_ = groupManagerRepository;
         stateMachine_ = stateMachine;
+        migrationScheduler_ = migrationScheduler;
     }
     /**
      * Computes the relocation plan.
@@ -149,10 +156,12 @@ public final class AnomalyResolver
     /**
      * Returns the destination local controller descriptions.
      * 
-     * @param state     The lcoal controller state
-     * @return          The local controller descriptions
+     * @param state         The lcoal controller state
+     * @param reservation   The reservation
+     * @return              The local controller descriptions (not reserved by other operations)
      */
-    private List<LocalControllerDescription> getDestinationLocalControllers(LocalControllerState state)
+    private List<LocalControllerDescription> getDestinationLocalControllers(LocalControllerState state,
+                                                                            Reservation reservation)
     {
         log_.debug(String.format("Returning %s local controllers", state));
         
@@ -161,25 +170,58 @@ public final class AnomalyResolver
         {
             log_.debug("Getting all local controllers (including PASSIVE)");
             destination = groupManagerRepository_.getLocalControllerDescriptions(numberOfMonitoringEntries_, false);    
-            return destination;
+        }
+        else
+        {
+            log_.debug("Getting all local controllers (excluding PASSIVE)");
+            destination = groupManagerRepository_.getLocalControllerDescriptions(numberOfMonitoringEntries_, true);
+        }
+        
+        if (destination == null)
+        {
+            return null;
+        }
+        
+        return reservation.filterAvailable(destination);
+    }
+    
+    /**
+     * Reserves the local controllers and virtual machines of a migration plan.
+     * 
+     * @param migrationPlan     The migration plan
+     * @param reservation       The reservation
+     * @return                  true if everything ok, false otherwise
+     */
+    private boolean reserveMigrationPlan(ReconfigurationPlan migrationPlan, Reservation reservation)
+    {
+        Set<String> localControllerIds = new HashSet<String>();
+        Set<String> virtualMachineIds = new HashSet<String>();
+        for (Map.Entry<VirtualMachineMetaData, LocalControllerDescription> entry : 
+             migrationPlan.getMapping().entrySet())
+        {
+            virtualMachineIds.add(entry.getKey().getVirtualMachineLocation().getVirtualMachineId());
+            localControllerIds.add(entry.getValue().getId());
         }
         
-        log_.debug("Getting all local controllers (excluding PASSIVE)");
-        destination = groupManagerRepository_.getLocalControllerDescriptions(numberOfMonitoringEntries_, true);       
-        return destination;
+        return reservation.extend(localControllerIds, virtualMachineIds);
     }
        
     /**
      * Called to resolve anomaly.
      * 
+     * The reservation is released once the migration plan has been enforced.
+     * 
      * @param localControllerId     The anomaly local controller identifier
      * @param state                 The local controller state
+     * @param reservation           The reservation (holding the anomaly local controller)
      * @throws Exception            The exception
      */
-    public synchronized void resolveAnomaly(String localControllerId, LocalControllerState state)
+    public synchronized void resolveAnomaly(String localControllerId, 
+                                            LocalControllerState state, 
+                                            Reservation reservation)
         throws Exception
     {
-        Guard.check(localControllerId, state);
+        Guard.check(localControllerId, state, reservation);
         log_.debug("Starting anomaly resolution");
                
         LocalControllerDescription anomalyLocalController = 
@@ -189,7 +231,7 @@ public final class AnomalyResolver
             throw new AnomalyResolverException("Local controller description is not available!");
         }
                
-        List<LocalControllerDescription> destinationControllers = getDestinationLocalControllers(state);
+        List<LocalControllerDescription> destinationControllers = getDestinationLocalControllers(state, reservation);
         if (destinationControllers == null)
         {
             throw new AnomalyResolverException("Destination local controller descriptions are not available!");
@@ -207,33 +249,75 @@ public final class AnomalyResolver
             log_.debug(String.format("%s relocation started!", state));
         }
         
+        if (!reserveMigrationPlan(migrationPlan, reservation))
+        {
+            throw new AnomalyResolverException("Migration plan resources are reserved by another operation!");
+        }
+        
         List<LocalControllerDescription> passiveLocalControllers = getPassiveLocalControllers(migrationPlan);
         if (passiveLocalControllers.size() > 0)
         {
             log_.debug("Migration plan has PASSIVE local controllers!");
-            boolean isWokenUp = stateMachine_.onWakeupLocalControllers(passiveLocalControllers);
-            if (!isWokenUp)
+            List<String> wokenUpLocalControllers = 
+                stateMachine_.onWakeupLocalControllers(passiveLocalControllers, passiveLocalControllers.size());
+            if (wokenUpLocalControllers.size() < passiveLocalControllers.size())
             {
                 throw new AnomalyResolverException("Failed to wakeup local controllers!");
             }
         }
         
+        LocalControllerDescription idleLocalController = null;
         if (state.equals(LocalControllerState.UNDERLOADED))
         {
-            anomalyLocalController_ = anomalyLocalController;
+            idleLocalController = anomalyLocalController;
         }
         
-        MigrationPlanEnforcer migrationPlanExecutor = new MigrationPlanEnforcer(groupManagerRepository_, this);
+        AnomalyListener listener = new AnomalyListener(idleLocalController, reservation);
+        MigrationPlanEnforcer migrationPlanExecutor = new MigrationPlanEnforcer(groupManagerRepository_, 
+                                                                                listener, 
+                                                                                migrationScheduler_);
         migrationPlanExecutor.enforceMigrationPlan(migrationPlan);
     }
     
     /**
-     * Called when migration plan was enforced.
+     * Migration plan listener of a single anomaly resolution.
      */
-    public void onMigrationPlanEnforced()
+    private final class AnomalyListener 
+        implements MigrationPlanListener
     {
-        log_.debug("Entering on migration plan enforced!");
-        stateMachine_.onAnomalyResolved(anomalyLocalController_);
+        /** Local controller to power cycle (underload only). */
+        private LocalControllerDescription idleLocalController_;
+        
+        /** Reservation. */
+        private Reservation reservation_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param idleLocalController   The local controller to power cycle (or null)
+         * @param reservation           The reservation
+         */
+        private AnomalyListener(LocalControllerDescription idleLocalController, Reservation reservation)
+        {
+            idleLocalController_ = idleLocalController;
+            reservation_ = reservation;
+        }
+        
+        /**
+         * Called when migration plan was enforced.
+         */
+        public void onMigrationPlanEnforced()
+        {
+            log_.debug("Entering on migration plan enforced!");
+            try
+            {
+                stateMachine_.onAnomalyResolved(idleLocalController_);
+            }
+            finally
+            {
+                reservation_.release();
+            }
+        }
     }
     
     /**
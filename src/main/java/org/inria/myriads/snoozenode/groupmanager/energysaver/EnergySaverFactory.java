@@ -22,7 +22,7 @@ package org.inria.myriads.snoozenode.groupmanager.energysaver;
 import org.inria.myriads.snoozenode.configurator.energymanagement.EnergyManagementSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.energysaver.saver.EnergySaver;
-import org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup.WakeupResources;
+import org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup.WakeupOrchestrator;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
 
 /**
@@ -54,17 +54,17 @@ public final class EnergySaverFactory
     }
     
     /**
-     * Creates a new resource wakeuper.
+     * Creates a new wakeup orchestrator.
      * 
-     * @param wakeupTimeout             The wakeup timeout
+     * @param wakeupTimeout             The per local controller wakeup timeout
      * @param commandExecutionTimeout   The command execution timeout
-     * @param repository                The grpip manager repository
-     * @return                          The wakeup resource
+     * @param repository                The group manager repository
+     * @return                          The wakeup orchestrator
      */
-    public static WakeupResources newWakeupResource(int wakeupTimeout,
-                                                    int commandExecutionTimeout,
-                                                    GroupManagerRepository repository)
+    public static WakeupOrchestrator newWakeupOrchestrator(int wakeupTimeout,
+                                                           int commandExecutionTimeout,
+                                                           GroupManagerRepository repository)
     {
-        return new WakeupResources(wakeupTimeout, commandExecutionTimeout, repository);
+        return new WakeupOrchestrator(wakeupTimeout, commandExecutionTimeout, repository);
     }
 }
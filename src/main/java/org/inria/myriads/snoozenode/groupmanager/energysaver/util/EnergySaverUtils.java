@@ -19,16 +19,18 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.energysaver.util;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
 import org.inria.myriads.snoozecommon.communication.rest.api.LocalControllerAPI;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.CommunicatorCall;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.configurator.energymanagement.enums.PowerSavingAction;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.slf4j.Logger;
@@ -61,20 +63,20 @@ public final class EnergySaverUtils
         Guard.check(groupManagers);
         log_.debug("Freezing the energy savers on all grop managers");
         
-        for (GroupManagerDescription groupManager : groupManagers)
-        {
-            log_.debug(String.format("Sending energy saver suspend request to group manager: %s", 
-                                     groupManager.getId()));
-            
-            NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
-            GroupManagerAPI groupManagerCommunicator = CommunicatorFactory.newGroupManagerCommunicator(address);
-            boolean isSuspended = groupManagerCommunicator.suspendEnergySaver();
-            if (!isSuspended)
+        List<Boolean> results = NodeCommunicatorFactory.getAsyncGroupManagerCommunicator()
+            .invokeAll(getControlDataAddresses(groupManagers), new CommunicatorCall<GroupManagerAPI, Boolean>()
             {
-                log_.debug("Error suspending the energy saver");
-                return false;
-            }         
-        }        
+                public Boolean call(GroupManagerAPI communicator)
+                {
+                    return communicator.suspendEnergySaver();
+                }
+            });
+        
+        if (results.contains(null) || results.contains(false))
+        {
+            log_.debug("Error suspending the energy saver");
+            return false;
+        }
         
         return true;
     }
@@ -90,39 +92,86 @@ public final class EnergySaverUtils
         Guard.check(groupMaangers);
         log_.debug("Unfreezing energy savers");
         
-        for (GroupManagerDescription groupManager : groupMaangers)
-        {
-            log_.debug(String.format("Sending energy saver resume request to group manager: %s", 
-                                     groupManager.getId()));
-            
-            NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
-            GroupManagerAPI groupManagerCommunicator = CommunicatorFactory.newGroupManagerCommunicator(address);
-            boolean isResumed = groupManagerCommunicator.resumeEnergySaver();
-            if (!isResumed)
+        List<Boolean> results = NodeCommunicatorFactory.getAsyncGroupManagerCommunicator()
+            .invokeAll(getControlDataAddresses(groupMaangers), new CommunicatorCall<GroupManagerAPI, Boolean>()
             {
-                log_.debug("Failed to resume the energy saver");
-                return false;
-            }
-        }    
+                public Boolean call(GroupManagerAPI communicator)
+                {
+                    return communicator.resumeEnergySaver();
+                }
+            });
+        
+        if (results.contains(null) || results.contains(false))
+        {
+            log_.debug("Failed to resume the energy saver");
+            return false;
+        }
         
         log_.debug("Energy saver successfully resumed");
         return true;
     }
     
+    /**
+     * Returns the control data addresses of the group managers.
+     * 
+     * @param groupManagers      The group manager descriptions
+     * @return                   The control data addresses
+     */
+    private static List<NetworkAddress> getControlDataAddresses(List<GroupManagerDescription> groupManagers)
+    {
+        List<NetworkAddress> addresses = new ArrayList<NetworkAddress>(groupManagers.size());
+        for (GroupManagerDescription groupManager : groupManagers)
+        {
+            addresses.add(groupManager.getListenSettings().getControlDataAddress());
+        }
+        
+        return addresses;
+    }
+    
     /**
      * Power cycles local controllers.
      * 
+     * The power saving requests are sent to all local controllers concurrently.
+     * 
      * @param localControllers      The list of local controllers
      * @param powerSavingAction     The power saving action
      * @param repository            The group manager repository
      */
     public static void powerCycleLocalControllers(List<LocalControllerDescription> localControllers,
-                                                  PowerSavingAction powerSavingAction,
+                                                  final PowerSavingAction powerSavingAction,
                                                   GroupManagerRepository repository)
     {
+        Guard.check(localControllers, powerSavingAction, repository);
+        
+        List<LocalControllerDescription> passiveLocalControllers = new ArrayList<LocalControllerDescription>();
+        List<NetworkAddress> addresses = new ArrayList<NetworkAddress>();
         for (LocalControllerDescription localController : localControllers)
         {
-            powerCycleLocalController(localController, powerSavingAction, repository);
+            log_.debug(String.format("Starting local controller power cycling: %s", localController));
+            boolean isChanged = repository.changeLocalControllerStatus(localController.getId(),
+                                                                       LocalControllerStatus.PASSIVE);
+            if (!isChanged)
+            {
+                log_.error("Failed to change the local controller status to PASSIVE!");
+                continue;
+            }
+            
+            passiveLocalControllers.add(localController);
+            addresses.add(localController.getControlDataAddress());
+        }
+        
+        List<Boolean> results = NodeCommunicatorFactory.getAsyncLocalControllerCommunicator()
+            .invokeAll(addresses, new CommunicatorCall<LocalControllerAPI, Boolean>()
+            {
+                public Boolean call(LocalControllerAPI communicator)
+                {
+                    return powerCycleLocalController(communicator, powerSavingAction);
+                }
+            });
+        
+        for (int i = 0; i < passiveLocalControllers.size(); i++)
+        {
+            onPowerCycled(passiveLocalControllers.get(i), Boolean.TRUE.equals(results.get(i)), repository);
         }
     }
     
@@ -149,6 +198,21 @@ public final class EnergySaverUtils
         }
         
         boolean isSuccessfull = powerCycleLocalController(localController, powerSavingAction);
+        return onPowerCycled(localController, isSuccessfull, repository);
+    }
+    
+    /**
+     * Restores the local controller status if the power cycling failed.
+     * 
+     * @param localController     The local controller description
+     * @param isSuccessfull       true if the local controller was power cycled
+     * @param repository          The group manager repository
+     * @return                    true if everything ok, false otherwise
+     */
+    private static boolean onPowerCycled(LocalControllerDescription localController,
+                                         boolean isSuccessfull,
+                                         GroupManagerRepository repository)
+    {
         if (isSuccessfull)
         {
             log_.debug("Local controller powered down!");   
@@ -158,8 +222,8 @@ public final class EnergySaverUtils
         log_.error(String.format("Failed to power cycle the local controller: %s :%d",
                                   localController.getControlDataAddress().getAddress(),
                                   localController.getControlDataAddress().getPort()));
-        isChanged = repository.changeLocalControllerStatus(localController.getId(), 
-                                                           LocalControllerStatus.ACTIVE);
+        boolean isChanged = repository.changeLocalControllerStatus(localController.getId(), 
+                                                                   LocalControllerStatus.ACTIVE);
         if (!isChanged)
         {
             log_.error("Failed to change the local controller status back to ACTIVE!");
@@ -187,8 +251,21 @@ public final class EnergySaverUtils
                                  controlDataAddress.getAddress(),
                                  controlDataAddress.getPort()));
         
+        LocalControllerAPI communicator = NodeCommunicatorFactory.newLocalControllerCommunicator(controlDataAddress);
+        return powerCycleLocalController(communicator, powerSavingAction);
+    }
+    
+    /**
+     * Sends the specified power saving action to the local controller.
+     * 
+     * @param communicator          The local controller communicator
+     * @param powerSavingAction     The power saving action
+     * @return                      true if everything ok, false otherwise
+     */
+    private static boolean powerCycleLocalController(LocalControllerAPI communicator,
+                                                     PowerSavingAction powerSavingAction)
+    {
         boolean isSuccessfull = false;
-        LocalControllerAPI communicator = CommunicatorFactory.newLocalControllerCommunicator(controlDataAddress);
         switch (powerSavingAction)
         {
             case shutdown :
@@ -0,0 +1,462 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.localcontroller.wakeup.WakeupSettings;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.TimeUtils;
+import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.executor.ShellCommandExecuter;
+import org.inria.myriads.snoozenode.groupmanager.powermanagement.PowerManagementFactory;
+import org.inria.myriads.snoozenode.groupmanager.powermanagement.api.WakeUp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wakes up passive local controllers and waits for them to come back.
+ * 
+ * Wakeup commands are issued concurrently. A local controller is ready as soon as it
+ * rejoins the group manager or the repository reports it as active again. Every local
+ * controller has its own deadline, so callers are released once enough of them are back.
+ * 
+ * @author Eugen Feller
+ */
+public final class WakeupOrchestrator 
+{
+    /** Logging instance. */
+    private static final Logger log_ = LoggerFactory.getLogger(WakeupOrchestrator.class);
+    
+    /** Repository probe interval (= ms). */
+    private static final long PROBE_INTERVAL = 1000;
+    
+    /** Wakeup states. */
+    private enum WakeupState
+    {
+        /** Waiting for the local controller. */
+        pending,
+        /** Local controller is back. */
+        ready,
+        /** Wakeup command failed. */
+        failed,
+        /** Deadline passed. */
+        expired
+    }
+    
+    /**
+     * Wakeup of a single local controller.
+     */
+    private static final class PendingWakeup
+    {
+        /** Local controller identifier. */
+        private final String localControllerId_;
+        
+        /** Deadline (= ms). */
+        private final long deadline_;
+        
+        /** Wakeup state (guarded by the orchestrator lock). */
+        private WakeupState state_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param localControllerId     The local controller identifier
+         * @param deadline              The deadline
+         */
+        private PendingWakeup(String localControllerId, long deadline)
+        {
+            localControllerId_ = localControllerId;
+            deadline_ = deadline;
+            state_ = WakeupState.pending;
+        }
+    }
+    
+    /**
+     * Wakeup command using the wakeup driver of the local controller.
+     */
+    private static final class DriverWakeupCommand 
+        implements WakeupCommand
+    {
+        /** Shell command executor. */
+        private final ShellCommandExecuter commandExecutor_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param commandExecutor   The shell command executor
+         */
+        private DriverWakeupCommand(ShellCommandExecuter commandExecutor)
+        {
+            commandExecutor_ = commandExecutor;
+        }
+        
+        /**
+         * Issues the wakeup command of a passive local controller.
+         * 
+         * @param localController   The local controller description
+         * @return                  true if everything ok, false otherwise
+         */
+        public boolean issue(LocalControllerDescription localController)
+        {
+            WakeupSettings settings = localController.getWakeupSettings();
+            WakeUp wakeupLogic = PowerManagementFactory.newWakeupDriver(settings.getDriver(), commandExecutor_);
+            if (wakeupLogic == null)
+            {
+                log_.error("Error during wakeup logic retrieval!");
+                return false;
+            }
+            
+            return wakeupLogic.wakeUp(settings.getOptions());
+        }
+    }
+    
+    /** Group manager repository. */
+    private GroupManagerRepository repository_;
+    
+    /** Wakeup command. */
+    private WakeupCommand wakeupCommand_;
+    
+    /** Executor issuing the wakeup commands. */
+    private ExecutorService executor_;
+    
+    /** Wakeup timeout (= ms). */
+    private long wakeupTimeout_;
+    
+    /** Pending wakeups by local controller identifier. */
+    private Map<String, PendingWakeup> pendingWakeups_;
+    
+    /** Lock. */
+    private final ReentrantLock lock_;
+    
+    /** Signaled when a wakeup completes. */
+    private final Condition wakeupCompleted_;
+
+    /** 
+     * Constructor. 
+     * 
+     * @param wakeupTimeout             The per local controller wakeup timeout (= s)
+     * @param commandExecutionTimeout   The command execution timeout (= s)
+     * @param repository                The repository
+     */
+    public WakeupOrchestrator(int wakeupTimeout, int commandExecutionTimeout, GroupManagerRepository repository)
+    {
+        this(wakeupTimeout, new DriverWakeupCommand(new ShellCommandExecuter(commandExecutionTimeout)), repository);
+    }
+    
+    /** 
+     * Constructor. 
+     * 
+     * @param wakeupTimeout             The per local controller wakeup timeout (= s)
+     * @param wakeupCommand             The wakeup command
+     * @param repository                The repository
+     */
+    WakeupOrchestrator(int wakeupTimeout, WakeupCommand wakeupCommand, GroupManagerRepository repository)
+    {
+        Guard.check(wakeupCommand, repository);
+        wakeupTimeout_ = TimeUtils.convertSecondsToMilliseconds(wakeupTimeout);
+        repository_ = repository;
+        wakeupCommand_ = wakeupCommand;
+        pendingWakeups_ = new HashMap<String, PendingWakeup>();
+        lock_ = new ReentrantLock();
+        wakeupCompleted_ = lock_.newCondition();
+        executor_ = Executors.newCachedThreadPool(new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "WakeupOrchestrator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+    
+    /**
+     * Wakes up local controllers and waits until enough of them are back.
+     * 
+     * Returns once the required number of local controllers is ready or no
+     * local controller can become ready anymore.
+     * 
+     * @param localControllers         The local controllers
+     * @param numberOfRequired         The number of local controllers to wait for
+     * @return                         The identifiers of the ready local controllers
+     * @throws InterruptedException 
+     */
+    public List<String> wakeupLocalControllers(List<LocalControllerDescription> localControllers, 
+                                               int numberOfRequired)
+        throws InterruptedException 
+    {
+        Guard.check(localControllers);
+        log_.debug(String.format("Starting to wakeup %s passive local controllers, waiting for %s", 
+                                 localControllers.size(), numberOfRequired));
+        
+        List<PendingWakeup> wakeups = new ArrayList<PendingWakeup>();
+        for (LocalControllerDescription localController : localControllers)
+        {
+            wakeups.add(startWakeup(localController));
+        }
+        
+        List<String> readyLocalControllers = awaitReady(wakeups, Math.min(numberOfRequired, wakeups.size()));
+        log_.debug(String.format("%s out of %s local controllers are back", 
+                                 readyLocalControllers.size(), wakeups.size()));
+        return readyLocalControllers;
+    }
+    
+    /**
+     * Called when a local controller joins the group manager.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    public void onLocalControllerJoined(String localControllerId)
+    {
+        Guard.check(localControllerId);
+        lock_.lock();
+        try
+        {
+            PendingWakeup wakeup = pendingWakeups_.get(localControllerId);
+            if (wakeup != null)
+            {
+                log_.debug(String.format("Local controller %s rejoined after wakeup", localControllerId));
+                complete(wakeup, WakeupState.ready);
+            }
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of local controllers currently being woken up.
+     * 
+     * @return  The number of pending wakeups
+     */
+    public int getNumberOfPendingWakeups()
+    {
+        lock_.lock();
+        try
+        {
+            return pendingWakeups_.size();
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Shuts down the orchestrator.
+     */
+    public void shutdown()
+    {
+        executor_.shutdownNow();
+    }
+    
+    /**
+     * Starts the wakeup of a local controller unless it is already in progress.
+     * 
+     * The status is changed before the command is issued so that an early
+     * rejoin is not overwritten.
+     * 
+     * @param localController   The local controller description
+     * @return                  The pending wakeup
+     */
+    private PendingWakeup startWakeup(final LocalControllerDescription localController)
+    {
+        final String localControllerId = localController.getId();
+        final PendingWakeup wakeup;
+        lock_.lock();
+        try
+        {
+            PendingWakeup existing = pendingWakeups_.get(localControllerId);
+            if (existing != null)
+            {
+                log_.debug(String.format("Wakeup of local controller %s already in progress", localControllerId));
+                return existing;
+            }
+            
+            wakeup = new PendingWakeup(localControllerId, System.currentTimeMillis() + wakeupTimeout_);
+            pendingWakeups_.put(localControllerId, wakeup);
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+        
+        boolean isChanged = repository_.changeLocalControllerStatus(localControllerId, LocalControllerStatus.WOKENUP);
+        if (!isChanged)
+        {
+            log_.error(String.format("Failed to change local controller %s status!", localControllerId));
+            completeLocked(wakeup, WakeupState.failed);
+            return wakeup;
+        }
+        
+        executor_.execute(new Runnable()
+        {
+            public void run()
+            {
+                log_.debug(String.format("Waking up local controller: %s!", localControllerId));
+                boolean isWokenUp = false;
+                try
+                {
+                    isWokenUp = wakeupCommand_.issue(localController);
+                }
+                catch (RuntimeException exception)
+                {
+                    log_.error("Error while issuing the wakeup command", exception);
+                }
+                
+                if (!isWokenUp)
+                {
+                    log_.error(String.format("Unable to wakeup local controller: %s", localControllerId));
+                    repository_.changeLocalControllerStatus(localControllerId, LocalControllerStatus.PASSIVE);
+                    completeLocked(wakeup, WakeupState.failed);
+                }
+            }
+        });
+        
+        return wakeup;
+    }
+    
+    /**
+     * Waits until enough local controllers are ready.
+     * 
+     * @param wakeups               The wakeups
+     * @param numberOfRequired      The number of required local controllers
+     * @return                      The identifiers of the ready local controllers
+     * @throws InterruptedException 
+     */
+    private List<String> awaitReady(List<PendingWakeup> wakeups, int numberOfRequired)
+        throws InterruptedException
+    {
+        List<PendingWakeup> pending = wakeups;
+        while (true)
+        {
+            probeRepository(pending);
+            lock_.lock();
+            try
+            {
+                long now = System.currentTimeMillis();
+                pending = new ArrayList<PendingWakeup>();
+                List<String> readyLocalControllers = new ArrayList<String>();
+                long nextDeadline = Long.MAX_VALUE;
+                for (PendingWakeup wakeup : wakeups)
+                {
+                    if (wakeup.state_ == WakeupState.pending && now >= wakeup.deadline_)
+                    {
+                        log_.error(String.format("Local controller %s did not come back in time!", 
+                                                 wakeup.localControllerId_));
+                        complete(wakeup, WakeupState.expired);
+                    }
+                    
+                    if (wakeup.state_ == WakeupState.ready)
+                    {
+                        readyLocalControllers.add(wakeup.localControllerId_);
+                    } else if (wakeup.state_ == WakeupState.pending)
+                    {
+                        pending.add(wakeup);
+                        nextDeadline = Math.min(nextDeadline, wakeup.deadline_);
+                    }
+                }
+                
+                if (readyLocalControllers.size() >= numberOfRequired || pending.isEmpty())
+                {
+                    return readyLocalControllers;
+                }
+                
+                wakeupCompleted_.await(Math.min(PROBE_INTERVAL, nextDeadline - now), TimeUnit.MILLISECONDS);
+            }
+            finally
+            {
+                lock_.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Marks pending local controllers which the repository reports as active as ready.
+     * 
+     * @param wakeups   The pending wakeups
+     */
+    private void probeRepository(List<PendingWakeup> wakeups)
+    {
+        for (PendingWakeup wakeup : wakeups)
+        {
+            LocalControllerDescription localController = 
+                repository_.getLocalControllerDescription(wakeup.localControllerId_, 0);
+            if (localController != null && localController.getStatus().equals(LocalControllerStatus.ACTIVE))
+            {
+                completeLocked(wakeup, WakeupState.ready);
+            }
+        }
+    }
+    
+    /**
+     * Completes a wakeup, acquiring the lock.
+     * 
+     * @param wakeup    The wakeup
+     * @param state     The final state
+     */
+    private void completeLocked(PendingWakeup wakeup, WakeupState state)
+    {
+        lock_.lock();
+        try
+        {
+            complete(wakeup, state);
+        }
+        finally
+        {
+            lock_.unlock();
+        }
+    }
+    
+    /**
+     * Completes a wakeup (lock must be held).
+     * 
+     * @param wakeup    The wakeup
+     * @param state     The final state
+     */
+    private void complete(PendingWakeup wakeup, WakeupState state)
+    {
+        if (wakeup.state_ != WakeupState.pending)
+        {
+            return;
+        }
+        
+        wakeup.state_ = state;
+        if (pendingWakeups_.get(wakeup.localControllerId_) == wakeup)
+        {
+            pendingWakeups_.remove(wakeup.localControllerId_);
+        }
+        
+        wakeupCompleted_.signalAll();
+    }
+}
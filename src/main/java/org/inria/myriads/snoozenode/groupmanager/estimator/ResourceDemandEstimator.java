@@ -35,16 +35,26 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.status.Virtua
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozecommon.util.MonitoringUtils;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorPolicy;
 import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
 import org.inria.myriads.snoozenode.configurator.submission.PackingDensity;
+import org.inria.myriads.snoozenode.database.history.StreamingStatistic;
+import org.inria.myriads.snoozenode.database.history.StreamingStatisticsFactory;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryProvider;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryReader;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.CPUDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.MemoryDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.NetworkDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.AverageCPUDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.AverageMemoryDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.AverageNetworkDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.IncrementalCPUDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.IncrementalMemoryDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.IncrementalNetworkDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.statistic.StatisticFactory;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
 import org.inria.myriads.snoozenode.util.ThresholdUtils;
 import org.inria.myriads.snoozenode.util.UtilizationUtils;
@@ -57,6 +67,7 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class ResourceDemandEstimator 
+    implements StreamingStatisticsFactory
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(ResourceDemandEstimator.class);
@@ -85,6 +96,18 @@ public final class ResourceDemandEstimator
     /** Consider static capacity. */
     private boolean isStatic_;
     
+    /** Virtual machine history provider (optional). */
+    private VirtualMachineHistoryProvider historyProvider_;
+    
+    /** Estimator settings. */
+    private EstimatorSettings estimatorSettings_;
+    
+    /** Number of history entries to read from the provider. */
+    private int numberOfHistoryEntries_;
+    
+    /** Estimates the resource demand in place (empty vector for an empty history). */
+    private VirtualMachineHistoryReader<ArrayList<Double>> demandReader_;
+    
     /**
      * Constructor.
      * 
@@ -104,9 +127,44 @@ public final class ResourceDemandEstimator
         sortNorm_ = estimatorSettings.getSortNorm();
         isStatic_ = estimatorSettings.isStatic();
         numberOfMonitoringEntries_ = estimatorSettings.getNumberOfMonitoringEntries();
+        estimatorSettings_ = estimatorSettings;
+        numberOfHistoryEntries_ = computeNumberOfHistoryEntries(estimatorSettings);
         cpuDemandEstimator_ = newVirtualMachineCpuDemandEstimator(estimatorSettings.getPolicy().getCPU());     
         memoryDemandEstimator_ = newVirtualMachineMemoryDemandEstimator(estimatorSettings.getPolicy().getMemory());
         networkDemandEstimator_ = newVirtualMachineNetworkDemandEstimator(estimatorSettings.getPolicy().getNetwork());
+        demandReader_ = new VirtualMachineHistoryReader<ArrayList<Double>>()
+        {
+            public ArrayList<Double> read(VirtualMachineHistoryView history)
+            {
+                if (history.getSize() == 0)
+                {
+                    return new ArrayList<Double>();
+                }
+                
+                return estimateResourceDemand(history);
+            }
+        };
+    }
+    
+    /**
+     * Computes the number of history entries needed by the estimators.
+     * 
+     * Incremental estimators only need the latest entry (to detect missing data).
+     * 
+     * @param estimatorSettings     The estimator settings
+     * @return                      The number of history entries
+     */
+    private static int computeNumberOfHistoryEntries(EstimatorSettings estimatorSettings)
+    {
+        EstimatorPolicy policy = estimatorSettings.getPolicy();
+        if (StatisticFactory.isIncremental(policy.getCPU()) &&
+            StatisticFactory.isIncremental(policy.getMemory()) &&
+            StatisticFactory.isIncremental(policy.getNetwork()))
+        {
+            return 1;
+        }
+        
+        return estimatorSettings.getNumberOfMonitoringEntries();
     }
     
     /** 
@@ -127,6 +185,14 @@ public final class ResourceDemandEstimator
                 cpuDemandEstimator = new AverageCPUDemandEstimator();
                 break;
                 
+            case ewma :
+            case mean :
+            case max :
+            case percentile :
+                log_.debug(String.format("Selecting the incremental %s CPU demand estimator", demandEstimator));
+                cpuDemandEstimator = new IncrementalCPUDemandEstimator(demandEstimator, estimatorSettings_);
+                break;
+                
             default : 
                 log_.equals(String.format("Unknown CPU demand estimator selected: %s", demandEstimator));
                 break;
@@ -233,6 +299,14 @@ public final class ResourceDemandEstimator
                 networkDemandEstimator = new AverageNetworkDemandEstimator();
                 break;
                 
+            case ewma :
+            case mean :
+            case max :
+            case percentile :
+                log_.debug(String.format("Selecting the incremental %s network demand estimator", demandEstimator));
+                networkDemandEstimator = new IncrementalNetworkDemandEstimator(demandEstimator, estimatorSettings_);
+                break;
+                
             default : 
                 log_.equals(String.format("Unknown network demand estimator selected: %s", demandEstimator));
                 break;
@@ -259,6 +333,14 @@ public final class ResourceDemandEstimator
                 memoryDemandEstimator = new AverageMemoryDemandEstimator();
                 break;
                 
+            case ewma :
+            case mean :
+            case max :
+            case percentile :
+                log_.debug(String.format("Selecting the incremental %s memory demand estimator", demandEstimator));
+                memoryDemandEstimator = new IncrementalMemoryDemandEstimator(demandEstimator, estimatorSettings_);
+                break;
+                
             default : 
                 log_.equals(String.format("Unknown memory demand estimator selected: %s", demandEstimator));
                 break;
@@ -305,10 +387,10 @@ public final class ResourceDemandEstimator
      * @param virtualMachine    The virtual machine meta data
      * @return                  The virtual machine capacity
      */
-    private List<Double> computeVirtualMachineCapacity(VirtualMachineMetaData virtualMachine)
+    public List<Double> computeVirtualMachineCapacity(VirtualMachineMetaData virtualMachine)
     {        
-        Map<Long, VirtualMachineMonitoringData> capacity = virtualMachine.getUsedCapacity();  
-        if (capacity.size() == 0 || isStatic_)
+        List<Double> estimatedUsedCapacity = isStatic_ ? null : estimateHistoricalResourceDemand(virtualMachine);
+        if (estimatedUsedCapacity == null)
         {
             log_.debug("No virtual machine used capacity information available or static mode enabled! " +
                     "Taking requested!");
@@ -317,7 +399,6 @@ public final class ResourceDemandEstimator
         } 
         
         String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
-        List<Double> estimatedUsedCapacity = estimateVirtualMachineResourceDemand(virtualMachine);
         log_.debug(String.format("Virtual machine %s used capacity is: %s",
                                  virtualMachineId,
                                  estimatedUsedCapacity));    
@@ -336,6 +417,21 @@ public final class ResourceDemandEstimator
     {                   
         List<Double> virtualMachineCapacity = computeVirtualMachineCapacity(virtualMachine);
         List<Double> localControllerCapacity = computeLocalControllerCapacity(localController);
+        return hasEnoughLocalControllerCapacity(virtualMachineCapacity, localControllerCapacity, localController);
+    }
+    
+    /** 
+     * Checks whether a local controller has enough active capacity to host the VM.
+     * 
+     * @param virtualMachineCapacity        The virtual machine capacity
+     * @param localControllerCapacity       The local controller (estimated) capacity
+     * @param localController               The local controller description
+     * @return                              true if enough capacity vailable, false otherwise
+     */
+    public boolean hasEnoughLocalControllerCapacity(List<Double> virtualMachineCapacity,
+                                                    List<Double> localControllerCapacity,
+                                                    LocalControllerDescription localController)
+    {
         List<Double> newLocalControllerCapacity = MathUtils.addVectors(virtualMachineCapacity, 
                                                                        localControllerCapacity);  
         log_.debug(String.format("Local controller %s capacity: %s, VM capacity: %s, new LC capacity: %s", 
@@ -416,14 +512,13 @@ public final class ResourceDemandEstimator
        for (VirtualMachineMetaData virtualMachine : localController.getVirtualMachineMetaData().values())
        {
            String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
-           Map<Long, VirtualMachineMonitoringData> monitoringData = virtualMachine.getUsedCapacity();
-           if (monitoringData.size() == 0 || isStatic_)
+           ArrayList<Double> estimatedData = isStatic_ ? null : estimateHistoricalResourceDemand(virtualMachine);
+           if (estimatedData == null)
            {
                capacity = MathUtils.addVectors(computeRequestedVirtualMachineCapacity(virtualMachine), capacity);
                continue;
            }
            
-           ArrayList<Double> estimatedData = estimateVirtualMachineResourceDemand(virtualMachine);
            log_.debug(String.format("Estimated virtual machine %s resource demand is %s", 
                                      virtualMachineId,
                                      estimatedData));
@@ -447,7 +542,23 @@ public final class ResourceDemandEstimator
             return virtualMachine.getRequestedCapacity();
         }
         
-        Map<Long, VirtualMachineMonitoringData> virtualMachineHistory = virtualMachine.getUsedCapacity();
+        ArrayList<Double> estimates = estimateHistoricalResourceDemand(virtualMachine);
+        if (estimates == null)
+        {
+            return estimateResourceDemand(VirtualMachineHistoryView.empty());
+        }
+        
+        return estimates;
+    }
+    
+    /**
+     * Estimates the resource demands from an already fetched history.
+     * 
+     * @param virtualMachineHistory     The virtual machine history view
+     * @return                          The estimated virtual machine monitoring data
+     */
+    private ArrayList<Double> estimateResourceDemand(VirtualMachineHistoryView virtualMachineHistory)
+    {
         double cpuUtilization = cpuDemandEstimator_.estimate(virtualMachineHistory);
         double memoryUtilization = memoryDemandEstimator_.estimate(virtualMachineHistory);
         NetworkDemand networkUtilization = networkDemandEstimator_.estimate(virtualMachineHistory);       
@@ -505,7 +616,7 @@ public final class ResourceDemandEstimator
      * @return                      The group manager summary information
      */
     public synchronized GroupManagerSummaryInformation 
-        generateGroupManagerSummaryInformation(ArrayList<LocalControllerDescription> localControllers,
+        generateGroupManagerSummaryInformation(List<LocalControllerDescription> localControllers,
                                                ArrayList<String> legacyIpAddresses) 
     {        
         ArrayList<Double> requestedCapacity = computeRequestedGroupManagerCapacity(localControllers);        
@@ -530,7 +641,7 @@ public final class ResourceDemandEstimator
      * @param localController   The local controller description
      * @return                  The requested capacity
      */
-    private ArrayList<Double> computeRequestedLocalControllerCapacity(LocalControllerDescription localController)
+    public ArrayList<Double> computeRequestedLocalControllerCapacity(LocalControllerDescription localController)
     {
         ArrayList<Double> requestedCapacity = MathUtils.createEmptyVector();
         Map<String, VirtualMachineMetaData> virtualMachines = localController.getVirtualMachineMetaData();
@@ -601,6 +712,44 @@ public final class ResourceDemandEstimator
         return numberOfMonitoringEntries_;
     }
     
+    /**
+     * Sets the virtual machine history provider.
+     * 
+     * @param historyProvider   The history provider
+     */
+    public void setHistoryProvider(VirtualMachineHistoryProvider historyProvider)
+    {
+        historyProvider_ = historyProvider;
+    }
+    
+    /**
+     * Estimates the resource demand from the virtual machine history.
+     * 
+     * Reads the history in place from the provider if the virtual machine is known there
+     * and falls back to the monitoring data attached to the meta data otherwise.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  The estimated resource demand, null if the history is empty
+     */
+    private ArrayList<Double> estimateHistoricalResourceDemand(VirtualMachineMetaData virtualMachine)
+    {
+        ArrayList<Double> estimates = null;
+        if (historyProvider_ != null)
+        {
+            estimates = historyProvider_.readVirtualMachineHistory(virtualMachine.getVirtualMachineLocation(), 
+                                                                   numberOfHistoryEntries_,
+                                                                   demandReader_);
+        }
+        
+        if (estimates == null)
+        {
+            Map<Long, VirtualMachineMonitoringData> usedCapacity = virtualMachine.getUsedCapacity();
+            estimates = demandReader_.read(VirtualMachineHistoryView.fromMonitoringData(usedCapacity));
+        }
+        
+        return estimates.isEmpty() ? null : estimates;
+    }
+    
     /**
      * Returns the sort norm.
      * 
@@ -610,4 +759,47 @@ public final class ResourceDemandEstimator
     {
         return sortNorm_;
     }
+    
+    /**
+     * Returns true if the estimations are static.
+     * 
+     * @return      true if static, false otherwise
+     */
+    public boolean isStatic() 
+    {
+        return isStatic_;
+    }
+    
+    /**
+     * Creates a new CPU demand statistic.
+     * 
+     * @return  The statistic, null if the CPU demand is estimated in batch
+     */
+    @Override
+    public StreamingStatistic newCpuStatistic()
+    {
+        return StatisticFactory.newStatistic(estimatorSettings_.getPolicy().getCPU(), estimatorSettings_);
+    }
+    
+    /**
+     * Creates a new memory demand statistic.
+     * 
+     * @return  The statistic, null if the memory demand is estimated in batch
+     */
+    @Override
+    public StreamingStatistic newMemoryStatistic()
+    {
+        return StatisticFactory.newStatistic(estimatorSettings_.getPolicy().getMemory(), estimatorSettings_);
+    }
+    
+    /**
+     * Creates a new network (rx or tx) demand statistic.
+     * 
+     * @return  The statistic, null if the network demand is estimated in batch
+     */
+    @Override
+    public StreamingStatistic newNetworkStatistic()
+    {
+        return StatisticFactory.newStatistic(estimatorSettings_.getPolicy().getNetwork(), estimatorSettings_);
+    }
 }
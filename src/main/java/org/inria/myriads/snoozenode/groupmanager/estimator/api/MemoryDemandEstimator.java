@@ -19,9 +19,7 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.estimator.api;
 
-import java.util.Map;
-
-import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
 
 /**
  * Memory demand estimator interface.
@@ -36,5 +34,5 @@ public interface MemoryDemandEstimator
      * @param history     The virtual machine history data
      * @return            The estimated value
      */
-    double estimate(Map<Long, VirtualMachineMonitoringData> history);
+    double estimate(VirtualMachineHistoryView history);
 }
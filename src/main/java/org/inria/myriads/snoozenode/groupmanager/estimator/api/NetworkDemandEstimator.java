@@ -19,10 +19,8 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.estimator.api;
 
-import java.util.Map;
-
 import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
-import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
 
 /**
  * Network demand estimator interface.
@@ -37,5 +35,5 @@ public interface NetworkDemandEstimator
      * @param history     The virtual machine history
      * @return            The estimated network demand
      */
-    NetworkDemand estimate(Map<Long, VirtualMachineMonitoringData> history);
+    NetworkDemand estimate(VirtualMachineHistoryView history);
 }
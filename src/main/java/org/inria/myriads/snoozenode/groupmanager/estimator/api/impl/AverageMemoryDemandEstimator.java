@@ -19,12 +19,10 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.estimator.api.impl;
 
-import java.util.Map;
-
-import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.database.history.HistoryIterator;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.MemoryDemandEstimator;
-import org.inria.myriads.snoozenode.util.UtilizationUtils;
 
 /**
  * Average memory demand estimator.
@@ -40,17 +38,18 @@ public final class AverageMemoryDemandEstimator
      * @param virtualMachineHistory     The virtual machine history data
      * @return                          The memory demand estimate
      */
-    public double estimate(Map<Long, VirtualMachineMonitoringData> virtualMachineHistory) 
+    public double estimate(VirtualMachineHistoryView virtualMachineHistory) 
     {
         Guard.check(virtualMachineHistory);
         
         double memoryUtilization = 0;
-        for (VirtualMachineMonitoringData monitoringData : virtualMachineHistory.values())
+        HistoryIterator iterator = virtualMachineHistory.iterator();
+        while (iterator.next())
         {
-            memoryUtilization += UtilizationUtils.getMemoryUtilization(monitoringData.getUsedCapacity());
+            memoryUtilization += iterator.getMemoryUtilization();
         }
         
-        memoryUtilization = memoryUtilization / virtualMachineHistory.size();
+        memoryUtilization = memoryUtilization / virtualMachineHistory.getSize();
         return memoryUtilization;
     }
 }
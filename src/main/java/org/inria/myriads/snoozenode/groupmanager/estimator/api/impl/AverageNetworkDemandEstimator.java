@@ -19,13 +19,11 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.estimator.api.impl;
 
-import java.util.Map;
-
 import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
-import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.database.history.HistoryIterator;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
 import org.inria.myriads.snoozenode.groupmanager.estimator.api.NetworkDemandEstimator;
-import org.inria.myriads.snoozenode.util.UtilizationUtils;
 
 /**
  * Sample network demand estimator.
@@ -41,20 +39,21 @@ public final class AverageNetworkDemandEstimator
      * @param virtualMachineHistory     The virtual machine history data
      * @return                          The network demand estimate
      */
-    public NetworkDemand estimate(Map<Long, VirtualMachineMonitoringData> virtualMachineHistory) 
+    public NetworkDemand estimate(VirtualMachineHistoryView virtualMachineHistory) 
     {
         Guard.check(virtualMachineHistory);      
         double rxUtilization = 0;
         double txUtilization = 0;
         
-        for (VirtualMachineMonitoringData monitoringData : virtualMachineHistory.values())
+        HistoryIterator iterator = virtualMachineHistory.iterator();
+        while (iterator.next())
         {
-            rxUtilization += UtilizationUtils.getNetworkRxUtilization(monitoringData.getUsedCapacity());
-            txUtilization += UtilizationUtils.getNetworkTxUtilization(monitoringData.getUsedCapacity());
+            rxUtilization += iterator.getNetworkRxUtilization();
+            txUtilization += iterator.getNetworkTxUtilization();
         }
         
-        rxUtilization = rxUtilization / virtualMachineHistory.size();
-        txUtilization = txUtilization / virtualMachineHistory.size();
+        rxUtilization = rxUtilization / virtualMachineHistory.getSize();
+        txUtilization = txUtilization / virtualMachineHistory.getSize();
         
         NetworkDemand networkDemand = new NetworkDemand(rxUtilization, txUtilization);
         return networkDemand;
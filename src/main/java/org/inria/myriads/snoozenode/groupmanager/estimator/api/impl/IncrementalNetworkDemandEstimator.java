@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator.api.impl;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.database.history.HistoryIterator;
+import org.inria.myriads.snoozenode.database.history.StreamingStatistic;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.NetworkDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.statistic.StatisticFactory;
+
+/**
+ * Incremental network demand estimator.
+ * 
+ * Returns the estimates maintained by the history and replays the
+ * history entries if none are available.
+ * 
+ * @author Eugen Feller
+ */
+public final class IncrementalNetworkDemandEstimator 
+    implements NetworkDemandEstimator
+{
+    /** Estimator. */
+    private Estimator estimator_;
+    
+    /** Estimator settings. */
+    private EstimatorSettings estimatorSettings_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param estimator             The estimator
+     * @param estimatorSettings     The estimator settings
+     */
+    public IncrementalNetworkDemandEstimator(Estimator estimator, EstimatorSettings estimatorSettings)
+    {
+        Guard.check(estimator, estimatorSettings);
+        estimator_ = estimator;
+        estimatorSettings_ = estimatorSettings;
+    }
+    
+    /**
+     * Estimates the network demand.
+     * 
+     * @param virtualMachineHistory     The virtual machine history data
+     * @return                          The network demand estimate
+     */
+    public NetworkDemand estimate(VirtualMachineHistoryView virtualMachineHistory) 
+    {
+        Guard.check(virtualMachineHistory);
+        
+        double rxEstimate = virtualMachineHistory.getNetworkRxEstimate();
+        double txEstimate = virtualMachineHistory.getNetworkTxEstimate();
+        if (!Double.isNaN(rxEstimate) && !Double.isNaN(txEstimate))
+        {
+            return new NetworkDemand(rxEstimate, txEstimate);
+        }
+        
+        StreamingStatistic rxStatistic = StatisticFactory.newStatistic(estimator_, estimatorSettings_);
+        StreamingStatistic txStatistic = StatisticFactory.newStatistic(estimator_, estimatorSettings_);
+        HistoryIterator iterator = virtualMachineHistory.iterator();
+        while (iterator.next())
+        {
+            rxStatistic.update(iterator.getNetworkRxUtilization());
+            txStatistic.update(iterator.getNetworkTxUtilization());
+        }
+        
+        NetworkDemand networkDemand = new NetworkDemand(rxStatistic.getValue(), txStatistic.getValue());
+        return networkDemand;
+    }
+}
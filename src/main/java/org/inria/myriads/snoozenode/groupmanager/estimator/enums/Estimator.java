@@ -28,4 +28,16 @@ public enum Estimator
 {
     /** Average estimator. */
     average,
+    
+    /** Exponentially weighted moving average (incremental). */
+    ewma,
+    
+    /** Sliding window mean (incremental). */
+    mean,
+    
+    /** Sliding window maximum (incremental). */
+    max,
+    
+    /** Approximate percentile (incremental). */
+    percentile
 }
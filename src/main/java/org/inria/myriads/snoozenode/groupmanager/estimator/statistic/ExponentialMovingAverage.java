@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator.statistic;
+
+import org.inria.myriads.snoozenode.database.history.StreamingStatistic;
+
+/**
+ * Exponential moving average.
+ * 
+ * @author Eugen Feller
+ */
+public final class ExponentialMovingAverage 
+    implements StreamingStatistic
+{
+    /** Weight of the newest sample. */
+    private double weight_;
+    
+    /** Current average. */
+    private double value_;
+    
+    /** Signals the first sample. */
+    private boolean isEmpty_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param weight    The weight of the newest sample (0, 1]
+     */
+    public ExponentialMovingAverage(double weight)
+    {
+        if (weight <= 0 || weight > 1)
+        {
+            throw new IllegalArgumentException(String.format("Invalid moving average weight: %s", weight));
+        }
+        
+        weight_ = weight;
+        isEmpty_ = true;
+    }
+    
+    /**
+     * Updates the average.
+     * 
+     * @param value     The sample value
+     */
+    @Override
+    public void update(double value)
+    {
+        if (isEmpty_)
+        {
+            value_ = value;
+            isEmpty_ = false;
+            return;
+        }
+        
+        value_ = weight_ * value + (1 - weight_) * value_;
+    }
+    
+    /**
+     * Returns the average.
+     * 
+     * @return  The average
+     */
+    @Override
+    public double getValue()
+    {
+        return value_;
+    }
+}
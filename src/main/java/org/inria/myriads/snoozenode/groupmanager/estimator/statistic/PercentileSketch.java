@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator.statistic;
+
+import java.util.Arrays;
+
+import org.inria.myriads.snoozenode.database.history.StreamingStatistic;
+
+/**
+ * Approximate percentile over all samples (P-square algorithm, Jain and Chlamtac).
+ * 
+ * Five markers track the minimum, the maximum, the requested percentile and
+ * two intermediate quantiles. Each update adjusts the markers in constant time
+ * without storing the samples.
+ * 
+ * @author Eugen Feller
+ */
+public final class PercentileSketch 
+    implements StreamingStatistic
+{
+    /** Number of markers. */
+    private static final int NUMBER_OF_MARKERS = 5;
+    
+    /** Marker heights. */
+    private double[] heights_;
+    
+    /** Marker positions. */
+    private double[] positions_;
+    
+    /** Desired marker positions. */
+    private double[] desiredPositions_;
+    
+    /** Desired position increments. */
+    private double[] increments_;
+    
+    /** Requested percentile. */
+    private double percentile_;
+    
+    /** Number of samples seen. */
+    private int numberOfSamples_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param percentile    The percentile (0, 1)
+     */
+    public PercentileSketch(double percentile)
+    {
+        if (percentile <= 0 || percentile >= 1)
+        {
+            throw new IllegalArgumentException(String.format("Invalid percentile: %s", percentile));
+        }
+        
+        percentile_ = percentile;
+        heights_ = new double[NUMBER_OF_MARKERS];
+        positions_ = new double[] {1, 2, 3, 4, 5};
+        desiredPositions_ = new double[] {1, 1 + 2 * percentile, 1 + 4 * percentile, 3 + 2 * percentile, 5};
+        increments_ = new double[] {0, percentile / 2, percentile, (1 + percentile) / 2, 1};
+    }
+    
+    /**
+     * Updates the sketch.
+     * 
+     * @param value     The sample value
+     */
+    @Override
+    public void update(double value)
+    {
+        if (numberOfSamples_ < NUMBER_OF_MARKERS)
+        {
+            heights_[numberOfSamples_] = value;
+            numberOfSamples_++;
+            if (numberOfSamples_ == NUMBER_OF_MARKERS)
+            {
+                Arrays.sort(heights_);
+            }
+            
+            return;
+        }
+        
+        int cell;
+        if (value < heights_[0])
+        {
+            heights_[0] = value;
+            cell = 0;
+        } 
+        else if (value >= heights_[NUMBER_OF_MARKERS - 1])
+        {
+            heights_[NUMBER_OF_MARKERS - 1] = value;
+            cell = NUMBER_OF_MARKERS - 2;
+        } 
+        else
+        {
+            cell = 0;
+            while (value >= heights_[cell + 1])
+            {
+                cell++;
+            }
+        }
+        
+        for (int i = cell + 1; i < NUMBER_OF_MARKERS; i++)
+        {
+            positions_[i]++;
+        }
+        
+        for (int i = 0; i < NUMBER_OF_MARKERS; i++)
+        {
+            desiredPositions_[i] += increments_[i];
+        }
+        
+        for (int i = 1; i < NUMBER_OF_MARKERS - 1; i++)
+        {
+            adjustMarker(i);
+        }
+        
+        numberOfSamples_++;
+    }
+    
+    /**
+     * Moves a middle marker towards its desired position.
+     * 
+     * @param i     The marker index
+     */
+    private void adjustMarker(int i)
+    {
+        double delta = desiredPositions_[i] - positions_[i];
+        boolean isRight = delta >= 1 && positions_[i + 1] - positions_[i] > 1;
+        boolean isLeft = delta <= -1 && positions_[i - 1] - positions_[i] < -1;
+        if (!isRight && !isLeft)
+        {
+            return;
+        }
+        
+        int direction = isRight ? 1 : -1;
+        double height = parabolic(i, direction);
+        if (heights_[i - 1] < height && height < heights_[i + 1])
+        {
+            heights_[i] = height;
+        } 
+        else
+        {
+            heights_[i] = linear(i, direction);
+        }
+        
+        positions_[i] += direction;
+    }
+    
+    /**
+     * Piecewise parabolic height prediction.
+     * 
+     * @param i             The marker index
+     * @param direction     The direction (-1 or 1)
+     * @return              The predicted height
+     */
+    private double parabolic(int i, int direction)
+    {
+        double left = positions_[i] - positions_[i - 1];
+        double right = positions_[i + 1] - positions_[i];
+        double span = positions_[i + 1] - positions_[i - 1];
+        return heights_[i] + direction / span * 
+               ((left + direction) * (heights_[i + 1] - heights_[i]) / right + 
+                (right - direction) * (heights_[i] - heights_[i - 1]) / left);
+    }
+    
+    /**
+     * Linear height prediction.
+     * 
+     * @param i             The marker index
+     * @param direction     The direction (-1 or 1)
+     * @return              The predicted height
+     */
+    private double linear(int i, int direction)
+    {
+        return heights_[i] + direction * (heights_[i + direction] - heights_[i]) / 
+                             (positions_[i + direction] - positions_[i]);
+    }
+    
+    /**
+     * Returns the percentile estimate.
+     * 
+     * @return  The estimate (exact for less than five samples)
+     */
+    @Override
+    public double getValue()
+    {
+        if (numberOfSamples_ == 0)
+        {
+            return 0;
+        }
+        
+        if (numberOfSamples_ < NUMBER_OF_MARKERS)
+        {
+            double[] samples = Arrays.copyOf(heights_, numberOfSamples_);
+            Arrays.sort(samples);
+            int index = (int) Math.ceil(percentile_ * numberOfSamples_) - 1;
+            return samples[Math.max(index, 0)];
+        }
+        
+        return heights_[2];
+    }
+}
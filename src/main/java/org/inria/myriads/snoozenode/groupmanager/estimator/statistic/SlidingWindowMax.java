@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator.statistic;
+
+import org.inria.myriads.snoozenode.database.history.StreamingStatistic;
+
+/**
+ * Maximum over the latest samples, maintained with a monotonic deque.
+ * 
+ * The deque holds decreasing values and their sample numbers in primitive
+ * ring arrays, so each update is amortized constant time.
+ * 
+ * @author Eugen Feller
+ */
+public final class SlidingWindowMax 
+    implements StreamingStatistic
+{
+    /** Window size. */
+    private int windowSize_;
+    
+    /** Deque values. */
+    private double[] values_;
+    
+    /** Deque sample numbers. */
+    private long[] sampleNumbers_;
+    
+    /** Deque head position. */
+    private int head_;
+    
+    /** Deque size. */
+    private int size_;
+    
+    /** Number of samples seen. */
+    private long numberOfSamples_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param windowSize    The window size
+     */
+    public SlidingWindowMax(int windowSize)
+    {
+        if (windowSize <= 0)
+        {
+            throw new IllegalArgumentException(String.format("Invalid window size: %d", windowSize));
+        }
+        
+        windowSize_ = windowSize;
+        values_ = new double[windowSize];
+        sampleNumbers_ = new long[windowSize];
+    }
+    
+    /**
+     * Updates the maximum.
+     * 
+     * @param value     The sample value
+     */
+    @Override
+    public void update(double value)
+    {
+        numberOfSamples_++;
+        
+        while (size_ > 0 && sampleNumbers_[head_] <= numberOfSamples_ - windowSize_)
+        {
+            head_ = (head_ + 1) % windowSize_;
+            size_--;
+        }
+        
+        while (size_ > 0 && values_[tail()] <= value)
+        {
+            size_--;
+        }
+        
+        int position = (head_ + size_) % windowSize_;
+        values_[position] = value;
+        sampleNumbers_[position] = numberOfSamples_;
+        size_++;
+    }
+    
+    /**
+     * Returns the position of the last deque element.
+     * 
+     * @return  The position
+     */
+    private int tail()
+    {
+        return (head_ + size_ - 1) % windowSize_;
+    }
+    
+    /**
+     * Returns the maximum.
+     * 
+     * @return  The maximum
+     */
+    @Override
+    public double getValue()
+    {
+        if (size_ == 0)
+        {
+            return 0;
+        }
+        
+        return values_[head_];
+    }
+}
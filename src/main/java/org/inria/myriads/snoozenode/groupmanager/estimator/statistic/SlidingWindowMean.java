@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator.statistic;
+
+import org.inria.myriads.snoozenode.database.history.StreamingStatistic;
+
+/**
+ * Mean over the latest samples, maintained as a running sum.
+ * 
+ * The sum is recomputed once per window turn to avoid floating point drift.
+ * 
+ * @author Eugen Feller
+ */
+public final class SlidingWindowMean 
+    implements StreamingStatistic
+{
+    /** Window samples. */
+    private double[] window_;
+    
+    /** Next write position. */
+    private int position_;
+    
+    /** Number of samples in the window. */
+    private int size_;
+    
+    /** Running sum. */
+    private double sum_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param windowSize    The window size
+     */
+    public SlidingWindowMean(int windowSize)
+    {
+        if (windowSize <= 0)
+        {
+            throw new IllegalArgumentException(String.format("Invalid window size: %d", windowSize));
+        }
+        
+        window_ = new double[windowSize];
+    }
+    
+    /**
+     * Updates the mean.
+     * 
+     * @param value     The sample value
+     */
+    @Override
+    public void update(double value)
+    {
+        if (size_ == window_.length)
+        {
+            sum_ -= window_[position_];
+        } 
+        else
+        {
+            size_++;
+        }
+        
+        window_[position_] = value;
+        sum_ += value;
+        position_ = (position_ + 1) % window_.length;
+        
+        if (position_ == 0)
+        {
+            sum_ = 0;
+            for (int i = 0; i < size_; i++)
+            {
+                sum_ += window_[i];
+            }
+        }
+    }
+    
+    /**
+     * Returns the mean.
+     * 
+     * @return  The mean
+     */
+    @Override
+    public double getValue()
+    {
+        if (size_ == 0)
+        {
+            return 0;
+        }
+        
+        return sum_ / size_;
+    }
+}
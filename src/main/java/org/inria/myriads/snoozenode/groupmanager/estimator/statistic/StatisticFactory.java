@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator.statistic;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.database.history.StreamingStatistic;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming statistic factory.
+ * 
+ * @author Eugen Feller
+ */
+public final class StatisticFactory 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(StatisticFactory.class);
+    
+    /** Hide constructor. */
+    private StatisticFactory()
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Returns true if the estimator is maintained incrementally.
+     * 
+     * @param estimator     The estimator
+     * @return              true if incremental, false otherwise
+     */
+    public static boolean isIncremental(Estimator estimator)
+    {
+        return estimator != null && estimator != Estimator.average;
+    }
+    
+    /**
+     * Creates a new streaming statistic.
+     * 
+     * @param estimator             The estimator
+     * @param estimatorSettings     The estimator settings
+     * @return                      The statistic, null if the estimator is not incremental
+     */
+    public static StreamingStatistic newStatistic(Estimator estimator, EstimatorSettings estimatorSettings)
+    {
+        Guard.check(estimator, estimatorSettings);
+        
+        StreamingStatistic statistic = null;
+        switch (estimator)
+        {
+            case ewma :
+                statistic = new ExponentialMovingAverage(estimatorSettings.getEwmaWeight());
+                break;
+                
+            case mean :
+                statistic = new SlidingWindowMean(estimatorSettings.getNumberOfMonitoringEntries());
+                break;
+                
+            case max :
+                statistic = new SlidingWindowMax(estimatorSettings.getNumberOfMonitoringEntries());
+                break;
+                
+            case percentile :
+                statistic = new PercentileSketch(estimatorSettings.getPercentile());
+                break;
+                
+            case average :
+                break;
+                
+            default :
+                log_.error(String.format("Unknown estimator selected: %s", estimator));
+                break;
+        }
+        
+        return statistic;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.estimator.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+
+/**
+ * Per policy run cache of estimated capacities.
+ * 
+ * Local controller capacities and virtual machine demands are estimated once and
+ * reused by the comparators and the capacity checks. Policies which tentatively
+ * move virtual machines must invalidate the touched local controllers.
+ * Not thread-safe, a new instance is created for each policy run.
+ * 
+ * @author Eugen Feller
+ */
+public final class CapacityCache 
+{
+    /** Resource demand estimator. */
+    private ResourceDemandEstimator estimator_;
+    
+    /** Local controller capacities (key: local controller identifier). */
+    private Map<String, ArrayList<Double>> localControllerCapacities_;
+    
+    /** Local controller L1 norms (key: local controller identifier). */
+    private Map<String, Double> localControllerNorms_;
+    
+    /** Virtual machine demand estimations (key: virtual machine identifier). */
+    private Map<String, ArrayList<Double>> virtualMachineDemands_;
+    
+    /** Virtual machine capacities (key: virtual machine identifier). */
+    private Map<String, List<Double>> virtualMachineCapacities_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param estimator     The resource demand estimator
+     */
+    public CapacityCache(ResourceDemandEstimator estimator)
+    {
+        Guard.check(estimator);
+        estimator_ = estimator;
+        localControllerCapacities_ = new HashMap<String, ArrayList<Double>>();
+        localControllerNorms_ = new HashMap<String, Double>();
+        virtualMachineDemands_ = new HashMap<String, ArrayList<Double>>();
+        virtualMachineCapacities_ = new HashMap<String, List<Double>>();
+    }
+    
+    /**
+     * Returns the resource demand estimator.
+     * 
+     * @return  The estimator
+     */
+    public ResourceDemandEstimator getEstimator()
+    {
+        return estimator_;
+    }
+    
+    /**
+     * Returns the estimated local controller capacity.
+     * 
+     * @param localController   The local controller description
+     * @return                  The capacity
+     */
+    public ArrayList<Double> getLocalControllerCapacity(LocalControllerDescription localController)
+    {
+        String localControllerId = localController.getId();
+        ArrayList<Double> capacity = localControllerCapacities_.get(localControllerId);
+        if (capacity == null)
+        {
+            capacity = estimator_.computeLocalControllerCapacity(localController);
+            localControllerCapacities_.put(localControllerId, capacity);
+        }
+        
+        return capacity;
+    }
+    
+    /**
+     * Returns the L1 norm of the estimated local controller capacity.
+     * 
+     * @param localController   The local controller description
+     * @return                  The L1 norm
+     */
+    public double getLocalControllerL1Norm(LocalControllerDescription localController)
+    {
+        String localControllerId = localController.getId();
+        Double norm = localControllerNorms_.get(localControllerId);
+        if (norm == null)
+        {
+            norm = MathUtils.computeL1Norm(getLocalControllerCapacity(localController));
+            localControllerNorms_.put(localControllerId, norm);
+        }
+        
+        return norm;
+    }
+    
+    /**
+     * Returns the estimated virtual machine resource demand.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  The resource demand
+     */
+    public ArrayList<Double> getVirtualMachineDemand(VirtualMachineMetaData virtualMachine)
+    {
+        String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+        ArrayList<Double> demand = virtualMachineDemands_.get(virtualMachineId);
+        if (demand == null)
+        {
+            demand = estimator_.estimateVirtualMachineResourceDemand(virtualMachine);
+            virtualMachineDemands_.put(virtualMachineId, demand);
+        }
+        
+        return demand;
+    }
+    
+    /**
+     * Returns the virtual machine capacity (requested or estimated).
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @return                  The capacity
+     */
+    public List<Double> getVirtualMachineCapacity(VirtualMachineMetaData virtualMachine)
+    {
+        String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+        List<Double> capacity = virtualMachineCapacities_.get(virtualMachineId);
+        if (capacity == null)
+        {
+            capacity = estimator_.computeVirtualMachineCapacity(virtualMachine);
+            virtualMachineCapacities_.put(virtualMachineId, capacity);
+        }
+        
+        return capacity;
+    }
+    
+    /**
+     * Checks whether a local controller has enough capacity to host the virtual machine.
+     * 
+     * @param virtualMachine    The virtual machine meta data
+     * @param localController   The local controller description
+     * @return                  true if enough capacity available, false otherwise
+     */
+    public boolean hasEnoughLocalControllerCapacity(VirtualMachineMetaData virtualMachine,
+                                                    LocalControllerDescription localController)
+    {
+        return estimator_.hasEnoughLocalControllerCapacity(getVirtualMachineCapacity(virtualMachine),
+                                                           getLocalControllerCapacity(localController),
+                                                           localController);
+    }
+    
+    /**
+     * Invalidates the cached capacity of a local controller.
+     * To be called whenever its virtual machines change.
+     * 
+     * @param localController   The local controller description
+     */
+    public void invalidate(LocalControllerDescription localController)
+    {
+        localControllerCapacities_.remove(localController.getId());
+        localControllerNorms_.remove(localController.getId());
+    }
+}
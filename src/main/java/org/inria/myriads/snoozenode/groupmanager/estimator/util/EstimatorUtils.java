@@ -59,7 +59,24 @@ public final class EstimatorUtils
                                     List<LocalControllerDescription> localControllers,
                                     ResourceDemandEstimator estimator) 
     {
-        Guard.check(virtualMachine, localControllers);
+        Guard.check(estimator);
+        return findSuitableLocalController(virtualMachine, localControllers, new CapacityCache(estimator));
+    }
+    
+    /**
+     * Finds a suitable local controller.
+     * 
+     * @param virtualMachine     The virtual machine meta data
+     * @param localControllers   The local controller descriptions
+     * @param capacityCache      The capacity cache
+     * @return                   The local controller description
+     */
+    public static LocalControllerDescription 
+        findSuitableLocalController(VirtualMachineMetaData virtualMachine, 
+                                    List<LocalControllerDescription> localControllers,
+                                    CapacityCache capacityCache) 
+    {
+        Guard.check(virtualMachine, localControllers, capacityCache);
         
         String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
         log_.debug(String.format("Starting to find a suitable local controller for virtual machine: %s", 
@@ -74,7 +91,7 @@ public final class EstimatorUtils
                 continue;
             }
                         
-            if (estimator.hasEnoughLocalControllerCapacity(virtualMachine, localController))
+            if (capacityCache.hasEnoughLocalControllerCapacity(virtualMachine, localController))
             {
                 log_.debug(String.format("Virtual machine: %s fits into the local controller: %s", 
                                          virtualMachineId, 
@@ -20,16 +20,20 @@
 package org.inria.myriads.snoozenode.groupmanager.init;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
 import org.inria.myriads.snoozecommon.communication.localcontroller.AssignedGroupManager;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.CommunicatorCall;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
 import org.inria.myriads.snoozenode.database.DatabaseFactory;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.database.enums.DatabaseType;
@@ -39,10 +43,12 @@ import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.GroupLeaderPolic
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.assignment.AssignmentPolicy;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.enums.Assignment;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.MonitoringFactory;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.receiver.GroupManagerSummaryReceiver;
 import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.VirtualClusterManager;
 import org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery.VirtualMachineDiscovery;
 import org.inria.myriads.snoozenode.heartbeat.HeartbeatFactory;
 import org.inria.myriads.snoozenode.heartbeat.message.HeartbeatMessage;
+import org.inria.myriads.snoozenode.heartbeat.sender.HeartbeatMulticastSender;
 import org.inria.myriads.snoozenode.util.ManagementUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,6 +80,12 @@ public final class GroupLeaderInit
 
     /** Resource demand estimator. */
     private ResourceDemandEstimator estimator_;
+    
+    /** Group manager summary receiver. */
+    private GroupManagerSummaryReceiver summaryReceiver_;
+    
+    /** Heartbeat sender. */
+    private HeartbeatMulticastSender heartbeatSender_;
 
     /**
      * Constructor.
@@ -183,10 +195,12 @@ public final class GroupLeaderInit
         log_.debug("Starting the group manager monitoring data receiver");  
         NetworkAddress monitoringAddress = 
             nodeConfiguration_.getNetworking().getListen().getMonitoringDataAddress();
-        int monitoringTimeout = nodeConfiguration_.getMonitoring().getTimeout(); 
-        MonitoringFactory.newGroupManagerSummaryReceiver(monitoringAddress,
-                                                         monitoringTimeout,
-                                                         groupLeaderRepository_);
+        MonitoringSettings monitoringSettings = nodeConfiguration_.getMonitoring(); 
+        summaryReceiver_ = 
+            MonitoringFactory.newGroupManagerSummaryReceiver(monitoringAddress,
+                                                             monitoringSettings,
+                                                             groupLeaderRepository_,
+                                                             virtualClusterManager_.getCompletionTracker());
     }
     
     /**
@@ -255,20 +269,47 @@ public final class GroupLeaderInit
     private AssignedGroupManager lookupLocalControllerLocation(LocalControllerDescription localController,
                                                                List<GroupManagerDescription> groupManagers)
     {
-        log_.debug("Performing local controller lookup on group managers");
-        NetworkAddress contactInformation = localController.getControlDataAddress();
+        final NetworkAddress contactInformation = localController.getControlDataAddress();
+        VirtualMachineLocation location = groupLeaderRepository_.lookupLocalControllerLocation(contactInformation);
+        if (location != null)
+        {
+            for (GroupManagerDescription groupManager : groupManagers)
+            {
+                if (groupManager.getId().equals(location.getGroupManagerId()))
+                {
+                    log_.debug("Local controller found in the location index");
+                    AssignedGroupManager lookup = new AssignedGroupManager();
+                    lookup.setLocalControllerId(location.getLocalControllerId());
+                    lookup.setGroupManager(groupManager);
+                    return lookup;
+                }
+            }
+        }
         
+        log_.debug("Performing local controller lookup on group managers");
+        List<NetworkAddress> addresses = new ArrayList<NetworkAddress>(groupManagers.size());
         for (GroupManagerDescription groupManager : groupManagers)
         {
-            NetworkAddress groupManagerAddress = groupManager.getListenSettings().getControlDataAddress();
-            GroupManagerAPI groupManagerCommunicator = 
-                CommunicatorFactory.newGroupManagerCommunicator(groupManagerAddress);
-            String localControllerId = groupManagerCommunicator.hasLocalController(contactInformation);
+            addresses.add(groupManager.getListenSettings().getControlDataAddress());
+        }
+        
+        List<String> localControllerIds = NodeCommunicatorFactory.getAsyncGroupManagerCommunicator()
+            .invokeAll(addresses, new CommunicatorCall<GroupManagerAPI, String>()
+            {
+                public String call(GroupManagerAPI communicator)
+                {
+                    return communicator.hasLocalController(contactInformation);
+                }
+            });
+        
+        for (int i = 0; i < groupManagers.size(); i++)
+        {
+            String localControllerId = localControllerIds.get(i);
             if (localControllerId != null)
             {
                 AssignedGroupManager lookup = new AssignedGroupManager();
                 lookup.setLocalControllerId(localControllerId);
-                lookup.setGroupManager(groupManager);
+                lookup.setGroupManager(groupManagers.get(i));
                 return lookup;
             }
         }
@@ -294,9 +335,33 @@ public final class GroupLeaderInit
         int heartbeatInterval = nodeConfiguration_.getFaultTolerance().getHeartbeat().getInterval();
         HeartbeatMessage heartbeatMessage = ManagementUtils.createHeartbeatMessage(groupLeader.getListenSettings(), 
                                                                                    groupLeader.getId());
-        new Thread(HeartbeatFactory.newHeartbeatMulticastSender(heartbeatAddress, 
-                                                                heartbeatInterval,
-                                                                heartbeatMessage)).start();
+        heartbeatSender_ = HeartbeatFactory.newHeartbeatMulticastSender(heartbeatAddress, 
+                                                                        heartbeatInterval,
+                                                                        heartbeatMessage);
+        new Thread(heartbeatSender_).start();
+    }
+    
+    /**
+     * Stops the group leader services.
+     */
+    public void stopServices()
+    {
+        log_.debug("Stopping the group leader logic");
+        
+        if (heartbeatSender_ != null)
+        {
+            heartbeatSender_.terminate();
+        }
+        
+        if (summaryReceiver_ != null)
+        {
+            summaryReceiver_.terminate();
+        }
+        
+        if (virtualClusterManager_ != null)
+        {
+            virtualClusterManager_.shutdown();
+        }
     }
     
     /** 
@@ -24,14 +24,15 @@ import java.io.IOException;
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
 import org.inria.myriads.snoozecommon.communication.groupmanager.ListenSettings;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
+import org.inria.myriads.snoozenode.configurator.database.DatabaseSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
 import org.inria.myriads.snoozenode.configurator.scheduler.ReconfigurationSettings;
 import org.inria.myriads.snoozenode.database.DatabaseFactory;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
-import org.inria.myriads.snoozenode.database.enums.DatabaseType;
 import org.inria.myriads.snoozenode.groupmanager.energysaver.EnergySaverFactory;
 import org.inria.myriads.snoozenode.groupmanager.energysaver.saver.EnergySaver;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
@@ -153,6 +154,11 @@ public final class GroupManagerInit
         {
             reconfigurationScheduler_.shutdown();
         }
+        
+        if (stateMachine_ != null)
+        {
+            stateMachine_.shutdown();
+        }
     }
             
     /**
@@ -161,11 +167,11 @@ public final class GroupManagerInit
     private void initializeRepository()
     {
         String groupManagerId = description_.getId();
-        int maxCapacity = nodeConfiguration_.getDatabase().getNumberOfEntriesPerVirtualMachine();
-        DatabaseType databaseType = nodeConfiguration_.getDatabase().getType();
+        DatabaseSettings databaseSettings = nodeConfiguration_.getDatabase();
+        int maxCapacity = databaseSettings.getNumberOfEntriesPerVirtualMachine();
         repository_ = DatabaseFactory.newGroupManagerRepository(groupManagerId, 
                                                                 maxCapacity, 
-                                                                databaseType);
+                                                                databaseSettings);
     }
     
     /**
@@ -176,6 +182,8 @@ public final class GroupManagerInit
         estimator_ = new ResourceDemandEstimator(nodeConfiguration_.getEstimator(),
                                                  nodeConfiguration_.getMonitoring().getThresholds(),
                                                  nodeConfiguration_.getSubmission().getPackingDensity());      
+        estimator_.setHistoryProvider(repository_);
+        repository_.setStatisticsFactory(estimator_);
     }
     
     /**
@@ -262,8 +270,9 @@ public final class GroupManagerInit
         Guard.check(groupLeader);              
         if (monitoringService_ == null)
         {
-            int monitoringInterval = nodeConfiguration_.getMonitoring().getInterval();
-            monitoringService_ = MonitoringFactory.newGroupManagerMonitoringService(repository_, monitoringInterval);
+            MonitoringSettings monitoringSettings = nodeConfiguration_.getMonitoring();
+            monitoringService_ = MonitoringFactory.newGroupManagerMonitoringService(repository_, monitoringSettings);
+            stateMachine_.setSubmissionCompletionListener(monitoringService_);
         }
         
         monitoringService_.startSummaryProducer(groupLeader.getListenSettings().getMonitoringDataAddress(), 
@@ -297,7 +306,7 @@ public final class GroupManagerInit
                                  address.getAddress(), address.getPort()));
     
         repository_.fillGroupManagerDescription(description_);
-        GroupManagerAPI communicator = CommunicatorFactory.newGroupManagerCommunicator(address);
+        GroupManagerAPI communicator = NodeCommunicatorFactory.newGroupManagerCommunicator(address);
         boolean hasJoined = communicator.joinGroupLeader(description_);
         if (hasJoined)
         {
@@ -30,4 +30,9 @@ public interface LeaderElection
      * Starts the leader election. 
      */
     void start();
+    
+    /** 
+     * Stops the leader election. 
+     */
+    void stop();
 }
@@ -80,6 +80,12 @@ public final class ZooKeeperLeaderElection
 
     /** Group manager description. */
     private GroupManagerDescription groupManagerDescription_;  
+    
+    /** The election thread. */
+    private Thread electionThread_;
+    
+    /** Terminated. */
+    private volatile boolean isTerminated_;
 
     /**
      * Leader election based on ZooKeeper.
@@ -191,7 +197,7 @@ public final class ZooKeeperLeaderElection
             long mySequenceId = initializeZooKeeper();
             log_.debug(String.format("Connection string: %s, session timeout: %s, sequence id: %d", 
                                      connectionString_, sessionTimeout_, mySequenceId)); 
-            while (true) 
+            while (!isTerminated_) 
             {  
                 List<String> childList = getChildList();              
                 for (int i = 0; i < childList.size(); i++) 
@@ -218,6 +224,12 @@ public final class ZooKeeperLeaderElection
         }
         catch (Exception exception)
         {
+            if (isTerminated_)
+            {
+                log_.debug("Leader election stopped");
+                return;
+            }
+            
             log_.error("Exception during leader election", exception);
         }
     }
@@ -310,6 +322,11 @@ public final class ZooKeeperLeaderElection
     {  
         Guard.check(event);
         log_.debug("Processing the watch event");
+        if (isTerminated_)
+        {
+            log_.debug("Leader election is stopped! Ignoring the watch event");
+            return;
+        }
         
         KeeperState state = event.getState();
         try
@@ -386,9 +403,35 @@ public final class ZooKeeperLeaderElection
     /**
      * Starts the leader election.
      */
-    public void start() 
+    public synchronized void start() 
     {
         log_.debug("Starting the leader election algorithm");
-        new Thread(this).start();
+        electionThread_ = new Thread(this);
+        electionThread_.start();
+    }  
+    
+    /**
+     * Stops the leader election and closes the zookeeper session.
+     */
+    public synchronized void stop() 
+    {
+        log_.debug("Stopping the leader election algorithm");
+        isTerminated_ = true;
+        if (electionThread_ != null)
+        {
+            electionThread_.interrupt();
+        }
+        
+        if (zookeeper_ != null)
+        {
+            try
+            {
+                zookeeper_.close();
+            }
+            catch (InterruptedException exception)
+            {
+                log_.error("Interrupted while closing the zookeeper session", exception);
+            }
+        }
     }  
 }
@@ -19,14 +19,13 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.managerpolicies.comparators;
 
-import java.util.ArrayList;
 import java.util.Comparator;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
 import org.inria.myriads.snoozecommon.guard.Guard;
-import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 
 /**
  * L1 norm based local controller sorting in decreasing order.
@@ -36,8 +35,8 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public class LocalControllerL1Decreasing
     implements Comparator<LocalControllerDescription> 
 {
-    /** Resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Capacity cache. */
+    private CapacityCache capacityCache_;
     
     /**
      * Constructor.
@@ -46,8 +45,18 @@ public class LocalControllerL1Decreasing
      */
     public LocalControllerL1Decreasing(ResourceDemandEstimator estimator)
     {
-        Guard.check(estimator);
-        estimator_ = estimator;
+        this(new CapacityCache(estimator));
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param capacityCache     The capacity cache
+     */
+    public LocalControllerL1Decreasing(CapacityCache capacityCache)
+    {
+        Guard.check(capacityCache);
+        capacityCache_ = capacityCache;
     }
     
     /**
@@ -62,11 +71,8 @@ public class LocalControllerL1Decreasing
     {
         Guard.check(localController1, localController2);
         
-        ArrayList<Double> utilization1 = estimator_.computeLocalControllerCapacity(localController1);
-        ArrayList<Double> utilization2 = estimator_.computeLocalControllerCapacity(localController2);  
-        
-        double value1 = MathUtils.computeL1Norm(utilization1);
-        double value2 = MathUtils.computeL1Norm(utilization2);
+        double value1 = capacityCache_.getLocalControllerL1Norm(localController1);
+        double value2 = capacityCache_.getLocalControllerL1Norm(localController2);
         
         if (value1 < value2) 
         {
@@ -26,6 +26,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachin
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 
 /**
  * Euclid norm based virtual machine sorting in decreasing order.
@@ -35,8 +36,8 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public final class VirtualMachineEuclidDecreasing
     implements Comparator<VirtualMachineMetaData> 
 {
-    /** Resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Capacity cache. */
+    private CapacityCache capacityCache_;
 
     /**
      * Constructor.
@@ -45,8 +46,18 @@ public final class VirtualMachineEuclidDecreasing
      */
     public VirtualMachineEuclidDecreasing(ResourceDemandEstimator resourceDemandEstimator) 
     {
-        Guard.check(resourceDemandEstimator);
-        estimator_ = resourceDemandEstimator;
+        this(new CapacityCache(resourceDemandEstimator));
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param capacityCache     The capacity cache
+     */
+    public VirtualMachineEuclidDecreasing(CapacityCache capacityCache)
+    {
+        Guard.check(capacityCache);
+        capacityCache_ = capacityCache;
     }
 
     /**
@@ -60,8 +71,8 @@ public final class VirtualMachineEuclidDecreasing
                        VirtualMachineMetaData secondVirtualMachine)
     {
         Guard.check(firstVirtualMachine, secondVirtualMachine);
-        ArrayList<Double> estimatedDemand1 = estimator_.estimateVirtualMachineResourceDemand(firstVirtualMachine);
-        ArrayList<Double> estimatedDemand2 = estimator_.estimateVirtualMachineResourceDemand(secondVirtualMachine);
+        ArrayList<Double> estimatedDemand1 = capacityCache_.getVirtualMachineDemand(firstVirtualMachine);
+        ArrayList<Double> estimatedDemand2 = capacityCache_.getVirtualMachineDemand(secondVirtualMachine);
         
         double utilization1 = MathUtils.computeEuclidNorm(estimatedDemand1);
         double utilization2 = MathUtils.computeEuclidNorm(estimatedDemand2);
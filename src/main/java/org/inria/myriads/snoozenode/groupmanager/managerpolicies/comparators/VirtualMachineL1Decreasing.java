@@ -26,6 +26,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachin
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 
 /**
  * L1 norm based virtual machine sorting in decreasing order.
@@ -35,8 +36,8 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public final class VirtualMachineL1Decreasing
     implements Comparator<VirtualMachineMetaData> 
 {
-    /** Resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Capacity cache. */
+    private CapacityCache capacityCache_;
 
     /**
      * Consturctor.
@@ -45,8 +46,18 @@ public final class VirtualMachineL1Decreasing
      */
     public VirtualMachineL1Decreasing(ResourceDemandEstimator estimator) 
     {
-        Guard.check(estimator);
-        estimator_ = estimator;
+        this(new CapacityCache(estimator));
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param capacityCache     The capacity cache
+     */
+    public VirtualMachineL1Decreasing(CapacityCache capacityCache)
+    {
+        Guard.check(capacityCache);
+        capacityCache_ = capacityCache;
     }
 
     /**
@@ -60,9 +71,9 @@ public final class VirtualMachineL1Decreasing
     {
         Guard.check(firstVirtualMachine, secondVirtualMachine);
         ArrayList<Double> estunatedDemand1 = 
-                estimator_.estimateVirtualMachineResourceDemand(firstVirtualMachine);       
+                capacityCache_.getVirtualMachineDemand(firstVirtualMachine);       
         ArrayList<Double> estunatedDemand2 = 
-                estimator_.estimateVirtualMachineResourceDemand(secondVirtualMachine);
+                capacityCache_.getVirtualMachineDemand(secondVirtualMachine);
         
         double utilization1 = MathUtils.computeL1Norm(estunatedDemand1);
         double utilization2 = MathUtils.computeL1Norm(estunatedDemand2);
@@ -26,6 +26,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachin
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 
 /**
  * L1 norm based virtual machine sorting in increasing order.
@@ -35,8 +36,8 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public final class VirtualMachineL1Increasing
     implements Comparator<VirtualMachineMetaData> 
 {
-    /** Resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Capacity cache. */
+    private CapacityCache capacityCache_;
 
     /**
      * Consturctor.
@@ -45,8 +46,18 @@ public final class VirtualMachineL1Increasing
      */
     public VirtualMachineL1Increasing(ResourceDemandEstimator estimator) 
     {
-        Guard.check(estimator);
-        estimator_ = estimator;
+        this(new CapacityCache(estimator));
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param capacityCache     The capacity cache
+     */
+    public VirtualMachineL1Increasing(CapacityCache capacityCache)
+    {
+        Guard.check(capacityCache);
+        capacityCache_ = capacityCache;
     }
 
     /**
@@ -60,11 +71,11 @@ public final class VirtualMachineL1Increasing
                        VirtualMachineMetaData secondVirtualMachine)
     {
         Guard.check(firstVirtualMachine, secondVirtualMachine);
-        ArrayList<Double> estunatedDemand1 = estimator_.estimateVirtualMachineResourceDemand(firstVirtualMachine);
+        ArrayList<Double> estunatedDemand1 = capacityCache_.getVirtualMachineDemand(firstVirtualMachine);
         double utilization1 = MathUtils.computeL1Norm(estunatedDemand1);
 
         ArrayList<Double> estunatedDemand2 = 
-                estimator_.estimateVirtualMachineResourceDemand(secondVirtualMachine);        
+                capacityCache_.getVirtualMachineDemand(secondVirtualMachine);        
         double utilization2 = MathUtils.computeL1Norm(estunatedDemand2);
         
         if (utilization1 < utilization2) 
@@ -26,6 +26,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachin
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 
 /**
  * Max norm based virtual machine sorting in decreasing order.
@@ -35,8 +36,8 @@ import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimat
 public final class VirtualMachineMaxDecreasing
     implements Comparator<VirtualMachineMetaData> 
 {    
-    /** The resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Capacity cache. */
+    private CapacityCache capacityCache_;
 
     /**
      * Constructor.
@@ -45,8 +46,18 @@ public final class VirtualMachineMaxDecreasing
      */
     public VirtualMachineMaxDecreasing(ResourceDemandEstimator resourceDemandEstimator) 
     {
-        Guard.check(resourceDemandEstimator);
-        estimator_ = resourceDemandEstimator;
+        this(new CapacityCache(resourceDemandEstimator));
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param capacityCache     The capacity cache
+     */
+    public VirtualMachineMaxDecreasing(CapacityCache capacityCache)
+    {
+        Guard.check(capacityCache);
+        capacityCache_ = capacityCache;
     }
 
     /**
@@ -61,9 +72,9 @@ public final class VirtualMachineMaxDecreasing
     {
         Guard.check(firstVirtualMachine, secondVirtualMachine);    
         ArrayList<Double> estunatedDemand1 = 
-                estimator_.estimateVirtualMachineResourceDemand(firstVirtualMachine);        
+                capacityCache_.getVirtualMachineDemand(firstVirtualMachine);        
         ArrayList<Double> estunatedDemand2 = 
-                estimator_.estimateVirtualMachineResourceDemand(secondVirtualMachine);
+                capacityCache_.getVirtualMachineDemand(secondVirtualMachine);
         
         double utilization1 = MathUtils.computeMaxNorm(estunatedDemand1);
         double utilization2 = MathUtils.computeMaxNorm(estunatedDemand2);
@@ -30,6 +30,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.status.Virtua
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.util.EstimatorUtils;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPolicy;
@@ -79,7 +80,8 @@ public final class FirstFit
         Guard.check(virtualMachines, localControllers);    
         log_.debug(String.format("Placing %d virtual machine", virtualMachines.size()));
                
-        SortUtils.sortLocalControllersDecreasing(localControllers, estimator_);
+        CapacityCache capacityCache = new CapacityCache(estimator_);
+        SortUtils.sortLocalControllersDecreasing(localControllers, capacityCache);
         OutputUtils.printLocalControllers(localControllers);
                 
         Map<String, LocalControllerDescription> targetLocalControllers =  
@@ -90,7 +92,7 @@ public final class FirstFit
             String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
             LocalControllerDescription localController = EstimatorUtils.findSuitableLocalController(virtualMachine, 
                                                                                                     localControllers,
-                                                                                                    estimator_);
+                                                                                                    capacityCache);
             if (localController == null)                                                       
             {
                 log_.debug(String.format("No suitable local controller to host the virtual machine: %s", 
@@ -106,6 +108,7 @@ public final class FirstFit
                                      localController.getId(), virtualMachineId));
             localController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
             localController.getAssignedVirtualMachines().add(virtualMachine);
+            capacityCache.invalidate(localController);
          
             if (!targetLocalControllers.containsKey(localController.getId()))
             {
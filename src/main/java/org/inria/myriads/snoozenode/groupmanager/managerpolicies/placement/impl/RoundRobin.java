@@ -30,6 +30,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.status.Virtua
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPolicy;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.util.SortUtils;
@@ -82,7 +83,8 @@ public final class RoundRobin implements PlacementPolicy
         Map<String, LocalControllerDescription> targetLocalControllers = 
                 new HashMap<String, LocalControllerDescription>();
         List<VirtualMachineMetaData> unassignedVirtualMachines = new ArrayList<VirtualMachineMetaData>();      
-        SortUtils.sortLocalControllersDecreasing(localControllers, estimator_);
+        CapacityCache capacityCache = new CapacityCache(estimator_);
+        SortUtils.sortLocalControllersDecreasing(localControllers, capacityCache);
 
         for (VirtualMachineMetaData virtualMachine : virtualMachines)
         {
@@ -95,7 +97,7 @@ public final class RoundRobin implements PlacementPolicy
                 LocalControllerDescription nextLocalController = localControllers.get(nextLocalControllerIndex);
                 runningIndex_++;
 
-                if (estimator_.hasEnoughLocalControllerCapacity(virtualMachine, nextLocalController))
+                if (capacityCache.hasEnoughLocalControllerCapacity(virtualMachine, nextLocalController))
                 {
                     log_.debug(String.format("Local controller %s has enough capacity for virtual machine: %s!",
                                              nextLocalController.getId(), 
@@ -103,6 +105,7 @@ public final class RoundRobin implements PlacementPolicy
                     
                     nextLocalController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
                     nextLocalController.getAssignedVirtualMachines().add(virtualMachine);
+                    capacityCache.invalidate(nextLocalController);
                     String localControllerId = nextLocalController.getId();
                     if (!targetLocalControllers.containsKey(localControllerId))
                     {
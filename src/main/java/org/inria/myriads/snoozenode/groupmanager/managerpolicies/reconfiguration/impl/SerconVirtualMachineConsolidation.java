@@ -28,6 +28,7 @@ import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControl
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.util.EstimatorUtils;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPolicy;
@@ -84,7 +85,7 @@ public final class SerconVirtualMachineConsolidation
                      
         Map<VirtualMachineMetaData, LocalControllerDescription> mapping = 
             new HashMap<VirtualMachineMetaData, LocalControllerDescription>();
-        
+        CapacityCache capacityCache = new CapacityCache(estimator_);
         
         int runningIndex = localControllers.size() ; 
         int leastLoadedController ;
@@ -94,7 +95,7 @@ public final class SerconVirtualMachineConsolidation
             log_.debug(String.format("There are still %d localControllers", leastLoadedController));
             try
             {          
-                SortUtils.sortLocalControllersDecreasing(localControllers, estimator_);                
+                SortUtils.sortLocalControllersDecreasing(localControllers, capacityCache);                
                 LocalControllerDescription localController = localControllers.get(leastLoadedController);
                 log_.debug(String.format("Getting local controller %s description", localController.getId()));
                 
@@ -108,8 +109,11 @@ public final class SerconVirtualMachineConsolidation
                 }
                 
                 OutputUtils.printVirtualMachines(virtualMachines);
-                SortUtils.sortVirtualMachinesDecreasing(virtualMachines, estimator_);    
-                int numberOfPlacedVirtualMachines = placeVirtualMachines(virtualMachines, localControllers, mapping);
+                SortUtils.sortVirtualMachinesDecreasing(virtualMachines, capacityCache);    
+                int numberOfPlacedVirtualMachines = placeVirtualMachines(virtualMachines, 
+                                                                         localControllers, 
+                                                                         mapping, 
+                                                                         capacityCache);
                 log_.debug(String.format("Total virtual machines count %d, assigned: %d", 
                                          virtualMachines.size(), numberOfPlacedVirtualMachines));
                 
@@ -129,7 +133,7 @@ public final class SerconVirtualMachineConsolidation
                     
                 } else
                 {
-                    removeVirtualMachines(virtualMachines, mapping,localController);
+                    removeVirtualMachines(virtualMachines, mapping, localController, capacityCache);
                     
                 }
                 runningIndex -- ; 
@@ -157,11 +161,13 @@ public final class SerconVirtualMachineConsolidation
      * @param virtualMachines       The virtual machines
      * @param localControllers      The local controllers
      * @param mapping               The mapping
+     * @param capacityCache         The capacity cache
      * @return                      The number of successfully placed virtual machines
      */
     private int placeVirtualMachines(List<VirtualMachineMetaData> virtualMachines,
                                      List<LocalControllerDescription> localControllers,
-                                     Map<VirtualMachineMetaData, LocalControllerDescription> mapping)
+                                     Map<VirtualMachineMetaData, LocalControllerDescription> mapping,
+                                     CapacityCache capacityCache)
     {
         log_.debug("Starting to place virtual machines");
         
@@ -170,7 +176,7 @@ public final class SerconVirtualMachineConsolidation
         {
             LocalControllerDescription localController = EstimatorUtils.findSuitableLocalController(virtualMachine, 
                                                                                                     localControllers,
-                                                                                                    estimator_);
+                                                                                                    capacityCache);
             if (localController == null)
             {
                 log_.debug("No suitable local controller found!");
@@ -186,6 +192,7 @@ public final class SerconVirtualMachineConsolidation
             numberOfVirtualMachines++;
             String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
             localController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+            capacityCache.invalidate(localController);
             mapping.put(virtualMachine, localController);
         }
         
@@ -195,13 +202,15 @@ public final class SerconVirtualMachineConsolidation
     /**
      * Removes virtual machines from current schedule.
      * 
-     * @param virtualMachines       The virtual machines
-     * @param mapping               The current mapping
+     * @param virtualMachines           The virtual machines
+     * @param mapping                   The current mapping
+     * @param currentLocalController    The current local controller
+     * @param capacityCache             The capacity cache
      */
     private void removeVirtualMachines(List<VirtualMachineMetaData> virtualMachines, 
                                        Map<VirtualMachineMetaData, LocalControllerDescription> mapping,
-                                       LocalControllerDescription currentLocalController
-                                       ) 
+                                       LocalControllerDescription currentLocalController,
+                                       CapacityCache capacityCache) 
     {
         log_.debug("Starting to remove virtual machines");
         for (VirtualMachineMetaData metaData : virtualMachines)
@@ -218,6 +227,7 @@ public final class SerconVirtualMachineConsolidation
                 if (localController != null)
                 {
                     localController.getVirtualMachineMetaData().remove(virtualMachineId);
+                    capacityCache.invalidate(localController);
                 }
             }
             else{
@@ -27,6 +27,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachin
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.VirtualMachineRelocation;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.utility.RelocationUtility;
@@ -67,10 +68,12 @@ public final class GreedyOverloadRelocation
      * 
      * @param virtualMachines       The virtual machines
      * @param overloadCapacity      The overload capacity
+     * @param capacityCache         The capacity cache
      * @return                      The migration candidates
      */
     private List<VirtualMachineMetaData> getMigrationCandidates(List<VirtualMachineMetaData> virtualMachines,
-                                                                List<Double> overloadCapacity)
+                                                                List<Double> overloadCapacity,
+                                                                CapacityCache capacityCache)
     {
         log_.debug("Computing list of migration candidates");
         
@@ -78,7 +81,7 @@ public final class GreedyOverloadRelocation
         for (VirtualMachineMetaData metaData : virtualMachines)
         {            
             String virtualMachineId = metaData.getVirtualMachineLocation().getVirtualMachineId();
-            List<Double> virtualMachineUsage = estimator_.estimateVirtualMachineResourceDemand(metaData);
+            List<Double> virtualMachineUsage = capacityCache.getVirtualMachineDemand(metaData);
             log_.debug(String.format("Estimated virtual machine %s resource demand: %s. Overload capacity: %s", 
                                       virtualMachineId,
                                       virtualMachineUsage, 
@@ -96,7 +99,7 @@ public final class GreedyOverloadRelocation
         for (VirtualMachineMetaData metaData : virtualMachines)
         {
             migrationCandidates.add(metaData);         
-            List<Double> virtualMachineUsage = estimator_.estimateVirtualMachineResourceDemand(metaData);            
+            List<Double> virtualMachineUsage = capacityCache.getVirtualMachineDemand(metaData);            
             tmpUsage = MathUtils.addVectors(tmpUsage, virtualMachineUsage);
             log_.debug(String.format("Estimated virtual machine %s resource demand: %s. Total demand: %s", 
                                      metaData.getVirtualMachineLocation().getVirtualMachineId(),
@@ -123,7 +126,8 @@ public final class GreedyOverloadRelocation
     {
         log_.debug("Starting to compute the moderate loaded migration plan");
 
-        List<Double> capacity = estimator_.computeLocalControllerCapacity(sourceLocalController);    
+        CapacityCache capacityCache = new CapacityCache(estimator_);
+        List<Double> capacity = capacityCache.getLocalControllerCapacity(sourceLocalController);    
         log_.debug(String.format("Local controller capacity: %s", capacity));
         
         List<Double> maxAllowedCapacity = estimator_.computeMaxAllowedCapacity(sourceLocalController);
@@ -134,16 +138,17 @@ public final class GreedyOverloadRelocation
         
         List<VirtualMachineMetaData> virtualMachines = 
             new ArrayList<VirtualMachineMetaData>(sourceLocalController.getVirtualMachineMetaData().values());
-        SortUtils.sortVirtualMachinesIncreasing(virtualMachines, estimator_);
+        SortUtils.sortVirtualMachinesIncreasing(virtualMachines, capacityCache);
         OutputUtils.printVirtualMachines(virtualMachines);
                             
         List<VirtualMachineMetaData> migrationCandidates = getMigrationCandidates(virtualMachines,
-                                                                                  overloadCapacity);        
-        SortUtils.sortLocalControllersIncreasing(destinationLocalControllers, estimator_);
+                                                                                  overloadCapacity,
+                                                                                  capacityCache);        
+        SortUtils.sortLocalControllersIncreasing(destinationLocalControllers, capacityCache);
         ReconfigurationPlan reconfigurationPlan = 
                 RelocationUtility.computeReconfigurationPlan(migrationCandidates,  
                                                              destinationLocalControllers, 
-                                                             estimator_,
+                                                             capacityCache,
                                                              LocalControllerState.OVERLOADED);
         return reconfigurationPlan;
     }
@@ -26,6 +26,7 @@ import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControl
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.VirtualMachineRelocation;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.utility.RelocationUtility;
@@ -75,12 +76,13 @@ public final class GreedyUnderloadRelocation
                 
         List<VirtualMachineMetaData> candidatevirtualMachines = 
             new ArrayList<VirtualMachineMetaData>(sourceLocalController.getVirtualMachineMetaData().values());
-        SortUtils.sortVirtualMachinesDecreasing(candidatevirtualMachines, estimator_);
-        SortUtils.sortLocalControllersDecreasing(destinationLocalControllers, estimator_);
+        CapacityCache capacityCache = new CapacityCache(estimator_);
+        SortUtils.sortVirtualMachinesDecreasing(candidatevirtualMachines, capacityCache);
+        SortUtils.sortLocalControllersDecreasing(destinationLocalControllers, capacityCache);
         ReconfigurationPlan reconfigurationPlan = 
                 RelocationUtility.computeReconfigurationPlan(candidatevirtualMachines,
                                                              destinationLocalControllers, 
-                                                             estimator_,
+                                                             capacityCache,
                                                              LocalControllerState.UNDERLOADED);
         return reconfigurationPlan;
     }
@@ -27,6 +27,7 @@ import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControl
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 import org.inria.myriads.snoozenode.groupmanager.estimator.util.EstimatorUtils;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
@@ -69,7 +70,29 @@ public final class RelocationUtility
                                    ResourceDemandEstimator estimator,
                                    LocalControllerState state) 
     {
-        Guard.check(migrationCandidates, destinationLocalControllers, estimator);
+        Guard.check(estimator);
+        return computeReconfigurationPlan(migrationCandidates, 
+                                          destinationLocalControllers, 
+                                          new CapacityCache(estimator), 
+                                          state);
+    }
+    
+    /**
+     * Computes the migration plan for anomalied local controllers. 
+     * 
+     * @param migrationCandidates           The migration candidates
+     * @param destinationLocalControllers   The destination local controllers
+     * @param capacityCache                 The capacity cache
+     * @param state                         The local controller state
+     * @return                              The migration plan
+     */
+    public static ReconfigurationPlan 
+        computeReconfigurationPlan(List<VirtualMachineMetaData> migrationCandidates,
+                                   List<LocalControllerDescription> destinationLocalControllers,
+                                   CapacityCache capacityCache,
+                                   LocalControllerState state) 
+    {
+        Guard.check(migrationCandidates, destinationLocalControllers, capacityCache);
         log_.debug(String.format("Computing migration plan for %d virtual machines", migrationCandidates.size()));
         
         if (migrationCandidates.size() == 0)
@@ -92,7 +115,7 @@ public final class RelocationUtility
                 case OVERLOADED :
                    localController = EstimatorUtils.findSuitableLocalController(candidateVirtualMachine, 
                                                                                 destinationLocalControllers,
-                                                                                estimator);
+                                                                                capacityCache);
                     if (localController == null)
                     {
                         log_.debug("No local controller with enough capacity could be detected!");
@@ -103,7 +126,7 @@ public final class RelocationUtility
                 case UNDERLOADED :
                     localController = EstimatorUtils.findSuitableLocalController(candidateVirtualMachine, 
                                                                                  destinationLocalControllers,
-                                                                                 estimator);
+                                                                                 capacityCache);
                     if (localController == null)
                     {
                         log_.debug("No local controller with enough capacity could be detected!");
@@ -114,7 +137,7 @@ public final class RelocationUtility
                 case OVERHEATED :
                    localController = EstimatorUtils.findSuitableLocalController(candidateVirtualMachine, 
                                                                                 destinationLocalControllers,
-                                                                                estimator);
+                                                                                capacityCache);
                     if (localController == null)
                     {
                         log_.debug("No local controller with enough capacity could be detected!");
@@ -131,6 +154,7 @@ public final class RelocationUtility
             log_.debug(String.format("Local controller %s has enough capacity to host virtual machine %s! Adding!",
                                      localController.getId(), virtualMachineId));
             localController.getVirtualMachineMetaData().put(virtualMachineId, candidateVirtualMachine);
+            capacityCache.invalidate(localController);
             mapping.put(candidateVirtualMachine, localController);
         }       
         
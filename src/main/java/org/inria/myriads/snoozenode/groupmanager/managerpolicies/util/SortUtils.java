@@ -27,6 +27,7 @@ import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControl
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.comparators.GroupManagerL1Decreasing;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.comparators.LocalControllerL1Decreasing;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.comparators.LocalControllerL1Increasing;
@@ -63,14 +64,27 @@ public final class SortUtils
     public static void sortVirtualMachinesIncreasing(List<VirtualMachineMetaData> virtualMachines,
                                                      ResourceDemandEstimator estimator) 
     {
-        Guard.check(virtualMachines, estimator);
+        Guard.check(estimator);
+        sortVirtualMachinesIncreasing(virtualMachines, new CapacityCache(estimator));
+    }
+    
+    /**
+     * Sorts virtual machines in increasing order.
+     * 
+     * @param virtualMachines      The virtual machines
+     * @param capacityCache        The capacity cache
+     */
+    public static void sortVirtualMachinesIncreasing(List<VirtualMachineMetaData> virtualMachines,
+                                                     CapacityCache capacityCache) 
+    {
+        Guard.check(virtualMachines, capacityCache);
         log_.debug(String.format("Sorting virtual machines in increasing order according to %s norm!", 
-                                 estimator.getSortNorm()));
+                                 capacityCache.getEstimator().getSortNorm()));
         
-        switch (estimator.getSortNorm())
+        switch (capacityCache.getEstimator().getSortNorm())
         {
             case L1 : 
-                Collections.sort(virtualMachines, new VirtualMachineL1Increasing(estimator));
+                Collections.sort(virtualMachines, new VirtualMachineL1Increasing(capacityCache));
                 break;
                         
             default:
@@ -111,22 +125,35 @@ public final class SortUtils
     public static void sortVirtualMachinesDecreasing(List<VirtualMachineMetaData> virtualMachines,  
                                                      ResourceDemandEstimator estimator)
     {
-        Guard.check(virtualMachines, estimator);
+        Guard.check(estimator);
+        sortVirtualMachinesDecreasing(virtualMachines, new CapacityCache(estimator));
+    }
+    
+    /**
+     * Sort the given VM list in decreasing order according to the specified demand measure.
+     *  
+     * @param virtualMachines    The virtual machine descriptions
+     * @param capacityCache      The capacity cache
+     */
+    public static void sortVirtualMachinesDecreasing(List<VirtualMachineMetaData> virtualMachines,
+                                                     CapacityCache capacityCache)
+    {
+        Guard.check(virtualMachines, capacityCache);
         log_.debug(String.format("Sorting virtual machines in decreasing order according to %s norm!", 
-                                 estimator.getSortNorm()));
+                                 capacityCache.getEstimator().getSortNorm()));
         
-        switch (estimator.getSortNorm())
+        switch (capacityCache.getEstimator().getSortNorm())
         {
             case L1 : 
-                Collections.sort(virtualMachines, new VirtualMachineL1Decreasing(estimator));
+                Collections.sort(virtualMachines, new VirtualMachineL1Decreasing(capacityCache));
                 break;
             
             case Euclid :
-                Collections.sort(virtualMachines, new VirtualMachineEuclidDecreasing(estimator));
+                Collections.sort(virtualMachines, new VirtualMachineEuclidDecreasing(capacityCache));
                 break;
             
             case Max :
-                Collections.sort(virtualMachines, new VirtualMachineMaxDecreasing(estimator));
+                Collections.sort(virtualMachines, new VirtualMachineMaxDecreasing(capacityCache));
                 break;
             
             default:
@@ -144,14 +171,27 @@ public final class SortUtils
     public static void sortLocalControllersIncreasing(List<LocalControllerDescription> localControllers,
                                                       ResourceDemandEstimator estimator)
     {
-        Guard.check(localControllers, estimator);
+        Guard.check(estimator);
+        sortLocalControllersIncreasing(localControllers, new CapacityCache(estimator));
+    }
+    
+    /**
+     * Sort the local controlelrs in decreasing order according to the specified demand measure.
+     *  
+     * @param localControllers      The local controller descriptions
+     * @param capacityCache         The capacity cache
+     */
+    public static void sortLocalControllersIncreasing(List<LocalControllerDescription> localControllers,
+                                                      CapacityCache capacityCache)
+    {
+        Guard.check(localControllers, capacityCache);
         log_.debug(String.format("Sorting local controllers in increasing order according to %s norm!", 
-                                  estimator.getSortNorm()));
+                                  capacityCache.getEstimator().getSortNorm()));
         
-        switch (estimator.getSortNorm())
+        switch (capacityCache.getEstimator().getSortNorm())
         {
             case L1 : 
-                Collections.sort(localControllers, new LocalControllerL1Increasing(estimator));
+                Collections.sort(localControllers, new LocalControllerL1Increasing(capacityCache));
                 break;
             
             default:
@@ -169,14 +209,27 @@ public final class SortUtils
     public static void sortLocalControllersDecreasing(List<LocalControllerDescription> localControllers,
                                                       ResourceDemandEstimator estimator)
     {
-        Guard.check(localControllers, estimator);
+        Guard.check(estimator);
+        sortLocalControllersDecreasing(localControllers, new CapacityCache(estimator));
+    }
+    
+    /**
+     * Sort the local controlelrs in decreasing order according to the specified demand measure.
+     *  
+     * @param localControllers      The local controller descriptions
+     * @param capacityCache         The capacity cache
+     */
+    public static void sortLocalControllersDecreasing(List<LocalControllerDescription> localControllers,
+                                                      CapacityCache capacityCache)
+    {
+        Guard.check(localControllers, capacityCache);
         log_.debug(String.format("Sorting local controllers in decreasing order according to %s norm!", 
-                                  estimator.getSortNorm()));
+                                  capacityCache.getEstimator().getSortNorm()));
         
-        switch (estimator.getSortNorm())
+        switch (capacityCache.getEstimator().getSortNorm())
         {
             case L1 : 
-                Collections.sort(localControllers, new LocalControllerL1Decreasing(estimator));
+                Collections.sort(localControllers, new LocalControllerL1Decreasing(capacityCache));
                 break;
             
             default:
@@ -26,19 +26,22 @@ import java.util.Map;
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.localcontroller.hypervisor.HypervisorSettings;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.LocalControllerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.exception.MigrationPlanEnforcerException;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationListener;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationPlanListener;
-import org.inria.myriads.snoozenode.groupmanager.migration.watchdog.MigrationWatchdog;
-import org.inria.myriads.snoozenode.groupmanager.migration.worker.MigrationWorker;
+import org.inria.myriads.snoozenode.groupmanager.migration.scheduler.MigrationScheduler;
+import org.inria.myriads.snoozenode.groupmanager.migration.scheduler.ScheduledMigration;
+import org.inria.myriads.snoozenode.metrics.MetricsFactory;
+import org.inria.myriads.snoozenode.metrics.MetricsRegistry;
+import org.inria.myriads.snoozenode.util.UtilizationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,6 +59,9 @@ public final class MigrationPlanEnforcer
     /** Number of monitoring entries. */
     private static final int NUMBER_OF_MONITORING_ENTRIES = 1;
     
+    /** Failed migrations metric name. */
+    private static final String FAILED_METRIC = "groupmanager.migration.failed";
+    
     /** Group manager repository. */
     private GroupManagerRepository groupManagerRepository_;
     
@@ -68,21 +74,34 @@ public final class MigrationPlanEnforcer
     /** Number of migrations. */
     private int numberOfMigrations_;
     
+    /** Migration scheduler. */
+    private MigrationScheduler migrationScheduler_;
+    
+    /** Migration plan start time (ns). */
+    private long startTime_;
+    
+    /** Metrics registry. */
+    private MetricsRegistry metrics_;
+    
     /**
      * Constructor.
      * 
      * @param groupManagerRepository     The group manager repository
      * @param listener                   Migration plan listener
+     * @param migrationScheduler         The migration scheduler
      */
     public MigrationPlanEnforcer(GroupManagerRepository groupManagerRepository, 
-                                 MigrationPlanListener listener)
+                                 MigrationPlanListener listener,
+                                 MigrationScheduler migrationScheduler)
     {
-        Guard.check(groupManagerRepository);
+        Guard.check(groupManagerRepository, migrationScheduler);
         log_.debug("Initializing the migration plan enforcer");
         
         groupManagerRepository_ = groupManagerRepository;
         listener_ = listener;
+        migrationScheduler_ = migrationScheduler;
         finishedMigrations_ = new ArrayList<MigrationRequest>();
+        metrics_ = MetricsFactory.getRegistry();
     }
            
     /**
@@ -158,7 +177,8 @@ public final class MigrationPlanEnforcer
         log_.debug(String.format("Sending virtual machine monitoring start request to local controller %s: %d",
                                  localControllerAddress.getAddress(), localControllerAddress.getPort()));
         
-        LocalControllerAPI communicator = CommunicatorFactory.newLocalControllerCommunicator(localControllerAddress);
+        LocalControllerAPI communicator = 
+            NodeCommunicatorFactory.newLocalControllerCommunicator(localControllerAddress);
         return communicator.startVirtualMachineMonitoring(metaData);        
     }
     
@@ -181,15 +201,22 @@ public final class MigrationPlanEnforcer
             {
                 try 
                 {               
-                    processFinishedMigration(finishedMigration);
+                    boolean isProcessed = processFinishedMigration(finishedMigration);
+                    if (!isProcessed)
+                    {
+                        metrics_.getCounter(FAILED_METRIC).increment();
+                    }
                 } 
                 catch (MigrationPlanEnforcerException exception) 
                 {
                     log_.error("Exception during migration processing", exception);
+                    metrics_.getCounter(FAILED_METRIC).increment();
                 }    
             }
             
-            log_.debug("Migration plan enforced!");
+            metrics_.getHistogram("groupmanager.migration.plan").recordSince(startTime_);
+            log_.debug(String.format("Migration plan enforced in %d ms!", 
+                                     (System.nanoTime() - startTime_) / 1000000));
             listener_.onMigrationPlanEnforced();
             finishedMigrations_.clear();
         }
@@ -234,28 +261,6 @@ public final class MigrationPlanEnforcer
         return location;
     }
 
-    /**
-     * Migrates a virtual machine to the specified group manager.
-     *  
-     * @param migrationRequest      The migration request
-     */
-    private void startMigration(MigrationRequest migrationRequest) 
-    {    
-        log_.debug(String.format("Starting to migrate virtual machine %s from local controller %s:%d to %s:%d",
-            migrationRequest.getSourceVirtualMachineLocation().getVirtualMachineId(),
-            migrationRequest.getSourceVirtualMachineLocation().getLocalControllerControlDataAddress().getAddress(), 
-            migrationRequest.getSourceVirtualMachineLocation().getLocalControllerControlDataAddress().getPort(), 
-            migrationRequest.getDestinationVirtualMachineLocation().getLocalControllerControlDataAddress().getAddress(),
-            migrationRequest.getDestinationVirtualMachineLocation().getLocalControllerControlDataAddress().getPort()));
-                       
-        MigrationWorker migrationThread = new MigrationWorker(migrationRequest);
-        MigrationWatchdog watchdogThread = new MigrationWatchdog(migrationRequest, this);      
-        migrationThread.addMigrationListener(watchdogThread);
-        migrationThread.addMigrationListener(this);
-        new Thread(migrationThread).start();
-        new Thread(watchdogThread).start();
-    }
-        
     /**
      * Enforces the migration plan.
      * 
@@ -288,6 +293,10 @@ public final class MigrationPlanEnforcer
         
         log_.debug(String.format("Number of migrations: %s", numberOfMigrations_));
         
+        startTime_ = System.nanoTime();
+        metrics_.getCounter("groupmanager.migration.plans").increment();
+        metrics_.getCounter("groupmanager.migration.migrations").add(numberOfMigrations_);
+        List<ScheduledMigration> migrations = new ArrayList<ScheduledMigration>();
         Map<VirtualMachineMetaData, LocalControllerDescription> mapping = migrationPlan.getMapping();
         for (Map.Entry<VirtualMachineMetaData, LocalControllerDescription> entry : mapping.entrySet())
         {
@@ -302,7 +311,10 @@ public final class MigrationPlanEnforcer
             MigrationRequest migrationRequest = createMigrationRequest(sourceLocation,
                                                                        destinationLocation,
                                                                        localController.getHypervisorSettings()); 
-            startMigration(migrationRequest);
+            double memorySize = UtilizationUtils.getMemoryUtilization(virtualMachine.getRequestedCapacity());
+            migrations.add(new ScheduledMigration(migrationRequest, memorySize, this));
         }
+        
+        migrationScheduler_.schedule(migrations);
     }  
 }
@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.migration.scheduler;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
+import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationListener;
+
+/**
+ * Migration executor interface.
+ * 
+ * @author Eugen Feller
+ */
+public interface MigrationExecutor 
+{
+    /**
+     * Migrates a virtual machine in the calling thread.
+     * 
+     * The migration is considered running until the method returns. The listener
+     * should be notified once the migration ended, the timeout listener when the
+     * migration is given up while it may still be running (e.g. by a watchdog).
+     * 
+     * @param migrationRequest      The migration request
+     * @param listener              The migration listener
+     * @param timeoutListener       The migration timeout listener
+     */
+    void migrate(MigrationRequest migrationRequest, MigrationListener listener, MigrationListener timeoutListener);
+}
@@ -0,0 +1,353 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.migration.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.scheduler.MigrationSettings;
+import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded migration scheduler.
+ * 
+ * Limits the number of concurrent migrations globally, per source and per destination
+ * local controller. Pending migrations are started in increasing virtual machine memory
+ * size order as soon as the limits allow, on a shared pool of threads. A migration holds
+ * its slot until the executor returns and is reported then, unless the watchdog gave up on
+ * it earlier: the result is then reported right away and the timeout is counted separately.
+ * 
+ * @author Eugen Feller
+ */
+public final class MigrationScheduler 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(MigrationScheduler.class);
+    
+    /** Orders migrations by increasing memory size. */
+    private static final Comparator<ScheduledMigration> MEMORY_INCREASING = new Comparator<ScheduledMigration>()
+    {
+        public int compare(ScheduledMigration migration1, ScheduledMigration migration2)
+        {
+            return Double.compare(migration1.getMemorySize(), migration2.getMemorySize());
+        }
+    };
+    
+    /** Migration executor. */
+    private MigrationExecutor executor_;
+    
+    /** Migration threads. */
+    private ExecutorService migrationPool_;
+    
+    /** Maximum number of concurrent migrations. */
+    private int maxNumberOfConcurrentMigrations_;
+    
+    /** Maximum number of concurrent migrations per source. */
+    private int maxNumberOfMigrationsPerSource_;
+    
+    /** Maximum number of concurrent migrations per destination. */
+    private int maxNumberOfMigrationsPerDestination_;
+    
+    /** Pending migrations (ordered). */
+    private List<ScheduledMigration> pendingMigrations_;
+    
+    /** Number of active migrations. */
+    private int numberOfActiveMigrations_;
+    
+    /** Active migrations per source local controller. */
+    private Map<String, Integer> activePerSource_;
+    
+    /** Active migrations per destination local controller. */
+    private Map<String, Integer> activePerDestination_;
+    
+    /** Number of migrations the watchdog gave up on. */
+    private int numberOfTimedOutMigrations_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param migrationSettings     The migration settings
+     * @param executor              The migration executor
+     */
+    public MigrationScheduler(MigrationSettings migrationSettings, MigrationExecutor executor)
+    {
+        Guard.check(migrationSettings, executor);
+        log_.debug("Initializing the migration scheduler");
+        
+        executor_ = executor;
+        maxNumberOfConcurrentMigrations_ = Math.max(1, migrationSettings.getMaxNumberOfConcurrentMigrations());
+        maxNumberOfMigrationsPerSource_ = Math.max(1, migrationSettings.getMaxNumberOfMigrationsPerSource());
+        maxNumberOfMigrationsPerDestination_ = 
+            Math.max(1, migrationSettings.getMaxNumberOfMigrationsPerDestination());
+        pendingMigrations_ = new ArrayList<ScheduledMigration>();
+        activePerSource_ = new HashMap<String, Integer>();
+        activePerDestination_ = new HashMap<String, Integer>();
+        migrationPool_ = Executors.newCachedThreadPool();
+    }
+    
+    /**
+     * Schedules migrations.
+     * 
+     * @param migrations    The migrations
+     */
+    public synchronized void schedule(List<ScheduledMigration> migrations)
+    {
+        Guard.check(migrations);
+        log_.debug(String.format("Scheduling %d migrations", migrations.size()));
+        
+        long now = System.currentTimeMillis();
+        for (ScheduledMigration migration : migrations)
+        {
+            migration.setSubmitTime(now);
+            pendingMigrations_.add(migration);
+        }
+        
+        Collections.sort(pendingMigrations_, MEMORY_INCREASING);
+        dispatch();
+    }
+    
+    /**
+     * Starts pending migrations as long as the limits allow.
+     */
+    private void dispatch()
+    {
+        Iterator<ScheduledMigration> iterator = pendingMigrations_.iterator();
+        while (iterator.hasNext() && numberOfActiveMigrations_ < maxNumberOfConcurrentMigrations_)
+        {
+            ScheduledMigration migration = iterator.next();
+            if (getCount(activePerSource_, migration.getSourceId()) >= maxNumberOfMigrationsPerSource_ ||
+                getCount(activePerDestination_, migration.getDestinationId()) >= maxNumberOfMigrationsPerDestination_)
+            {
+                continue;
+            }
+            
+            iterator.remove();
+            start(migration);
+        }
+    }
+    
+    /**
+     * Starts a migration.
+     * 
+     * @param migration     The migration
+     */
+    private void start(final ScheduledMigration migration)
+    {
+        log_.debug(String.format("Starting migration of virtual machine %s from %s to %s", 
+                                 migration.getVirtualMachineId(),
+                                 migration.getSourceId(),
+                                 migration.getDestinationId()));
+        
+        numberOfActiveMigrations_++;
+        addCount(activePerSource_, migration.getSourceId(), 1);
+        addCount(activePerDestination_, migration.getDestinationId(), 1);
+        migration.setStartTime(System.currentTimeMillis());
+        
+        final MigrationListener listener = new MigrationListener()
+        {
+            public void onMigrationEnded(MigrationRequest migrationRequest)
+            {
+                log_.debug(String.format("Migration of virtual machine %s ended, reporting once it returns", 
+                                         migration.getVirtualMachineId()));
+            }
+        };
+        
+        final MigrationListener timeoutListener = new MigrationListener()
+        {
+            public void onMigrationEnded(MigrationRequest migrationRequest)
+            {
+                onMigrationTimedOut(migration);
+            }
+        };
+        
+        migrationPool_.execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    executor_.migrate(migration.getMigrationRequest(), listener, timeoutListener);
+                }
+                catch (RuntimeException exception)
+                {
+                    log_.error("Exception during migration", exception);
+                    migration.getMigrationRequest().setMigrated(false);
+                }
+                finally
+                {
+                    onMigrationEnded(migration);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Called when the watchdog gave up on a migration which may still be running.
+     * 
+     * @param migration     The migration
+     */
+    private void onMigrationTimedOut(ScheduledMigration migration)
+    {
+        synchronized (this)
+        {
+            if (migration.isTimedOut() || migration.isFinished())
+            {
+                return;
+            }
+            
+            migration.setTimedOut();
+            numberOfTimedOutMigrations_++;
+            log_.debug(String.format("Migration of virtual machine %s timed out, keeping its slot until the " +
+                                     "migration returns", migration.getVirtualMachineId()));
+        }
+        
+        report(migration);
+    }
+    
+    /**
+     * Reports the migration result to the listener once.
+     * 
+     * @param migration     The migration
+     */
+    private void report(ScheduledMigration migration)
+    {
+        synchronized (this)
+        {
+            if (migration.isReported())
+            {
+                log_.debug(String.format("Migration of virtual machine %s already reported", 
+                                         migration.getVirtualMachineId()));
+                return;
+            }
+            
+            migration.setReported();
+        }
+        
+        migration.getListener().onMigrationEnded(migration.getMigrationRequest());
+    }
+    
+    /**
+     * Called when the executor returned, releases the migration slot.
+     * 
+     * @param migration     The migration
+     */
+    private void onMigrationEnded(ScheduledMigration migration)
+    {
+        synchronized (this)
+        {
+            migration.setFinished(System.currentTimeMillis());
+            numberOfActiveMigrations_--;
+            addCount(activePerSource_, migration.getSourceId(), -1);
+            addCount(activePerDestination_, migration.getDestinationId(), -1);
+            log_.debug(String.format("Migration of virtual machine %s finished (migrated: %s, timed out: %s) " + 
+                                     "in %d ms after waiting %d ms", 
+                                     migration.getVirtualMachineId(),
+                                     migration.getMigrationRequest().isMigrated(),
+                                     migration.isTimedOut(),
+                                     migration.getMigrationTime(),
+                                     migration.getWaitingTime()));
+            dispatch();
+        }
+        
+        report(migration);
+    }
+    
+    /**
+     * Returns the count for a local controller.
+     * 
+     * @param counts                The counts
+     * @param localControllerId     The local controller identifier
+     * @return                      The count
+     */
+    private static int getCount(Map<String, Integer> counts, String localControllerId)
+    {
+        Integer count = counts.get(localControllerId);
+        return count == null ? 0 : count;
+    }
+    
+    /**
+     * Adds to the count of a local controller.
+     * 
+     * @param counts                The counts
+     * @param localControllerId     The local controller identifier
+     * @param delta                 The delta
+     */
+    private static void addCount(Map<String, Integer> counts, String localControllerId, int delta)
+    {
+        int count = getCount(counts, localControllerId) + delta;
+        if (count <= 0)
+        {
+            counts.remove(localControllerId);
+            return;
+        }
+        
+        counts.put(localControllerId, count);
+    }
+    
+    /**
+     * Returns the number of active migrations.
+     * 
+     * @return  The number of active migrations
+     */
+    public synchronized int getNumberOfActiveMigrations()
+    {
+        return numberOfActiveMigrations_;
+    }
+    
+    /**
+     * Returns the number of migrations the watchdog gave up on.
+     * 
+     * @return  The number of timed out migrations
+     */
+    public synchronized int getNumberOfTimedOutMigrations()
+    {
+        return numberOfTimedOutMigrations_;
+    }
+    
+    /**
+     * Returns the number of pending migrations.
+     * 
+     * @return  The number of pending migrations
+     */
+    public synchronized int getNumberOfPendingMigrations()
+    {
+        return pendingMigrations_.size();
+    }
+    
+    /**
+     * Stops the migration threads.
+     */
+    public void shutdown()
+    {
+        log_.debug("Shutting down the migration scheduler");
+        migrationPool_.shutdownNow();
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.migration.scheduler;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationListener;
+
+/**
+ * Migration waiting for or being executed by the migration scheduler.
+ * 
+ * @author Eugen Feller
+ */
+public final class ScheduledMigration 
+{
+    /** Migration request. */
+    private MigrationRequest migrationRequest_;
+    
+    /** Memory size of the virtual machine (determines the order). */
+    private double memorySize_;
+    
+    /** Listener notified once the migration ended. */
+    private MigrationListener listener_;
+    
+    /** Submission time (ms). */
+    private long submitTime_;
+    
+    /** Start time (ms). */
+    private long startTime_;
+    
+    /** End time (ms). */
+    private long endTime_;
+    
+    /** Reported flag. */
+    private boolean isReported_;
+    
+    /** Timed out flag. */
+    private boolean isTimedOut_;
+    
+    /** Finished flag. */
+    private boolean isFinished_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param migrationRequest      The migration request
+     * @param memorySize            The virtual machine memory size
+     * @param listener              The migration listener
+     */
+    public ScheduledMigration(MigrationRequest migrationRequest, double memorySize, MigrationListener listener)
+    {
+        Guard.check(migrationRequest, listener);
+        migrationRequest_ = migrationRequest;
+        memorySize_ = memorySize;
+        listener_ = listener;
+    }
+    
+    /**
+     * Returns the migration request.
+     * 
+     * @return  The migration request
+     */
+    public MigrationRequest getMigrationRequest()
+    {
+        return migrationRequest_;
+    }
+    
+    /**
+     * Returns the virtual machine identifier.
+     * 
+     * @return  The virtual machine identifier
+     */
+    public String getVirtualMachineId()
+    {
+        return migrationRequest_.getSourceVirtualMachineLocation().getVirtualMachineId();
+    }
+    
+    /**
+     * Returns the source local controller identifier.
+     * 
+     * @return  The source local controller identifier
+     */
+    public String getSourceId()
+    {
+        return migrationRequest_.getSourceVirtualMachineLocation().getLocalControllerId();
+    }
+    
+    /**
+     * Returns the destination local controller identifier.
+     * 
+     * @return  The destination local controller identifier
+     */
+    public String getDestinationId()
+    {
+        return migrationRequest_.getDestinationVirtualMachineLocation().getLocalControllerId();
+    }
+    
+    /**
+     * Returns the memory size.
+     * 
+     * @return  The memory size
+     */
+    public double getMemorySize()
+    {
+        return memorySize_;
+    }
+    
+    /**
+     * Returns the listener.
+     * 
+     * @return  The migration listener
+     */
+    public MigrationListener getListener()
+    {
+        return listener_;
+    }
+    
+    /**
+     * Sets the submission time.
+     * 
+     * @param submitTime    The submission time (ms)
+     */
+    void setSubmitTime(long submitTime)
+    {
+        submitTime_ = submitTime;
+    }
+    
+    /**
+     * Sets the start time.
+     * 
+     * @param startTime     The start time (ms)
+     */
+    void setStartTime(long startTime)
+    {
+        startTime_ = startTime;
+    }
+    
+    /**
+     * Marks the migration as finished.
+     * 
+     * @param endTime       The end time (ms)
+     */
+    void setFinished(long endTime)
+    {
+        endTime_ = endTime;
+        isFinished_ = true;
+    }
+    
+    /**
+     * Marks the result as reported to the listener.
+     */
+    void setReported()
+    {
+        isReported_ = true;
+    }
+    
+    /**
+     * Returns the reported flag.
+     * 
+     * @return  true if the result was reported, false otherwise
+     */
+    public boolean isReported()
+    {
+        return isReported_;
+    }
+    
+    /**
+     * Marks the migration as timed out.
+     */
+    void setTimedOut()
+    {
+        isTimedOut_ = true;
+    }
+    
+    /**
+     * Returns the timed out flag.
+     * 
+     * @return  true if the watchdog gave up on the migration, false otherwise
+     */
+    public boolean isTimedOut()
+    {
+        return isTimedOut_;
+    }
+    
+    /**
+     * Returns the finished flag.
+     * 
+     * @return  true if the migration ended and released its slot, false otherwise
+     */
+    public boolean isFinished()
+    {
+        return isFinished_;
+    }
+    
+    /**
+     * Returns the time spent waiting for a migration slot.
+     * 
+     * @return  The waiting time (ms)
+     */
+    public long getWaitingTime()
+    {
+        return startTime_ - submitTime_;
+    }
+    
+    /**
+     * Returns the migration time.
+     * 
+     * @return  The migration time (ms)
+     */
+    public long getMigrationTime()
+    {
+        return endTime_ - startTime_;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.migration.scheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationListener;
+import org.inria.myriads.snoozenode.groupmanager.migration.watchdog.MigrationWatchdog;
+import org.inria.myriads.snoozenode.groupmanager.migration.worker.MigrationWorker;
+
+/**
+ * Migrates virtual machines through the source local controller.
+ * 
+ * The watchdog is only started when the migration starts, so queued
+ * migrations do not consume their convergence timeout.
+ * 
+ * @author Eugen Feller
+ */
+public final class WorkerMigrationExecutor 
+    implements MigrationExecutor
+{
+    /** Watchdog threads. */
+    private ExecutorService watchdogPool_;
+    
+    /** Constructor. */
+    public WorkerMigrationExecutor()
+    {
+        watchdogPool_ = Executors.newCachedThreadPool();
+    }
+    
+    /**
+     * Migrates a virtual machine in the calling thread.
+     * 
+     * @param migrationRequest      The migration request
+     * @param listener              The migration listener
+     * @param timeoutListener       The migration timeout listener (notified by the watchdog)
+     */
+    @Override
+    public void migrate(MigrationRequest migrationRequest, 
+                        MigrationListener listener, 
+                        MigrationListener timeoutListener)
+    {
+        Guard.check(migrationRequest, listener, timeoutListener);
+        MigrationWorker migrationWorker = new MigrationWorker(migrationRequest);
+        MigrationWatchdog watchdog = new MigrationWatchdog(migrationRequest, timeoutListener);
+        migrationWorker.addMigrationListener(watchdog);
+        migrationWorker.addMigrationListener(listener);
+        watchdogPool_.execute(watchdog);
+        migrationWorker.run();
+    }
+    
+    /**
+     * Stops the watchdog threads.
+     */
+    public void shutdown()
+    {
+        watchdogPool_.shutdownNow();
+    }
+}
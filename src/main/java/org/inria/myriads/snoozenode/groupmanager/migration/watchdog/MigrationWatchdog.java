@@ -20,11 +20,11 @@
 package org.inria.myriads.snoozenode.groupmanager.migration.watchdog;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.LocalControllerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.TimeUtils;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -81,7 +81,8 @@ public final class MigrationWatchdog
         log_.debug(String.format("Sending request to suspend virtual machine: %s on local controller: %s",
                                  virtualMachineId, localControllerAddress.getAddress()));
         
-        LocalControllerAPI communicator = CommunicatorFactory.newLocalControllerCommunicator(localControllerAddress);
+        LocalControllerAPI communicator = 
+            NodeCommunicatorFactory.newLocalControllerCommunicator(localControllerAddress);
         return communicator.suspendVirtualMachineOnMigration(virtualMachineId); 
     }
     
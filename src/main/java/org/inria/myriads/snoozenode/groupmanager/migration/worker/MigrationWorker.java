@@ -23,10 +23,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.LocalControllerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -80,7 +80,7 @@ public final class MigrationWorker
     {
         NetworkAddress sourceAddress = 
             migrationRequest_.getSourceVirtualMachineLocation().getLocalControllerControlDataAddress();
-        LocalControllerAPI communicator = CommunicatorFactory.newLocalControllerCommunicator(sourceAddress);        
+        LocalControllerAPI communicator = NodeCommunicatorFactory.newLocalControllerCommunicator(sourceAddress);        
         boolean isMigrated = communicator.migrateVirtualMachine(migrationRequest_);
         return isMigrated;
     }
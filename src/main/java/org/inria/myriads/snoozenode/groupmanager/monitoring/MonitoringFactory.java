@@ -22,6 +22,7 @@ package org.inria.myriads.snoozenode.groupmanager.monitoring;
 import java.util.concurrent.BlockingQueue;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.consumer.LocalControllerSummaryConsumer;
@@ -29,7 +30,10 @@ import org.inria.myriads.snoozenode.groupmanager.monitoring.receiver.GroupManage
 import org.inria.myriads.snoozenode.groupmanager.monitoring.receiver.LocalControllerSummaryReceiver;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.service.GroupManagerMonitoringService;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.SubmissionCompletionListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.inria.myriads.snoozenode.tcpip.DataReceiver;
+import org.inria.myriads.snoozenode.tcpip.TransportFactory;
 
 /**
  * Monitoring factory.
@@ -46,44 +50,66 @@ public final class MonitoringFactory
         throw new UnsupportedOperationException();
     }
     
+    /**
+     * Creates a new monitoring data receiver.
+     * 
+     * @param networkAddress        The network address
+     * @param monitoringSettings    The monitoring settings
+     * @return                      The data receiver
+     * @throws Exception 
+     */
+    private static DataReceiver newDataReceiver(NetworkAddress networkAddress, 
+                                                MonitoringSettings monitoringSettings)
+        throws Exception
+    {
+        return TransportFactory.newDataReceiver(monitoringSettings.getReceiverType(), 
+                                                networkAddress, 
+                                                monitoringSettings.getTimeout(),
+                                                monitoringSettings.getNumberOfReceiverThreads());
+    }
+    
     /**
      * Creates a new group leader summary receiver.
      * 
-     * @param networkAddress    The network address
-     * @param timeOut           The time out
-     * @param repository        The repository
-     * @return                  The group leader monitoring data receiver
+     * @param networkAddress        The network address
+     * @param monitoringSettings    The monitoring settings
+     * @param repository            The repository
+     * @param completionListener    The submission completion listener
+     * @return                      The group leader monitoring data receiver
      * @throws Exception 
      */
     public static GroupManagerSummaryReceiver 
         newGroupManagerSummaryReceiver(NetworkAddress networkAddress, 
-                                       int timeOut, 
-                                       GroupLeaderRepository repository) 
+                                       MonitoringSettings monitoringSettings, 
+                                       GroupLeaderRepository repository,
+                                       SubmissionCompletionListener completionListener) 
         throws Exception
     {
-        return new GroupManagerSummaryReceiver(networkAddress, timeOut, repository);
+        DataReceiver dataReceiver = newDataReceiver(networkAddress, monitoringSettings);
+        return new GroupManagerSummaryReceiver(dataReceiver, repository, completionListener);
     }
     
     /**
      * Creates a new local controller monitoring data receiver.
      * 
-     * @param networkAddress     The network address
-     * @param timeOut            The timeout
-     * @param dataQueue          The data queue
-     * @param stateMachine       The state machine
-     * @param repository         The group manager repository
-     * @return                   The summary data receiver
+     * @param networkAddress        The network address
+     * @param monitoringSettings    The monitoring settings
+     * @param dataQueue             The data queue
+     * @param stateMachine          The state machine
+     * @param repository            The group manager repository
+     * @return                      The summary data receiver
      * @throws Exception 
      */
     public static LocalControllerSummaryReceiver
         newLocalControllerSummaryReceiver(NetworkAddress networkAddress, 
-                                          int timeOut, 
+                                          MonitoringSettings monitoringSettings, 
                                           BlockingQueue<LocalControllerDataTransporter> dataQueue,
                                           StateMachine stateMachine,
                                           GroupManagerRepository repository) 
         throws Exception
     {
-        return new LocalControllerSummaryReceiver(networkAddress, timeOut, dataQueue, stateMachine, repository);     
+        DataReceiver dataReceiver = newDataReceiver(networkAddress, monitoringSettings);
+        return new LocalControllerSummaryReceiver(dataReceiver, dataQueue, stateMachine, repository);     
     }
     
     /**
@@ -108,15 +134,15 @@ public final class MonitoringFactory
      * Creates a new group manager monitoring service.
      * 
      * @param repository            The group manager repository
-     * @param monitoringInterval    The monitoring interval
+     * @param monitoringSettings    The monitoring settings
      * @return                      The group manager monitoring data sender
      * @throws Exception            The exception
      */
     public static GroupManagerMonitoringService 
         newGroupManagerMonitoringService(GroupManagerRepository repository, 
-                                         int monitoringInterval)
+                                         MonitoringSettings monitoringSettings)
         throws Exception 
     {
-        return new GroupManagerMonitoringService(repository, monitoringInterval);
+        return new GroupManagerMonitoringService(repository, monitoringSettings);
     }
 }
@@ -23,6 +23,7 @@ import java.util.concurrent.BlockingQueue;
 
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.SubmissionCompletionListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,21 +43,27 @@ public final class GroupManagerSummaryConsumer
     
     /** Queue with data. */
     private BlockingQueue<GroupManagerDataTransporter> dataQueue_;
+    
+    /** Submission completion listener. */
+    private SubmissionCompletionListener completionListener_;
 
     /**
      * Group manager monitoring data consumer.
      * 
-     * @param dataQueue     The data queue reference
-     * @param repository    The group leader description
-     * @throws Exception    The exception
+     * @param dataQueue             The data queue reference
+     * @param repository            The group leader description
+     * @param completionListener    The submission completion listener
+     * @throws Exception            The exception
      */ 
     public GroupManagerSummaryConsumer(BlockingQueue<GroupManagerDataTransporter> dataQueue,
-                                       GroupLeaderRepository repository)
+                                       GroupLeaderRepository repository,
+                                       SubmissionCompletionListener completionListener)
         throws Exception 
     {
         log_.debug("Initializing the group manager monitoring data consumer");
         dataQueue_ = dataQueue;
         repository_ = repository;
+        completionListener_ = completionListener;
     }
 
     /** The run method. */
@@ -71,13 +78,25 @@ public final class GroupManagerSummaryConsumer
                 {
                     repository_.addGroupManagerSummaryInformation(groupManagerTransporter.getId(),
                                                                   groupManagerTransporter.getSummary());
+                    if (groupManagerTransporter.getLocations() != null)
+                    {
+                        repository_.updateLocations(groupManagerTransporter.getId(), 
+                                                    groupManagerTransporter.getLocations());
+                    }
+                    
+                    if (groupManagerTransporter.getFinishedSubmissions() != null)
+                    {
+                        for (String taskIdentifier : groupManagerTransporter.getFinishedSubmissions())
+                        {
+                            completionListener_.onSubmissionCompleted(taskIdentifier);
+                        }
+                    }
                 }         
             }
         }
         catch (InterruptedException exception) 
         {
-            log_.error("Group manager monitoring data consumer was interrupted: %s", 
-                       exception.getMessage());
+            log_.debug("Group manager monitoring data consumer was interrupted");
         }
     }
 }
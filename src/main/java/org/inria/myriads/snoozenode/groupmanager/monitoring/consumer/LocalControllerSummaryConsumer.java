@@ -25,6 +25,9 @@ import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.inria.myriads.snoozenode.metrics.Gauge;
+import org.inria.myriads.snoozenode.metrics.LatencyHistogram;
+import org.inria.myriads.snoozenode.metrics.MetricsFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +42,9 @@ public final class LocalControllerSummaryConsumer
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(LocalControllerSummaryConsumer.class);
     
+    /** Queue depth metric name. */
+    private static final String QUEUE_METRIC = "groupmanager.monitoring.queue";
+    
     /** Queue with data. */
     private BlockingQueue<LocalControllerDataTransporter> dataQueue_;
             
@@ -51,6 +57,12 @@ public final class LocalControllerSummaryConsumer
     /** Terminates the consumer. */
     private boolean isTerminated_;
     
+    /** Queue depth gauge. */
+    private Gauge queueGauge_;
+    
+    /** Processing time per monitoring data message. */
+    private LatencyHistogram processingTime_;
+    
     /**
      * Local controller monitoring data consumer.
      * 
@@ -68,6 +80,15 @@ public final class LocalControllerSummaryConsumer
         dataQueue_ = dataQueue;
         stateMachine_ = stateMachine;
         repository_ = repository;
+        queueGauge_ = new Gauge()
+        {
+            public long getValue()
+            {
+                return dataQueue_.size();
+            }
+        };
+        MetricsFactory.getRegistry().registerGauge(QUEUE_METRIC, queueGauge_);
+        processingTime_ = MetricsFactory.getRegistry().getHistogram("groupmanager.monitoring.processing");
         new Thread(this).start();   
     }
     
@@ -79,6 +100,7 @@ public final class LocalControllerSummaryConsumer
             while (true)
             {                            
                 LocalControllerDataTransporter monitoringData = dataQueue_.take();   
+                long startTime = System.nanoTime();
                 String localControllerId = monitoringData.getLocalControllerId();
                 repository_.addAggregatedMonitoringData(localControllerId, monitoringData.getData());
                 boolean isStable = monitoringData.getState().equals(LocalControllerState.STABLE);                
@@ -87,6 +109,8 @@ public final class LocalControllerSummaryConsumer
                     log_.debug("Anomaly on local controller detected!");           
                     stateMachine_.resolveAnomaly(localControllerId, monitoringData.getState());
                 }
+                
+                processingTime_.recordSince(startTime);
             }
         }
         catch (InterruptedException exception) 
@@ -107,6 +131,7 @@ public final class LocalControllerSummaryConsumer
     public void terminate()
     {
         isTerminated_ = true;
+        MetricsFactory.getRegistry().unregisterGauge(QUEUE_METRIC, queueGauge_);
         Thread.interrupted();
     }
 }
@@ -21,6 +21,7 @@ package org.inria.myriads.snoozenode.groupmanager.monitoring.producer;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
@@ -28,7 +29,9 @@ import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControl
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.SubmissionCompletionListener;
 import org.inria.myriads.snoozenode.tcpip.TCPDataSender;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,16 +41,22 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class GroupManagerSummaryProducer extends TCPDataSender
-    implements Runnable
+    implements Runnable, SubmissionCompletionListener
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(GroupManagerSummaryProducer.class);
+    
+    /** Number of delta location updates between two full location updates. */
+    private static final int FULL_LOCATION_UPDATE_INTERVAL = 10;
+    
+    /** Number of incremental summaries between two full summary refreshes. */
+    private static final int FULL_SUMMARY_REFRESH_INTERVAL = 30;
         
     /** Group manager repository reference. */
     private GroupManagerRepository repository_;
 
-    /** Resource demand estimator. */
-    private ResourceDemandEstimator estimator_;
+    /** Incremental summary generator. */
+    private IncrementalSummaryGenerator summaryGenerator_;
     
     /** Lock object. */
     private Object lockObject_;
@@ -57,6 +66,12 @@ public final class GroupManagerSummaryProducer extends TCPDataSender
     
     /** Terminated. */
     private boolean isTerminated_;
+    
+    /** Location tracker. */
+    private LocationTracker locationTracker_;
+    
+    /** Submissions finished since the last transport (guarded by the lock object). */
+    private ArrayList<String> finishedSubmissions_;
         
     /**
      * Constructor.
@@ -65,21 +80,25 @@ public final class GroupManagerSummaryProducer extends TCPDataSender
      * @param groupLeaderAddress    The group leader address
      * @param estimator             The estimator
      * @param monitoringInterval    The monitoring interval
+     * @param codecType             The codec type
      * @throws IOException          The I/O exception
      */
     public GroupManagerSummaryProducer(GroupManagerRepository repository, 
                                        NetworkAddress groupLeaderAddress,
                                        ResourceDemandEstimator estimator,
-                                       int monitoringInterval)
+                                       int monitoringInterval,
+                                       CodecType codecType)
         throws  IOException 
     { 
-        super(groupLeaderAddress);
+        super(groupLeaderAddress, codecType);
         log_.debug("Initializing the group manager summary information producer");
         
         repository_ = repository;
-        estimator_ = estimator;
+        summaryGenerator_ = new IncrementalSummaryGenerator(repository, estimator, FULL_SUMMARY_REFRESH_INTERVAL);
         monitoringInterval_ = monitoringInterval;
         lockObject_ = new Object();
+        locationTracker_ = new LocationTracker(FULL_LOCATION_UPDATE_INTERVAL);
+        finishedSubmissions_ = new ArrayList<String>();
     }
     
     /**
@@ -89,17 +108,39 @@ public final class GroupManagerSummaryProducer extends TCPDataSender
      */
     private GroupManagerDataTransporter createDataTransporter()
     {
-        ArrayList<LocalControllerDescription> localControllers = 
-            repository_.getLocalControllerDescriptions(estimator_.getNumberOfMonitoringEntries(), false);
-        ArrayList<String> legacyIpAddresses = repository_.getLegacyIpAddresses();
-        
-        GroupManagerSummaryInformation summary = estimator_.generateGroupManagerSummaryInformation(localControllers, 
-                                                                                                   legacyIpAddresses);
+        // Only the local controllers changed since the last summary are estimated again
+        GroupManagerSummaryInformation summary = summaryGenerator_.generate();
+        List<LocalControllerDescription> localControllers = summaryGenerator_.getLocalControllers();
         String groupManagerId = repository_.getGroupManagerId();
         GroupManagerDataTransporter dataTransporter = new GroupManagerDataTransporter(groupManagerId, summary);      
+        dataTransporter.setLocations(locationTracker_.createUpdate(localControllers));
+        synchronized (lockObject_)
+        {
+            if (!finishedSubmissions_.isEmpty())
+            {
+                dataTransporter.setFinishedSubmissions(finishedSubmissions_);
+                finishedSubmissions_ = new ArrayList<String>();
+            }
+        }
+        
         return dataTransporter;
     }
     
+    /**
+     * Sends the summary information right away to notify the group leader.
+     * 
+     * @param taskIdentifier    The submission task identifier
+     */
+    public void onSubmissionCompleted(String taskIdentifier)
+    {
+        log_.debug(String.format("Notifying the group leader about the finished submission %s", taskIdentifier));
+        synchronized (lockObject_)
+        {
+            finishedSubmissions_.add(taskIdentifier);
+            lockObject_.notify();
+        }
+    }
+    
     /** Run method. */
     public void run()
     {    
@@ -116,7 +157,10 @@ public final class GroupManagerSummaryProducer extends TCPDataSender
                 send(dataTransporter);
                 synchronized (lockObject_)
                 {
-                    lockObject_.wait(monitoringInterval_);
+                    if (finishedSubmissions_.isEmpty() && !isTerminated_)
+                    {
+                        lockObject_.wait(monitoringInterval_);
+                    }
                 }
             }
         } 
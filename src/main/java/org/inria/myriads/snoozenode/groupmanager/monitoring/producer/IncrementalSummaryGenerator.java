@@ -0,0 +1,297 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.monitoring.producer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.database.listener.LocalControllerChangeListener;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental group manager summary generator.
+ * 
+ * Keeps the contribution of every local controller to the summary and only recomputes the
+ * local controllers the repository reported as changed since the previous summary. Monitoring
+ * data only marks a local controller as changed if the estimations are dynamic. A full refresh
+ * is done periodically to recover from missed notifications, and whenever more than half of the
+ * local controllers changed, since a single snapshot is then cheaper than the individual lookups.
+ * With dynamic estimations every monitored local controller changes between two summaries, so
+ * those summaries are full refreshes and only static estimations benefit from the increments.
+ * 
+ * @author Eugen Feller
+ */
+public final class IncrementalSummaryGenerator 
+    implements LocalControllerChangeListener
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(IncrementalSummaryGenerator.class);
+    
+    /** Group manager repository. */
+    private GroupManagerRepository repository_;
+    
+    /** Resource demand estimator. */
+    private ResourceDemandEstimator estimator_;
+    
+    /** Number of incremental summaries between two full refreshes. */
+    private int fullRefreshInterval_;
+    
+    /** Number of incremental summaries since the last full refresh. */
+    private int numberOfIncrementalUpdates_;
+    
+    /**
+     * Local controller contributions.
+     * 
+     * Key: Local controller identifier
+     * Value: Contribution
+     */
+    private Map<String, Contribution> contributions_;
+    
+    /** Local controllers changed since the last summary (guarded by itself). */
+    private Set<String> changed_;
+    
+    /** Full refresh required (guarded by the changed set). */
+    private boolean isFullRefreshRequired_;
+    
+    /**
+     * Contribution of a local controller to the summary.
+     */
+    private static final class Contribution
+    {
+        /** Local controller snapshot. */
+        private LocalControllerDescription localController_;
+        
+        /** Requested capacity. */
+        private ArrayList<Double> requestedCapacity_;
+        
+        /** Used capacity. */
+        private ArrayList<Double> usedCapacity_;
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param repository            The group manager repository
+     * @param estimator             The resource demand estimator
+     * @param fullRefreshInterval   The number of incremental summaries between two full refreshes
+     */
+    public IncrementalSummaryGenerator(GroupManagerRepository repository, 
+                                       ResourceDemandEstimator estimator,
+                                       int fullRefreshInterval)
+    {
+        Guard.check(repository, estimator);
+        log_.debug("Initializing the incremental summary generator");
+        
+        repository_ = repository;
+        estimator_ = estimator;
+        fullRefreshInterval_ = fullRefreshInterval;
+        contributions_ = new HashMap<String, Contribution>();
+        changed_ = new HashSet<String>();
+        isFullRefreshRequired_ = true;
+        repository_.setChangeListener(this);
+    }
+    
+    /**
+     * Marks a local controller as changed.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    public void onLocalControllerChanged(String localControllerId)
+    {
+        synchronized (changed_)
+        {
+            changed_.add(localControllerId);
+        }
+    }
+    
+    /**
+     * Marks a local controller as changed if the estimations depend on monitoring data.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    public void onMonitoringDataAdded(String localControllerId)
+    {
+        if (estimator_.isStatic())
+        {
+            return;
+        }
+        
+        onLocalControllerChanged(localControllerId);
+    }
+    
+    /**
+     * Requests a full refresh.
+     */
+    public void onRepositoryCleaned()
+    {
+        synchronized (changed_)
+        {
+            isFullRefreshRequired_ = true;
+        }
+    }
+    
+    /**
+     * Generates the group manager summary information.
+     * 
+     * @return      The group manager summary information
+     */
+    public synchronized GroupManagerSummaryInformation generate()
+    {
+        Set<String> changed;
+        boolean isFullRefresh;
+        synchronized (changed_)
+        {
+            changed = new HashSet<String>(changed_);
+            changed_.clear();
+            isFullRefresh = isFullRefreshRequired_ || 
+                            numberOfIncrementalUpdates_ >= fullRefreshInterval_ ||
+                            changed.size() > contributions_.size() / 2;
+            isFullRefreshRequired_ = false;
+        }
+        
+        if (isFullRefresh)
+        {
+            refreshAll();
+            numberOfIncrementalUpdates_ = 0;
+        } 
+        else
+        {
+            log_.debug(String.format("Refreshing %d changed local controllers", changed.size()));
+            for (String localControllerId : changed)
+            {
+                refresh(localControllerId);
+            }
+            
+            numberOfIncrementalUpdates_++;
+        }
+        
+        return summarize();
+    }
+    
+    /**
+     * Returns the local controller snapshots of the last summary.
+     * 
+     * @return      The local controller snapshots
+     */
+    public synchronized List<LocalControllerDescription> getLocalControllers()
+    {
+        List<LocalControllerDescription> localControllers = 
+            new ArrayList<LocalControllerDescription>(contributions_.size());
+        for (Contribution contribution : contributions_.values())
+        {
+            localControllers.add(contribution.localController_);
+        }
+        
+        return localControllers;
+    }
+    
+    /**
+     * Recomputes the contributions of all local controllers.
+     */
+    private void refreshAll()
+    {
+        log_.debug("Refreshing all local controllers");
+        contributions_.clear();
+        for (LocalControllerDescription localController : repository_.getLocalControllerSnapshots(false))
+        {
+            contributions_.put(localController.getId(), createContribution(localController));
+        }
+    }
+    
+    /**
+     * Recomputes the contribution of a local controller.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    private void refresh(String localControllerId)
+    {
+        LocalControllerDescription localController = repository_.getLocalControllerDescription(localControllerId, 0);
+        if (localController == null || localController.getStatus().equals(LocalControllerStatus.WOKENUP))
+        {
+            contributions_.remove(localControllerId);
+            return;
+        }
+        
+        contributions_.put(localControllerId, createContribution(localController));
+    }
+    
+    /**
+     * Computes the contribution of a local controller.
+     * 
+     * @param localController   The local controller snapshot
+     * @return                  The contribution
+     */
+    private Contribution createContribution(LocalControllerDescription localController)
+    {
+        Contribution contribution = new Contribution();
+        contribution.localController_ = localController;
+        contribution.requestedCapacity_ = estimator_.computeRequestedLocalControllerCapacity(localController);
+        contribution.usedCapacity_ = estimator_.computeLocalControllerCapacity(localController);
+        return contribution;
+    }
+    
+    /**
+     * Sums up the contributions.
+     * 
+     * @return      The group manager summary information
+     */
+    private GroupManagerSummaryInformation summarize()
+    {
+        ArrayList<Double> requestedCapacity = MathUtils.createEmptyVector();
+        ArrayList<Double> usedCapacity = MathUtils.createEmptyVector();
+        ArrayList<Double> activeCapacity = MathUtils.createEmptyVector();
+        ArrayList<Double> passiveCapacity = MathUtils.createEmptyVector();
+        for (Contribution contribution : contributions_.values())
+        {
+            requestedCapacity = MathUtils.addVectors(requestedCapacity, contribution.requestedCapacity_);
+            usedCapacity = MathUtils.addVectors(usedCapacity, contribution.usedCapacity_);
+            
+            LocalControllerDescription localController = contribution.localController_;
+            if (localController.getStatus().equals(LocalControllerStatus.ACTIVE))
+            {
+                activeCapacity = MathUtils.addVectors(activeCapacity, localController.getTotalCapacity());
+            } 
+            else if (localController.getStatus().equals(LocalControllerStatus.PASSIVE))
+            {
+                passiveCapacity = MathUtils.addVectors(passiveCapacity, localController.getTotalCapacity());
+            }
+        }
+        
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setActiveCapacity(activeCapacity);
+        summary.setPassiveCapacity(passiveCapacity);
+        summary.setRequestedCapacity(requestedCapacity);
+        summary.setUsedCapacity(usedCapacity);
+        summary.setLegacyIpAddresses(repository_.getLegacyIpAddresses());
+        return summary;
+    }
+}
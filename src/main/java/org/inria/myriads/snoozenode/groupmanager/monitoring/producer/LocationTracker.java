@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.monitoring.producer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.LocationUpdate;
+
+/**
+ * Computes the location updates sent along with the summary information.
+ * 
+ * The first update and every full update interval-th update afterwards contain 
+ * all locations, the others only the changes since the previous update.
+ * 
+ * @author Eugen Feller
+ */
+public final class LocationTracker 
+{
+    /** Number of delta updates between two full updates. */
+    private int fullUpdateInterval_;
+    
+    /** Sequence number of the next update. */
+    private long sequenceNumber_;
+    
+    /** Number of delta updates since the last full update. */
+    private int numberOfDeltaUpdates_;
+    
+    /** Last sent local controllers. */
+    private Map<String, NetworkAddress> localControllers_;
+    
+    /** Last sent virtual machines. */
+    private Map<String, String> virtualMachines_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param fullUpdateInterval    The number of delta updates between two full updates
+     */
+    public LocationTracker(int fullUpdateInterval)
+    {
+        fullUpdateInterval_ = fullUpdateInterval;
+        localControllers_ = new HashMap<String, NetworkAddress>();
+        virtualMachines_ = new HashMap<String, String>();
+    }
+    
+    /**
+     * Creates the next location update.
+     * 
+     * @param localControllers      The current local controllers
+     * @return                      The location update
+     */
+    public LocationUpdate createUpdate(List<LocalControllerDescription> localControllers)
+    {
+        Guard.check(localControllers);
+        LocationUpdate current = LocationUpdate.fromLocalControllers(sequenceNumber_, localControllers);
+        boolean isFull = sequenceNumber_ == 0 || numberOfDeltaUpdates_ >= fullUpdateInterval_;
+        
+        LocationUpdate update = current;
+        if (isFull)
+        {
+            numberOfDeltaUpdates_ = 0;
+        } 
+        else
+        {
+            update = createDelta(current);
+            numberOfDeltaUpdates_++;
+        }
+        
+        localControllers_ = current.getLocalControllers();
+        virtualMachines_ = current.getVirtualMachines();
+        sequenceNumber_++;
+        return update;
+    }
+    
+    /**
+     * Computes the changes to the last sent locations.
+     * 
+     * @param current   The current locations
+     * @return          The delta update
+     */
+    private LocationUpdate createDelta(LocationUpdate current)
+    {
+        LocationUpdate delta = new LocationUpdate(sequenceNumber_, false);
+        for (Map.Entry<String, NetworkAddress> entry : current.getLocalControllers().entrySet())
+        {
+            boolean isKnown = localControllers_.containsKey(entry.getKey());
+            if (!isKnown || !isEqual(localControllers_.get(entry.getKey()), entry.getValue()))
+            {
+                delta.getLocalControllers().put(entry.getKey(), entry.getValue());
+            }
+        }
+        
+        for (String localControllerId : localControllers_.keySet())
+        {
+            if (!current.getLocalControllers().containsKey(localControllerId))
+            {
+                delta.getRemovedLocalControllers().add(localControllerId);
+            }
+        }
+        
+        for (Map.Entry<String, String> entry : current.getVirtualMachines().entrySet())
+        {
+            if (!entry.getValue().equals(virtualMachines_.get(entry.getKey())))
+            {
+                delta.getVirtualMachines().put(entry.getKey(), entry.getValue());
+            }
+        }
+        
+        for (String virtualMachineId : virtualMachines_.keySet())
+        {
+            if (!current.getVirtualMachines().containsKey(virtualMachineId))
+            {
+                delta.getRemovedVirtualMachines().add(virtualMachineId);
+            }
+        }
+        
+        return delta;
+    }
+    
+    /**
+     * Compares two network addresses.
+     * 
+     * @param first     The first address
+     * @param second    The second address
+     * @return          true if equal, false otherwise
+     */
+    private static boolean isEqual(NetworkAddress first, NetworkAddress second)
+    {
+        if (first == null || second == null)
+        {
+            return first == second;
+        }
+        
+        String address = first.getAddress();
+        boolean isEqualAddress = address == null ? second.getAddress() == null : address.equals(second.getAddress());
+        return isEqualAddress && first.getPort() == second.getPort();
+    }
+}
@@ -24,13 +24,13 @@ import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
-import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.consumer.GroupManagerSummaryConsumer;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.SubmissionCompletionListener;
 import org.inria.myriads.snoozenode.tcpip.DataListener;
-import org.inria.myriads.snoozenode.tcpip.TCPDataReceiver;
+import org.inria.myriads.snoozenode.tcpip.DataReceiver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,12 +39,15 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Eugen Feller
  */
-public final class GroupManagerSummaryReceiver extends TCPDataReceiver 
+public final class GroupManagerSummaryReceiver 
     implements DataListener 
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(GroupManagerSummaryReceiver.class);
     
+    /** The data receiver. */
+    private DataReceiver dataReceiver_;
+    
     /** Holds the reference to the group leader repository. */
     private GroupLeaderRepository repository_;
     
@@ -53,25 +56,32 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
     
     /** Group manager identifiers. */
     private Map<String, String> groupManagerIds_;
+    
+    /** Submission completion listener. */
+    private SubmissionCompletionListener completionListener_;
+    
+    /** The data consumer thread. */
+    private Thread consumerThread_;
 
     /**
      * Constructor.
      * 
-     * @param networkAddress   The network address
-     * @param timeOut          The timeout
-     * @param repository       The group leader repository
+     * @param dataReceiver          The data receiver
+     * @param repository            The group leader repository
+     * @param completionListener    The submission completion listener
      * @throws Exception 
      */
-    public GroupManagerSummaryReceiver(NetworkAddress networkAddress, 
-                                       int timeOut,
-                                       GroupLeaderRepository repository)
+    public GroupManagerSummaryReceiver(DataReceiver dataReceiver,
+                                       GroupLeaderRepository repository,
+                                       SubmissionCompletionListener completionListener)
         throws Exception                                        
     {
-        super(networkAddress, timeOut);
-        Guard.check(repository);
+        Guard.check(dataReceiver, repository, completionListener);
         log_.debug("Initializing the group manager summary information receiver");
         
+        dataReceiver_ = dataReceiver;
         repository_ = repository;
+        completionListener_ = completionListener;
         groupManagerIds_ = new HashMap<String, String>();
         dataQueue_ = new LinkedBlockingQueue<GroupManagerDataTransporter>();
           
@@ -89,8 +99,11 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
     private void startDataConsumer()   
         throws Exception
     {
-        GroupManagerSummaryConsumer consumer = new GroupManagerSummaryConsumer(dataQueue_, repository_);
-        new Thread(consumer).start();       
+        GroupManagerSummaryConsumer consumer = new GroupManagerSummaryConsumer(dataQueue_, 
+                                                                               repository_,
+                                                                               completionListener_);
+        consumerThread_ = new Thread(consumer);
+        consumerThread_.start();       
     }
     
     /**
@@ -98,8 +111,17 @@ public final class GroupManagerSummaryReceiver extends TCPDataReceiver
      */
     private void starDataReceiver()
     {
-        setHandler(this);
-        new Thread(this).start();       
+        dataReceiver_.setHandler(this);
+        new Thread(dataReceiver_).start();       
+    }
+    
+    /**
+     * Terminates the receiver.
+     */
+    public void terminate()
+    {
+        dataReceiver_.terminate();
+        consumerThread_.interrupt();
     }
     
     /** 
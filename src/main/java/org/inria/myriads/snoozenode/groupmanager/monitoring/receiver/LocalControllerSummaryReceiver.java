@@ -23,14 +23,15 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
-import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.inria.myriads.snoozenode.metrics.Counter;
+import org.inria.myriads.snoozenode.metrics.MetricsFactory;
 import org.inria.myriads.snoozenode.tcpip.DataListener;
-import org.inria.myriads.snoozenode.tcpip.TCPDataReceiver;
+import org.inria.myriads.snoozenode.tcpip.DataReceiver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,12 +40,15 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Eugen Feller
  */
-public final class LocalControllerSummaryReceiver extends TCPDataReceiver 
+public final class LocalControllerSummaryReceiver 
     implements DataListener 
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(LocalControllerSummaryReceiver.class);
     
+    /** The data receiver. */
+    private DataReceiver dataReceiver_;
+    
     /** The blocking queue reference. */
     private BlockingQueue<LocalControllerDataTransporter> dataQueue_;
    
@@ -56,31 +60,38 @@ public final class LocalControllerSummaryReceiver extends TCPDataReceiver
 
     /** Group manager repository. */
     private GroupManagerRepository repository_;
+    
+    /** Number of received monitoring data messages. */
+    private Counter receivedCounter_;
+    
+    /** Number of monitoring data messages dropped while the local controller was busy. */
+    private Counter droppedCounter_;
    
     /**
      * Constructor.
      * 
-     * @param networkAddress     The network address
-     * @param timeOut            The timeout
+     * @param dataReceiver       The data receiver
      * @param dataQueue          The data queue
      * @param stateMachine       The state machine
      * @param repository         The group manager repository
      * @throws Exception 
      */
-    public LocalControllerSummaryReceiver(NetworkAddress networkAddress, 
-                                          int timeOut,
+    public LocalControllerSummaryReceiver(DataReceiver dataReceiver,
                                           BlockingQueue<LocalControllerDataTransporter> dataQueue, 
                                           StateMachine stateMachine,
                                           GroupManagerRepository repository) 
         throws Exception 
     {
-        super(networkAddress, timeOut);
+        Guard.check(dataReceiver);
         log_.debug("Initializing the local controller data receiver");
         
+        dataReceiver_ = dataReceiver;
         dataQueue_ = dataQueue;
         stateMachine_ = stateMachine;
         repository_ = repository;
         localControllerIds_ = new HashMap<String, String>();
+        receivedCounter_ = MetricsFactory.getRegistry().getCounter("groupmanager.monitoring.received");
+        droppedCounter_ = MetricsFactory.getRegistry().getCounter("groupmanager.monitoring.dropped");
         starReceiver();
         log_.debug("Local controller monitoring data receiver started");
     }
@@ -90,8 +101,16 @@ public final class LocalControllerSummaryReceiver extends TCPDataReceiver
      */
     private void starReceiver()
     {
-        setHandler(this);
-        new Thread(this).start();
+        dataReceiver_.setHandler(this);
+        new Thread(dataReceiver_).start();
+    }
+    
+    /**
+     * Terminates the receiver.
+     */
+    public void terminate()
+    {
+        dataReceiver_.terminate();
     }
     
     /**
@@ -145,13 +164,15 @@ public final class LocalControllerSummaryReceiver extends TCPDataReceiver
             return;
         } 
     
+        receivedCounter_.increment();
         log_.debug(String.format("Worker thread: %s received local controller summary information from: %s",
                                  workerThreadId,
                                  localControllerId));
         
-        if (stateMachine_.isBusy() && !monitoringData.getState().equals(LocalControllerState.STABLE))
+        if (stateMachine_.isBusy(localControllerId) && !monitoringData.getState().equals(LocalControllerState.STABLE))
         {
-            log_.debug("System is BUSY! Skipping overloaded/underloaded local controller monitoring data!");
+            log_.debug("Local controller is BUSY! Skipping overloaded/underloaded local controller monitoring data!");
+            droppedCounter_.increment();
             return;
         }
         
@@ -21,9 +21,11 @@ package org.inria.myriads.snoozenode.groupmanager.monitoring.service;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.monitoring.producer.GroupManagerSummaryProducer;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.SubmissionCompletionListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,34 +35,35 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class GroupManagerMonitoringService 
+    implements SubmissionCompletionListener
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(GroupManagerMonitoringService.class);
     
     /** Monitoring data producer. */
-    private GroupManagerSummaryProducer monitoringDataProducer_;
+    private volatile GroupManagerSummaryProducer monitoringDataProducer_;
 
     /** Group manager repository. */
     private GroupManagerRepository repository_;
 
-    /** Monitoring interval .*/
-    private int monitoringInterval_;
+    /** Monitoring settings. */
+    private MonitoringSettings monitoringSettings_;
     
     /**
      * Group manager monitoring service.
      * 
      * @param repository            The group manager repository
-     * @param monitoringInterval    The monitoring interval
+     * @param monitoringSettings    The monitoring settings
      * @throws Exception            The exception
      */
     public GroupManagerMonitoringService(GroupManagerRepository repository, 
-                                         int monitoringInterval)
+                                         MonitoringSettings monitoringSettings)
         throws Exception
     {
-        Guard.check(repository, monitoringInterval);
+        Guard.check(repository, monitoringSettings);
         log_.debug("Initializing the group manager monitoring service");
         repository_ = repository;
-        monitoringInterval_ = monitoringInterval;
+        monitoringSettings_ = monitoringSettings;
     }
     
     /**
@@ -77,10 +80,28 @@ public final class GroupManagerMonitoringService
         monitoringDataProducer_ = new GroupManagerSummaryProducer(repository_,
                                                                   groupLeader,
                                                                   estimator,
-                                                                  monitoringInterval_);
+                                                                  monitoringSettings_.getInterval(),
+                                                                  monitoringSettings_.getCodecType());
         new Thread(monitoringDataProducer_).start();
     }
         
+    /**
+     * Forwards the submission completion to the group leader.
+     * 
+     * @param taskIdentifier    The submission task identifier
+     */
+    public void onSubmissionCompleted(String taskIdentifier)
+    {
+        GroupManagerSummaryProducer monitoringDataProducer = monitoringDataProducer_;
+        if (monitoringDataProducer == null)
+        {
+            log_.debug("No summary producer running! Group leader will poll for the submission response");
+            return;
+        }
+        
+        monitoringDataProducer.onSubmissionCompleted(taskIdentifier);
+    }
+    
     /**
      * Terminates the monitoring service.
      */
@@ -20,6 +20,7 @@
 package org.inria.myriads.snoozenode.groupmanager.monitoring.transport;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
 
@@ -41,6 +42,12 @@ public final class GroupManagerDataTransporter
     /** Summary information. */
     private GroupManagerSummaryInformation summary_;
     
+    /** Location update (optional). */
+    private LocationUpdate locations_;
+    
+    /** Identifiers of the virtual machine submissions finished since the last transport (optional). */
+    private ArrayList<String> finishedSubmissions_;
+    
     /** Default constructor. */
     public GroupManagerDataTransporter() 
     {
@@ -78,4 +85,44 @@ public final class GroupManagerDataTransporter
     {
         return summary_;
     }
+    
+    /**
+     * Returns the location update.
+     * 
+     * @return  The location update, null if none
+     */
+    public LocationUpdate getLocations() 
+    {
+        return locations_;
+    }
+    
+    /**
+     * Sets the location update.
+     * 
+     * @param locations     The location update
+     */
+    public void setLocations(LocationUpdate locations) 
+    {
+        locations_ = locations;
+    }
+    
+    /**
+     * Returns the finished submissions.
+     * 
+     * @return  The submission task identifiers, null if none
+     */
+    public ArrayList<String> getFinishedSubmissions() 
+    {
+        return finishedSubmissions_;
+    }
+    
+    /**
+     * Sets the finished submissions.
+     * 
+     * @param finishedSubmissions   The submission task identifiers
+     */
+    public void setFinishedSubmissions(ArrayList<String> finishedSubmissions) 
+    {
+        finishedSubmissions_ = finishedSubmissions;
+    }
 }
@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.monitoring.transport;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+
+/**
+ * Location update of a group manager.
+ * 
+ * Either the full set of local controller and virtual machine locations or the 
+ * changes since the previous update (identified by consecutive sequence numbers).
+ * 
+ * @author Eugen Feller
+ */
+public final class LocationUpdate 
+    implements Serializable
+{
+    /** Default serial. */
+    private static final long serialVersionUID = 1L;
+    
+    /** Sequence number. */
+    private long sequenceNumber_;
+    
+    /** Full update flag. */
+    private boolean isFull_;
+    
+    /**
+     * Added local controllers.
+     * 
+     * Key: Local controller identifier
+     * Value: Local controller control data address
+     */
+    private HashMap<String, NetworkAddress> localControllers_;
+    
+    /** Removed local controllers. */
+    private ArrayList<String> removedLocalControllers_;
+    
+    /**
+     * Added virtual machines.
+     * 
+     * Key: Virtual machine identifier
+     * Value: Local controller identifier
+     */
+    private HashMap<String, String> virtualMachines_;
+    
+    /** Removed virtual machines. */
+    private ArrayList<String> removedVirtualMachines_;
+    
+    /** Default constructor. */
+    public LocationUpdate()
+    {
+        this(0, false);
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param sequenceNumber    The sequence number
+     * @param isFull            true if full update, false otherwise
+     */
+    public LocationUpdate(long sequenceNumber, boolean isFull)
+    {
+        sequenceNumber_ = sequenceNumber;
+        isFull_ = isFull;
+        localControllers_ = new HashMap<String, NetworkAddress>();
+        removedLocalControllers_ = new ArrayList<String>();
+        virtualMachines_ = new HashMap<String, String>();
+        removedVirtualMachines_ = new ArrayList<String>();
+    }
+    
+    /**
+     * Creates a full update from local controller descriptions.
+     * 
+     * @param sequenceNumber    The sequence number
+     * @param localControllers  The local controller descriptions
+     * @return                  The full location update
+     */
+    public static LocationUpdate fromLocalControllers(long sequenceNumber, 
+                                                      Collection<LocalControllerDescription> localControllers)
+    {
+        LocationUpdate update = new LocationUpdate(sequenceNumber, true);
+        for (LocalControllerDescription localController : localControllers)
+        {
+            String localControllerId = localController.getId();
+            update.localControllers_.put(localControllerId, localController.getControlDataAddress());
+            for (String virtualMachineId : localController.getVirtualMachineMetaData().keySet())
+            {
+                update.virtualMachines_.put(virtualMachineId, localControllerId);
+            }
+        }
+        
+        return update;
+    }
+    
+    /**
+     * Returns the sequence number.
+     * 
+     * @return  The sequence number
+     */
+    public long getSequenceNumber()
+    {
+        return sequenceNumber_;
+    }
+    
+    /**
+     * Checks if this is a full update.
+     * 
+     * @return  true if full, false otherwise
+     */
+    public boolean isFull()
+    {
+        return isFull_;
+    }
+    
+    /**
+     * Returns the added local controllers.
+     * 
+     * @return  The local controller control data addresses
+     */
+    public Map<String, NetworkAddress> getLocalControllers()
+    {
+        return localControllers_;
+    }
+    
+    /**
+     * Returns the removed local controllers.
+     * 
+     * @return  The local controller identifiers
+     */
+    public List<String> getRemovedLocalControllers()
+    {
+        return removedLocalControllers_;
+    }
+    
+    /**
+     * Returns the added virtual machines.
+     * 
+     * @return  The virtual machine locations
+     */
+    public Map<String, String> getVirtualMachines()
+    {
+        return virtualMachines_;
+    }
+    
+    /**
+     * Returns the removed virtual machines.
+     * 
+     * @return  The virtual machine identifiers
+     */
+    public List<String> getRemovedVirtualMachines()
+    {
+        return removedVirtualMachines_;
+    }
+}
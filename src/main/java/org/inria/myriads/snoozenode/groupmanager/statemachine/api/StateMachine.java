@@ -27,6 +27,7 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.Vi
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
 import org.inria.myriads.snoozecommon.communication.virtualmachine.ClientMigrationRequest;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.VirtualMachineCommand;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.SubmissionCompletionListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
 
 /** 
@@ -91,6 +92,14 @@ public interface StateMachine
      */
     boolean isBusy();
     
+    /**
+     * Indicates if a local controller is involved in a running operation.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if busy, else otherwise
+     */
+    boolean isBusy(String localControllerId);
+    
     /**
      * Returns virtual machine submission finish.
      * 
@@ -99,6 +108,13 @@ public interface StateMachine
      */
     VirtualMachineSubmissionResponse getVirtualMachineSubmissionResponse(String taskIdentifier);
     
+    /**
+     * Sets the listener notified once a virtual machine submission response is available.
+     * 
+     * @param completionListener    The submission completion listener
+     */
+    void setSubmissionCompletionListener(SubmissionCompletionListener completionListener);
+    
     /**
      * Wakeup local controller.
      * 
@@ -108,12 +124,20 @@ public interface StateMachine
     boolean onWakeupLocalController(LocalControllerDescription localController);
     
     /**
-     * Wakesup local controllers.
+     * Wakes up local controllers.
      * 
      * @param localControllers  The local controllers
-     * @return                  true if everything ok, false otherwise                 
+     * @param numberOfRequired  The number of local controllers to wait for
+     * @return                  The identifiers of the local controllers which are back
      */
-    boolean onWakeupLocalControllers(List<LocalControllerDescription> localControllers);
+    List<String> onWakeupLocalControllers(List<LocalControllerDescription> localControllers, int numberOfRequired);
+    
+    /**
+     * Called when a local controller joins the group manager.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    void onLocalControllerJoined(String localControllerId);
     
     /**
      * Called on energy savings enabled.
@@ -130,5 +154,10 @@ public interface StateMachine
      */
     void onAnomalyResolved(LocalControllerDescription anomalyLocalController);
 
+    /**
+     * Stops the state machine worker threads.
+     */
+    void shutdown();
+
 
 }
@@ -19,9 +19,14 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.statemachine.api.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
@@ -41,7 +46,7 @@ import org.inria.myriads.snoozenode.exception.GroupManagerInitException;
 import org.inria.myriads.snoozenode.groupmanager.anomaly.AnomalyResolver;
 import org.inria.myriads.snoozenode.groupmanager.energysaver.EnergySaverFactory;
 import org.inria.myriads.snoozenode.groupmanager.energysaver.util.EnergySaverUtils;
-import org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup.WakeupResources;
+import org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup.WakeupOrchestrator;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.GroupManagerPolicyFactory;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.enums.Reconfiguration;
@@ -49,10 +54,16 @@ import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPolicy;
 import org.inria.myriads.snoozenode.groupmanager.migration.MigrationPlanEnforcer;
 import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationPlanListener;
+import org.inria.myriads.snoozenode.groupmanager.migration.scheduler.MigrationScheduler;
+import org.inria.myriads.snoozenode.groupmanager.migration.scheduler.WorkerMigrationExecutor;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.SystemState;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.VirtualMachineCommand;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.enums.ConcurrencyMode;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.reservation.Reservation;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.reservation.ReservationManager;
 import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.VirtualMachineManager;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.SubmissionCompletionListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,22 +71,32 @@ import org.slf4j.LoggerFactory;
 /**
  * Group manager state machine.
  * 
+ * Every operation holds a reservation while it runs. In global concurrency mode
+ * the reservation covers the whole group manager (one operation at a time), in
+ * reservation mode only the local controllers and virtual machines it touches.
+ * 
  * @author Eugen Feller
  */
 public class GroupManagerStateMachine 
-    implements StateMachine, MigrationPlanListener
+    implements StateMachine
 {
     /** Logging instance. */
     private static final Logger log_ = LoggerFactory.getLogger(GroupManagerStateMachine.class);
     
-    /** System state reference. */
-    private SystemState systemState_;
+    /** Concurrency mode. */
+    private ConcurrencyMode concurrencyMode_;
+    
+    /** Reservations. */
+    private ReservationManager reservations_;
     
     /** Reconfiguration policy. */
     private ReconfigurationPolicy reconfiguration_;
-        
-    /** Anomaly resolver. */
-    private MigrationPlanEnforcer migrationPlanEnforcer_;
+    
+    /** Time to wait for running operations before a reconfiguration (ms). */
+    private long reconfigurationDrainTimeout_;
+    
+    /** Migration scheduler (shared by all migration plan enforcers). */
+    private MigrationScheduler migrationScheduler_;
 
     /** Virtual machine manager. */
     private VirtualMachineManager virtualMachineManager_;
@@ -89,8 +110,8 @@ public class GroupManagerStateMachine
     /** Repository. */
     private GroupManagerRepository repository_;
     
-    /** Wakeup resource. */
-    private WakeupResources wakeupResources_;
+    /** Wakeup orchestrator. */
+    private WakeupOrchestrator wakeupOrchestrator_;
 
     /** Anomaly resolver. */
     private AnomalyResolver anomalyResolver_;
@@ -107,22 +128,26 @@ public class GroupManagerStateMachine
                                     GroupManagerRepository repository)
     {
         log_.debug("Initializing the state machine");
-        systemState_ = SystemState.IDLE; 
+        reservations_ = new ReservationManager();
         energyManagementSettings_ = nodeConfiguration.getEnergyManagement();
         estimatorSettings_ = nodeConfiguration.getEstimator();
         repository_ = repository;
-        // Migration plan enforcer
-        migrationPlanEnforcer_ = new MigrationPlanEnforcer(repository, this);
+        GroupManagerSchedulerSettings schedulerSettings = nodeConfiguration.getGroupManagerScheduler();
+        concurrencyMode_ = schedulerSettings.getConcurrencyMode();
+        // Migration scheduler
+        migrationScheduler_ = new MigrationScheduler(schedulerSettings.getMigrationSettings(), 
+                                                     new WorkerMigrationExecutor());
         // Wakeup 
-        wakeupResources_ = createWakeupResources(energyManagementSettings_, repository);
+        wakeupOrchestrator_ = createWakeupOrchestrator(energyManagementSettings_, repository);
         // Virtual machine manager
         virtualMachineManager_ = createVirtualMachineManager(nodeConfiguration, estimator, repository);
         // Anomaly
-        GroupManagerSchedulerSettings schedulerSettings = nodeConfiguration.getGroupManagerScheduler();
         anomalyResolver_ = createAnomalyResolver(schedulerSettings.getRelocationSettings(), estimator, repository);
         // Reconfiguration
         Reconfiguration reconfiguration = schedulerSettings.getReconfigurationSettings().getPolicy();
         reconfiguration_ = GroupManagerPolicyFactory.newVirtualMachineReconfiguration(reconfiguration, estimator);  
+        reconfigurationDrainTimeout_ = 
+            TimeUnit.SECONDS.toMillis(schedulerSettings.getReconfigurationSettings().getDrainTimeout());
     }
     
     /**
@@ -140,7 +165,8 @@ public class GroupManagerStateMachine
         AnomalyResolver anomalyResolver = new AnomalyResolver(relocation, 
                                                               estimator, 
                                                               repository, 
-                                                              this);
+                                                              this,
+                                                              migrationScheduler_);
         return anomalyResolver;
     }
     
@@ -165,20 +191,20 @@ public class GroupManagerStateMachine
     }
     
     /**
-     * Initializes wakeup resources.
+     * Initializes the wakeup orchestrator.
      * 
      * @param energyManagement          The energy management settings
      * @param repository                The group manager repository
-     * @return                          The wakeup resources
+     * @return                          The wakeup orchestrator
      */
-    private WakeupResources createWakeupResources(EnergyManagementSettings energyManagement,
-                                                  GroupManagerRepository repository) 
+    private WakeupOrchestrator createWakeupOrchestrator(EnergyManagementSettings energyManagement,
+                                                       GroupManagerRepository repository) 
     {
         int wakeupTime = energyManagement.getThresholds().getWakeupTime();
         int commandExecutionTimeout = energyManagement.getCommandExecutionTimeout();
-        WakeupResources wakeup = EnergySaverFactory.newWakeupResource(wakeupTime, 
-                                                                      commandExecutionTimeout,
-                                                                      repository);   
+        WakeupOrchestrator wakeup = EnergySaverFactory.newWakeupOrchestrator(wakeupTime, 
+                                                                             commandExecutionTimeout,
+                                                                             repository);   
         return wakeup;
     }
     
@@ -193,12 +219,14 @@ public class GroupManagerStateMachine
     {
         log_.debug("Starting virtual machines");        
         
-        if (!changeState(SystemState.MANAGEMENT))
+        List<String> none = Collections.emptyList();
+        Reservation reservation = reserve(SystemState.MANAGEMENT, none, none);
+        if (reservation == null)
         {
             return null;
         }
         
-        String taskIdentifier = virtualMachineManager_.start(submissionRequest);
+        String taskIdentifier = virtualMachineManager_.start(submissionRequest, reservation);
         return taskIdentifier;
     }
     
@@ -216,33 +244,78 @@ public class GroupManagerStateMachine
     {
         log_.debug(String.format("Starting virtual machine command: %s processing", command));
         
-        if (!changeState(SystemState.MANAGEMENT))
+        List<String> none = Collections.emptyList();
+        Reservation reservation = reserve(SystemState.MANAGEMENT, none, Arrays.asList(location.getVirtualMachineId()));
+        if (reservation == null)
         {
             return false;
         }   
         
-        setIdle();
-        boolean isProcessed = virtualMachineManager_.processControlCommand(command, location);
-        return isProcessed;
+        try
+        {
+            boolean isProcessed = virtualMachineManager_.processControlCommand(command, location);
+            return isProcessed;
+        }
+        finally
+        {
+            reservation.release();
+        }
     }
 
     /** 
-     * Changes the system state.
+     * Reserves resources for an operation.
      * 
-     * @param state    The new system state
-     * @return          true if everything ok, false otherwise
+     * @param operation             The operation
+     * @param localControllerIds    The local controller identifiers
+     * @param virtualMachineIds     The virtual machine identifiers
+     * @return                      The reservation, null if busy
      */
-    private synchronized boolean changeState(SystemState state)
+    private Reservation reserve(SystemState operation, 
+                                Collection<String> localControllerIds, 
+                                Collection<String> virtualMachineIds)
     {
-        if (systemState_.equals(SystemState.IDLE))
+        Reservation reservation;
+        if (concurrencyMode_.equals(ConcurrencyMode.global))
         {
-            log_.debug(String.format("Changing system state to: %s", state));
-            systemState_ = state;
-            return true;
+            reservation = reservations_.reserveAll(operation);
+        }
+        else
+        {
+            reservation = reservations_.reserve(operation, localControllerIds, virtualMachineIds);
         }
         
-        log_.debug(String.format("Unable to change state! System is in state: %s", systemState_));
-        return false;
+        if (reservation == null)
+        {
+            log_.debug(String.format("Unable to start %s! Resources are busy", operation));
+            return null;
+        }
+        
+        log_.debug(String.format("Starting %s", reservation));
+        return reservation;
+    }
+    
+    /**
+     * Enforces a migration plan and releases the reservation once it is enforced.
+     * 
+     * @param migrationPlan     The migration plan
+     * @param reservation       The reservation
+     * @throws Exception        The exception
+     */
+    private void enforceMigrationPlan(ReconfigurationPlan migrationPlan, final Reservation reservation)
+        throws Exception
+    {
+        MigrationPlanListener listener = new MigrationPlanListener()
+        {
+            public void onMigrationPlanEnforced()
+            {
+                reservation.release();
+            }
+        };
+        
+        MigrationPlanEnforcer migrationPlanEnforcer = new MigrationPlanEnforcer(repository_, 
+                                                                                listener, 
+                                                                                migrationScheduler_);
+        migrationPlanEnforcer.enforceMigrationPlan(migrationPlan);
     }
     
     /**
@@ -257,28 +330,44 @@ public class GroupManagerStateMachine
         Guard.check(idleResources);
         log_.debug("Entering on energy savings enabled!");
         
-        if (!changeState(SystemState.ENERGYSAVER))
+        List<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        List<String> localControllerIds = new ArrayList<String>();
+        for (LocalControllerDescription localController : idleResources)
+        {
+            if (!reservations_.isLocalControllerReserved(localController.getId()))
+            {
+                localControllers.add(localController);
+                localControllerIds.add(localController.getId());
+            }
+        }
+        
+        if (localControllers.size() == 0)
+        {
+            log_.debug("All idle resources are reserved!");
+            return false;
+        }
+        
+        List<String> none = Collections.emptyList();
+        Reservation reservation = reserve(SystemState.ENERGYSAVER, localControllerIds, none);
+        if (reservation == null)
         {
             return false;
         }      
 
-        log_.debug(String.format("Power cycling %d idle resources!", idleResources.size()));    
-        PowerSavingAction action = energyManagementSettings_.getPowerSavingAction();
-        EnergySaverUtils.powerCycleLocalControllers(idleResources, action, repository_);  
-        setIdle();
+        try
+        {
+            log_.debug(String.format("Power cycling %d idle resources!", localControllers.size()));    
+            PowerSavingAction action = energyManagementSettings_.getPowerSavingAction();
+            EnergySaverUtils.powerCycleLocalControllers(localControllers, action, repository_);  
+        }
+        finally
+        {
+            reservation.release();
+        }
         
         return true;
     }
     
-    /**
-     * Changes system state to idle.
-     */
-    private synchronized void setIdle()
-    {
-        log_.debug(String.format("Changing system state from: %s to IDLE", systemState_));
-        systemState_ = SystemState.IDLE;
-    }
-    
     /**
      * Starts the reconfiguration process.
      * 
@@ -289,8 +378,10 @@ public class GroupManagerStateMachine
     {
         log_.debug("Starting the reconfiguration procedure");
         
-        if (!changeState(SystemState.RECONFIGURATION))
+        Reservation reservation = reservations_.reserveAll(SystemState.RECONFIGURATION, reconfigurationDrainTimeout_);
+        if (reservation == null)
         {
+            log_.debug("Unable to start the reconfiguration! Resources are busy");
             return false;
         }    
         
@@ -320,11 +411,11 @@ public class GroupManagerStateMachine
                 log_.debug("Consolidation started!");
             }
             
-            migrationPlanEnforcer_.enforceMigrationPlan(migrationPlan);
+            enforceMigrationPlan(migrationPlan, reservation);
         }
         catch (Exception exception) 
         {
-            setIdle();
+            reservation.release();
             log_.debug(String.format("Unable to execute the migration plan: %s", exception.getMessage()));
             return false;
         }
@@ -343,46 +434,51 @@ public class GroupManagerStateMachine
     {
         log_.debug(String.format("Starting to resolve ANOMALY (%s) situation!", state));
         
-        if (!changeState(SystemState.RELOCATION))
+        List<String> none = Collections.emptyList();
+        Reservation reservation = reserve(SystemState.RELOCATION, Arrays.asList(localControllerId), none);
+        if (reservation == null)
         {
             return;
         }
         
         try 
         {
-            anomalyResolver_.resolveAnomaly(localControllerId, state);
+            anomalyResolver_.resolveAnomaly(localControllerId, state, reservation);
         } 
         catch (Exception exception) 
         {
             log_.debug(String.format("Exception during anomaly resolving: %s", exception.getMessage()));
-            setIdle();
+            reservation.release();
         }
     }
     
     /**
-     * Checks if the system is busy.
+     * Checks if the whole system is busy.
      * 
      * @return   true if busy, false otherwise
      */
     @Override
     public boolean isBusy()
     {        
-        if (!systemState_.equals(SystemState.IDLE))
+        if (reservations_.isExclusive())
         {
-            log_.debug(String.format("System is in state: %s", systemState_));
+            log_.debug("System is reserved exclusively");
             return true;
         }     
         
         return false;
     }
-
+    
     /**
-     * Called upon migration plan enforcement.
+     * Checks if a local controller is busy.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if busy, false otherwise
      */
     @Override
-    public void onMigrationPlanEnforced() 
+    public boolean isBusy(String localControllerId)
     {
-        setIdle();
+        return reservations_.isLocalControllerReserved(localControllerId);
     }
     
     /**
@@ -395,45 +491,47 @@ public class GroupManagerStateMachine
     public boolean onWakeupLocalController(LocalControllerDescription localController)
     {
         log_.debug(String.format("Entering on wakeup local controller: %s", localController.getId()));    
-        boolean isWokenUp = wakeupResources_.wakeupLocalController(localController);
-        if (!isWokenUp)
-        {  
-            return false;
-        }
-        
-        wakeupResources_.sleep();
-        return true;
+        List<String> readyLocalControllers = onWakeupLocalControllers(Arrays.asList(localController), 1);
+        return readyLocalControllers.contains(localController.getId());
     }
     
     /**
      * Wakeup local controllers.
      * 
+     * Returns as soon as the required number of local controllers rejoined or
+     * the remaining ones failed or passed their deadline.
+     * 
      * @param localControllers   The local controllers
-     * @return                   true if everything ok, false otherwise
+     * @param numberOfRequired   The number of local controllers to wait for
+     * @return                   The identifiers of the local controllers which are back
      */
     @Override
-    public boolean onWakeupLocalControllers(List<LocalControllerDescription> localControllers)
+    public List<String> onWakeupLocalControllers(List<LocalControllerDescription> localControllers, 
+                                                 int numberOfRequired)
     {
         log_.debug("Entering on wakeup local controllers");  
-        boolean isWokenUp = false;
         try 
         {
-            isWokenUp = wakeupResources_.wakeupLocalControllers(localControllers);
+            return wakeupOrchestrator_.wakeupLocalControllers(localControllers, numberOfRequired);
         } 
         catch (InterruptedException exception) 
         {
             log_.error("Interrupted", exception);
-        }
-        finally
-        {
-            if (!isWokenUp)
-            {  
-                return false;
-            }
+            Thread.currentThread().interrupt();
         }
         
-        wakeupResources_.sleep();
-        return true;
+        return Collections.emptyList();
+    }
+    
+    /**
+     * Called when a local controller joins the group manager.
+     * 
+     * @param localControllerId     The local controller identifier
+     */
+    @Override
+    public void onLocalControllerJoined(String localControllerId)
+    {
+        wakeupOrchestrator_.onLocalControllerJoined(localControllerId);
     }
     
     /**
@@ -442,7 +540,7 @@ public class GroupManagerStateMachine
     @Override
     public void onVirtualMachineSubmissionFinished() 
     {
-        setIdle();
+        log_.debug("Virtual machine submission finished");
     }
     
     /**
@@ -462,7 +560,6 @@ public class GroupManagerStateMachine
             log_.debug(String.format("Power saving action to be executed: %s", action));
             EnergySaverUtils.powerCycleLocalController(localController, action, repository_);        
         }
-        setIdle();
     }
 
     /**
@@ -476,6 +573,17 @@ public class GroupManagerStateMachine
     {
         return virtualMachineManager_.getVirtualMachineSubmissionResponse(taskIdentifier);
     }
+    
+    /**
+     * Sets the submission completion listener.
+     * 
+     * @param completionListener    The submission completion listener
+     */
+    @Override
+    public void setSubmissionCompletionListener(SubmissionCompletionListener completionListener) 
+    {
+        virtualMachineManager_.setSubmissionCompletionListener(completionListener);
+    }
 
 
     
@@ -492,15 +600,19 @@ public class GroupManagerStateMachine
     {
         log_.debug("Starting the reconfiguration procedure");
         
-        if (!changeState(SystemState.RECONFIGURATION))
+        VirtualMachineLocation oldLocation = clientMigrationRequest.getOldLocation();
+        VirtualMachineLocation newLocation = clientMigrationRequest.getNewLocation();
+        Reservation reservation = reserve(SystemState.RECONFIGURATION, 
+                                          Arrays.asList(oldLocation.getLocalControllerId(), 
+                                                        newLocation.getLocalControllerId()),
+                                          Arrays.asList(oldLocation.getVirtualMachineId()));
+        if (reservation == null)
         {
             return false;
         }
         
         try
         {
-            VirtualMachineLocation oldLocation = clientMigrationRequest.getOldLocation();
-            VirtualMachineLocation newLocation = clientMigrationRequest.getNewLocation();
             VirtualMachineMetaData virtualMachine = repository_.getVirtualMachineMetaData(oldLocation, 0);
             LocalControllerDescription newLocalController = 
                     repository_.getLocalControllerDescription(newLocation.getLocalControllerId(), 0);
@@ -511,14 +623,24 @@ public class GroupManagerStateMachine
             //artificially release node to use the logic behind.
             ReconfigurationPlan migrationPlan = new ReconfigurationPlan(mapping, 1, 1);
             
-            migrationPlanEnforcer_.enforceMigrationPlan(migrationPlan);
+            enforceMigrationPlan(migrationPlan, reservation);
         }
         catch (Exception exception) 
         {
-            setIdle();
+            reservation.release();
             log_.debug(String.format("Unable to execute the migration plan: %s", exception.getMessage()));
             return false;
         }
         return true;
     }
+    
+    /**
+     * Stops the state machine worker threads.
+     */
+    @Override
+    public void shutdown()
+    {
+        log_.debug("Shutting down the state machine");
+        migrationScheduler_.shutdown();
+    }
 }
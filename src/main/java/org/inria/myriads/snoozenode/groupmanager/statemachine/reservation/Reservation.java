@@ -0,0 +1,202 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.statemachine.reservation;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.SystemState;
+
+/**
+ * Reservation of local controllers and virtual machines held by one operation.
+ * 
+ * @author Eugen Feller
+ */
+public final class Reservation 
+{
+    /** Reservation manager. */
+    private ReservationManager manager_;
+    
+    /** Operation. */
+    private SystemState operation_;
+    
+    /** Exclusive flag (whole group manager). */
+    private boolean isExclusive_;
+    
+    /** Reserved local controller identifiers. */
+    private Set<String> localControllerIds_;
+    
+    /** Reserved virtual machine identifiers. */
+    private Set<String> virtualMachineIds_;
+    
+    /** Released flag. */
+    private boolean isReleased_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param manager       The reservation manager
+     * @param operation     The operation
+     * @param isExclusive   true if exclusive
+     */
+    Reservation(ReservationManager manager, SystemState operation, boolean isExclusive)
+    {
+        manager_ = manager;
+        operation_ = operation;
+        isExclusive_ = isExclusive;
+        localControllerIds_ = new HashSet<String>();
+        virtualMachineIds_ = new HashSet<String>();
+    }
+    
+    /**
+     * Extends the reservation (all or nothing).
+     * 
+     * @param localControllerIds    The local controller identifiers
+     * @param virtualMachineIds     The virtual machine identifiers
+     * @return                      true if everything ok, false otherwise
+     */
+    public boolean extend(Collection<String> localControllerIds, Collection<String> virtualMachineIds)
+    {
+        return manager_.extend(this, localControllerIds, virtualMachineIds);
+    }
+    
+    /**
+     * Checks if a local controller can be used by this reservation.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if not reserved by another operation
+     */
+    public boolean isAvailable(String localControllerId)
+    {
+        return manager_.isAvailable(this, localControllerId);
+    }
+    
+    /**
+     * Returns the local controllers not reserved by other operations.
+     * 
+     * @param localControllers      The local controllers
+     * @return                      The available local controllers
+     */
+    public List<LocalControllerDescription> filterAvailable(List<LocalControllerDescription> localControllers)
+    {
+        return manager_.filterAvailable(this, localControllers);
+    }
+    
+    /**
+     * Releases the reservation.
+     */
+    public void release()
+    {
+        manager_.release(this);
+    }
+    
+    /**
+     * Returns the operation.
+     * 
+     * @return  The operation
+     */
+    public SystemState getOperation()
+    {
+        return operation_;
+    }
+    
+    /**
+     * Checks if the reservation is exclusive.
+     * 
+     * @return  true if exclusive, false otherwise
+     */
+    public boolean isExclusive()
+    {
+        return isExclusive_;
+    }
+    
+    /**
+     * Returns the reserved local controller identifiers.
+     * 
+     * @return  The local controller identifiers
+     */
+    public synchronized Set<String> getLocalControllerIds()
+    {
+        return Collections.unmodifiableSet(new HashSet<String>(localControllerIds_));
+    }
+    
+    /**
+     * Returns the reserved virtual machine identifiers.
+     * 
+     * @return  The virtual machine identifiers
+     */
+    public synchronized Set<String> getVirtualMachineIds()
+    {
+        return Collections.unmodifiableSet(new HashSet<String>(virtualMachineIds_));
+    }
+    
+    /**
+     * Checks if the reservation was released.
+     * 
+     * @return  true if released, false otherwise
+     */
+    public synchronized boolean isReleased()
+    {
+        return isReleased_;
+    }
+    
+    /**
+     * Adds identifiers (called by the manager).
+     * 
+     * @param localControllerIds    The local controller identifiers
+     * @param virtualMachineIds     The virtual machine identifiers
+     */
+    synchronized void add(Collection<String> localControllerIds, Collection<String> virtualMachineIds)
+    {
+        localControllerIds_.addAll(localControllerIds);
+        virtualMachineIds_.addAll(virtualMachineIds);
+    }
+    
+    /**
+     * Marks the reservation as released (called by the manager).
+     * 
+     * @return  false if it was already released
+     */
+    synchronized boolean markReleased()
+    {
+        if (isReleased_)
+        {
+            return false;
+        }
+        
+        isReleased_ = true;
+        return true;
+    }
+    
+    /**
+     * Returns the string representation.
+     * 
+     * @return  The string
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("%s reservation (exclusive: %s)", operation_, isExclusive_);
+    }
+}
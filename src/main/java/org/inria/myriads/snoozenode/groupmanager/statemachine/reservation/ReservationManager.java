@@ -0,0 +1,388 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.statemachine.reservation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.SystemState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reservation manager.
+ * 
+ * Keeps track of the local controllers and virtual machines touched by the
+ * running operations. Reservations are all or nothing and never block: a
+ * conflicting request simply fails. An exclusive reservation can only be taken
+ * when nothing is reserved and blocks all other reservations while held.
+ * While an exclusive request waits for the active reservations to be released,
+ * new reservations fail so that the request is not starved.
+ * 
+ * @author Eugen Feller
+ */
+public final class ReservationManager 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(ReservationManager.class);
+    
+    /** Local controller reservations. */
+    private Map<String, Reservation> localControllers_;
+    
+    /** Virtual machine reservations. */
+    private Map<String, Reservation> virtualMachines_;
+    
+    /** Active reservations. */
+    private Set<Reservation> reservations_;
+    
+    /** Exclusive reservation (if any). */
+    private Reservation exclusive_;
+    
+    /** Number of exclusive requests waiting for the active reservations to drain. */
+    private int numberOfPendingExclusive_;
+    
+    /** Constructor. */
+    public ReservationManager()
+    {
+        localControllers_ = new HashMap<String, Reservation>();
+        virtualMachines_ = new HashMap<String, Reservation>();
+        reservations_ = new HashSet<Reservation>();
+    }
+    
+    /**
+     * Reserves local controllers and virtual machines.
+     * 
+     * @param operation             The operation
+     * @param localControllerIds    The local controller identifiers
+     * @param virtualMachineIds     The virtual machine identifiers
+     * @return                      The reservation, null if conflicting
+     */
+    public synchronized Reservation reserve(SystemState operation,
+                                            Collection<String> localControllerIds, 
+                                            Collection<String> virtualMachineIds)
+    {
+        Guard.check(operation, localControllerIds, virtualMachineIds);
+        
+        if (numberOfPendingExclusive_ > 0)
+        {
+            log_.debug(String.format("Unable to reserve for %s! Exclusive reservation pending", operation));
+            return null;
+        }
+        
+        Reservation reservation = new Reservation(this, operation, false);
+        if (!isFree(reservation, localControllerIds, virtualMachineIds))
+        {
+            log_.debug(String.format("Unable to reserve %d local controllers and %d virtual machines for %s", 
+                                     localControllerIds.size(), virtualMachineIds.size(), operation));
+            return null;
+        }
+        
+        reservations_.add(reservation);
+        add(reservation, localControllerIds, virtualMachineIds);
+        return reservation;
+    }
+    
+    /**
+     * Reserves the whole group manager.
+     * 
+     * @param operation     The operation
+     * @return              The reservation, null if anything is reserved
+     */
+    public Reservation reserveAll(SystemState operation)
+    {
+        return reserveAll(operation, 0);
+    }
+    
+    /**
+     * Reserves the whole group manager.
+     * 
+     * New reservations are refused while waiting for the active ones to be released.
+     * 
+     * @param operation     The operation
+     * @param timeout       The maximum time to wait for the active reservations (ms)
+     * @return              The reservation, null if anything is still reserved after the timeout
+     */
+    public synchronized Reservation reserveAll(SystemState operation, long timeout)
+    {
+        Guard.check(operation);
+        
+        long deadline = System.currentTimeMillis() + timeout;
+        numberOfPendingExclusive_++;
+        try
+        {
+            while (!reservations_.isEmpty())
+            {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0)
+                {
+                    log_.debug(String.format("Unable to reserve the group manager for %s! %d reservations active", 
+                                             operation, reservations_.size()));
+                    return null;
+                }
+                
+                wait(remaining);
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            log_.debug(String.format("Interrupted while reserving the group manager for %s", operation));
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        finally
+        {
+            numberOfPendingExclusive_--;
+        }
+        
+        Reservation reservation = new Reservation(this, operation, true);
+        reservations_.add(reservation);
+        exclusive_ = reservation;
+        return reservation;
+    }
+    
+    /**
+     * Extends a reservation (all or nothing).
+     * 
+     * @param reservation           The reservation
+     * @param localControllerIds    The local controller identifiers
+     * @param virtualMachineIds     The virtual machine identifiers
+     * @return                      true if everything ok, false otherwise
+     */
+    synchronized boolean extend(Reservation reservation,
+                                Collection<String> localControllerIds, 
+                                Collection<String> virtualMachineIds)
+    {
+        Guard.check(reservation, localControllerIds, virtualMachineIds);
+        
+        if (!reservations_.contains(reservation))
+        {
+            log_.debug(String.format("Unable to extend the released %s", reservation));
+            return false;
+        }
+        
+        if (reservation.isExclusive())
+        {
+            reservation.add(localControllerIds, virtualMachineIds);
+            return true;
+        }
+        
+        if (!isFree(reservation, localControllerIds, virtualMachineIds))
+        {
+            log_.debug(String.format("Unable to extend %s", reservation));
+            return false;
+        }
+        
+        add(reservation, localControllerIds, virtualMachineIds);
+        return true;
+    }
+    
+    /**
+     * Releases a reservation.
+     * 
+     * @param reservation   The reservation
+     */
+    synchronized void release(Reservation reservation)
+    {
+        if (!reservation.markReleased())
+        {
+            return;
+        }
+        
+        reservations_.remove(reservation);
+        if (reservation == exclusive_)
+        {
+            exclusive_ = null;
+        }
+        
+        localControllers_.values().removeAll(Collections.singleton(reservation));
+        virtualMachines_.values().removeAll(Collections.singleton(reservation));
+        log_.debug(String.format("Released %s", reservation));
+        notifyAll();
+    }
+    
+    /**
+     * Checks if a local controller is available to a reservation.
+     * 
+     * @param reservation           The reservation
+     * @param localControllerId     The local controller identifier
+     * @return                      true if available, false otherwise
+     */
+    synchronized boolean isAvailable(Reservation reservation, String localControllerId)
+    {
+        if (exclusive_ != null)
+        {
+            return exclusive_ == reservation;
+        }
+        
+        Reservation owner = localControllers_.get(localControllerId);
+        return owner == null || owner == reservation;
+    }
+    
+    /**
+     * Returns the local controllers not reserved by other operations.
+     * 
+     * @param reservation           The reservation
+     * @param localControllers      The local controllers
+     * @return                      The available local controllers
+     */
+    synchronized List<LocalControllerDescription> filterAvailable(Reservation reservation, 
+                                                                  List<LocalControllerDescription> localControllers)
+    {
+        Guard.check(reservation, localControllers);
+        
+        List<LocalControllerDescription> available = new ArrayList<LocalControllerDescription>();
+        for (LocalControllerDescription localController : localControllers)
+        {
+            if (isAvailable(reservation, localController.getId()))
+            {
+                available.add(localController);
+            }
+        }
+        
+        return available;
+    }
+    
+    /**
+     * Checks if a local controller is reserved.
+     * 
+     * @param localControllerId     The local controller identifier
+     * @return                      true if reserved, false otherwise
+     */
+    public synchronized boolean isLocalControllerReserved(String localControllerId)
+    {
+        return exclusive_ != null || localControllers_.containsKey(localControllerId);
+    }
+    
+    /**
+     * Checks if a virtual machine is reserved.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      true if reserved, false otherwise
+     */
+    public synchronized boolean isVirtualMachineReserved(String virtualMachineId)
+    {
+        return exclusive_ != null || virtualMachines_.containsKey(virtualMachineId);
+    }
+    
+    /**
+     * Checks if an exclusive reservation is held.
+     * 
+     * @return  true if exclusive, false otherwise
+     */
+    public synchronized boolean isExclusive()
+    {
+        return exclusive_ != null;
+    }
+    
+    /**
+     * Checks if an exclusive reservation is waiting for the active reservations to drain.
+     * 
+     * @return  true if pending, false otherwise
+     */
+    public synchronized boolean isExclusivePending()
+    {
+        return numberOfPendingExclusive_ > 0;
+    }
+    
+    /**
+     * Returns the number of active reservations.
+     * 
+     * @return  The number of reservations
+     */
+    public synchronized int getNumberOfReservations()
+    {
+        return reservations_.size();
+    }
+    
+    /**
+     * Checks if local controllers and virtual machines are free for a reservation.
+     * 
+     * @param reservation           The reservation
+     * @param localControllerIds    The local controller identifiers
+     * @param virtualMachineIds     The virtual machine identifiers
+     * @return                      true if free, false otherwise
+     */
+    private boolean isFree(Reservation reservation,
+                           Collection<String> localControllerIds, 
+                           Collection<String> virtualMachineIds)
+    {
+        if (exclusive_ != null)
+        {
+            return false;
+        }
+        
+        return isFree(localControllers_, reservation, localControllerIds) && 
+               isFree(virtualMachines_, reservation, virtualMachineIds);
+    }
+    
+    /**
+     * Checks if identifiers are free for a reservation.
+     * 
+     * @param owners        The current owners
+     * @param reservation   The reservation
+     * @param ids           The identifiers
+     * @return              true if free, false otherwise
+     */
+    private static boolean isFree(Map<String, Reservation> owners, Reservation reservation, Collection<String> ids)
+    {
+        for (String id : ids)
+        {
+            Reservation owner = owners.get(id);
+            if (owner != null && owner != reservation)
+            {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Adds identifiers to a reservation.
+     * 
+     * @param reservation           The reservation
+     * @param localControllerIds    The local controller identifiers
+     * @param virtualMachineIds     The virtual machine identifiers
+     */
+    private void add(Reservation reservation, 
+                     Collection<String> localControllerIds, 
+                     Collection<String> virtualMachineIds)
+    {
+        for (String localControllerId : localControllerIds)
+        {
+            localControllers_.put(localControllerId, reservation);
+        }
+        
+        for (String virtualMachineId : virtualMachineIds)
+        {
+            virtualMachines_.put(virtualMachineId, reservation);
+        }
+        
+        reservation.add(localControllerIds, virtualMachineIds);
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozecommon.util.MonitoringUtils;
+import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Optimistic group manager capacity reservations.
+ * 
+ * The capacity of virtual machines dispatched to a group manager is reserved until the
+ * submission response of the group manager was collected. Until then the group manager
+ * summary information does not account for these virtual machines, so the reserved 
+ * capacity is added to it before concurrent submissions are dispatched.
+ * 
+ * @author Eugen Feller
+ */
+public final class GroupManagerCapacityReservations 
+{
+    /** Logging instance. */
+    private static final Logger log_ = LoggerFactory.getLogger(GroupManagerCapacityReservations.class);
+    
+    /** Reserved capacity (group manager identifier, task identifier, capacity). */
+    private Map<String, Map<String, ArrayList<Double>>> reservations_;
+    
+    /** Constructor. */
+    public GroupManagerCapacityReservations()
+    {
+        reservations_ = new HashMap<String, Map<String, ArrayList<Double>>>();
+    }
+    
+    /**
+     * Reserves the capacity of the virtual machines assigned by a dispatching plan.
+     * 
+     * @param taskIdentifier    The task identifier
+     * @param dispatchPlan      The dispatching plan
+     */
+    public synchronized void reserve(String taskIdentifier, DispatchingPlan dispatchPlan)
+    {
+        Guard.check(taskIdentifier, dispatchPlan);
+        
+        for (GroupManagerDescription groupManager : dispatchPlan.getGroupManagers())
+        {
+            ArrayList<Double> capacity = null;
+            for (VirtualMachineMetaData virtualMachine : groupManager.getVirtualMachines())
+            {
+                ArrayList<Double> requestedCapacity = virtualMachine.getRequestedCapacity();
+                capacity = capacity == null ? 
+                           new ArrayList<Double>(requestedCapacity) : MathUtils.addVectors(capacity, requestedCapacity);
+            }
+            
+            if (capacity == null)
+            {
+                continue;
+            }
+            
+            log_.debug(String.format("Reserving capacity %s on group manager %s for task %s", 
+                                     capacity, groupManager.getId(), taskIdentifier));
+            Map<String, ArrayList<Double>> groupManagerReservations = reservations_.get(groupManager.getId());
+            if (groupManagerReservations == null)
+            {
+                groupManagerReservations = new HashMap<String, ArrayList<Double>>();
+                reservations_.put(groupManager.getId(), groupManagerReservations);
+            }
+            
+            groupManagerReservations.put(taskIdentifier, capacity);
+        }
+    }
+    
+    /**
+     * Releases the capacity reserved on a group manager.
+     * 
+     * @param taskIdentifier    The task identifier
+     * @param groupManagerId    The group manager identifier
+     */
+    public synchronized void release(String taskIdentifier, String groupManagerId)
+    {
+        Guard.check(taskIdentifier, groupManagerId);
+        
+        Map<String, ArrayList<Double>> groupManagerReservations = reservations_.get(groupManagerId);
+        if (groupManagerReservations == null || groupManagerReservations.remove(taskIdentifier) == null)
+        {
+            return;
+        }
+        
+        log_.debug(String.format("Released capacity on group manager %s for task %s", 
+                                 groupManagerId, taskIdentifier));
+        if (groupManagerReservations.isEmpty())
+        {
+            reservations_.remove(groupManagerId);
+        }
+    }
+    
+    /**
+     * Releases all capacity reserved for a task.
+     * 
+     * @param taskIdentifier    The task identifier
+     */
+    public synchronized void releaseAll(String taskIdentifier)
+    {
+        Guard.check(taskIdentifier);
+        
+        Iterator<Map<String, ArrayList<Double>>> iterator = reservations_.values().iterator();
+        while (iterator.hasNext())
+        {
+            Map<String, ArrayList<Double>> groupManagerReservations = iterator.next();
+            groupManagerReservations.remove(taskIdentifier);
+            if (groupManagerReservations.isEmpty())
+            {
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * Returns the capacity reserved on a group manager.
+     * 
+     * @param groupManagerId    The group manager identifier
+     * @return                  The reserved capacity, null if nothing is reserved
+     */
+    public synchronized ArrayList<Double> getReservedCapacity(String groupManagerId)
+    {
+        Guard.check(groupManagerId);
+        
+        Map<String, ArrayList<Double>> groupManagerReservations = reservations_.get(groupManagerId);
+        if (groupManagerReservations == null)
+        {
+            return null;
+        }
+        
+        ArrayList<Double> reservedCapacity = null;
+        for (ArrayList<Double> capacity : groupManagerReservations.values())
+        {
+            reservedCapacity = reservedCapacity == null ? 
+                               new ArrayList<Double>(capacity) : MathUtils.addVectors(reservedCapacity, capacity);
+        }
+        
+        return reservedCapacity;
+    }
+    
+    /**
+     * Adds the reserved capacity to the latest summary information of the group managers.
+     * 
+     * The summary information is replaced by an adjusted copy, the original is left untouched.
+     * 
+     * @param groupManagers     The group managers (copies)
+     */
+    public synchronized void applyTo(List<GroupManagerDescription> groupManagers)
+    {
+        Guard.check(groupManagers);
+        
+        for (GroupManagerDescription groupManager : groupManagers)
+        {
+            ArrayList<Double> reservedCapacity = getReservedCapacity(groupManager.getId());
+            Map<Long, GroupManagerSummaryInformation> summaryInformation = groupManager.getSummaryInformation();
+            if (reservedCapacity == null || summaryInformation.size() == 0)
+            {
+                continue;
+            }
+            
+            GroupManagerSummaryInformation summary = MonitoringUtils.getLatestSummaryInformation(summaryInformation);
+            GroupManagerSummaryInformation adjusted = new GroupManagerSummaryInformation();
+            adjusted.setTimeStamp(summary.getTimeStamp());
+            adjusted.setActiveCapacity(summary.getActiveCapacity());
+            adjusted.setPassiveCapacity(summary.getPassiveCapacity());
+            adjusted.setRequestedCapacity(addCapacity(summary.getRequestedCapacity(), reservedCapacity));
+            adjusted.setUsedCapacity(addCapacity(summary.getUsedCapacity(), reservedCapacity));
+            adjusted.setLegacyIpAddresses(summary.getLegacyIpAddresses());
+            summaryInformation.put(summary.getTimeStamp(), adjusted);
+            
+            log_.debug(String.format("Considering reserved capacity %s of group manager %s", 
+                                     reservedCapacity, groupManager.getId()));
+        }
+    }
+    
+    /**
+     * Adds the reserved capacity to a capacity.
+     * 
+     * @param capacity          The capacity (may be null)
+     * @param reservedCapacity  The reserved capacity
+     * @return                  The new capacity
+     */
+    private static ArrayList<Double> addCapacity(ArrayList<Double> capacity, ArrayList<Double> reservedCapacity)
+    {
+        if (capacity == null)
+        {
+            return null;
+        }
+        
+        return MathUtils.addVectors(capacity, reservedCapacity);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.SubmissionCompletionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the virtual machine submissions reported as finished by the group managers.
+ * 
+ * Notifications may arrive before anybody waits for them, so they are kept until
+ * consumed (bounded, the oldest are dropped first).
+ * 
+ * @author Eugen Feller
+ */
+public final class SubmissionCompletionTracker 
+    implements SubmissionCompletionListener
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(SubmissionCompletionTracker.class);
+    
+    /** Maximum number of unconsumed notifications. */
+    private final int maxNumberOfNotifications_;
+    
+    /** Finished submissions (insertion ordered). */
+    private final LinkedHashSet<String> finishedSubmissions_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param maxNumberOfNotifications    The maximum number of unconsumed notifications
+     */
+    public SubmissionCompletionTracker(int maxNumberOfNotifications)
+    {
+        maxNumberOfNotifications_ = maxNumberOfNotifications;
+        finishedSubmissions_ = new LinkedHashSet<String>();
+    }
+    
+    /**
+     * Records a finished submission and wakes up the waiting workers.
+     * 
+     * @param taskIdentifier    The submission task identifier
+     */
+    public synchronized void onSubmissionCompleted(String taskIdentifier)
+    {
+        Guard.check(taskIdentifier);
+        log_.debug(String.format("Submission %s finished", taskIdentifier));
+        
+        finishedSubmissions_.add(taskIdentifier);
+        if (finishedSubmissions_.size() > maxNumberOfNotifications_)
+        {
+            Iterator<String> iterator = finishedSubmissions_.iterator();
+            log_.debug(String.format("Dropping unconsumed notification of submission %s", iterator.next()));
+            iterator.remove();
+        }
+        
+        notifyAll();
+    }
+    
+    /**
+     * Waits until at least one of the submissions has finished.
+     * 
+     * @param taskIdentifiers       The submission task identifiers
+     * @param timeout               The timeout (ms)
+     * @return                      The finished submissions (consumed), empty on timeout
+     * @throws InterruptedException The interrupted exception
+     */
+    public synchronized Set<String> awaitCompletion(Collection<String> taskIdentifiers, long timeout) 
+        throws InterruptedException
+    {
+        Guard.check(taskIdentifiers);
+        
+        Set<String> finished = new HashSet<String>();
+        long deadline = System.currentTimeMillis() + timeout;
+        while (true)
+        {
+            for (String taskIdentifier : taskIdentifiers)
+            {
+                if (finishedSubmissions_.remove(taskIdentifier))
+                {
+                    finished.add(taskIdentifier);
+                }
+            }
+            
+            long remaining = deadline - System.currentTimeMillis();
+            if (!finished.isEmpty() || remaining <= 0)
+            {
+                return finished;
+            }
+            
+            wait(remaining);
+        }
+    }
+    
+    /**
+     * Returns the number of unconsumed notifications.
+     * 
+     * @return  The number of notifications
+     */
+    public synchronized int getNumberOfNotifications()
+    {
+        return finishedSubmissions_.size();
+    }
+}
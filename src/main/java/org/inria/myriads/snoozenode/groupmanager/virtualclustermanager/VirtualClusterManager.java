@@ -21,10 +21,10 @@ package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
@@ -36,6 +36,7 @@ import org.inria.myriads.snoozecommon.exception.VirtualClusterParserException;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.parser.VirtualClusterParserFactory;
 import org.inria.myriads.snoozecommon.parser.api.VirtualClusterParser;
+import org.inria.myriads.snoozecommon.util.TimeUtils;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.configurator.scheduler.GroupLeaderSchedulerSettings;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
@@ -44,7 +45,7 @@ import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.GroupLeaderPolic
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPolicy;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.enums.Dispatching;
 import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.listener.VirtualClusterSubmissionListener;
-import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.worker.VirtualClusterSubmissionWorker;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.submitter.RestGroupManagerSubmitter;
 import org.inria.myriads.snoozenode.groupmanager.virtualnetworkmanager.VirtualNetworkFactory;
 import org.inria.myriads.snoozenode.groupmanager.virtualnetworkmanager.api.VirtualNetworkManager;
 import org.slf4j.Logger;
@@ -60,12 +61,15 @@ public final class VirtualClusterManager
 {
     /** Logging instance. */
     private Logger log_ = LoggerFactory.getLogger(VirtualClusterManager.class);
+    
+    /** Maximum number of unconsumed submission notifications. */
+    private static final int MAX_NUMBER_OF_NOTIFICATIONS = 1024;
             
     /** Map which holds the virtual cluster responses. */
     private Map<String, VirtualClusterSubmissionResponse> virtualClusterResponses_;
 
-    /** Queue for tasks. */
-    private Queue<VirtualClusterSubmissionWorker> workerQueue_;
+    /** Virtual cluster submission engine. */
+    private VirtualClusterSubmissionEngine submissionEngine_;
 
     /** Virtual cluster dispatching. */
     private DispatchingPolicy virtualClusterDispatching_;
@@ -82,6 +86,12 @@ public final class VirtualClusterManager
     /** Virtual network manager. */
     private VirtualNetworkManager virtualNetworkManager_;
     
+    /** Group manager submission completion notifications. */
+    private SubmissionCompletionTracker completionTracker_;
+    
+    /** Submissions which did not finish yet. */
+    private Set<String> pendingSubmissions_;
+    
     /**
      * Constructor.
      *
@@ -99,9 +109,16 @@ public final class VirtualClusterManager
         repository_ = repository;
         estimator_ = estimator;
         virtualClusterResponses_ = new HashMap<String, VirtualClusterSubmissionResponse>();
-        workerQueue_ = new LinkedList<VirtualClusterSubmissionWorker>();
+        pendingSubmissions_ = new HashSet<String>();
+        completionTracker_ = new SubmissionCompletionTracker(MAX_NUMBER_OF_NOTIFICATIONS);
         virtualNetworkManager_ = VirtualNetworkFactory.newVirtualNetworkManager(repository);
         initializeDispatchingPolicy();
+        submissionEngine_ = new VirtualClusterSubmissionEngine(nodeConfiguration,
+                                                               repository,
+                                                               virtualClusterDispatching_,
+                                                               new RestGroupManagerSubmitter(),
+                                                               completionTracker_,
+                                                               this);
     }
 
     /**
@@ -185,20 +202,9 @@ public final class VirtualClusterManager
     private String startSubmissionWorker(ArrayList<VirtualMachineMetaData> virtualMachines)
     {
         String taskIdentifier = UUID.randomUUID().toString();
-        VirtualClusterSubmissionWorker submission = new VirtualClusterSubmissionWorker(taskIdentifier,
-                                                                                       virtualMachines,
-                                                                                       nodeConfiguration_,
-                                                                                       virtualClusterDispatching_,
-                                                                                       repository_,
-                                                                                       this);   
-        if (workerQueue_.size() == 0)
-        {
-            log_.debug(String.format("Starting virtual cluster submission thread for task: %s!", 
-                                     taskIdentifier));
-            new Thread(submission).start();
-        }
-        
-        workerQueue_.add(submission);
+        log_.debug(String.format("Starting virtual cluster submission for task: %s!", taskIdentifier));
+        pendingSubmissions_.add(taskIdentifier);
+        submissionEngine_.submit(taskIdentifier, virtualMachines);
         return taskIdentifier;
     }
     
@@ -217,13 +223,8 @@ public final class VirtualClusterManager
         
         postVirtualClusterSubmission(response.getVirtualMachineMetaData());
         virtualClusterResponses_.put(taskIdentifier, response);
-        
-        workerQueue_.poll();
-        VirtualClusterSubmissionWorker submissionWorker = workerQueue_.peek();
-        if (submissionWorker != null)
-        {
-            new Thread(submissionWorker).start();
-        }
+        pendingSubmissions_.remove(taskIdentifier);
+        notifyAll();
     }
      
     /**
@@ -251,15 +252,61 @@ public final class VirtualClusterManager
      * @return                  The virtual cluster response
      */
     public VirtualClusterSubmissionResponse getVirtualClusterResponse(String taskIdentifier)
+    {
+        return getVirtualClusterResponse(taskIdentifier, 0);
+    }
+    
+    /**
+     * Returns virtual cluster response, waiting for a pending submission to finish (long polling).
+     * 
+     * @param taskIdentifier    The task identifier
+     * @param timeout           The maximum time to wait (= sec)
+     * @return                  The virtual cluster response, null if not available in time
+     */
+    public synchronized VirtualClusterSubmissionResponse getVirtualClusterResponse(String taskIdentifier, 
+                                                                                   int timeout)
     {
         Guard.check(taskIdentifier);        
         
-        VirtualClusterSubmissionResponse virtualClusterResponse = virtualClusterResponses_.get(taskIdentifier);
-        if (virtualClusterResponse != null)
+        long deadline = System.currentTimeMillis() + TimeUtils.convertSecondsToMilliseconds(timeout);
+        while (!virtualClusterResponses_.containsKey(taskIdentifier) && 
+               pendingSubmissions_.contains(taskIdentifier))
         {
-            virtualClusterResponses_.remove(taskIdentifier);
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+            {
+                break;
+            }
+            
+            try
+            {
+                wait(remaining);
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
         }
         
-        return virtualClusterResponse;
+        return virtualClusterResponses_.remove(taskIdentifier);
+    }
+    
+    /**
+     * Returns the submission completion tracker.
+     * 
+     * @return  The submission completion tracker
+     */
+    public SubmissionCompletionTracker getCompletionTracker()
+    {
+        return completionTracker_;
+    }
+    
+    /**
+     * Stops the submission threads.
+     */
+    public void shutdown()
+    {
+        submissionEngine_.shutdown();
     }
 }
@@ -0,0 +1,331 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
+import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
+import org.inria.myriads.snoozenode.exception.MissingGroupManagerException;
+import org.inria.myriads.snoozenode.groupmanager.energysaver.util.EnergySaverUtils;
+import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPlan;
+import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPolicy;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.listener.VirtualClusterSubmissionListener;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.submitter.GroupManagerSubmitter;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.worker.VirtualClusterSubmissionWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pipelined virtual cluster submission engine.
+ * 
+ * Independent virtual clusters are dispatched concurrently on a bounded pool of threads.
+ * Dispatching is serialized only for computing the dispatching plan, which considers the
+ * capacity reserved for virtual clusters still in flight. Once started on the group managers, 
+ * the submission responses are collected on a separate pool, so the dispatch of a virtual
+ * cluster overlaps with the collection of others.
+ * 
+ * @author Eugen Feller
+ */
+public final class VirtualClusterSubmissionEngine 
+{
+    /** Logging instance. */
+    private static final Logger log_ = LoggerFactory.getLogger(VirtualClusterSubmissionEngine.class);
+    
+    /** Node configuration. */
+    private NodeConfiguration nodeConfiguration_;
+    
+    /** Group leader repository. */
+    private GroupLeaderRepository repository_;
+    
+    /** Virtual cluster dispatching policy. */
+    private DispatchingPolicy dispatchingPolicy_;
+    
+    /** Group manager submitter. */
+    private GroupManagerSubmitter submitter_;
+    
+    /** Submission completion tracker. */
+    private SubmissionCompletionTracker completionTracker_;
+    
+    /** Submission listener. */
+    private VirtualClusterSubmissionListener submissionListener_;
+    
+    /** Group manager capacity reservations. */
+    private GroupManagerCapacityReservations reservations_;
+    
+    /** Dispatching threads (bounded). */
+    private ExecutorService dispatchPool_;
+    
+    /** Group manager request and response collection threads. */
+    private ExecutorService requestPool_;
+    
+    /** Energy saver suspension lock. */
+    private Object energySaverLock_;
+    
+    /** Number of submissions suspending the energy savers. */
+    private int numberOfSuspensions_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param nodeConfiguration     The node configuration
+     * @param repository            The group leader repository
+     * @param dispatchingPolicy     The dispatching policy
+     * @param submitter             The group manager submitter
+     * @param completionTracker     The submission completion tracker
+     * @param submissionListener    The submission listener
+     */
+    public VirtualClusterSubmissionEngine(NodeConfiguration nodeConfiguration,
+                                          GroupLeaderRepository repository,
+                                          DispatchingPolicy dispatchingPolicy,
+                                          GroupManagerSubmitter submitter,
+                                          SubmissionCompletionTracker completionTracker,
+                                          VirtualClusterSubmissionListener submissionListener)
+    {
+        Guard.check(nodeConfiguration, repository, dispatchingPolicy, submitter, completionTracker, 
+                    submissionListener);
+        log_.debug("Initializing the virtual cluster submission engine");
+        
+        nodeConfiguration_ = nodeConfiguration;
+        repository_ = repository;
+        dispatchingPolicy_ = dispatchingPolicy;
+        submitter_ = submitter;
+        completionTracker_ = completionTracker;
+        submissionListener_ = submissionListener;
+        reservations_ = new GroupManagerCapacityReservations();
+        energySaverLock_ = new Object();
+        
+        int numberOfThreads = Math.max(1, nodeConfiguration.getSubmission().getMaxNumberOfConcurrentSubmissions());
+        dispatchPool_ = Executors.newFixedThreadPool(numberOfThreads);
+        requestPool_ = Executors.newCachedThreadPool();
+    }
+    
+    /**
+     * Submits a virtual cluster.
+     * 
+     * @param taskIdentifier    The task identifier
+     * @param virtualMachines   The virtual machines
+     */
+    public void submit(String taskIdentifier, ArrayList<VirtualMachineMetaData> virtualMachines)
+    {
+        Guard.check(taskIdentifier, virtualMachines);
+        log_.debug(String.format("Queueing virtual cluster submission for task: %s", taskIdentifier));
+        
+        final VirtualClusterSubmissionWorker worker = new VirtualClusterSubmissionWorker(taskIdentifier, 
+                                                                                         virtualMachines, 
+                                                                                         this);
+        dispatchPool_.execute(new Runnable()
+        {
+            public void run()
+            {
+                if (!startDispatching(worker))
+                {
+                    return;
+                }
+                
+                requestPool_.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        worker.collect();
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * Starts the dispatching of a worker with suspended energy savers.
+     * 
+     * @param worker    The submission worker
+     * @return          true if responses need to be collected, false otherwise
+     */
+    private boolean startDispatching(VirtualClusterSubmissionWorker worker)
+    {
+        boolean isEnergySavings = nodeConfiguration_.getEnergyManagement().isEnabled();
+        if (isEnergySavings)
+        {
+            suspendEnergySavers();
+        }
+        
+        try
+        {
+            return worker.dispatch();
+        }
+        finally
+        {
+            if (isEnergySavings)
+            {
+                resumeEnergySavers();
+            }
+        }
+    }
+    
+    /**
+     * Suspends the energy savers for the first concurrent submission.
+     */
+    private void suspendEnergySavers()
+    {
+        synchronized (energySaverLock_)
+        {
+            numberOfSuspensions_++;
+            if (numberOfSuspensions_ == 1)
+            {
+                EnergySaverUtils.suspendEnergySavers(getGroupManagers());
+            }
+        }
+    }
+    
+    /**
+     * Resumes the energy savers after the last concurrent submission.
+     */
+    private void resumeEnergySavers()
+    {
+        synchronized (energySaverLock_)
+        {
+            numberOfSuspensions_--;
+            if (numberOfSuspensions_ == 0)
+            {
+                EnergySaverUtils.resumeEnergySavers(getGroupManagers());
+            }
+        }
+    }
+    
+    /**
+     * Returns the group managers.
+     * 
+     * @return  The group managers (copies)
+     */
+    private List<GroupManagerDescription> getGroupManagers()
+    {
+        int numberOfMonitoringEntries = nodeConfiguration_.getEstimator().getNumberOfMonitoringEntries();
+        return repository_.getGroupManagerDescriptions(numberOfMonitoringEntries);
+    }
+    
+    /**
+     * Computes the dispatching plan and reserves its capacity.
+     * 
+     * Dispatching plans are computed one at a time on the latest group manager summary information
+     * and the capacity still reserved by concurrent submissions.
+     * 
+     * @param taskIdentifier                    The task identifier
+     * @param virtualMachines                   The virtual machines
+     * @return                                  The dispatching plan, null if not available
+     * @throws MissingGroupManagerException     The missing group manager exception
+     */
+    public DispatchingPlan dispatch(String taskIdentifier, List<VirtualMachineMetaData> virtualMachines)
+        throws MissingGroupManagerException
+    {
+        Guard.check(taskIdentifier, virtualMachines);
+        
+        synchronized (reservations_)
+        {
+            List<GroupManagerDescription> groupManagers = getGroupManagers();
+            if (groupManagers.size() == 0)
+            {
+                throw new MissingGroupManagerException("No group managers available yet!");
+            }
+            
+            reservations_.applyTo(groupManagers);
+            DispatchingPlan dispatchPlan = dispatchingPolicy_.dispatch(virtualMachines, groupManagers);
+            if (dispatchPlan != null)
+            {
+                reservations_.reserve(taskIdentifier, dispatchPlan);
+            }
+            
+            return dispatchPlan;
+        }
+    }
+    
+    /**
+     * Returns the node configuration.
+     * 
+     * @return  The node configuration
+     */
+    public NodeConfiguration getNodeConfiguration()
+    {
+        return nodeConfiguration_;
+    }
+    
+    /**
+     * Returns the group manager submitter.
+     * 
+     * @return  The group manager submitter
+     */
+    public GroupManagerSubmitter getSubmitter()
+    {
+        return submitter_;
+    }
+    
+    /**
+     * Returns the submission completion tracker.
+     * 
+     * @return  The submission completion tracker
+     */
+    public SubmissionCompletionTracker getCompletionTracker()
+    {
+        return completionTracker_;
+    }
+    
+    /**
+     * Returns the submission listener.
+     * 
+     * @return  The submission listener
+     */
+    public VirtualClusterSubmissionListener getSubmissionListener()
+    {
+        return submissionListener_;
+    }
+    
+    /**
+     * Returns the group manager capacity reservations.
+     * 
+     * @return  The capacity reservations
+     */
+    public GroupManagerCapacityReservations getReservations()
+    {
+        return reservations_;
+    }
+    
+    /**
+     * Returns the executor for group manager requests.
+     * 
+     * @return  The request executor
+     */
+    public ExecutorService getRequestExecutor()
+    {
+        return requestPool_;
+    }
+    
+    /**
+     * Stops the submission threads.
+     */
+    public void shutdown()
+    {
+        dispatchPool_.shutdownNow();
+        requestPool_.shutdownNow();
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.submitter;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionRequest;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
+
+/**
+ * Submits virtual machines to the group managers through their REST interface.
+ * 
+ * @author Eugen Feller
+ */
+public final class RestGroupManagerSubmitter 
+    implements GroupManagerSubmitter
+{
+    /**
+     * Starts virtual machines on a group manager.
+     * 
+     * @param groupManager          The group manager description
+     * @param submissionRequest     The virtual machine submission request
+     * @return                      The task identifier, null if the group manager is busy
+     */
+    @Override
+    public String startVirtualMachines(GroupManagerDescription groupManager, 
+                                       VirtualMachineSubmissionRequest submissionRequest)
+    {
+        Guard.check(groupManager, submissionRequest);
+        NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
+        GroupManagerAPI communicator = NodeCommunicatorFactory.newGroupManagerCommunicator(address);
+        return communicator.startVirtualMachines(submissionRequest);
+    }
+
+    /**
+     * Returns the virtual machine submission response of a group manager.
+     * 
+     * @param groupManager          The group manager description
+     * @param taskIdentifier        The task identifier
+     * @return                      The submission response, null if not available yet
+     */
+    @Override
+    public VirtualMachineSubmissionResponse getVirtualMachineSubmissionResponse(GroupManagerDescription groupManager,
+                                                                                String taskIdentifier)
+    {
+        Guard.check(groupManager, taskIdentifier);
+        NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
+        GroupManagerAPI communicator = NodeCommunicatorFactory.newGroupManagerCommunicator(address);
+        return communicator.getVirtualMachineSubmissionResponse(taskIdentifier);
+    }
+}
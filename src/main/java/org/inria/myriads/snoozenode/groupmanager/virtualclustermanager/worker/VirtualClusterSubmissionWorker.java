@@ -26,11 +26,12 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
-import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
-import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualClusterErrorCode;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
@@ -40,13 +41,11 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.Vi
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
 import org.inria.myriads.snoozecommon.util.TimeUtils;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
-import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.inria.myriads.snoozenode.exception.DispatchPlanException;
 import org.inria.myriads.snoozenode.exception.MissingGroupManagerException;
-import org.inria.myriads.snoozenode.groupmanager.energysaver.util.EnergySaverUtils;
 import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPlan;
-import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPolicy;
-import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.listener.VirtualClusterSubmissionListener;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.SubmissionCompletionTracker;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.VirtualClusterSubmissionEngine;
 import org.inria.myriads.snoozenode.util.ManagementUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,10 +53,13 @@ import org.slf4j.LoggerFactory;
 /**
  * Virtual Cluster submission logic.
  * 
+ * The submission is executed in two stages by the submission engine: the dispatching
+ * stage computes the dispatching plan and starts the virtual machines on the group
+ * managers, the collection stage waits for the group manager submission responses.
+ * 
  * @author Eugen Feller
  */
 public final class VirtualClusterSubmissionWorker   
-    implements Runnable
 {
     /** Logging instance. */
     private static final Logger log_ = LoggerFactory.getLogger(VirtualClusterSubmissionWorker.class);
@@ -68,80 +70,111 @@ public final class VirtualClusterSubmissionWorker
     /** Node configuration. */
     private NodeConfiguration nodeConfiguration_;
 
-    /** Virtual cluster dispatch policy. */
-    private DispatchingPolicy dispatchingPolicy_;
-
-    /** Group leader repository. */
-    private GroupLeaderRepository repository_;
+    /** Submission engine. */
+    private VirtualClusterSubmissionEngine engine_;
     
-    /** Virtual cluster manager. */
-    private VirtualClusterSubmissionListener submissionListener_;
-
     /** Task identifier. */
     private String taskIdentifier_;
     
+    /** Submission response. */
+    private VirtualClusterSubmissionResponse response_;
+    
+    /** Started group manager submissions (task identifier, group manager). */
+    private Map<String, GroupManagerDescription> submissions_;
+    
     /**
      * Constructor.
      * 
      * @param taskIdentifier       The task identifier
-     * @param nodeConfiguration    The node configuration
-     * @param dispatchingPolicy    The dispatching policy
-     * @param repository           The group leader repository
      * @param virtualMachines      The virtual machines
-     * @param submissionListener   The submission listener
+     * @param engine               The submission engine
      */
     public VirtualClusterSubmissionWorker(String taskIdentifier,
                                           ArrayList<VirtualMachineMetaData> virtualMachines,
-                                          NodeConfiguration nodeConfiguration, 
-                                          DispatchingPolicy dispatchingPolicy, 
-                                          GroupLeaderRepository repository,
-                                          VirtualClusterSubmissionListener submissionListener)
+                                          VirtualClusterSubmissionEngine engine)
     {
         log_.debug("Initializing the virtual cluster submission");
         
         taskIdentifier_ = taskIdentifier;
         virtualMachines_ = virtualMachines;
-        nodeConfiguration_ = nodeConfiguration;
-        repository_ = repository;
-        dispatchingPolicy_ = dispatchingPolicy;
-        submissionListener_ = submissionListener;
+        engine_ = engine;
+        nodeConfiguration_ = engine.getNodeConfiguration();
+        response_ = new VirtualClusterSubmissionResponse();
+        submissions_ = new HashMap<String, GroupManagerDescription>();
     }
         
-    /** Run method. */
-    public void run() 
+    /** 
+     * Dispatches the virtual cluster and starts it on the group managers.
+     * 
+     * @return  true if the submission responses need to be collected, false if finished
+     */
+    public boolean dispatch() 
     {
-        VirtualClusterSubmissionResponse response = new VirtualClusterSubmissionResponse();
         try 
         {  
             ArrayList<VirtualMachineMetaData> freeVirtualMachines = new ArrayList<VirtualMachineMetaData>();
             ArrayList<VirtualMachineMetaData> errorVirtualMachines = new ArrayList<VirtualMachineMetaData>();
-            splitVirtualMachines(virtualMachines_, freeVirtualMachines,errorVirtualMachines);
+            splitVirtualMachines(virtualMachines_, freeVirtualMachines, errorVirtualMachines);
             
             startVirtualClusterDispatching(freeVirtualMachines);
         }
         catch (DispatchPlanException exception)
         {
             log_.error("Error during dispatching", exception);
-            response.setErrorCode(VirtualClusterErrorCode.DISPATCH_PLAN_IS_INVALID);  
+            response_.setErrorCode(VirtualClusterErrorCode.DISPATCH_PLAN_IS_INVALID);  
         }
         catch (MissingGroupManagerException exception)
         {
             log_.error("Group managers missing", exception);
-            response.setErrorCode(VirtualClusterErrorCode.GROUP_MANAGERS_MISSING);  
+            response_.setErrorCode(VirtualClusterErrorCode.GROUP_MANAGERS_MISSING);  
         }
         catch (Exception exception)
         {
             log_.error("General exception", exception);
-            response.setErrorCode(VirtualClusterErrorCode.GENERAL_EXCEPTION); 
+            response_.setErrorCode(VirtualClusterErrorCode.GENERAL_EXCEPTION); 
+        }
+        
+        if (submissions_.isEmpty())
+        {
+            finish();
+            return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Collects the submission responses of the group managers.
+     */
+    public void collect()
+    {
+        try
+        {
+            startCollectionPolling(submissions_);
+        }
+        catch (Exception exception)
+        {
+            log_.error("General exception", exception);
+            response_.setErrorCode(VirtualClusterErrorCode.GENERAL_EXCEPTION); 
         }
         finally
-        {      
-            log_.debug("Adding virtual cluster response to the response map");            
-            response.setVirtualMachineMetaData(virtualMachines_);
-            submissionListener_.onVirtualClusterSubmissionFinished(taskIdentifier_, response);
+        {
+            finish();
         }
     }
     
+    /**
+     * Releases the reserved capacity and notifies the submission listener.
+     */
+    private void finish()
+    {
+        engine_.getReservations().releaseAll(taskIdentifier_);
+        
+        log_.debug("Adding virtual cluster response to the response map");            
+        response_.setVirtualMachineMetaData(virtualMachines_);
+        engine_.getSubmissionListener().onVirtualClusterSubmissionFinished(taskIdentifier_, response_);
+    }
+    
     private void splitVirtualMachines(
             ArrayList<VirtualMachineMetaData> allVirtualMachines, 
             ArrayList<VirtualMachineMetaData> freeVirtualMachines,
@@ -172,42 +205,25 @@ public final class VirtualClusterSubmissionWorker
         throws DispatchPlanException, MissingGroupManagerException
     {
         log_.debug("Executing the virtual cluster dispatching request");                      
-        
-        int numberOfMonitoringEntries = nodeConfiguration_.getEstimator().getNumberOfMonitoringEntries();
-        List<GroupManagerDescription> groupManagers = 
-            repository_.getGroupManagerDescriptions(numberOfMonitoringEntries);
-        if (groupManagers.size() == 0)
-        {
-            throw new MissingGroupManagerException("No group managers available yet!");
-        }
-        
-        boolean isEnergySavings = nodeConfiguration_.getEnergyManagement().isEnabled();
-        if (isEnergySavings)
-        {
-            EnergySaverUtils.suspendEnergySavers(groupManagers);
-        }
                         
         ArrayList<VirtualMachineMetaData> virtualMachinesCopy = 
             new ArrayList<VirtualMachineMetaData>(Arrays.asList(new VirtualMachineMetaData[virtualMachines.size()]));  
         Collections.copy(virtualMachinesCopy, virtualMachines);
        
-        DispatchingPlan dispatchPlan = dispatchingPolicy_.dispatch(virtualMachinesCopy, groupManagers); 
+        DispatchingPlan dispatchPlan = engine_.dispatch(taskIdentifier_, virtualMachinesCopy); 
         if (dispatchPlan == null)
         {
             throw new DispatchPlanException("Dispatch plan is not available!");
         }
         
         startVirtualCluster(dispatchPlan);    
-        
-        if (isEnergySavings)
-        {
-            EnergySaverUtils.resumeEnergySavers(groupManagers);
-        }
     }
                
     /**
      * Attempts to start the virtual cluster on the assigned group managers.
      * 
+     * The group managers are contacted in parallel.
+     * 
      * @param dispatchPlan              The dispatching plan
      * @throws DispatchPlanException 
      */
@@ -216,18 +232,33 @@ public final class VirtualClusterSubmissionWorker
     {        
         log_.debug("Starting virtual cluster submission");
            
-        Map<String, GroupManagerDescription> submissionResponses = new HashMap<String, GroupManagerDescription>(); 
+        Map<GroupManagerDescription, Future<String>> startRequests = 
+            new HashMap<GroupManagerDescription, Future<String>>();
         List<GroupManagerDescription> groupManagers = dispatchPlan.getGroupManagers();
-        for (GroupManagerDescription groupManager : groupManagers) 
+        for (final GroupManagerDescription groupManager : groupManagers) 
         {
-            ArrayList<VirtualMachineMetaData> assignedVirtualMachines = groupManager.getVirtualMachines();
+            final ArrayList<VirtualMachineMetaData> assignedVirtualMachines = groupManager.getVirtualMachines();
             if (assignedVirtualMachines.size() == 0)
             {
                 log_.debug("No virtual machines assigned to this group manager");
                 continue;
             }
             
-            String taskIdentifier = startVirtualMachines(assignedVirtualMachines, groupManager);
+            Future<String> startRequest = engine_.getRequestExecutor().submit(new Callable<String>()
+            {
+                public String call()
+                {
+                    return startVirtualMachines(assignedVirtualMachines, groupManager);
+                }
+            });
+            startRequests.put(groupManager, startRequest);
+        }
+        
+        for (Map.Entry<GroupManagerDescription, Future<String>> entry : startRequests.entrySet())
+        {
+            GroupManagerDescription groupManager = entry.getKey();
+            ArrayList<VirtualMachineMetaData> assignedVirtualMachines = groupManager.getVirtualMachines();
+            String taskIdentifier = getTaskIdentifier(entry.getValue());
             if (taskIdentifier == null)
             {   
                 log_.debug(String.format("Failed to start virtual machine scheduling on group manager %s", 
@@ -236,7 +267,7 @@ public final class VirtualClusterSubmissionWorker
                         assignedVirtualMachines,
                         VirtualMachineStatus.ERROR,
                         VirtualMachineErrorCode.UNABLE_TO_START_ON_GROUP_MANAGER);
-                
+                engine_.getReservations().release(taskIdentifier_, groupManager.getId());
                 continue;
             }
             
@@ -246,41 +277,67 @@ public final class VirtualClusterSubmissionWorker
                                       groupManager.getListenSettings().getControlDataAddress().getAddress(),
                                       groupManager.getListenSettings().getControlDataAddress().getPort()));
             
-            submissionResponses.put(taskIdentifier, groupManager);
+            submissions_.put(taskIdentifier, groupManager);
         }
-        
-        if (submissionResponses.size() > 0)
+    }
+    
+    /**
+     * Returns the task identifier of a start request.
+     * 
+     * @param startRequest      The start request
+     * @return                  The task identifier, null on failure
+     */
+    private String getTaskIdentifier(Future<String> startRequest)
+    {
+        try
+        {
+            return startRequest.get();
+        }
+        catch (InterruptedException exception)
+        {
+            log_.error("Interrupted exception", exception);
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException exception)
         {
-            startCollectionPolling(submissionResponses);
+            log_.error("Failed to start virtual machines", exception);
         }
+        
+        return null;
     }
             
     /**
      * Starts the submission monitoring.
      * 
+     * Waits for the completion notifications of the group managers and only collects the 
+     * notified responses. Without notification within the collection interval all group
+     * managers are polled (e.g. the notification was lost).
+     * 
      * @param responses         The submission responses
      */
     private void startCollectionPolling(Map<String, GroupManagerDescription> responses) 
     {
         log_.debug("Starting submission response collection");
         
-        int numberOfFinishes = 0;
-        int numberOfSubmissions = responses.size();  
         int numberOfRetries = nodeConfiguration_.getSubmission().getCollection().getNumberOfRetries();
         int collectionInterval = nodeConfiguration_.getSubmission().getCollection().getRetryInterval();
         
         while (numberOfRetries > 0)
         {
-            if (numberOfFinishes == numberOfSubmissions)
+            if (responses.isEmpty())
             {
                 log_.debug("Received all virtual machine submission finishes! Terminating polling!");
                 break;
             }
          
+            Set<String> finishedSubmissions;
             try 
             {
-                log_.debug(String.format("Waiting %d seconds more before collecting", collectionInterval));
-                Thread.sleep(TimeUtils.convertSecondsToMilliseconds(collectionInterval));
+                log_.debug(String.format("Waiting at most %d seconds for submission finishes", collectionInterval));
+                SubmissionCompletionTracker completionTracker = engine_.getCompletionTracker();
+                finishedSubmissions = 
+                    completionTracker.awaitCompletion(responses.keySet(), 
+                                                      TimeUtils.convertSecondsToMilliseconds(collectionInterval));
             } 
             catch (InterruptedException exception) 
             {
@@ -288,12 +345,18 @@ public final class VirtualClusterSubmissionWorker
                 break;
             }
             
+            boolean isPolling = finishedSubmissions.isEmpty();
             for (Iterator<Map.Entry<String, GroupManagerDescription>> iterator = 
                  responses.entrySet().iterator(); iterator.hasNext();)
             {
                 Map.Entry<String, GroupManagerDescription> entry = iterator.next();
                 
                 String taskIdentifier = entry.getKey();
+                if (!isPolling && !finishedSubmissions.contains(taskIdentifier))
+                {
+                    continue;
+                }
+                
                 GroupManagerDescription groupManager = entry.getValue();
                 VirtualMachineSubmissionResponse submissionResponse = 
                         getVirtualMachineSubmissionResponse(taskIdentifier, groupManager);
@@ -301,7 +364,7 @@ public final class VirtualClusterSubmissionWorker
                 {
                     log_.debug(String.format("No submission %s finish available yet!", taskIdentifier));
                     ManagementUtils.updateAllVirtualMachineMetaData(
-                            virtualMachines_, 
+                            groupManager.getVirtualMachines(), 
                             VirtualMachineStatus.ERROR, 
                             VirtualMachineErrorCode.UNABLE_TO_COLLECT_GROUP_MANAGER_RESPONSE);
                     
@@ -309,8 +372,8 @@ public final class VirtualClusterSubmissionWorker
                 }
                                                 
                 processVirtualMachineSubmissionResponse(submissionResponse, groupManager);
+                engine_.getReservations().release(taskIdentifier_, groupManager.getId());
                 iterator.remove();
-                numberOfFinishes++;
             }
             
             numberOfRetries--;
@@ -361,14 +424,11 @@ public final class VirtualClusterSubmissionWorker
         VirtualMachineSubmissionRequest submissionRequest = new VirtualMachineSubmissionRequest();
         submissionRequest.setVirtualMachineMetaData(virtualMachines);
         
-        NetworkAddress groupManagerAddress = groupManager.getListenSettings().getControlDataAddress();
-        GroupManagerAPI groupManagerCommunicator = CommunicatorFactory.newGroupManagerCommunicator(groupManagerAddress);
-        
         int numberOfRetries = nodeConfiguration_.getSubmission().getDispatching().getNumberOfRetries();
         int retryInterval = nodeConfiguration_.getSubmission().getDispatching().getRetryInterval();       
         for (int count = 0; count < numberOfRetries; count++)
         {
-            taskIdentifier = groupManagerCommunicator.startVirtualMachines(submissionRequest);
+            taskIdentifier = engine_.getSubmitter().startVirtualMachines(groupManager, submissionRequest);
             if (taskIdentifier == null)
             {   
                 log_.debug(String.format("This is the %d virtual machine start attempt to schedule virtual machines " +
@@ -409,10 +469,8 @@ public final class VirtualClusterSubmissionWorker
                                  taskIdentifier, 
                                  groupManager.getId()));
         
-        NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
-        GroupManagerAPI communicator = CommunicatorFactory.newGroupManagerCommunicator(address);
         VirtualMachineSubmissionResponse response = 
-                communicator.getVirtualMachineSubmissionResponse(taskIdentifier);      
+                engine_.getSubmitter().getVirtualMachineSubmissionResponse(groupManager, taskIdentifier);      
         return response;
     }
 }
@@ -19,14 +19,17 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.virtualmachinediscovery;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.discovery.VirtualMachineDiscoveryResponse;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.CommunicatorCall;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,29 +68,79 @@ public final class VirtualMachineDiscovery
      * @param virtualMachineId      The virtual machine identifier
      * @return                      The discovery response
      */
-    public VirtualMachineDiscoveryResponse startVirtualMachineDiscovery(String virtualMachineId)
+    public VirtualMachineDiscoveryResponse startVirtualMachineDiscovery(final String virtualMachineId)
     {
         Guard.check(virtualMachineId);
         log_.debug(String.format("Starting virtual machine discovery for: %s", virtualMachineId));
         
+        VirtualMachineDiscoveryResponse response = lookupVirtualMachine(virtualMachineId);
+        if (response != null)
+        {
+            return response;
+        }
+        
+        log_.debug("Virtual machine is not in the location index! Asking all group managers");
         List<GroupManagerDescription> groupManagerDescriptions = 
             groupLeaderRepository_.getGroupManagerDescriptions(NUMBER_OF_MONITORING_ENTRIES);
+        List<NetworkAddress> addresses = new ArrayList<NetworkAddress>(groupManagerDescriptions.size());
         for (GroupManagerDescription groupManager : groupManagerDescriptions) 
         {
-            NetworkAddress address = groupManager.getListenSettings().getControlDataAddress();
-            GroupManagerAPI groupManagerCommunicator = CommunicatorFactory.newGroupManagerCommunicator(address);
-            String localControllerId = groupManagerCommunicator.searchVirtualMachine(virtualMachineId);  
+            addresses.add(groupManager.getListenSettings().getControlDataAddress());
+        }
+        
+        List<String> localControllerIds = NodeCommunicatorFactory.getAsyncGroupManagerCommunicator()
+            .invokeAll(addresses, new CommunicatorCall<GroupManagerAPI, String>()
+            {
+                public String call(GroupManagerAPI communicator)
+                {
+                    return communicator.searchVirtualMachine(virtualMachineId);
+                }
+            });
+        
+        for (int i = 0; i < groupManagerDescriptions.size(); i++) 
+        {
+            String localControllerId = localControllerIds.get(i);
             if (localControllerId != null)
             {
                 log_.debug(String.format("Group manager %s has the virtual machine! Great!", 
-                                         groupManager.getId()));
-                VirtualMachineDiscoveryResponse response = new VirtualMachineDiscoveryResponse();
+                                         groupManagerDescriptions.get(i).getId()));
+                response = new VirtualMachineDiscoveryResponse();
                 response.setLocalControllerId(localControllerId);
-                response.setGroupManagerAddress(address);
+                response.setGroupManagerAddress(addresses.get(i));
                 return response;
             }
         }
         
         return null;
     }
+    
+    /**
+     * Looks up the virtual machine in the location index.
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     * @return                      The discovery response, null if not indexed
+     */
+    private VirtualMachineDiscoveryResponse lookupVirtualMachine(String virtualMachineId)
+    {
+        VirtualMachineLocation location = groupLeaderRepository_.lookupVirtualMachineLocation(virtualMachineId);
+        if (location == null)
+        {
+            return null;
+        }
+        
+        GroupManagerDescription groupManager = 
+            groupLeaderRepository_.getGroupManagerDescription(location.getGroupManagerId(), 
+                                                              NUMBER_OF_MONITORING_ENTRIES);
+        if (groupManager == null)
+        {
+            return null;
+        }
+        
+        log_.debug(String.format("Location index has the virtual machine on group manager %s", 
+                                 groupManager.getId()));
+        VirtualMachineDiscoveryResponse response = new VirtualMachineDiscoveryResponse();
+        response.setLocalControllerId(location.getLocalControllerId());
+        response.setGroupManagerAddress(groupManager.getListenSettings().getControlDataAddress());
+        return response;
+    }
 }
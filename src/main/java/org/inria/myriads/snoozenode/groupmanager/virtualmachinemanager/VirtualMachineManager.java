@@ -19,18 +19,18 @@
  */
 package org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.LocalControllerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionRequest;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.configurator.scheduler.GroupManagerSchedulerSettings;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
@@ -38,6 +38,8 @@ import org.inria.myriads.snoozenode.groupmanager.managerpolicies.GroupManagerPol
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPolicy;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.VirtualMachineCommand;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.reservation.Reservation;
+import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.SubmissionCompletionListener;
 import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.VirtualMachineManagerListener;
 import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.worker.VirtualMachineSubmissionWorker;
 import org.slf4j.Logger;
@@ -68,6 +70,9 @@ public final class VirtualMachineManager
     
     /** Number of monitoring entries. */
     private int numberOfMonitoringEntries_;
+    
+    /** Submission completion listener (optional). */
+    private volatile SubmissionCompletionListener completionListener_;
 
     /**
      * Constructor.
@@ -88,7 +93,7 @@ public final class VirtualMachineManager
         numberOfMonitoringEntries_ = estimator.getNumberOfMonitoringEntries();        
         repository_ = groupManagerRepository;
         stateMachine_ = stateMachine;
-        submissionResponses_ = new HashMap<String, VirtualMachineSubmissionResponse>();
+        submissionResponses_ = new ConcurrentHashMap<String, VirtualMachineSubmissionResponse>();
         placementPolicy_ = GroupManagerPolicyFactory.newVirtualMachinePlacement(schedulerSettings.getPlacementPolicy(), 
                                                                                 estimator);
     }
@@ -97,11 +102,12 @@ public final class VirtualMachineManager
      * Starts a virtual machine.
      * 
      * @param submissionRequest     The virtual machine description
+     * @param reservation           The reservation (released once the submission finished)
      * @return                      The task identifier
      */
-    public String start(VirtualMachineSubmissionRequest submissionRequest) 
+    public String start(VirtualMachineSubmissionRequest submissionRequest, Reservation reservation) 
     {
-        Guard.check(submissionRequest);
+        Guard.check(submissionRequest, reservation);
         
         String taskIdentifier = UUID.randomUUID().toString();
         VirtualMachineSubmissionWorker worker = new VirtualMachineSubmissionWorker(taskIdentifier,
@@ -110,6 +116,7 @@ public final class VirtualMachineManager
                                                                                    repository_, 
                                                                                    placementPolicy_, 
                                                                                    stateMachine_,
+                                                                                   reservation,
                                                                                    this);
         new Thread(worker).start();
         return taskIdentifier;
@@ -138,7 +145,7 @@ public final class VirtualMachineManager
             return false;
         }
         
-        LocalControllerAPI communicator = CommunicatorFactory.newLocalControllerCommunicator(localController);
+        LocalControllerAPI communicator = NodeCommunicatorFactory.newLocalControllerCommunicator(localController);
         boolean returnValue = communicator.suspendVirtualMachineOnRequest(location.getVirtualMachineId());
         if (!returnValue)
         {
@@ -179,7 +186,7 @@ public final class VirtualMachineManager
             return false;
         }
         
-        LocalControllerAPI communicator = CommunicatorFactory.newLocalControllerCommunicator(localController);
+        LocalControllerAPI communicator = NodeCommunicatorFactory.newLocalControllerCommunicator(localController);
         boolean isResumed = communicator.resumeVirtualMachine(location.getVirtualMachineId());
         if (!isResumed)
         {
@@ -216,7 +223,7 @@ public final class VirtualMachineManager
             return false;
         }
         
-        LocalControllerAPI communicator = CommunicatorFactory.newLocalControllerCommunicator(localController);
+        LocalControllerAPI communicator = NodeCommunicatorFactory.newLocalControllerCommunicator(localController);
         boolean isShutdown = communicator.shutdownVirtualMachine(virtualMachineId);
         if (!isShutdown)
         {
@@ -258,7 +265,7 @@ public final class VirtualMachineManager
             return false;
         }
         
-        LocalControllerAPI communicator = CommunicatorFactory.newLocalControllerCommunicator(localController);
+        LocalControllerAPI communicator = NodeCommunicatorFactory.newLocalControllerCommunicator(localController);
         boolean isRebooted = communicator.rebootVirtualMachine(virtualMachineId);
         if (!isRebooted)
         {
@@ -294,7 +301,7 @@ public final class VirtualMachineManager
             return false;
         }
         
-        LocalControllerAPI communicator = CommunicatorFactory.newLocalControllerCommunicator(localController);
+        LocalControllerAPI communicator = NodeCommunicatorFactory.newLocalControllerCommunicator(localController);
         boolean returnValue = communicator.destroyVirtualMachine(location.getVirtualMachineId());
         if (!returnValue)
         {
@@ -326,6 +333,22 @@ public final class VirtualMachineManager
         log_.debug(String.format("Adding submission %s response", taskIdentifier));
         submissionResponses_.put(taskIdentifier, submissionResponse);
         stateMachine_.onVirtualMachineSubmissionFinished();
+        
+        SubmissionCompletionListener completionListener = completionListener_;
+        if (completionListener != null)
+        {
+            completionListener.onSubmissionCompleted(taskIdentifier);
+        }
+    }
+    
+    /**
+     * Sets the submission completion listener.
+     * 
+     * @param completionListener    The submission completion listener
+     */
+    public void setSubmissionCompletionListener(SubmissionCompletionListener completionListener)
+    {
+        completionListener_ = completionListener;
     }
     
     /**
@@ -20,22 +20,28 @@
 package org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.worker;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.LocalControllerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionRequest;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPlan;
 import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPolicy;
 import org.inria.myriads.snoozenode.groupmanager.statemachine.api.StateMachine;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.reservation.Reservation;
 import org.inria.myriads.snoozenode.groupmanager.virtualmachinemanager.listener.VirtualMachineManagerListener;
+import org.inria.myriads.snoozenode.metrics.MetricsFactory;
+import org.inria.myriads.snoozenode.metrics.MetricsRegistry;
 import org.inria.myriads.snoozenode.util.ManagementUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +57,12 @@ public final class VirtualMachineSubmissionWorker
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(VirtualMachineSubmissionWorker.class);
     
+    /** Maximum number of placement attempts (on reservation conflicts). */
+    private static final int MAX_PLACEMENT_ATTEMPTS = 3;
+    
+    /** Placement phase metric name. */
+    private static final String PLACEMENT_METRIC = "groupmanager.submission.placement";
+    
     /** Virtual machine submission request. */
     private VirtualMachineSubmissionRequest submissionRequest_;
     
@@ -72,6 +84,12 @@ public final class VirtualMachineSubmissionWorker
     /** Task identifier. */
     private String taskIdentifier_;
     
+    /** Reservation. */
+    private Reservation reservation_;
+    
+    /** Metrics registry. */
+    private MetricsRegistry metrics_;
+    
     /**
      * Constructor.
      * 
@@ -81,6 +99,7 @@ public final class VirtualMachineSubmissionWorker
      * @param repository                 The repository
      * @param placementPolicy            The placement policy
      * @param stateMachine               The state machine
+     * @param reservation                The reservation
      * @param managerListener            The manager listener
      */
     public VirtualMachineSubmissionWorker(String taskIdentifier,
@@ -89,6 +108,7 @@ public final class VirtualMachineSubmissionWorker
                                           GroupManagerRepository repository,
                                           PlacementPolicy placementPolicy,
                                           StateMachine stateMachine,
+                                          Reservation reservation,
                                           VirtualMachineManagerListener managerListener)
     {
         taskIdentifier_ = taskIdentifier;
@@ -97,7 +117,9 @@ public final class VirtualMachineSubmissionWorker
         repository_ = repository;
         placementPolicy_ = placementPolicy;
         stateMachine_ = stateMachine;
+        reservation_ = reservation;
         managerListener_ = managerListener;
+        metrics_ = MetricsFactory.getRegistry();
     }
     
     /**
@@ -133,30 +155,47 @@ public final class VirtualMachineSubmissionWorker
         
         VirtualMachineSubmissionRequest submissionRequest = new VirtualMachineSubmissionRequest();
         submissionRequest.setVirtualMachineMetaData(localController.getAssignedVirtualMachines());
+        long startTime = System.nanoTime();
         LocalControllerAPI communicator = 
-                CommunicatorFactory.newLocalControllerCommunicator(localController.getControlDataAddress());
+                NodeCommunicatorFactory.newLocalControllerCommunicator(localController.getControlDataAddress());
         VirtualMachineSubmissionResponse submissionResponse = communicator.startVirtualMachines(submissionRequest); 
+        metrics_.getHistogram("groupmanager.submission.start").recordSince(startTime);
         log_.debug(String.format("Submission response received from local controller: %s", localController.getId()));
         return submissionResponse;
     }
     
     /**
-     * Wakes up a local controller if it is passive.
+     * Wakes up the passive local controllers of the placement plan at once.
      * 
-     * @param localController   The local controller
-     * @return                  true if everything ok, false otherwise
+     * @param localControllers  The local controllers
+     * @return                  The identifiers of the local controllers which are not available
      */
-    private boolean wakeupLocalControllerIfPassive(LocalControllerDescription localController)
+    private Set<String> wakeupPassiveLocalControllers(List<LocalControllerDescription> localControllers)
     {
-        boolean isWokenUp = true;
+        List<LocalControllerDescription> passiveLocalControllers = new ArrayList<LocalControllerDescription>();
+        Set<String> unavailableLocalControllers = new HashSet<String>();
+        for (LocalControllerDescription localController : localControllers)
+        {
+            if (localController.getStatus().equals(LocalControllerStatus.PASSIVE))
+            {
+                passiveLocalControllers.add(localController);
+                unavailableLocalControllers.add(localController.getId());
+            }
+        }
         
-        if (localController.getStatus().equals(LocalControllerStatus.PASSIVE))
+        if (passiveLocalControllers.isEmpty())
         {
-            log_.debug("Found PASSIVE local controller! Will try to do wakeup!");
-            isWokenUp = stateMachine_.onWakeupLocalController(localController);
+            return unavailableLocalControllers;
         }
         
-        return isWokenUp;
+        log_.debug(String.format("Found %s PASSIVE local controllers! Will try to do wakeup!", 
+                                 passiveLocalControllers.size()));
+        long startTime = System.nanoTime();
+        List<String> wokenUpLocalControllers = 
+            stateMachine_.onWakeupLocalControllers(passiveLocalControllers, passiveLocalControllers.size());
+        metrics_.getHistogram("groupmanager.submission.wakeup").recordSince(startTime);
+        unavailableLocalControllers.removeAll(wokenUpLocalControllers);
+        return unavailableLocalControllers;
     }
     
     /**
@@ -170,14 +209,14 @@ public final class VirtualMachineSubmissionWorker
         ArrayList<VirtualMachineMetaData> allVirtualMachines = new ArrayList<VirtualMachineMetaData>();
         allVirtualMachines.addAll(placementPlan.gettUnassignedVirtualMachines());
         
+        Set<String> unavailableLocalControllers = wakeupPassiveLocalControllers(placementPlan.getLocalControllers());
         for (LocalControllerDescription localController : placementPlan.getLocalControllers())
         {             
             List<VirtualMachineMetaData> assignedVirtualMachines = localController.getAssignedVirtualMachines();
             log_.debug(String.format("Starting to enforce the placement plan for local controller: %s", 
                                      localController.getId()));
             
-            boolean isWokenUp = wakeupLocalControllerIfPassive(localController);
-            if (!isWokenUp)
+            if (unavailableLocalControllers.contains(localController.getId()))
             {
                 ManagementUtils.updateAllVirtualMachineMetaData(assignedVirtualMachines,
                                                                 VirtualMachineStatus.ERROR,
@@ -208,18 +247,81 @@ public final class VirtualMachineSubmissionWorker
         return submissionResponse;
     }
 
+    /**
+     * Computes the placement plan and reserves its local controllers.
+     * 
+     * Local controllers reserved by other operations are not considered. If one of
+     * the selected local controllers got reserved in the meantime, placement is retried.
+     * 
+     * @param virtualMachines   The virtual machines
+     * @return                  The placement plan, null if reservation failed
+     */
+    private PlacementPlan computePlacementPlan(List<VirtualMachineMetaData> virtualMachines)
+    {
+        long startTime = System.nanoTime();
+        List<String> none = Collections.emptyList();
+        for (int i = 0; i < MAX_PLACEMENT_ATTEMPTS; i++)
+        {
+            List<LocalControllerDescription> localControllers = 
+                    repository_.getLocalControllerDescriptions(numberOfMonitoringEntries_, false);
+            localControllers = reservation_.filterAvailable(localControllers);
+            
+            PlacementPlan placementPlan = placementPolicy_.place(virtualMachines, localControllers);
+            Set<String> localControllerIds = new HashSet<String>();
+            for (LocalControllerDescription localController : placementPlan.getLocalControllers())
+            {
+                if (localController.getAssignedVirtualMachines().size() > 0)
+                {
+                    localControllerIds.add(localController.getId());
+                }
+            }
+            
+            if (reservation_.extend(localControllerIds, none))
+            {
+                metrics_.getHistogram(PLACEMENT_METRIC).recordSince(startTime);
+                return placementPlan;
+            }
+            
+            log_.debug(String.format("Placement plan local controllers got reserved! Attempt %d of %d", 
+                                     i + 1, MAX_PLACEMENT_ATTEMPTS));
+            metrics_.getCounter("groupmanager.submission.conflicts").increment();
+        }
+        
+        metrics_.getHistogram(PLACEMENT_METRIC).recordSince(startTime);
+        return null;
+    }
+    
     /** Run method. */
     @Override
     public void run()
     {
         log_.debug(String.format("Starting the virtual machine submission %s procedure", taskIdentifier_));
+        long startTime = System.nanoTime();
+        metrics_.getCounter("groupmanager.submission.requests").increment();
           
         ArrayList<VirtualMachineMetaData> virtualMachines = submissionRequest_.getVirtualMachineMetaData(); 
-        List<LocalControllerDescription> localControllers = 
-                repository_.getLocalControllerDescriptions(numberOfMonitoringEntries_, false);
+        VirtualMachineSubmissionResponse submissionResponse;
+        try
+        {
+            PlacementPlan placementPlan = computePlacementPlan(virtualMachines);
+            if (placementPlan == null)
+            {
+                VirtualMachineErrorCode errorCode = VirtualMachineErrorCode.NOT_ENOUGH_LOCAL_CONTROLLER_CAPACITY;
+                ManagementUtils.updateAllVirtualMachineMetaData(virtualMachines, VirtualMachineStatus.ERROR, errorCode);
+                submissionResponse = new VirtualMachineSubmissionResponse();
+                submissionResponse.setVirtualMachineMetaData(virtualMachines);
+            }
+            else
+            {
+                submissionResponse = enforcePlacementPlan(placementPlan);
+            }
+        }
+        finally
+        {
+            reservation_.release();
+        }
         
-        PlacementPlan placementPlan = placementPolicy_.place(virtualMachines, localControllers);
-        VirtualMachineSubmissionResponse submissionResponse = enforcePlacementPlan(placementPlan);
+        metrics_.getHistogram("groupmanager.submission.total").recordSince(startTime);
         managerListener_.onSubmissionFinished(taskIdentifier_, submissionResponse);
     }
 }
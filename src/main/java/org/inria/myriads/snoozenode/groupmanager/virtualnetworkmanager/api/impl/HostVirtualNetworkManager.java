@@ -80,11 +80,16 @@ public final class HostVirtualNetworkManager
 //            return false;
 //        }
         
-        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        List<String> freeIpAddresses = groupLeaderRepository_.allocateIpAddresses(virtualMachines.size());
+        for (int i = 0; i < virtualMachines.size(); i++)
         {
+            VirtualMachineMetaData virtualMachine = virtualMachines.get(i);
             String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
-            boolean isAssigned = assignIpAddress(virtualMachine);    
-            if (!isAssigned)
+            if (i < freeIpAddresses.size())
+            {
+                assignIpAddress(virtualMachine, freeIpAddresses.get(i));
+            }
+            else
             {
                 ManagementUtils.updateVirtualMachineMetaData(virtualMachine, 
                                              VirtualMachineStatus.ERROR, 
@@ -101,20 +106,14 @@ public final class HostVirtualNetworkManager
      * Assign MAC address to the virtual machines.
      * 
      * @param virtualMachineMetaData    The virtual machine meta data
-     * @return                          true if assigned, false otherwise
+     * @param freeIpAddress             The allocated IP address
      */
-    private boolean assignIpAddress(VirtualMachineMetaData virtualMachineMetaData) 
+    private void assignIpAddress(VirtualMachineMetaData virtualMachineMetaData, String freeIpAddress) 
     {
-        Guard.check(virtualMachineMetaData);
-        log_.debug(String.format("Assigning MAC address to virtual machine %s and updating IP pool",
+        Guard.check(virtualMachineMetaData, freeIpAddress);
+        log_.debug(String.format("Assigning MAC address to virtual machine %s",
                                  virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId()));
         
-        String freeIpAddress = groupLeaderRepository_.getFreeIpAddress();
-        if (freeIpAddress == null)
-        {
-            return false;
-        }
-        
         log_.debug(String.format("Free IP address: %s", freeIpAddress));
         virtualMachineMetaData.setIpAddress(freeIpAddress);            
         String newMacAddress = embedIpToMac(freeIpAddress);
@@ -126,8 +125,6 @@ public final class HostVirtualNetworkManager
                                                                                             newMacAddress);
 
         virtualMachineMetaData.setXmlRepresentation(newXmlDescription);
-        groupLeaderRepository_.removeIpAddress(freeIpAddress);
-        return true;
     }  
          
     /**
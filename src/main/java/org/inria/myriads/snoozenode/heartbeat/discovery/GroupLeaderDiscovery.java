@@ -121,4 +121,12 @@ public final class GroupLeaderDiscovery
     {
         log_.debug("No valid group leader available! Waiting..");  
     }
+    
+    /**
+     * Terminates the heartbeat listener.
+     */
+    public void terminate()
+    {
+        hearbeatListener_.terminate();
+    }
 }
@@ -112,4 +112,12 @@ public final class GroupManagerHeartbeatHandler
             log_.error("Exception", exception);
         }
     }
+    
+    /**
+     * Terminates the heartbeat listener.
+     */
+    public void terminate()
+    {
+        hearbeatListener_.terminate();
+    }
 }
@@ -27,15 +27,16 @@ import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDes
 import org.inria.myriads.snoozecommon.communication.localcontroller.AssignedGroupManager;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.communication.localcontroller.hypervisor.HypervisorSettings;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.configurator.energymanagement.enums.PowerSavingAction;
 import org.inria.myriads.snoozenode.configurator.energymanagement.enums.ShutdownDriver;
 import org.inria.myriads.snoozenode.configurator.energymanagement.enums.SuspendDriver;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
 import org.inria.myriads.snoozenode.database.DatabaseFactory;
 import org.inria.myriads.snoozenode.database.api.LocalControllerRepository;
 import org.inria.myriads.snoozenode.database.enums.DatabaseType;
@@ -44,19 +45,23 @@ import org.inria.myriads.snoozenode.exception.VirtualMachineMonitoringException;
 import org.inria.myriads.snoozenode.executor.ShellCommandExecuter;
 import org.inria.myriads.snoozenode.heartbeat.HeartbeatFactory;
 import org.inria.myriads.snoozenode.heartbeat.discovery.GroupLeaderDiscovery;
+import org.inria.myriads.snoozenode.heartbeat.handler.GroupManagerHeartbeatHandler;
 import org.inria.myriads.snoozenode.heartbeat.listener.GroupLeaderHeartbeatArrivalListener;
 import org.inria.myriads.snoozenode.heartbeat.listener.GroupManagerHeartbeatFailureListener;
 import org.inria.myriads.snoozenode.localcontroller.actuator.ActuatorFactory;
+import org.inria.myriads.snoozenode.localcontroller.actuator.VirtualMachineStarter;
 import org.inria.myriads.snoozenode.localcontroller.actuator.api.VirtualMachineActuator;
 import org.inria.myriads.snoozenode.localcontroller.connector.Connector;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.MonitoringFactory;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.api.HostMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.service.InfrastructureMonitoring;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.service.VirtualMachineMonitoringService;
 import org.inria.myriads.snoozenode.localcontroller.powermanagement.PowerManagementFactory;
 import org.inria.myriads.snoozenode.localcontroller.powermanagement.shutdown.Shutdown;
 import org.inria.myriads.snoozenode.localcontroller.powermanagement.suspend.Suspend;
+import org.inria.myriads.snoozenode.main.NodeBackend;
 import org.inria.myriads.snoozenode.util.ManagementUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,13 +72,16 @@ import org.slf4j.LoggerFactory;
  * @author Eugen Feller
  */
 public final class LocalControllerBackend 
-    implements GroupLeaderHeartbeatArrivalListener, GroupManagerHeartbeatFailureListener
+    implements GroupLeaderHeartbeatArrivalListener, GroupManagerHeartbeatFailureListener, NodeBackend
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(LocalControllerBackend.class);
     
     /** Local actuator. */
     private VirtualMachineActuator virtualMachineActuator_;
+    
+    /** Virtual machine starter. */
+    private VirtualMachineStarter virtualMachineStarter_;
           
     /** Monitoring management of virtual machines. */
     private VirtualMachineMonitoringService virtualMachineMonitoringService_;
@@ -96,7 +104,14 @@ public final class LocalControllerBackend
     /** Suspend logic. */
     private Suspend suspendLogic_;
     
-
+    /** Group leader discovery. */
+    private GroupLeaderDiscovery groupLeaderDiscovery_;
+    
+    /** Group manager heartbeat handler. */
+    private GroupManagerHeartbeatHandler heartbeatHandler_;
+    
+    /** Indicates that the services are stopped. */
+    private volatile boolean isStopped_;
     
     /**
      * Constructor.
@@ -115,8 +130,66 @@ public final class LocalControllerBackend
         initializePowerManagement();
         startHypervisorServices();  
         createLocalControllerDescription();
+        addShutdownHook();
         onGroupManagerHeartbeatFailure();
     }
+    
+    /**
+     * Adds a shutdown hook which stops the local controller services.
+     */
+    private void addShutdownHook()
+    {
+        Runtime.getRuntime().addShutdownHook(new Thread("LocalControllerShutdown")
+        {
+            public void run()
+            {
+                stopServices();
+            }
+        });
+    }
+    
+    /**
+     * Stops the local controller services.
+     */
+    @Override
+    public synchronized void stopServices()
+    {
+        if (isStopped_)
+        {
+            return;
+        }
+        
+        log_.debug("Stopping the local controller services");
+        isStopped_ = true;
+        
+        if (groupLeaderDiscovery_ != null)
+        {
+            groupLeaderDiscovery_.terminate();
+        }
+        
+        if (heartbeatHandler_ != null)
+        {
+            heartbeatHandler_.terminate();
+        }
+        
+        if (virtualMachineMonitoringService_ != null)
+        {
+            try
+            {
+                virtualMachineMonitoringService_.stopService();
+            }
+            catch (InterruptedException exception)
+            {
+                log_.error("Interrupted while stopping the virtual machine monitoring service", exception);
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        if (virtualMachineStarter_ != null)
+        {
+            virtualMachineStarter_.shutdown();
+        }
+    }
 
 
     /**
@@ -156,6 +229,8 @@ public final class LocalControllerBackend
         HypervisorSettings settings = nodeConfiguration_.getHypervisor();
         Connector connector = ActuatorFactory.newHypervisorConnector(address, settings);  
         virtualMachineActuator_ = ActuatorFactory.newVirtualMachineActuator(connector);
+        int maxConcurrentStarts = nodeConfiguration_.getSubmission().getMaxNumberOfConcurrentStarts();
+        virtualMachineStarter_ = new VirtualMachineStarter(virtualMachineActuator_, maxConcurrentStarts);
         createInfrastructureMonitor(connector);
      }
 
@@ -172,9 +247,13 @@ public final class LocalControllerBackend
         NetworkDemand networkCapacity = nodeConfiguration_.getNode().getNetworkCapacity();
         HostMonitor hostMonitor = MonitoringFactory.newHostMonitoring(connector, networkCapacity);
         VirtualMachineMonitor virtualMachineMonitor =  MonitoringFactory.newVirtualMachineMonitor(connector); 
+        MonitoringSettings monitoringSettings = nodeConfiguration_.getMonitoring();
+        TemperatureMonitor temperatureMonitor = 
+            MonitoringFactory.newTemperatureMonitoring(monitoringSettings.getTemperatureCacheTimeToLive());
         resourceMonitoring_ = new InfrastructureMonitoring(virtualMachineMonitor, 
                                                            hostMonitor,
-                                                           nodeConfiguration_.getMonitoring());
+                                                           temperatureMonitor,
+                                                           monitoringSettings);
     }
     
     /**
@@ -214,9 +293,15 @@ public final class LocalControllerBackend
      * @throws Exception    The exception
      */
     @Override
-    public void onGroupManagerHeartbeatFailure() 
+    public synchronized void onGroupManagerHeartbeatFailure() 
         throws Exception 
     {
+        if (isStopped_)
+        {
+            log_.debug("Local controller services are stopped! Skipping the group leader discovery");
+            return;
+        }
+        
         log_.debug("Initializing the group leader discovery");
         
         if (virtualMachineMonitoringService_ != null)
@@ -224,9 +309,10 @@ public final class LocalControllerBackend
             virtualMachineMonitoringService_.stopService();
         }
         
-        new GroupLeaderDiscovery(nodeConfiguration_.getNetworking().getMulticast().getGroupLeaderHeartbeatAddress(), 
-                                 nodeConfiguration_.getFaultTolerance().getHeartbeat().getTimeout(),
-                                 this);
+        groupLeaderDiscovery_ = 
+            new GroupLeaderDiscovery(nodeConfiguration_.getNetworking().getMulticast().getGroupLeaderHeartbeatAddress(),
+                                     nodeConfiguration_.getFaultTolerance().getHeartbeat().getTimeout(),
+                                     this);
     }
 
     /**
@@ -301,10 +387,10 @@ public final class LocalControllerBackend
         log_.debug("Starting the system services");
         
         int heartbeatTimeout = nodeConfiguration_.getFaultTolerance().getHeartbeat().getTimeout();
-        HeartbeatFactory.newGroupManagerHeartbeatHandler(groupManager.getHeartbeatAddress(),
-                                                         groupManager.getId(),
-                                                         heartbeatTimeout,
-                                                         this);
+        heartbeatHandler_ = HeartbeatFactory.newGroupManagerHeartbeatHandler(groupManager.getHeartbeatAddress(),
+                                                                             groupManager.getId(),
+                                                                             heartbeatTimeout,
+                                                                             this);
         startVirtualMachineMonitoringService(groupManager);
     }
     
@@ -319,7 +405,7 @@ public final class LocalControllerBackend
         log_.debug("Assigninng the local controller to a group manager");
         
         NetworkAddress monitoringAddress = groupLeader.getListenSettings().getControlDataAddress();
-        GroupManagerAPI communicator = CommunicatorFactory.newGroupManagerCommunicator(monitoringAddress);
+        GroupManagerAPI communicator = NodeCommunicatorFactory.newGroupManagerCommunicator(monitoringAddress);
         AssignedGroupManager assignment = communicator.assignLocalController(localControllerDescription_);
         return assignment;
     }
@@ -335,7 +421,7 @@ public final class LocalControllerBackend
         log_.debug("Joining the assigned group manager");
         
         NetworkAddress monitoringAddress = groupManager.getListenSettings().getControlDataAddress();
-        GroupManagerAPI communicator = CommunicatorFactory.newGroupManagerCommunicator(monitoringAddress);
+        GroupManagerAPI communicator = NodeCommunicatorFactory.newGroupManagerCommunicator(monitoringAddress);
         boolean hasJoined = communicator.joinGroupManager(localControllerDescription_);      
         return hasJoined;
     }
@@ -350,6 +436,16 @@ public final class LocalControllerBackend
         return virtualMachineActuator_;
     }
     
+    /**
+     * Returns the virtual machine starter.
+     * 
+     * @return     The virtual machine starter
+     */
+    public VirtualMachineStarter getVirtualMachineStarter()
+    {
+        return virtualMachineStarter_;
+    }
+    
     /**
      * Returns the local monitor.
      * 
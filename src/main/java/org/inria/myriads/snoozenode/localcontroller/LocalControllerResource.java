@@ -20,13 +20,13 @@
 package org.inria.myriads.snoozenode.localcontroller;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.inria.myriads.snoozecommon.communication.rest.api.LocalControllerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
-import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionRequest;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
 import org.inria.myriads.snoozecommon.communication.virtualmachine.ResizeRequest;
@@ -81,34 +81,17 @@ public final class LocalControllerResource extends ServerResource
         ArrayList<VirtualMachineMetaData> virtualMachines = submissionRequest.getVirtualMachineMetaData();
         log_.debug(String.format("Received a request to start %d virtual machines", virtualMachines.size()));
         
-        for (VirtualMachineMetaData virtualMachine : submissionRequest.getVirtualMachineMetaData())
+        List<VirtualMachineMetaData> started = backend_.getVirtualMachineStarter().start(virtualMachines);
+        log_.debug(String.format("%d virtual machines started! Now starting the monitoring!", started.size()));
+        
+        List<VirtualMachineMetaData> unmonitored = backend_.getVirtualMachineMonitoringService().start(started);
+        for (VirtualMachineMetaData virtualMachine : unmonitored)
         {
-            VirtualMachineLocation location = virtualMachine.getVirtualMachineLocation();
-            log_.debug(String.format("Starting virtual machine: %s", location.getVirtualMachineId()));
-            
-            
-            
-            
-            boolean isStarted = backend_.getVirtualMachineActuator().start(virtualMachine.getXmlRepresentation());
-            if (!isStarted)
-            {
-                log_.error("Failed to start virtual machine on hypervisor!");
-                ManagementUtils.updateVirtualMachineMetaData(virtualMachine,
-                                                             VirtualMachineStatus.ERROR,
-                                                             VirtualMachineErrorCode.FAILED_TO_START_ON_HYPERVISOR);
-                continue;
-            }
-                                 
-            log_.debug("Virtual machine started! Now starting the monitoring!");
-            isStarted = backend_.getVirtualMachineMonitoringService().start(virtualMachine);
-            if (!isStarted)
-            {
-                log_.error("Failed to start virtual machine monitoring!");
-                ManagementUtils.updateVirtualMachineMetaData(virtualMachine,
-                                                             VirtualMachineStatus.ERROR,
-                                                             VirtualMachineErrorCode.FAILED_TO_START_MONITORING);
-                continue;
-            }
+            log_.error(String.format("Failed to start virtual machine %s monitoring!", 
+                                     virtualMachine.getVirtualMachineLocation().getVirtualMachineId()));
+            ManagementUtils.updateVirtualMachineMetaData(virtualMachine,
+                                                         VirtualMachineStatus.ERROR,
+                                                         VirtualMachineErrorCode.FAILED_TO_START_MONITORING);
         }
         
         VirtualMachineSubmissionResponse submissionResponse = new VirtualMachineSubmissionResponse();
@@ -331,6 +314,7 @@ public final class LocalControllerResource extends ServerResource
             return false;  
         }
         
+        backend_.getVirtualMachineMonitoringService().refresh(virtualMachineId);
         boolean isChanged = backend_.getRepository().changeVirtualMachineStatus(virtualMachineId, 
                                                                                 VirtualMachineStatus.RUNNING);
         if (!isChanged)
@@ -527,7 +511,7 @@ public final class LocalControllerResource extends ServerResource
        if (!isResized)
            return null;
 
-       
+       backend_.getVirtualMachineMonitoringService().refresh(virtualMachineId);
        return virtualMachine;
     }
     
@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.actuator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.localcontroller.actuator.api.VirtualMachineActuator;
+import org.inria.myriads.snoozenode.util.ManagementUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts batches of virtual machines on the hypervisor.
+ * 
+ * Domains of a batch are created concurrently, bounded by the per-host parallelism.
+ * Virtual machines which fail to start are flagged with an error status.
+ * 
+ * @author Eugen Feller
+ */
+public final class VirtualMachineStarter 
+{
+    /** Logging instance. */
+    private static final Logger log_ = LoggerFactory.getLogger(VirtualMachineStarter.class);
+    
+    /** Virtual machine actuator. */
+    private VirtualMachineActuator actuator_;
+    
+    /** Executor creating the domains. */
+    private ExecutorService executor_;
+    
+    /** Maximum number of concurrent starts. */
+    private int parallelism_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param actuator      The virtual machine actuator
+     * @param parallelism   The maximum number of concurrent starts
+     */
+    public VirtualMachineStarter(VirtualMachineActuator actuator, int parallelism)
+    {
+        Guard.check(actuator);
+        log_.debug(String.format("Initializing the virtual machine starter with parallelism %d", parallelism));
+        
+        actuator_ = actuator;
+        parallelism_ = Math.max(1, parallelism);
+        executor_ = Executors.newFixedThreadPool(parallelism_, new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "VirtualMachineStarter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+    
+    /**
+     * Starts a batch of virtual machines.
+     * 
+     * @param virtualMachines   The virtual machines
+     * @return                  The started virtual machines
+     */
+    public List<VirtualMachineMetaData> start(List<VirtualMachineMetaData> virtualMachines)
+    {
+        Guard.check(virtualMachines);
+        log_.debug(String.format("Starting %d virtual machines", virtualMachines.size()));
+        
+        List<VirtualMachineMetaData> started = new ArrayList<VirtualMachineMetaData>();
+        if (parallelism_ == 1 || virtualMachines.size() <= 1)
+        {
+            for (VirtualMachineMetaData virtualMachine : virtualMachines)
+            {
+                onStarted(virtualMachine, actuator_.start(virtualMachine.getXmlRepresentation()), started);
+            }
+            
+            return started;
+        }
+        
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        for (final VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            results.add(executor_.submit(new Callable<Boolean>()
+            {
+                public Boolean call()
+                {
+                    return actuator_.start(virtualMachine.getXmlRepresentation());
+                }
+            }));
+        }
+        
+        for (int i = 0; i < virtualMachines.size(); i++)
+        {
+            boolean isStarted = false;
+            try
+            {
+                isStarted = results.get(i).get();
+            }
+            catch (InterruptedException exception)
+            {
+                log_.error("Interrupted while waiting for the virtual machine start", exception);
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException exception)
+            {
+                log_.error("Exception during virtual machine start", exception.getCause());
+            }
+            
+            onStarted(virtualMachines.get(i), isStarted, started);
+        }
+        
+        return started;
+    }
+    
+    /**
+     * Records the outcome of a virtual machine start.
+     * 
+     * @param virtualMachine    The virtual machine
+     * @param isStarted         true if started, false otherwise
+     * @param started           The started virtual machines
+     */
+    private void onStarted(VirtualMachineMetaData virtualMachine, 
+                           boolean isStarted, 
+                           List<VirtualMachineMetaData> started)
+    {
+        String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+        if (!isStarted)
+        {
+            log_.error(String.format("Failed to start virtual machine %s on hypervisor!", virtualMachineId));
+            ManagementUtils.updateVirtualMachineMetaData(virtualMachine,
+                                                         VirtualMachineStatus.ERROR,
+                                                         VirtualMachineErrorCode.FAILED_TO_START_ON_HYPERVISOR);
+            return;
+        }
+        
+        log_.debug(String.format("Virtual machine %s started", virtualMachineId));
+        started.add(virtualMachine);
+    }
+    
+    /**
+     * Shuts down the starter.
+     */
+    public void shutdown()
+    {
+        executor_.shutdownNow();
+    }
+}
@@ -19,14 +19,28 @@
  */
 package org.inria.myriads.snoozenode.localcontroller.monitoring;
 
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+
 import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
 import org.inria.myriads.snoozenode.exception.HostMonitoringException;
 import org.inria.myriads.snoozenode.exception.VirtualMachineMonitoringException;
 import org.inria.myriads.snoozenode.localcontroller.connector.Connector;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.api.HostMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl.CachedTemperatureMonitor;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl.LibVirtHostMonitor;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl.LibVirtVirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl.SensorsTemperatureMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl.SysfsTemperatureMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.ProducerType;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.producer.SharedMonitoringScheduler;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.producer.ThreadMonitoringScheduler;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.producer.VirtualMachineMonitoringScheduler;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.service.InfrastructureMonitoring;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
 
 /**
  * Infrastructure monitoring factory.
@@ -69,4 +83,46 @@ public final class MonitoringFactory
     {
         return new LibVirtHostMonitor(connector, networkCapacity);
     }
+    
+    /**
+     * Creates the temperature monitoring.
+     * (sysfs with lm-sensors fallback, cached)
+     * 
+     * @param timeToLive                       The cache time to live (= ms)
+     * @return                                 The temperature monitor
+     */
+    public static TemperatureMonitor newTemperatureMonitoring(long timeToLive)
+    {
+        TemperatureMonitor sysfsMonitor = new SysfsTemperatureMonitor(new File(SysfsTemperatureMonitor.HWMON_DIRECTORY),
+                                                                      new SensorsTemperatureMonitor());
+        return new CachedTemperatureMonitor(sysfsMonitor, timeToLive);
+    }
+    
+    /**
+     * Creates the virtual machine monitoring scheduler.
+     * 
+     * @param producerType                     The producer type
+     * @param monitoring                       The infrastructure monitoring
+     * @param dataQueue                        The data queue
+     * @param monitoringListener               The monitoring listener
+     * @return                                 The virtual machine monitoring scheduler
+     */
+    public static VirtualMachineMonitoringScheduler 
+        newVirtualMachineMonitoringScheduler(ProducerType producerType,
+                                             InfrastructureMonitoring monitoring,
+                                             BlockingQueue<AggregatedVirtualMachineData> dataQueue,
+                                             VirtualMachineMonitoringListener monitoringListener)
+    {
+        switch (producerType)
+        {
+            case shared :
+                return new SharedMonitoringScheduler(monitoring, dataQueue, monitoringListener);
+                
+            case thread :
+                return new ThreadMonitoringScheduler(monitoring, dataQueue, monitoringListener);
+                
+            default :
+                throw new IllegalArgumentException(String.format("Unknown producer type: %s", producerType));
+        }
+    }
 }
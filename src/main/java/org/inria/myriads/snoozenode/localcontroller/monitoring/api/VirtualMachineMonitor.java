@@ -38,4 +38,12 @@ public interface VirtualMachineMonitor
      */
     VirtualMachineInformation getVirtualMachineInformation(String virtualMachineId)
         throws VirtualMachineMonitoringException;
+    
+    /**
+     * Drops the cached meta data of a virtual machine.
+     * (must be called whenever the domain is migrated, resized or restarted)
+     * 
+     * @param virtualMachineId                       The virtual machine identifier
+     */
+    void invalidate(String virtualMachineId);
 }
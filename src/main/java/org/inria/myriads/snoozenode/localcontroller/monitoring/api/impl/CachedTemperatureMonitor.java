@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.exception.HostMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the temperature of another monitor for a time to live.
+ * 
+ * @author Eugen Feller
+ */
+public final class CachedTemperatureMonitor 
+    implements TemperatureMonitor
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(CachedTemperatureMonitor.class);
+    
+    /** Nanoseconds per millisecond. */
+    private static final long NANOS_PER_MILLISECOND = 1000000L;
+    
+    /** The cached monitor. */
+    private TemperatureMonitor monitor_;
+    
+    /** Time to live (= ns). */
+    private long timeToLive_;
+    
+    /** Cached temperature. */
+    private double temperature_;
+    
+    /** Time of the cached temperature (= ns). */
+    private long sampleTime_;
+    
+    /** Cached temperature availability flag. */
+    private boolean isCached_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param monitor       The temperature monitor
+     * @param timeToLive    The time to live (= ms)
+     */
+    public CachedTemperatureMonitor(TemperatureMonitor monitor, long timeToLive)
+    {
+        Guard.check(monitor);
+        log_.debug(String.format("Caching the temperature for %d ms", timeToLive));
+        monitor_ = monitor;
+        timeToLive_ = timeToLive * NANOS_PER_MILLISECOND;
+    }
+    
+    /**
+     * Returns the cached temperature, sampling it again once expired.
+     * 
+     * @return                          The temperature
+     * @throws HostMonitoringException  The host monitoring exception
+     */
+    @Override
+    public synchronized double getTemperature() 
+        throws HostMonitoringException
+    {
+        long now = System.nanoTime();
+        if (isCached_ && now - sampleTime_ < timeToLive_)
+        {
+            return temperature_;
+        }
+        
+        temperature_ = monitor_.getTemperature();
+        sampleTime_ = now;
+        isCached_ = true;
+        return temperature_;
+    }
+}
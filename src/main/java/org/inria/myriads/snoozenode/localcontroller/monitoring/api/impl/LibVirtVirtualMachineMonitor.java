@@ -21,6 +21,8 @@ package org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.parser.VirtualClusterParserFactory;
@@ -34,6 +36,7 @@ import org.libvirt.Connect;
 import org.libvirt.Domain;
 import org.libvirt.DomainInfo;
 import org.libvirt.DomainInterfaceStats;
+import org.libvirt.Error;
 import org.libvirt.LibvirtException;
 import org.libvirt.MemoryStatistic;
 import org.slf4j.Logger;
@@ -49,10 +52,51 @@ public final class LibVirtVirtualMachineMonitor
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(LibVirtVirtualMachineMonitor.class);
+    
+    /** Number of consecutive memory statistics failures after which they are no longer requested. */
+    private static final int MAX_MEMORY_STATISTICS_FAILURES = 3;
                 
     /** Connection to the hypervisor. */
     private Connect connect_;
     
+    /** Cached domain meta data. */
+    private Map<String, DomainMetaData> domains_;
+    
+    /**
+     * Domain meta data.
+     * 
+     * Holds everything which does not change while the domain runs, so
+     * that a sample does not have to look up the domain and parse its XML
+     * description again.
+     */
+    private static final class DomainMetaData
+    {
+        /** Domain handle. */
+        private final Domain domain_;
+        
+        /** Network interface device names. */
+        private final List<String> networkInterfaces_;
+        
+        /** Memory statistics support flag. */
+        private volatile boolean isMemoryStatisticsSupported_;
+        
+        /** Consecutive memory statistics failures. */
+        private volatile int numberOfMemoryStatisticsFailures_;
+        
+        /**
+         * Constructor.
+         * 
+         * @param domain                The domain handle
+         * @param networkInterfaces     The network interface device names
+         */
+        private DomainMetaData(Domain domain, List<String> networkInterfaces)
+        {
+            domain_ = domain;
+            networkInterfaces_ = networkInterfaces;
+            isMemoryStatisticsSupported_ = true;
+        }
+    }
+    
     /**
      * Constructor.
      * 
@@ -65,6 +109,7 @@ public final class LibVirtVirtualMachineMonitor
         Guard.check(connector);
         log_.debug("Initializing the libvirt based virtual machine monitoring");
         connect_ = (Connect) connector.getConnector();
+        domains_ = new ConcurrentHashMap<String, DomainMetaData>();
     }
     
     /**
@@ -81,22 +126,32 @@ public final class LibVirtVirtualMachineMonitor
         Guard.check(virtualMachineId);
         log_.debug(String.format("Getting information for virtual machine: %s", virtualMachineId));
         
-        Domain domain;
+        DomainMetaData metaData = getDomainMetaData(virtualMachineId);
         DomainInfo domainInformation;
-        
         try 
         {
-            domain = connect_.domainLookupByName(virtualMachineId);
-            domainInformation = domain.getInfo();
+            domainInformation = metaData.domain_.getInfo();
         } 
         catch (LibvirtException exception) 
         {
-            throw new VirtualMachineMonitoringException(String.format("Failed to lookup domain information: %s", 
-                                                                      exception.getMessage()));
+            log_.debug(String.format("Cached domain %s is stale, looking it up again", virtualMachineId));
+            domains_.remove(virtualMachineId);
+            metaData = getDomainMetaData(virtualMachineId);
+            try
+            {
+                domainInformation = metaData.domain_.getInfo();
+            }
+            catch (LibvirtException retryException)
+            {
+                domains_.remove(virtualMachineId);
+                throw new VirtualMachineMonitoringException(String.format("Failed to lookup domain information: %s", 
+                                                                          retryException.getMessage()));
+            }
         }
                             
-        long currentMemoryUsage = getCurrentMemoryUsage(domain);
-        List<NetworkTrafficInformation> networkTraffic = getCurrentNetworkUsage(domain);
+        long currentMemoryUsage = getCurrentMemoryUsage(metaData, domainInformation);
+        List<NetworkTrafficInformation> networkTraffic = 
+            computeNetworkTrafficInformation(metaData.networkInterfaces_, metaData.domain_);
         VirtualMachineInformation information = new VirtualMachineInformation(domainInformation.nrVirtCpu,
                                                                               domainInformation.cpuTime,
                                                                               currentMemoryUsage,
@@ -105,17 +160,63 @@ public final class LibVirtVirtualMachineMonitor
     }
     
     /**
-     * Gets the network traffic information for all interfaces.
+     * Drops the cached meta data of a domain.
+     * 
+     * @param virtualMachineId                       The virtual machine identifier
+     */
+    @Override
+    public void invalidate(String virtualMachineId)
+    {
+        Guard.check(virtualMachineId);
+        log_.debug(String.format("Invalidating cached domain %s meta data", virtualMachineId));
+        domains_.remove(virtualMachineId);
+    }
+    
+    /**
+     * Returns the cached domain meta data, looking the domain up if required.
+     * 
+     * @param virtualMachineId                       The virtual machine identifier
+     * @return                                       The domain meta data
+     * @throws VirtualMachineMonitoringException     The virtual machine monitoring exception
+     */
+    private DomainMetaData getDomainMetaData(String virtualMachineId) 
+        throws VirtualMachineMonitoringException
+    {
+        DomainMetaData metaData = domains_.get(virtualMachineId);
+        if (metaData != null)
+        {
+            return metaData;
+        }
+        
+        log_.debug(String.format("Looking up domain %s meta data", virtualMachineId));
+        Domain domain;
+        try 
+        {
+            domain = connect_.domainLookupByName(virtualMachineId);
+        } 
+        catch (LibvirtException exception) 
+        {
+            throw new VirtualMachineMonitoringException(String.format("Failed to lookup domain information: %s", 
+                                                                      exception.getMessage()));
+        }
+        
+        metaData = new DomainMetaData(domain, getNetworkInterfaces(domain));
+        domains_.put(virtualMachineId, metaData);
+        return metaData;
+    }
+    
+    /**
+     * Gets the network interface device names of a domain.
      * 
      * @param domain                                The domain
-     * @return                                      The traffic information
+     * @return                                      The network interfaces
      * @throws VirtualMachineMonitoringException    The virtual machine monitoring exception
      */
-    private List<NetworkTrafficInformation> getCurrentNetworkUsage(Domain domain) 
+    private List<String> getNetworkInterfaces(Domain domain) 
         throws VirtualMachineMonitoringException 
     {
         Guard.check(domain);
-        log_.debug("Getting the network traffic information for all interfaces");
+        log_.debug("Getting the network interfaces of the domain");
         
         List<String> networkInterfaces = null;
         try 
@@ -129,12 +230,8 @@ public final class LibVirtVirtualMachineMonitor
                                                                       exception.getMessage()));
         } 
         
-        
         log_.debug(String.format("Size of the network list: %s", networkInterfaces.size()));
-        
-        List<NetworkTrafficInformation> networkTrafficInformation = 
-            computeNetworkTrafficInformation(networkInterfaces, domain); 
-        return networkTrafficInformation;
+        return networkInterfaces;
     }
     
     /**
@@ -181,50 +278,67 @@ public final class LibVirtVirtualMachineMonitor
      * 
      * Note: xen driver doesn't support virDomainMemoryStats called by domain.memoryStats (libvirt 0.9.8)
      * see http://libvirt.org/hvsupport.html  
+     * Memory statistics are no longer requested, until the domain is invalidated, once the driver
+     * reports them as unsupported or after several consecutive failures.
      * 
-     * @param domain                                    The domain
+     * @param metaData                                  The domain meta data
+     * @param domainInformation                         The domain information of this sample
      * @return                                          The memory usage
-     * @throws VirtualMachineMonitoringException 
      */
-    private long getCurrentMemoryUsage(Domain domain) 
-        throws VirtualMachineMonitoringException
+    private long getCurrentMemoryUsage(DomainMetaData metaData, DomainInfo domainInformation)
     {
-        Guard.check(domain);
+        Guard.check(metaData, domainInformation);
         log_.debug("Getting current domain memory usage information");
         
-        long usedMemory;
+        if (!metaData.isMemoryStatisticsSupported_)
+        {
+            return domainInformation.memory;
+        }
+        
         MemoryStatistic[] memStats;
         try 
         {
-            try 
-            {
-                memStats = domain.memoryStats(1);
-                log_.debug(String.format("Size of memory stats: %d", memStats.length));
-            }
-            catch (LibvirtException exception)
-            {
-               log_.debug("No dynamic memory usage information available! Falling back to fixed memory allocation! : ");
-               return domain.getInfo().memory;
-            }
-            
-            if (memStats.length > 0)
+            memStats = metaData.domain_.memoryStats(1);
+            log_.debug(String.format("Size of memory stats: %d", memStats.length));
+        }
+        catch (LibvirtException exception)
+        {
+            log_.debug(String.format("No dynamic memory usage information available! Falling back to fixed " +
+                                     "memory allocation! : %s", exception.getMessage()));
+            metaData.numberOfMemoryStatisticsFailures_++;
+            if (isUnsupported(exception) || 
+                metaData.numberOfMemoryStatisticsFailures_ >= MAX_MEMORY_STATISTICS_FAILURES)
             {
-                MemoryStatistic memory = memStats[0];
-                log_.debug(String.format("Good news! Dynamic memory usage information is available: %d", 
-                                         memory.getValue()));
-                return memory.getValue();
+                log_.debug("Disabling memory statistics for this domain");
+                metaData.isMemoryStatisticsSupported_ = false;
             }
             
-            log_.debug("No dynamic memory usage information available! Falling back to fixed memory allocation!");
-            usedMemory = domain.getInfo().memory;
-        } 
-        catch (LibvirtException exception) 
+            return domainInformation.memory;
+        }
+        
+        metaData.numberOfMemoryStatisticsFailures_ = 0;
+        
+        if (memStats.length > 0)
         {
-            throw new 
-                VirtualMachineMonitoringException(String.format("Unable to capture current memory information: %s", 
-                                                                exception.getMessage()));
-        } 
+            MemoryStatistic memory = memStats[0];
+            log_.debug(String.format("Good news! Dynamic memory usage information is available: %d", 
+                                     memory.getValue()));
+            return memory.getValue();
+        }
         
-        return usedMemory;
+        log_.debug("No dynamic memory usage information available! Falling back to fixed memory allocation!");
+        return domainInformation.memory;
+    }
+    
+    /**
+     * Checks whether an exception reports an operation the driver does not support.
+     * 
+     * @param exception     The libvirt exception
+     * @return              true if unsupported, false otherwise
+     */
+    private static boolean isUnsupported(LibvirtException exception)
+    {
+        Error error = exception.getError();
+        return error != null && error.getCode() == Error.ErrorNumber.VIR_ERR_NO_SUPPORT;
     }
 }
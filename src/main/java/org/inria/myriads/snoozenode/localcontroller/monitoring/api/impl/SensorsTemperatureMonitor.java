@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.inria.myriads.snoozenode.exception.HostMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * lm-sensors based temperature monitor.
+ * 
+ * Forks "sensors -u" and averages all reported temperature inputs.
+ * 
+ * @author Eugen Feller
+ */
+public final class SensorsTemperatureMonitor 
+    implements TemperatureMonitor
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(SensorsTemperatureMonitor.class);
+    
+    /** Sensors command. */
+    private static final String[] SENSORS_COMMAND = {"sensors", "-u"};
+    
+    /** Temperature input line pattern. */
+    private static final Pattern INPUT_PATTERN = Pattern.compile("temp[0-9]+_input:.*");
+    
+    /** Temperature value pattern. */
+    private static final Pattern VALUE_PATTERN = Pattern.compile("[0-9]+(.[0-9]+)+");
+    
+    /**
+     * Returns the average temperature reported by lm-sensors.
+     * 
+     * @return                          The temperature
+     * @throws HostMonitoringException  The host monitoring exception
+     */
+    @Override
+    public double getTemperature() 
+        throws HostMonitoringException
+    {
+        log_.debug("Reading the temperature from lm-sensors");
+        
+        int numberOfSensors = 0;
+        double total = 0;
+        Process process = null;
+        BufferedReader reader = null;
+        try
+        {
+            process = Runtime.getRuntime().exec(SENSORS_COMMAND);
+            reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                Matcher inputMatcher = INPUT_PATTERN.matcher(line);
+                if (!inputMatcher.find())
+                {
+                    continue;
+                }
+                
+                Matcher valueMatcher = VALUE_PATTERN.matcher(inputMatcher.group(0));
+                if (valueMatcher.find())
+                {
+                    total += Double.parseDouble(valueMatcher.group(0));
+                    numberOfSensors++;
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            throw new HostMonitoringException(String.format("Unable to run sensors: %s", exception.getMessage()));
+        }
+        finally
+        {
+            close(reader);
+            if (process != null)
+            {
+                process.destroy();
+            }
+        }
+        
+        if (numberOfSensors == 0)
+        {
+            throw new HostMonitoringException("No temperature sensors reported by sensors");
+        }
+        
+        return total / numberOfSensors;
+    }
+    
+    /**
+     * Closes a reader.
+     * 
+     * @param reader    The reader
+     */
+    private static void close(BufferedReader reader)
+    {
+        if (reader == null)
+        {
+            return;
+        }
+        
+        try
+        {
+            reader.close();
+        }
+        catch (IOException exception)
+        {
+            log_.debug(String.format("Unable to close the sensors output: %s", exception.getMessage()));
+        }
+    }
+}
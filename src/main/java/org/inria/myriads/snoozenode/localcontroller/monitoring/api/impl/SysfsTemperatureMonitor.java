@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.exception.HostMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sysfs (hwmon) based temperature monitor.
+ * 
+ * Reads the temp*_input files of all hwmon devices directly and averages them,
+ * as lm-sensors would. The sensor files are discovered once and only searched 
+ * again when one of them can no longer be read. Without any readable sensor
+ * the fallback monitor is used.
+ * 
+ * @author Eugen Feller
+ */
+public final class SysfsTemperatureMonitor 
+    implements TemperatureMonitor
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(SysfsTemperatureMonitor.class);
+    
+    /** Default hwmon directory. */
+    public static final String HWMON_DIRECTORY = "/sys/class/hwmon";
+    
+    /** Temperature input file pattern. */
+    private static final Pattern INPUT_PATTERN = Pattern.compile("temp[0-9]+_input");
+    
+    /** Sysfs reports millidegrees Celsius. */
+    private static final double MILLIDEGREES = 1000.0;
+    
+    /** The hwmon directory. */
+    private File hwmonDirectory_;
+    
+    /** Fallback monitor (may be null). */
+    private TemperatureMonitor fallback_;
+    
+    /** Discovered sensor files (null if discovery is required). */
+    private List<File> sensors_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param hwmonDirectory    The hwmon directory
+     * @param fallback          The fallback monitor (may be null)
+     */
+    public SysfsTemperatureMonitor(File hwmonDirectory, TemperatureMonitor fallback)
+    {
+        Guard.check(hwmonDirectory);
+        log_.debug(String.format("Initializing the sysfs temperature monitor on %s", hwmonDirectory));
+        hwmonDirectory_ = hwmonDirectory;
+        fallback_ = fallback;
+    }
+    
+    /**
+     * Returns the average temperature of all hwmon sensors.
+     * 
+     * @return                          The temperature
+     * @throws HostMonitoringException  The host monitoring exception
+     */
+    @Override
+    public synchronized double getTemperature() 
+        throws HostMonitoringException
+    {
+        if (sensors_ == null)
+        {
+            sensors_ = discoverSensors();
+        }
+        
+        int numberOfSensors = 0;
+        double total = 0;
+        for (File sensor : sensors_)
+        {
+            try
+            {
+                total += readSensor(sensor) / MILLIDEGREES;
+                numberOfSensors++;
+            }
+            catch (IOException exception)
+            {
+                log_.debug(String.format("Unable to read sensor %s: %s", sensor, exception.getMessage()));
+                sensors_ = null;
+            }
+            catch (NumberFormatException exception)
+            {
+                log_.debug(String.format("Invalid sensor %s value: %s", sensor, exception.getMessage()));
+            }
+        }
+        
+        if (numberOfSensors > 0)
+        {
+            return total / numberOfSensors;
+        }
+        
+        if (fallback_ == null)
+        {
+            throw new HostMonitoringException(String.format("No readable temperature sensor in %s", 
+                                                            hwmonDirectory_));
+        }
+        
+        log_.debug("No readable sysfs temperature sensor, using the fallback");
+        return fallback_.getTemperature();
+    }
+    
+    /**
+     * Discovers the temperature input files.
+     * 
+     * @return  The sensor files
+     */
+    private List<File> discoverSensors()
+    {
+        List<File> sensors = new ArrayList<File>();
+        File[] devices = hwmonDirectory_.listFiles();
+        if (devices == null)
+        {
+            log_.debug(String.format("Unable to list %s", hwmonDirectory_));
+            return sensors;
+        }
+        
+        Arrays.sort(devices);
+        for (File device : devices)
+        {
+            addSensors(device, sensors);
+            
+            // Older kernels expose the inputs on the underlying device only
+            addSensors(new File(device, "device"), sensors);
+        }
+        
+        log_.debug(String.format("Discovered %d sysfs temperature sensors", sensors.size()));
+        return sensors;
+    }
+    
+    /**
+     * Adds the temperature input files of a directory.
+     * 
+     * @param directory     The directory
+     * @param sensors       The sensor files
+     */
+    private static void addSensors(File directory, List<File> sensors)
+    {
+        File[] files = directory.listFiles();
+        if (files == null)
+        {
+            return;
+        }
+        
+        Arrays.sort(files);
+        for (File file : files)
+        {
+            if (file.isFile() && INPUT_PATTERN.matcher(file.getName()).matches())
+            {
+                sensors.add(file);
+            }
+        }
+    }
+    
+    /**
+     * Reads a sensor value.
+     * 
+     * @param sensor            The sensor file
+     * @return                  The value (= millidegrees Celsius)
+     * @throws IOException      The I/O exception
+     */
+    private static long readSensor(File sensor) 
+        throws IOException
+    {
+        BufferedReader reader = new BufferedReader(new FileReader(sensor));
+        try
+        {
+            String line = reader.readLine();
+            if (line == null)
+            {
+                throw new IOException("Empty sensor file");
+            }
+            
+            return Long.parseLong(line.trim());
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+}
@@ -27,11 +27,16 @@ import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.threshold.ThresholdCrossingDetector;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.inria.myriads.snoozenode.metrics.Gauge;
+import org.inria.myriads.snoozenode.metrics.LatencyHistogram;
+import org.inria.myriads.snoozenode.metrics.MetricsFactory;
 import org.inria.myriads.snoozenode.tcpip.TCPDataSender;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +51,9 @@ public final class VirtualMachineMonitorDataConsumer extends TCPDataSender
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(VirtualMachineMonitorDataConsumer.class);
   
+    /** Queue depth metric name. */
+    private static final String QUEUE_METRIC = "localcontroller.monitoring.queue";
+    
     /** Data queue. */
     private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
 
@@ -61,6 +69,12 @@ public final class VirtualMachineMonitorDataConsumer extends TCPDataSender
     /** Signals termination. */
     private boolean isTerminated_;
     
+    /** Queue depth gauge. */
+    private Gauge queueGauge_;
+    
+    /** Time to send a monitoring data message. */
+    private LatencyHistogram sendTime_;
+    
     /**
      * Constructor.
      * 
@@ -68,6 +82,8 @@ public final class VirtualMachineMonitorDataConsumer extends TCPDataSender
      * @param groupManagerAddress   The group manager address
      * @param dataQueue             The data queue
      * @param monitoringThresholds  The monitoring thresholds
+     * @param codecType             The codec type
+     * @param temperatureMonitor    The temperature monitor
      * @param callback              The monitoring service callback
      * @throws Exception            The exception
      */
@@ -75,15 +91,28 @@ public final class VirtualMachineMonitorDataConsumer extends TCPDataSender
                                              NetworkAddress groupManagerAddress, 
                                              BlockingQueue<AggregatedVirtualMachineData> dataQueue,
                                              MonitoringThresholds monitoringThresholds,
+                                             CodecType codecType,
+                                             TemperatureMonitor temperatureMonitor,
                                              VirtualMachineMonitoringListener callback) 
         throws Exception
     {
-        super(groupManagerAddress);
+        super(groupManagerAddress, codecType);
         log_.debug("Initializing the virtual machine monitoring data consumer"); 
         localControllerId_ = localController.getId();
         dataQueue_ = dataQueue;
         callback_ = callback; 
-        crossingDetector_ = new ThresholdCrossingDetector(monitoringThresholds, localController.getTotalCapacity());
+        crossingDetector_ = new ThresholdCrossingDetector(monitoringThresholds, 
+                                                          localController.getTotalCapacity(),
+                                                          temperatureMonitor);
+        queueGauge_ = new Gauge()
+        {
+            public long getValue()
+            {
+                return dataQueue_.size();
+            }
+        };
+        MetricsFactory.getRegistry().registerGauge(QUEUE_METRIC, queueGauge_);
+        sendTime_ = MetricsFactory.getRegistry().getHistogram("localcontroller.monitoring.send");
     }
    
     /**
@@ -128,7 +157,9 @@ public final class VirtualMachineMonitorDataConsumer extends TCPDataSender
         }
         
         log_.debug("Sending aggregated local controller summary information to group maanger");
+        long startTime = System.nanoTime();
         send(localControllerData);  
+        sendTime_.recordSince(startTime);
     }
     
     /** Run method. */
@@ -187,6 +218,7 @@ public final class VirtualMachineMonitorDataConsumer extends TCPDataSender
     {
         log_.debug("Terminating the virtual machine monitoring data consumer");
         isTerminated_ = true;
+        MetricsFactory.getRegistry().unregisterGauge(QUEUE_METRIC, queueGauge_);
         close();
     }
 }
@@ -0,0 +1,481 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.monitoring.producer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.service.InfrastructureMonitoring;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples all virtual machines on one shared scheduler thread.
+ * 
+ * Ticks are aligned to multiples of the monitoring interval. On each tick all virtual machines are
+ * sampled, and the aggregated data of all virtual machines with a complete history is handed to the
+ * monitoring data consumer as one batch. Suspended virtual machines are still queried in order to 
+ * detect their failure, but produce no data. A failed virtual machine is no longer sampled and is
+ * reported to the monitoring listener.
+ * 
+ * The samples are taken one after the other on a sampling thread and the whole tick is bounded by
+ * the monitoring interval: each sample may only take the time left until the tick deadline. A sample
+ * exceeding it is left running on its thread, which is replaced, and the virtual machine is skipped
+ * until the sample returns. Its result is then handed over on the next tick. Virtual machines not
+ * reached before the deadline are skipped for this tick, and the next tick starts with them.
+ * 
+ * @author Eugen Feller
+ */
+public final class SharedMonitoringScheduler 
+    implements VirtualMachineMonitoringScheduler
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(SharedMonitoringScheduler.class);
+    
+    /** Infrastructure monitoring. */
+    private InfrastructureMonitoring monitoring_;
+    
+    /** Data queue. */
+    private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
+    
+    /** Monitoring listener. */
+    private VirtualMachineMonitoringListener monitoringListener_;
+    
+    /** Virtual machine samplers. */
+    private Map<String, VirtualMachineMonitoringSampler> samplers_;
+    
+    /** Suspended virtual machines. */
+    private Set<String> suspended_;
+    
+    /** Failed virtual machines (not sampled until stopped). */
+    private Set<String> failed_;
+    
+    /** Scheduler thread. */
+    private ScheduledExecutorService scheduler_;
+    
+    /** Sampling thread (replaced when a sample times out). */
+    private volatile ExecutorService samplingThread_;
+    
+    /** Tick duration bound in milliseconds. */
+    private long tickTimeout_;
+    
+    /** Position of the first virtual machine to sample on the next tick (scheduler thread only). */
+    private int firstSampler_;
+    
+    /**
+     * Timed out samples which are still running (scheduler thread only).
+     * 
+     * Key: Virtual machine identifier
+     * Value: Sample
+     */
+    private Map<String, Future<AggregatedVirtualMachineData>> timedOut_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param monitoring            The infrastructure monitoring
+     * @param dataQueue             The data queue
+     * @param monitoringListener    The monitoring listener
+     */
+    public SharedMonitoringScheduler(InfrastructureMonitoring monitoring,
+                                     BlockingQueue<AggregatedVirtualMachineData> dataQueue,
+                                     VirtualMachineMonitoringListener monitoringListener)
+    {
+        Guard.check(monitoring, dataQueue, monitoringListener);
+        log_.debug("Initializing the shared virtual machine monitoring scheduler");
+        
+        monitoring_ = monitoring;
+        dataQueue_ = dataQueue;
+        monitoringListener_ = monitoringListener;
+        samplers_ = new LinkedHashMap<String, VirtualMachineMonitoringSampler>();
+        suspended_ = new HashSet<String>();
+        failed_ = new HashSet<String>();
+        timedOut_ = new HashMap<String, Future<AggregatedVirtualMachineData>>();
+        scheduler_ = Executors.newSingleThreadScheduledExecutor(newThreadFactory("VirtualMachineMonitoringScheduler"));
+        samplingThread_ = newSamplingThread();
+        
+        long interval = Math.max(1, monitoring.getMonitoringSettings().getInterval());
+        tickTimeout_ = interval;
+        long initialDelay = interval - System.currentTimeMillis() % interval;
+        scheduler_.scheduleAtFixedRate(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    tick();
+                }
+                catch (RuntimeException exception)
+                {
+                    log_.error("Virtual machine monitoring tick failed", exception);
+                }
+            }
+        }, initialDelay, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Creates a daemon thread factory.
+     * 
+     * @param name      The thread name
+     * @return          The thread factory
+     */
+    private static ThreadFactory newThreadFactory(final String name)
+    {
+        return new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+    
+    /**
+     * Creates a sampling thread.
+     * 
+     * @return      The sampling thread
+     */
+    private static ExecutorService newSamplingThread()
+    {
+        return Executors.newSingleThreadExecutor(newThreadFactory("VirtualMachineMonitoringSampler"));
+    }
+    
+    /**
+     * Samples all virtual machines.
+     */
+    void tick()
+    {
+        long deadline = System.currentTimeMillis() + tickTimeout_;
+        List<VirtualMachineMonitoringSampler> samplers = new ArrayList<VirtualMachineMonitoringSampler>();
+        Set<String> suspended;
+        synchronized (this)
+        {
+            for (VirtualMachineMonitoringSampler sampler : samplers_.values())
+            {
+                if (!failed_.contains(sampler.getVirtualMachineId()))
+                {
+                    samplers.add(sampler);
+                }
+            }
+            
+            suspended = new HashSet<String>(suspended_);
+        }
+        
+        log_.debug(String.format("Sampling %d virtual machines", samplers.size()));
+        List<AggregatedVirtualMachineData> batch = new ArrayList<AggregatedVirtualMachineData>();
+        List<VirtualMachineLocation> failures = new ArrayList<VirtualMachineLocation>();
+        collectReturnedSamples(samplers, batch, failures);
+        
+        int numberOfSamplers = samplers.size();
+        int offset = numberOfSamplers == 0 ? 0 : firstSampler_ % numberOfSamplers;
+        int next = -1;
+        VirtualMachineMonitor virtualMachineMonitor = monitoring_.getVirtualMachineMonitor();
+        for (int i = 0; i < numberOfSamplers; i++)
+        {
+            VirtualMachineMonitoringSampler sampler = samplers.get((offset + i) % numberOfSamplers);
+            String virtualMachineId = sampler.getVirtualMachineId();
+            if (timedOut_.containsKey(virtualMachineId))
+            {
+                log_.debug(String.format("Previous sample of virtual machine %s still running, skipping it", 
+                                         virtualMachineId));
+                continue;
+            }
+            
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+            {
+                log_.warn(String.format("Monitoring interval of %d ms exceeded, skipping %d virtual machines", 
+                                        tickTimeout_, numberOfSamplers - i));
+                next = next < 0 ? (offset + i) % numberOfSamplers : next;
+                break;
+            }
+            
+            Future<AggregatedVirtualMachineData> sample = 
+                samplingThread_.submit(newSample(sampler, virtualMachineMonitor, 
+                                                 suspended.contains(virtualMachineId)));
+            try
+            {
+                AggregatedVirtualMachineData data = sample.get(remaining, TimeUnit.MILLISECONDS);
+                if (data != null)
+                {
+                    batch.add(data);
+                }
+            }
+            catch (TimeoutException exception)
+            {
+                log_.error(String.format("Sample of virtual machine %s exceeded the monitoring interval, " +
+                                         "skipping it until it returns", virtualMachineId));
+                timedOut_.put(virtualMachineId, sample);
+                samplingThread_.shutdown();
+                samplingThread_ = newSamplingThread();
+                next = (offset + i) % numberOfSamplers;
+            }
+            catch (ExecutionException exception)
+            {
+                log_.debug(String.format("Failed to generate virtual machine %s monitoring data: %s", 
+                                         virtualMachineId, exception.getCause().getMessage()));
+                failures.add(sampler.getVirtualMachineMetaData().getVirtualMachineLocation());
+            }
+            catch (InterruptedException exception)
+            {
+                log_.debug("Interrupted while sampling the virtual machines");
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        
+        if (next >= 0)
+        {
+            firstSampler_ = next;
+        }
+        
+        synchronized (this)
+        {
+            for (VirtualMachineLocation location : failures)
+            {
+                failed_.add(location.getVirtualMachineId());
+            }
+            
+            for (AggregatedVirtualMachineData data : batch)
+            {
+                if (samplers_.containsKey(data.getVirtualMachineId()))
+                {
+                    log_.debug(String.format("Adding aggregated virtual machine %s monitoring data to the " +
+                                             "monitoring service queue", 
+                                             data.getVirtualMachineId()));
+                    dataQueue_.add(data);
+                }
+            }
+        }
+        
+        for (VirtualMachineLocation location : failures)
+        {
+            monitoringListener_.onMonitoringFailure(location);
+        }
+    }
+    
+    /**
+     * Creates the sample of a virtual machine.
+     * 
+     * @param sampler                   The virtual machine sampler
+     * @param virtualMachineMonitor     The virtual machine monitor
+     * @param isSuspended               true if the virtual machine is suspended, false otherwise
+     * @return                          The sample
+     */
+    private static Callable<AggregatedVirtualMachineData> newSample(final VirtualMachineMonitoringSampler sampler,
+                                                                    final VirtualMachineMonitor virtualMachineMonitor,
+                                                                    final boolean isSuspended)
+    {
+        return new Callable<AggregatedVirtualMachineData>()
+        {
+            public AggregatedVirtualMachineData call() 
+                throws Exception
+            {
+                return sampler.sample(virtualMachineMonitor, isSuspended);
+            }
+        };
+    }
+    
+    /**
+     * Collects the timed out samples which returned in the meantime.
+     * 
+     * @param samplers      The virtual machines sampled on this tick
+     * @param batch         The batch to add the returned data to
+     * @param failures      The failures to add the failed virtual machines to
+     */
+    private void collectReturnedSamples(List<VirtualMachineMonitoringSampler> samplers,
+                                        List<AggregatedVirtualMachineData> batch,
+                                        List<VirtualMachineLocation> failures)
+    {
+        Map<String, VirtualMachineMonitoringSampler> samplerIndex = 
+            new HashMap<String, VirtualMachineMonitoringSampler>();
+        for (VirtualMachineMonitoringSampler sampler : samplers)
+        {
+            samplerIndex.put(sampler.getVirtualMachineId(), sampler);
+        }
+        
+        Iterator<Map.Entry<String, Future<AggregatedVirtualMachineData>>> iterator = 
+            timedOut_.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<String, Future<AggregatedVirtualMachineData>> entry = iterator.next();
+            if (!entry.getValue().isDone())
+            {
+                continue;
+            }
+            
+            log_.debug(String.format("Timed out sample of virtual machine %s returned", entry.getKey()));
+            iterator.remove();
+            VirtualMachineMonitoringSampler sampler = samplerIndex.get(entry.getKey());
+            if (sampler == null)
+            {
+                continue;
+            }
+            
+            try
+            {
+                AggregatedVirtualMachineData data = entry.getValue().get();
+                if (data != null)
+                {
+                    batch.add(data);
+                }
+            }
+            catch (ExecutionException exception)
+            {
+                log_.debug(String.format("Failed to generate virtual machine %s monitoring data: %s", 
+                                         entry.getKey(), exception.getCause().getMessage()));
+                failures.add(sampler.getVirtualMachineMetaData().getVirtualMachineLocation());
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Starts monitoring a virtual machine.
+     * 
+     * @param virtualMachineMetaData    The virtual machine meta data
+     * @return                          true if started, false if already monitored
+     */
+    @Override
+    public synchronized boolean start(VirtualMachineMetaData virtualMachineMetaData)
+    {
+        Guard.check(virtualMachineMetaData);
+        
+        String virtualMachineId = virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId();
+        if (samplers_.containsKey(virtualMachineId))
+        {
+            return false;
+        }
+        
+        int historySize = monitoring_.getMonitoringSettings().getNumberOfMonitoringEntries();
+        samplers_.put(virtualMachineId, new VirtualMachineMonitoringSampler(virtualMachineMetaData, historySize));
+        return true;
+    }
+
+    /**
+     * Suspends the monitoring data production of a virtual machine.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if suspended, false if not monitored
+     */
+    @Override
+    public synchronized boolean suspend(String virtualMachineId)
+    {
+        if (!samplers_.containsKey(virtualMachineId))
+        {
+            return false;
+        }
+        
+        suspended_.add(virtualMachineId);
+        return true;
+    }
+
+    /**
+     * Resumes the monitoring data production of a virtual machine.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if resumed, false if not monitored
+     */
+    @Override
+    public synchronized boolean resume(String virtualMachineId)
+    {
+        if (!samplers_.containsKey(virtualMachineId))
+        {
+            return false;
+        }
+        
+        suspended_.remove(virtualMachineId);
+        return true;
+    }
+
+    /**
+     * Stops monitoring a virtual machine.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if stopped, false if not monitored
+     */
+    @Override
+    public synchronized boolean stop(String virtualMachineId)
+    {
+        suspended_.remove(virtualMachineId);
+        failed_.remove(virtualMachineId);
+        return samplers_.remove(virtualMachineId) != null;
+    }
+
+    /**
+     * Checks if a virtual machine is monitored.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if monitored, false otherwise
+     */
+    @Override
+    public synchronized boolean isMonitored(String virtualMachineId)
+    {
+        return samplers_.containsKey(virtualMachineId);
+    }
+
+    /**
+     * Returns the number of monitored virtual machines.
+     * 
+     * @return                          The number of virtual machines
+     */
+    @Override
+    public synchronized int getNumberOfVirtualMachines()
+    {
+        return samplers_.size();
+    }
+    
+    /**
+     * Stops the scheduler and sampling threads.
+     */
+    public void shutdown()
+    {
+        scheduler_.shutdownNow();
+        samplingThread_.shutdownNow();
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.monitoring.producer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.service.InfrastructureMonitoring;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts one monitoring data producer thread per virtual machine.
+ * 
+ * @author Eugen Feller
+ */
+public final class ThreadMonitoringScheduler 
+    implements VirtualMachineMonitoringScheduler
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(ThreadMonitoringScheduler.class);
+    
+    /** Keeps track of the monitoring threads. */
+    private Map<String, VirtualMachineMonitorDataProducer> producerThreads_;
+    
+    /** Infrastructure monitoring. */
+    private InfrastructureMonitoring monitoring_;
+    
+    /** Data queue. */
+    private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
+    
+    /** Monitoring listener. */
+    private VirtualMachineMonitoringListener monitoringListener_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param monitoring            The infrastructure monitoring
+     * @param dataQueue             The data queue
+     * @param monitoringListener    The monitoring listener
+     */
+    public ThreadMonitoringScheduler(InfrastructureMonitoring monitoring,
+                                     BlockingQueue<AggregatedVirtualMachineData> dataQueue,
+                                     VirtualMachineMonitoringListener monitoringListener)
+    {
+        Guard.check(monitoring, dataQueue, monitoringListener);
+        log_.debug("Initializing the thread per virtual machine monitoring scheduler");
+        
+        monitoring_ = monitoring;
+        dataQueue_ = dataQueue;
+        monitoringListener_ = monitoringListener;
+        producerThreads_ = new HashMap<String, VirtualMachineMonitorDataProducer>();
+    }
+    
+    /**
+     * Starts monitoring a virtual machine.
+     * 
+     * @param virtualMachineMetaData    The virtual machine meta data
+     * @return                          true if started, false if already monitored
+     */
+    @Override
+    public synchronized boolean start(VirtualMachineMetaData virtualMachineMetaData)
+    {
+        Guard.check(virtualMachineMetaData);
+        
+        String virtualMachineId = virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId();
+        if (producerThreads_.containsKey(virtualMachineId))
+        {
+            return false;
+        }
+        
+        VirtualMachineMonitorDataProducer producer = 
+            new VirtualMachineMonitorDataProducer(virtualMachineMetaData, 
+                                                  monitoring_,
+                                                  dataQueue_,
+                                                  monitoringListener_);
+        producer.start();
+        producerThreads_.put(virtualMachineId, producer);
+        return true;
+    }
+
+    /**
+     * Suspends the monitoring data production of a virtual machine.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if suspended, false if not monitored
+     */
+    @Override
+    public synchronized boolean suspend(String virtualMachineId)
+    {
+        VirtualMachineMonitorDataProducer dataProducer = producerThreads_.get(virtualMachineId);
+        if (dataProducer == null)
+        {
+            return false;
+        }
+        
+        dataProducer.setSuspend();
+        return true;
+    }
+
+    /**
+     * Resumes the monitoring data production of a virtual machine.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if resumed, false if not monitored
+     */
+    @Override
+    public synchronized boolean resume(String virtualMachineId)
+    {
+        VirtualMachineMonitorDataProducer dataProducer = producerThreads_.get(virtualMachineId);
+        if (dataProducer == null)
+        {
+            return false;
+        }
+        
+        log_.debug("Calling wakeup on the producer!");
+        dataProducer.wakeup();
+        return true;
+    }
+
+    /**
+     * Stops monitoring a virtual machine.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if stopped, false if not monitored
+     */
+    @Override
+    public synchronized boolean stop(String virtualMachineId)
+    {
+        VirtualMachineMonitorDataProducer dataProducer = producerThreads_.remove(virtualMachineId);
+        if (dataProducer == null)
+        {
+            return false;
+        }
+        
+        dataProducer.terminate();
+        return true;
+    }
+
+    /**
+     * Checks if a virtual machine is monitored.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if monitored, false otherwise
+     */
+    @Override
+    public synchronized boolean isMonitored(String virtualMachineId)
+    {
+        return producerThreads_.containsKey(virtualMachineId);
+    }
+
+    /**
+     * Returns the number of monitored virtual machines.
+     * 
+     * @return                          The number of virtual machines
+     */
+    @Override
+    public synchronized int getNumberOfVirtualMachines()
+    {
+        return producerThreads_.size();
+    }
+}
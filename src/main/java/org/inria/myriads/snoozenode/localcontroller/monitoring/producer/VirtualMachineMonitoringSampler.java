@@ -0,0 +1,328 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.monitoring.producer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozenode.exception.HostMonitoringException;
+import org.inria.myriads.snoozenode.exception.VirtualMachineMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.NetworkDirection;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.NetworkTrafficInformation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.VirtualMachineInformation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Virtual machine monitoring sampler.
+ * 
+ * Keeps the sampling state of a single virtual machine and aggregates its
+ * monitoring data until the monitoring history is complete.
+ * 
+ * @author Eugen Feller
+ */
+public final class VirtualMachineMonitoringSampler 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(VirtualMachineMonitoringSampler.class);
+          
+    /** Position of the network interface. */
+    private static final int NETWORK_INTERFACE_POSITION = 0;
+    
+    /** Montioring data. */
+    private ArrayList<VirtualMachineMonitoringData> aggregatedData_;
+    
+    /** Virtual machine meta data. */
+    private VirtualMachineMetaData virtualMachineMetaData_;
+    
+    /** Number of monitoring entries to aggregate. */
+    private int historySize_;
+            
+    /** Indicates if a measurement interval is first. */
+    private boolean isFirst_;
+    
+    /** Timestamp of the last sample. */
+    private long lastSampleTime_;
+
+    /** Time difference. */
+    private long samplingTimeDifference_;
+
+    /** The cpu time stamp. */
+    private long cpuTimeStamp_;
+    
+    /** Network Rx traffic. */
+    private double networkRxBytes_;
+
+    /** Network Tx traffic. */
+    private double networkTxBytes_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param virtualMachineMetaData       The virtual machine meta data
+     * @param historySize                  The number of monitoring entries to aggregate
+     */
+    public VirtualMachineMonitoringSampler(VirtualMachineMetaData virtualMachineMetaData, int historySize) 
+    {   
+        Guard.check(virtualMachineMetaData);   
+        virtualMachineMetaData_ = virtualMachineMetaData;
+        historySize_ = historySize;
+        aggregatedData_ = new ArrayList<VirtualMachineMonitoringData>();
+        isFirst_ = true;
+    }
+    
+    /**
+     * Returns the virtual machine meta data.
+     * 
+     * @return  The virtual machine meta data
+     */
+    public VirtualMachineMetaData getVirtualMachineMetaData()
+    {
+        return virtualMachineMetaData_;
+    }
+    
+    /**
+     * Returns the virtual machine identifier.
+     * 
+     * @return  The virtual machine identifier
+     */
+    public String getVirtualMachineId()
+    {
+        return virtualMachineMetaData_.getVirtualMachineLocation().getVirtualMachineId();
+    }
+    
+    /**
+     * Samples the virtual machine.
+     * 
+     * The virtual machine is queried even if suspended, which detects virtual machines which are gone.
+     * 
+     * @param virtualMachineMonitor                 The virtual machine monitor
+     * @param isSuspended                           true if no monitoring data must be produced
+     * @return                                      The aggregated data once the history is complete, 
+     *                                              null otherwise
+     * @throws VirtualMachineMonitoringException    The virtual machine monitoring exception
+     * @throws HostMonitoringException              The host monitoring exception
+     */
+    public AggregatedVirtualMachineData sample(VirtualMachineMonitor virtualMachineMonitor, boolean isSuspended)
+        throws VirtualMachineMonitoringException, HostMonitoringException
+    {
+        String virtualMachineId = getVirtualMachineId();
+        if (!isFirst_)
+        {
+            samplingTimeDifference_ = System.nanoTime() - lastSampleTime_; 
+        }
+        
+        // this call allow us to know if the vm is still alive.
+        VirtualMachineInformation virtualMachineInformation = 
+            virtualMachineMonitor.getVirtualMachineInformation(virtualMachineId);
+        
+        AggregatedVirtualMachineData data = null;
+        if (!isSuspended)
+        {
+            VirtualMachineMonitoringData monitoringData = createDynamicMonitoringData(virtualMachineInformation);
+            
+            log_.debug(String.format("Size of aggregated virtual machnine %s monitoring data is %d / %d",
+                                     virtualMachineId, aggregatedData_.size(), historySize_));                
+            if (aggregatedData_.size() == historySize_)
+            {
+                log_.debug(String.format("Virtual machine %s monitoring data history is complete", 
+                                         virtualMachineId));
+                data = createAggregatedVirtualMachineData(aggregatedData_);
+                aggregatedData_.clear();
+            } else
+            {
+                log_.debug(String.format("Adding virtual machine %s monitoring data: %s to " +
+                                         "the local monitoring data list", 
+                                         virtualMachineId,
+                                         monitoringData.getUsedCapacity()));
+                aggregatedData_.add(monitoringData);
+            }
+        }
+        
+        lastSampleTime_ = System.nanoTime();
+        setGlobalUtilization(virtualMachineInformation); 
+        isFirst_ = false;
+        return data;
+    }
+    
+    /**
+     * Creates aggregated virtual machine data.
+     * 
+     * @param monitoringData    The monitoring data
+     * @return                  The aggregated virtual machine data
+     */
+    @SuppressWarnings("unchecked")
+    private AggregatedVirtualMachineData createAggregatedVirtualMachineData(ArrayList<VirtualMachineMonitoringData> 
+                                                                            monitoringData)
+    {
+        log_.debug("Creating aggregated virtual machine data object");
+              
+        ArrayList<VirtualMachineMonitoringData> clonedData =
+            (ArrayList<VirtualMachineMonitoringData>) monitoringData.clone();
+      
+        String virtualMachineId = getVirtualMachineId();
+        AggregatedVirtualMachineData aggregatedData = new AggregatedVirtualMachineData(virtualMachineId, 
+                                                                                       clonedData);
+        return aggregatedData;        
+    }
+    
+    /**
+     * Sets the global utilization variables.
+     * Note that only the first network interface is taken into account!
+     * 
+     * @param virtualMachineInformation     The virtual machine information
+     */
+    private void setGlobalUtilization(VirtualMachineInformation virtualMachineInformation)
+    {                   
+        cpuTimeStamp_ = virtualMachineInformation.getCpuTime();   
+        
+        List<NetworkTrafficInformation> networkTraffic = virtualMachineInformation.getNetworkTraffic();
+        if (networkTraffic != null)
+        {
+            networkRxBytes_ = networkTraffic.get(NETWORK_INTERFACE_POSITION).getNetworkDemand().getRxBytes();
+            networkTxBytes_ = networkTraffic.get(NETWORK_INTERFACE_POSITION).getNetworkDemand().getTxBytes();
+        }
+    }
+    
+    /**
+     * Creates a virtual machine data object.
+     * 
+     * @param information                           The domain information
+     * @return                                      The virtual machine data
+     * @throws VirtualMachineMonitoringException 
+     * @throws HostMonitoringException 
+     */
+    private VirtualMachineMonitoringData createDynamicMonitoringData(VirtualMachineInformation information)
+        throws VirtualMachineMonitoringException, HostMonitoringException
+    {        
+        ArrayList<Double> currentUtilization = getCurrentUtilization(information);
+        VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+        data.setUsedCapacity(currentUtilization);
+        return data;
+    }
+    
+    /**
+     * Computes the used capacity.
+     * 
+     * @param virtualMachineInformation             The virtual machine information
+     * @return                                      The used capacity vector
+     * @throws VirtualMachineMonitoringException 
+     * @throws HostMonitoringException 
+     */
+    private ArrayList<Double> getCurrentUtilization(VirtualMachineInformation virtualMachineInformation) 
+        throws VirtualMachineMonitoringException, HostMonitoringException
+    {
+        Guard.check(virtualMachineInformation);
+        
+        double cpuUtilization = 0;
+        double memoryUsage = 0;
+        double networkRxBytes = 0;
+        double networkTxBytes = 0;
+     
+        /**
+         * Make sure during first monitoring cycle no CPU and networking
+         * utilization is computed (values for cpuTimeStamp_ and networkTx/RxBytes_ are
+         * not available and result in 100% utilization)
+         */
+        if (!isFirst_)
+        {
+            cpuUtilization = computeProzessorUtilization(virtualMachineInformation.getCpuTime());        
+            memoryUsage = virtualMachineInformation.getMemoryUsage();
+            
+            // Only first interface is considered
+            List<NetworkTrafficInformation> networkTraffic = virtualMachineInformation.getNetworkTraffic();
+            if (networkTraffic != null)
+            {
+                double traffic = networkTraffic.get(NETWORK_INTERFACE_POSITION).
+                                                    getNetworkDemand().getRxBytes();
+                networkRxBytes = computeNetworkUtilization(traffic, NetworkDirection.Rx);
+                
+                traffic = networkTraffic.get(NETWORK_INTERFACE_POSITION).
+                                            getNetworkDemand().getTxBytes();
+                networkTxBytes = computeNetworkUtilization(traffic, NetworkDirection.Tx);
+            }      
+        }
+               
+        NetworkDemand networkDemand = new NetworkDemand(networkRxBytes, networkTxBytes);
+        ArrayList<Double> utilizationVector = MathUtils.createCustomVector(cpuUtilization,
+                                                                           memoryUsage,
+                                                                           networkDemand);
+        return utilizationVector;
+    }
+
+    /**
+     * Computes the CPU utilization.
+     * 
+     * @param currentCpuTime                        The current cpu time
+     * @return                                      The prozessor utilzation
+     * @throws VirtualMachineMonitoringException 
+     * @throws HostMonitoringException 
+     */
+    private double computeProzessorUtilization(long currentCpuTime) 
+        throws VirtualMachineMonitoringException, HostMonitoringException
+    {                  
+        long cpuTimeDiff = currentCpuTime - cpuTimeStamp_;
+        double cpuUsagePercentage = cpuTimeDiff / (samplingTimeDifference_ * 1.0);
+
+        if (cpuUsagePercentage < 0.0)
+        {
+            log_.debug("CPU utilization is NEGATIVE!");
+            cpuUsagePercentage = 0.0;
+        }
+              
+        return cpuUsagePercentage;
+    }
+       
+    /**
+     * Computes the network utilization.
+     * 
+     * @param currentNetworkTraffic     The current network utilization
+     * @param networkDirection          The network direction
+     * @return                          Number of kilobytes
+     */
+    private double computeNetworkUtilization(double currentNetworkTraffic, NetworkDirection networkDirection) 
+    {                
+        double networkTrafficDifference = 0.0;
+        switch (networkDirection)
+        {
+            case Rx :
+                networkTrafficDifference = currentNetworkTraffic - networkRxBytes_;
+                break;
+                
+            case Tx :
+                networkTrafficDifference = currentNetworkTraffic - networkTxBytes_;
+                break;
+                
+            default :
+                log_.error(String.format("Unknown network direction selected: %s", networkDirection));
+                return 0;
+        }
+        
+        double utilization = networkTrafficDifference / 1024;        
+        return utilization;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.localcontroller.monitoring.producer;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+
+/**
+ * Virtual machine monitoring scheduler interface.
+ * 
+ * Schedules the monitoring data producers of the virtual machines running on the local controller.
+ * 
+ * @author Eugen Feller
+ */
+public interface VirtualMachineMonitoringScheduler 
+{
+    /**
+     * Starts monitoring a virtual machine.
+     * 
+     * @param virtualMachineMetaData    The virtual machine meta data
+     * @return                          true if started, false if already monitored
+     */
+    boolean start(VirtualMachineMetaData virtualMachineMetaData);
+    
+    /**
+     * Suspends the monitoring data production of a virtual machine.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if suspended, false if not monitored
+     */
+    boolean suspend(String virtualMachineId);
+    
+    /**
+     * Resumes the monitoring data production of a virtual machine.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if resumed, false if not monitored
+     */
+    boolean resume(String virtualMachineId);
+    
+    /**
+     * Stops monitoring a virtual machine.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if stopped, false if not monitored
+     */
+    boolean stop(String virtualMachineId);
+    
+    /**
+     * Checks if a virtual machine is monitored.
+     * 
+     * @param virtualMachineId          The virtual machine identifier
+     * @return                          true if monitored, false otherwise
+     */
+    boolean isMonitored(String virtualMachineId);
+    
+    /**
+     * Returns the number of monitored virtual machines.
+     * 
+     * @return                          The number of virtual machines
+     */
+    int getNumberOfVirtualMachines();
+}
@@ -21,6 +21,7 @@ package org.inria.myriads.snoozenode.localcontroller.monitoring.service;
 
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.api.HostMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
 
 /**
@@ -36,6 +37,9 @@ public final class InfrastructureMonitoring
     /** Host monitoring. */
     private HostMonitor hostMonitor_;
     
+    /** Temperature monitoring. */
+    private TemperatureMonitor temperatureMonitor_;
+    
     /** Monitoring settings. */
     private MonitoringSettings monitoringSettings_;
    
@@ -44,14 +48,17 @@ public final class InfrastructureMonitoring
      * 
      * @param virtualMachineMonitor     The virtual machine monitor
      * @param hostMonitor               The host monitor
+     * @param temperatureMonitor        The temperature monitor
      * @param monitoringSettings        The monitoring settings
      */
     public InfrastructureMonitoring(VirtualMachineMonitor virtualMachineMonitor, 
                                     HostMonitor hostMonitor, 
+                                    TemperatureMonitor temperatureMonitor,
                                     MonitoringSettings monitoringSettings) 
     {
         virtualMachineMonitor_ = virtualMachineMonitor;
         hostMonitor_ = hostMonitor;
+        temperatureMonitor_ = temperatureMonitor;
         monitoringSettings_ = monitoringSettings;
     }
 
@@ -75,6 +82,16 @@ public final class InfrastructureMonitoring
         return hostMonitor_;
     }
     
+    /**
+     * Returns the temperature monitor.
+     * 
+     * @return  The temperature monitor
+     */
+    public TemperatureMonitor getTemperatureMonitor() 
+    {
+        return temperatureMonitor_;
+    }
+    
     /**
      * Returns the monitoring settings.
      * 
@@ -19,26 +19,27 @@
  */
 package org.inria.myriads.snoozenode.localcontroller.monitoring.service;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
-import org.inria.myriads.snoozecommon.communication.rest.CommunicatorFactory;
 import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
 import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
 import org.inria.myriads.snoozenode.database.api.LocalControllerRepository;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.MonitoringFactory;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.consumer.VirtualMachineMonitorDataConsumer;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.producer.VirtualMachineHeartbeatDataProducer;
-import org.inria.myriads.snoozenode.localcontroller.monitoring.producer.VirtualMachineMonitorDataProducer;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.producer.VirtualMachineMonitoringScheduler;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
 import org.inria.myriads.snoozenode.util.ManagementUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,8 +55,8 @@ public final class VirtualMachineMonitoringService
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(VirtualMachineMonitoringService.class);
     
-    /** Keeps track of the monitoring threads. */
-    private Map<String, VirtualMachineMonitorDataProducer> producerThreads_;
+    /** Keeps track of the monitored virtual machines. */
+    private VirtualMachineMonitoringScheduler monitoringScheduler_;
     
     /** Data queue. */
     private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
@@ -93,7 +94,11 @@ public final class VirtualMachineMonitoringService
         repository_ = repository;
         monitoring_ = monitoring;
         dataQueue_ = new LinkedBlockingQueue<AggregatedVirtualMachineData>();
-        producerThreads_ = Collections.synchronizedMap(new HashMap<String, VirtualMachineMonitorDataProducer>());
+        monitoringScheduler_ = 
+            MonitoringFactory.newVirtualMachineMonitoringScheduler(monitoring.getMonitoringSettings().getProducerType(),
+                                                                   monitoring, 
+                                                                   dataQueue_, 
+                                                                   this);
     }
 
     /**
@@ -124,10 +129,13 @@ public final class VirtualMachineMonitoringService
         log_.debug("Starting the virtual machine monitoring data consumer");
       
         MonitoringThresholds thresholds = monitoring_.getMonitoringSettings().getThresholds();
+        CodecType codecType = monitoring_.getMonitoringSettings().getCodecType();
         monitorDataConsumer_ = new VirtualMachineMonitorDataConsumer(localController_,
                                                                      groupManagerAddress, 
                                                                      dataQueue_,
                                                                      thresholds,
+                                                                     codecType,
+                                                                     monitoring_.getTemperatureMonitor(),
                                                                      this);
         new Thread(monitorDataConsumer_).start(); 
     }
@@ -157,7 +165,7 @@ public final class VirtualMachineMonitoringService
         log_.debug("Starting virtual machine monitoring");
         
         String virtualMachineId = virtualMachineMetaData.getVirtualMachineLocation().getVirtualMachineId();
-        if (producerThreads_.containsKey(virtualMachineId))
+        if (monitoringScheduler_.isMonitored(virtualMachineId))
         {
             log_.debug("This virtual machine is already beeing monitored!");
             return false;
@@ -172,14 +180,31 @@ public final class VirtualMachineMonitoringService
         }
         
         log_.debug(String.format("Starting monitoring of virtual machine: %s", virtualMachineId));
-        VirtualMachineMonitorDataProducer producer = 
-            new VirtualMachineMonitorDataProducer(virtualMachineMetaData, 
-                                                  monitoring_,
-                                                  dataQueue_,
-                                                  this);
-        producer.start();
-        producerThreads_.put(virtualMachineId, producer);
-        return true;
+        monitoring_.getVirtualMachineMonitor().invalidate(virtualMachineId);
+        return monitoringScheduler_.start(virtualMachineMetaData);
+    }
+
+    /**
+     * Starts monitoring of a batch of virtual machines.
+     * 
+     * @param virtualMachines   The virtual machines
+     * @return                  The virtual machines whose monitoring failed to start
+     */
+    public synchronized List<VirtualMachineMetaData> start(List<VirtualMachineMetaData> virtualMachines) 
+    {
+        Guard.check(virtualMachines);
+        log_.debug(String.format("Starting monitoring of %d virtual machines", virtualMachines.size()));
+        
+        List<VirtualMachineMetaData> failed = new ArrayList<VirtualMachineMetaData>();
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            if (!start(virtualMachine))
+            {
+                failed.add(virtualMachine);
+            }
+        }
+        
+        return failed;
     }
 
     /**
@@ -191,17 +216,15 @@ public final class VirtualMachineMonitoringService
     public synchronized boolean suspend(String virtualMachineId)
     {
         Guard.check(virtualMachineId);
+        log_.debug(String.format("Suspending virtual machine %s monitoring", virtualMachineId));
         
-        VirtualMachineMonitorDataProducer dataProducer = producerThreads_.get(virtualMachineId);
-        if (dataProducer == null)
+        boolean isSuspended = monitoringScheduler_.suspend(virtualMachineId);
+        if (!isSuspended)
         {
             log_.error("No monitoring loop exists for this virtual machine");
-            return false;
         }
-
-        log_.debug(String.format("Suspending virtual machine %s monitoring", virtualMachineId));
-        dataProducer.setSuspend();  
-        return true;
+        
+        return isSuspended;
     }
 
     /**
@@ -215,16 +238,13 @@ public final class VirtualMachineMonitoringService
         Guard.check(virtualMachineId);
         log_.debug(String.format("Resuming virtual machine %s monitoring", virtualMachineId));
         
-        VirtualMachineMonitorDataProducer dataProducer = producerThreads_.get(virtualMachineId);
-        if (dataProducer == null)
+        boolean isResumed = monitoringScheduler_.resume(virtualMachineId);
+        if (!isResumed)
         {
             log_.error("No monitoring loop exists for this virtual machine");
-            return false;
         }
         
-        log_.debug("Calling wakeup on the producer!");
-        dataProducer.wakeup();
-        return true; 
+        return isResumed; 
     }
     
     /**
@@ -238,16 +258,14 @@ public final class VirtualMachineMonitoringService
         Guard.check(virtualMachineId);
         log_.debug(String.format("Stopping virtual machine %s monitoring", virtualMachineId));
        
-        VirtualMachineMonitorDataProducer monitorProducer = producerThreads_.get(virtualMachineId);
-        if (monitorProducer == null)
+        monitoring_.getVirtualMachineMonitor().invalidate(virtualMachineId);
+        boolean isStopped = monitoringScheduler_.stop(virtualMachineId);
+        if (!isStopped)
         {
             log_.debug("No monitoring loop exists for this virtual machine");
-            return false;
         }
         
-        monitorProducer.terminate();
-        producerThreads_.remove(virtualMachineId);
-        return true;
+        return isStopped;
     }
 
     /**
@@ -290,15 +308,25 @@ public final class VirtualMachineMonitoringService
            return false;
         }
        
-        VirtualMachineMonitorDataProducer producer = new VirtualMachineMonitorDataProducer(metaData, 
-                                                                                           monitoring_, 
-                                                                                           dataQueue_, 
-                                                                                           this);
-        producer.start();
-        producerThreads_.put(metaData.getVirtualMachineLocation().getVirtualMachineId(), producer);
+        monitoringScheduler_.stop(virtualMachineId);
+        monitoring_.getVirtualMachineMonitor().invalidate(virtualMachineId);
+        monitoringScheduler_.start(metaData);
         return false;
     }
     
+    /**
+     * Refreshes the cached meta data of a virtual machine.
+     * (e.g. after a resize or reboot)
+     * 
+     * @param virtualMachineId      The virtual machine identifier
+     */
+    public void refresh(String virtualMachineId)
+    {
+        Guard.check(virtualMachineId);
+        log_.debug(String.format("Refreshing virtual machine %s monitoring meta data", virtualMachineId));
+        monitoring_.getVirtualMachineMonitor().invalidate(virtualMachineId);
+    }
+    
     /**
      * Returns the amount of active virtual machines.
      * 
@@ -307,7 +335,7 @@ public final class VirtualMachineMonitoringService
     @Override
     public int getNumberOfActiveVirtualMachines()
     {
-        return producerThreads_.size();
+        return monitoringScheduler_.getNumberOfVirtualMachines();
     }
     
     /**
@@ -338,7 +366,7 @@ public final class VirtualMachineMonitoringService
         log_.debug(String.format("Dropping virtual machine meta data for: %s", virtualMachineId));
         
         GroupManagerAPI comminucator = 
-            CommunicatorFactory.newGroupManagerCommunicator(metaData.getGroupManagerControlDataAddress());
+            NodeCommunicatorFactory.newGroupManagerCommunicator(metaData.getGroupManagerControlDataAddress());
         boolean isDropped = comminucator.dropVirtualMachineMetaData(location);
         if (!isDropped)
         {
@@ -26,6 +26,8 @@ import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.Vi
 import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.MathUtils;
 import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.exception.HostMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
 import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
@@ -50,20 +52,26 @@ public final class ThresholdCrossingDetector
     /** Total capacity. */
     private List<Double> totalCapacity_;
     
+    /** Temperature monitor. */
+    private TemperatureMonitor temperatureMonitor_;
+    
     /**
      * Constructor.
      * 
      * @param monitoringThresholds  The monitoring thresholds
      * @param totalCapacity         The total local controller capacity
+     * @param temperatureMonitor    The temperature monitor
      */
     public ThresholdCrossingDetector(MonitoringThresholds monitoringThresholds, 
-                                     List<Double> totalCapacity)
+                                     List<Double> totalCapacity,
+                                     TemperatureMonitor temperatureMonitor)
     {
-        Guard.check(monitoringThresholds, totalCapacity);
+        Guard.check(monitoringThresholds, totalCapacity, temperatureMonitor);
         log_.debug("Initializing the threshold crossing detector");
         
         monitoringThresholds_ = monitoringThresholds;
         totalCapacity_ = totalCapacity;
+        temperatureMonitor_ = temperatureMonitor;
     }
     
     /**
@@ -282,13 +290,28 @@ public final class ThresholdCrossingDetector
             hostUtilization = MathUtils.addVectors(hostUtilization, virtualMachineUtilization);
         }
         
-        
-        double cpuTemp = CpuTemperature.getTemperature();
-        hostUtilization.add(cpuTemp);
-        
+        hostUtilization.add(getCpuTemperature());
         return hostUtilization;
     }
     
+    /**
+     * Returns the CPU temperature.
+     * 
+     * @return      The temperature (NaN if unavailable, which never triggers an overheat)
+     */
+    private double getCpuTemperature()
+    {
+        try
+        {
+            return temperatureMonitor_.getTemperature();
+        }
+        catch (HostMonitoringException exception)
+        {
+            log_.debug(String.format("CPU temperature is unavailable: %s", exception.getMessage()));
+            return Double.NaN;
+        }
+    }
+    
     /**
      * Computes average virtual machine utilization.
      * 
@@ -29,6 +29,7 @@ import org.inria.myriads.snoozecommon.guard.Guard;
 import org.inria.myriads.snoozecommon.util.ErrorUtils;
 import org.inria.myriads.snoozecommon.util.LoggerUtils;
 import org.inria.myriads.snoozenode.bootstrap.BootstrapBackend;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
 import org.inria.myriads.snoozenode.configurator.NodeConfiguratorFactory;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
 import org.inria.myriads.snoozenode.configurator.api.NodeConfigurator;
@@ -176,6 +177,7 @@ public final class Main
         
         Engine.getInstance().getRegisteredClients().clear();
         Engine.getInstance().getRegisteredClients().add(new HttpClientHelper(null)); 
+        NodeCommunicatorFactory.configure(configuration.getHTTPd());
         
         component.getClients().add(Protocol.HTTP);
         Server jettyServer = new Server(context,
@@ -191,11 +193,14 @@ public final class Main
     
     /** 
      * Main routine to start the node.
+     * 
+     * Several nodes can be started in the same JVM as long as their ports differ.
      *  
      * @param nodeConfiguration    The node configuration
+     * @return                     The handle on the started node
      * @throws Exception 
      */
-    private static void startNode(NodeConfiguration nodeConfiguration) 
+    public static NodeHandle startNode(NodeConfiguration nodeConfiguration) 
         throws Exception 
     {
         Guard.check(nodeConfiguration);
@@ -206,6 +211,7 @@ public final class Main
         initializeRESTletComponent(component, context, nodeConfiguration);
         
         Application application = null;
+        NodeBackend backend = null;
         NodeRole nodeRole = nodeConfiguration.getNode().getRole();
         switch (nodeRole) 
         {
@@ -215,6 +221,7 @@ public final class Main
                 attachApplication(component, application);
                 BootstrapBackend bootstrap = new BootstrapBackend(nodeConfiguration);
                 context.getAttributes().put("backend", bootstrap);
+                backend = bootstrap;
                 break;
 
             case groupmanager :
@@ -223,6 +230,7 @@ public final class Main
                 attachApplication(component, application);
                 GroupManagerBackend groupmanager = new GroupManagerBackend(nodeConfiguration);
                 context.getAttributes().put("backend", groupmanager);
+                backend = groupmanager;
                 break;
 
             case localcontroller :
@@ -231,11 +239,14 @@ public final class Main
                 attachApplication(component, application);
                 LocalControllerBackend localcontroller = new LocalControllerBackend(nodeConfiguration);
                 context.getAttributes().put("backend", localcontroller);
+                backend = localcontroller;
                 break;
     
             default:
                 log_.error(String.format("This node role is not supported: %s", nodeRole));
         }
+        
+        return new NodeHandle(component, backend);
     }
 
     /**
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.main;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.restlet.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handle on a started node.
+ * 
+ * @author Eugen Feller
+ */
+public final class NodeHandle 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(NodeHandle.class);
+    
+    /** The RESTlet component. */
+    private Component component_;
+    
+    /** The node backend. */
+    private NodeBackend backend_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param component     The RESTlet component
+     * @param backend       The node backend (null if the role has none)
+     */
+    public NodeHandle(Component component, NodeBackend backend)
+    {
+        Guard.check(component);
+        component_ = component;
+        backend_ = backend;
+    }
+    
+    /**
+     * Returns the RESTlet component.
+     * 
+     * @return  The RESTlet component
+     */
+    public Component getComponent()
+    {
+        return component_;
+    }
+    
+    /**
+     * Returns the node backend.
+     * 
+     * @return  The node backend, null if the role has none
+     */
+    public NodeBackend getBackend()
+    {
+        return backend_;
+    }
+    
+    /**
+     * Stops the RESTlet component and then the backend services.
+     * 
+     * @throws Exception    The exception
+     */
+    public void stop() 
+        throws Exception
+    {
+        log_.debug("Stopping the node");
+        try
+        {
+            component_.stop();
+        }
+        finally
+        {
+            if (backend_ != null)
+            {
+                backend_.stopServices();
+            }
+        }
+    }
+}
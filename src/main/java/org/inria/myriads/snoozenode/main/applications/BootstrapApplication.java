@@ -20,6 +20,7 @@
 package org.inria.myriads.snoozenode.main.applications;
 
 import org.inria.myriads.snoozenode.bootstrap.BootstrapResource;
+import org.inria.myriads.snoozenode.metrics.MetricsResource;
 import org.restlet.Application;
 import org.restlet.Context;
 import org.restlet.Restlet;
@@ -59,6 +60,7 @@ public final class BootstrapApplication extends Application
     {  
          Router router = new Router(getContext());  
          router.attach("/bootstrap", BootstrapResource.class); 
+         router.attach("/metrics", MetricsResource.class);
          return router;  
     }
 }
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic event counter.
+ * 
+ * @author Eugen Feller
+ */
+public final class Counter 
+{
+    /** The value. */
+    private AtomicLong value_;
+    
+    /**
+     * Constructor.
+     */
+    public Counter()
+    {
+        value_ = new AtomicLong();
+    }
+    
+    /**
+     * Increments the counter.
+     */
+    public void increment()
+    {
+        value_.incrementAndGet();
+    }
+    
+    /**
+     * Adds to the counter.
+     * 
+     * @param delta     The delta
+     */
+    public void add(long delta)
+    {
+        value_.addAndGet(delta);
+    }
+    
+    /**
+     * Returns the value.
+     * 
+     * @return  The value
+     */
+    public long getValue()
+    {
+        return value_.get();
+    }
+}
@@ -17,20 +17,19 @@
  * You should have received a copy of the GNU General Public License
  * along with this program; if not, see <http://www.gnu.org/licenses>.
  */
-package org.inria.myriads.snoozenode.executor.listener;
+package org.inria.myriads.snoozenode.metrics;
 
-/** 
- * Execution listener. 
+/**
+ * Gauge interface, sampled when a snapshot is taken.
  * 
  * @author Eugen Feller
- *
  */
-public interface ExecutorListener 
+public interface Gauge 
 {
     /**
-     * Called on command execution.
+     * Returns the current value.
      * 
-     * @param result     true if everything ok, false otherwise
+     * @return  The value
      */
-    void onCommandExecuted(boolean result);
+    long getValue();
 }
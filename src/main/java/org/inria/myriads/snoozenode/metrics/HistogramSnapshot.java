@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.metrics;
+
+import java.io.Serializable;
+
+/**
+ * Latency histogram snapshot.
+ * 
+ * @author Eugen Feller
+ */
+public final class HistogramSnapshot 
+    implements Serializable
+{
+    /** Serial version. */
+    private static final long serialVersionUID = 1L;
+    
+    /** Number of recorded values. */
+    private long count_;
+    
+    /** Mean value (us). */
+    private double mean_;
+    
+    /** Maximum value (us). */
+    private long max_;
+    
+    /** 50th percentile (us). */
+    private long p50_;
+    
+    /** 90th percentile (us). */
+    private long p90_;
+    
+    /** 99th percentile (us). */
+    private long p99_;
+    
+    /** 99.9th percentile (us). */
+    private long p999_;
+    
+    /**
+     * Returns the number of recorded values.
+     * 
+     * @return  The number of recorded values
+     */
+    public long getCount() 
+    {
+        return count_;
+    }
+    
+    /**
+     * Sets the number of recorded values.
+     * 
+     * @param count    The number of recorded values
+     */
+    public void setCount(long count) 
+    {
+        count_ = count;
+    }
+    
+    /**
+     * Returns the mean value (us).
+     * 
+     * @return  The mean value (us)
+     */
+    public double getMean() 
+    {
+        return mean_;
+    }
+    
+    /**
+     * Sets the mean value (us).
+     * 
+     * @param mean    The mean value (us)
+     */
+    public void setMean(double mean) 
+    {
+        mean_ = mean;
+    }
+    
+    /**
+     * Returns the maximum value (us).
+     * 
+     * @return  The maximum value (us)
+     */
+    public long getMax() 
+    {
+        return max_;
+    }
+    
+    /**
+     * Sets the maximum value (us).
+     * 
+     * @param max    The maximum value (us)
+     */
+    public void setMax(long max) 
+    {
+        max_ = max;
+    }
+    
+    /**
+     * Returns the 50th percentile (us).
+     * 
+     * @return  The 50th percentile (us)
+     */
+    public long getP50() 
+    {
+        return p50_;
+    }
+    
+    /**
+     * Sets the 50th percentile (us).
+     * 
+     * @param p50    The 50th percentile (us)
+     */
+    public void setP50(long p50) 
+    {
+        p50_ = p50;
+    }
+    
+    /**
+     * Returns the 90th percentile (us).
+     * 
+     * @return  The 90th percentile (us)
+     */
+    public long getP90() 
+    {
+        return p90_;
+    }
+    
+    /**
+     * Sets the 90th percentile (us).
+     * 
+     * @param p90    The 90th percentile (us)
+     */
+    public void setP90(long p90) 
+    {
+        p90_ = p90;
+    }
+    
+    /**
+     * Returns the 99th percentile (us).
+     * 
+     * @return  The 99th percentile (us)
+     */
+    public long getP99() 
+    {
+        return p99_;
+    }
+    
+    /**
+     * Sets the 99th percentile (us).
+     * 
+     * @param p99    The 99th percentile (us)
+     */
+    public void setP99(long p99) 
+    {
+        p99_ = p99;
+    }
+    
+    /**
+     * Returns the 99.9th percentile (us).
+     * 
+     * @return  The 99.9th percentile (us)
+     */
+    public long getP999() 
+    {
+        return p999_;
+    }
+    
+    /**
+     * Sets the 99.9th percentile (us).
+     * 
+     * @param p999    The 99.9th percentile (us)
+     */
+    public void setP999(long p999) 
+    {
+        p999_ = p999;
+    }
+}
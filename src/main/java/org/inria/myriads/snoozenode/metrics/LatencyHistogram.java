@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear latency histogram (HDR-style).
+ * 
+ * Values are recorded in microseconds. Every power of two is split into 
+ * 2^SUB_BUCKET_BITS linear sub-buckets, which bounds the relative error of
+ * the reported percentiles to about 3%. Recording is lock-free and costs 
+ * a few atomic increments, so it can be used on hot paths.
+ * 
+ * @author Eugen Feller
+ */
+public final class LatencyHistogram 
+{
+    /** Number of bits used for the linear sub-buckets. */
+    private static final int SUB_BUCKET_BITS = 5;
+    
+    /** Number of sub-buckets per power of two. */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    
+    /** Highest trackable power of two (2^40 us is about 12 days). */
+    private static final int MAX_EXPONENT = 40;
+    
+    /** Highest trackable value. */
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    
+    /** Number of buckets. */
+    private static final int NUMBER_OF_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+    
+    /** Bucket counts. */
+    private AtomicLongArray counts_;
+    
+    /** Sum of the recorded values. */
+    private AtomicLong sum_;
+    
+    /** Maximum recorded value. */
+    private AtomicLong max_;
+    
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram()
+    {
+        counts_ = new AtomicLongArray(NUMBER_OF_BUCKETS);
+        sum_ = new AtomicLong();
+        max_ = new AtomicLong();
+    }
+    
+    /**
+     * Records a value.
+     * 
+     * @param value     The value (us)
+     */
+    public void record(long value)
+    {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts_.incrementAndGet(getBucketIndex(clamped));
+        sum_.addAndGet(clamped);
+        
+        long max = max_.get();
+        while (clamped > max && !max_.compareAndSet(max, clamped))
+        {
+            max = max_.get();
+        }
+    }
+    
+    /**
+     * Records the time elapsed since a start time.
+     * 
+     * @param startTime     The start time (System.nanoTime())
+     */
+    public void recordSince(long startTime)
+    {
+        record((System.nanoTime() - startTime) / 1000);
+    }
+    
+    /**
+     * Takes a snapshot.
+     * 
+     * @return  The histogram snapshot
+     */
+    public HistogramSnapshot getSnapshot()
+    {
+        long[] counts = new long[NUMBER_OF_BUCKETS];
+        long count = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++)
+        {
+            counts[i] = counts_.get(i);
+            count += counts[i];
+        }
+        
+        HistogramSnapshot snapshot = new HistogramSnapshot();
+        snapshot.setCount(count);
+        if (count == 0)
+        {
+            return snapshot;
+        }
+        
+        long max = max_.get();
+        snapshot.setMax(max);
+        snapshot.setMean(sum_.get() / (double) count);
+        snapshot.setP50(getPercentile(counts, count, 0.5, max));
+        snapshot.setP90(getPercentile(counts, count, 0.9, max));
+        snapshot.setP99(getPercentile(counts, count, 0.99, max));
+        snapshot.setP999(getPercentile(counts, count, 0.999, max));
+        return snapshot;
+    }
+    
+    /**
+     * Computes a percentile.
+     * 
+     * @param counts        The bucket counts
+     * @param count         The total count
+     * @param percentile    The percentile (0..1)
+     * @param max           The maximum recorded value
+     * @return              The highest value equivalent to the percentile bucket
+     */
+    private static long getPercentile(long[] counts, long count, double percentile, long max)
+    {
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank)
+            {
+                return Math.min(getHighestValue(i), max);
+            }
+        }
+        
+        return max;
+    }
+    
+    /**
+     * Returns the bucket index of a value.
+     * 
+     * @param value     The value
+     * @return          The bucket index
+     */
+    static int getBucketIndex(long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+    
+    /**
+     * Returns the highest value of a bucket.
+     * 
+     * @param index     The bucket index
+     * @return          The highest value
+     */
+    static long getHighestValue(int index)
+    {
+        if (index < SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+        
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowestValue = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.metrics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Metrics factory.
+ * 
+ * Holds the registry shared by all components of the node, so hot paths 
+ * can record without the registry being passed through every constructor.
+ * 
+ * @author Eugen Feller
+ */
+public final class MetricsFactory 
+{
+    /** The node metrics registry. */
+    private static final MetricsRegistry registry_ = newMetricsRegistry();
+    
+    /**
+     * Hide the consturctor.
+     */
+    private MetricsFactory() 
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Returns the node metrics registry.
+     * 
+     * @return  The metrics registry
+     */
+    public static MetricsRegistry getRegistry()
+    {
+        return registry_;
+    }
+    
+    /**
+     * Creates a new metrics registry with the JVM gauges registered.
+     * 
+     * @return  The metrics registry
+     */
+    public static MetricsRegistry newMetricsRegistry()
+    {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.registerGauge("jvm.memory.used", new Gauge()
+        {
+            public long getValue()
+            {
+                Runtime runtime = Runtime.getRuntime();
+                return runtime.totalMemory() - runtime.freeMemory();
+            }
+        });
+        registry.registerGauge("jvm.threads", new Gauge()
+        {
+            public long getValue()
+            {
+                return ManagementFactory.getThreadMXBean().getThreadCount();
+            }
+        });
+        return registry;
+    }
+}
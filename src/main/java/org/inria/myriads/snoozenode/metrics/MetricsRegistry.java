@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metrics registry.
+ * 
+ * Counters and histograms are created on first use and live as long as the
+ * registry. Gauges are registered by their owners and replaced when an owner
+ * with the same metric name is re-created.
+ * 
+ * @author Eugen Feller
+ */
+public final class MetricsRegistry 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(MetricsRegistry.class);
+    
+    /** Counters. */
+    private ConcurrentMap<String, Counter> counters_;
+    
+    /** Gauges. */
+    private ConcurrentMap<String, Gauge> gauges_;
+    
+    /** Latency histograms. */
+    private ConcurrentMap<String, LatencyHistogram> histograms_;
+    
+    /**
+     * Constructor.
+     */
+    public MetricsRegistry()
+    {
+        counters_ = new ConcurrentHashMap<String, Counter>();
+        gauges_ = new ConcurrentHashMap<String, Gauge>();
+        histograms_ = new ConcurrentHashMap<String, LatencyHistogram>();
+    }
+    
+    /**
+     * Returns a counter, creating it if needed.
+     * 
+     * @param name  The metric name
+     * @return      The counter
+     */
+    public Counter getCounter(String name)
+    {
+        Guard.check(name);
+        Counter counter = counters_.get(name);
+        if (counter == null)
+        {
+            counters_.putIfAbsent(name, new Counter());
+            counter = counters_.get(name);
+        }
+        
+        return counter;
+    }
+    
+    /**
+     * Returns a latency histogram, creating it if needed.
+     * 
+     * @param name  The metric name
+     * @return      The latency histogram
+     */
+    public LatencyHistogram getHistogram(String name)
+    {
+        Guard.check(name);
+        LatencyHistogram histogram = histograms_.get(name);
+        if (histogram == null)
+        {
+            histograms_.putIfAbsent(name, new LatencyHistogram());
+            histogram = histograms_.get(name);
+        }
+        
+        return histogram;
+    }
+    
+    /**
+     * Registers a gauge.
+     * 
+     * @param name      The metric name
+     * @param gauge     The gauge
+     */
+    public void registerGauge(String name, Gauge gauge)
+    {
+        Guard.check(name, gauge);
+        log_.debug(String.format("Registering gauge: %s", name));
+        gauges_.put(name, gauge);
+    }
+    
+    /**
+     * Unregisters a gauge.
+     * 
+     * @param name      The metric name
+     * @param gauge     The gauge (only removed if still registered)
+     */
+    public void unregisterGauge(String name, Gauge gauge)
+    {
+        Guard.check(name, gauge);
+        gauges_.remove(name, gauge);
+    }
+    
+    /**
+     * Takes a snapshot of all metrics.
+     * 
+     * @return  The metrics snapshot
+     */
+    public MetricsSnapshot getSnapshot()
+    {
+        MetricsSnapshot snapshot = new MetricsSnapshot();
+        snapshot.setTimeStamp(System.currentTimeMillis());
+        for (Map.Entry<String, Counter> entry : counters_.entrySet())
+        {
+            snapshot.getCounters().put(entry.getKey(), entry.getValue().getValue());
+        }
+        
+        for (Map.Entry<String, Gauge> entry : gauges_.entrySet())
+        {
+            try
+            {
+                snapshot.getGauges().put(entry.getKey(), entry.getValue().getValue());
+            }
+            catch (RuntimeException exception)
+            {
+                log_.warn(String.format("Unable to sample gauge %s: %s", entry.getKey(), exception.getMessage()));
+            }
+        }
+        
+        for (Map.Entry<String, LatencyHistogram> entry : histograms_.entrySet())
+        {
+            snapshot.getHistograms().put(entry.getKey(), entry.getValue().getSnapshot());
+        }
+        
+        return snapshot;
+    }
+}
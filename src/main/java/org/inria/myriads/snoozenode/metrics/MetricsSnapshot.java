@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.metrics;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Metrics snapshot.
+ * 
+ * @author Eugen Feller
+ */
+public final class MetricsSnapshot 
+    implements Serializable
+{
+    /** Serial version. */
+    private static final long serialVersionUID = 1L;
+    
+    /** Snapshot time stamp (ms). */
+    private long timeStamp_;
+    
+    /** Counter values. */
+    private Map<String, Long> counters_;
+    
+    /** Gauge values. */
+    private Map<String, Long> gauges_;
+    
+    /** Histogram snapshots. */
+    private Map<String, HistogramSnapshot> histograms_;
+    
+    /**
+     * Constructor.
+     */
+    public MetricsSnapshot()
+    {
+        counters_ = new TreeMap<String, Long>();
+        gauges_ = new TreeMap<String, Long>();
+        histograms_ = new TreeMap<String, HistogramSnapshot>();
+    }
+    
+    /**
+     * Returns the time stamp.
+     * 
+     * @return  The time stamp (ms)
+     */
+    public long getTimeStamp() 
+    {
+        return timeStamp_;
+    }
+    
+    /**
+     * Sets the time stamp.
+     * 
+     * @param timeStamp     The time stamp (ms)
+     */
+    public void setTimeStamp(long timeStamp) 
+    {
+        timeStamp_ = timeStamp;
+    }
+    
+    /**
+     * Returns the counter values.
+     * 
+     * @return  The counter values
+     */
+    public Map<String, Long> getCounters() 
+    {
+        return counters_;
+    }
+    
+    /**
+     * Sets the counter values.
+     * 
+     * @param counters  The counter values
+     */
+    public void setCounters(Map<String, Long> counters) 
+    {
+        counters_ = counters;
+    }
+    
+    /**
+     * Returns the gauge values.
+     * 
+     * @return  The gauge values
+     */
+    public Map<String, Long> getGauges() 
+    {
+        return gauges_;
+    }
+    
+    /**
+     * Sets the gauge values.
+     * 
+     * @param gauges    The gauge values
+     */
+    public void setGauges(Map<String, Long> gauges) 
+    {
+        gauges_ = gauges;
+    }
+    
+    /**
+     * Returns the histogram snapshots.
+     * 
+     * @return  The histogram snapshots
+     */
+    public Map<String, HistogramSnapshot> getHistograms() 
+    {
+        return histograms_;
+    }
+    
+    /**
+     * Sets the histogram snapshots.
+     * 
+     * @param histograms    The histogram snapshots
+     */
+    public void setHistograms(Map<String, HistogramSnapshot> histograms) 
+    {
+        histograms_ = histograms;
+    }
+}
@@ -0,0 +1,427 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.tcpip.codec.BinaryDecoder;
+import org.inria.myriads.snoozenode.tcpip.codec.BinaryFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Multiplexed connection.
+ * 
+ * Holds the per-connection decoding state. The selector thread appends the
+ * received bytes and follows the frame boundaries of the binary format. The
+ * connection is handed to the shared decoder pool only once a complete frame
+ * is buffered, so decoding never blocks on a slow peer. Serialization streams
+ * carry no frame lengths and are rejected, since they would need a thread of
+ * their own.
+ * 
+ * @author Eugen Feller
+ */
+public final class MultiplexedConnection 
+    implements Runnable
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(MultiplexedConnection.class);
+    
+    /** Number of bytes of the stream magic number. */
+    private static final int MAGIC_SIZE = 2;
+    
+    /** Number of bytes of a frame length. */
+    private static final int LENGTH_SIZE = 4;
+    
+    /**
+     * Position in the received stream.
+     */
+    private enum StreamState
+    {
+        /** Reading the magic number. */
+        MAGIC,
+        
+        /** Reading the binary format version. */
+        VERSION,
+        
+        /** Reading a frame length. */
+        LENGTH,
+        
+        /** Reading a frame payload. */
+        PAYLOAD,
+        
+        /** Serialization stream (no frame boundaries, rejected). */
+        SERIALIZATION
+    }
+    
+    /** Socket channel. */
+    private SocketChannel channel_;
+    
+    /** Data listener. */
+    private DataListener dataHandler_;
+    
+    /** Decoder pool. */
+    private Executor decoderPool_;
+    
+    /** Received bytes. */
+    private MultiplexedInputStream inputStream_;
+    
+    /** Binary decoder (created upon the first complete frame). */
+    private BinaryDecoder decoder_;
+    
+    /** Identifier (host address + port). */
+    private String id_;
+    
+    /** Stream state (selector thread only). */
+    private StreamState state_;
+    
+    /** Number of bytes read of the current magic number or frame length (selector thread only). */
+    private int position_;
+    
+    /** Magic number or frame length being read (selector thread only). */
+    private int value_;
+    
+    /** Remaining payload bytes of the current frame (selector thread only). */
+    private int remainingPayload_;
+    
+    /** Number of complete frames not decoded yet. */
+    private int numberOfFrames_;
+    
+    /** Signals a scheduled decoding task. */
+    private boolean isDecoding_;
+    
+    /** Signals closed connection. */
+    private boolean isClosed_;
+    
+    /** Selector thread the connection is registered with. */
+    private volatile MultiplexedSelectorThread selectorThread_;
+    
+    /** Time of the last data arrival. */
+    private volatile long lastActivity_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param channel       The socket channel
+     * @param dataHandler   The data handler
+     * @param decoderPool   The decoder pool
+     */
+    public MultiplexedConnection(SocketChannel channel, DataListener dataHandler, Executor decoderPool)
+    {
+        Guard.check(channel, dataHandler, decoderPool);
+        
+        channel_ = channel;
+        dataHandler_ = dataHandler;
+        decoderPool_ = decoderPool;
+        inputStream_ = new MultiplexedInputStream();
+        state_ = StreamState.MAGIC;
+        lastActivity_ = System.currentTimeMillis();
+        
+        Socket socket = channel.socket();
+        id_ = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+    }
+    
+    /**
+     * Called by the selector thread upon data arrival.
+     * 
+     * @param buffer    The received data
+     */
+    public void onBytesReceived(ByteBuffer buffer)
+    {
+        lastActivity_ = System.currentTimeMillis();
+        
+        int numberOfFrames;
+        try
+        {
+            numberOfFrames = countCompleteFrames(buffer.duplicate());
+        }
+        catch (IOException exception)
+        {
+            log_.debug(String.format("Invalid stream on %s: %s! Treating it as failure!", 
+                                     id_, exception.getMessage()));
+            close(true);
+            return;
+        }
+        
+        if (state_ == StreamState.SERIALIZATION)
+        {
+            log_.error(String.format("Connection %s uses the serialization codec, which the multiplexed receiver " +
+                                     "does not support! Set monitoring.codec = binary on the sending node", id_));
+            close(true);
+            return;
+        }
+        
+        inputStream_.write(buffer);
+        
+        synchronized (this)
+        {
+            numberOfFrames_ += numberOfFrames;
+            if (numberOfFrames_ == 0 || isDecoding_ || isClosed_)
+            {
+                return;
+            }
+            
+            isDecoding_ = true;
+        }
+        
+        try
+        {
+            decoderPool_.execute(this);
+        }
+        catch (RejectedExecutionException exception)
+        {
+            log_.debug(String.format("Decoder pool rejected connection %s! Closing", id_));
+            close(false);
+        }
+    }
+    
+    /**
+     * Follows the stream structure and counts the frames completed by the received bytes.
+     * 
+     * @param buffer        The received data
+     * @return              The number of completed frames
+     * @throws IOException  The I/O exception
+     */
+    private int countCompleteFrames(ByteBuffer buffer) 
+        throws IOException
+    {
+        int numberOfFrames = 0;
+        while (buffer.hasRemaining() && state_ != StreamState.SERIALIZATION)
+        {
+            switch (state_)
+            {
+                case MAGIC :
+                    value_ = (value_ << 8) | (buffer.get() & 0xff);
+                    if (++position_ == MAGIC_SIZE)
+                    {
+                        state_ = selectFormat((short) value_);
+                    }
+                    break;
+                    
+                case VERSION :
+                    buffer.get();
+                    startFrameLength();
+                    break;
+                    
+                case LENGTH :
+                    value_ = (value_ << 8) | (buffer.get() & 0xff);
+                    if (++position_ == LENGTH_SIZE)
+                    {
+                        if (value_ <= 0 || value_ > BinaryFormat.MAX_FRAME_SIZE)
+                        {
+                            throw new IOException(String.format("Invalid frame length: %d", value_));
+                        }
+                        
+                        remainingPayload_ = value_;
+                        state_ = StreamState.PAYLOAD;
+                    }
+                    break;
+                    
+                case PAYLOAD :
+                    int numberOfBytes = Math.min(remainingPayload_, buffer.remaining());
+                    buffer.position(buffer.position() + numberOfBytes);
+                    remainingPayload_ -= numberOfBytes;
+                    if (remainingPayload_ == 0)
+                    {
+                        numberOfFrames++;
+                        startFrameLength();
+                    }
+                    break;
+                    
+                default :
+                    throw new IOException(String.format("Unexpected stream state: %s", state_));
+            }
+        }
+        
+        return numberOfFrames;
+    }
+    
+    /**
+     * Selects the stream format from the magic number.
+     * 
+     * @param magic         The magic number
+     * @return              The next stream state
+     * @throws IOException  The I/O exception
+     */
+    private StreamState selectFormat(short magic) 
+        throws IOException
+    {
+        if (magic == BinaryFormat.MAGIC)
+        {
+            return StreamState.VERSION;
+        }
+        
+        if (magic == ObjectStreamConstants.STREAM_MAGIC)
+        {
+            return StreamState.SERIALIZATION;
+        }
+        
+        throw new IOException(String.format("Unknown stream header: 0x%04X", magic));
+    }
+    
+    /**
+     * Prepares reading the next frame length.
+     */
+    private void startFrameLength()
+    {
+        state_ = StreamState.LENGTH;
+        position_ = 0;
+        value_ = 0;
+    }
+    
+    /**
+     * Decodes and delivers all complete frames.
+     */
+    public void run()
+    {
+        try
+        {
+            while (true)
+            {
+                synchronized (this)
+                {
+                    if (isClosed_ || numberOfFrames_ == 0)
+                    {
+                        isDecoding_ = false;
+                        return;
+                    }
+                }
+                
+                if (decoder_ == null)
+                {
+                    new DataInputStream(inputStream_).readShort();
+                    decoder_ = new BinaryDecoder(inputStream_);
+                }
+                
+                Object data = decoder_.decodeFrame();
+                synchronized (this)
+                {
+                    numberOfFrames_--;
+                }
+                
+                if (data != null)
+                {
+                    dataHandler_.onDataArrival(data, id_);
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            log_.debug(String.format("I/O exception during decoding on %s! Treating it as failure!", id_));
+            close(true);
+        }
+        catch (ClassNotFoundException exception)
+        {
+            log_.error("Class not found exception", exception);
+            close(true);
+        }
+    }
+    
+    /**
+     * Sets the selector thread the connection is registered with.
+     * 
+     * @param selectorThread    The selector thread
+     */
+    void setSelectorThread(MultiplexedSelectorThread selectorThread)
+    {
+        selectorThread_ = selectorThread;
+    }
+    
+    /**
+     * Returns the time of the last data arrival.
+     * 
+     * @return  The time in milliseconds
+     */
+    public long getLastActivity()
+    {
+        return lastActivity_;
+    }
+    
+    /**
+     * Returns the channel.
+     * 
+     * @return  The socket channel
+     */
+    public SocketChannel getChannel()
+    {
+        return channel_;
+    }
+    
+    /**
+     * Returns the identifier.
+     * 
+     * @return  The identifier
+     */
+    public String getId()
+    {
+        return id_;
+    }
+    
+    /**
+     * Checks if the connection is closed.
+     * 
+     * @return  true if closed, false otherwise
+     */
+    public synchronized boolean isClosed()
+    {
+        return isClosed_;
+    }
+    
+    /**
+     * Closes the connection.
+     * 
+     * @param isFailure     true if the listener must be notified about the failure
+     */
+    public void close(boolean isFailure)
+    {
+        synchronized (this)
+        {
+            if (isClosed_)
+            {
+                return;
+            }
+            
+            isClosed_ = true;
+        }
+        
+        log_.debug(String.format("Closing connection %s", id_));
+        inputStream_.close();
+        IOUtils.closeQuietly(channel_);
+        MultiplexedSelectorThread selectorThread = selectorThread_;
+        if (selectorThread != null)
+        {
+            selectorThread.onConnectionClosed();
+        }
+        
+        if (isFailure)
+        {
+            dataHandler_.onFailure(id_);
+        }
+    }
+}
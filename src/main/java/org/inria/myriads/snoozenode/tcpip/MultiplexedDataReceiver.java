@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Multiplexed data receiver.
+ * 
+ * Accepts connections and distributes them over a fixed number of selector
+ * threads. Decoding and listener callbacks run on a fixed decoder pool, so the
+ * number of threads does not depend on the number of connected peers.
+ * 
+ * @author Eugen Feller
+ */
+public final class MultiplexedDataReceiver 
+    implements DataReceiver 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(MultiplexedDataReceiver.class);
+    
+    /** Server socket channel. */
+    private ServerSocketChannel serverChannel_;
+    
+    /** Data handler. */
+    private DataListener dataHandler_;
+    
+    /** Selector threads. */
+    private List<MultiplexedSelectorThread> selectorThreads_;
+    
+    /** Decoder pool. */
+    private ExecutorService decoderPool_;
+    
+    /** Timeout. */
+    private int timeout_;
+    
+    /** Number of I/O threads. */
+    private int numberOfThreads_;
+    
+    /** Signals termination. */
+    private volatile boolean isTerminated_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param networkAddress    The network address
+     * @param timeout           The timeout
+     * @param numberOfThreads   The number of I/O threads
+     * @throws IOException      The I/O exception
+     */
+    public MultiplexedDataReceiver(NetworkAddress networkAddress, int timeout, int numberOfThreads) 
+        throws IOException 
+    {
+        Guard.check(networkAddress, timeout, numberOfThreads);
+        log_.debug(String.format("Initializing the multiplexed data receiver at address: %s, port: %d, " +
+                                 "timeout: %s, threads: %d", 
+                                 networkAddress.getAddress(), networkAddress.getPort(), timeout, numberOfThreads));
+        
+        timeout_ = timeout;
+        numberOfThreads_ = Math.max(1, numberOfThreads);
+        selectorThreads_ = new ArrayList<MultiplexedSelectorThread>();
+        serverChannel_ = ServerSocketChannel.open();
+        serverChannel_.socket().setReuseAddress(true);
+        serverChannel_.socket().bind(new InetSocketAddress(networkAddress.getAddress(), networkAddress.getPort()));
+    }
+    
+    /** 
+     * Sets the data handler.
+     *  
+     * @param dataHandler   The data handler
+     */
+    @Override
+    public void setHandler(DataListener dataHandler) 
+    {
+        Guard.check(dataHandler);
+        dataHandler_ = dataHandler;
+    }
+    
+    /**
+     * Starts the selector threads and the decoder pool.
+     * 
+     * @throws IOException  The I/O exception
+     */
+    private synchronized void startThreads() 
+        throws IOException
+    {
+        decoderPool_ = Executors.newFixedThreadPool(numberOfThreads_);
+        for (int i = 0; i < numberOfThreads_; i++)
+        {
+            MultiplexedSelectorThread selectorThread = new MultiplexedSelectorThread(timeout_);
+            selectorThreads_.add(selectorThread);
+            new Thread(selectorThread).start();
+        }
+    }
+    
+    /**
+     * Returns the least loaded selector thread.
+     * 
+     * @return  The selector thread
+     */
+    private MultiplexedSelectorThread selectSelectorThread()
+    {
+        MultiplexedSelectorThread selected = null;
+        for (MultiplexedSelectorThread selectorThread : selectorThreads_)
+        {
+            if (selected == null || selectorThread.getNumberOfConnections() < selected.getNumberOfConnections())
+            {
+                selected = selectorThread;
+            }
+        }
+        
+        return selected;
+    }
+    
+    /** 
+     * Accepts new clients and hands them over to the selector threads.
+     */
+    public void run()
+    {
+        try
+        {
+            startThreads();
+            while (!isTerminated_) 
+            {            
+                log_.debug("Waiting for incoming connections"); 
+                SocketChannel channel = serverChannel_.accept();
+                log_.debug("New connection estabilished");
+                
+                MultiplexedConnection connection = new MultiplexedConnection(channel, dataHandler_, decoderPool_);
+                selectSelectorThread().register(connection);
+            }
+        }
+        catch (IOException exception) 
+        {
+            if (!isTerminated_)
+            {
+                log_.error("I/O exception during communication", exception);
+                terminate();
+            }
+        } 
+    }    
+    
+    /**
+     * Terminates the receiver.
+     */
+    @Override
+    public synchronized void terminate()
+    {
+        log_.debug("Terminating the multiplexed data receiver");
+        isTerminated_ = true;
+        IOUtils.closeQuietly(serverChannel_);
+        
+        for (MultiplexedSelectorThread selectorThread : selectorThreads_)
+        {
+            selectorThread.terminate();
+        }
+        
+        if (decoderPool_ != null)
+        {
+            decoderPool_.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream fed by a selector thread.
+ * 
+ * Bytes read from a non-blocking channel are appended to an internal buffer
+ * and consumed by the decoding thread. Reads block until data arrives or the
+ * stream is closed.
+ * 
+ * @author Eugen Feller
+ */
+public final class MultiplexedInputStream extends InputStream 
+{
+    /** Initial buffer capacity. */
+    private static final int INITIAL_CAPACITY = 4096;
+    
+    /** Buffered data. */
+    private byte[] buffer_;
+    
+    /** Position of the first unread byte. */
+    private int head_;
+    
+    /** Number of unread bytes. */
+    private int count_;
+    
+    /** Signals closed stream. */
+    private boolean isClosed_;
+    
+    /**
+     * Constructor.
+     */
+    public MultiplexedInputStream()
+    {
+        buffer_ = new byte[INITIAL_CAPACITY];
+    }
+    
+    /**
+     * Appends the remaining bytes of a buffer.
+     * 
+     * @param source    The source buffer
+     */
+    public synchronized void write(ByteBuffer source)
+    {
+        int length = source.remaining();
+        if (length == 0 || isClosed_)
+        {
+            return;
+        }
+        
+        ensureCapacity(length);
+        source.get(buffer_, head_ + count_, length);
+        count_ += length;
+        notifyAll();
+    }
+    
+    /**
+     * Makes room for new data.
+     * 
+     * @param length    The number of bytes to append
+     */
+    private void ensureCapacity(int length)
+    {
+        if (head_ + count_ + length <= buffer_.length)
+        {
+            return;
+        }
+        
+        byte[] target = buffer_;
+        if (count_ + length > buffer_.length)
+        {
+            target = new byte[Math.max(buffer_.length * 2, count_ + length)];
+        }
+        
+        System.arraycopy(buffer_, head_, target, 0, count_);
+        buffer_ = target;
+        head_ = 0;
+    }
+    
+    /**
+     * Waits until data is available or the stream is closed.
+     * 
+     * @return                          true if data is available, false on end of stream
+     * @throws InterruptedIOException   The interrupted exception
+     */
+    private boolean awaitData() 
+        throws InterruptedIOException
+    {
+        while (count_ == 0 && !isClosed_)
+        {
+            try 
+            {
+                wait();
+            } 
+            catch (InterruptedException exception) 
+            {
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+        }
+        
+        return count_ > 0;
+    }
+    
+    /**
+     * Reads a single byte.
+     * 
+     * @return              The byte, -1 on end of stream
+     * @throws IOException  The I/O exception
+     */
+    @Override
+    public synchronized int read() 
+        throws IOException 
+    {
+        if (!awaitData())
+        {
+            return -1;
+        }
+        
+        int value = buffer_[head_] & 0xff;
+        consume(1);
+        return value;
+    }
+    
+    /**
+     * Reads up to length bytes.
+     * 
+     * @param destination   The destination array
+     * @param offset        The offset
+     * @param length        The maximum number of bytes
+     * @return              The number of bytes read, -1 on end of stream
+     * @throws IOException  The I/O exception
+     */
+    @Override
+    public synchronized int read(byte[] destination, int offset, int length) 
+        throws IOException 
+    {
+        if (length == 0)
+        {
+            return 0;
+        }
+        
+        if (!awaitData())
+        {
+            return -1;
+        }
+        
+        int numberOfBytes = Math.min(length, count_);
+        System.arraycopy(buffer_, head_, destination, offset, numberOfBytes);
+        consume(numberOfBytes);
+        return numberOfBytes;
+    }
+    
+    /**
+     * Consumes bytes from the buffer.
+     * 
+     * @param numberOfBytes     The number of bytes
+     */
+    private void consume(int numberOfBytes)
+    {
+        head_ += numberOfBytes;
+        count_ -= numberOfBytes;
+        if (count_ == 0)
+        {
+            head_ = 0;
+        }
+    }
+    
+    /**
+     * Returns the number of buffered bytes.
+     * 
+     * @return  The number of bytes
+     */
+    @Override
+    public synchronized int available() 
+    {
+        return count_;
+    }
+    
+    /**
+     * Closes the stream and wakes up blocked readers.
+     */
+    @Override
+    public synchronized void close() 
+    {
+        isClosed_ = true;
+        notifyAll();
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selector thread.
+ * 
+ * Reads from all connections registered with its selector and closes
+ * connections which stayed silent for longer than the timeout.
+ * 
+ * @author Eugen Feller
+ */
+public final class MultiplexedSelectorThread 
+    implements Runnable
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(MultiplexedSelectorThread.class);
+    
+    /** Read buffer size. */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    
+    /** Maximum time to block in select (ms). */
+    private static final int MAX_SELECT_TIMEOUT = 1000;
+    
+    /** Selector. */
+    private Selector selector_;
+    
+    /** Connections waiting for registration. */
+    private Queue<MultiplexedConnection> pendingConnections_;
+    
+    /** Number of open connections (readable from any thread). */
+    private AtomicInteger numberOfConnections_;
+    
+    /** Read buffer. */
+    private ByteBuffer readBuffer_;
+    
+    /** Timeout. */
+    private int timeout_;
+    
+    /** Signals termination. */
+    private volatile boolean isTerminated_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param timeout       The idle timeout (ms)
+     * @throws IOException  The I/O exception
+     */
+    public MultiplexedSelectorThread(int timeout) 
+        throws IOException
+    {
+        Guard.check(timeout);
+        timeout_ = timeout;
+        selector_ = Selector.open();
+        pendingConnections_ = new ConcurrentLinkedQueue<MultiplexedConnection>();
+        numberOfConnections_ = new AtomicInteger();
+        readBuffer_ = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    }
+    
+    /**
+     * Hands over a new connection.
+     * 
+     * @param connection    The connection
+     */
+    public void register(MultiplexedConnection connection)
+    {
+        Guard.check(connection);
+        numberOfConnections_.incrementAndGet();
+        connection.setSelectorThread(this);
+        pendingConnections_.add(connection);
+        selector_.wakeup();
+    }
+    
+    /**
+     * Returns the number of connections.
+     * 
+     * @return  The number of connections
+     */
+    public int getNumberOfConnections()
+    {
+        return numberOfConnections_.get();
+    }
+    
+    /**
+     * Called once by a registered connection when it is closed.
+     */
+    void onConnectionClosed()
+    {
+        numberOfConnections_.decrementAndGet();
+    }
+    
+    /**
+     * The run() method.
+     */
+    public void run()
+    {
+        int selectTimeout = timeout_ > 0 ? Math.min(timeout_, MAX_SELECT_TIMEOUT) : MAX_SELECT_TIMEOUT;
+        try
+        {
+            while (!isTerminated_)
+            {
+                selector_.select(selectTimeout);
+                registerPendingConnections();
+                processSelectedKeys();
+                closeIdleConnections();
+            }
+        }
+        catch (IOException exception)
+        {
+            if (!isTerminated_)
+            {
+                log_.error("I/O exception in selector loop", exception);
+            }
+        }
+        
+        closeAllConnections();
+        log_.debug("Selector thread is stopped!");
+    }
+    
+    /**
+     * Registers the pending connections.
+     */
+    private void registerPendingConnections()
+    {
+        MultiplexedConnection connection;
+        while ((connection = pendingConnections_.poll()) != null)
+        {
+            try
+            {
+                SocketChannel channel = connection.getChannel();
+                channel.configureBlocking(false);
+                channel.register(selector_, SelectionKey.OP_READ, connection);
+                log_.debug(String.format("Connection %s registered", connection.getId()));
+            }
+            catch (IOException exception)
+            {
+                log_.debug(String.format("Unable to register connection %s", connection.getId()));
+                connection.close(true);
+            }
+        }
+    }
+    
+    /**
+     * Reads from all ready channels.
+     */
+    private void processSelectedKeys()
+    {
+        Iterator<SelectionKey> iterator = selector_.selectedKeys().iterator();
+        while (iterator.hasNext())
+        {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            if (!key.isValid() || !key.isReadable())
+            {
+                continue;
+            }
+            
+            MultiplexedConnection connection = (MultiplexedConnection) key.attachment();
+            try
+            {
+                readBuffer_.clear();
+                int numberOfBytes = connection.getChannel().read(readBuffer_);
+                if (numberOfBytes < 0)
+                {
+                    log_.debug(String.format("End of stream on %s! Treating it as failure!", connection.getId()));
+                    key.cancel();
+                    connection.close(true);
+                    continue;
+                }
+                
+                readBuffer_.flip();
+                connection.onBytesReceived(readBuffer_);
+            }
+            catch (IOException exception)
+            {
+                log_.debug(String.format("I/O exception during read on %s! Treating it as failure!", 
+                                         connection.getId()));
+                key.cancel();
+                connection.close(true);
+            }
+        }
+    }
+    
+    /**
+     * Closes connections which exceeded the timeout.
+     */
+    private void closeIdleConnections()
+    {
+        if (timeout_ <= 0)
+        {
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        for (SelectionKey key : selector_.keys())
+        {
+            MultiplexedConnection connection = (MultiplexedConnection) key.attachment();
+            if (now - connection.getLastActivity() > timeout_)
+            {
+                log_.debug(String.format("Connection %s timed out! Treating it as failure!", connection.getId()));
+                key.cancel();
+                connection.close(true);
+            }
+        }
+    }
+    
+    /**
+     * Closes all connections.
+     */
+    private void closeAllConnections()
+    {
+        for (SelectionKey key : selector_.keys())
+        {
+            ((MultiplexedConnection) key.attachment()).close(false);
+        }
+        
+        MultiplexedConnection connection;
+        while ((connection = pendingConnections_.poll()) != null)
+        {
+            connection.close(false);
+        }
+        
+        try
+        {
+            selector_.close();
+        }
+        catch (IOException exception)
+        {
+            log_.error("I/O exception while closing the selector", exception);
+        }
+    }
+    
+    /**
+     * Terminates the thread.
+     */
+    public void terminate()
+    {
+        isTerminated_ = true;
+        selector_.wakeup();
+    }
+}
@@ -39,8 +39,8 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Eugen Feller
  */
-public abstract class TCPDataReceiver 
-    implements Runnable 
+public final class TCPDataReceiver 
+    implements DataReceiver 
 {
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(TCPDataReceiver.class);
@@ -86,6 +86,7 @@ public abstract class TCPDataReceiver
      *  
      * @param danaHandler   The data handler
      */
+    @Override
     public void setHandler(DataListener danaHandler) 
     {
         Guard.check(danaHandler);
@@ -132,6 +133,7 @@ public abstract class TCPDataReceiver
     /**
      * Terminates the receiver.
      */
+    @Override
     public void terminate()
     {
         log_.debug("Terminating all worker threads");
@@ -20,13 +20,15 @@
 package org.inria.myriads.snoozenode.tcpip;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
 
 import org.apache.commons.io.IOUtils;
 
 import org.inria.myriads.snoozecommon.communication.NetworkAddress;
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.tcpip.codec.CodecFactory;
+import org.inria.myriads.snoozenode.tcpip.codec.DataEncoder;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,24 +46,25 @@ public abstract class TCPDataSender
     /** Client socket. */
     private Socket clientSocket_;
     
-    /** Object output stream. */
-    private ObjectOutputStream outputStream_;
+    /** Data encoder. */
+    private DataEncoder encoder_;
     
     /**
      * TCP data sender consturctor.
      * 
      * @param networkAddress          The network address
+     * @param codecType               The codec type
      * @throws IOException            The I/O exception
      */
-    protected TCPDataSender(NetworkAddress networkAddress) 
+    protected TCPDataSender(NetworkAddress networkAddress, CodecType codecType) 
         throws IOException 
     {
-        Guard.check(networkAddress);
-        log_.debug(String.format("Initializing the TCP data sender for %s : %d", 
-                                 networkAddress.getAddress(), networkAddress.getPort()));
+        Guard.check(networkAddress, codecType);
+        log_.debug(String.format("Initializing the TCP data sender for %s : %d with %s codec", 
+                                 networkAddress.getAddress(), networkAddress.getPort(), codecType));
         
         clientSocket_ = new Socket(networkAddress.getAddress(), networkAddress.getPort());
-        outputStream_ = new ObjectOutputStream(clientSocket_.getOutputStream());
+        encoder_ = CodecFactory.newEncoder(codecType, clientSocket_.getOutputStream());
     }           
 
     /** 
@@ -74,7 +77,7 @@ public abstract class TCPDataSender
         throws IOException 
     {
         Guard.check(data);
-        outputStream_.writeObject(data);
+        encoder_.encode(data);
     }
     
     /**
@@ -88,9 +91,9 @@ public abstract class TCPDataSender
             IOUtils.closeQuietly(clientSocket_);
         }
         
-        if (outputStream_ != null)
+        if (encoder_ != null)
         {
-            IOUtils.closeQuietly(outputStream_);
+            encoder_.close();
         }
     }
 }
@@ -19,14 +19,16 @@
  */
 package org.inria.myriads.snoozenode.tcpip;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 
 import java.net.Socket;
 
 import org.apache.commons.io.IOUtils;
 
 import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.tcpip.codec.CodecFactory;
+import org.inria.myriads.snoozenode.tcpip.codec.DataDecoder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,8 +44,8 @@ public final class TCPWorkerThread
     /** Define the logger. */
     private static final Logger log_ = LoggerFactory.getLogger(TCPWorkerThread.class);
     
-    /** Object input stream. */
-    private ObjectInputStream inputStream_;
+    /** Data decoder. */
+    private DataDecoder decoder_;
     
     /** Client socket. */
     private Socket clientSocket_;
@@ -81,10 +83,10 @@ public final class TCPWorkerThread
     {
         try 
         {
-            inputStream_ = new ObjectInputStream(clientSocket_.getInputStream());
+            decoder_ = CodecFactory.newDecoder(new BufferedInputStream(clientSocket_.getInputStream()));
             while (!isTerminated_) 
             {
-                Object data = inputStream_.readObject();
+                Object data = decoder_.decode();
                 dataHandler_.onDataArrival(data, id_);
             }
         } 
@@ -130,9 +132,9 @@ public final class TCPWorkerThread
             IOUtils.closeQuietly(clientSocket_);
         }
         
-        if (inputStream_ != null)
+        if (decoder_ != null)
         {
-            IOUtils.closeQuietly(inputStream_);
+            decoder_.close();
         }
     }
 }
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.IOException;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozenode.tcpip.enums.ReceiverType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TCP transport factory.
+ * 
+ * @author Eugen Feller
+ */
+public final class TransportFactory 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(TransportFactory.class);
+    
+    /**
+     * Hide the consturctor.
+     */
+    private TransportFactory() 
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Creates a new data receiver.
+     * 
+     * @param type              The receiver type
+     * @param networkAddress    The network address
+     * @param timeout           The timeout
+     * @param numberOfThreads   The number of I/O threads (multiplexed receiver only)
+     * @return                  The data receiver
+     * @throws IOException      The I/O exception
+     */
+    public static DataReceiver newDataReceiver(ReceiverType type,
+                                               NetworkAddress networkAddress, 
+                                               int timeout,
+                                               int numberOfThreads) 
+        throws IOException
+    {
+        DataReceiver receiver = null;
+        switch (type)
+        {
+            case blocking :
+                receiver = new TCPDataReceiver(networkAddress, timeout);
+                break;
+                
+            case multiplexed :
+                receiver = new MultiplexedDataReceiver(networkAddress, timeout, numberOfThreads);
+                break;
+                
+            default :
+                log_.error(String.format("Unknown data receiver type selected: %s", type));
+        }
+        
+        return receiver;
+    }
+}
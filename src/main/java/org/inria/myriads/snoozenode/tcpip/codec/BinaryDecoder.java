@@ -0,0 +1,388 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.LocationUpdate;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary decoder.
+ * 
+ * Reads exactly one frame per decoded object and never buffers ahead.
+ * 
+ * @author Eugen Feller
+ */
+public final class BinaryDecoder 
+    implements DataDecoder
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(BinaryDecoder.class);
+    
+    /** Input stream. */
+    private DataInputStream inputStream_;
+    
+    /** Frame buffer (reused between frames). */
+    private byte[] frameBuffer_;
+    
+    /** Frame input. */
+    private DataInputStream frameInput_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param inputStream       The input stream (positioned after the magic number)
+     * @throws IOException      The I/O exception
+     */
+    public BinaryDecoder(InputStream inputStream) 
+        throws IOException
+    {
+        Guard.check(inputStream);
+        inputStream_ = new DataInputStream(inputStream);
+        frameBuffer_ = new byte[4096];
+        
+        byte version = inputStream_.readByte();
+        if (version > BinaryFormat.VERSION)
+        {
+            throw new IOException(String.format("Unsupported binary format version: %d", version));
+        }
+    }
+    
+    /**
+     * Decodes the next data object.
+     * 
+     * @return                          The data object
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    @Override
+    public Object decode() 
+        throws IOException, ClassNotFoundException 
+    {
+        while (true)
+        {
+            Object data = decodeFrame();
+            if (data != null)
+            {
+                return data;
+            }
+        }
+    }
+    
+    /**
+     * Decodes exactly one frame.
+     * 
+     * @return                          The data object, null for frames of unknown type
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    public Object decodeFrame() 
+        throws IOException, ClassNotFoundException 
+    {
+        readFrame();
+        byte type = frameInput_.readByte();
+        switch (type)
+        {
+            case BinaryFormat.LOCAL_CONTROLLER_DATA :
+                return readLocalControllerData();
+                
+            case BinaryFormat.GROUP_MANAGER_DATA :
+                return readGroupManagerData();
+                
+            case BinaryFormat.SERIALIZED_OBJECT :
+                return new ObjectInputStream(frameInput_).readObject();
+                
+            default :
+                log_.debug(String.format("Skipping frame of unknown type: %d", type));
+                return null;
+        }
+    }
+    
+    /**
+     * Reads the next frame into the frame buffer.
+     * 
+     * @throws IOException  The I/O exception
+     */
+    private void readFrame() 
+        throws IOException
+    {
+        int length = inputStream_.readInt();
+        if (length <= 0 || length > BinaryFormat.MAX_FRAME_SIZE)
+        {
+            throw new IOException(String.format("Invalid frame length: %d", length));
+        }
+        
+        if (length > frameBuffer_.length)
+        {
+            frameBuffer_ = new byte[Math.max(length, frameBuffer_.length * 2)];
+        }
+        
+        inputStream_.readFully(frameBuffer_, 0, length);
+        frameInput_ = new DataInputStream(new ByteArrayInputStream(frameBuffer_, 0, length));
+    }
+    
+    /**
+     * Reads the local controller data.
+     * 
+     * @return              The local controller data
+     * @throws IOException  The I/O exception
+     */
+    private LocalControllerDataTransporter readLocalControllerData() 
+        throws IOException
+    {
+        String localControllerId = readString();
+        LocalControllerState state = readState(frameInput_.readByte());
+        
+        List<AggregatedVirtualMachineData> aggregatedData = null;
+        int numberOfVirtualMachines = frameInput_.readInt();
+        if (numberOfVirtualMachines != BinaryFormat.NULL_LENGTH)
+        {
+            aggregatedData = new ArrayList<AggregatedVirtualMachineData>(numberOfVirtualMachines);
+            for (int i = 0; i < numberOfVirtualMachines; i++)
+            {
+                String virtualMachineId = readString();
+                List<VirtualMachineMonitoringData> monitoringData = null;
+                int numberOfEntries = frameInput_.readInt();
+                if (numberOfEntries != BinaryFormat.NULL_LENGTH)
+                {
+                    monitoringData = new ArrayList<VirtualMachineMonitoringData>(numberOfEntries);
+                    for (int j = 0; j < numberOfEntries; j++)
+                    {
+                        VirtualMachineMonitoringData entry = new VirtualMachineMonitoringData();
+                        entry.setTimeStamp(frameInput_.readLong());
+                        entry.setUsedCapacity(readVector());
+                        monitoringData.add(entry);
+                    }
+                }
+                
+                aggregatedData.add(new AggregatedVirtualMachineData(virtualMachineId, monitoringData));
+            }
+        }
+        
+        LocalControllerDataTransporter data = new LocalControllerDataTransporter(localControllerId, aggregatedData);
+        data.setState(state);
+        return data;
+    }
+    
+    /**
+     * Reads the group manager data.
+     * 
+     * @return              The group manager data
+     * @throws IOException  The I/O exception
+     */
+    private GroupManagerDataTransporter readGroupManagerData() 
+        throws IOException
+    {
+        String groupManagerId = readString();
+        GroupManagerSummaryInformation summary = null;
+        if (frameInput_.readBoolean())
+        {
+            summary = readSummary();
+        }
+        
+        GroupManagerDataTransporter data = new GroupManagerDataTransporter(groupManagerId, summary);
+        if (frameInput_.available() > 0 && frameInput_.readBoolean())
+        {
+            data.setLocations(readLocations());
+        }
+        
+        if (frameInput_.available() > 0)
+        {
+            ArrayList<String> finishedSubmissions = new ArrayList<String>();
+            readStrings(finishedSubmissions);
+            data.setFinishedSubmissions(finishedSubmissions);
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Reads the group manager summary information.
+     * 
+     * @return              The summary information
+     * @throws IOException  The I/O exception
+     */
+    private GroupManagerSummaryInformation readSummary() 
+        throws IOException
+    {
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setTimeStamp(frameInput_.readLong());
+        summary.setActiveCapacity(readVector());
+        summary.setPassiveCapacity(readVector());
+        summary.setRequestedCapacity(readVector());
+        summary.setUsedCapacity(readVector());
+        
+        int numberOfLegacyIpAddresses = frameInput_.readInt();
+        if (numberOfLegacyIpAddresses != BinaryFormat.NULL_LENGTH)
+        {
+            ArrayList<String> legacyIpAddresses = new ArrayList<String>(numberOfLegacyIpAddresses);
+            for (int i = 0; i < numberOfLegacyIpAddresses; i++)
+            {
+                legacyIpAddresses.add(readString());
+            }
+            
+            summary.setLegacyIpAddresses(legacyIpAddresses);
+        }
+        
+        return summary;
+    }
+    
+    /**
+     * Reads the location update.
+     * 
+     * @return              The location update
+     * @throws IOException  The I/O exception
+     */
+    private LocationUpdate readLocations() 
+        throws IOException
+    {
+        long sequenceNumber = frameInput_.readLong();
+        LocationUpdate locations = new LocationUpdate(sequenceNumber, frameInput_.readBoolean());
+        
+        int numberOfLocalControllers = frameInput_.readInt();
+        for (int i = 0; i < numberOfLocalControllers; i++)
+        {
+            String localControllerId = readString();
+            String address = readString();
+            int port = frameInput_.readInt();
+            NetworkAddress controlDataAddress = null;
+            if (address != null)
+            {
+                controlDataAddress = new NetworkAddress();
+                controlDataAddress.setAddress(address);
+                controlDataAddress.setPort(port);
+            }
+            
+            locations.getLocalControllers().put(localControllerId, controlDataAddress);
+        }
+        
+        readStrings(locations.getRemovedLocalControllers());
+        int numberOfVirtualMachines = frameInput_.readInt();
+        for (int i = 0; i < numberOfVirtualMachines; i++)
+        {
+            String virtualMachineId = readString();
+            locations.getVirtualMachines().put(virtualMachineId, readString());
+        }
+        
+        readStrings(locations.getRemovedVirtualMachines());
+        return locations;
+    }
+    
+    /**
+     * Reads a list of strings.
+     * 
+     * @param values        The list to fill
+     * @throws IOException  The I/O exception
+     */
+    private void readStrings(List<String> values) 
+        throws IOException
+    {
+        int length = frameInput_.readInt();
+        for (int i = 0; i < length; i++)
+        {
+            values.add(readString());
+        }
+    }
+    
+    /**
+     * Maps the state ordinal.
+     * 
+     * @param ordinal   The ordinal
+     * @return          The local controller state
+     */
+    private LocalControllerState readState(int ordinal)
+    {
+        LocalControllerState[] states = LocalControllerState.values();
+        if (ordinal < 0 || ordinal >= states.length)
+        {
+            log_.debug(String.format("Unknown local controller state: %d! Assuming stable", ordinal));
+            return LocalControllerState.STABLE;
+        }
+        
+        return states[ordinal];
+    }
+    
+    /**
+     * Reads a vector of primitive doubles.
+     * 
+     * @return              The vector
+     * @throws IOException  The I/O exception
+     */
+    private ArrayList<Double> readVector() 
+        throws IOException
+    {
+        int length = frameInput_.readInt();
+        if (length == BinaryFormat.NULL_LENGTH)
+        {
+            return null;
+        }
+        
+        ArrayList<Double> vector = new ArrayList<Double>(length);
+        for (int i = 0; i < length; i++)
+        {
+            vector.add(frameInput_.readDouble());
+        }
+        
+        return vector;
+    }
+    
+    /**
+     * Reads a nullable string.
+     * 
+     * @return              The string
+     * @throws IOException  The I/O exception
+     */
+    private String readString() 
+        throws IOException
+    {
+        if (!frameInput_.readBoolean())
+        {
+            return null;
+        }
+        
+        return frameInput_.readUTF();
+    }
+    
+    /**
+     * Closes the decoder.
+     */
+    @Override
+    public void close() 
+    {
+        IOUtils.closeQuietly(inputStream_);
+    }
+}
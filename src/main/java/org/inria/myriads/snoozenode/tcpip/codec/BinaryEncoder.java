@@ -0,0 +1,314 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip.codec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.guard.Guard;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.LocationUpdate;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+
+/**
+ * Binary encoder.
+ * 
+ * @author Eugen Feller
+ */
+public final class BinaryEncoder 
+    implements DataEncoder
+{
+    /** Output stream. */
+    private DataOutputStream outputStream_;
+    
+    /** Frame buffer (reused between frames). */
+    private ByteArrayOutputStream frameBuffer_;
+    
+    /** Frame output. */
+    private DataOutputStream frameOutput_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param outputStream      The output stream
+     * @throws IOException      The I/O exception
+     */
+    public BinaryEncoder(OutputStream outputStream) 
+        throws IOException
+    {
+        Guard.check(outputStream);
+        outputStream_ = new DataOutputStream(new BufferedOutputStream(outputStream));
+        frameBuffer_ = new ByteArrayOutputStream();
+        frameOutput_ = new DataOutputStream(frameBuffer_);
+        
+        outputStream_.writeShort(BinaryFormat.MAGIC);
+        outputStream_.writeByte(BinaryFormat.VERSION);
+        outputStream_.flush();
+    }
+    
+    /**
+     * Encodes a data object.
+     * 
+     * @param data          The data object
+     * @throws IOException  The I/O exception
+     */
+    @Override
+    public void encode(Object data) 
+        throws IOException 
+    {
+        Guard.check(data);
+        frameBuffer_.reset();
+        
+        if (data instanceof LocalControllerDataTransporter)
+        {
+            frameOutput_.writeByte(BinaryFormat.LOCAL_CONTROLLER_DATA);
+            writeLocalControllerData((LocalControllerDataTransporter) data);
+        } 
+        else if (data instanceof GroupManagerDataTransporter)
+        {
+            frameOutput_.writeByte(BinaryFormat.GROUP_MANAGER_DATA);
+            writeGroupManagerData((GroupManagerDataTransporter) data);
+        } 
+        else
+        {
+            frameOutput_.writeByte(BinaryFormat.SERIALIZED_OBJECT);
+            ObjectOutputStream objectOutput = new ObjectOutputStream(frameOutput_);
+            objectOutput.writeObject(data);
+            objectOutput.flush();
+        }
+        
+        frameOutput_.flush();
+        outputStream_.writeInt(frameBuffer_.size());
+        frameBuffer_.writeTo(outputStream_);
+        outputStream_.flush();
+    }
+    
+    /**
+     * Writes the local controller data.
+     * 
+     * @param data          The local controller data
+     * @throws IOException  The I/O exception
+     */
+    private void writeLocalControllerData(LocalControllerDataTransporter data) 
+        throws IOException
+    {
+        writeString(data.getLocalControllerId());
+        frameOutput_.writeByte(data.getState().ordinal());
+        
+        List<AggregatedVirtualMachineData> aggregatedData = data.getData();
+        if (aggregatedData == null)
+        {
+            frameOutput_.writeInt(BinaryFormat.NULL_LENGTH);
+            return;
+        }
+        
+        frameOutput_.writeInt(aggregatedData.size());
+        for (AggregatedVirtualMachineData virtualMachineData : aggregatedData)
+        {
+            writeString(virtualMachineData.getVirtualMachineId());
+            List<VirtualMachineMonitoringData> monitoringData = virtualMachineData.getMonitoringData();
+            if (monitoringData == null)
+            {
+                frameOutput_.writeInt(BinaryFormat.NULL_LENGTH);
+                continue;
+            }
+            
+            frameOutput_.writeInt(monitoringData.size());
+            for (VirtualMachineMonitoringData entry : monitoringData)
+            {
+                frameOutput_.writeLong(entry.getTimeStamp());
+                writeVector(entry.getUsedCapacity());
+            }
+        }
+    }
+    
+    /**
+     * Writes the group manager data.
+     * 
+     * @param data          The group manager data
+     * @throws IOException  The I/O exception
+     */
+    private void writeGroupManagerData(GroupManagerDataTransporter data) 
+        throws IOException
+    {
+        writeString(data.getId());
+        GroupManagerSummaryInformation summary = data.getSummary();
+        frameOutput_.writeBoolean(summary != null);
+        if (summary != null)
+        {
+            writeSummary(summary);
+        }
+        
+        LocationUpdate locations = data.getLocations();
+        List<String> finishedSubmissions = data.getFinishedSubmissions();
+        if (locations == null && finishedSubmissions == null)
+        {
+            return;
+        }
+        
+        frameOutput_.writeBoolean(locations != null);
+        if (locations != null)
+        {
+            writeLocations(locations);
+        }
+        
+        if (finishedSubmissions != null)
+        {
+            writeStrings(finishedSubmissions);
+        }
+    }
+    
+    /**
+     * Writes the group manager summary information.
+     * 
+     * @param summary       The summary information
+     * @throws IOException  The I/O exception
+     */
+    private void writeSummary(GroupManagerSummaryInformation summary) 
+        throws IOException
+    {
+        frameOutput_.writeLong(summary.getTimeStamp());
+        writeVector(summary.getActiveCapacity());
+        writeVector(summary.getPassiveCapacity());
+        writeVector(summary.getRequestedCapacity());
+        writeVector(summary.getUsedCapacity());
+        
+        List<String> legacyIpAddresses = summary.getLegacyIpAddresses();
+        if (legacyIpAddresses == null)
+        {
+            frameOutput_.writeInt(BinaryFormat.NULL_LENGTH);
+            return;
+        }
+        
+        frameOutput_.writeInt(legacyIpAddresses.size());
+        for (String ipAddress : legacyIpAddresses)
+        {
+            writeString(ipAddress);
+        }
+    }
+    
+    /**
+     * Writes the location update (optional trailer of the group manager data).
+     * 
+     * @param locations     The location update
+     * @throws IOException  The I/O exception
+     */
+    private void writeLocations(LocationUpdate locations) 
+        throws IOException
+    {
+        frameOutput_.writeLong(locations.getSequenceNumber());
+        frameOutput_.writeBoolean(locations.isFull());
+        
+        Map<String, NetworkAddress> localControllers = locations.getLocalControllers();
+        frameOutput_.writeInt(localControllers.size());
+        for (Map.Entry<String, NetworkAddress> entry : localControllers.entrySet())
+        {
+            writeString(entry.getKey());
+            NetworkAddress address = entry.getValue();
+            writeString(address == null ? null : address.getAddress());
+            frameOutput_.writeInt(address == null ? 0 : address.getPort());
+        }
+        
+        writeStrings(locations.getRemovedLocalControllers());
+        Map<String, String> virtualMachines = locations.getVirtualMachines();
+        frameOutput_.writeInt(virtualMachines.size());
+        for (Map.Entry<String, String> entry : virtualMachines.entrySet())
+        {
+            writeString(entry.getKey());
+            writeString(entry.getValue());
+        }
+        
+        writeStrings(locations.getRemovedVirtualMachines());
+    }
+    
+    /**
+     * Writes a list of strings.
+     * 
+     * @param values        The strings
+     * @throws IOException  The I/O exception
+     */
+    private void writeStrings(List<String> values) 
+        throws IOException
+    {
+        frameOutput_.writeInt(values.size());
+        for (String value : values)
+        {
+            writeString(value);
+        }
+    }
+    
+    /**
+     * Writes a vector as primitive doubles.
+     * 
+     * @param vector        The vector
+     * @throws IOException  The I/O exception
+     */
+    private void writeVector(List<Double> vector) 
+        throws IOException
+    {
+        if (vector == null)
+        {
+            frameOutput_.writeInt(BinaryFormat.NULL_LENGTH);
+            return;
+        }
+        
+        frameOutput_.writeInt(vector.size());
+        for (int i = 0; i < vector.size(); i++)
+        {
+            frameOutput_.writeDouble(vector.get(i));
+        }
+    }
+    
+    /**
+     * Writes a nullable string.
+     * 
+     * @param value         The string
+     * @throws IOException  The I/O exception
+     */
+    private void writeString(String value) 
+        throws IOException
+    {
+        frameOutput_.writeBoolean(value != null);
+        if (value != null)
+        {
+            frameOutput_.writeUTF(value);
+        }
+    }
+    
+    /**
+     * Closes the encoder.
+     */
+    @Override
+    public void close() 
+    {
+        IOUtils.closeQuietly(outputStream_);
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip.codec;
+
+/**
+ * Binary wire format constants.
+ * 
+ * A stream starts with the magic number and the format version followed by 
+ * frames. Each frame is prefixed by its length and starts with the frame type.
+ * Vectors are written as primitive doubles prefixed by their length 
+ * (-1 encodes null). Group manager frames may end with an optional trailer
+ * (a location update flag and update, followed by the finished submissions)
+ * which older decoders skip.
+ * 
+ * @author Eugen Feller
+ */
+public final class BinaryFormat 
+{
+    /** Stream magic number (does not collide with the serialization magic 0xACED). */
+    public static final short MAGIC = 0x534E;
+    
+    /** Current format version. */
+    public static final byte VERSION = 1;
+    
+    /** Maximum frame size (= bytes). */
+    public static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+    
+    /** Local controller data transporter frame. */
+    public static final byte LOCAL_CONTROLLER_DATA = 1;
+    
+    /** Group manager data transporter frame. */
+    public static final byte GROUP_MANAGER_DATA = 2;
+    
+    /** Java serialized object frame (for all other types). */
+    public static final byte SERIALIZED_OBJECT = 3;
+    
+    /** Null length marker. */
+    public static final int NULL_LENGTH = -1;
+    
+    /**
+     * Hide the consturctor.
+     */
+    private BinaryFormat() 
+    {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamConstants;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Codec factory.
+ * 
+ * @author Eugen Feller
+ */
+public final class CodecFactory 
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(CodecFactory.class);
+    
+    /**
+     * Hide the consturctor.
+     */
+    private CodecFactory() 
+    {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Creates a new data encoder.
+     * 
+     * @param type              The codec type
+     * @param outputStream      The output stream
+     * @return                  The data encoder
+     * @throws IOException      The I/O exception
+     */
+    public static DataEncoder newEncoder(CodecType type, OutputStream outputStream) 
+        throws IOException
+    {
+        DataEncoder encoder = null;
+        switch (type)
+        {
+            case serialization :
+                encoder = new SerializationEncoder(outputStream);
+                break;
+                
+            case binary :
+                encoder = new BinaryEncoder(outputStream);
+                break;
+                
+            default :
+                log_.error(String.format("Unknown codec type selected: %s", type));
+        }
+        
+        return encoder;
+    }
+    
+    /**
+     * Creates a new data decoder.
+     * 
+     * Blocks until the stream header is received and selects the 
+     * matching decoder, so receivers accept senders of either codec.
+     * 
+     * @param inputStream       The input stream
+     * @return                  The data decoder
+     * @throws IOException      The I/O exception
+     */
+    public static DataDecoder newDecoder(InputStream inputStream) 
+        throws IOException
+    {
+        short magic = new DataInputStream(inputStream).readShort();
+        if (magic == BinaryFormat.MAGIC)
+        {
+            return new BinaryDecoder(inputStream);
+        }
+        
+        if (magic == ObjectStreamConstants.STREAM_MAGIC)
+        {
+            byte[] header = new byte[] {(byte) (magic >> 8), (byte) magic};
+            return new SerializationDecoder(new SequenceInputStream(new ByteArrayInputStream(header), inputStream));
+        }
+        
+        throw new IOException(String.format("Unknown stream header: 0x%04X", magic));
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.guard.Guard;
+
+/**
+ * Java object serialization decoder.
+ * 
+ * @author Eugen Feller
+ */
+public final class SerializationDecoder 
+    implements DataDecoder
+{
+    /** Object input stream. */
+    private ObjectInputStream inputStream_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param inputStream       The input stream (positioned at the stream header)
+     * @throws IOException      The I/O exception
+     */
+    public SerializationDecoder(InputStream inputStream) 
+        throws IOException
+    {
+        Guard.check(inputStream);
+        inputStream_ = new ObjectInputStream(inputStream);
+    }
+    
+    /**
+     * Decodes the next data object.
+     * 
+     * @return                          The data object
+     * @throws IOException              The I/O exception
+     * @throws ClassNotFoundException   The class not found exception
+     */
+    @Override
+    public Object decode() 
+        throws IOException, ClassNotFoundException 
+    {
+        return inputStream_.readObject();
+    }
+    
+    /**
+     * Closes the decoder.
+     */
+    @Override
+    public void close() 
+    {
+        IOUtils.closeQuietly(inputStream_);
+    }
+}
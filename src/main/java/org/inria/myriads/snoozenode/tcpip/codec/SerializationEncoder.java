@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.tcpip.codec;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.inria.myriads.snoozecommon.guard.Guard;
+
+/**
+ * Java object serialization encoder.
+ * 
+ * The stream is reset after every object so the back-reference table 
+ * does not grow for the lifetime of the connection.
+ * 
+ * @author Eugen Feller
+ */
+public final class SerializationEncoder 
+    implements DataEncoder
+{
+    /** Object output stream. */
+    private ObjectOutputStream outputStream_;
+    
+    /**
+     * Constructor.
+     * 
+     * @param outputStream      The output stream
+     * @throws IOException      The I/O exception
+     */
+    public SerializationEncoder(OutputStream outputStream) 
+        throws IOException
+    {
+        Guard.check(outputStream);
+        outputStream_ = new ObjectOutputStream(outputStream);
+        outputStream_.flush();
+    }
+    
+    /**
+     * Encodes a data object.
+     * 
+     * @param data          The data object
+     * @throws IOException  The I/O exception
+     */
+    @Override
+    public void encode(Object data) 
+        throws IOException 
+    {
+        Guard.check(data);
+        outputStream_.writeObject(data);
+        outputStream_.reset();
+        outputStream_.flush();
+    }
+    
+    /**
+     * Closes the encoder.
+     */
+    @Override
+    public void close() 
+    {
+        IOUtils.closeQuietly(outputStream_);
+    }
+}
@@ -137,6 +137,27 @@ public final class OutputUtils
                                  configuration.getHTTPd().getMaximumNumberOfThreads()));
         log_.debug(String.format("httpd.maxNumberOfConnections: %s",
                                  configuration.getHTTPd().getMaximumNumberOfConnections()));
+        log_.debug(String.format("httpd.client.connectTimeout: %d",
+                                 configuration.getHTTPd().getClientConnectTimeout()));
+        log_.debug(String.format("httpd.client.readTimeout: %d",
+                                 configuration.getHTTPd().getClientReadTimeout()));
+        log_.debug(String.format("httpd.client.callTimeout: %d",
+                                 configuration.getHTTPd().getClientCallTimeout()));
+        log_.debug(String.format("httpd.client.maxConnectionsPerHost: %d",
+                                 configuration.getHTTPd().getMaximumNumberOfClientConnectionsPerHost()));
+        log_.debug(String.format("httpd.client.maxTotalConnections: %d",
+                                 configuration.getHTTPd().getMaximumNumberOfClientConnections()));
+        log_.debug(String.format("httpd.client.numberOfThreads: %d",
+                                 configuration.getHTTPd().getNumberOfClientThreads()));
+        log_.debug("--------------------");
+        log_.debug("Bootstrap settings:");
+        log_.debug("--------------------");
+        log_.debug(String.format("bootstrap.hierarchy.timeout: %d",
+                                 configuration.getBootstrap().getHierarchyTimeout()));
+        log_.debug(String.format("bootstrap.hierarchy.maxAge: %d",
+                                 configuration.getBootstrap().getHierarchyMaxAge()));
+        log_.debug(String.format("bootstrap.hierarchy.numberOfThreads: %d",
+                                 configuration.getBootstrap().getNumberOfHierarchyThreads()));
         log_.debug("-------------------------");
         log_.debug("Fault tolerance settings:");
         log_.debug("-------------------------");
@@ -169,6 +190,14 @@ public final class OutputUtils
                                  configuration.getDatabase().getNumberOfEntriesPerGroupManager()));
         log_.debug(String.format("database.numberOfEntriesPerVirtualMachine: %s", 
                                  configuration.getDatabase().getNumberOfEntriesPerVirtualMachine()));
+        log_.debug(String.format("database.persistent.directory: %s", 
+                                 configuration.getDatabase().getDirectory()));
+        log_.debug(String.format("database.persistent.snapshotInterval: %s", 
+                                 configuration.getDatabase().getSnapshotInterval()));
+        log_.debug(String.format("database.persistent.recoveryTimeout: %s", 
+                                 configuration.getDatabase().getRecoveryTimeout()));
+        log_.debug(String.format("database.persistent.syncInterval: %s", 
+                                 configuration.getDatabase().getSyncInterval()));
         log_.debug("-----------------------");
         log_.debug("Monitoring settings:");
         log_.debug("-----------------------");
@@ -199,6 +228,10 @@ public final class OutputUtils
                                  configuration.getEstimator().getPolicy().getMemory()));
         log_.debug(String.format("estimator.policy.memory: %s",
                                  configuration.getEstimator().getPolicy().getNetwork()));
+        log_.debug(String.format("estimator.ewma.weight: %s",
+                                 configuration.getEstimator().getEwmaWeight()));
+        log_.debug(String.format("estimator.percentile: %s",
+                                 configuration.getEstimator().getPercentile()));
         log_.debug("--------------------------------");
         log_.debug("Group leader scheduler settings:");
         log_.debug("--------------------------------");
@@ -221,6 +254,16 @@ public final class OutputUtils
                                  configuration.getGroupManagerScheduler().getReconfigurationSettings().getPolicy()));
         log_.debug(String.format("groupManagerScheduler.reconfiguration.interval: %s", 
                                 configuration.getGroupManagerScheduler().getReconfigurationSettings().getInterval()));
+        log_.debug(String.format("groupManagerScheduler.reconfiguration.drainTimeout: %d", 
+                           configuration.getGroupManagerScheduler().getReconfigurationSettings().getDrainTimeout()));
+        log_.debug(String.format("groupManagerScheduler.migration.maxConcurrent: %s", 
+                 configuration.getGroupManagerScheduler().getMigrationSettings().getMaxNumberOfConcurrentMigrations()));
+        log_.debug(String.format("groupManagerScheduler.migration.maxPerSource: %s", 
+                 configuration.getGroupManagerScheduler().getMigrationSettings().getMaxNumberOfMigrationsPerSource()));
+        log_.debug(String.format("groupManagerScheduler.migration.maxPerDestination: %s", 
+            configuration.getGroupManagerScheduler().getMigrationSettings().getMaxNumberOfMigrationsPerDestination()));
+        log_.debug(String.format("groupManagerScheduler.concurrency: %s", 
+                                 configuration.getGroupManagerScheduler().getConcurrencyMode()));
         log_.debug("---------------------------");
         log_.debug("Energy management settings:");
         log_.debug("---------------------------");
@@ -0,0 +1,284 @@
+package org.inria.myriads.snoozenode.bootstrap.hierarchy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupLeaderRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupManagerRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozenode.configurator.bootstrap.BootstrapSettings;
+
+public class TestHierarchyService extends TestCase
+{
+    private static final int QUERY_TIME = 100;
+
+    private static final int HANG_TIME = 5000;
+
+    private static final int FAILING_PORT = 1;
+
+    private static final int HANGING_PORT = 2;
+
+    private static final int EMPTY_PORT = 3;
+
+    private static final class FakeHierarchyFetcher implements HierarchyFetcher
+    {
+        private int numberOfGroupManagers_;
+
+        private List<Integer> ports_ = new ArrayList<Integer>();
+
+        private AtomicInteger groupLeaderQueries_ = new AtomicInteger();
+
+        private List<String> groupLeaders_ = Collections.synchronizedList(new ArrayList<String>());
+
+        FakeHierarchyFetcher(int numberOfGroupManagers, Integer... specialPorts)
+        {
+            numberOfGroupManagers_ = numberOfGroupManagers;
+            for (Integer port : specialPorts)
+            {
+                ports_.add(port);
+            }
+        }
+
+        public GroupLeaderRepositoryInformation getGroupLeaderRepositoryInformation(NetworkAddress groupLeaderAddress,
+                                                                                    int numberOfBacklogEntries)
+        {
+            groupLeaderQueries_.incrementAndGet();
+            groupLeaders_.add(groupLeaderAddress.getAddress());
+            sleep(QUERY_TIME);
+            ArrayList<GroupManagerDescription> groupManagers = new ArrayList<GroupManagerDescription>();
+            for (int i = 0; i < numberOfGroupManagers_; i++)
+            {
+                GroupManagerDescription groupManager = new GroupManagerDescription();
+                groupManager.setId("gm" + i);
+                NetworkAddress address = new NetworkAddress();
+                address.setAddress("10.0.0." + i);
+                address.setPort(i < ports_.size() ? ports_.get(i) : 5000);
+                groupManager.getListenSettings().setControlDataAddress(address);
+                groupManagers.add(groupManager);
+            }
+
+            GroupLeaderRepositoryInformation information = new GroupLeaderRepositoryInformation();
+            information.setGroupManagerDescriptions(groupManagers);
+            return information;
+        }
+
+        public GroupManagerRepositoryInformation getGroupManagerRepositoryInformation(NetworkAddress address,
+                                                                                      int numberOfBacklogEntries)
+        {
+            if (address.getPort() == FAILING_PORT)
+            {
+                throw new IllegalStateException("Group manager unreachable");
+            }
+
+            if (address.getPort() == EMPTY_PORT)
+            {
+                return null;
+            }
+
+            sleep(address.getPort() == HANGING_PORT ? HANG_TIME : QUERY_TIME);
+            LocalControllerDescription localController = new LocalControllerDescription();
+            localController.setId("lc-" + address.getAddress());
+            ArrayList<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+            localControllers.add(localController);
+            GroupManagerRepositoryInformation information = new GroupManagerRepositoryInformation();
+            information.setLocalControllerDescriptions(localControllers);
+            return information;
+        }
+
+        private static void sleep(long time)
+        {
+            try
+            {
+                Thread.sleep(time);
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private HierarchyService service_;
+
+    @Override
+    protected void tearDown()
+    {
+        if (service_ != null)
+        {
+            service_.shutdown();
+        }
+    }
+
+    private HierarchyService createService(HierarchyFetcher fetcher, int timeout, int maxAge)
+    {
+        BootstrapSettings settings = new BootstrapSettings();
+        settings.setHierarchyTimeout(timeout);
+        settings.setHierarchyMaxAge(maxAge);
+        settings.setNumberOfHierarchyThreads(16);
+        service_ = new HierarchyService(fetcher, settings);
+        return service_;
+    }
+
+    private static NetworkAddress createAddress(String address)
+    {
+        NetworkAddress networkAddress = new NetworkAddress();
+        networkAddress.setAddress(address);
+        networkAddress.setPort(5000);
+        return networkAddress;
+    }
+
+    public void testNoGroupLeader()
+    {
+        HierarchyService service = createService(new FakeHierarchyFetcher(1), 1000, 1000);
+        assertNull(service.getHierarchy());
+    }
+
+    public void testGroupManagersAreQueriedInParallel()
+    {
+        int numberOfGroupManagers = 12;
+        HierarchyService service = createService(new FakeHierarchyFetcher(numberOfGroupManagers), 2000, 60000);
+        service.setGroupLeaderAddress(createAddress("gl"));
+
+        long start = System.currentTimeMillis();
+        HierarchySnapshot snapshot = service.getHierarchy();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(snapshot.isComplete());
+        assertTrue(elapsed < (numberOfGroupManagers / 2) * QUERY_TIME);
+        List<GroupManagerDescription> groupManagers = snapshot.getHierarchy().getGroupManagerDescriptions();
+        assertEquals(numberOfGroupManagers, groupManagers.size());
+        for (GroupManagerDescription groupManager : groupManagers)
+        {
+            assertEquals(1, groupManager.getLocalControllers().size());
+        }
+    }
+
+    public void testSlowAndFailedGroupManagersAreMarked()
+    {
+        FakeHierarchyFetcher fetcher = new FakeHierarchyFetcher(4, 5000, HANGING_PORT, FAILING_PORT);
+        HierarchyService service = createService(fetcher, 500, 60000);
+        service.setGroupLeaderAddress(createAddress("gl"));
+
+        long start = System.currentTimeMillis();
+        HierarchySnapshot snapshot = service.getHierarchy();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < HANG_TIME);
+        assertFalse(snapshot.isComplete());
+        assertEquals(Collections.singletonList("gm1"), snapshot.getTimedOutGroupManagers());
+        assertEquals(Collections.singletonList("gm2"), snapshot.getFailedGroupManagers());
+        List<GroupManagerDescription> groupManagers = snapshot.getHierarchy().getGroupManagerDescriptions();
+        assertEquals(1, groupManagers.get(0).getLocalControllers().size());
+        assertEquals(0, groupManagers.get(1).getLocalControllers().size());
+        assertEquals(0, groupManagers.get(2).getLocalControllers().size());
+        assertEquals(1, groupManagers.get(3).getLocalControllers().size());
+    }
+
+    public void testGroupManagerWithoutInformationIsMarkedFailed()
+    {
+        FakeHierarchyFetcher fetcher = new FakeHierarchyFetcher(3, 5000, EMPTY_PORT);
+        HierarchyService service = createService(fetcher, 2000, 60000);
+        service.setGroupLeaderAddress(createAddress("gl"));
+
+        HierarchySnapshot snapshot = service.getHierarchy();
+
+        assertNotNull(snapshot);
+        assertFalse(snapshot.isComplete());
+        assertEquals(Collections.singletonList("gm1"), snapshot.getFailedGroupManagers());
+        assertTrue(snapshot.getTimedOutGroupManagers().isEmpty());
+        List<GroupManagerDescription> groupManagers = snapshot.getHierarchy().getGroupManagerDescriptions();
+        assertEquals(1, groupManagers.get(0).getLocalControllers().size());
+        assertEquals(0, groupManagers.get(1).getLocalControllers().size());
+        assertEquals(1, groupManagers.get(2).getLocalControllers().size());
+    }
+
+    public void testConcurrentCallersShareOneResult() throws InterruptedException
+    {
+        FakeHierarchyFetcher fetcher = new FakeHierarchyFetcher(3);
+        final HierarchyService service = createService(fetcher, 2000, 60000);
+        service.setGroupLeaderAddress(createAddress("gl"));
+
+        int numberOfCallers = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<HierarchySnapshot> snapshots = Collections.synchronizedList(new ArrayList<HierarchySnapshot>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < numberOfCallers; i++)
+        {
+            Thread thread = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        return;
+                    }
+
+                    snapshots.add(service.getHierarchy());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(1, fetcher.groupLeaderQueries_.get());
+        assertEquals(numberOfCallers, snapshots.size());
+        for (HierarchySnapshot snapshot : snapshots)
+        {
+            assertSame(snapshots.get(0), snapshot);
+        }
+    }
+
+    public void testExpiredSnapshotIsRefreshedInBackground() throws InterruptedException
+    {
+        FakeHierarchyFetcher fetcher = new FakeHierarchyFetcher(2);
+        HierarchyService service = createService(fetcher, 2000, 50);
+        service.setGroupLeaderAddress(createAddress("gl"));
+
+        HierarchySnapshot first = service.getHierarchy();
+        Thread.sleep(100);
+
+        long start = System.currentTimeMillis();
+        assertSame(first, service.getHierarchy());
+        assertTrue(System.currentTimeMillis() - start < QUERY_TIME);
+
+        Thread.sleep(4 * QUERY_TIME);
+        HierarchySnapshot second = service.getHierarchy();
+        assertNotSame(first, second);
+        assertTrue(second.getTimeStamp() > first.getTimeStamp());
+        assertTrue(fetcher.groupLeaderQueries_.get() >= 2);
+    }
+
+    public void testGroupLeaderChangeInvalidatesSnapshot()
+    {
+        FakeHierarchyFetcher fetcher = new FakeHierarchyFetcher(1);
+        HierarchyService service = createService(fetcher, 2000, 60000);
+        service.setGroupLeaderAddress(createAddress("gl1"));
+        HierarchySnapshot first = service.getHierarchy();
+        assertSame(first, service.getHierarchy());
+
+        service.setGroupLeaderAddress(createAddress("gl2"));
+        HierarchySnapshot second = service.getHierarchy();
+        assertNotSame(first, second);
+        assertEquals("gl2", fetcher.groupLeaders_.get(fetcher.groupLeaders_.size() - 1));
+
+        service.setGroupLeaderAddress(null);
+        assertNull(service.getHierarchy());
+    }
+}
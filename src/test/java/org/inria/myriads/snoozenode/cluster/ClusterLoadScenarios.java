@@ -0,0 +1,267 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.cluster;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.NetworkDemand;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualClusterSubmissionRequest;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualClusterSubmissionResponse;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineTemplate;
+import org.inria.myriads.snoozenode.metrics.Counter;
+import org.inria.myriads.snoozenode.metrics.HistogramSnapshot;
+import org.inria.myriads.snoozenode.metrics.LatencyHistogram;
+import org.inria.myriads.snoozenode.metrics.MetricsFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load scenarios against a {@link LocalCluster}.
+ * 
+ * Sizes are taken from the cluster.* system properties.
+ * 
+ * @author Eugen Feller
+ */
+public class ClusterLoadScenarios extends TestCase
+{
+    /** Define the logger. */
+    private static final Logger log_ = LoggerFactory.getLogger(ClusterLoadScenarios.class);
+
+    /** Number of group managers (group leader excluded). */
+    private static final int NUMBER_OF_GROUP_MANAGERS = Integer.getInteger("cluster.groupManagers", 1);
+
+    /** Number of local controllers. */
+    private static final int NUMBER_OF_LOCAL_CONTROLLERS = Integer.getInteger("cluster.localControllers", 4);
+
+    /** Number of virtual machines submitted. */
+    private static final int NUMBER_OF_VIRTUAL_MACHINES = Integer.getInteger("cluster.virtualMachines", 16);
+
+    /** Number of virtual machines per virtual cluster. */
+    private static final int VIRTUAL_CLUSTER_SIZE = Integer.getInteger("cluster.virtualClusterSize", 4);
+
+    /** Number of concurrent clients. */
+    private static final int NUMBER_OF_CLIENTS = Integer.getInteger("cluster.clients", 2);
+
+    /** Monitoring measurement window (ms). */
+    private static final long MONITORING_WINDOW = Long.getLong("cluster.monitoringWindow", 10000L);
+
+    /** Timeout for startup and submissions (ms). */
+    private static final long TIMEOUT = Long.getLong("cluster.timeout", 120000L);
+
+    /** Libvirt test driver domain template. */
+    private static final String DOMAIN_TEMPLATE =
+        "<domain type='test'><name>%s</name><memory>65536</memory><vcpu>1</vcpu>" +
+        "<os><type>hvm</type></os></domain>";
+
+    /** The cluster. */
+    private LocalCluster cluster_;
+
+    /** Time the local controllers took to join (ms). */
+    private long joinTime_;
+
+    /**
+     * Starts the cluster.
+     * 
+     * @throws Exception    The exception
+     */
+    @Override
+    protected void setUp() 
+        throws Exception
+    {
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                                  "snooze-cluster-" + System.currentTimeMillis());
+        cluster_ = new LocalCluster(NUMBER_OF_GROUP_MANAGERS, NUMBER_OF_LOCAL_CONTROLLERS, directory);
+        cluster_.startHierarchy(TIMEOUT);
+
+        long start = System.currentTimeMillis();
+        cluster_.startLocalControllers(TIMEOUT);
+        joinTime_ = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Stops the cluster.
+     */
+    @Override
+    protected void tearDown()
+    {
+        cluster_.stop();
+    }
+
+    /**
+     * Creates a virtual cluster submission request.
+     * 
+     * @param prefix                    The virtual machine name prefix
+     * @param numberOfVirtualMachines   The number of virtual machines
+     * @return                          The submission request
+     */
+    private static VirtualClusterSubmissionRequest createRequest(String prefix, int numberOfVirtualMachines)
+    {
+        VirtualClusterSubmissionRequest request = new VirtualClusterSubmissionRequest();
+        for (int i = 0; i < numberOfVirtualMachines; i++)
+        {
+            VirtualMachineTemplate template = new VirtualMachineTemplate();
+            template.setLibVirtTemplate(String.format(DOMAIN_TEMPLATE, prefix + "-" + i));
+            template.setNetworkCapacityDemand(new NetworkDemand(1024, 1024));
+            request.getVirtualMachineTemplates().add(template);
+        }
+
+        return request;
+    }
+
+    /**
+     * Submits a virtual cluster and waits for the response.
+     * 
+     * @param groupLeader               The group leader communicator
+     * @param request                   The submission request
+     * @return                          The number of running virtual machines
+     * @throws InterruptedException     The interrupted exception
+     */
+    private static int submit(GroupManagerAPI groupLeader, VirtualClusterSubmissionRequest request)
+        throws InterruptedException
+    {
+        String taskIdentifier = groupLeader.startVirtualCluster(request);
+        assertNotNull(taskIdentifier);
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        VirtualClusterSubmissionResponse response = groupLeader.getVirtualClusterResponse(taskIdentifier);
+        while (response == null)
+        {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(100);
+            response = groupLeader.getVirtualClusterResponse(taskIdentifier);
+        }
+
+        int numberOfRunning = 0;
+        for (VirtualMachineMetaData virtualMachine : response.getVirtualMachineMetaData())
+        {
+            if (VirtualMachineStatus.RUNNING.equals(virtualMachine.getStatus()))
+            {
+                numberOfRunning++;
+            }
+        }
+
+        return numberOfRunning;
+    }
+
+    /**
+     * Submits all virtual machines from concurrent clients.
+     * 
+     * @param latency       The per virtual cluster latency histogram
+     * @return              The number of running virtual machines
+     * @throws Exception    The exception
+     */
+    private int submitAll(final LatencyHistogram latency) 
+        throws Exception
+    {
+        final GroupManagerAPI groupLeader = LocalCluster.newCommunicator(cluster_.getGroupLeaderAddress());
+        ExecutorService clients = Executors.newFixedThreadPool(NUMBER_OF_CLIENTS);
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int submitted = 0; submitted < NUMBER_OF_VIRTUAL_MACHINES; submitted += VIRTUAL_CLUSTER_SIZE)
+        {
+            final VirtualClusterSubmissionRequest request =
+                createRequest("vm" + submitted, Math.min(VIRTUAL_CLUSTER_SIZE, NUMBER_OF_VIRTUAL_MACHINES - submitted));
+            results.add(clients.submit(new Callable<Integer>()
+            {
+                public Integer call() throws Exception
+                {
+                    long start = System.nanoTime();
+                    int numberOfRunning = submit(groupLeader, request);
+                    latency.recordSince(start);
+                    return numberOfRunning;
+                }
+            }));
+        }
+
+        int numberOfRunning = 0;
+        try
+        {
+            for (Future<Integer> result : results)
+            {
+                numberOfRunning += result.get();
+            }
+        }
+        finally
+        {
+            clients.shutdownNow();
+        }
+
+        return numberOfRunning;
+    }
+
+    /**
+     * Measures the virtual cluster submission latency.
+     * 
+     * @throws Exception    The exception
+     */
+    public void testSubmissionLatency() 
+        throws Exception
+    {
+        LatencyHistogram latency = new LatencyHistogram();
+        long start = System.currentTimeMillis();
+        int numberOfRunning = submitAll(latency);
+        long duration = System.currentTimeMillis() - start;
+
+        HistogramSnapshot snapshot = latency.getSnapshot();
+        log_.info(String.format("Submission (%d LCs, %d VMs, %d clients): join %d ms, total %d ms, " +
+                                "per cluster p50 %d us, p99 %d us, max %d us",
+                                NUMBER_OF_LOCAL_CONTROLLERS, NUMBER_OF_VIRTUAL_MACHINES, NUMBER_OF_CLIENTS,
+                                joinTime_, duration, snapshot.getP50(), snapshot.getP99(), snapshot.getMax()));
+        assertEquals(NUMBER_OF_VIRTUAL_MACHINES, numberOfRunning);
+    }
+
+    /**
+     * Measures the group manager monitoring throughput.
+     * 
+     * @throws Exception    The exception
+     */
+    public void testMonitoringThroughput() 
+        throws Exception
+    {
+        assertEquals(NUMBER_OF_VIRTUAL_MACHINES, submitAll(new LatencyHistogram()));
+
+        Counter received = MetricsFactory.getRegistry().getCounter("groupmanager.monitoring.received");
+        Counter dropped = MetricsFactory.getRegistry().getCounter("groupmanager.monitoring.dropped");
+        long receivedBefore = received.getValue();
+        long droppedBefore = dropped.getValue();
+        Thread.sleep(MONITORING_WINDOW);
+        long numberOfReceived = received.getValue() - receivedBefore;
+        long numberOfDropped = dropped.getValue() - droppedBefore;
+
+        HistogramSnapshot processing =
+            MetricsFactory.getRegistry().getHistogram("groupmanager.monitoring.processing").getSnapshot();
+        log_.info(String.format("Monitoring (%d LCs, %d VMs): %.1f summaries/s, %d dropped, " +
+                                "processing p50 %d us, p99 %d us",
+                                NUMBER_OF_LOCAL_CONTROLLERS, NUMBER_OF_VIRTUAL_MACHINES,
+                                numberOfReceived * 1000.0 / MONITORING_WINDOW, numberOfDropped,
+                                processing.getP50(), processing.getP99()));
+        assertTrue(numberOfReceived > 0);
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.cluster;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import org.apache.zookeeper.server.NIOServerCnxn;
+import org.apache.zookeeper.server.ZooKeeperServer;
+
+/**
+ * Standalone ZooKeeper server running in the test JVM.
+ * 
+ * @author Eugen Feller
+ */
+public final class EmbeddedZooKeeper
+{
+    /** Tick time (ms). */
+    private static final int TICK_TIME = 500;
+
+    /** Data directory. */
+    private File directory_;
+
+    /** Client port. */
+    private int port_;
+
+    /** The server. */
+    private ZooKeeperServer server_;
+
+    /** The connection factory. */
+    private NIOServerCnxn.Factory factory_;
+
+    /**
+     * Constructor.
+     * 
+     * @param directory     The data directory
+     * @param port          The client port
+     */
+    public EmbeddedZooKeeper(File directory, int port)
+    {
+        directory_ = directory;
+        port_ = port;
+    }
+
+    /**
+     * Starts the server.
+     * 
+     * @throws IOException              The I/O exception
+     * @throws InterruptedException     The interrupted exception
+     */
+    public void start() 
+        throws IOException, InterruptedException
+    {
+        File snapshots = new File(directory_, "snapshots");
+        File logs = new File(directory_, "logs");
+        if (!snapshots.mkdirs() || !logs.mkdirs())
+        {
+            throw new IOException(String.format("Unable to create %s", directory_.getAbsolutePath()));
+        }
+
+        server_ = new ZooKeeperServer(snapshots, logs, TICK_TIME);
+        factory_ = new NIOServerCnxn.Factory(new InetSocketAddress(LocalCluster.LOOPBACK_ADDRESS, port_));
+        factory_.startup(server_);
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop()
+    {
+        if (factory_ != null)
+        {
+            factory_.shutdown();
+            factory_ = null;
+        }
+
+        if (server_ != null)
+        {
+            server_.shutdown();
+            server_ = null;
+        }
+    }
+
+    /**
+     * Returns the connection string.
+     * 
+     * @return  The connection string
+     */
+    public String getHosts()
+    {
+        return LocalCluster.LOOPBACK_ADDRESS + ":" + port_;
+    }
+}
@@ -0,0 +1,407 @@
+/**
+ * Copyright (C) 2010-2013 Eugen Feller, INRIA <eugen.feller@inria.fr>
+ *
+ * This file is part of Snooze, a scalable, autonomic, and
+ * energy-aware virtual machine (VM) management framework.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package org.inria.myriads.snoozenode.cluster;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.DatagramSocket;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.NodeRole;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupLeaderRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.groupmanager.repository.GroupManagerRepositoryInformation;
+import org.inria.myriads.snoozecommon.communication.rest.api.GroupManagerAPI;
+import org.inria.myriads.snoozenode.communication.NodeCommunicatorFactory;
+import org.inria.myriads.snoozenode.configurator.NodeConfiguratorFactory;
+import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
+import org.inria.myriads.snoozenode.main.Main;
+import org.inria.myriads.snoozenode.main.NodeHandle;
+
+/**
+ * In-process cluster of a bootstrap, group managers and local controllers on the loopback interface.
+ * 
+ * Local controllers use the libvirt test driver and the group managers an embedded ZooKeeper.
+ * 
+ * @author Eugen Feller
+ */
+public final class LocalCluster
+{
+    /** Loopback address all nodes listen on. */
+    public static final String LOOPBACK_ADDRESS = "127.0.0.1";
+
+    /** Configuration file the node configurations are derived from. */
+    private static final String CONFIGURATION_TEMPLATE = "configs/framework/snooze_node.cfg";
+
+    /** Poll interval while waiting for the hierarchy (ms). */
+    private static final long POLL_INTERVAL = 200;
+
+    /** Number of group managers (group leader excluded). */
+    private int numberOfGroupManagers_;
+
+    /** Number of local controllers. */
+    private int numberOfLocalControllers_;
+
+    /** Working directory for configurations and ZooKeeper data. */
+    private File directory_;
+
+    /** Configuration overrides applied to every node. */
+    private Properties overrides_ = new Properties();
+
+    /** Ports handed out so far. */
+    private Set<Integer> usedPorts_ = new HashSet<Integer>();
+
+    /** Embedded ZooKeeper. */
+    private EmbeddedZooKeeper zooKeeper_;
+
+    /** Multicast address of the cluster. */
+    private String multicastAddress_;
+
+    /** Group leader heartbeat port. */
+    private int groupLeaderHeartbeatPort_;
+
+    /** Started nodes, in start order. */
+    private List<NodeHandle> nodes_ = new ArrayList<NodeHandle>();
+
+    /** Control data addresses of the group managers. */
+    private List<NetworkAddress> groupManagers_ = new ArrayList<NetworkAddress>();
+
+    /** Control data address of the elected group leader. */
+    private NetworkAddress groupLeader_;
+
+    /**
+     * Constructor.
+     * 
+     * @param numberOfGroupManagers     The number of group managers (group leader excluded)
+     * @param numberOfLocalControllers  The number of local controllers
+     * @param directory                 The working directory
+     */
+    public LocalCluster(int numberOfGroupManagers, int numberOfLocalControllers, File directory)
+    {
+        numberOfGroupManagers_ = numberOfGroupManagers;
+        numberOfLocalControllers_ = numberOfLocalControllers;
+        directory_ = directory;
+    }
+
+    /**
+     * Overrides a configuration property on every node started afterwards.
+     * 
+     * @param key       The property key
+     * @param value     The property value
+     */
+    public void setProperty(String key, String value)
+    {
+        overrides_.setProperty(key, value);
+    }
+
+    /**
+     * Starts ZooKeeper, the bootstrap and the group managers and waits for the group leader election.
+     * 
+     * @param timeout       The timeout (ms)
+     * @throws Exception    The exception
+     */
+    public void startHierarchy(long timeout) 
+        throws Exception
+    {
+        if (!directory_.isDirectory() && !directory_.mkdirs())
+        {
+            throw new IOException(String.format("Unable to create %s", directory_.getAbsolutePath()));
+        }
+
+        Random random = new Random();
+        multicastAddress_ = String.format("239.255.%d.%d", random.nextInt(256), 1 + random.nextInt(254));
+        groupLeaderHeartbeatPort_ = findFreeDatagramPort();
+
+        zooKeeper_ = new EmbeddedZooKeeper(new File(directory_, "zookeeper"), findFreePort());
+        zooKeeper_.start();
+
+        startNode(NodeRole.bootstrap, "bootstrap");
+        for (int i = 0; i <= numberOfGroupManagers_; i++)
+        {
+            groupManagers_.add(startNode(NodeRole.groupmanager, "groupmanager" + i));
+        }
+
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!isHierarchyReady())
+        {
+            awaitDeadline(deadline, "group leader election");
+        }
+    }
+
+    /**
+     * Starts the local controllers and waits until all of them joined a group manager.
+     * 
+     * @param timeout       The timeout (ms)
+     * @throws Exception    The exception
+     */
+    public void startLocalControllers(long timeout) 
+        throws Exception
+    {
+        for (int i = 0; i < numberOfLocalControllers_; i++)
+        {
+            startNode(NodeRole.localcontroller, "localcontroller" + i);
+        }
+
+        long deadline = System.currentTimeMillis() + timeout;
+        while (getNumberOfLocalControllers() < numberOfLocalControllers_)
+        {
+            awaitDeadline(deadline, "local controller join");
+        }
+    }
+
+    /**
+     * Stops the nodes in reverse start order, then ZooKeeper.
+     */
+    public void stop()
+    {
+        for (int i = nodes_.size() - 1; i >= 0; i--)
+        {
+            try
+            {
+                nodes_.get(i).stop();
+            }
+            catch (Exception exception)
+            {
+                continue;
+            }
+        }
+
+        nodes_.clear();
+        if (zooKeeper_ != null)
+        {
+            zooKeeper_.stop();
+            zooKeeper_ = null;
+        }
+    }
+
+    /**
+     * Returns the group leader address.
+     * 
+     * @return  The group leader control data address
+     */
+    public NetworkAddress getGroupLeaderAddress()
+    {
+        return groupLeader_;
+    }
+
+    /**
+     * Returns the number of local controllers known to the group managers.
+     * 
+     * @return  The number of local controllers
+     */
+    public int getNumberOfLocalControllers()
+    {
+        int numberOfLocalControllers = 0;
+        for (NetworkAddress groupManager : groupManagers_)
+        {
+            if (groupManager == groupLeader_)
+            {
+                continue;
+            }
+
+            GroupManagerRepositoryInformation information = null;
+            try
+            {
+                information = newCommunicator(groupManager).getGroupManagerRepositoryInformation(0);
+            }
+            catch (RuntimeException exception)
+            {
+                continue;
+            }
+
+            if (information != null)
+            {
+                numberOfLocalControllers += information.getLocalControllerDescriptions().size();
+            }
+        }
+
+        return numberOfLocalControllers;
+    }
+
+    /**
+     * Creates a group manager communicator.
+     * 
+     * @param address   The control data address
+     * @return          The communicator
+     */
+    public static GroupManagerAPI newCommunicator(NetworkAddress address)
+    {
+        return NodeCommunicatorFactory.newGroupManagerCommunicator(address);
+    }
+
+    /**
+     * Checks whether a group leader knows all group managers.
+     * 
+     * @return  true if the hierarchy is ready, false otherwise
+     */
+    private boolean isHierarchyReady()
+    {
+        for (NetworkAddress groupManager : groupManagers_)
+        {
+            GroupLeaderRepositoryInformation information = null;
+            try
+            {
+                information = newCommunicator(groupManager).getGroupLeaderRepositoryInformation(0);
+            }
+            catch (RuntimeException exception)
+            {
+                continue;
+            }
+
+            if (information != null && information.getGroupManagerDescriptions().size() == numberOfGroupManagers_)
+            {
+                groupLeader_ = groupManager;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Writes the node configuration and starts the node.
+     * 
+     * @param role          The node role
+     * @param name          The node name
+     * @return              The control data address
+     * @throws Exception    The exception
+     */
+    private NetworkAddress startNode(NodeRole role, String name) 
+        throws Exception
+    {
+        Properties properties = new Properties();
+        InputStream input = new FileInputStream(new File(System.getProperty("basedir", "."), CONFIGURATION_TEMPLATE));
+        try
+        {
+            properties.load(input);
+        }
+        finally
+        {
+            input.close();
+        }
+
+        properties.setProperty("network.listen.address", LOOPBACK_ADDRESS);
+        properties.setProperty("network.multicast.address", multicastAddress_);
+        properties.setProperty("network.multicast.groupLeaderHeartbeatPort", String.valueOf(groupLeaderHeartbeatPort_));
+        properties.setProperty("hypervisor.driver", "test");
+        properties.setProperty("faultTolerance.zookeeper.hosts", zooKeeper_.getHosts());
+        properties.setProperty("faultTolerance.heartbeat.interval", "1000");
+        properties.setProperty("faultTolerance.heartbeat.timeout", "5000");
+        properties.setProperty("monitoring.interval", "1000");
+        properties.setProperty("database.type", "memory");
+        properties.setProperty("energyManagement.enabled", "false");
+        properties.putAll(overrides_);
+
+        NetworkAddress address = new NetworkAddress();
+        address.setAddress(LOOPBACK_ADDRESS);
+        address.setPort(findFreePort());
+        properties.setProperty("node.role", role.toString());
+        properties.setProperty("network.listen.controlDataPort", String.valueOf(address.getPort()));
+        properties.setProperty("network.listen.monitoringDataPort", String.valueOf(findFreePort()));
+        properties.setProperty("network.multicast.groupManagerHeartbeatPort", String.valueOf(findFreeDatagramPort()));
+
+        File configurationFile = new File(directory_, name + ".cfg");
+        OutputStream output = new FileOutputStream(configurationFile);
+        try
+        {
+            properties.store(output, name);
+        }
+        finally
+        {
+            output.close();
+        }
+
+        NodeConfiguration nodeConfiguration = NodeConfiguratorFactory
+            .newNodeConfigurator(configurationFile.getAbsolutePath())
+            .getNodeConfiguration();
+        nodes_.add(Main.startNode(nodeConfiguration));
+        return address;
+    }
+
+    /**
+     * Returns a free TCP port not handed out before.
+     * 
+     * @return              The port
+     * @throws IOException  The I/O exception
+     */
+    private int findFreePort() 
+        throws IOException
+    {
+        while (true)
+        {
+            ServerSocket socket = new ServerSocket(0);
+            int port = socket.getLocalPort();
+            socket.close();
+            if (usedPorts_.add(port))
+            {
+                return port;
+            }
+        }
+    }
+
+    /**
+     * Returns a free UDP port not handed out before.
+     * 
+     * @return              The port
+     * @throws IOException  The I/O exception
+     */
+    private int findFreeDatagramPort() 
+        throws IOException
+    {
+        while (true)
+        {
+            DatagramSocket socket = new DatagramSocket(0);
+            int port = socket.getLocalPort();
+            socket.close();
+            if (usedPorts_.add(port))
+            {
+                return port;
+            }
+        }
+    }
+
+    /**
+     * Sleeps one poll interval or fails once the deadline passed.
+     * 
+     * @param deadline      The deadline (ms)
+     * @param operation     The awaited operation
+     * @throws Exception    The exception
+     */
+    private static void awaitDeadline(long deadline, String operation) 
+        throws Exception
+    {
+        if (System.currentTimeMillis() > deadline)
+        {
+            throw new IllegalStateException(String.format("Timed out waiting for %s", operation));
+        }
+
+        Thread.sleep(POLL_INTERVAL);
+    }
+}
@@ -0,0 +1,175 @@
+package org.inria.myriads.snoozenode.communication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+
+public class TestAsyncCommunicator extends TestCase
+{
+    private static final int NUMBER_OF_NODES = 4;
+
+    private static final long TIMEOUT = 10;
+
+    private static final long CALL_TIMEOUT = 200;
+
+    private ExecutorService executor_;
+
+    private AsyncCommunicator<String> communicator_;
+
+    @Override
+    protected void setUp()
+    {
+        executor_ = Executors.newFixedThreadPool(NUMBER_OF_NODES);
+        communicator_ = new AsyncCommunicator<String>(new CommunicatorProvider<String>()
+        {
+            public String getCommunicator(NetworkAddress address)
+            {
+                return address.getAddress() + ":" + address.getPort();
+            }
+        }, executor_, CALL_TIMEOUT * 10);
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        executor_.shutdownNow();
+    }
+
+    private static List<NetworkAddress> createAddresses(int numberOfAddresses)
+    {
+        List<NetworkAddress> addresses = new ArrayList<NetworkAddress>();
+        for (int i = 0; i < numberOfAddresses; i++)
+        {
+            NetworkAddress address = new NetworkAddress();
+            address.setAddress("10.0.0." + i);
+            address.setPort(5000 + i);
+            addresses.add(address);
+        }
+
+        return addresses;
+    }
+
+    public void testCallsAreIssuedConcurrently()
+    {
+        final CyclicBarrier barrier = new CyclicBarrier(NUMBER_OF_NODES);
+        List<String> results = communicator_.invokeAll(createAddresses(NUMBER_OF_NODES),
+                                                       new CommunicatorCall<String, String>()
+        {
+            public String call(String communicator)
+            {
+                try
+                {
+                    barrier.await(TIMEOUT, TimeUnit.SECONDS);
+                }
+                catch (Exception exception)
+                {
+                    return null;
+                }
+
+                return communicator;
+            }
+        });
+
+        assertEquals(NUMBER_OF_NODES, results.size());
+        for (int i = 0; i < NUMBER_OF_NODES; i++)
+        {
+            assertEquals("10.0.0." + i + ":" + (5000 + i), results.get(i));
+        }
+    }
+
+    public void testFailedCallReturnsNull()
+    {
+        List<String> results = communicator_.invokeAll(createAddresses(3), new CommunicatorCall<String, String>()
+        {
+            public String call(String communicator)
+            {
+                if (communicator.startsWith("10.0.0.1:"))
+                {
+                    throw new IllegalStateException("Node unreachable");
+                }
+
+                return communicator;
+            }
+        });
+
+        assertEquals("10.0.0.0:5000", results.get(0));
+        assertNull(results.get(1));
+        assertEquals("10.0.0.2:5002", results.get(2));
+    }
+
+    public void testHangingCallTimesOut()
+    {
+        communicator_.setTimeout(CALL_TIMEOUT);
+        final CountDownLatch release = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        List<String> results = communicator_.invokeAll(createAddresses(3), new CommunicatorCall<String, String>()
+        {
+            public String call(String communicator)
+            {
+                if (communicator.startsWith("10.0.0.1:"))
+                {
+                    try
+                    {
+                        release.await(TIMEOUT, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        return "interrupted";
+                    }
+                }
+
+                return communicator;
+            }
+        });
+        long elapsed = System.currentTimeMillis() - start;
+        release.countDown();
+
+        assertTrue(elapsed < TimeUnit.SECONDS.toMillis(TIMEOUT));
+        assertEquals("10.0.0.0:5000", results.get(0));
+        assertNull(results.get(1));
+        assertEquals("10.0.0.2:5002", results.get(2));
+    }
+
+    public void testSingleCallRunsInline()
+    {
+        final Thread caller = Thread.currentThread();
+        List<Boolean> results = communicator_.invokeAll(createAddresses(1), new CommunicatorCall<String, Boolean>()
+        {
+            public Boolean call(String communicator)
+            {
+                return Thread.currentThread() == caller;
+            }
+        });
+
+        assertEquals(Boolean.TRUE, results.get(0));
+        assertTrue(communicator_.invokeAll(createAddresses(0), new CommunicatorCall<String, Boolean>()
+        {
+            public Boolean call(String communicator)
+            {
+                return true;
+            }
+        }).isEmpty());
+    }
+
+    public void testSubmit() throws Exception
+    {
+        NetworkAddress address = createAddresses(1).get(0);
+        String result = communicator_.submit(address, new CommunicatorCall<String, String>()
+        {
+            public String call(String communicator)
+            {
+                return communicator.toUpperCase();
+            }
+        }).get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals("10.0.0.0:5000", result);
+    }
+}
@@ -0,0 +1,169 @@
+package org.inria.myriads.snoozenode.communication;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.restlet.Server;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.ext.httpclient.HttpClientHelper;
+import org.restlet.resource.Delete;
+import org.restlet.resource.Get;
+import org.restlet.resource.Post;
+import org.restlet.resource.Put;
+import org.restlet.resource.ServerResource;
+
+public class TestRestCommunicatorHandler extends TestCase
+{
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    private static final int READ_TIMEOUT = 2000;
+
+    private static final int NUMBER_OF_CALLS = 20;
+
+    private static final long TIMEOUT = 10;
+
+    public interface TestResource
+    {
+        @Get
+        String getName();
+
+        @Post
+        boolean isStarted();
+
+        @Put
+        int getCount();
+
+        @Delete
+        long getSize();
+    }
+
+    public static class TestServerResource extends ServerResource implements TestResource
+    {
+        public String getName()
+        {
+            return "snooze";
+        }
+
+        public boolean isStarted()
+        {
+            return true;
+        }
+
+        public int getCount()
+        {
+            return 1;
+        }
+
+        public long getSize()
+        {
+            return 1;
+        }
+    }
+
+    private Server server_;
+
+    private RestClientPool clientPool_;
+
+    private ExecutorService executor_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        Engine.getInstance().getRegisteredClients().clear();
+        Engine.getInstance().getRegisteredClients().add(new HttpClientHelper(null));
+        server_ = new Server(Protocol.HTTP, 0, TestServerResource.class);
+        server_.start();
+        clientPool_ = new RestClientPool(CONNECT_TIMEOUT, READ_TIMEOUT, 1, 1);
+        executor_ = Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        executor_.shutdownNow();
+        clientPool_.stop();
+        server_.stop();
+    }
+
+    private TestResource createCommunicator(int port)
+    {
+        NetworkAddress address = new NetworkAddress();
+        address.setAddress("127.0.0.1");
+        address.setPort(port);
+        RestCommunicatorHandler handler = new RestCommunicatorHandler(clientPool_, address, "test", 
+                                                                      TestResource.class);
+        return (TestResource) Proxy.newProxyInstance(TestResource.class.getClassLoader(), 
+                                                     new Class<?>[] {TestResource.class}, 
+                                                     handler);
+    }
+
+    private static int getFreePort() throws IOException
+    {
+        ServerSocket socket = new ServerSocket(0);
+        int port = socket.getLocalPort();
+        socket.close();
+        return port;
+    }
+
+    public void testSuccessfulCall()
+    {
+        TestResource communicator = createCommunicator(server_.getActualPort());
+        assertEquals("snooze", communicator.getName());
+    }
+
+    public void testConnectionRefusedReturnsDefaultValue() throws IOException
+    {
+        TestResource communicator = createCommunicator(getFreePort());
+        assertNull(communicator.getName());
+    }
+
+    public void testPrimitiveDefaultValues() throws IOException
+    {
+        TestResource communicator = createCommunicator(getFreePort());
+        assertFalse(communicator.isStarted());
+        assertEquals(0, communicator.getCount());
+        assertEquals(0L, communicator.getSize());
+    }
+
+    public void testClientResourceIsReleased() throws Exception
+    {
+        final TestResource communicator = createCommunicator(server_.getActualPort());
+        List<String> names = executor_.submit(new Callable<List<String>>()
+        {
+            public List<String> call()
+            {
+                List<String> names = new ArrayList<String>();
+                for (int i = 0; i < NUMBER_OF_CALLS; i++)
+                {
+                    names.add(communicator.getName());
+                }
+
+                return names;
+            }
+        }).get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(NUMBER_OF_CALLS, names.size());
+        for (String name : names)
+        {
+            assertEquals("snooze", name);
+        }
+    }
+
+    public void testObjectMethodsAreHandledLocally()
+    {
+        TestResource communicator = createCommunicator(server_.getActualPort());
+        assertTrue(communicator.equals(communicator));
+        assertTrue(communicator.toString().endsWith("/test"));
+    }
+}
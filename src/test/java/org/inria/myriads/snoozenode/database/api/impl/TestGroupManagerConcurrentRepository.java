@@ -0,0 +1,232 @@
+package org.inria.myriads.snoozenode.database.api.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.database.history.HistoryIterator;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryReader;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
+
+import static org.inria.myriads.snoozenode.util.RepositoryFixtures.createLocation;
+import static org.inria.myriads.snoozenode.util.RepositoryFixtures.createMonitoringData;
+
+public class TestGroupManagerConcurrentRepository extends TestCase
+{
+    private static final int NUMBER_OF_LOCAL_CONTROLLERS = 8;
+
+    private static final int NUMBER_OF_VIRTUAL_MACHINES = 4;
+
+    private static final int MAX_CAPACITY = 10;
+
+    private GroupManagerConcurrentRepository repository_;
+
+    @Override
+    protected void setUp()
+    {
+        repository_ = new GroupManagerConcurrentRepository("gm", MAX_CAPACITY);
+        for (int i = 0; i < NUMBER_OF_LOCAL_CONTROLLERS; i++)
+        {
+            LocalControllerDescription localController = new LocalControllerDescription();
+            localController.setId("lc" + i);
+            for (int j = 0; j < NUMBER_OF_VIRTUAL_MACHINES; j++)
+            {
+                String virtualMachineId = "lc" + i + "-vm" + j;
+                VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+                virtualMachine.getVirtualMachineLocation().setVirtualMachineId(virtualMachineId);
+                virtualMachine.setIpAddress("10.0." + i + "." + j);
+                virtualMachine.setStatus(VirtualMachineStatus.RUNNING);
+                localController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+            }
+
+            assertTrue(repository_.addLocalControllerDescription(localController));
+        }
+    }
+
+
+    private LocalControllerDescription getSnapshot(String localControllerId)
+    {
+        for (LocalControllerDescription snapshot : repository_.getLocalControllerSnapshots(false))
+        {
+            if (snapshot.getId().equals(localControllerId))
+            {
+                return snapshot;
+            }
+        }
+
+        return null;
+    }
+
+    public void testSnapshotsAreSharedUntilMetaDataChanges()
+    {
+        LocalControllerDescription snapshot = getSnapshot("lc0");
+        repository_.addAggregatedMonitoringData("lc0", createMonitoringData("lc0-vm0", 1));
+        assertSame(snapshot, getSnapshot("lc0"));
+
+        VirtualMachineLocation location = createLocation("lc0-vm0", "lc0");
+        assertTrue(repository_.changeVirtualMachineStatus(location, VirtualMachineStatus.PAUSED));
+        LocalControllerDescription changed = getSnapshot("lc0");
+        assertNotSame(snapshot, changed);
+        assertEquals(VirtualMachineStatus.RUNNING, snapshot.getVirtualMachineMetaData().get("lc0-vm0").getStatus());
+        assertEquals(VirtualMachineStatus.PAUSED, changed.getVirtualMachineMetaData().get("lc0-vm0").getStatus());
+        assertTrue(repository_.checkVirtualMachineStatus(location, VirtualMachineStatus.PAUSED));
+    }
+
+    public void testReadsReturnMonitoringHistory()
+    {
+        for (long timeStamp = 1; timeStamp <= 3; timeStamp++)
+        {
+            repository_.addAggregatedMonitoringData("lc1", createMonitoringData("lc1-vm2", timeStamp));
+        }
+
+        LocalControllerDescription localController = repository_.getLocalControllerDescription("lc1", 2);
+        assertEquals(2, localController.getVirtualMachineMetaData().get("lc1-vm2").getUsedCapacity().size());
+        assertEquals(0, getSnapshot("lc1").getVirtualMachineMetaData().get("lc1-vm2").getUsedCapacity().size());
+        assertEquals(3, repository_.getVirtualMachineHistory(createLocation("lc1-vm2", "lc1"), MAX_CAPACITY).getSize());
+    }
+
+    public void testHistoryIsReadInPlaceAndCopiedOut()
+    {
+        VirtualMachineLocation location = createLocation("lc1-vm2", "lc1");
+        for (long timeStamp = 1; timeStamp <= MAX_CAPACITY + 2; timeStamp++)
+        {
+            repository_.addAggregatedMonitoringData("lc1", createMonitoringData("lc1-vm2", timeStamp, timeStamp));
+        }
+
+        VirtualMachineHistoryReader<Double> sumReader = new VirtualMachineHistoryReader<Double>()
+        {
+            public Double read(VirtualMachineHistoryView history)
+            {
+                double sum = 0;
+                HistoryIterator iterator = history.iterator();
+                while (iterator.next())
+                {
+                    sum += iterator.getCpuUtilization();
+                }
+                return sum;
+            }
+        };
+        assertEquals(10.0 + 11.0 + 12.0, repository_.readVirtualMachineHistory(location, 3, sumReader), 0.0);
+        assertNull(repository_.readVirtualMachineHistory(createLocation("lc1-vm9", "lc1"), 3, sumReader));
+
+        VirtualMachineHistoryView copy = repository_.getVirtualMachineHistory(location, 3);
+        repository_.addAggregatedMonitoringData("lc1", createMonitoringData("lc1-vm2", MAX_CAPACITY + 3, 100.0));
+        assertEquals(10L, copy.getTimeStamp(0));
+        assertEquals(12.0, copy.getCpuUtilization(2), 0.0);
+    }
+
+    public void testStatusFilterAndDrop()
+    {
+        assertTrue(repository_.changeLocalControllerStatus("lc2", LocalControllerStatus.PASSIVE));
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS - 1, repository_.getLocalControllerSnapshots(true).size());
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS, repository_.getLocalControllerDescriptions(0, false).size());
+
+        assertFalse(repository_.dropLocalController("lc2", false));
+        assertTrue(repository_.dropLocalController("lc2", true));
+        assertNull(repository_.searchVirtualMachine("lc2-vm0"));
+        assertEquals(NUMBER_OF_VIRTUAL_MACHINES, repository_.getLegacyIpAddresses().size());
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS - 1, repository_.getNumberOfLocalControllers());
+        assertFalse(repository_.addVirtualMachine(new VirtualMachineMetaData()));
+    }
+
+    public void testConcurrentWritersAndReaders() throws Exception
+    {
+        final int iterations = 2000;
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < NUMBER_OF_LOCAL_CONTROLLERS; i++)
+        {
+            final int index = i;
+            threads.add(new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        Random random = new Random(index);
+                        for (int n = 1; n <= iterations; n++)
+                        {
+                            String virtualMachineId = "lc" + index + "-vm" + random.nextInt(NUMBER_OF_VIRTUAL_MACHINES);
+                            String localControllerId = repository_.searchVirtualMachine(virtualMachineId);
+                            repository_.addAggregatedMonitoringData(localControllerId,
+                                                                    createMonitoringData(virtualMachineId, n));
+                            String destinationId = "lc" + random.nextInt(NUMBER_OF_LOCAL_CONTROLLERS);
+                            assertTrue(repository_.updateVirtualMachineLocation(
+                                createLocation(virtualMachineId, localControllerId),
+                                createLocation(virtualMachineId, destinationId)));
+                        }
+                    }
+                    catch (Throwable exception)
+                    {
+                        failures.add(exception);
+                    }
+                }
+            }));
+        }
+
+        for (int i = 0; i < 4; i++)
+        {
+            threads.add(new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int n = 0; n < iterations; n++)
+                        {
+                            List<LocalControllerDescription> localControllers = (n % 2 == 0) ?
+                                repository_.getLocalControllerSnapshots(false) :
+                                repository_.getLocalControllerDescriptions(MAX_CAPACITY, false);
+                            assertEquals(NUMBER_OF_LOCAL_CONTROLLERS, localControllers.size());
+                            for (LocalControllerDescription localController : localControllers)
+                            {
+                                for (VirtualMachineMetaData virtualMachine :
+                                     localController.getVirtualMachineMetaData().values())
+                                {
+                                    assertEquals(localController.getId(),
+                                                 virtualMachine.getVirtualMachineLocation().getLocalControllerId());
+                                    assertTrue(virtualMachine.getUsedCapacity().size() <= MAX_CAPACITY);
+                                }
+                            }
+                        }
+                    }
+                    catch (Throwable exception)
+                    {
+                        failures.add(exception);
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        int numberOfVirtualMachines = 0;
+        for (LocalControllerDescription localController : repository_.getLocalControllerSnapshots(false))
+        {
+            for (String virtualMachineId : localController.getVirtualMachineMetaData().keySet())
+            {
+                assertEquals(localController.getId(), repository_.searchVirtualMachine(virtualMachineId));
+                numberOfVirtualMachines++;
+            }
+        }
+
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS * NUMBER_OF_VIRTUAL_MACHINES, numberOfVirtualMachines);
+    }
+}
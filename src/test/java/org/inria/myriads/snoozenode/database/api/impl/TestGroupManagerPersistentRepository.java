@@ -0,0 +1,328 @@
+package org.inria.myriads.snoozenode.database.api.impl;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
+import org.inria.myriads.snoozenode.database.journal.RepositoryJournal;
+import org.inria.myriads.snoozenode.util.SerializationUtils;
+
+import static org.inria.myriads.snoozenode.util.RepositoryFixtures.createLocation;
+import static org.inria.myriads.snoozenode.util.RepositoryFixtures.createMonitoringData;
+
+public class TestGroupManagerPersistentRepository extends TestCase
+{
+    private static final int MAX_CAPACITY = 10;
+
+    private static final long NEVER = 3600000;
+
+    private static final long TIMEOUT = 5000;
+
+    private File directory_;
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        directory_ = File.createTempFile("repository", "");
+        assertTrue(directory_.delete());
+        assertTrue(directory_.mkdirs());
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        File[] files = directory_.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+
+        directory_.delete();
+    }
+
+    private GroupManagerPersistentRepository open(long recoveryTimeout, long syncInterval) throws IOException
+    {
+        return new GroupManagerPersistentRepository("gm", MAX_CAPACITY, directory_, NEVER, recoveryTimeout, 
+                                                    syncInterval);
+    }
+
+    private GroupManagerPersistentRepository open(long recoveryTimeout) throws IOException
+    {
+        return open(recoveryTimeout, 0);
+    }
+
+    private GroupManagerPersistentRepository open() throws IOException
+    {
+        return open(NEVER);
+    }
+
+    private static LocalControllerDescription createLocalController(int index, int numberOfVirtualMachines)
+    {
+        LocalControllerDescription localController = new LocalControllerDescription();
+        localController.setId("lc" + index);
+        for (int i = 0; i < numberOfVirtualMachines; i++)
+        {
+            VirtualMachineMetaData virtualMachine = createVirtualMachine(index, i);
+            localController.getVirtualMachineMetaData().put("lc" + index + "-vm" + i, virtualMachine);
+        }
+
+        return localController;
+    }
+
+    private static VirtualMachineMetaData createVirtualMachine(int localControllerIndex, int index)
+    {
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.getVirtualMachineLocation().setVirtualMachineId("lc" + localControllerIndex + "-vm" + index);
+        virtualMachine.setIpAddress("10.0." + localControllerIndex + "." + index);
+        virtualMachine.setStatus(VirtualMachineStatus.RUNNING);
+        return virtualMachine;
+    }
+
+
+    private File getJournal()
+    {
+        return new File(directory_, RepositoryJournal.JOURNAL_FILE);
+    }
+
+    public void testJournaledChangesAreRecovered() throws IOException
+    {
+        GroupManagerPersistentRepository repository = open();
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(repository.addLocalControllerDescription(createLocalController(i, 2)));
+        }
+
+        VirtualMachineMetaData added = createVirtualMachine(0, 9);
+        added.getVirtualMachineLocation().setLocalControllerId("lc0");
+        assertTrue(repository.addVirtualMachine(added));
+        assertTrue(repository.changeVirtualMachineStatus(createLocation("lc0-vm0", "lc0"), 
+                                                         VirtualMachineStatus.PAUSED));
+        assertTrue(repository.dropVirtualMachineData(createLocation("lc1-vm1", "lc1")));
+        assertTrue(repository.updateVirtualMachineLocation(createLocation("lc1-vm0", "lc1"), 
+                                                           createLocation("lc1-vm0", "lc2")));
+        assertTrue(repository.changeLocalControllerStatus("lc2", LocalControllerStatus.PASSIVE));
+        assertFalse(repository.dropVirtualMachineData(createLocation("unknown", "lc1")));
+
+        GroupManagerPersistentRepository recovered = open();
+        assertEquals(3, recovered.getNumberOfLocalControllers());
+        assertEquals("lc0", recovered.searchVirtualMachine("lc0-vm9"));
+        assertTrue(recovered.checkVirtualMachineStatus(createLocation("lc0-vm0", "lc0"), 
+                                                       VirtualMachineStatus.PAUSED));
+        assertNull(recovered.searchVirtualMachine("lc1-vm1"));
+        assertEquals("lc2", recovered.searchVirtualMachine("lc1-vm0"));
+        assertEquals(LocalControllerStatus.PASSIVE, recovered.getLocalControllerDescription("lc2", 0).getStatus());
+        assertEquals(1, recovered.getLegacyIpAddresses().size());
+        recovered.close();
+    }
+
+    public void testSnapshotRestoresMonitoringHistory() throws IOException
+    {
+        GroupManagerPersistentRepository repository = open();
+        assertTrue(repository.addLocalControllerDescription(createLocalController(0, 1)));
+        for (long timeStamp = 1; timeStamp <= 4; timeStamp++)
+        {
+            repository.addAggregatedMonitoringData("lc0", createMonitoringData("lc0-vm0", timeStamp));
+        }
+
+        repository.takeSnapshot();
+        assertFalse(new File(directory_, RepositoryJournal.ROTATED_JOURNAL_FILE).exists());
+        assertTrue(repository.addLocalControllerDescription(createLocalController(1, 1)));
+
+        GroupManagerPersistentRepository recovered = open();
+        assertEquals(2, recovered.getNumberOfLocalControllers());
+        VirtualMachineLocation location = createLocation("lc0-vm0", "lc0");
+        assertEquals(4, recovered.getVirtualMachineHistory(location, MAX_CAPACITY).getSize());
+        assertEquals(4, recovered.getVirtualMachineMetaData(location, MAX_CAPACITY).getUsedCapacity().size());
+        recovered.close();
+    }
+
+    public void testCleanResetsJournal() throws IOException
+    {
+        GroupManagerPersistentRepository repository = open();
+        assertTrue(repository.addLocalControllerDescription(createLocalController(0, 2)));
+        repository.clean();
+        assertEquals(0, repository.getNumberOfLocalControllers());
+        assertTrue(repository.addLocalControllerDescription(createLocalController(1, 2)));
+
+        GroupManagerPersistentRepository recovered = open();
+        assertEquals(1, recovered.getNumberOfLocalControllers());
+        assertNull(recovered.searchVirtualMachine("lc0-vm1"));
+        assertEquals("lc1", recovered.searchVirtualMachine("lc1-vm1"));
+        recovered.close();
+    }
+
+    public void testGroupCommitRecordsAreRecovered() throws IOException
+    {
+        GroupManagerPersistentRepository repository = open(NEVER, 50);
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(repository.addLocalControllerDescription(createLocalController(i, 1)));
+        }
+
+        repository.close();
+
+        GroupManagerPersistentRepository recovered = open();
+        assertEquals(3, recovered.getNumberOfLocalControllers());
+        recovered.close();
+    }
+
+    public void testUnknownRecordRefusesRecovery() throws IOException
+    {
+        GroupManagerPersistentRepository repository = open();
+        assertTrue(repository.addLocalControllerDescription(createLocalController(0, 1)));
+
+        byte[] payload = SerializationUtils.serializeObject("unknown");
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        DataOutputStream output = new DataOutputStream(new FileOutputStream(getJournal(), true));
+        output.writeInt(payload.length);
+        output.writeInt((int) checksum.getValue());
+        output.write(payload);
+        output.close();
+        long length = getJournal().length();
+
+        try
+        {
+            open();
+            fail();
+        }
+        catch (IOException exception)
+        {
+            assertEquals(length, getJournal().length());
+        }
+    }
+
+    public void testRestoredHistoryIsKeptOnRejoin() throws IOException
+    {
+        GroupManagerPersistentRepository repository = open();
+        assertTrue(repository.addLocalControllerDescription(createLocalController(0, 2)));
+        for (long timeStamp = 1; timeStamp <= 3; timeStamp++)
+        {
+            repository.addAggregatedMonitoringData("lc0", createMonitoringData("lc0-vm0", timeStamp));
+            repository.addAggregatedMonitoringData("lc0", createMonitoringData("lc0-vm1", timeStamp));
+        }
+
+        repository.close();
+
+        GroupManagerPersistentRepository recovered = open();
+        LocalControllerDescription rejoined = createLocalController(0, 1);
+        rejoined.getVirtualMachineMetaData().put("lc0-vm5", createVirtualMachine(0, 5));
+        assertTrue(recovered.addLocalControllerDescription(rejoined));
+
+        VirtualMachineHistoryView history = recovered.getVirtualMachineHistory(createLocation("lc0-vm0", "lc0"), 
+                                                                               MAX_CAPACITY);
+        assertEquals(3, history.getSize());
+        assertEquals(3, history.getTimeStamp(history.getSize() - 1));
+        assertEquals(0, recovered.getVirtualMachineHistory(createLocation("lc0-vm5", "lc0"), MAX_CAPACITY)
+                                 .getSize());
+        assertNull(recovered.getVirtualMachineHistory(createLocation("lc0-vm1", "lc0"), MAX_CAPACITY));
+        recovered.close();
+    }
+
+    public void testTornJournalTailIsCutOff() throws IOException
+    {
+        GroupManagerPersistentRepository repository = open();
+        for (int i = 0; i < 5; i++)
+        {
+            assertTrue(repository.addLocalControllerDescription(createLocalController(i, 1)));
+        }
+
+        RandomAccessFile journal = new RandomAccessFile(getJournal(), "rw");
+        journal.setLength(journal.length() - 5);
+        journal.close();
+
+        GroupManagerPersistentRepository recovered = open();
+        assertEquals(4, recovered.getNumberOfLocalControllers());
+        assertNull(recovered.getLocalControllerDescription("lc4", 0));
+        assertTrue(recovered.addLocalControllerDescription(createLocalController(5, 1)));
+
+        GroupManagerPersistentRepository again = open();
+        assertEquals(5, again.getNumberOfLocalControllers());
+        assertNotNull(again.getLocalControllerDescription("lc5", 0));
+        again.close();
+    }
+
+    public void testCorruptRecordStopsReplay() throws IOException
+    {
+        GroupManagerPersistentRepository repository = open();
+        long[] boundaries = new long[3];
+        for (int i = 0; i < boundaries.length; i++)
+        {
+            assertTrue(repository.addLocalControllerDescription(createLocalController(i, 1)));
+            boundaries[i] = getJournal().length();
+        }
+
+        RandomAccessFile journal = new RandomAccessFile(getJournal(), "rw");
+        long position = (boundaries[0] + boundaries[1]) / 2;
+        journal.seek(position);
+        int value = journal.read();
+        journal.seek(position);
+        journal.write(value ^ 0xFF);
+        journal.close();
+
+        GroupManagerPersistentRepository recovered = open();
+        assertEquals(1, recovered.getNumberOfLocalControllers());
+        assertNotNull(recovered.getLocalControllerDescription("lc0", 0));
+        recovered.close();
+    }
+
+    public void testReleasedLegacyIpAddressesStayReleased() throws IOException
+    {
+        GroupManagerPersistentRepository repository = open();
+        assertTrue(repository.addLocalControllerDescription(createLocalController(0, 2)));
+        assertTrue(repository.dropVirtualMachineData(createLocation("lc0-vm0", "lc0")));
+        repository.takeSnapshot();
+        assertEquals(1, repository.getLegacyIpAddresses().size());
+        assertTrue(repository.dropVirtualMachineData(createLocation("lc0-vm1", "lc0")));
+
+        GroupManagerPersistentRepository recovered = open();
+        List<String> ipAddresses = recovered.getLegacyIpAddresses();
+        assertEquals(1, ipAddresses.size());
+        assertEquals(createVirtualMachine(0, 1).getIpAddress(), ipAddresses.get(0));
+        recovered.close();
+    }
+
+    public void testRestoredLocalControllersMustRejoin() throws Exception
+    {
+        GroupManagerPersistentRepository repository = open();
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(repository.addLocalControllerDescription(createLocalController(i, 1)));
+        }
+
+        assertTrue(repository.changeLocalControllerStatus("lc2", LocalControllerStatus.PASSIVE));
+        repository.close();
+
+        GroupManagerPersistentRepository recovered = open(100);
+        assertTrue(recovered.addLocalControllerDescription(createLocalController(0, 1)));
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (recovered.getLocalControllerDescription("lc1", 0) != null && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+
+        assertNull(recovered.getLocalControllerDescription("lc1", 0));
+        assertNotNull(recovered.getLocalControllerDescription("lc0", 0));
+        assertNotNull(recovered.getLocalControllerDescription("lc2", 0));
+        recovered.close();
+
+        GroupManagerPersistentRepository again = open();
+        assertEquals(2, again.getNumberOfLocalControllers());
+        again.close();
+    }
+}
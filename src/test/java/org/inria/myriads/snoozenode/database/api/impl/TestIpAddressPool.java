@@ -0,0 +1,78 @@
+package org.inria.myriads.snoozenode.database.api.impl;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class TestIpAddressPool extends TestCase
+{
+    public void testAllocateSkipsStartIndex()
+    {
+        IpAddressPool pool = new IpAddressPool(new String[] {"192.168.122.0/29"}, 1);
+        assertEquals(6, pool.getSize());
+        assertEquals("192.168.122.2", pool.peek());
+
+        List<String> addresses = pool.allocate(10);
+        assertEquals(5, addresses.size());
+        assertEquals("192.168.122.2", addresses.get(0));
+        assertEquals("192.168.122.6", addresses.get(4));
+        assertEquals(1, pool.getNumberOfFreeAddresses());
+        assertNull(pool.peek());
+        assertTrue(pool.isFree("192.168.122.1"));
+    }
+
+    public void testReleasedAddressesAreReusedAfterWrapAround()
+    {
+        IpAddressPool pool = new IpAddressPool(new String[] {"10.0.0.0/29"}, 0);
+        List<String> addresses = pool.allocate(3);
+        assertTrue(pool.release(addresses.get(0)));
+        assertFalse(pool.release(addresses.get(0)));
+
+        assertEquals("10.0.0.4", pool.allocate(1).get(0));
+        assertEquals(2, pool.allocate(2).size());
+        assertEquals("10.0.0.1", pool.peek());
+        assertTrue(pool.remove("10.0.0.1"));
+        assertFalse(pool.remove("10.0.0.1"));
+        assertEquals(0, pool.getNumberOfFreeAddresses());
+    }
+
+    public void testMultipleSubnets()
+    {
+        IpAddressPool pool = new IpAddressPool(new String[] {"192.168.122.0/30", "10.0.0.0/30"}, 0);
+        assertEquals(4, pool.getSize());
+
+        List<String> addresses = pool.allocate(4);
+        assertEquals("192.168.122.1", addresses.get(0));
+        assertEquals("192.168.122.2", addresses.get(1));
+        assertEquals("10.0.0.1", addresses.get(2));
+        assertEquals("10.0.0.2", addresses.get(3));
+        assertTrue(pool.release("10.0.0.1"));
+        assertTrue(pool.isFree("10.0.0.1"));
+    }
+
+    public void testUnknownAddresses()
+    {
+        IpAddressPool pool = new IpAddressPool(new String[] {"192.168.122.0/30", "192.168.122.0/29"}, 0);
+        assertEquals(2, pool.getSize());
+        assertFalse(pool.contains("192.168.122.5"));
+        assertFalse(pool.contains("192.168.122.256"));
+        assertFalse(pool.contains("not.an.ip.address"));
+        assertFalse(pool.remove("10.0.0.1"));
+        assertFalse(pool.release("10.0.0.1"));
+    }
+
+    public void testLargeSubnet()
+    {
+        IpAddressPool pool = new IpAddressPool(new String[] {"10.1.0.0/16"}, 1);
+        assertEquals(65534, pool.getSize());
+
+        Set<String> addresses = new HashSet<String>(pool.allocate(65533));
+        assertEquals(65533, addresses.size());
+        assertTrue(addresses.contains("10.1.255.254"));
+        assertFalse(addresses.contains("10.1.0.1"));
+        assertEquals(1, pool.getNumberOfFreeAddresses());
+        assertEquals(0, pool.allocate(1).size());
+    }
+}
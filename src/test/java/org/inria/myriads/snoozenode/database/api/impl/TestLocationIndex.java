@@ -0,0 +1,96 @@
+package org.inria.myriads.snoozenode.database.api.impl;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.LocationUpdate;
+
+public class TestLocationIndex extends TestCase
+{
+    private static NetworkAddress createAddress(int port)
+    {
+        NetworkAddress address = new NetworkAddress();
+        address.setAddress("10.0.0.1");
+        address.setPort(port);
+        return address;
+    }
+
+    private static LocationUpdate createFullUpdate(long sequenceNumber)
+    {
+        LocationUpdate update = new LocationUpdate(sequenceNumber, true);
+        update.getLocalControllers().put("lc1", createAddress(5000));
+        update.getVirtualMachines().put("vm1", "lc1");
+        update.getVirtualMachines().put("vm2", "lc1");
+        return update;
+    }
+
+    public void testLookups()
+    {
+        LocationIndex index = new LocationIndex();
+        assertTrue(index.update("gm1", createFullUpdate(0)));
+
+        VirtualMachineLocation location = index.lookupVirtualMachine("vm1");
+        assertEquals("gm1", location.getGroupManagerId());
+        assertEquals("lc1", location.getLocalControllerId());
+        assertEquals("vm1", location.getVirtualMachineId());
+
+        VirtualMachineLocation localController = index.lookupLocalController(createAddress(5000));
+        assertEquals("gm1", localController.getGroupManagerId());
+        assertEquals("lc1", localController.getLocalControllerId());
+        assertNull(index.lookupLocalController(createAddress(5001)));
+        assertNull(index.lookupVirtualMachine("vm3"));
+    }
+
+    public void testDeltaUpdates()
+    {
+        LocationIndex index = new LocationIndex();
+        index.update("gm1", createFullUpdate(0));
+
+        LocationUpdate delta = new LocationUpdate(1, false);
+        delta.getLocalControllers().put("lc2", createAddress(5001));
+        delta.getVirtualMachines().put("vm2", "lc2");
+        delta.getRemovedVirtualMachines().add("vm1");
+        assertTrue(index.update("gm1", delta));
+
+        assertNull(index.lookupVirtualMachine("vm1"));
+        assertEquals("lc2", index.lookupVirtualMachine("vm2").getLocalControllerId());
+        assertEquals("lc2", index.lookupLocalController(createAddress(5001)).getLocalControllerId());
+
+        LocationUpdate removal = new LocationUpdate(2, false);
+        removal.getRemovedLocalControllers().add("lc1");
+        assertTrue(index.update("gm1", removal));
+        assertNull(index.lookupLocalController(createAddress(5000)));
+    }
+
+    public void testSequenceGapDropsGroupManager()
+    {
+        LocationIndex index = new LocationIndex();
+        index.update("gm1", createFullUpdate(0));
+
+        assertFalse(index.update("gm1", new LocationUpdate(5, false)));
+        assertNull(index.lookupVirtualMachine("vm1"));
+        assertNull(index.lookupLocalController(createAddress(5000)));
+        assertFalse(index.update("gm1", new LocationUpdate(6, false)));
+
+        assertTrue(index.update("gm1", createFullUpdate(7)));
+        assertNotNull(index.lookupVirtualMachine("vm1"));
+        assertTrue(index.update("gm1", new LocationUpdate(8, false)));
+    }
+
+    public void testGroupManagersDoNotRemoveForeignEntries()
+    {
+        LocationIndex index = new LocationIndex();
+        index.update("gm1", createFullUpdate(0));
+        LocationUpdate takeover = new LocationUpdate(0, true);
+        takeover.getLocalControllers().put("lc1", createAddress(5000));
+        takeover.getVirtualMachines().put("vm1", "lc1");
+        index.update("gm2", takeover);
+
+        index.removeGroupManager("gm1");
+        assertEquals("gm2", index.lookupVirtualMachine("vm1").getGroupManagerId());
+        assertEquals("gm2", index.lookupLocalController(createAddress(5000)).getGroupManagerId());
+        assertNull(index.lookupVirtualMachine("vm2"));
+        assertEquals(1, index.getNumberOfVirtualMachines());
+    }
+}
@@ -0,0 +1,69 @@
+package org.inria.myriads.snoozenode.database.history;
+
+import junit.framework.TestCase;
+
+public class TestVirtualMachineHistory extends TestCase
+{
+    private static final int CAPACITY = 4;
+
+    private VirtualMachineHistory history_;
+
+    @Override
+    protected void setUp()
+    {
+        history_ = new VirtualMachineHistory(CAPACITY);
+        for (long timeStamp = 1; timeStamp <= 6; timeStamp++)
+        {
+            history_.add(timeStamp, timeStamp, timeStamp * 10, timeStamp * 100, timeStamp * 1000);
+        }
+    }
+
+    private static void assertEntries(VirtualMachineHistoryView view, long firstTimeStamp, int size)
+    {
+        assertEquals(size, view.getSize());
+        HistoryIterator iterator = view.iterator();
+        for (long timeStamp = firstTimeStamp; timeStamp < firstTimeStamp + size; timeStamp++)
+        {
+            assertTrue(iterator.next());
+            assertEquals(timeStamp, iterator.getTimeStamp());
+            assertEquals((double) timeStamp, iterator.getCpuUtilization(), 0.0);
+            assertEquals(timeStamp * 10.0, iterator.getMemoryUtilization(), 0.0);
+            assertEquals(timeStamp * 100.0, iterator.getNetworkRxUtilization(), 0.0);
+            assertEquals(timeStamp * 1000.0, iterator.getNetworkTxUtilization(), 0.0);
+        }
+        assertFalse(iterator.next());
+    }
+
+    public void testViewWrapsAroundRingBuffer()
+    {
+        assertEntries(history_.getView(3), 4, 3);
+        assertEntries(history_.getView(CAPACITY), 3, CAPACITY);
+        assertEntries(history_.getView(100), 3, CAPACITY);
+        assertEquals(0, history_.getView(0).getSize());
+    }
+
+    public void testCopyIsDetachedFromRingBuffer()
+    {
+        VirtualMachineHistoryView copy = history_.getView(CAPACITY).copy();
+        history_.add(7, 7, 70, 700, 7000);
+        history_.add(8, 8, 80, 800, 8000);
+
+        assertEntries(copy, 3, CAPACITY);
+        assertEntries(copy.copy(), 3, CAPACITY);
+        assertEntries(history_.getView(CAPACITY), 5, CAPACITY);
+    }
+
+    public void testViewRejectsIndexOutsideWindow()
+    {
+        VirtualMachineHistoryView view = history_.getView(2);
+        try
+        {
+            view.getCpuUtilization(2);
+            fail();
+        }
+        catch (IndexOutOfBoundsException exception)
+        {
+            assertEquals(6.0, view.getCpuUtilization(1), 0.0);
+        }
+    }
+}
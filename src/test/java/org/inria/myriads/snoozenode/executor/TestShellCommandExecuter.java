@@ -0,0 +1,80 @@
+package org.inria.myriads.snoozenode.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+public class TestShellCommandExecuter extends TestCase
+{
+    private static final int TIMEOUT = 2;
+
+    private ShellCommandExecuter executer_;
+
+    @Override
+    protected void setUp()
+    {
+        executer_ = new ShellCommandExecuter(TIMEOUT);
+    }
+
+    public void testSuccessfulCommandReturnsOnExit()
+    {
+        long start = System.currentTimeMillis();
+        assertTrue(executer_.execute("true"));
+        assertTrue(System.currentTimeMillis() - start < TIMEOUT * 1000);
+    }
+
+    public void testFailingCommand()
+    {
+        ProcessResult result = executer_.run("false");
+        assertEquals(1, result.getExitCode());
+        assertFalse(result.isTimedOut());
+        assertFalse(result.isSuccessful());
+        assertFalse(executer_.execute("false"));
+    }
+
+    public void testOutputIsCaptured()
+    {
+        ProcessResult result = executer_.run("echo snooze");
+        assertTrue(result.isSuccessful());
+        assertEquals("snooze\n", result.getOutput());
+    }
+
+    public void testMissingCommand()
+    {
+        ProcessResult result = executer_.run("/nonexistent/command");
+        assertEquals(ProcessResult.NO_EXIT_CODE, result.getExitCode());
+        assertFalse(result.isSuccessful());
+    }
+
+    public void testTimedOutCommandIsDestroyed()
+    {
+        long start = System.currentTimeMillis();
+        ProcessResult result = executer_.run("sleep 30");
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(result.isTimedOut());
+        assertFalse(result.isSuccessful());
+        assertTrue(elapsed >= TIMEOUT * 1000);
+        assertTrue(elapsed < 10 * 1000);
+    }
+
+    public void testCommandsRunConcurrently() throws Exception
+    {
+        int numberOfCommands = 8;
+        long start = System.currentTimeMillis();
+        List<Future<ProcessResult>> results = new ArrayList<Future<ProcessResult>>();
+        for (int i = 0; i < numberOfCommands; i++)
+        {
+            results.add(executer_.submit("sleep 1"));
+        }
+
+        for (Future<ProcessResult> result : results)
+        {
+            assertTrue(result.get().isSuccessful());
+        }
+
+        assertTrue(System.currentTimeMillis() - start < numberOfCommands * 1000 / 2);
+    }
+}
@@ -0,0 +1,179 @@
+package org.inria.myriads.snoozenode.groupmanager.energysaver.wakeup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozenode.database.api.GroupManagerRepository;
+import org.inria.myriads.snoozenode.database.api.impl.GroupManagerConcurrentRepository;
+
+public class TestWakeupOrchestrator extends TestCase
+{
+    private static final int NUMBER_OF_LOCAL_CONTROLLERS = 4;
+
+    private static final int LONG_TIMEOUT = 30;
+
+    private static final long MAX_WAIT = 5000;
+
+    private static final long TIMEOUT = 10;
+
+    private GroupManagerRepository repository_;
+
+    private List<LocalControllerDescription> localControllers_;
+
+    private static final class FakeWakeupCommand implements WakeupCommand
+    {
+        private final CountDownLatch issued_;
+
+        private boolean isSuccessful_ = true;
+
+        private boolean isRejoining_;
+
+        private GroupManagerRepository repository_;
+
+        FakeWakeupCommand(GroupManagerRepository repository, int numberOfCommands)
+        {
+            repository_ = repository;
+            issued_ = new CountDownLatch(numberOfCommands);
+        }
+
+        public boolean issue(LocalControllerDescription localController)
+        {
+            issued_.countDown();
+            try
+            {
+                if (!issued_.await(TIMEOUT, TimeUnit.SECONDS))
+                {
+                    return false;
+                }
+            }
+            catch (InterruptedException exception)
+            {
+                return false;
+            }
+
+            if (isRejoining_)
+            {
+                LocalControllerDescription rejoined = new LocalControllerDescription();
+                rejoined.setId(localController.getId());
+                rejoined.setStatus(LocalControllerStatus.ACTIVE);
+                repository_.addLocalControllerDescription(rejoined);
+            }
+
+            return isSuccessful_;
+        }
+    }
+
+    @Override
+    protected void setUp()
+    {
+        repository_ = new GroupManagerConcurrentRepository("gm", 10);
+        localControllers_ = new ArrayList<LocalControllerDescription>();
+        for (int i = 0; i < NUMBER_OF_LOCAL_CONTROLLERS; i++)
+        {
+            LocalControllerDescription localController = new LocalControllerDescription();
+            localController.setId("lc" + i);
+            localController.setStatus(LocalControllerStatus.PASSIVE);
+            assertTrue(repository_.addLocalControllerDescription(localController));
+            localControllers_.add(localController);
+        }
+    }
+
+    private LocalControllerStatus getStatus(String localControllerId)
+    {
+        return repository_.getLocalControllerDescription(localControllerId, 0).getStatus();
+    }
+
+    public void testReleasedOnceEnoughLocalControllersRejoined() throws Exception
+    {
+        final FakeWakeupCommand command = new FakeWakeupCommand(repository_, NUMBER_OF_LOCAL_CONTROLLERS);
+        final WakeupOrchestrator orchestrator = new WakeupOrchestrator(LONG_TIMEOUT, command, repository_);
+        Thread joiner = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    command.issued_.await(TIMEOUT, TimeUnit.SECONDS);
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException exception)
+                {
+                    return;
+                }
+
+                orchestrator.onLocalControllerJoined("lc1");
+                orchestrator.onLocalControllerJoined("lc3");
+            }
+        });
+        joiner.start();
+
+        long start = System.currentTimeMillis();
+        List<String> ready = orchestrator.wakeupLocalControllers(localControllers_, 2);
+        long elapsed = System.currentTimeMillis() - start;
+        joiner.join();
+
+        assertTrue(elapsed < MAX_WAIT);
+        assertEquals(2, ready.size());
+        assertTrue(ready.contains("lc1"));
+        assertTrue(ready.contains("lc3"));
+        assertEquals(LocalControllerStatus.WOKENUP, getStatus("lc0"));
+        assertEquals(2, orchestrator.getNumberOfPendingWakeups());
+        orchestrator.shutdown();
+    }
+
+    public void testRejoinDetectedFromRepository() throws Exception
+    {
+        FakeWakeupCommand command = new FakeWakeupCommand(repository_, NUMBER_OF_LOCAL_CONTROLLERS);
+        command.isRejoining_ = true;
+        WakeupOrchestrator orchestrator = new WakeupOrchestrator(LONG_TIMEOUT, command, repository_);
+
+        long start = System.currentTimeMillis();
+        List<String> ready = orchestrator.wakeupLocalControllers(localControllers_, NUMBER_OF_LOCAL_CONTROLLERS);
+
+        assertTrue(System.currentTimeMillis() - start < MAX_WAIT);
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS, ready.size());
+        assertEquals(0, orchestrator.getNumberOfPendingWakeups());
+        orchestrator.shutdown();
+    }
+
+    public void testDeadlineReleasesWaiter() throws Exception
+    {
+        WakeupOrchestrator orchestrator = new WakeupOrchestrator(1, new FakeWakeupCommand(repository_, 1), repository_);
+
+        long start = System.currentTimeMillis();
+        List<String> ready = orchestrator.wakeupLocalControllers(localControllers_.subList(0, 1), 1);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(ready.isEmpty());
+        assertTrue(elapsed >= 900 && elapsed < MAX_WAIT);
+        assertEquals(LocalControllerStatus.WOKENUP, getStatus("lc0"));
+        assertEquals(0, orchestrator.getNumberOfPendingWakeups());
+        orchestrator.shutdown();
+    }
+
+    public void testFailedCommandRestoresPassiveStatus() throws Exception
+    {
+        FakeWakeupCommand command = new FakeWakeupCommand(repository_, NUMBER_OF_LOCAL_CONTROLLERS);
+        command.isSuccessful_ = false;
+        WakeupOrchestrator orchestrator = new WakeupOrchestrator(LONG_TIMEOUT, command, repository_);
+
+        long start = System.currentTimeMillis();
+        List<String> ready = orchestrator.wakeupLocalControllers(localControllers_, NUMBER_OF_LOCAL_CONTROLLERS);
+
+        assertTrue(System.currentTimeMillis() - start < MAX_WAIT);
+        assertTrue(ready.isEmpty());
+        for (LocalControllerDescription localController : localControllers_)
+        {
+            assertEquals(LocalControllerStatus.PASSIVE, getStatus(localController.getId()));
+        }
+
+        assertEquals(0, orchestrator.getNumberOfPendingWakeups());
+        orchestrator.shutdown();
+    }
+}
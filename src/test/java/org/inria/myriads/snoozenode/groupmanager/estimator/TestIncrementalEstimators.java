@@ -0,0 +1,176 @@
+package org.inria.myriads.snoozenode.groupmanager.estimator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.database.history.StreamingStatistic;
+import org.inria.myriads.snoozenode.database.history.StreamingStatisticsFactory;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistory;
+import org.inria.myriads.snoozenode.database.history.VirtualMachineHistoryView;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.AverageCPUDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.api.impl.IncrementalCPUDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.statistic.ExponentialMovingAverage;
+import org.inria.myriads.snoozenode.groupmanager.estimator.statistic.PercentileSketch;
+import org.inria.myriads.snoozenode.groupmanager.estimator.statistic.SlidingWindowMax;
+import org.inria.myriads.snoozenode.groupmanager.estimator.statistic.SlidingWindowMean;
+import org.inria.myriads.snoozenode.groupmanager.estimator.statistic.StatisticFactory;
+
+public class TestIncrementalEstimators extends TestCase
+{
+    private static final int WINDOW = 15;
+    
+    private static final double EPSILON = 1e-9;
+    
+    private EstimatorSettings createSettings()
+    {
+        EstimatorSettings settings = new EstimatorSettings();
+        settings.setNumberOfMonitoringEntries(WINDOW);
+        settings.setEwmaWeight(0.3);
+        settings.setPercentile(0.95);
+        return settings;
+    }
+    
+    private StreamingStatisticsFactory createFactory(final Estimator estimator)
+    {
+        final EstimatorSettings settings = createSettings();
+        return new StreamingStatisticsFactory()
+        {
+            public StreamingStatistic newCpuStatistic()
+            {
+                return StatisticFactory.newStatistic(estimator, settings);
+            }
+            
+            public StreamingStatistic newMemoryStatistic()
+            {
+                return StatisticFactory.newStatistic(estimator, settings);
+            }
+            
+            public StreamingStatistic newNetworkStatistic()
+            {
+                return StatisticFactory.newStatistic(estimator, settings);
+            }
+        };
+    }
+    
+    public void testSlidingWindowMeanMatchesBatchAverage()
+    {
+        VirtualMachineHistory history = new VirtualMachineHistory(WINDOW, createFactory(Estimator.mean));
+        AverageCPUDemandEstimator average = new AverageCPUDemandEstimator();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++)
+        {
+            history.add(i, random.nextDouble() * 100, random.nextDouble(), 0, 0);
+            VirtualMachineHistoryView view = history.getView(WINDOW);
+            assertEquals(average.estimate(view), view.getCpuEstimate(), EPSILON);
+        }
+    }
+    
+    public void testSlidingWindowMaxMatchesBatchMax()
+    {
+        SlidingWindowMax max = new SlidingWindowMax(WINDOW);
+        double[] samples = new double[1000];
+        Random random = new Random(7);
+        for (int i = 0; i < samples.length; i++)
+        {
+            samples[i] = random.nextDouble() * 100;
+            max.update(samples[i]);
+            double expected = Double.NEGATIVE_INFINITY;
+            for (int j = Math.max(0, i - WINDOW + 1); j <= i; j++)
+            {
+                expected = Math.max(expected, samples[j]);
+            }
+            assertEquals(expected, max.getValue(), EPSILON);
+        }
+    }
+    
+    public void testSlidingWindowMaxExpiresOldMaximum()
+    {
+        SlidingWindowMax max = new SlidingWindowMax(3);
+        max.update(10);
+        max.update(1);
+        max.update(2);
+        assertEquals(10.0, max.getValue(), EPSILON);
+        max.update(3);
+        assertEquals(3.0, max.getValue(), EPSILON);
+    }
+    
+    public void testExponentialMovingAverageMatchesBatch()
+    {
+        double weight = 0.3;
+        ExponentialMovingAverage ewma = new ExponentialMovingAverage(weight);
+        double[] samples = {5, 7, 3, 9, 11, 2, 4};
+        for (int i = 0; i < samples.length; i++)
+        {
+            ewma.update(samples[i]);
+        }
+        
+        double expected = samples[0];
+        for (int i = 1; i < samples.length; i++)
+        {
+            expected = weight * samples[i] + (1 - weight) * expected;
+        }
+        assertEquals(expected, ewma.getValue(), EPSILON);
+    }
+    
+    public void testPercentileSketchApproximatesExactPercentile()
+    {
+        PercentileSketch sketch = new PercentileSketch(0.95);
+        double[] samples = new double[2000];
+        Random random = new Random(11);
+        for (int i = 0; i < samples.length; i++)
+        {
+            samples[i] = random.nextDouble() * 100;
+            sketch.update(samples[i]);
+        }
+        
+        Arrays.sort(samples);
+        double exact = samples[(int) Math.ceil(0.95 * samples.length) - 1];
+        assertEquals(exact, sketch.getValue(), 2.0);
+    }
+    
+    public void testIncrementalEstimatorFallsBackToHistory()
+    {
+        VirtualMachineHistory history = new VirtualMachineHistory(WINDOW);
+        for (int i = 0; i < 40; i++)
+        {
+            history.add(i, i, 0, 0, 0);
+        }
+        
+        VirtualMachineHistoryView view = history.getView(WINDOW);
+        assertTrue(Double.isNaN(view.getCpuEstimate()));
+        
+        IncrementalCPUDemandEstimator estimator = new IncrementalCPUDemandEstimator(Estimator.mean, createSettings());
+        assertEquals(new AverageCPUDemandEstimator().estimate(view), estimator.estimate(view), EPSILON);
+    }
+    
+    public void testReplacedEntryRebuildsStatistic()
+    {
+        VirtualMachineHistory history = new VirtualMachineHistory(WINDOW, createFactory(Estimator.max));
+        history.add(1, 50, 0, 0, 0);
+        history.add(1, 10, 0, 0, 0);
+        assertEquals(1, history.getSize());
+        VirtualMachineHistoryView view = history.getView(WINDOW);
+        assertEquals(10.0, view.getCpuUtilization(0), EPSILON);
+        assertEquals(10.0, view.getCpuEstimate(), EPSILON);
+        
+        history.add(2, 20, 0, 0, 0);
+        assertEquals(20.0, history.getView(WINDOW).getCpuEstimate(), EPSILON);
+    }
+    
+    public void testReplacedEntryKeepsMeanConsistentWithHistory()
+    {
+        VirtualMachineHistory history = new VirtualMachineHistory(WINDOW, createFactory(Estimator.mean));
+        AverageCPUDemandEstimator average = new AverageCPUDemandEstimator();
+        for (int i = 0; i < 2 * WINDOW; i++)
+        {
+            history.add(i, i, 0, 0, 0);
+            history.add(i, 100 - i, 0, 0, 0);
+            VirtualMachineHistoryView view = history.getView(WINDOW);
+            assertEquals(average.estimate(view), view.getCpuEstimate(), EPSILON);
+        }
+    }
+}
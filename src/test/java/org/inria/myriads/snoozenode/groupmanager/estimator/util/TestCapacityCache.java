@@ -0,0 +1,153 @@
+package org.inria.myriads.snoozenode.groupmanager.estimator.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.util.MathUtils;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.util.SortUtils;
+
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.createLocalControllers;
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.createStaticEstimator;
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.getIds;
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.moveVirtualMachine;
+
+public class TestCapacityCache extends TestCase
+{
+    private static final double[][][] LAYOUT = {
+        {{2.0, 4096.0}, {1.0, 2048.0}, {1.0, 1024.0}},
+        {{3.0, 6144.0}, {2.0, 2048.0}},
+        {{1.0, 1536.0}},
+        {{1.0, 3072.0}, {2.0, 1024.0}},
+    };
+
+    private ResourceDemandEstimator estimator_;
+
+    private List<LocalControllerDescription> localControllers_;
+
+    private CapacityCache capacityCache_;
+
+    @Override
+    protected void setUp()
+    {
+        estimator_ = createStaticEstimator();
+        localControllers_ = createLocalControllers(LAYOUT);
+        capacityCache_ = new CapacityCache(estimator_);
+        for (LocalControllerDescription localController : localControllers_)
+        {
+            capacityCache_.getLocalControllerL1Norm(localController);
+        }
+    }
+
+    private void moveAndInvalidate(String virtualMachineId, int source, int destination)
+    {
+        moveVirtualMachine(virtualMachineId, localControllers_.get(source), localControllers_.get(destination));
+        capacityCache_.invalidate(localControllers_.get(source));
+        capacityCache_.invalidate(localControllers_.get(destination));
+    }
+
+    private List<VirtualMachineMetaData> getVirtualMachines()
+    {
+        List<VirtualMachineMetaData> virtualMachines = new ArrayList<VirtualMachineMetaData>();
+        for (LocalControllerDescription localController : localControllers_)
+        {
+            virtualMachines.addAll(localController.getVirtualMachineMetaData().values());
+        }
+
+        return virtualMachines;
+    }
+
+    private static List<String> getVirtualMachineIds(List<VirtualMachineMetaData> virtualMachines)
+    {
+        List<String> ids = new ArrayList<String>();
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            ids.add(virtualMachine.getVirtualMachineLocation().getVirtualMachineId());
+        }
+
+        return ids;
+    }
+
+    public void testCapacityIsStaleUntilInvalidated()
+    {
+        LocalControllerDescription source = localControllers_.get(1);
+        LocalControllerDescription destination = localControllers_.get(2);
+        List<Double> cachedCapacity = capacityCache_.getLocalControllerCapacity(source);
+
+        moveVirtualMachine("lc1-vm1", source, destination);
+        assertEquals(cachedCapacity, capacityCache_.getLocalControllerCapacity(source));
+        assertFalse(estimator_.computeLocalControllerCapacity(source).equals(cachedCapacity));
+
+        capacityCache_.invalidate(source);
+        assertEquals(estimator_.computeLocalControllerCapacity(source),
+                     capacityCache_.getLocalControllerCapacity(source));
+    }
+
+    public void testInvalidatedCapacitiesMatchEstimator()
+    {
+        moveAndInvalidate("lc1-vm1", 1, 2);
+        moveAndInvalidate("lc0-vm2", 0, 3);
+        moveAndInvalidate("lc3-vm0", 3, 1);
+
+        for (LocalControllerDescription localController : localControllers_)
+        {
+            List<Double> capacity = estimator_.computeLocalControllerCapacity(localController);
+            assertEquals(capacity, capacityCache_.getLocalControllerCapacity(localController));
+            assertEquals(MathUtils.computeL1Norm(capacity),
+                         capacityCache_.getLocalControllerL1Norm(localController));
+        }
+    }
+
+    public void testLocalControllerOrderMatchesUncachedAfterMoves()
+    {
+        SortUtils.sortLocalControllersDecreasing(new ArrayList<LocalControllerDescription>(localControllers_),
+                                                 capacityCache_);
+        moveAndInvalidate("lc1-vm0", 1, 2);
+        moveAndInvalidate("lc0-vm0", 0, 3);
+
+        List<LocalControllerDescription> cached = new ArrayList<LocalControllerDescription>(localControllers_);
+        List<LocalControllerDescription> uncached = new ArrayList<LocalControllerDescription>(localControllers_);
+        SortUtils.sortLocalControllersDecreasing(cached, capacityCache_);
+        SortUtils.sortLocalControllersDecreasing(uncached, estimator_);
+        assertEquals(getIds(uncached), getIds(cached));
+        assertEquals("lc3", cached.get(0).getId());
+
+        SortUtils.sortLocalControllersIncreasing(cached, capacityCache_);
+        SortUtils.sortLocalControllersIncreasing(uncached, estimator_);
+        assertEquals(getIds(uncached), getIds(cached));
+    }
+
+    public void testVirtualMachineOrderMatchesUncachedAfterMoves()
+    {
+        SortUtils.sortVirtualMachinesDecreasing(getVirtualMachines(), capacityCache_);
+        moveAndInvalidate("lc1-vm0", 1, 2);
+        moveAndInvalidate("lc3-vm1", 3, 0);
+
+        List<VirtualMachineMetaData> cached = getVirtualMachines();
+        List<VirtualMachineMetaData> uncached = getVirtualMachines();
+        SortUtils.sortVirtualMachinesDecreasing(cached, capacityCache_);
+        SortUtils.sortVirtualMachinesDecreasing(uncached, estimator_);
+        assertEquals(getVirtualMachineIds(uncached), getVirtualMachineIds(cached));
+
+        SortUtils.sortVirtualMachinesIncreasing(cached, capacityCache_);
+        SortUtils.sortVirtualMachinesIncreasing(uncached, estimator_);
+        assertEquals(getVirtualMachineIds(uncached), getVirtualMachineIds(cached));
+    }
+
+    public void testFitCheckSeesMovedVirtualMachines()
+    {
+        LocalControllerDescription destination = localControllers_.get(2);
+        VirtualMachineMetaData virtualMachine = localControllers_.get(0).getVirtualMachineMetaData().get("lc0-vm0");
+        assertTrue(capacityCache_.hasEnoughLocalControllerCapacity(virtualMachine, destination));
+
+        moveAndInvalidate("lc1-vm0", 1, 2);
+        moveAndInvalidate("lc1-vm1", 1, 2);
+        assertEquals(estimator_.hasEnoughLocalControllerCapacity(virtualMachine, destination),
+                     capacityCache_.hasEnoughLocalControllerCapacity(virtualMachine, destination));
+        assertFalse(capacityCache_.hasEnoughLocalControllerCapacity(virtualMachine, destination));
+    }
+}
@@ -0,0 +1,293 @@
+package org.inria.myriads.snoozenode.groupmanager.managerpolicies;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.CapacityCache;
+import org.inria.myriads.snoozenode.groupmanager.estimator.util.EstimatorUtils;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.PlacementPlan;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.impl.FirstFit;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.placement.impl.RoundRobin;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.ReconfigurationPlan;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.reconfiguration.impl.SerconVirtualMachineConsolidation;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.relocation.utility.RelocationUtility;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.util.SortUtils;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
+
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.createLocalControllers;
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.createStaticEstimator;
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.createVirtualMachine;
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.getIds;
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.getLocalController;
+import static org.inria.myriads.snoozenode.util.PolicyFixtures.moveVirtualMachine;
+
+/*
+ * The policies estimate capacities through a per run CapacityCache. Each test
+ * runs a policy on one copy of the cluster and an uncached reference (fresh
+ * estimation on every lookup, as before the cache) on an identical copy.
+ */
+public class TestCachedManagerPolicies extends TestCase
+{
+    private static final double[][][] LAYOUT = {
+        {{2.0, 4096.0}, {1.0, 2048.0}, {1.0, 1024.0}},
+        {{3.0, 6144.0}, {2.0, 2048.0}},
+        {{1.0, 1536.0}},
+        {{1.0, 3072.0}, {2.0, 1024.0}},
+        {{0.5, 512.0}},
+    };
+
+    private ResourceDemandEstimator estimator_;
+
+    @Override
+    protected void setUp()
+    {
+        estimator_ = createStaticEstimator();
+    }
+
+    private static List<LocalControllerDescription> createMovedCluster()
+    {
+        List<LocalControllerDescription> localControllers = createLocalControllers(LAYOUT);
+        moveVirtualMachine("lc1-vm1", localControllers.get(1), localControllers.get(2));
+        moveVirtualMachine("lc0-vm2", localControllers.get(0), localControllers.get(3));
+        return localControllers;
+    }
+
+    private static List<VirtualMachineMetaData> createNewVirtualMachines()
+    {
+        List<VirtualMachineMetaData> virtualMachines = new ArrayList<VirtualMachineMetaData>();
+        for (int i = 0; i < 14; i++)
+        {
+            virtualMachines.add(createVirtualMachine("new-vm" + i, null, 1.5, 2048.0 + i * 256.0));
+        }
+
+        return virtualMachines;
+    }
+
+    private static Map<String, String> toIds(Map<VirtualMachineMetaData, LocalControllerDescription> mapping)
+    {
+        Map<String, String> ids = new HashMap<String, String>();
+        for (Map.Entry<VirtualMachineMetaData, LocalControllerDescription> entry : mapping.entrySet())
+        {
+            ids.put(entry.getKey().getVirtualMachineLocation().getVirtualMachineId(), entry.getValue().getId());
+        }
+
+        return ids;
+    }
+
+    private static Map<String, String> getHosts(List<VirtualMachineMetaData> virtualMachines,
+                                                List<LocalControllerDescription> localControllers)
+    {
+        Map<String, String> hosts = new HashMap<String, String>();
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+            for (LocalControllerDescription localController : localControllers)
+            {
+                if (localController.getVirtualMachineMetaData().containsKey(virtualMachineId))
+                {
+                    hosts.put(virtualMachineId, localController.getId());
+                }
+            }
+        }
+
+        return hosts;
+    }
+
+    private static List<String> getVirtualMachineIds(List<VirtualMachineMetaData> virtualMachines)
+    {
+        List<String> ids = new ArrayList<String>();
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            ids.add(virtualMachine.getVirtualMachineLocation().getVirtualMachineId());
+        }
+
+        return ids;
+    }
+
+    private Map<String, String> placeUncached(List<VirtualMachineMetaData> virtualMachines,
+                                              List<LocalControllerDescription> localControllers)
+    {
+        Map<String, String> mapping = new HashMap<String, String>();
+        for (VirtualMachineMetaData virtualMachine : virtualMachines)
+        {
+            LocalControllerDescription localController =
+                EstimatorUtils.findSuitableLocalController(virtualMachine, localControllers, estimator_);
+            if (localController == null)
+            {
+                continue;
+            }
+
+            String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+            localController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+            mapping.put(virtualMachineId, localController.getId());
+        }
+
+        return mapping;
+    }
+
+    private ReconfigurationPlan consolidateUncached(List<LocalControllerDescription> localControllers)
+    {
+        int numberOfActiveLocalControllers = localControllers.size();
+        int numberOfReleasedNodes = 0;
+        Map<VirtualMachineMetaData, LocalControllerDescription> mapping =
+            new HashMap<VirtualMachineMetaData, LocalControllerDescription>();
+
+        int runningIndex = localControllers.size();
+        while (runningIndex != 0 && localControllers.size() > 0)
+        {
+            int leastLoadedController = localControllers.size() - 1;
+            SortUtils.sortLocalControllersDecreasing(localControllers, estimator_);
+            LocalControllerDescription localController = localControllers.get(leastLoadedController);
+            List<VirtualMachineMetaData> virtualMachines =
+                new ArrayList<VirtualMachineMetaData>(localController.getVirtualMachineMetaData().values());
+            runningIndex--;
+            if (virtualMachines.size() == 0)
+            {
+                localControllers.remove(leastLoadedController);
+                continue;
+            }
+
+            SortUtils.sortVirtualMachinesDecreasing(virtualMachines, estimator_);
+            int numberOfPlacedVirtualMachines = 0;
+            for (VirtualMachineMetaData virtualMachine : virtualMachines)
+            {
+                LocalControllerDescription destination =
+                    EstimatorUtils.findSuitableLocalController(virtualMachine, localControllers, estimator_);
+                if (destination == null || destination.getVirtualMachineMetaData().size() == 0)
+                {
+                    continue;
+                }
+
+                numberOfPlacedVirtualMachines++;
+                String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+                destination.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+                mapping.put(virtualMachine, destination);
+            }
+
+            if (numberOfPlacedVirtualMachines == virtualMachines.size())
+            {
+                numberOfReleasedNodes++;
+                localControllers.remove(leastLoadedController);
+                continue;
+            }
+
+            for (VirtualMachineMetaData virtualMachine : virtualMachines)
+            {
+                String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+                String sourceId = virtualMachine.getVirtualMachineLocation().getLocalControllerId();
+                LocalControllerDescription destination =
+                    sourceId.equals(localController.getId()) ? mapping.remove(virtualMachine) : null;
+                if (destination != null)
+                {
+                    destination.getVirtualMachineMetaData().remove(virtualMachineId);
+                }
+            }
+        }
+
+        return new ReconfigurationPlan(mapping,
+                                       numberOfActiveLocalControllers - numberOfReleasedNodes,
+                                       numberOfReleasedNodes);
+    }
+
+    public void testSerconMatchesUncachedConsolidation()
+    {
+        SerconVirtualMachineConsolidation consolidation = new SerconVirtualMachineConsolidation(estimator_);
+        ReconfigurationPlan cached = consolidation.reconfigure(createMovedCluster());
+        ReconfigurationPlan uncached = consolidateUncached(createMovedCluster());
+
+        assertTrue(cached.getNumberOfReleasedNodes() > 0);
+        assertEquals(toIds(uncached.getMapping()), toIds(cached.getMapping()));
+        assertEquals(uncached.getNumberOfReleasedNodes(), cached.getNumberOfReleasedNodes());
+        assertEquals(uncached.getNumberOfUsedNodes(), cached.getNumberOfUsedNodes());
+    }
+
+    public void testFirstFitMatchesUncachedPlacement()
+    {
+        List<LocalControllerDescription> cachedCluster = createMovedCluster();
+        List<VirtualMachineMetaData> cachedVirtualMachines = createNewVirtualMachines();
+        PlacementPlan plan = new FirstFit(estimator_).place(cachedVirtualMachines, cachedCluster);
+
+        List<LocalControllerDescription> uncachedCluster = createMovedCluster();
+        SortUtils.sortLocalControllersDecreasing(uncachedCluster, estimator_);
+        Map<String, String> expected = placeUncached(createNewVirtualMachines(), uncachedCluster);
+
+        assertEquals(getIds(uncachedCluster), getIds(cachedCluster));
+        assertEquals(expected, getHosts(cachedVirtualMachines, cachedCluster));
+        assertEquals(cachedVirtualMachines.size() - expected.size(), plan.gettUnassignedVirtualMachines().size());
+        assertTrue(plan.getLocalControllers().size() < expected.size());
+    }
+
+    public void testRoundRobinMatchesUncachedPlacement()
+    {
+        List<LocalControllerDescription> cachedCluster = createMovedCluster();
+        List<VirtualMachineMetaData> cachedVirtualMachines = createNewVirtualMachines();
+        PlacementPlan plan = new RoundRobin(estimator_).place(cachedVirtualMachines, cachedCluster);
+
+        List<LocalControllerDescription> uncachedCluster = createMovedCluster();
+        SortUtils.sortLocalControllersDecreasing(uncachedCluster, estimator_);
+        Map<String, String> expected = new HashMap<String, String>();
+        int runningIndex = 0;
+        for (VirtualMachineMetaData virtualMachine : createNewVirtualMachines())
+        {
+            for (int i = 0; i < uncachedCluster.size(); i++)
+            {
+                int nextIndex = runningIndex++ % uncachedCluster.size();
+                LocalControllerDescription localController = uncachedCluster.get(nextIndex);
+                if (estimator_.hasEnoughLocalControllerCapacity(virtualMachine, localController))
+                {
+                    String virtualMachineId = virtualMachine.getVirtualMachineLocation().getVirtualMachineId();
+                    localController.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+                    expected.put(virtualMachineId, localController.getId());
+                    break;
+                }
+            }
+        }
+
+        assertEquals(expected, getHosts(cachedVirtualMachines, cachedCluster));
+        assertEquals(cachedVirtualMachines.size() - expected.size(), plan.gettUnassignedVirtualMachines().size());
+        assertTrue(plan.gettUnassignedVirtualMachines().size() > 0);
+    }
+
+    public void testRelocationMatchesUncachedPlanAfterMoves()
+    {
+        List<LocalControllerDescription> cachedCluster = createLocalControllers(LAYOUT);
+        List<LocalControllerDescription> destinations = new ArrayList<LocalControllerDescription>(cachedCluster);
+        LocalControllerDescription overloaded = destinations.remove(1);
+        CapacityCache capacityCache = new CapacityCache(estimator_);
+        SortUtils.sortLocalControllersIncreasing(destinations, capacityCache);
+
+        moveVirtualMachine("lc0-vm0", cachedCluster.get(0), cachedCluster.get(4));
+        capacityCache.invalidate(cachedCluster.get(0));
+        capacityCache.invalidate(cachedCluster.get(4));
+        List<VirtualMachineMetaData> candidates =
+            new ArrayList<VirtualMachineMetaData>(overloaded.getVirtualMachineMetaData().values());
+        SortUtils.sortVirtualMachinesDecreasing(candidates, capacityCache);
+        ReconfigurationPlan cached = RelocationUtility.computeReconfigurationPlan(candidates,
+                                                                                  destinations,
+                                                                                  capacityCache,
+                                                                                  LocalControllerState.OVERLOADED);
+
+        List<LocalControllerDescription> uncachedCluster = createLocalControllers(LAYOUT);
+        moveVirtualMachine("lc0-vm0", uncachedCluster.get(0), uncachedCluster.get(4));
+        List<LocalControllerDescription> uncachedDestinations = new ArrayList<LocalControllerDescription>();
+        for (String localControllerId : getIds(destinations))
+        {
+            uncachedDestinations.add(getLocalController(uncachedCluster, localControllerId));
+        }
+        List<VirtualMachineMetaData> uncachedCandidates =
+            new ArrayList<VirtualMachineMetaData>(uncachedCluster.get(1).getVirtualMachineMetaData().values());
+        SortUtils.sortVirtualMachinesDecreasing(uncachedCandidates, estimator_);
+        Map<String, String> expected = placeUncached(uncachedCandidates, uncachedDestinations);
+
+        assertEquals(getVirtualMachineIds(uncachedCandidates), getVirtualMachineIds(candidates));
+        assertEquals(2, expected.size());
+        assertEquals(expected, toIds(cached.getMapping()));
+    }
+}
@@ -0,0 +1,288 @@
+package org.inria.myriads.snoozenode.groupmanager.migration.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
+import org.inria.myriads.snoozenode.configurator.scheduler.MigrationSettings;
+import org.inria.myriads.snoozenode.groupmanager.migration.listener.MigrationListener;
+
+import static org.inria.myriads.snoozenode.util.RepositoryFixtures.createLocation;
+
+public class TestMigrationScheduler extends TestCase
+{
+    private static final long MIGRATION_TIME = 20;
+
+    private static final long TIMEOUT = 10;
+
+    private static final class FakeMigrationExecutor implements MigrationExecutor
+    {
+        private int active_;
+
+        private int maxActive_;
+
+        private Map<String, Integer> activePerSource_ = new HashMap<String, Integer>();
+
+        private Map<String, Integer> activePerDestination_ = new HashMap<String, Integer>();
+
+        private int maxPerSource_;
+
+        private int maxPerDestination_;
+
+        private List<String> startOrder_ = Collections.synchronizedList(new ArrayList<String>());
+
+        private boolean notifyTwice_;
+
+        private boolean fail_;
+
+        private boolean timeOut_;
+
+        public void migrate(MigrationRequest migrationRequest,
+                            MigrationListener listener,
+                            MigrationListener timeoutListener)
+        {
+            String source = migrationRequest.getSourceVirtualMachineLocation().getLocalControllerId();
+            String destination = migrationRequest.getDestinationVirtualMachineLocation().getLocalControllerId();
+            startOrder_.add(migrationRequest.getSourceVirtualMachineLocation().getVirtualMachineId());
+            synchronized (this)
+            {
+                active_++;
+                maxActive_ = Math.max(maxActive_, active_);
+                maxPerSource_ = Math.max(maxPerSource_, increment(activePerSource_, source, 1));
+                maxPerDestination_ = Math.max(maxPerDestination_, increment(activePerDestination_, destination, 1));
+            }
+
+            if (fail_)
+            {
+                decrement(source, destination);
+                throw new IllegalStateException("Migration failed");
+            }
+
+            if (timeOut_)
+            {
+                migrationRequest.setMigrated(false);
+                timeoutListener.onMigrationEnded(migrationRequest);
+            }
+
+            try
+            {
+                Thread.sleep(MIGRATION_TIME);
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            decrement(source, destination);
+            migrationRequest.setMigrated(true);
+            listener.onMigrationEnded(migrationRequest);
+            if (notifyTwice_)
+            {
+                listener.onMigrationEnded(migrationRequest);
+            }
+        }
+
+        private synchronized void decrement(String source, String destination)
+        {
+            active_--;
+            increment(activePerSource_, source, -1);
+            increment(activePerDestination_, destination, -1);
+        }
+
+        private static int increment(Map<String, Integer> counts, String key, int delta)
+        {
+            Integer count = counts.get(key);
+            int value = (count == null ? 0 : count) + delta;
+            counts.put(key, value);
+            return value;
+        }
+    }
+
+    private static final class CountingListener implements MigrationListener
+    {
+        private CountDownLatch latch_;
+
+        private int notifications_;
+
+        CountingListener(int expected)
+        {
+            latch_ = new CountDownLatch(expected);
+        }
+
+        public synchronized void onMigrationEnded(MigrationRequest migrationRequest)
+        {
+            notifications_++;
+            latch_.countDown();
+        }
+
+        boolean await() throws InterruptedException
+        {
+            return latch_.await(TIMEOUT, TimeUnit.SECONDS);
+        }
+
+        synchronized int getNotifications()
+        {
+            return notifications_;
+        }
+    }
+
+    private MigrationSettings createSettings(int maxConcurrent, int maxPerSource, int maxPerDestination)
+    {
+        MigrationSettings settings = new MigrationSettings();
+        settings.setMaxNumberOfConcurrentMigrations(maxConcurrent);
+        settings.setMaxNumberOfMigrationsPerSource(maxPerSource);
+        settings.setMaxNumberOfMigrationsPerDestination(maxPerDestination);
+        return settings;
+    }
+
+    private static ScheduledMigration createMigration(String virtualMachineId,
+                                                      String source,
+                                                      String destination,
+                                                      double memorySize,
+                                                      MigrationListener listener)
+    {
+        MigrationRequest migrationRequest = new MigrationRequest();
+        migrationRequest.setSourceVirtualMachineLocation(createLocation(virtualMachineId, source));
+        migrationRequest.setDestinationVirtualMachineLocation(createLocation(virtualMachineId, destination));
+        return new ScheduledMigration(migrationRequest, memorySize, listener);
+    }
+
+    public void testLimitsAreRespected() throws InterruptedException
+    {
+        FakeMigrationExecutor executor = new FakeMigrationExecutor();
+        MigrationScheduler scheduler = new MigrationScheduler(createSettings(3, 1, 2), executor);
+        int numberOfMigrations = 24;
+        CountingListener listener = new CountingListener(numberOfMigrations);
+        List<ScheduledMigration> migrations = new ArrayList<ScheduledMigration>();
+        for (int i = 0; i < numberOfMigrations; i++)
+        {
+            migrations.add(createMigration("vm" + i, "lc" + (i % 4), "lc" + (4 + i % 3), i, listener));
+        }
+
+        scheduler.schedule(migrations);
+        assertTrue(listener.await());
+
+        assertTrue(executor.maxActive_ <= 3);
+        assertEquals(1, executor.maxPerSource_);
+        assertTrue(executor.maxPerDestination_ <= 2);
+        assertEquals(0, scheduler.getNumberOfActiveMigrations());
+        assertEquals(0, scheduler.getNumberOfPendingMigrations());
+        for (ScheduledMigration migration : migrations)
+        {
+            assertTrue(migration.isFinished());
+            assertTrue(migration.getMigrationRequest().isMigrated());
+            assertTrue(migration.getMigrationTime() >= MIGRATION_TIME);
+            assertTrue(migration.getWaitingTime() >= 0);
+        }
+
+        scheduler.shutdown();
+    }
+
+    public void testSmallestMemoryFirst() throws InterruptedException
+    {
+        FakeMigrationExecutor executor = new FakeMigrationExecutor();
+        MigrationScheduler scheduler = new MigrationScheduler(createSettings(1, 1, 1), executor);
+        double[] memorySizes = {2048, 512, 4096, 1024, 256};
+        CountingListener listener = new CountingListener(memorySizes.length);
+        List<ScheduledMigration> migrations = new ArrayList<ScheduledMigration>();
+        for (int i = 0; i < memorySizes.length; i++)
+        {
+            migrations.add(createMigration("vm" + (int) memorySizes[i], "lc1", "lc2", memorySizes[i], listener));
+        }
+
+        scheduler.schedule(migrations);
+        assertTrue(listener.await());
+
+        assertEquals(1, executor.maxActive_);
+        List<String> expected = new ArrayList<String>();
+        for (String virtualMachineId : new String[] {"vm256", "vm512", "vm1024", "vm2048", "vm4096"})
+        {
+            expected.add(virtualMachineId);
+        }
+
+        assertEquals(expected, executor.startOrder_);
+        scheduler.shutdown();
+    }
+
+    public void testRepeatedNotificationIsIgnored() throws InterruptedException
+    {
+        FakeMigrationExecutor executor = new FakeMigrationExecutor();
+        executor.notifyTwice_ = true;
+        MigrationScheduler scheduler = new MigrationScheduler(createSettings(2, 1, 1), executor);
+        CountingListener listener = new CountingListener(4);
+        List<ScheduledMigration> migrations = new ArrayList<ScheduledMigration>();
+        for (int i = 0; i < 4; i++)
+        {
+            migrations.add(createMigration("vm" + i, "lc" + i, "lc" + (10 + i), 1, listener));
+        }
+
+        scheduler.schedule(migrations);
+        assertTrue(listener.await());
+        Thread.sleep(MIGRATION_TIME);
+
+        assertEquals(4, listener.getNotifications());
+        assertEquals(0, scheduler.getNumberOfActiveMigrations());
+        scheduler.shutdown();
+    }
+
+    public void testFailedMigrationReleasesSlot() throws InterruptedException
+    {
+        FakeMigrationExecutor executor = new FakeMigrationExecutor();
+        executor.fail_ = true;
+        MigrationScheduler scheduler = new MigrationScheduler(createSettings(1, 1, 1), executor);
+        CountingListener listener = new CountingListener(3);
+        List<ScheduledMigration> migrations = new ArrayList<ScheduledMigration>();
+        for (int i = 0; i < 3; i++)
+        {
+            migrations.add(createMigration("vm" + i, "lc1", "lc2", i, listener));
+        }
+
+        scheduler.schedule(migrations);
+        assertTrue(listener.await());
+
+        for (ScheduledMigration migration : migrations)
+        {
+            assertTrue(migration.isFinished());
+            assertFalse(migration.getMigrationRequest().isMigrated());
+        }
+
+        assertEquals(0, scheduler.getNumberOfPendingMigrations());
+        scheduler.shutdown();
+    }
+
+    public void testTimedOutMigrationKeepsSlotUntilMigrationReturns() throws InterruptedException
+    {
+        FakeMigrationExecutor executor = new FakeMigrationExecutor();
+        executor.timeOut_ = true;
+        MigrationScheduler scheduler = new MigrationScheduler(createSettings(1, 1, 1), executor);
+        CountingListener listener = new CountingListener(3);
+        List<ScheduledMigration> migrations = new ArrayList<ScheduledMigration>();
+        for (int i = 0; i < 3; i++)
+        {
+            migrations.add(createMigration("vm" + i, "lc1", "lc2", i, listener));
+        }
+
+        scheduler.schedule(migrations);
+        assertTrue(listener.await());
+        Thread.sleep(MIGRATION_TIME * 3);
+
+        assertEquals(1, executor.maxActive_);
+        assertEquals(3, listener.getNotifications());
+        assertEquals(3, scheduler.getNumberOfTimedOutMigrations());
+        assertEquals(0, scheduler.getNumberOfActiveMigrations());
+        for (ScheduledMigration migration : migrations)
+        {
+            assertTrue(migration.isTimedOut());
+            assertTrue(migration.isFinished());
+        }
+
+        scheduler.shutdown();
+    }
+}
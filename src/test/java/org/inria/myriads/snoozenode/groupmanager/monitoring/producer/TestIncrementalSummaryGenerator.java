@@ -0,0 +1,212 @@
+package org.inria.myriads.snoozenode.groupmanager.monitoring.producer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.configurator.submission.PackingDensity;
+import org.inria.myriads.snoozenode.database.api.impl.GroupManagerConcurrentRepository;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
+
+import static org.inria.myriads.snoozenode.util.RepositoryFixtures.createLocation;
+import static org.inria.myriads.snoozenode.util.RepositoryFixtures.createMonitoringData;
+
+public class TestIncrementalSummaryGenerator extends TestCase
+{
+    private static final int NUMBER_OF_LOCAL_CONTROLLERS = 6;
+
+    private static final int NUMBER_OF_VIRTUAL_MACHINES = 3;
+
+    private static final int MAX_CAPACITY = 10;
+
+    private static final int FULL_REFRESH_INTERVAL = 100;
+
+    private GroupManagerConcurrentRepository repository_;
+
+    private ResourceDemandEstimator estimator_;
+
+    private IncrementalSummaryGenerator generator_;
+
+    private static ResourceDemandEstimator createEstimator(boolean isStatic)
+    {
+        EstimatorSettings estimatorSettings = new EstimatorSettings();
+        estimatorSettings.setSortNorm(SortNorm.L1);
+        estimatorSettings.setNumberOfMonitoringEntries(MAX_CAPACITY);
+        estimatorSettings.setStatic(isStatic);
+        estimatorSettings.getPolicy().setCPU(Estimator.average);
+        estimatorSettings.getPolicy().setMemory(Estimator.average);
+        estimatorSettings.getPolicy().setNetwork(Estimator.average);
+
+        List<Double> thresholds = Arrays.asList(0.0, 0.2, 0.9);
+        MonitoringThresholds monitoringThresholds = new MonitoringThresholds(thresholds, thresholds, thresholds, 70.0);
+        PackingDensity packingDensity = new PackingDensity();
+        packingDensity.setCPU(1.0);
+        packingDensity.setMemory(1.0);
+        packingDensity.setNetwork(1.0);
+        return new ResourceDemandEstimator(estimatorSettings, monitoringThresholds, packingDensity);
+    }
+
+    private static VirtualMachineMetaData createVirtualMachine(String virtualMachineId, String localControllerId)
+    {
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.getVirtualMachineLocation().setVirtualMachineId(virtualMachineId);
+        virtualMachine.getVirtualMachineLocation().setLocalControllerId(localControllerId);
+        virtualMachine.setIpAddress("10.0.0." + virtualMachineId.hashCode() % 250);
+        virtualMachine.setStatus(VirtualMachineStatus.RUNNING);
+        virtualMachine.setRequestedCapacity(new ArrayList<Double>(Arrays.asList(1.0, 1024.0, 100.0, 100.0)));
+        return virtualMachine;
+    }
+
+
+    private void initialize(boolean isStatic)
+    {
+        repository_ = new GroupManagerConcurrentRepository("gm", MAX_CAPACITY);
+        for (int i = 0; i < NUMBER_OF_LOCAL_CONTROLLERS; i++)
+        {
+            String localControllerId = "lc" + i;
+            LocalControllerDescription localController = new LocalControllerDescription();
+            localController.setId(localControllerId);
+            localController.setStatus(LocalControllerStatus.ACTIVE);
+            localController.setTotalCapacity(new ArrayList<Double>(Arrays.asList(8.0, 16384.0, 1000.0, 1000.0)));
+            for (int j = 0; j < NUMBER_OF_VIRTUAL_MACHINES; j++)
+            {
+                String virtualMachineId = localControllerId + "-vm" + j;
+                localController.getVirtualMachineMetaData().put(virtualMachineId,
+                                                                createVirtualMachine(virtualMachineId,
+                                                                                     localControllerId));
+            }
+
+            assertTrue(repository_.addLocalControllerDescription(localController));
+        }
+
+        estimator_ = createEstimator(isStatic);
+        estimator_.setHistoryProvider(repository_);
+        generator_ = new IncrementalSummaryGenerator(repository_, estimator_, FULL_REFRESH_INTERVAL);
+    }
+
+    private LocalControllerDescription getCached(String localControllerId)
+    {
+        for (LocalControllerDescription localController : generator_.getLocalControllers())
+        {
+            if (localController.getId().equals(localControllerId))
+            {
+                return localController;
+            }
+        }
+
+        return null;
+    }
+
+    private void assertMatchesFullSummary(GroupManagerSummaryInformation summary)
+    {
+        GroupManagerSummaryInformation expected =
+            estimator_.generateGroupManagerSummaryInformation(repository_.getLocalControllerSnapshots(false),
+                                                              repository_.getLegacyIpAddresses());
+        assertEquals(expected.getActiveCapacity(), summary.getActiveCapacity());
+        assertEquals(expected.getPassiveCapacity(), summary.getPassiveCapacity());
+        assertEquals(expected.getRequestedCapacity(), summary.getRequestedCapacity());
+        assertEquals(expected.getUsedCapacity(), summary.getUsedCapacity());
+    }
+
+    public void testOnlyChangedLocalControllersAreRefreshed()
+    {
+        initialize(true);
+        assertMatchesFullSummary(generator_.generate());
+        LocalControllerDescription unchanged = getCached("lc0");
+        LocalControllerDescription changed = getCached("lc1");
+
+        assertTrue(repository_.addVirtualMachine(createVirtualMachine("lc1-vm9", "lc1")));
+        assertMatchesFullSummary(generator_.generate());
+        assertSame(unchanged, getCached("lc0"));
+        assertNotSame(changed, getCached("lc1"));
+        assertEquals(NUMBER_OF_VIRTUAL_MACHINES + 1, getCached("lc1").getVirtualMachineMetaData().size());
+    }
+
+    public void testMutationsKeepSummaryConsistent()
+    {
+        initialize(true);
+        generator_.generate();
+
+        assertTrue(repository_.changeVirtualMachineStatus(createLocation("lc2-vm0", "lc2"),
+                                                          VirtualMachineStatus.PAUSED));
+        assertMatchesFullSummary(generator_.generate());
+
+        assertTrue(repository_.dropVirtualMachineData(createLocation("lc3-vm1", "lc3")));
+        assertMatchesFullSummary(generator_.generate());
+
+        assertTrue(repository_.changeLocalControllerStatus("lc4", LocalControllerStatus.PASSIVE));
+        assertMatchesFullSummary(generator_.generate());
+
+        assertTrue(repository_.dropLocalController("lc5", true));
+        assertMatchesFullSummary(generator_.generate());
+        assertNull(getCached("lc5"));
+        assertEquals(NUMBER_OF_LOCAL_CONTROLLERS - 1, generator_.getLocalControllers().size());
+    }
+
+    public void testStaticEstimationIgnoresMonitoringData()
+    {
+        initialize(true);
+        generator_.generate();
+        LocalControllerDescription cached = getCached("lc0");
+
+        repository_.addAggregatedMonitoringData("lc0",
+                                                createMonitoringData("lc0-vm0", System.currentTimeMillis(), 2.0));
+        generator_.generate();
+        assertSame(cached, getCached("lc0"));
+    }
+
+    public void testDynamicEstimationFollowsMonitoringData()
+    {
+        initialize(false);
+        GroupManagerSummaryInformation before = generator_.generate();
+        assertMatchesFullSummary(before);
+        LocalControllerDescription unchanged = getCached("lc1");
+
+        repository_.addAggregatedMonitoringData("lc0",
+                                                createMonitoringData("lc0-vm0", System.currentTimeMillis(), 2.0));
+        GroupManagerSummaryInformation after = generator_.generate();
+        assertMatchesFullSummary(after);
+        assertSame(unchanged, getCached("lc1"));
+        assertEquals(before.getUsedCapacity().get(0) + 1.0, after.getUsedCapacity().get(0), 0.0);
+    }
+
+    public void testCleanForcesFullRefresh()
+    {
+        initialize(true);
+        generator_.generate();
+
+        repository_.clean();
+        assertMatchesFullSummary(generator_.generate());
+    }
+
+    public void testMajorityChangeForcesFullRefresh()
+    {
+        initialize(false);
+        generator_.generate();
+        repository_.setChangeListener(null);
+        assertTrue(repository_.addVirtualMachine(createVirtualMachine("lc0-vm9", "lc0")));
+        repository_.setChangeListener(generator_);
+
+        for (int i = 1; i <= NUMBER_OF_LOCAL_CONTROLLERS / 2 + 1; i++)
+        {
+            repository_.addAggregatedMonitoringData("lc" + i,
+                                                    createMonitoringData("lc" + i + "-vm0",
+                                                                         System.currentTimeMillis(),
+                                                                         2.0));
+        }
+
+        assertMatchesFullSummary(generator_.generate());
+        assertEquals(NUMBER_OF_VIRTUAL_MACHINES + 1, getCached("lc0").getVirtualMachineMetaData().size());
+    }
+}
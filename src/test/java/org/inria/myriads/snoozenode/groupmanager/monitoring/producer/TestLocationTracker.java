@@ -0,0 +1,78 @@
+package org.inria.myriads.snoozenode.groupmanager.monitoring.producer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.LocationUpdate;
+
+public class TestLocationTracker extends TestCase
+{
+    private static LocalControllerDescription createLocalController(String localControllerId, 
+                                                                    int port, 
+                                                                    String... virtualMachineIds)
+    {
+        LocalControllerDescription localController = new LocalControllerDescription();
+        localController.setId(localControllerId);
+        NetworkAddress address = new NetworkAddress();
+        address.setAddress("10.0.0.1");
+        address.setPort(port);
+        localController.setControlDataAddress(address);
+        for (String virtualMachineId : virtualMachineIds)
+        {
+            localController.getVirtualMachineMetaData().put(virtualMachineId, new VirtualMachineMetaData());
+        }
+
+        return localController;
+    }
+
+    public void testDeltaUpdates()
+    {
+        LocationTracker tracker = new LocationTracker(10);
+        List<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        localControllers.add(createLocalController("lc1", 5000, "vm1", "vm2"));
+        localControllers.add(createLocalController("lc2", 5001));
+
+        LocationUpdate full = tracker.createUpdate(localControllers);
+        assertTrue(full.isFull());
+        assertEquals(0, full.getSequenceNumber());
+        assertEquals(2, full.getLocalControllers().size());
+        assertEquals("lc1", full.getVirtualMachines().get("vm2"));
+
+        LocationUpdate unchanged = tracker.createUpdate(localControllers);
+        assertFalse(unchanged.isFull());
+        assertEquals(1, unchanged.getSequenceNumber());
+        assertTrue(unchanged.getLocalControllers().isEmpty());
+        assertTrue(unchanged.getVirtualMachines().isEmpty());
+
+        localControllers.clear();
+        localControllers.add(createLocalController("lc1", 5000, "vm1"));
+        localControllers.add(createLocalController("lc3", 5002, "vm2"));
+        LocationUpdate delta = tracker.createUpdate(localControllers);
+        assertEquals(2, delta.getSequenceNumber());
+        assertEquals(1, delta.getLocalControllers().size());
+        assertTrue(delta.getLocalControllers().containsKey("lc3"));
+        assertEquals("[lc2]", delta.getRemovedLocalControllers().toString());
+        assertEquals("lc3", delta.getVirtualMachines().get("vm2"));
+        assertTrue(delta.getRemovedVirtualMachines().isEmpty());
+    }
+
+    public void testPeriodicFullUpdate()
+    {
+        LocationTracker tracker = new LocationTracker(2);
+        List<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        localControllers.add(createLocalController("lc1", 5000, "vm1"));
+
+        assertTrue(tracker.createUpdate(localControllers).isFull());
+        assertFalse(tracker.createUpdate(localControllers).isFull());
+        assertFalse(tracker.createUpdate(localControllers).isFull());
+        LocationUpdate full = tracker.createUpdate(localControllers);
+        assertTrue(full.isFull());
+        assertEquals(3, full.getSequenceNumber());
+        assertEquals("lc1", full.getVirtualMachines().get("vm1"));
+    }
+}
@@ -0,0 +1,268 @@
+package org.inria.myriads.snoozenode.groupmanager.statemachine.reservation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozenode.groupmanager.statemachine.SystemState;
+
+public class TestReservationManager extends TestCase
+{
+    private static final List<String> NONE = Collections.emptyList();
+
+    private static final long TIMEOUT = 10;
+
+    private ReservationManager manager_;
+
+    @Override
+    protected void setUp()
+    {
+        manager_ = new ReservationManager();
+    }
+
+    public void testConflictingReservationFails()
+    {
+        Reservation first = manager_.reserve(SystemState.RELOCATION, Arrays.asList("lc1"), Arrays.asList("vm1"));
+        assertNotNull(first);
+
+        assertNull(manager_.reserve(SystemState.MANAGEMENT, Arrays.asList("lc2", "lc1"), NONE));
+        assertNull(manager_.reserve(SystemState.MANAGEMENT, NONE, Arrays.asList("vm1")));
+        assertFalse(manager_.isLocalControllerReserved("lc2"));
+
+        Reservation second = manager_.reserve(SystemState.MANAGEMENT, Arrays.asList("lc2"), Arrays.asList("vm2"));
+        assertNotNull(second);
+        assertEquals(2, manager_.getNumberOfReservations());
+
+        first.release();
+        assertFalse(manager_.isLocalControllerReserved("lc1"));
+        assertFalse(manager_.isVirtualMachineReserved("vm1"));
+        assertTrue(manager_.isLocalControllerReserved("lc2"));
+        second.release();
+        assertEquals(0, manager_.getNumberOfReservations());
+    }
+
+    public void testExtendIsAllOrNothing()
+    {
+        Reservation first = manager_.reserve(SystemState.RELOCATION, Arrays.asList("lc1"), NONE);
+        Reservation second = manager_.reserve(SystemState.MANAGEMENT, NONE, NONE);
+        assertNotNull(second);
+
+        assertFalse(second.extend(Arrays.asList("lc2", "lc1"), NONE));
+        assertFalse(manager_.isLocalControllerReserved("lc2"));
+        assertTrue(second.extend(Arrays.asList("lc2", "lc3"), Arrays.asList("vm3")));
+        assertTrue(second.extend(Arrays.asList("lc2"), NONE));
+        assertEquals(2, second.getLocalControllerIds().size());
+        assertFalse(first.isAvailable("lc2"));
+        assertTrue(second.isAvailable("lc2"));
+
+        second.release();
+        assertTrue(second.isReleased());
+        assertFalse(second.extend(Arrays.asList("lc4"), NONE));
+        assertTrue(first.extend(Arrays.asList("lc2"), NONE));
+    }
+
+    public void testExclusiveReservation()
+    {
+        Reservation reservation = manager_.reserve(SystemState.MANAGEMENT, Arrays.asList("lc1"), NONE);
+        assertNull(manager_.reserveAll(SystemState.RECONFIGURATION));
+
+        reservation.release();
+        Reservation exclusive = manager_.reserveAll(SystemState.RECONFIGURATION);
+        assertNotNull(exclusive);
+        assertTrue(manager_.isExclusive());
+        assertTrue(manager_.isLocalControllerReserved("lc42"));
+        assertTrue(manager_.isVirtualMachineReserved("vm42"));
+        assertNull(manager_.reserve(SystemState.MANAGEMENT, NONE, NONE));
+        assertNull(manager_.reserveAll(SystemState.RELOCATION));
+        assertTrue(exclusive.isAvailable("lc42"));
+        assertTrue(exclusive.extend(Arrays.asList("lc42"), NONE));
+
+        exclusive.release();
+        exclusive.release();
+        assertFalse(manager_.isExclusive());
+        assertNotNull(manager_.reserve(SystemState.MANAGEMENT, Arrays.asList("lc42"), NONE));
+    }
+
+    public void testPendingExclusiveWaitsForActiveReservations() throws Exception
+    {
+        Reservation running = manager_.reserve(SystemState.RELOCATION, Arrays.asList("lc1"), NONE);
+        final AtomicReference<Reservation> exclusive = new AtomicReference<Reservation>();
+        Thread thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                exclusive.set(manager_.reserveAll(SystemState.RECONFIGURATION, TimeUnit.SECONDS.toMillis(TIMEOUT)));
+            }
+        });
+        thread.start();
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+        while (!manager_.isExclusivePending() && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(1);
+        }
+
+        assertTrue(manager_.isExclusivePending());
+        assertNull(manager_.reserve(SystemState.MANAGEMENT, Arrays.asList("lc2"), NONE));
+        assertNull(manager_.reserveAll(SystemState.RELOCATION));
+        assertTrue(running.extend(Arrays.asList("lc3"), NONE));
+
+        running.release();
+        thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+        assertNotNull(exclusive.get());
+        assertTrue(manager_.isExclusive());
+        assertFalse(manager_.isExclusivePending());
+        exclusive.get().release();
+    }
+
+    public void testPendingExclusiveTimesOut()
+    {
+        Reservation running = manager_.reserve(SystemState.RELOCATION, Arrays.asList("lc1"), NONE);
+        assertNull(manager_.reserveAll(SystemState.RECONFIGURATION, 20));
+        assertFalse(manager_.isExclusivePending());
+        assertFalse(manager_.isExclusive());
+
+        assertNotNull(manager_.reserve(SystemState.MANAGEMENT, Arrays.asList("lc2"), NONE));
+        assertFalse(running.isReleased());
+    }
+
+    public void testFilterAvailable()
+    {
+        List<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        for (int i = 0; i < 5; i++)
+        {
+            LocalControllerDescription localController = new LocalControllerDescription();
+            localController.setId("lc" + i);
+            localControllers.add(localController);
+        }
+
+        manager_.reserve(SystemState.RELOCATION, Arrays.asList("lc1", "lc3"), NONE);
+        Reservation own = manager_.reserve(SystemState.MANAGEMENT, Arrays.asList("lc4"), NONE);
+
+        List<LocalControllerDescription> available = own.filterAvailable(localControllers);
+        assertEquals(3, available.size());
+        assertEquals("lc0", available.get(0).getId());
+        assertEquals("lc2", available.get(1).getId());
+        assertEquals("lc4", available.get(2).getId());
+    }
+
+    public void testNonConflictingOperationsRunConcurrently() throws Exception
+    {
+        final int numberOfOperations = 8;
+        final CyclicBarrier barrier = new CyclicBarrier(numberOfOperations);
+        final AtomicInteger completed = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < numberOfOperations; i++)
+        {
+            final String localControllerId = "lc" + i;
+            final String virtualMachineId = "vm" + i;
+            Thread thread = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    Reservation reservation = manager_.reserve(SystemState.RELOCATION,
+                                                               Arrays.asList(localControllerId),
+                                                               Arrays.asList(virtualMachineId));
+                    if (reservation == null)
+                    {
+                        return;
+                    }
+
+                    try
+                    {
+                        barrier.await(TIMEOUT, TimeUnit.SECONDS);
+                        completed.incrementAndGet();
+                    }
+                    catch (Exception exception)
+                    {
+                        return;
+                    }
+                    finally
+                    {
+                        reservation.release();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(numberOfOperations, completed.get());
+        assertEquals(0, manager_.getNumberOfReservations());
+    }
+
+    public void testOverlappingOperationsNeverShareLocalControllers() throws Exception
+    {
+        final int numberOfLocalControllers = 6;
+        final int numberOfThreads = 8;
+        final int iterations = 2000;
+        final AtomicIntegerArray owners = new AtomicIntegerArray(numberOfLocalControllers);
+        final AtomicInteger violations = new AtomicInteger();
+        final AtomicInteger successes = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < numberOfThreads; t++)
+        {
+            final Random random = new Random(t);
+            Thread thread = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    for (int i = 0; i < iterations; i++)
+                    {
+                        int first = random.nextInt(numberOfLocalControllers);
+                        int second = random.nextInt(numberOfLocalControllers);
+                        Reservation reservation = manager_.reserve(SystemState.RELOCATION,
+                                                                   Arrays.asList("lc" + first, "lc" + second),
+                                                                   NONE);
+                        if (reservation == null)
+                        {
+                            continue;
+                        }
+
+                        successes.incrementAndGet();
+                        int firstOwners = owners.getAndIncrement(first);
+                        int secondOwners = first != second ? owners.getAndIncrement(second) : 0;
+                        if (firstOwners != 0 || secondOwners != 0)
+                        {
+                            violations.incrementAndGet();
+                        }
+
+                        owners.decrementAndGet(first);
+                        if (first != second)
+                        {
+                            owners.decrementAndGet(second);
+                        }
+
+                        reservation.release();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(0, violations.get());
+        assertTrue(successes.get() > 0);
+        assertEquals(0, manager_.getNumberOfReservations());
+    }
+}
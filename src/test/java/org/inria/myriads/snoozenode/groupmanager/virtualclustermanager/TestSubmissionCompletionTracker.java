@@ -0,0 +1,75 @@
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class TestSubmissionCompletionTracker extends TestCase
+{
+    private static final long TIMEOUT = 5000;
+
+    public void testNotificationBeforeWaitIsKept() throws InterruptedException
+    {
+        SubmissionCompletionTracker tracker = new SubmissionCompletionTracker(10);
+        tracker.onSubmissionCompleted("task1");
+        tracker.onSubmissionCompleted("other");
+
+        Set<String> finished = tracker.awaitCompletion(Arrays.asList("task1", "task2"), TIMEOUT);
+        assertEquals(1, finished.size());
+        assertTrue(finished.contains("task1"));
+        assertEquals(1, tracker.getNumberOfNotifications());
+    }
+
+    public void testWaiterIsWokenUpByNotification() throws InterruptedException
+    {
+        final SubmissionCompletionTracker tracker = new SubmissionCompletionTracker(10);
+        Thread notifier = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException exception)
+                {
+                    return;
+                }
+
+                tracker.onSubmissionCompleted("task2");
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        notifier.start();
+        Set<String> finished = tracker.awaitCompletion(Arrays.asList("task1", "task2"), TIMEOUT);
+        assertTrue(System.currentTimeMillis() - start < TIMEOUT);
+        assertEquals(1, finished.size());
+        assertTrue(finished.contains("task2"));
+        notifier.join();
+    }
+
+    public void testTimeoutReturnsEmptySet() throws InterruptedException
+    {
+        SubmissionCompletionTracker tracker = new SubmissionCompletionTracker(10);
+        tracker.onSubmissionCompleted("other");
+
+        long start = System.currentTimeMillis();
+        Set<String> finished = tracker.awaitCompletion(Arrays.asList("task1"), 50);
+        assertTrue(System.currentTimeMillis() - start >= 50);
+        assertTrue(finished.isEmpty());
+    }
+
+    public void testOldestNotificationsAreDropped() throws InterruptedException
+    {
+        SubmissionCompletionTracker tracker = new SubmissionCompletionTracker(2);
+        tracker.onSubmissionCompleted("task1");
+        tracker.onSubmissionCompleted("task2");
+        tracker.onSubmissionCompleted("task3");
+
+        assertEquals(2, tracker.getNumberOfNotifications());
+        assertTrue(tracker.awaitCompletion(Arrays.asList("task1"), 0).isEmpty());
+        assertEquals(2, tracker.awaitCompletion(Arrays.asList("task2", "task3"), 0).size());
+    }
+}
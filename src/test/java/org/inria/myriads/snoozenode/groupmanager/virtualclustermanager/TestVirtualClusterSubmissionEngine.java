@@ -0,0 +1,365 @@
+package org.inria.myriads.snoozenode.groupmanager.virtualclustermanager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.GroupManagerDescription;
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualClusterSubmissionResponse;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionRequest;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineSubmissionResponse;
+import org.inria.myriads.snoozecommon.util.MonitoringUtils;
+import org.inria.myriads.snoozenode.configurator.api.NodeConfiguration;
+import org.inria.myriads.snoozenode.database.api.GroupLeaderRepository;
+import org.inria.myriads.snoozenode.database.api.impl.GroupLeaderMemoryRepository;
+import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPlan;
+import org.inria.myriads.snoozenode.groupmanager.leaderpolicies.dispatching.DispatchingPolicy;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.listener.VirtualClusterSubmissionListener;
+import org.inria.myriads.snoozenode.groupmanager.virtualclustermanager.submitter.GroupManagerSubmitter;
+
+public class TestVirtualClusterSubmissionEngine extends TestCase
+{
+    private static final long SUBMISSION_TIME = 50;
+
+    private static final long TIMEOUT = 30;
+
+    private static final class CapacityFirstFit implements DispatchingPolicy
+    {
+        public DispatchingPlan dispatch(List<VirtualMachineMetaData> virtualMachines,
+                                        List<GroupManagerDescription> groupManagers)
+        {
+            List<GroupManagerDescription> candidates = new ArrayList<GroupManagerDescription>();
+            for (GroupManagerDescription groupManager : groupManagers)
+            {
+                GroupManagerSummaryInformation summary =
+                    MonitoringUtils.getLatestSummaryInformation(groupManager.getSummaryInformation());
+                double free = summary.getActiveCapacity().get(0) - summary.getRequestedCapacity().get(0);
+                Iterator<VirtualMachineMetaData> iterator = virtualMachines.iterator();
+                while (iterator.hasNext())
+                {
+                    VirtualMachineMetaData virtualMachine = iterator.next();
+                    double requested = virtualMachine.getRequestedCapacity().get(0);
+                    if (requested <= free)
+                    {
+                        free -= requested;
+                        groupManager.getVirtualMachines().add(virtualMachine);
+                        iterator.remove();
+                    }
+                }
+
+                if (groupManager.getVirtualMachines().size() > 0)
+                {
+                    candidates.add(groupManager);
+                }
+            }
+
+            for (VirtualMachineMetaData virtualMachine : virtualMachines)
+            {
+                virtualMachine.setStatus(VirtualMachineStatus.ERROR);
+                virtualMachine.setErrorCode(VirtualMachineErrorCode.NOT_ENOUGH_GROUP_MANAGER_CAPACITY);
+            }
+
+            return new DispatchingPlan(candidates);
+        }
+    }
+
+    private static final class SimulatedGroupManager implements GroupManagerSubmitter
+    {
+        private GroupLeaderRepository repository_;
+
+        private SubmissionCompletionTracker tracker_;
+
+        private double capacity_;
+
+        private Map<String, Double> used_ = new HashMap<String, Double>();
+
+        private Map<String, VirtualMachineSubmissionResponse> responses_ =
+            new ConcurrentHashMap<String, VirtualMachineSubmissionResponse>();
+
+        private ScheduledExecutorService scheduler_ = Executors.newScheduledThreadPool(4);
+
+        private int counter_;
+
+        private int overcommits_;
+
+        private int active_;
+
+        private int maxActive_;
+
+        SimulatedGroupManager(GroupLeaderRepository repository, SubmissionCompletionTracker tracker, double capacity)
+        {
+            repository_ = repository;
+            tracker_ = tracker;
+            capacity_ = capacity;
+        }
+
+        public String startVirtualMachines(final GroupManagerDescription groupManager,
+                                           VirtualMachineSubmissionRequest submissionRequest)
+        {
+            final String taskIdentifier;
+            synchronized (this)
+            {
+                taskIdentifier = groupManager.getId() + "-" + counter_++;
+                active_++;
+                maxActive_ = Math.max(maxActive_, active_);
+            }
+
+            final ArrayList<VirtualMachineMetaData> virtualMachines = submissionRequest.getVirtualMachineMetaData();
+            scheduler_.schedule(new Runnable()
+            {
+                public void run()
+                {
+                    finish(groupManager.getId(), taskIdentifier, virtualMachines);
+                }
+            }, SUBMISSION_TIME, TimeUnit.MILLISECONDS);
+            return taskIdentifier;
+        }
+
+        private void finish(String groupManagerId, String taskIdentifier, List<VirtualMachineMetaData> virtualMachines)
+        {
+            ArrayList<VirtualMachineMetaData> started = new ArrayList<VirtualMachineMetaData>();
+            synchronized (this)
+            {
+                double used = used_.containsKey(groupManagerId) ? used_.get(groupManagerId) : 0;
+                for (VirtualMachineMetaData virtualMachine : virtualMachines)
+                {
+                    used += virtualMachine.getRequestedCapacity().get(0);
+                    VirtualMachineMetaData result = new VirtualMachineMetaData();
+                    result.setStatus(VirtualMachineStatus.RUNNING);
+                    result.setVirtualMachineLocation(virtualMachine.getVirtualMachineLocation());
+                    started.add(result);
+                }
+
+                if (used > capacity_)
+                {
+                    overcommits_++;
+                }
+
+                used_.put(groupManagerId, used);
+                repository_.addGroupManagerSummaryInformation(groupManagerId, createSummary(capacity_, used));
+                active_--;
+            }
+
+            VirtualMachineSubmissionResponse response = new VirtualMachineSubmissionResponse();
+            response.setVirtualMachineMetaData(started);
+            responses_.put(taskIdentifier, response);
+            tracker_.onSubmissionCompleted(taskIdentifier);
+        }
+
+        public VirtualMachineSubmissionResponse
+            getVirtualMachineSubmissionResponse(GroupManagerDescription groupManager, String taskIdentifier)
+        {
+            return responses_.remove(taskIdentifier);
+        }
+
+        synchronized int getOvercommits()
+        {
+            return overcommits_;
+        }
+
+        synchronized int getMaxActive()
+        {
+            return maxActive_;
+        }
+    }
+
+    private static final class CollectingListener implements VirtualClusterSubmissionListener
+    {
+        private Map<String, VirtualClusterSubmissionResponse> responses_ =
+            new ConcurrentHashMap<String, VirtualClusterSubmissionResponse>();
+
+        private CountDownLatch latch_;
+
+        CollectingListener(int expected)
+        {
+            latch_ = new CountDownLatch(expected);
+        }
+
+        public void onVirtualClusterSubmissionFinished(String taskIdentifier, VirtualClusterSubmissionResponse response)
+        {
+            responses_.put(taskIdentifier, response);
+            latch_.countDown();
+        }
+
+        boolean await() throws InterruptedException
+        {
+            return latch_.await(TIMEOUT, TimeUnit.SECONDS);
+        }
+    }
+
+    private static GroupManagerSummaryInformation createSummary(double active, double used)
+    {
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setTimeStamp(System.nanoTime());
+        summary.setActiveCapacity(createCapacity(active));
+        summary.setPassiveCapacity(createCapacity(0));
+        summary.setRequestedCapacity(createCapacity(used));
+        summary.setUsedCapacity(createCapacity(used));
+        return summary;
+    }
+
+    private static ArrayList<Double> createCapacity(double value)
+    {
+        ArrayList<Double> capacity = new ArrayList<Double>();
+        capacity.add(value);
+        return capacity;
+    }
+
+    private static NodeConfiguration createConfiguration(int maxConcurrent)
+    {
+        NodeConfiguration configuration = new NodeConfiguration();
+        configuration.getEstimator().setNumberOfMonitoringEntries(10);
+        configuration.getEnergyManagement().setEnabled(false);
+        configuration.getSubmission().getDispatching().setNumberOfRetries(1);
+        configuration.getSubmission().getDispatching().setRetryInterval(0);
+        configuration.getSubmission().getCollection().setNumberOfRetries(20);
+        configuration.getSubmission().getCollection().setRetryInterval(1);
+        configuration.getSubmission().setMaxNumberOfConcurrentSubmissions(maxConcurrent);
+        return configuration;
+    }
+
+    private static GroupLeaderRepository createRepository(int numberOfGroupManagers, double capacity)
+    {
+        GroupLeaderRepository repository = new GroupLeaderMemoryRepository(new String[] {"10.0.0.0/16"}, 1000);
+        for (int i = 0; i < numberOfGroupManagers; i++)
+        {
+            GroupManagerDescription groupManager = new GroupManagerDescription();
+            groupManager.setId("gm" + i);
+            groupManager.getListenSettings().setControlDataAddress(new NetworkAddress());
+            repository.addGroupManagerDescription(groupManager);
+            repository.addGroupManagerSummaryInformation(groupManager.getId(), createSummary(capacity, 0));
+        }
+
+        return repository;
+    }
+
+    private static ArrayList<VirtualMachineMetaData> createVirtualCluster(String prefix, int size, double requested)
+    {
+        ArrayList<VirtualMachineMetaData> virtualMachines = new ArrayList<VirtualMachineMetaData>();
+        for (int i = 0; i < size; i++)
+        {
+            VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+            virtualMachine.getVirtualMachineLocation().setVirtualMachineId(prefix + "-vm" + i);
+            virtualMachine.setRequestedCapacity(createCapacity(requested));
+            virtualMachines.add(virtualMachine);
+        }
+
+        return virtualMachines;
+    }
+
+    private static int countRunning(Map<String, VirtualClusterSubmissionResponse> responses)
+    {
+        int running = 0;
+        for (VirtualClusterSubmissionResponse response : responses.values())
+        {
+            for (VirtualMachineMetaData virtualMachine : response.getVirtualMachineMetaData())
+            {
+                if (virtualMachine.getStatus() == VirtualMachineStatus.RUNNING)
+                {
+                    running++;
+                }
+            }
+        }
+
+        return running;
+    }
+
+    public void testBurstIsSubmittedConcurrently() throws InterruptedException
+    {
+        int numberOfClusters = 100;
+        GroupLeaderRepository repository = createRepository(4, 1000);
+        SubmissionCompletionTracker tracker = new SubmissionCompletionTracker(1024);
+        SimulatedGroupManager groupManager = new SimulatedGroupManager(repository, tracker, 1000);
+        CollectingListener listener = new CollectingListener(numberOfClusters);
+        VirtualClusterSubmissionEngine engine = new VirtualClusterSubmissionEngine(createConfiguration(8),
+                                                                                   repository,
+                                                                                   new CapacityFirstFit(),
+                                                                                   groupManager,
+                                                                                   tracker,
+                                                                                   listener);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < numberOfClusters; i++)
+        {
+            engine.submit("task" + i, createVirtualCluster("vc" + i, 2, 1));
+        }
+
+        assertTrue(listener.await());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(numberOfClusters, listener.responses_.size());
+        assertEquals(2 * numberOfClusters, countRunning(listener.responses_));
+        assertTrue(groupManager.getMaxActive() > 1);
+        assertTrue("Elapsed " + elapsed, elapsed < numberOfClusters * SUBMISSION_TIME / 4);
+        for (int i = 0; i < 4; i++)
+        {
+            assertNull(engine.getReservations().getReservedCapacity("gm" + i));
+        }
+
+        engine.shutdown();
+    }
+
+    public void testConcurrentSubmissionsNeverOvercommit() throws InterruptedException
+    {
+        int numberOfClusters = 40;
+        GroupLeaderRepository repository = createRepository(2, 10);
+        SubmissionCompletionTracker tracker = new SubmissionCompletionTracker(1024);
+        SimulatedGroupManager groupManager = new SimulatedGroupManager(repository, tracker, 10);
+        CollectingListener listener = new CollectingListener(numberOfClusters);
+        VirtualClusterSubmissionEngine engine = new VirtualClusterSubmissionEngine(createConfiguration(8),
+                                                                                   repository,
+                                                                                   new CapacityFirstFit(),
+                                                                                   groupManager,
+                                                                                   tracker,
+                                                                                   listener);
+
+        for (int i = 0; i < numberOfClusters; i++)
+        {
+            engine.submit("task" + i, createVirtualCluster("vc" + i, 1, 1));
+        }
+
+        assertTrue(listener.await());
+
+        assertEquals(0, groupManager.getOvercommits());
+        assertEquals(20, countRunning(listener.responses_));
+        engine.shutdown();
+    }
+
+    public void testReservationsAreAppliedToCopies()
+    {
+        GroupLeaderRepository repository = createRepository(1, 10);
+        GroupManagerCapacityReservations reservations = new GroupManagerCapacityReservations();
+        List<GroupManagerDescription> groupManagers = repository.getGroupManagerDescriptions(10);
+        groupManagers.get(0).getVirtualMachines().addAll(createVirtualCluster("vc", 3, 2));
+        reservations.reserve("task", new DispatchingPlan(groupManagers));
+        assertEquals(createCapacity(6), reservations.getReservedCapacity("gm0"));
+
+        List<GroupManagerDescription> copies = repository.getGroupManagerDescriptions(10);
+        reservations.applyTo(copies);
+        GroupManagerSummaryInformation adjusted =
+            MonitoringUtils.getLatestSummaryInformation(copies.get(0).getSummaryInformation());
+        assertEquals(createCapacity(6), adjusted.getRequestedCapacity());
+
+        GroupManagerSummaryInformation original =
+            MonitoringUtils.getLatestSummaryInformation(repository.getGroupManagerDescriptions(10)
+                                                                  .get(0).getSummaryInformation());
+        assertEquals(createCapacity(0), original.getRequestedCapacity());
+
+        reservations.release("task", "gm0");
+        assertNull(reservations.getReservedCapacity("gm0"));
+    }
+}
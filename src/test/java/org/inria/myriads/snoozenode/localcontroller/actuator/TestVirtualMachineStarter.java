@@ -0,0 +1,204 @@
+package org.inria.myriads.snoozenode.localcontroller.actuator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.migration.MigrationRequest;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineErrorCode;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozenode.localcontroller.actuator.api.VirtualMachineActuator;
+import org.inria.myriads.snoozenode.localcontroller.actuator.api.impl.LibVirtVirtualMachineActuator;
+import org.inria.myriads.snoozenode.localcontroller.connector.Connector;
+import org.libvirt.Connect;
+
+public class TestVirtualMachineStarter extends TestCase
+{
+    private static final long BOOT_TIME = 50;
+
+    private static final int NUMBER_OF_VIRTUAL_MACHINES = 16;
+
+    private static final String DOMAIN_TEMPLATE =
+        "<domain type='test'><name>%s</name><memory>65536</memory><vcpu>1</vcpu>" +
+        "<os><type>hvm</type></os></domain>";
+
+    private static final class SlowActuator implements VirtualMachineActuator
+    {
+        private int active_;
+
+        private int maxActive_;
+
+        public boolean start(String xmlDescription)
+        {
+            synchronized (this)
+            {
+                active_++;
+                maxActive_ = Math.max(maxActive_, active_);
+            }
+
+            try
+            {
+                Thread.sleep(BOOT_TIME);
+            }
+            catch (InterruptedException exception)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            synchronized (this)
+            {
+                active_--;
+            }
+
+            if (xmlDescription.contains("broken"))
+            {
+                throw new IllegalStateException("Domain definition is broken");
+            }
+
+            return !xmlDescription.contains("failed");
+        }
+
+        public boolean suspend(String id)
+        {
+            return false;
+        }
+
+        public boolean resume(String id)
+        {
+            return false;
+        }
+
+        public boolean shutdown(String id)
+        {
+            return false;
+        }
+
+        public boolean reboot(String id)
+        {
+            return false;
+        }
+
+        public boolean destroy(String id)
+        {
+            return false;
+        }
+
+        public boolean migrate(MigrationRequest migrationRequest)
+        {
+            return false;
+        }
+
+        public boolean isActive(String virtualMachineId)
+        {
+            return false;
+        }
+
+        public boolean setMemory(String virtualMachineId, long memory)
+        {
+            return false;
+        }
+
+        public boolean setVcpu(String virtualMachineId, int vcpu)
+        {
+            return false;
+        }
+    }
+
+    private static List<VirtualMachineMetaData> createVirtualMachines(String prefix, int numberOfVirtualMachines)
+    {
+        List<VirtualMachineMetaData> virtualMachines = new ArrayList<VirtualMachineMetaData>();
+        for (int i = 0; i < numberOfVirtualMachines; i++)
+        {
+            VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+            virtualMachine.getVirtualMachineLocation().setVirtualMachineId(prefix + i);
+            virtualMachine.setXmlRepresentation(String.format(DOMAIN_TEMPLATE, prefix + i));
+            virtualMachines.add(virtualMachine);
+        }
+
+        return virtualMachines;
+    }
+
+    public void testParallelismIsBounded()
+    {
+        SlowActuator actuator = new SlowActuator();
+        VirtualMachineStarter starter = new VirtualMachineStarter(actuator, 4);
+        List<VirtualMachineMetaData> virtualMachines = createVirtualMachines("vm", NUMBER_OF_VIRTUAL_MACHINES);
+
+        List<VirtualMachineMetaData> started = starter.start(virtualMachines);
+
+        assertEquals(NUMBER_OF_VIRTUAL_MACHINES, started.size());
+        assertEquals(4, actuator.maxActive_);
+        starter.shutdown();
+    }
+
+    public void testFailuresAreReportedPerVirtualMachine()
+    {
+        VirtualMachineStarter starter = new VirtualMachineStarter(new SlowActuator(), 3);
+        List<VirtualMachineMetaData> virtualMachines = createVirtualMachines("vm", 3);
+        virtualMachines.addAll(createVirtualMachines("failed", 2));
+        virtualMachines.addAll(createVirtualMachines("broken", 1));
+
+        List<VirtualMachineMetaData> started = starter.start(virtualMachines);
+
+        assertEquals(3, started.size());
+        for (int i = 0; i < virtualMachines.size(); i++)
+        {
+            VirtualMachineMetaData virtualMachine = virtualMachines.get(i);
+            if (i < 3)
+            {
+                assertSame(virtualMachine, started.get(i));
+            } else
+            {
+                assertEquals(VirtualMachineStatus.ERROR, virtualMachine.getStatus());
+                assertEquals(VirtualMachineErrorCode.FAILED_TO_START_ON_HYPERVISOR, virtualMachine.getErrorCode());
+            }
+        }
+
+        starter.shutdown();
+    }
+
+    public void testSequentialStart()
+    {
+        SlowActuator actuator = new SlowActuator();
+        VirtualMachineStarter starter = new VirtualMachineStarter(actuator, 1);
+        assertEquals(3, starter.start(createVirtualMachines("vm", 3)).size());
+        assertEquals(1, actuator.maxActive_);
+        starter.shutdown();
+    }
+
+    public void testTestDriverBatchStart() throws Exception
+    {
+        final Connect connect;
+        try
+        {
+            connect = new Connect("test:///default");
+        }
+        catch (Throwable exception)
+        {
+            return;
+        }
+
+        Connector connector = new Connector()
+        {
+            public Object getConnector()
+            {
+                return connect;
+            }
+        };
+
+        int[] parallelism = {1, 4};
+        for (int i = 0; i < parallelism.length; i++)
+        {
+            VirtualMachineStarter starter =
+                new VirtualMachineStarter(new LibVirtVirtualMachineActuator(connector), parallelism[i]);
+            List<VirtualMachineMetaData> started =
+                starter.start(createVirtualMachines("batch" + parallelism[i] + "-", NUMBER_OF_VIRTUAL_MACHINES));
+            assertEquals(NUMBER_OF_VIRTUAL_MACHINES, started.size());
+            starter.shutdown();
+        }
+
+        connect.close();
+    }
+}
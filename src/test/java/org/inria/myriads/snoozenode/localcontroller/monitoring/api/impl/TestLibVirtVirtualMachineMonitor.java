@@ -0,0 +1,82 @@
+package org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozenode.exception.VirtualMachineMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.connector.Connector;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.VirtualMachineInformation;
+import org.libvirt.Connect;
+
+public class TestLibVirtVirtualMachineMonitor extends TestCase
+{
+    private static final String DOMAIN = "test";
+
+    private Connect connect_;
+
+    private LibVirtVirtualMachineMonitor monitor_;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        try
+        {
+            connect_ = new Connect("test:///default");
+        }
+        catch (Throwable exception)
+        {
+            return;
+        }
+
+        monitor_ = new LibVirtVirtualMachineMonitor(new Connector()
+        {
+            public Object getConnector()
+            {
+                return connect_;
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        if (connect_ != null)
+        {
+            connect_.close();
+        }
+    }
+
+    public void testCachedSampleMatchesLookup() throws VirtualMachineMonitoringException
+    {
+        if (monitor_ == null)
+        {
+            return;
+        }
+
+        VirtualMachineInformation cached = monitor_.getVirtualMachineInformation(DOMAIN);
+        cached = monitor_.getVirtualMachineInformation(DOMAIN);
+        monitor_.invalidate(DOMAIN);
+        VirtualMachineInformation lookedUp = monitor_.getVirtualMachineInformation(DOMAIN);
+
+        assertEquals(lookedUp.getNumberOfVirtualCpus(), cached.getNumberOfVirtualCpus());
+        assertEquals(lookedUp.getMemoryUsage(), cached.getMemoryUsage());
+        assertEquals(lookedUp.getNetworkTraffic().size(), cached.getNetworkTraffic().size());
+    }
+
+    public void testUnknownDomainFails()
+    {
+        if (monitor_ == null)
+        {
+            return;
+        }
+
+        try
+        {
+            monitor_.getVirtualMachineInformation("missing");
+            fail();
+        }
+        catch (VirtualMachineMonitoringException exception)
+        {
+            return;
+        }
+    }
+}
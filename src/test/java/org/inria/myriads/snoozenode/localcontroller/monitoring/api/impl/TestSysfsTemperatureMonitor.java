@@ -0,0 +1,149 @@
+package org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozenode.exception.HostMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
+
+public class TestSysfsTemperatureMonitor extends TestCase
+{
+    private static final double DELTA = 0.001;
+
+    private static final class CountingTemperatureMonitor implements TemperatureMonitor
+    {
+        private int numberOfCalls_;
+
+        private double temperature_;
+
+        public double getTemperature()
+        {
+            numberOfCalls_++;
+            return temperature_;
+        }
+    }
+
+    private File hwmon_;
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        hwmon_ = File.createTempFile("hwmon", "");
+        hwmon_.delete();
+        hwmon_.mkdir();
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        delete(hwmon_);
+    }
+
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+
+    private File write(String path, String content) throws IOException
+    {
+        File file = new File(hwmon_, path);
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        writer.write(content);
+        writer.close();
+        return file;
+    }
+
+    public void testAveragesAllSensors() throws Exception
+    {
+        write("hwmon0/name", "coretemp\n");
+        write("hwmon0/temp1_input", "40000\n");
+        write("hwmon0/temp2_input", "50000\n");
+        write("hwmon0/temp1_max", "100000\n");
+        write("hwmon1/device/temp1_input", "60000\n");
+        CountingTemperatureMonitor fallback = new CountingTemperatureMonitor();
+
+        SysfsTemperatureMonitor monitor = new SysfsTemperatureMonitor(hwmon_, fallback);
+
+        assertEquals(50.0, monitor.getTemperature(), DELTA);
+        assertEquals(0, fallback.numberOfCalls_);
+    }
+
+    public void testValuesAreReadOnEveryCall() throws Exception
+    {
+        write("hwmon0/temp1_input", "40000\n");
+        SysfsTemperatureMonitor monitor = new SysfsTemperatureMonitor(hwmon_, null);
+        assertEquals(40.0, monitor.getTemperature(), DELTA);
+
+        write("hwmon0/temp1_input", "42500\n");
+        assertEquals(42.5, monitor.getTemperature(), DELTA);
+    }
+
+    public void testRemovedSensorIsForgotten() throws Exception
+    {
+        write("hwmon0/temp1_input", "40000\n");
+        File removed = write("hwmon1/temp1_input", "80000\n");
+        SysfsTemperatureMonitor monitor = new SysfsTemperatureMonitor(hwmon_, null);
+        assertEquals(60.0, monitor.getTemperature(), DELTA);
+
+        removed.delete();
+        assertEquals(40.0, monitor.getTemperature(), DELTA);
+
+        write("hwmon2/temp1_input", "50000\n");
+        assertEquals(45.0, monitor.getTemperature(), DELTA);
+    }
+
+    public void testFallbackWithoutSensors() throws Exception
+    {
+        write("hwmon0/name", "acpitz\n");
+        CountingTemperatureMonitor fallback = new CountingTemperatureMonitor();
+        fallback.temperature_ = 42.0;
+
+        SysfsTemperatureMonitor monitor = new SysfsTemperatureMonitor(hwmon_, fallback);
+
+        assertEquals(42.0, monitor.getTemperature(), DELTA);
+        assertEquals(1, fallback.numberOfCalls_);
+    }
+
+    public void testFailsWithoutSensorsAndFallback()
+    {
+        SysfsTemperatureMonitor monitor = new SysfsTemperatureMonitor(new File(hwmon_, "missing"), null);
+        try
+        {
+            monitor.getTemperature();
+            fail();
+        }
+        catch (HostMonitoringException exception)
+        {
+            return;
+        }
+    }
+
+    public void testCacheHonorsTimeToLive() throws Exception
+    {
+        CountingTemperatureMonitor source = new CountingTemperatureMonitor();
+        source.temperature_ = 40.0;
+        CachedTemperatureMonitor cached = new CachedTemperatureMonitor(source, 60000);
+        assertEquals(40.0, cached.getTemperature(), DELTA);
+        source.temperature_ = 90.0;
+        assertEquals(40.0, cached.getTemperature(), DELTA);
+        assertEquals(1, source.numberOfCalls_);
+
+        CachedTemperatureMonitor uncached = new CachedTemperatureMonitor(source, 0);
+        assertEquals(90.0, uncached.getTemperature(), DELTA);
+        assertEquals(90.0, uncached.getTemperature(), DELTA);
+        assertEquals(3, source.numberOfCalls_);
+    }
+}
@@ -0,0 +1,337 @@
+package org.inria.myriads.snoozenode.localcontroller.monitoring.producer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringSettings;
+import org.inria.myriads.snoozenode.exception.VirtualMachineMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.connector.Connector;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.VirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.impl.LibVirtVirtualMachineMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.NetworkTrafficInformation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.information.VirtualMachineInformation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.listener.VirtualMachineMonitoringListener;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.service.InfrastructureMonitoring;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.libvirt.Connect;
+
+public class TestSharedMonitoringScheduler extends TestCase
+{
+    private static final int INTERVAL = 10;
+
+    private static final int HISTORY_SIZE = 2;
+
+    private static final long TIMEOUT = 10;
+
+    private static final class FakeVirtualMachineMonitor implements VirtualMachineMonitor
+    {
+        private Set<String> failing_ = Collections.synchronizedSet(new HashSet<String>());
+
+        private Set<String> threads_ = Collections.synchronizedSet(new HashSet<String>());
+
+        private Set<String> hanging_ = Collections.synchronizedSet(new HashSet<String>());
+
+        private CountDownLatch release_ = new CountDownLatch(1);
+
+        private AtomicInteger numberOfHangingCalls_ = new AtomicInteger();
+
+        private volatile long delay_;
+
+        private long cpuTime_;
+
+        public VirtualMachineInformation getVirtualMachineInformation(String virtualMachineId)
+            throws VirtualMachineMonitoringException
+        {
+            threads_.add(Thread.currentThread().getName());
+            if (delay_ > 0)
+            {
+                try
+                {
+                    Thread.sleep(delay_);
+                }
+                catch (InterruptedException exception)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (hanging_.remove(virtualMachineId))
+            {
+                numberOfHangingCalls_.incrementAndGet();
+                try
+                {
+                    release_.await();
+                }
+                catch (InterruptedException exception)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return createInformation(virtualMachineId);
+        }
+
+        private synchronized VirtualMachineInformation createInformation(String virtualMachineId)
+            throws VirtualMachineMonitoringException
+        {
+            if (failing_.contains(virtualMachineId))
+            {
+                throw new VirtualMachineMonitoringException("Domain not found");
+            }
+
+            cpuTime_ += 1000;
+            List<NetworkTrafficInformation> networkTraffic = new ArrayList<NetworkTrafficInformation>();
+            networkTraffic.add(new NetworkTrafficInformation("vif0"));
+            return new VirtualMachineInformation(1, cpuTime_, 1024, networkTraffic);
+        }
+
+        public void invalidate(String virtualMachineId)
+        {
+        }
+    }
+
+    private static final class CountingListener implements VirtualMachineMonitoringListener
+    {
+        private CountDownLatch latch_ = new CountDownLatch(1);
+
+        private List<String> failures_ = Collections.synchronizedList(new ArrayList<String>());
+
+        public boolean onMonitoringFailure(VirtualMachineLocation location)
+        {
+            failures_.add(location.getVirtualMachineId());
+            latch_.countDown();
+            return true;
+        }
+
+        public int getNumberOfActiveVirtualMachines()
+        {
+            return 0;
+        }
+
+        boolean await() throws InterruptedException
+        {
+            return latch_.await(TIMEOUT, TimeUnit.SECONDS);
+        }
+    }
+
+    private BlockingQueue<AggregatedVirtualMachineData> dataQueue_;
+
+    private CountingListener listener_;
+
+    private SharedMonitoringScheduler scheduler_;
+
+    @Override
+    protected void tearDown()
+    {
+        if (scheduler_ != null)
+        {
+            scheduler_.shutdown();
+        }
+    }
+
+    private SharedMonitoringScheduler createScheduler(VirtualMachineMonitor virtualMachineMonitor)
+    {
+        MonitoringSettings settings = new MonitoringSettings();
+        settings.setInterval(INTERVAL);
+        settings.setNumberOfMonitoringEntries(HISTORY_SIZE);
+        dataQueue_ = new LinkedBlockingQueue<AggregatedVirtualMachineData>();
+        listener_ = new CountingListener();
+        InfrastructureMonitoring monitoring = new InfrastructureMonitoring(virtualMachineMonitor, null, null, settings);
+        scheduler_ = new SharedMonitoringScheduler(monitoring, dataQueue_, listener_);
+        return scheduler_;
+    }
+
+    private static VirtualMachineMetaData createMetaData(String virtualMachineId)
+    {
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setVirtualMachineId(virtualMachineId);
+        location.setLocalControllerId("lc1");
+        VirtualMachineMetaData metaData = new VirtualMachineMetaData();
+        metaData.setVirtualMachineLocation(location);
+        return metaData;
+    }
+
+    private Set<String> collect(int numberOfEntries) throws InterruptedException
+    {
+        Set<String> virtualMachineIds = new HashSet<String>();
+        for (int i = 0; i < numberOfEntries; i++)
+        {
+            AggregatedVirtualMachineData data = dataQueue_.poll(TIMEOUT, TimeUnit.SECONDS);
+            assertNotNull(data);
+            assertEquals(HISTORY_SIZE, data.getMonitoringData().size());
+            virtualMachineIds.add(data.getVirtualMachineId());
+        }
+
+        return virtualMachineIds;
+    }
+
+    public void testAllVirtualMachinesAreSampledByOneThread() throws InterruptedException
+    {
+        FakeVirtualMachineMonitor monitor = new FakeVirtualMachineMonitor();
+        SharedMonitoringScheduler scheduler = createScheduler(monitor);
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(scheduler.start(createMetaData("vm" + i)));
+        }
+
+        assertFalse(scheduler.start(createMetaData("vm0")));
+        assertEquals(3, scheduler.getNumberOfVirtualMachines());
+
+        Set<String> virtualMachineIds = collect(3);
+        assertEquals(3, virtualMachineIds.size());
+        assertEquals(1, monitor.threads_.size());
+    }
+
+    public void testSuspendedVirtualMachineProducesNoData() throws InterruptedException
+    {
+        SharedMonitoringScheduler scheduler = createScheduler(new FakeVirtualMachineMonitor());
+        scheduler.start(createMetaData("vm1"));
+        scheduler.start(createMetaData("vm2"));
+        assertTrue(scheduler.suspend("vm2"));
+        assertFalse(scheduler.suspend("vm3"));
+
+        Set<String> virtualMachineIds = collect(4);
+        assertEquals(1, virtualMachineIds.size());
+        assertTrue(virtualMachineIds.contains("vm1"));
+        assertEquals(2, scheduler.getNumberOfVirtualMachines());
+
+        assertTrue(scheduler.resume("vm2"));
+        boolean isResumed = false;
+        for (int i = 0; i < 10 && !isResumed; i++)
+        {
+            isResumed = collect(1).contains("vm2");
+        }
+
+        assertTrue(isResumed);
+    }
+
+    public void testStoppedVirtualMachineIsNoLongerMonitored() throws InterruptedException
+    {
+        SharedMonitoringScheduler scheduler = createScheduler(new FakeVirtualMachineMonitor());
+        scheduler.start(createMetaData("vm1"));
+        scheduler.start(createMetaData("vm2"));
+        collect(1);
+
+        assertTrue(scheduler.stop("vm2"));
+        assertFalse(scheduler.stop("vm2"));
+        assertFalse(scheduler.isMonitored("vm2"));
+        assertEquals(1, scheduler.getNumberOfVirtualMachines());
+
+        Thread.sleep(INTERVAL * 2);
+        dataQueue_.clear();
+        assertEquals(Collections.singleton("vm1"), collect(3));
+        assertTrue(scheduler.start(createMetaData("vm2")));
+    }
+
+    public void testFailureIsReportedOnce() throws InterruptedException
+    {
+        FakeVirtualMachineMonitor monitor = new FakeVirtualMachineMonitor();
+        monitor.failing_.add("vm2");
+        SharedMonitoringScheduler scheduler = createScheduler(monitor);
+        scheduler.start(createMetaData("vm1"));
+        scheduler.start(createMetaData("vm2"));
+
+        assertTrue(listener_.await());
+        assertEquals(Collections.singleton("vm1"), collect(2));
+        assertEquals(Collections.singletonList("vm2"), listener_.failures_);
+        assertTrue(scheduler.isMonitored("vm2"));
+        assertEquals(2, scheduler.getNumberOfVirtualMachines());
+
+        assertTrue(scheduler.stop("vm2"));
+        assertEquals(1, scheduler.getNumberOfVirtualMachines());
+    }
+
+    public void testLibvirtTestDriver() throws Exception
+    {
+        final Connect connect;
+        try
+        {
+            connect = new Connect("test:///default");
+        }
+        catch (Throwable exception)
+        {
+            return;
+        }
+
+        VirtualMachineMonitor monitor = new LibVirtVirtualMachineMonitor(new Connector()
+        {
+            public Object getConnector()
+            {
+                return connect;
+            }
+        });
+
+        try
+        {
+            monitor.getVirtualMachineInformation("test");
+        }
+        catch (VirtualMachineMonitoringException exception)
+        {
+            return;
+        }
+
+        SharedMonitoringScheduler scheduler = createScheduler(monitor);
+        scheduler.start(createMetaData("test"));
+        scheduler.start(createMetaData("missing"));
+
+        assertTrue(listener_.await());
+        assertEquals(Collections.singletonList("missing"), listener_.failures_);
+        assertEquals(Collections.singleton("test"), collect(2));
+        scheduler.shutdown();
+        connect.close();
+    }
+
+    public void testHangingVirtualMachineIsSkippedUntilItReturns() throws InterruptedException
+    {
+        FakeVirtualMachineMonitor monitor = new FakeVirtualMachineMonitor();
+        monitor.hanging_.add("vm1");
+        SharedMonitoringScheduler scheduler = createScheduler(monitor);
+        scheduler.start(createMetaData("vm1"));
+        scheduler.start(createMetaData("vm2"));
+
+        assertEquals(Collections.singleton("vm2"), collect(3));
+        assertEquals(1, monitor.numberOfHangingCalls_.get());
+        assertTrue(scheduler.isMonitored("vm1"));
+
+        monitor.release_.countDown();
+        boolean isSampled = false;
+        for (int i = 0; i < 10 && !isSampled; i++)
+        {
+            isSampled = collect(1).contains("vm1");
+        }
+
+        assertTrue(isSampled);
+        assertTrue(listener_.failures_.isEmpty());
+    }
+
+    public void testSlowVirtualMachinesAreSampledInTurn() throws InterruptedException
+    {
+        FakeVirtualMachineMonitor monitor = new FakeVirtualMachineMonitor();
+        monitor.delay_ = INTERVAL * 2 / 3;
+        SharedMonitoringScheduler scheduler = createScheduler(monitor);
+        scheduler.start(createMetaData("vm1"));
+        scheduler.start(createMetaData("vm2"));
+        scheduler.start(createMetaData("vm3"));
+
+        Set<String> virtualMachineIds = new HashSet<String>();
+        for (int i = 0; i < 100 && virtualMachineIds.size() < 3; i++)
+        {
+            virtualMachineIds.addAll(collect(1));
+        }
+
+        assertEquals(3, virtualMachineIds.size());
+        assertTrue(listener_.failures_.isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+package org.inria.myriads.snoozenode.localcontroller.monitoring.threshold;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.exception.HostMonitoringException;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.api.TemperatureMonitor;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+
+public class TestThresholdCrossingDetector extends TestCase
+{
+    private static final double TEMPERATURE_THRESHOLD = 80.0;
+
+    private static final class FixedTemperatureMonitor implements TemperatureMonitor
+    {
+        private Double temperature_;
+
+        FixedTemperatureMonitor(Double temperature)
+        {
+            temperature_ = temperature;
+        }
+
+        public double getTemperature() throws HostMonitoringException
+        {
+            if (temperature_ == null)
+            {
+                throw new HostMonitoringException("No sensor");
+            }
+
+            return temperature_;
+        }
+    }
+
+    private static LocalControllerDataTransporter createMonitoringData()
+    {
+        VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+        data.setUsedCapacity(new ArrayList<Double>(Arrays.asList(0.5, 0.5, 0.5, 0.5)));
+        ArrayList<VirtualMachineMonitoringData> history = new ArrayList<VirtualMachineMonitoringData>();
+        history.add(data);
+        List<AggregatedVirtualMachineData> aggregatedData = new ArrayList<AggregatedVirtualMachineData>();
+        aggregatedData.add(new AggregatedVirtualMachineData("vm1", history));
+        LocalControllerDataTransporter monitoringData = new LocalControllerDataTransporter("lc1", aggregatedData);
+        monitoringData.setState(LocalControllerState.STABLE);
+        return monitoringData;
+    }
+
+    private static ThresholdCrossingDetector createDetector(Double temperature)
+    {
+        List<Double> thresholds = Arrays.asList(0.0, 1.0, 1.0);
+        MonitoringThresholds monitoringThresholds =
+            new MonitoringThresholds(thresholds, thresholds, thresholds, TEMPERATURE_THRESHOLD);
+        List<Double> totalCapacity = Arrays.asList(1.0, 1.0, 1.0, 1.0);
+        return new ThresholdCrossingDetector(monitoringThresholds,
+                                             totalCapacity,
+                                             new FixedTemperatureMonitor(temperature));
+    }
+
+    public void testOverheatIsDetected()
+    {
+        LocalControllerDataTransporter monitoringData = createMonitoringData();
+        assertTrue(createDetector(85.0).detectThresholdCrossing(monitoringData));
+        assertEquals(LocalControllerState.OVERHEATED, monitoringData.getState());
+    }
+
+    public void testNormalTemperatureIsStable()
+    {
+        LocalControllerDataTransporter monitoringData = createMonitoringData();
+        assertFalse(createDetector(45.0).detectThresholdCrossing(monitoringData));
+        assertEquals(LocalControllerState.STABLE, monitoringData.getState());
+    }
+
+    public void testUnavailableTemperatureNeverOverheats()
+    {
+        LocalControllerDataTransporter monitoringData = createMonitoringData();
+        assertFalse(createDetector(null).detectThresholdCrossing(monitoringData));
+        assertEquals(LocalControllerState.STABLE, monitoringData.getState());
+    }
+}
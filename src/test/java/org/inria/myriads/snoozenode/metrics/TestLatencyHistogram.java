@@ -0,0 +1,112 @@
+package org.inria.myriads.snoozenode.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestLatencyHistogram extends TestCase
+{
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 32;
+
+    public void testBucketsCoverAllValues()
+    {
+        int previous = -1;
+        for (long value = 0; value < 100000; value++)
+        {
+            int index = LatencyHistogram.getBucketIndex(value);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(LatencyHistogram.getHighestValue(index) >= value);
+            previous = index;
+        }
+
+        long large = 1L << 40;
+        assertTrue(LatencyHistogram.getHighestValue(LatencyHistogram.getBucketIndex(large)) >= large);
+    }
+
+    public void testEmptySnapshot()
+    {
+        HistogramSnapshot snapshot = new LatencyHistogram().getSnapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getP99());
+    }
+
+    public void testPercentilesWithinRelativeError()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42);
+        List<Long> values = new ArrayList<Long>();
+        long sum = 0;
+        for (int i = 0; i < 100000; i++)
+        {
+            long value = (long) Math.abs(random.nextGaussian() * 5000) + random.nextInt(100);
+            values.add(value);
+            sum += value;
+            histogram.record(value);
+        }
+
+        Collections.sort(values);
+        HistogramSnapshot snapshot = histogram.getSnapshot();
+        assertEquals(values.size(), snapshot.getCount());
+        assertEquals((long) values.get(values.size() - 1), snapshot.getMax());
+        assertEquals(sum / (double) values.size(), snapshot.getMean(), 0.001);
+        assertPercentile(values, 0.5, snapshot.getP50());
+        assertPercentile(values, 0.9, snapshot.getP90());
+        assertPercentile(values, 0.99, snapshot.getP99());
+        assertPercentile(values, 0.999, snapshot.getP999());
+    }
+
+    private static void assertPercentile(List<Long> sortedValues, double percentile, long actual)
+    {
+        long expected = sortedValues.get((int) Math.ceil(percentile * sortedValues.size()) - 1);
+        assertTrue(actual >= expected);
+        assertTrue(actual <= expected + Math.max(1, expected * MAX_RELATIVE_ERROR));
+    }
+
+    public void testOutOfRangeValuesAreClamped()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        HistogramSnapshot snapshot = histogram.getSnapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getP50());
+        assertTrue(snapshot.getMax() > 0);
+        assertEquals(snapshot.getMax(), snapshot.getP999());
+    }
+
+    public void testConcurrentRecording() throws InterruptedException
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int iterations = 50000;
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++)
+        {
+            final long value = 100 * (t + 1);
+            Thread thread = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    for (int i = 0; i < iterations; i++)
+                    {
+                        histogram.record(value);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        HistogramSnapshot snapshot = histogram.getSnapshot();
+        assertEquals(4 * iterations, snapshot.getCount());
+        assertEquals(400, snapshot.getMax());
+        assertEquals(250.0, snapshot.getMean(), 0.001);
+    }
+}
@@ -0,0 +1,83 @@
+package org.inria.myriads.snoozenode.metrics;
+
+import junit.framework.TestCase;
+
+public class TestMetricsRegistry extends TestCase
+{
+    private MetricsRegistry registry_;
+
+    @Override
+    protected void setUp()
+    {
+        registry_ = new MetricsRegistry();
+    }
+
+    private static Gauge constant(final long value)
+    {
+        return new Gauge()
+        {
+            public long getValue()
+            {
+                return value;
+            }
+        };
+    }
+
+    public void testMetricsAreCreatedOnce()
+    {
+        assertSame(registry_.getCounter("a"), registry_.getCounter("a"));
+        assertSame(registry_.getHistogram("a"), registry_.getHistogram("a"));
+        assertNotSame(registry_.getCounter("a"), registry_.getCounter("b"));
+    }
+
+    public void testSnapshot()
+    {
+        registry_.getCounter("requests").increment();
+        registry_.getCounter("requests").add(2);
+        registry_.getHistogram("latency").record(10);
+        registry_.registerGauge("queue", constant(7));
+
+        MetricsSnapshot snapshot = registry_.getSnapshot();
+        assertEquals(Long.valueOf(3), snapshot.getCounters().get("requests"));
+        assertEquals(Long.valueOf(7), snapshot.getGauges().get("queue"));
+        assertEquals(1, snapshot.getHistograms().get("latency").getCount());
+        assertTrue(snapshot.getTimeStamp() > 0);
+    }
+
+    public void testReplacedGaugeIsNotUnregisteredByFormerOwner()
+    {
+        Gauge first = constant(1);
+        Gauge second = constant(2);
+        registry_.registerGauge("queue", first);
+        registry_.registerGauge("queue", second);
+
+        registry_.unregisterGauge("queue", first);
+        assertEquals(Long.valueOf(2), registry_.getSnapshot().getGauges().get("queue"));
+
+        registry_.unregisterGauge("queue", second);
+        assertFalse(registry_.getSnapshot().getGauges().containsKey("queue"));
+    }
+
+    public void testFailingGaugeIsSkipped()
+    {
+        registry_.registerGauge("broken", new Gauge()
+        {
+            public long getValue()
+            {
+                throw new IllegalStateException("Not available");
+            }
+        });
+        registry_.registerGauge("queue", constant(3));
+
+        MetricsSnapshot snapshot = registry_.getSnapshot();
+        assertFalse(snapshot.getGauges().containsKey("broken"));
+        assertEquals(Long.valueOf(3), snapshot.getGauges().get("queue"));
+    }
+
+    public void testDefaultRegistryHasJvmGauges()
+    {
+        MetricsSnapshot snapshot = MetricsFactory.getRegistry().getSnapshot();
+        assertTrue(snapshot.getGauges().get("jvm.threads") > 0);
+        assertTrue(snapshot.getGauges().containsKey("jvm.memory.used"));
+    }
+}
@@ -0,0 +1,163 @@
+package org.inria.myriads.snoozenode.tcpip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.inria.myriads.snoozenode.tcpip.codec.CodecFactory;
+import org.inria.myriads.snoozenode.tcpip.codec.DataEncoder;
+import org.inria.myriads.snoozenode.tcpip.codec.TestDataCodec;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
+
+public class TestMultiplexedConnection extends TestCase
+{
+    private ServerSocketChannel server_;
+    
+    private SocketChannel client_;
+    
+    private SocketChannel accepted_;
+    
+    private List<Object> received_;
+    
+    private List<String> failures_;
+    
+    private int numberOfTasks_;
+    
+    private MultiplexedConnection connection_;
+    
+    @Override
+    protected void setUp() throws Exception
+    {
+        server_ = ServerSocketChannel.open();
+        server_.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        client_ = SocketChannel.open(server_.socket().getLocalSocketAddress());
+        accepted_ = server_.accept();
+        received_ = new ArrayList<Object>();
+        failures_ = new ArrayList<String>();
+        
+        DataListener listener = new DataListener()
+        {
+            public void onFailure(String id)
+            {
+                failures_.add(id);
+            }
+            
+            public void onDataArrival(Object data, String id)
+            {
+                received_.add(data);
+            }
+        };
+        
+        Executor inlineExecutor = new Executor()
+        {
+            public void execute(Runnable task)
+            {
+                numberOfTasks_++;
+                task.run();
+            }
+        };
+        
+        connection_ = new MultiplexedConnection(accepted_, listener, inlineExecutor);
+    }
+    
+    @Override
+    protected void tearDown() throws Exception
+    {
+        connection_.close(false);
+        client_.close();
+        server_.close();
+    }
+    
+    private byte[] encode(Object... objects) throws IOException
+    {
+        return encode(CodecType.binary, objects);
+    }
+    
+    private byte[] encode(CodecType codecType, Object... objects) throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DataEncoder encoder = CodecFactory.newEncoder(codecType, output);
+        for (Object object : objects)
+        {
+            encoder.encode(object);
+        }
+        encoder.close();
+        return output.toByteArray();
+    }
+    
+    public void testPartialFrameIsNotDispatched() throws Exception
+    {
+        LocalControllerDataTransporter data = TestDataCodec.createLocalControllerData("lc1", 2, 3);
+        byte[] bytes = encode(data);
+        
+        for (int i = 0; i < bytes.length - 1; i++)
+        {
+            connection_.onBytesReceived(ByteBuffer.wrap(bytes, i, 1));
+        }
+        
+        assertEquals(0, numberOfTasks_);
+        assertTrue(received_.isEmpty());
+        
+        connection_.onBytesReceived(ByteBuffer.wrap(bytes, bytes.length - 1, 1));
+        
+        assertEquals(1, numberOfTasks_);
+        assertEquals(1, received_.size());
+        assertEquals("lc1", ((LocalControllerDataTransporter) received_.get(0)).getLocalControllerId());
+        assertTrue(failures_.isEmpty());
+    }
+    
+    public void testSeveralFramesInOneRead() throws Exception
+    {
+        byte[] bytes = encode(TestDataCodec.createLocalControllerData("lc1", 1, 1),
+                              TestDataCodec.createLocalControllerData("lc2", 1, 1),
+                              TestDataCodec.createLocalControllerData("lc3", 1, 1));
+        
+        connection_.onBytesReceived(ByteBuffer.wrap(bytes));
+        
+        assertEquals(1, numberOfTasks_);
+        assertEquals(3, received_.size());
+        assertEquals("lc3", ((LocalControllerDataTransporter) received_.get(2)).getLocalControllerId());
+    }
+    
+    public void testInvalidHeaderClosesConnection() throws Exception
+    {
+        connection_.onBytesReceived(ByteBuffer.wrap(new byte[] {0x12, 0x34, 0x00, 0x00}));
+        
+        assertEquals(0, numberOfTasks_);
+        assertTrue(connection_.isClosed());
+        assertEquals(1, failures_.size());
+    }
+    
+    public void testInvalidFrameLengthClosesConnection() throws Exception
+    {
+        byte[] bytes = encode(TestDataCodec.createLocalControllerData("lc1", 1, 1));
+        bytes[3] = (byte) 0xFF;
+        
+        connection_.onBytesReceived(ByteBuffer.wrap(bytes));
+        
+        assertTrue(connection_.isClosed());
+        assertEquals(1, failures_.size());
+    }
+    
+    public void testSerializationStreamIsRejected() throws Exception
+    {
+        byte[] bytes = encode(CodecType.serialization, TestDataCodec.createLocalControllerData("lc1", 1, 1));
+        
+        connection_.onBytesReceived(ByteBuffer.wrap(bytes));
+        
+        assertEquals(0, numberOfTasks_);
+        assertTrue(received_.isEmpty());
+        assertTrue(connection_.isClosed());
+        assertEquals(1, failures_.size());
+    }
+}
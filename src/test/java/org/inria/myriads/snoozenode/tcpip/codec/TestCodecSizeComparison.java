@@ -0,0 +1,75 @@
+package org.inria.myriads.snoozenode.tcpip.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
+
+public class TestCodecSizeComparison extends TestCase
+{
+    private static final int NUMBER_OF_MESSAGES = 500;
+    
+    private static final double MAX_SIZE_RATIO = 0.6;
+    
+    private static final double MAX_TIME_RATIO = 5.0;
+    
+    private static final int NUMBER_OF_ROUNDS = 5;
+    
+    private long run(CodecType type, LocalControllerDataTransporter data) 
+        throws Exception
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DataEncoder encoder = CodecFactory.newEncoder(type, output);
+        for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+        {
+            encoder.encode(data);
+        }
+        encoder.close();
+        
+        DataDecoder decoder = CodecFactory.newDecoder(new ByteArrayInputStream(output.toByteArray()));
+        for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+        {
+            assertNotNull(decoder.decode());
+        }
+        decoder.close();
+        
+        return output.size();
+    }
+    
+    private long measure(CodecType type, LocalControllerDataTransporter data) 
+        throws Exception
+    {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < NUMBER_OF_ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            run(type, data);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        
+        return fastest;
+    }
+    
+    public void testBinaryIsSmallerThanSerialization() 
+        throws Exception
+    {
+        LocalControllerDataTransporter data = TestDataCodec.createLocalControllerData("lc1", 10, 10);
+        long serializationSize = run(CodecType.serialization, data);
+        long binarySize = run(CodecType.binary, data);
+        
+        assertTrue(binarySize < serializationSize * MAX_SIZE_RATIO);
+    }
+    
+    public void testBinaryIsNotMuchSlowerThanSerialization() 
+        throws Exception
+    {
+        LocalControllerDataTransporter data = TestDataCodec.createLocalControllerData("lc1", 10, 10);
+        long serializationTime = measure(CodecType.serialization, data);
+        long binaryTime = measure(CodecType.binary, data);
+        
+        assertTrue(binaryTime < serializationTime * MAX_TIME_RATIO);
+    }
+}
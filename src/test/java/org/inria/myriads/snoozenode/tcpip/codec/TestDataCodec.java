@@ -0,0 +1,227 @@
+package org.inria.myriads.snoozenode.tcpip.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.groupmanager.summary.GroupManagerSummaryInformation;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.GroupManagerDataTransporter;
+import org.inria.myriads.snoozenode.groupmanager.monitoring.transport.LocationUpdate;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.enums.LocalControllerState;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.LocalControllerDataTransporter;
+import org.inria.myriads.snoozenode.tcpip.enums.CodecType;
+
+public class TestDataCodec extends TestCase
+{
+    
+    public static LocalControllerDataTransporter createLocalControllerData(String localControllerId,
+                                                                           int numberOfVirtualMachines,
+                                                                           int numberOfEntries)
+    {
+        List<AggregatedVirtualMachineData> aggregatedData = new ArrayList<AggregatedVirtualMachineData>();
+        for (int i = 0; i < numberOfVirtualMachines; i++)
+        {
+            List<VirtualMachineMonitoringData> monitoringData = new ArrayList<VirtualMachineMonitoringData>();
+            for (int j = 0; j < numberOfEntries; j++)
+            {
+                VirtualMachineMonitoringData entry = new VirtualMachineMonitoringData();
+                entry.setTimeStamp(1000L * j + i);
+                entry.setUsedCapacity(createVector(i + 0.25 * j));
+                monitoringData.add(entry);
+            }
+            aggregatedData.add(new AggregatedVirtualMachineData("vm" + i, monitoringData));
+        }
+        
+        LocalControllerDataTransporter data = new LocalControllerDataTransporter(localControllerId, aggregatedData);
+        data.setState(LocalControllerState.OVERLOADED);
+        return data;
+    }
+    
+    private static ArrayList<Double> createVector(double base)
+    {
+        ArrayList<Double> vector = new ArrayList<Double>();
+        for (int i = 0; i < 4; i++)
+        {
+            vector.add(base + i);
+        }
+        return vector;
+    }
+    
+    private List<Object> roundTrip(CodecType type, Object... objects) 
+        throws IOException, ClassNotFoundException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        DataEncoder encoder = CodecFactory.newEncoder(type, output);
+        for (Object object : objects)
+        {
+            encoder.encode(object);
+        }
+        encoder.close();
+        
+        DataDecoder decoder = CodecFactory.newDecoder(new ByteArrayInputStream(output.toByteArray()));
+        List<Object> decoded = new ArrayList<Object>();
+        for (int i = 0; i < objects.length; i++)
+        {
+            decoded.add(decoder.decode());
+        }
+        decoder.close();
+        return decoded;
+    }
+    
+    private void assertLocalControllerDataEquals(LocalControllerDataTransporter expected, 
+                                                 LocalControllerDataTransporter actual)
+    {
+        assertEquals(expected.getLocalControllerId(), actual.getLocalControllerId());
+        assertEquals(expected.getState(), actual.getState());
+        if (expected.getData() == null)
+        {
+            assertNull(actual.getData());
+            return;
+        }
+        
+        assertEquals(expected.getData().size(), actual.getData().size());
+        for (int i = 0; i < expected.getData().size(); i++)
+        {
+            AggregatedVirtualMachineData expectedData = expected.getData().get(i);
+            AggregatedVirtualMachineData actualData = actual.getData().get(i);
+            assertEquals(expectedData.getVirtualMachineId(), actualData.getVirtualMachineId());
+            assertEquals(expectedData.getMonitoringData().size(), actualData.getMonitoringData().size());
+            for (int j = 0; j < expectedData.getMonitoringData().size(); j++)
+            {
+                VirtualMachineMonitoringData expectedEntry = expectedData.getMonitoringData().get(j);
+                VirtualMachineMonitoringData actualEntry = actualData.getMonitoringData().get(j);
+                assertEquals(expectedEntry.getTimeStamp(), actualEntry.getTimeStamp());
+                assertEquals(expectedEntry.getUsedCapacity(), actualEntry.getUsedCapacity());
+            }
+        }
+    }
+    
+    public void testLocalControllerDataRoundTrip() 
+        throws Exception
+    {
+        LocalControllerDataTransporter data = createLocalControllerData("lc1", 3, 5);
+        LocalControllerDataTransporter heartbeat = new LocalControllerDataTransporter("lc1", null);
+        
+        for (CodecType type : CodecType.values())
+        {
+            List<Object> decoded = roundTrip(type, data, heartbeat, data);
+            assertLocalControllerDataEquals(data, (LocalControllerDataTransporter) decoded.get(0));
+            assertLocalControllerDataEquals(heartbeat, (LocalControllerDataTransporter) decoded.get(1));
+            assertLocalControllerDataEquals(data, (LocalControllerDataTransporter) decoded.get(2));
+        }
+    }
+    
+    public void testGroupManagerDataRoundTrip() 
+        throws Exception
+    {
+        GroupManagerSummaryInformation summary = new GroupManagerSummaryInformation();
+        summary.setTimeStamp(42L);
+        summary.setActiveCapacity(createVector(1));
+        summary.setPassiveCapacity(createVector(2));
+        summary.setRequestedCapacity(createVector(3));
+        summary.setUsedCapacity(createVector(4));
+        ArrayList<String> legacyIpAddresses = new ArrayList<String>();
+        legacyIpAddresses.add("192.168.122.10");
+        summary.setLegacyIpAddresses(legacyIpAddresses);
+        GroupManagerDataTransporter data = new GroupManagerDataTransporter("gm1", summary);
+        
+        for (CodecType type : CodecType.values())
+        {
+            GroupManagerDataTransporter decoded = (GroupManagerDataTransporter) roundTrip(type, data).get(0);
+            assertEquals("gm1", decoded.getId());
+            assertEquals(42L, decoded.getSummary().getTimeStamp());
+            assertEquals(summary.getActiveCapacity(), decoded.getSummary().getActiveCapacity());
+            assertEquals(summary.getPassiveCapacity(), decoded.getSummary().getPassiveCapacity());
+            assertEquals(summary.getRequestedCapacity(), decoded.getSummary().getRequestedCapacity());
+            assertEquals(summary.getUsedCapacity(), decoded.getSummary().getUsedCapacity());
+            assertEquals(legacyIpAddresses, decoded.getSummary().getLegacyIpAddresses());
+        }
+    }
+    
+    public void testGroupManagerLocationsRoundTrip() 
+        throws Exception
+    {
+        LocationUpdate locations = new LocationUpdate(7L, false);
+        NetworkAddress address = new NetworkAddress();
+        address.setAddress("10.0.0.1");
+        address.setPort(5000);
+        locations.getLocalControllers().put("lc1", address);
+        locations.getRemovedLocalControllers().add("lc2");
+        locations.getVirtualMachines().put("vm1", "lc1");
+        locations.getRemovedVirtualMachines().add("vm2");
+        GroupManagerDataTransporter data = new GroupManagerDataTransporter("gm1", null);
+        data.setLocations(locations);
+        GroupManagerDataTransporter withoutLocations = new GroupManagerDataTransporter("gm2", null);
+        
+        for (CodecType type : CodecType.values())
+        {
+            List<Object> decoded = roundTrip(type, data, withoutLocations);
+            LocationUpdate decodedLocations = ((GroupManagerDataTransporter) decoded.get(0)).getLocations();
+            assertEquals(7L, decodedLocations.getSequenceNumber());
+            assertFalse(decodedLocations.isFull());
+            assertEquals("10.0.0.1", decodedLocations.getLocalControllers().get("lc1").getAddress());
+            assertEquals(5000, decodedLocations.getLocalControllers().get("lc1").getPort());
+            assertEquals(locations.getRemovedLocalControllers(), decodedLocations.getRemovedLocalControllers());
+            assertEquals(locations.getVirtualMachines(), decodedLocations.getVirtualMachines());
+            assertEquals(locations.getRemovedVirtualMachines(), decodedLocations.getRemovedVirtualMachines());
+            assertNull(((GroupManagerDataTransporter) decoded.get(1)).getLocations());
+            assertNull(((GroupManagerDataTransporter) decoded.get(0)).getFinishedSubmissions());
+        }
+    }
+    
+    public void testGroupManagerFinishedSubmissionsRoundTrip() 
+        throws Exception
+    {
+        ArrayList<String> finishedSubmissions = new ArrayList<String>();
+        finishedSubmissions.add("task1");
+        finishedSubmissions.add("task2");
+        GroupManagerDataTransporter data = new GroupManagerDataTransporter("gm1", null);
+        data.setFinishedSubmissions(finishedSubmissions);
+        GroupManagerDataTransporter withLocations = new GroupManagerDataTransporter("gm2", null);
+        withLocations.setLocations(new LocationUpdate(3L, true));
+        withLocations.setFinishedSubmissions(finishedSubmissions);
+        
+        for (CodecType type : CodecType.values())
+        {
+            List<Object> decoded = roundTrip(type, data, withLocations);
+            GroupManagerDataTransporter first = (GroupManagerDataTransporter) decoded.get(0);
+            assertNull(first.getLocations());
+            assertEquals(finishedSubmissions, first.getFinishedSubmissions());
+            GroupManagerDataTransporter second = (GroupManagerDataTransporter) decoded.get(1);
+            assertEquals(3L, second.getLocations().getSequenceNumber());
+            assertEquals(finishedSubmissions, second.getFinishedSubmissions());
+        }
+    }
+    
+    public void testOtherObjectsFallBackToSerialization() 
+        throws Exception
+    {
+        ArrayList<String> data = new ArrayList<String>();
+        data.add("payload");
+        assertEquals(data, roundTrip(CodecType.binary, data).get(0));
+    }
+    
+    public void testUnsupportedVersionIsRejected() 
+        throws Exception
+    {
+        byte[] header = new byte[] {(byte) (BinaryFormat.MAGIC >> 8), 
+                                    (byte) BinaryFormat.MAGIC, 
+                                    BinaryFormat.VERSION + 1};
+        try
+        {
+            CodecFactory.newDecoder(new ByteArrayInputStream(header));
+            fail("Newer format version must be rejected");
+        }
+        catch (IOException exception)
+        {
+            // expected
+        }
+    }
+}
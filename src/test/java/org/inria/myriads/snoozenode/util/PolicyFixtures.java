@@ -0,0 +1,122 @@
+package org.inria.myriads.snoozenode.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.inria.myriads.snoozecommon.communication.NetworkAddress;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerDescription;
+import org.inria.myriads.snoozecommon.communication.localcontroller.LocalControllerStatus;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.VirtualMachineMetaData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.status.VirtualMachineStatus;
+import org.inria.myriads.snoozenode.configurator.estimator.EstimatorSettings;
+import org.inria.myriads.snoozenode.configurator.monitoring.MonitoringThresholds;
+import org.inria.myriads.snoozenode.configurator.submission.PackingDensity;
+import org.inria.myriads.snoozenode.groupmanager.estimator.ResourceDemandEstimator;
+import org.inria.myriads.snoozenode.groupmanager.estimator.enums.Estimator;
+import org.inria.myriads.snoozenode.groupmanager.managerpolicies.sort.SortNorm;
+
+public final class PolicyFixtures
+{
+    private PolicyFixtures()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public static ResourceDemandEstimator createStaticEstimator()
+    {
+        EstimatorSettings estimatorSettings = new EstimatorSettings();
+        estimatorSettings.setSortNorm(SortNorm.L1);
+        estimatorSettings.setStatic(true);
+        estimatorSettings.getPolicy().setCPU(Estimator.average);
+        estimatorSettings.getPolicy().setMemory(Estimator.average);
+        estimatorSettings.getPolicy().setNetwork(Estimator.average);
+
+        List<Double> thresholds = Arrays.asList(0.0, 0.8, 1.0);
+        MonitoringThresholds monitoringThresholds = new MonitoringThresholds(thresholds, thresholds, thresholds, 70.0);
+        PackingDensity packingDensity = new PackingDensity();
+        packingDensity.setCPU(1.0);
+        packingDensity.setMemory(1.0);
+        packingDensity.setNetwork(1.0);
+        return new ResourceDemandEstimator(estimatorSettings, monitoringThresholds, packingDensity);
+    }
+
+    public static VirtualMachineMetaData createVirtualMachine(String virtualMachineId,
+                                                             String localControllerId,
+                                                             double cpu,
+                                                             double memory)
+    {
+        VirtualMachineMetaData virtualMachine = new VirtualMachineMetaData();
+        virtualMachine.getVirtualMachineLocation().setVirtualMachineId(virtualMachineId);
+        virtualMachine.getVirtualMachineLocation().setLocalControllerId(localControllerId);
+        virtualMachine.setStatus(VirtualMachineStatus.RUNNING);
+        virtualMachine.setRequestedCapacity(new ArrayList<Double>(Arrays.asList(cpu, memory, 10.0, 10.0)));
+        return virtualMachine;
+    }
+
+    // layout[i][j] holds the {cpu, memory} request of virtual machine "lc<i>-vm<j>"
+    public static List<LocalControllerDescription> createLocalControllers(double[][][] layout)
+    {
+        List<LocalControllerDescription> localControllers = new ArrayList<LocalControllerDescription>();
+        for (int i = 0; i < layout.length; i++)
+        {
+            String localControllerId = "lc" + i;
+            NetworkAddress address = new NetworkAddress();
+            address.setAddress("10.0.0." + i);
+            address.setPort(5000);
+
+            LocalControllerDescription localController = new LocalControllerDescription();
+            localController.setId(localControllerId);
+            localController.setControlDataAddress(address);
+            localController.setStatus(LocalControllerStatus.ACTIVE);
+            localController.setTotalCapacity(new ArrayList<Double>(Arrays.asList(8.0, 16384.0, 1000.0, 1000.0)));
+            for (int j = 0; j < layout[i].length; j++)
+            {
+                String virtualMachineId = localControllerId + "-vm" + j;
+                localController.getVirtualMachineMetaData().put(virtualMachineId,
+                                                                createVirtualMachine(virtualMachineId,
+                                                                                     localControllerId,
+                                                                                     layout[i][j][0],
+                                                                                     layout[i][j][1]));
+            }
+
+            localControllers.add(localController);
+        }
+
+        return localControllers;
+    }
+
+    public static LocalControllerDescription getLocalController(List<LocalControllerDescription> localControllers,
+                                                                String localControllerId)
+    {
+        for (LocalControllerDescription localController : localControllers)
+        {
+            if (localController.getId().equals(localControllerId))
+            {
+                return localController;
+            }
+        }
+
+        return null;
+    }
+
+    public static void moveVirtualMachine(String virtualMachineId,
+                                          LocalControllerDescription source,
+                                          LocalControllerDescription destination)
+    {
+        VirtualMachineMetaData virtualMachine = source.getVirtualMachineMetaData().remove(virtualMachineId);
+        virtualMachine.getVirtualMachineLocation().setLocalControllerId(destination.getId());
+        destination.getVirtualMachineMetaData().put(virtualMachineId, virtualMachine);
+    }
+
+    public static List<String> getIds(List<LocalControllerDescription> localControllers)
+    {
+        List<String> ids = new ArrayList<String>();
+        for (LocalControllerDescription localController : localControllers)
+        {
+            ids.add(localController.getId());
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,44 @@
+package org.inria.myriads.snoozenode.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.inria.myriads.snoozecommon.communication.virtualcluster.monitoring.VirtualMachineMonitoringData;
+import org.inria.myriads.snoozecommon.communication.virtualcluster.submission.VirtualMachineLocation;
+import org.inria.myriads.snoozenode.localcontroller.monitoring.transport.AggregatedVirtualMachineData;
+
+public final class RepositoryFixtures
+{
+    private RepositoryFixtures()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public static VirtualMachineLocation createLocation(String virtualMachineId, String localControllerId)
+    {
+        VirtualMachineLocation location = new VirtualMachineLocation();
+        location.setVirtualMachineId(virtualMachineId);
+        location.setLocalControllerId(localControllerId);
+        return location;
+    }
+
+    public static List<AggregatedVirtualMachineData> createMonitoringData(String virtualMachineId, long timeStamp)
+    {
+        return createMonitoringData(virtualMachineId, timeStamp, 1.0);
+    }
+
+    public static List<AggregatedVirtualMachineData> createMonitoringData(String virtualMachineId,
+                                                                          long timeStamp,
+                                                                          double cpu)
+    {
+        VirtualMachineMonitoringData data = new VirtualMachineMonitoringData();
+        data.setTimeStamp(timeStamp);
+        data.setUsedCapacity(new ArrayList<Double>(Arrays.asList(cpu, 512.0, 10.0, 10.0)));
+        List<VirtualMachineMonitoringData> dataList = Collections.singletonList(data);
+        List<AggregatedVirtualMachineData> aggregatedData = new ArrayList<AggregatedVirtualMachineData>();
+        aggregatedData.add(new AggregatedVirtualMachineData(virtualMachineId, dataList));
+        return aggregatedData;
+    }
+}